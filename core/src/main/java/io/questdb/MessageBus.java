@@ -27,15 +27,29 @@ package io.questdb;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.Sequence;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.DurabilityTask;
+import io.questdb.tasks.PageFrameReduceTask;
 import io.questdb.tasks.VectorAggregateTask;
 
 public interface MessageBus {
+    Sequence getDurabilityPubSequence();
+
+    RingQueue<DurabilityTask> getDurabilityQueue();
+
+    Sequence getDurabilitySubSequence();
+
     Sequence getIndexerPubSequence();
 
     RingQueue<ColumnIndexerTask> getIndexerQueue();
 
     Sequence getIndexerSubSequence();
 
+    Sequence getPageFrameReducePubSequence();
+
+    RingQueue<PageFrameReduceTask> getPageFrameReduceQueue();
+
+    Sequence getPageFrameReduceSubSequence();
+
     RingQueue<VectorAggregateTask> getVectorAggregateQueue();
 
     Sequence getVectorAggregatePubSequence();
@@ -27,8 +27,11 @@ package io.questdb;
 import io.questdb.mp.MCSequence;
 import io.questdb.mp.MPSequence;
 import io.questdb.mp.RingQueue;
+import io.questdb.mp.SCSequence;
 import io.questdb.mp.Sequence;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.DurabilityTask;
+import io.questdb.tasks.PageFrameReduceTask;
 import io.questdb.tasks.VectorAggregateTask;
 
 public class MessageBusImpl implements MessageBus {
@@ -40,9 +43,34 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence vectorAggregatePubSeq = new MPSequence(vectorAggregateQueue.getCapacity());
     private final MCSequence vectorAggregateSubSeq = new MCSequence(vectorAggregateQueue.getCapacity());
 
+    private final RingQueue<PageFrameReduceTask> pageFrameReduceQueue = new RingQueue<>(PageFrameReduceTask::new, 1024);
+    private final MPSequence pageFrameReducePubSeq = new MPSequence(pageFrameReduceQueue.getCapacity());
+    private final MCSequence pageFrameReduceSubSeq = new MCSequence(pageFrameReduceQueue.getCapacity());
+
+    private final RingQueue<DurabilityTask> durabilityQueue = new RingQueue<>(DurabilityTask::new, 1024);
+    private final MPSequence durabilityPubSeq = new MPSequence(durabilityQueue.getCapacity());
+    private final SCSequence durabilitySubSeq = new SCSequence();
+
     public MessageBusImpl() {
         this.indexerPubSeq.then(this.indexerSubSeq).then(this.indexerPubSeq);
         this.vectorAggregatePubSeq.then(vectorAggregateSubSeq).then(vectorAggregatePubSeq);
+        this.pageFrameReducePubSeq.then(pageFrameReduceSubSeq).then(pageFrameReducePubSeq);
+        this.durabilityPubSeq.then(durabilitySubSeq).then(durabilityPubSeq);
+    }
+
+    @Override
+    public Sequence getDurabilityPubSequence() {
+        return durabilityPubSeq;
+    }
+
+    @Override
+    public RingQueue<DurabilityTask> getDurabilityQueue() {
+        return durabilityQueue;
+    }
+
+    @Override
+    public Sequence getDurabilitySubSequence() {
+        return durabilitySubSeq;
     }
 
     @Override
@@ -60,6 +88,21 @@ public class MessageBusImpl implements MessageBus {
         return indexerSubSeq;
     }
 
+    @Override
+    public Sequence getPageFrameReducePubSequence() {
+        return pageFrameReducePubSeq;
+    }
+
+    @Override
+    public RingQueue<PageFrameReduceTask> getPageFrameReduceQueue() {
+        return pageFrameReduceQueue;
+    }
+
+    @Override
+    public Sequence getPageFrameReduceSubSequence() {
+        return pageFrameReduceSubSeq;
+    }
+
     @Override
     public RingQueue<VectorAggregateTask> getVectorAggregateQueue() {
         return vectorAggregateQueue;
@@ -39,6 +39,7 @@ import io.questdb.cutlass.line.udp.LineUdpReceiverConfiguration;
 import io.questdb.cutlass.pgwire.PGWireConfiguration;
 import io.questdb.cutlass.text.TextConfiguration;
 import io.questdb.cutlass.text.types.InputFormatConfiguration;
+import io.questdb.metrics.Metrics;
 import io.questdb.mp.WorkerPoolConfiguration;
 import io.questdb.network.*;
 import io.questdb.std.*;
@@ -93,6 +94,12 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlMapMaxResizes;
     private final int sqlModelPoolCapacity;
     private final long sqlSortKeyPageSize;
+    private final long sqlMemoryLimit;
+    private final long sqlQueryMemoryLimit;
+    private final int sqlParallelQueryLimit;
+    private final int sqlParallelReorderCapacity;
+    private final boolean sqlParallelFilterEnabled;
+    private final long sqlQueryTimeout;
     private final int sqlSortKeyMaxPages;
     private final long sqlSortLightValuePageSize;
     private final int sqlSortLightValueMaxPages;
@@ -105,9 +112,12 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlSortValueMaxPages;
     private final long workStealTimeoutNanos;
     private final boolean parallelIndexingEnabled;
+    private final boolean readerMappingSharingEnabled;
     private final int sqlJoinMetadataPageSize;
     private final int sqlJoinMetadataMaxResizes;
     private final int lineUdpCommitRate;
+    private final long lineUdpCommitLag;
+    private final int lineUdpMaxUncommittedRows;
     private final int lineUdpGroupIPv4Address;
     private final int lineUdpMsgBufferSize;
     private final int lineUdpMsgCount;
@@ -116,7 +126,16 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int[] sharedWorkerAffinity;
     private final int sharedWorkerCount;
     private final boolean sharedWorkerHaltOnError;
+    private final boolean sharedWorkerNumaAware;
     private final WorkerPoolConfiguration workerPoolConfiguration = new PropWorkerPoolConfiguration();
+    private final int[] ingestWorkerAffinity;
+    private final int ingestWorkerCount;
+    private final boolean ingestWorkerHaltOnError;
+    private final WorkerPoolConfiguration ingestWorkerPoolConfiguration = new PropIngestWorkerPoolConfiguration();
+    private final int[] analyticalWorkerAffinity;
+    private final int analyticalWorkerCount;
+    private final boolean analyticalWorkerHaltOnError;
+    private final WorkerPoolConfiguration analyticalWorkerPoolConfiguration = new PropAnalyticalWorkerPoolConfiguration();
     private final PGWireConfiguration pgWireConfiguration = new PropPGWireConfiguration();
     private final InputFormatConfiguration inputFormatConfiguration;
     private final LineProtoTimestampAdapter lineUdpTimestampAdapter;
@@ -126,6 +145,12 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean lineUdpUnicast;
     private final boolean lineUdpOwnThread;
     private final int sqlCopyBufferSize;
+    private final long matViewRefreshInterval;
+    private final long partitionRetentionCheckInterval;
+    private final int partitionCompressionAgeDays;
+    private final long compressedColumnCacheSize;
+    private final int sqlParquetRowGroupSize;
+    private final long sqlJoinReorderRowThreshold;
     private final int sqlAnalyticColumnPoolCapacity;
     private final int sqlCreateTableModelPoolCapacity;
     private final int sqlColumnCastModelPoolCapacity;
@@ -140,6 +165,11 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final TimestampFormat backupDirTimestampFormat;
     private final CharSequence backupTempDirName;
     private final int backupMkdirMode;
+    private final boolean incrementalBackupEnabled;
+    private final String replicaWalRoot;
+    private final long replicaWalCheckInterval;
+    private final boolean commitSyncInBackground;
+    private final Metrics metrics;
     private final int floatToStrCastScale;
     private final int doubleToStrCastScale;
     private final PropPGWireDispatcherConfiguration propPGWireDispatcherConfiguration = new PropPGWireDispatcherConfiguration();
@@ -190,10 +220,14 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int jsonQueryConnectionCheckFrequency;
     private boolean httpFrozenClock;
     private boolean readOnlySecurityContext;
+    private boolean pgReadOnlySecurityContext;
     private long maxHttpQueryResponseRowLimit;
     private boolean interruptOnClosedConnection;
     private int interruptorNIterationsPerCheck;
     private int interruptorBufferSize;
+    private int liveQueryBatchSize;
+    private long liveQueryPollInterval;
+    private long liveQuerySendTimeout;
     private int pgNetActiveConnectionLimit;
     private int pgNetBindIPv4Address;
     private int pgNetBindPort;
@@ -227,6 +261,13 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.sharedWorkerCount = getInt(properties, "shared.worker.count", 2);
         this.sharedWorkerAffinity = getAffinity(properties, "shared.worker.affinity", sharedWorkerCount);
         this.sharedWorkerHaltOnError = getBoolean(properties, "shared.worker.haltOnError", false);
+        this.sharedWorkerNumaAware = getBoolean(properties, "shared.worker.numa.aware", false);
+        this.ingestWorkerCount = getInt(properties, "ingest.worker.count", 0);
+        this.ingestWorkerAffinity = getAffinity(properties, "ingest.worker.affinity", ingestWorkerCount);
+        this.ingestWorkerHaltOnError = getBoolean(properties, "ingest.worker.haltOnError", false);
+        this.analyticalWorkerCount = getInt(properties, "analytical.worker.count", 0);
+        this.analyticalWorkerAffinity = getAffinity(properties, "analytical.worker.affinity", analyticalWorkerCount);
+        this.analyticalWorkerHaltOnError = getBoolean(properties, "analytical.worker.haltOnError", false);
         this.httpServerEnabled = getBoolean(properties, "http.enabled", true);
         if (httpServerEnabled) {
             this.connectionPoolInitialCapacity = getInt(properties, "http.connection.pool.initial.capacity", 16);
@@ -299,6 +340,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.interruptOnClosedConnection = getBoolean(properties, "http.security.interrupt.on.closed.connection", true);
             this.interruptorNIterationsPerCheck = getInt(properties, "http.security.interruptor.iterations.per.check", 2_000_000);
             this.interruptorBufferSize = getInt(properties, "http.security.interruptor.buffer.size", 64);
+            this.liveQueryBatchSize = getIntSize(properties, "http.live.query.batch.size", 64 * 1024);
+            this.liveQueryPollInterval = getLong(properties, "http.live.query.poll.interval", 10);
+            this.liveQuerySendTimeout = getLong(properties, "http.live.query.send.timeout", 60_000);
 
             parseBindTo(properties, "http.bind.to", "0.0.0.0:9000", (a, p) -> {
                 bindIPv4Address = a;
@@ -330,6 +374,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.pgConnectionPoolInitialCapacity = getInt(properties, "pg.connection.pool.capacity", 64);
             this.pgPassword = getString(properties, "pg.password", "quest");
             this.pgUsername = getString(properties, "pg.user", "admin");
+            this.pgReadOnlySecurityContext = getBoolean(properties, "pg.security.readonly", false);
             this.pgFactoryCacheColumnCount = getInt(properties, "pg.factory.cache.column.count", 16);
             this.pgFactoryCacheRowCount = getInt(properties, "pg.factory.cache.row.count", 16);
             this.pgIdleRecvCountBeforeGivingUp = getInt(properties, "pg.idle.recv.count.before.giving.up", 10_000);
@@ -354,6 +399,8 @@ public class PropServerConfiguration implements ServerConfiguration {
         }
 
         this.commitMode = getCommitMode(properties, "cairo.commit.mode");
+        this.commitSyncInBackground = getBoolean(properties, "cairo.commit.sync.background", false);
+        this.metrics = new Metrics(getBoolean(properties, "metrics.enabled", false));
         this.createAsSelectRetryCount = getInt(properties, "cairo.create.as.select.retry.count", 5);
         this.defaultMapType = getString(properties, "cairo.default.map.type", "fast");
         this.defaultSymbolCacheFlag = getBoolean(properties, "cairo.default.symbol.cache.flag", true);
@@ -383,6 +430,12 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.sqlMapMaxPages = getIntSize(properties, "cairo.sql.map.max.pages", Integer.MAX_VALUE);
         this.sqlMapMaxResizes = getIntSize(properties, "cairo.sql.map.max.resizes", Integer.MAX_VALUE);
         this.sqlModelPoolCapacity = getInt(properties, "cairo.model.pool.capacity", 1024);
+        this.sqlMemoryLimit = getLongSize(properties, "cairo.sql.memory.limit", 0);
+        this.sqlQueryMemoryLimit = getLongSize(properties, "cairo.sql.query.memory.limit", 0);
+        this.sqlParallelQueryLimit = getInt(properties, "cairo.sql.parallel.query.limit", 0);
+        this.sqlParallelReorderCapacity = getInt(properties, "cairo.sql.parallel.reorder.capacity", 16);
+        this.sqlParallelFilterEnabled = getBoolean(properties, "cairo.sql.parallel.filter.enabled", true);
+        this.sqlQueryTimeout = getLong(properties, "cairo.sql.query.timeout", 0);
         this.sqlSortKeyPageSize = getLongSize(properties, "cairo.sql.sort.key.page.size", 4 * 1024 * 1024);
         this.sqlSortKeyMaxPages = getIntSize(properties, "cairo.sql.sort.key.max.pages", Integer.MAX_VALUE);
         this.sqlSortLightValuePageSize = getLongSize(properties, "cairo.sql.sort.light.value.page.size", 1048576);
@@ -396,6 +449,7 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.sqlSortValueMaxPages = getIntSize(properties, "cairo.sql.sort.value.max.pages", Integer.MAX_VALUE);
         this.workStealTimeoutNanos = getLong(properties, "cairo.work.steal.timeout.nanos", 10_000);
         this.parallelIndexingEnabled = getBoolean(properties, "cairo.parallel.indexing.enabled", true);
+        this.readerMappingSharingEnabled = getBoolean(properties, "cairo.reader.mapping.sharing.enabled", true);
         this.sqlJoinMetadataPageSize = getIntSize(properties, "cairo.sql.join.metadata.page.size", 16384);
         this.sqlJoinMetadataMaxResizes = getIntSize(properties, "cairo.sql.join.metadata.max.resizes", Integer.MAX_VALUE);
         this.sqlAnalyticColumnPoolCapacity = getInt(properties, "cairo.sql.analytic.column.pool.capacity", 64);
@@ -406,6 +460,12 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.sqlInsertModelPoolCapacity = getInt(properties, "cairo.sql.insert.model.pool.capacity", 64);
         this.sqlCopyModelPoolCapacity = getInt(properties, "cairo.sql.copy.model.pool.capacity", 32);
         this.sqlCopyBufferSize = getIntSize(properties, "cairo.sql.copy.buffer.size", 2 * 1024 * 1024);
+        this.matViewRefreshInterval = getLong(properties, "cairo.mat.view.refresh.interval", 1_000);
+        this.partitionRetentionCheckInterval = getLong(properties, "cairo.partition.retention.check.interval", 60_000);
+        this.partitionCompressionAgeDays = getInt(properties, "cairo.partition.compression.age.days", 0);
+        this.compressedColumnCacheSize = getLongSize(properties, "cairo.compressed.column.cache.size", 256 * 1024 * 1024);
+        this.sqlParquetRowGroupSize = getInt(properties, "cairo.sql.parquet.row.group.size", 100_000);
+        this.sqlJoinReorderRowThreshold = getLong(properties, "cairo.sql.join.reorder.row.threshold", 1_000_000);
         this.doubleToStrCastScale = getInt(properties, "cairo.sql.double.cast.scale", 12);
         this.floatToStrCastScale = getInt(properties, "cairo.sql.float.cast.scale", 4);
         this.sqlGroupByMapCapacity = getInt(properties, "cairo.sql.groupby.map.capacity", 1024);
@@ -442,6 +502,14 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.backupDirTimestampFormat = getTimestampFormat(properties, "cairo.sql.backup.dir.datetime.format", "yyyy-MM-dd");
         this.backupTempDirName = getString(properties, "cairo.sql.backup.dir.tmp.name", "tmp");
         this.backupMkdirMode = getInt(properties, "cairo.sql.backup.mkdir.mode", 509);
+        this.incrementalBackupEnabled = getBoolean(properties, "cairo.sql.backup.incremental", true);
+        this.replicaWalRoot = getString(properties, "cairo.replica.wal.root", null);
+        this.replicaWalCheckInterval = getLong(properties, "cairo.replica.wal.check.interval", 1_000);
+        if (replicaWalRoot != null) {
+            // replica tables are written by replication job only
+            this.readOnlySecurityContext = true;
+            this.pgReadOnlySecurityContext = true;
+        }
 
         parseBindTo(properties, "line.udp.bind.to", "0.0.0.0:9009", (a, p) -> {
             this.lineUdpBindIPV4Address = a;
@@ -450,10 +518,12 @@ public class PropServerConfiguration implements ServerConfiguration {
 
         this.lineUdpGroupIPv4Address = getIPv4Address(properties, "line.udp.join", "232.1.2.3");
         this.lineUdpCommitRate = getInt(properties, "line.udp.commit.rate", 1_000_000);
+        this.lineUdpCommitLag = getLong(properties, "line.udp.commit.lag", 500);
+        this.lineUdpMaxUncommittedRows = getInt(properties, "line.udp.max.uncommitted.rows", 500_000);
         this.lineUdpMsgBufferSize = getIntSize(properties, "line.udp.msg.buffer.size", 2048);
         this.lineUdpMsgCount = getInt(properties, "line.udp.msg.count", 10_000);
         this.lineUdpReceiveBufferSize = getIntSize(properties, "line.udp.receive.buffer.size", 8 * 1024 * 1024);
-        this.lineUdpEnabled = getBoolean(properties, "line.udp.enabled", true);
+        this.lineUdpEnabled = replicaWalRoot == null && getBoolean(properties, "line.udp.enabled", true);
         this.lineUdpOwnThreadAffinity = getInt(properties, "line.udp.own.thread.affinity", -1);
         this.lineUdpOwnThread = getBoolean(properties, "line.udp.own.thread", false);
         this.lineUdpUnicast = getBoolean(properties, "line.udp.unicast", false);
@@ -502,6 +572,16 @@ public class PropServerConfiguration implements ServerConfiguration {
         return workerPoolConfiguration;
     }
 
+    @Override
+    public WorkerPoolConfiguration getIngestWorkerPoolConfiguration() {
+        return ingestWorkerPoolConfiguration;
+    }
+
+    @Override
+    public WorkerPoolConfiguration getAnalyticalWorkerPoolConfiguration() {
+        return analyticalWorkerPoolConfiguration;
+    }
+
     @Override
     public PGWireConfiguration getPGWireConfiguration() {
         return pgWireConfiguration;
@@ -981,6 +1061,21 @@ public class PropServerConfiguration implements ServerConfiguration {
         public int getInterruptorBufferSize() {
             return interruptorBufferSize;
         }
+
+        @Override
+        public int getLiveQueryBatchSize() {
+            return liveQueryBatchSize;
+        }
+
+        @Override
+        public long getLiveQueryPollInterval() {
+            return liveQueryPollInterval;
+        }
+
+        @Override
+        public long getLiveQuerySendTimeout() {
+            return liveQuerySendTimeout;
+        }
     }
 
     private class PropCairoConfiguration implements CairoConfiguration {
@@ -990,6 +1085,36 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlCopyBufferSize;
         }
 
+        @Override
+        public long getMatViewRefreshInterval() {
+            return matViewRefreshInterval;
+        }
+
+        @Override
+        public long getPartitionRetentionCheckInterval() {
+            return partitionRetentionCheckInterval;
+        }
+
+        @Override
+        public int getPartitionCompressionAgeDays() {
+            return partitionCompressionAgeDays;
+        }
+
+        @Override
+        public long getCompressedColumnCacheSize() {
+            return compressedColumnCacheSize;
+        }
+
+        @Override
+        public int getSqlParquetRowGroupSize() {
+            return sqlParquetRowGroupSize;
+        }
+
+        @Override
+        public long getSqlJoinReorderRowThreshold() {
+            return sqlJoinReorderRowThreshold;
+        }
+
         @Override
         public int getCopyPoolCapacity() {
             return sqlCopyModelPoolCapacity;
@@ -1080,6 +1205,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return NanosecondClockImpl.INSTANCE;
         }
 
+        @Override
+        public Metrics getMetrics() {
+            return metrics;
+        }
+
         @Override
         public int getMkDirMode() {
             return mkdirMode;
@@ -1125,6 +1255,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return backupMkdirMode;
         }
 
+        @Override
+        public boolean isIncrementalBackupEnabled() {
+            return incrementalBackupEnabled;
+        }
+
+        @Override
+        public CharSequence getReplicaWalRoot() {
+            return replicaWalRoot;
+        }
+
+        @Override
+        public long getReplicaWalCheckInterval() {
+            return replicaWalCheckInterval;
+        }
+
         @Override
         public long getSpinLockTimeoutUs() {
             return spinLockTimeoutUs;
@@ -1195,6 +1340,31 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlModelPoolCapacity;
         }
 
+        @Override
+        public long getSqlMemoryLimit() {
+            return sqlMemoryLimit;
+        }
+
+        @Override
+        public long getSqlQueryMemoryLimit() {
+            return sqlQueryMemoryLimit;
+        }
+
+        @Override
+        public int getSqlParallelQueryLimit() {
+            return sqlParallelQueryLimit;
+        }
+
+        @Override
+        public int getSqlParallelReorderCapacity() {
+            return sqlParallelReorderCapacity;
+        }
+
+        @Override
+        public long getSqlQueryTimeout() {
+            return sqlQueryTimeout;
+        }
+
         @Override
         public long getSqlSortKeyPageSize() {
             return sqlSortKeyPageSize;
@@ -1265,6 +1435,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isSqlParallelFilterEnabled() {
+            return sqlParallelFilterEnabled;
+        }
+
+        @Override
+        public boolean isReaderMappingSharingEnabled() {
+            return readerMappingSharingEnabled;
+        }
+
         @Override
         public int getSqlJoinMetadataPageSize() {
             return sqlJoinMetadataPageSize;
@@ -1310,6 +1490,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return commitMode;
         }
 
+        @Override
+        public boolean isCommitSyncInBackground() {
+            return commitSyncInBackground;
+        }
+
         @Override
         public DateLocale getDefaultDateLocale() {
             return dateLocale;
@@ -1347,6 +1532,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineUdpCommitRate;
         }
 
+        @Override
+        public long getCommitLag() {
+            return lineUdpCommitLag;
+        }
+
+        @Override
+        public int getMaxUncommittedRows() {
+            return lineUdpMaxUncommittedRows;
+        }
+
         @Override
         public int getGroupIPv4Address() {
             return lineUdpGroupIPv4Address;
@@ -1460,6 +1655,55 @@ public class PropServerConfiguration implements ServerConfiguration {
         public boolean haltOnError() {
             return sharedWorkerHaltOnError;
         }
+
+        @Override
+        public boolean isNumaAware() {
+            return sharedWorkerNumaAware;
+        }
+    }
+
+    private class PropIngestWorkerPoolConfiguration implements WorkerPoolConfiguration {
+        @Override
+        public int[] getWorkerAffinity() {
+            return ingestWorkerAffinity;
+        }
+
+        @Override
+        public int getWorkerCount() {
+            return ingestWorkerCount;
+        }
+
+        @Override
+        public boolean haltOnError() {
+            return ingestWorkerHaltOnError;
+        }
+
+        @Override
+        public String getPoolName() {
+            return "ingest";
+        }
+    }
+
+    private class PropAnalyticalWorkerPoolConfiguration implements WorkerPoolConfiguration {
+        @Override
+        public int[] getWorkerAffinity() {
+            return analyticalWorkerAffinity;
+        }
+
+        @Override
+        public int getWorkerCount() {
+            return analyticalWorkerCount;
+        }
+
+        @Override
+        public boolean haltOnError() {
+            return analyticalWorkerHaltOnError;
+        }
+
+        @Override
+        public String getPoolName() {
+            return "analytical";
+        }
     }
 
     private class PropPGWireDispatcherConfiguration implements IODispatcherConfiguration {
@@ -1572,6 +1816,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return pgUsername;
         }
 
+        @Override
+        public boolean readOnlySecurityContext() {
+            return pgReadOnlySecurityContext;
+        }
+
         @Override
         public IODispatcherConfiguration getDispatcherConfiguration() {
             return propPGWireDispatcherConfiguration;
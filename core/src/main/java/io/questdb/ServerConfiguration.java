@@ -40,5 +40,11 @@ public interface ServerConfiguration {
 
     WorkerPoolConfiguration getWorkerPoolConfiguration();
 
+    // pool for ingestion side jobs, they stay on shared pool when it has no workers
+    WorkerPoolConfiguration getIngestWorkerPoolConfiguration();
+
+    // pool for parallel query reduce jobs, with 0 workers they run on shared pool next to the interactive load
+    WorkerPoolConfiguration getAnalyticalWorkerPoolConfiguration();
+
     PGWireConfiguration getPGWireConfiguration();
 }
@@ -25,17 +25,27 @@
 package io.questdb;
 
 import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.ColumnIndexerJob;
+import io.questdb.cairo.DurabilityJob;
+import io.questdb.cairo.PartitionCompressionJob;
+import io.questdb.cairo.PartitionRetentionJob;
+import io.questdb.cairo.WalReplicationJob;
+import io.questdb.cairo.sql.async.PageFrameReduceJob;
 import io.questdb.cutlass.http.HttpServer;
 import io.questdb.cutlass.line.udp.AbstractLineProtoReceiver;
 import io.questdb.cutlass.line.udp.LineProtoReceiver;
 import io.questdb.cutlass.line.udp.LinuxMMLineProtoReceiver;
 import io.questdb.cutlass.pgwire.PGWireServer;
+import io.questdb.griffin.MaterializedViewRefreshJob;
+import io.questdb.griffin.engine.groupby.vect.GroupByNotKeyedJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Metrics;
 import io.questdb.mp.WorkerPool;
 import io.questdb.network.NetworkError;
 import io.questdb.std.*;
 import io.questdb.std.time.Dates;
+import org.jetbrains.annotations.Nullable;
 import sun.misc.Signal;
 
 import java.io.*;
@@ -139,10 +149,59 @@ public class ServerMain {
 
         final WorkerPool workerPool = new WorkerPool(configuration.getWorkerPoolConfiguration());
         final MessageBus messageBus = new MessageBusImpl();
+        // ingestion side jobs move to their own pool when it is configured, queries cannot starve them there
+        final WorkerPool ingestPool = configuration.getIngestWorkerPoolConfiguration().getWorkerCount() > 0
+                ? new WorkerPool(configuration.getIngestWorkerPoolConfiguration())
+                : workerPool;
+        // parallel query jobs move off shared workers, connection handling there is not queued behind reduce tasks
+        final WorkerPool analyticalPool = configuration.getAnalyticalWorkerPoolConfiguration().getWorkerCount() > 0
+                ? new WorkerPool(configuration.getAnalyticalWorkerPoolConfiguration())
+                : null;
 
         LogFactory.configureFromSystemProperties(workerPool);
         final CairoEngine cairoEngine = new CairoEngine(configuration.getCairoConfiguration(), messageBus);
-        workerPool.assign(cairoEngine.getWriterMaintenanceJob());
+        final Metrics metrics = configuration.getCairoConfiguration().getMetrics();
+        metrics.addWorkerPool(workerPool);
+        if (ingestPool != workerPool) {
+            metrics.addWorkerPool(ingestPool);
+            ingestPool.assign(new ColumnIndexerJob(messageBus));
+        }
+        ingestPool.assign(cairoEngine.getWriterMaintenanceJob());
+        if (analyticalPool != null) {
+            metrics.addWorkerPool(analyticalPool);
+            analyticalPool.assign(new GroupByNotKeyedJob(messageBus));
+            analyticalPool.assign(new PageFrameReduceJob(messageBus, analyticalPool));
+        }
+
+        if (configuration.getCairoConfiguration().getPartitionCompressionAgeDays() > 0) {
+            final PartitionCompressionJob partitionCompressionJob = new PartitionCompressionJob(cairoEngine);
+            ingestPool.assign(partitionCompressionJob);
+            ingestPool.assign(0, partitionCompressionJob::close);
+        }
+
+        if (configuration.getCairoConfiguration().getPartitionRetentionCheckInterval() > 0) {
+            final PartitionRetentionJob partitionRetentionJob = new PartitionRetentionJob(cairoEngine);
+            ingestPool.assign(partitionRetentionJob);
+            ingestPool.assign(0, partitionRetentionJob::close);
+        }
+
+        if (configuration.getCairoConfiguration().isCommitSyncInBackground()) {
+            final DurabilityJob durabilityJob = new DurabilityJob(configuration.getCairoConfiguration(), messageBus);
+            ingestPool.assign(durabilityJob);
+            ingestPool.assign(0, durabilityJob::close);
+        }
+
+        if (configuration.getCairoConfiguration().getReplicaWalRoot() != null) {
+            final WalReplicationJob walReplicationJob = new WalReplicationJob(cairoEngine);
+            ingestPool.assign(walReplicationJob);
+            ingestPool.assign(0, walReplicationJob::close);
+        }
+
+        if (configuration.getCairoConfiguration().getMatViewRefreshInterval() > 0) {
+            final MaterializedViewRefreshJob materializedViewRefreshJob = new MaterializedViewRefreshJob(cairoEngine, messageBus);
+            workerPool.assign(materializedViewRefreshJob);
+            workerPool.assign(0, materializedViewRefreshJob::close);
+        }
 
         try {
             final HttpServer httpServer = HttpServer.create(
@@ -150,7 +209,8 @@ public class ServerMain {
                     workerPool,
                     log,
                     cairoEngine,
-                    messageBus
+                    messageBus,
+                    analyticalPool == null
             );
 
             final PGWireServer pgWireServer;
@@ -173,17 +233,17 @@ public class ServerMain {
                 lineProtocolReceiver = new LinuxMMLineProtoReceiver(
                         configuration.getLineUdpReceiverConfiguration(),
                         cairoEngine,
-                        workerPool
+                        ingestPool
                 );
             } else {
                 lineProtocolReceiver = new LineProtoReceiver(
                         configuration.getLineUdpReceiverConfiguration(),
                         cairoEngine,
-                        workerPool
+                        ingestPool
                 );
             }
 
-            startQuestDb(workerPool, lineProtocolReceiver, log);
+            startQuestDb(workerPool, ingestPool, analyticalPool, lineProtocolReceiver, log);
 
             if (Os.type != Os.WINDOWS && optHash.get("-n") == null) {
                 // suppress HUP signal
@@ -193,7 +253,7 @@ public class ServerMain {
 
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 System.err.println(new Date() + " QuestDB is shutting down");
-                shutdownQuestDb(workerPool, cairoEngine, httpServer, pgWireServer, lineProtocolReceiver);
+                shutdownQuestDb(workerPool, ingestPool, analyticalPool, cairoEngine, httpServer, pgWireServer, lineProtocolReceiver);
                 System.err.println(new Date() + " QuestDB is down");
             }));
         } catch (NetworkError e) {
@@ -335,6 +395,8 @@ public class ServerMain {
     }
 
     protected static void shutdownQuestDb(final WorkerPool workerPool,
+                                          final WorkerPool ingestPool,
+                                          @Nullable final WorkerPool analyticalPool,
                                           final CairoEngine cairoEngine,
                                           final HttpServer httpServer,
                                           final PGWireServer pgWireServer,
@@ -342,6 +404,10 @@ public class ServerMain {
     ) {
         lineProtocolReceiver.halt();
         workerPool.halt();
+        ingestPool.halt();
+        if (analyticalPool != null) {
+            analyticalPool.halt();
+        }
         Misc.free(pgWireServer);
         Misc.free(httpServer);
         Misc.free(cairoEngine);
@@ -350,10 +416,16 @@ public class ServerMain {
 
     protected static void startQuestDb(
             final WorkerPool workerPool,
+            final WorkerPool ingestPool,
+            @Nullable final WorkerPool analyticalPool,
             final AbstractLineProtoReceiver lineProtocolReceiver,
             final Log log
     ) {
         workerPool.start(log);
+        ingestPool.start(log);
+        if (analyticalPool != null) {
+            analyticalPool.start(log);
+        }
         lineProtocolReceiver.start();
     }
 }
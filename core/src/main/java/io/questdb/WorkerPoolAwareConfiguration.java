@@ -60,6 +60,7 @@ public interface WorkerPoolAwareConfiguration extends WorkerPoolConfiguration {
             server = factory.create(configuration, cairoEngine, localPool, local, bus);
 
             if (local) {
+                cairoEngine.getConfiguration().getMetrics().addWorkerPool(localPool);
                 localPool.start(log);
             }
 
@@ -37,6 +37,10 @@ public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorF
         this.tableVersion = tableVersion;
     }
 
+    public String getTableName() {
+        return tableName;
+    }
+
     protected TableReader getReader(CairoSecurityContext securityContext) {
         return engine.getReader(
                 securityContext,
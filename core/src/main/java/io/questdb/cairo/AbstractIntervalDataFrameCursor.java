@@ -118,6 +118,18 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
         calculateRanges();
     }
 
+    /**
+     * Replaces intervals of this cursor, used when intervals are not known until query is executed.
+     *
+     * @param reader    table reader
+     * @param intervals pairs of microsecond interval values, list is copied
+     */
+    public void of(TableReader reader, @Transient LongList intervals) {
+        this.intervals.clear();
+        this.intervals.add(intervals);
+        of(reader);
+    }
+
     private void calculateRanges() {
         if (intervals.size() > 0) {
             if (reader.getPartitionedBy() == PartitionBy.NONE) {
@@ -131,8 +143,13 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
                     cullPartitions();
                 }
             }
-            toTop();
+        } else {
+            initialIntervalsLo = 0;
+            initialIntervalsHi = 0;
+            initialPartitionLo = 0;
+            initialPartitionHi = 0;
         }
+        toTop();
     }
 
     private void cullIntervals() {
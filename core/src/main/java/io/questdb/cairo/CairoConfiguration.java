@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cutlass.text.TextConfiguration;
+import io.questdb.metrics.Metrics;
 import io.questdb.std.FilesFacade;
 import io.questdb.std.NanosecondClock;
 import io.questdb.std.microtime.MicrosecondClock;
@@ -37,6 +38,19 @@ public interface CairoConfiguration {
 
     int getSqlCopyBufferSize();
 
+    long getMatViewRefreshInterval();
+
+    long getPartitionRetentionCheckInterval();
+
+    int getPartitionCompressionAgeDays();
+
+    // total size of released decompressed columns that readers keep for reuse
+    long getCompressedColumnCacheSize();
+
+    int getSqlParquetRowGroupSize();
+
+    long getSqlJoinReorderRowThreshold();
+
     int getCopyPoolCapacity();
 
     int getCreateAsSelectRetryCount();
@@ -71,6 +85,8 @@ public interface CairoConfiguration {
 
     NanosecondClock getNanosecondClock();
 
+    Metrics getMetrics();
+
     int getMkDirMode();
 
     int getParallelIndexThreshold();
@@ -91,6 +107,17 @@ public interface CairoConfiguration {
 
     int getBackupMkDirMode();
 
+    // when enabled closed partitions unchanged since previous backup are hard linked
+    boolean isIncrementalBackupEnabled();
+
+    /**
+     * @return directory with write-ahead logs shipped from primary instance, laid out as [table]/wal/[seq].wal,
+     * null when this instance is not a replica
+     */
+    CharSequence getReplicaWalRoot();
+
+    long getReplicaWalCheckInterval();
+
     long getSpinLockTimeoutUs();
 
     int getSqlCharacterStoreCapacity();
@@ -119,6 +146,21 @@ public interface CairoConfiguration {
 
     int getSqlModelPoolCapacity();
 
+    // native memory all queries together can allocate for maps, record chains and sort trees, 0 for no limit
+    long getSqlMemoryLimit();
+
+    // native memory single query can allocate for maps, record chains and sort trees, 0 for no limit
+    long getSqlQueryMemoryLimit();
+
+    // queries that can fan page frames out to worker queues at the same time, 0 for no limit
+    int getSqlParallelQueryLimit();
+
+    // page frames of one query that can be reduced ahead of the frame query thread is consuming
+    int getSqlParallelReorderCapacity();
+
+    // wall-clock time in milliseconds client query can run before it is aborted, 0 for no timeout
+    long getSqlQueryTimeout();
+
     long getSqlSortKeyPageSize();
 
     int getSqlSortKeyMaxPages();
@@ -147,6 +189,11 @@ public interface CairoConfiguration {
 
     boolean isParallelIndexingEnabled();
 
+    // when enabled filters over page frames are evaluated by worker threads, see AsyncFilteredRecordCursorFactory
+    boolean isSqlParallelFilterEnabled();
+
+    boolean isReaderMappingSharingEnabled();
+
     /**
      * This holds table metadata, which is usually quite small. 16K page should be adequate.
      *
@@ -170,6 +217,9 @@ public interface CairoConfiguration {
 
     int getCommitMode();
 
+    // when enabled SYNC commits leave msync of table files to DurabilityJob
+    boolean isCommitSyncInBackground();
+
     DateLocale getDefaultDateLocale();
 
     TimestampLocale getDefaultTimestampLocale();
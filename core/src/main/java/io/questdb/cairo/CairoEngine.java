@@ -29,6 +29,8 @@ import io.questdb.cairo.pool.PoolListener;
 import io.questdb.cairo.pool.ReaderPool;
 import io.questdb.cairo.pool.WriterPool;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
+import io.questdb.griffin.QueryRegistry;
+import io.questdb.griffin.engine.ParallelQueryAdmission;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.Job;
@@ -37,6 +39,7 @@ import io.questdb.std.Files;
 import io.questdb.std.FilesFacade;
 import io.questdb.std.Misc;
 import io.questdb.std.Transient;
+import io.questdb.std.Unsafe;
 import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.str.Path;
 import org.jetbrains.annotations.Nullable;
@@ -53,6 +56,8 @@ public class CairoEngine implements Closeable {
     private final CairoConfiguration configuration;
     private final WriterMaintenanceJob writerMaintenanceJob;
     private final MessageBus messageBus;
+    private final ParallelQueryAdmission parallelQueryAdmission;
+    private final QueryRegistry queryRegistry;
 
     public CairoEngine(CairoConfiguration configuration) {
         this(configuration, null);
@@ -64,6 +69,10 @@ public class CairoEngine implements Closeable {
         this.readerPool = new ReaderPool(configuration);
         this.writerMaintenanceJob = new WriterMaintenanceJob(configuration);
         this.messageBus = messageBus;
+        this.parallelQueryAdmission = new ParallelQueryAdmission(configuration.getSqlParallelQueryLimit());
+        this.queryRegistry = new QueryRegistry(configuration);
+        // native memory accounting is process wide, engine configures it for all queries
+        Unsafe.setSqlMemoryLimit(configuration.getSqlMemoryLimit());
     }
 
     public Job getWriterMaintenanceJob() {
@@ -101,6 +110,14 @@ public class CairoEngine implements Closeable {
         return writerPool.getBusyCount();
     }
 
+    public ParallelQueryAdmission getParallelQueryAdmission() {
+        return parallelQueryAdmission;
+    }
+
+    public QueryRegistry getQueryRegistry() {
+        return queryRegistry;
+    }
+
     public CairoConfiguration getConfiguration() {
         return configuration;
     }
@@ -67,6 +67,10 @@ public class CairoException extends RuntimeException implements Sinkable, Flywei
         return this;
     }
 
+    public int getErrno() {
+        return errno;
+    }
+
     @Override
     public CharSequence getFlyweightMessage() {
         return message;
@@ -0,0 +1,391 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Codecs for column files of closed partitions. Compressed file starts with a 16 byte header:
+ * <pre>
+ * bytes 0..7   size of the original file
+ * bytes 8..11  codec
+ * bytes 12..15 reserved
+ * </pre>
+ * followed by codec payload. Codec is picked by column type:
+ * <ul>
+ * <li>TIMESTAMP, DATE and offsets of STRING and BINARY values - delta-of-delta, zig-zag varint</li>
+ * <li>DOUBLE - xor with previous value, only meaningful bytes are stored</li>
+ * <li>SYMBOL keys - run-length, varint</li>
+ * <li>everything else - deflate</li>
+ * </ul>
+ */
+public final class ColumnCompression {
+    public static final int CODEC_DEFLATE = 0;
+    public static final int CODEC_DELTA_OF_DELTA = 1;
+    public static final int CODEC_XOR = 2;
+    public static final int CODEC_RLE = 3;
+    public static final int HEADER_SIZE = 16;
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int Z_STREAM_END = 1;
+
+    private ColumnCompression() {
+    }
+
+    /**
+     * Compresses file and writes result to another file. Source file is left intact.
+     *
+     * @param ff    files facade
+     * @param from  file to compress
+     * @param to    compressed file to create
+     * @param codec one of CODEC_* constants
+     * @param mem   memory used to write compressed file, it is closed by this method
+     * @return size of compressed file
+     */
+    public static long compress(FilesFacade ff, LPSZ from, LPSZ to, int codec, AppendMemory mem) {
+        final long size = ff.length(from);
+        final long fd = ff.openRO(from);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot open: ").put(from);
+        }
+        try {
+            final long address = ff.mmap(fd, size, 0, Files.MAP_RO);
+            if (address == -1) {
+                throw CairoException.instance(ff.errno()).put("Cannot mmap: ").put(from);
+            }
+            try {
+                mem.of(ff, to, ff.getMapPageSize());
+                try {
+                    encode(address, size, codec, mem);
+                    return mem.getAppendOffset();
+                } finally {
+                    mem.close();
+                }
+            } finally {
+                ff.munmap(address, size);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    public static void decode(long src, long srcSize, long dst, long dstSize) {
+        if (srcSize < HEADER_SIZE || Unsafe.getUnsafe().getLong(src) != dstSize) {
+            throw CairoException.instance(0).put("compressed column size mismatch [expected=").put(dstSize).put(']');
+        }
+
+        final int codec = Unsafe.getUnsafe().getInt(src + 8);
+        final long lo = src + HEADER_SIZE;
+        final long hi = src + srcSize;
+        switch (codec) {
+            case CODEC_DELTA_OF_DELTA:
+                decodeDeltaOfDelta(lo, hi, dst, dstSize / Long.BYTES);
+                break;
+            case CODEC_XOR:
+                decodeXor(lo, hi, dst, dstSize / Double.BYTES);
+                break;
+            case CODEC_RLE:
+                decodeRle(lo, hi, dst, dstSize / Integer.BYTES);
+                break;
+            default:
+                inflate(lo, hi - lo, dst, dstSize);
+                break;
+        }
+    }
+
+    public static void encode(long address, long size, int codec, VirtualMemory mem) {
+        mem.putLong(size);
+        mem.putInt(codec);
+        mem.putInt(0);
+        switch (codec) {
+            case CODEC_DELTA_OF_DELTA:
+                encodeDeltaOfDelta(address, size / Long.BYTES, mem);
+                break;
+            case CODEC_XOR:
+                encodeXor(address, size / Double.BYTES, mem);
+                break;
+            case CODEC_RLE:
+                encodeRle(address, size / Integer.BYTES, mem);
+                break;
+            default:
+                deflate(address, size, mem);
+                break;
+        }
+    }
+
+    public static int getCodec(int columnType) {
+        switch (columnType) {
+            case ColumnType.TIMESTAMP:
+            case ColumnType.DATE:
+                return CODEC_DELTA_OF_DELTA;
+            case ColumnType.DOUBLE:
+                return CODEC_XOR;
+            case ColumnType.SYMBOL:
+                return CODEC_RLE;
+            default:
+                return CODEC_DEFLATE;
+        }
+    }
+
+    public static int getSecondaryCodec(int columnType) {
+        switch (columnType) {
+            case ColumnType.STRING:
+            case ColumnType.BINARY:
+                return CODEC_DELTA_OF_DELTA;
+            default:
+                return CODEC_DEFLATE;
+        }
+    }
+
+    static long readDecodedSize(FilesFacade ff, LPSZ name, long tempMem8b) {
+        final long fd = ff.openRO(name);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot open: ").put(name);
+        }
+        try {
+            if (ff.read(fd, tempMem8b, 8, 0) != 8) {
+                throw CairoException.instance(ff.errno()).put("Cannot read: ").put(name);
+            }
+            return Unsafe.getUnsafe().getLong(tempMem8b);
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    private static void decodeDeltaOfDelta(long lo, long hi, long dst, long count) {
+        if (count == 0) {
+            return;
+        }
+        long p = lo;
+        long value = Unsafe.getUnsafe().getLong(p);
+        p += Long.BYTES;
+        Unsafe.getUnsafe().putLong(dst, value);
+        long delta = 0;
+        for (long i = 1; i < count; i++) {
+            long v = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (p == hi) {
+                    throw corrupt();
+                }
+                b = Unsafe.getUnsafe().getByte(p++);
+                v |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            delta += (v >>> 1) ^ -(v & 1);
+            value += delta;
+            Unsafe.getUnsafe().putLong(dst + i * Long.BYTES, value);
+        }
+    }
+
+    private static void decodeRle(long lo, long hi, long dst, long count) {
+        long p = lo;
+        long i = 0;
+        while (i < count) {
+            long run = 0;
+            long v = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (p == hi) {
+                    throw corrupt();
+                }
+                b = Unsafe.getUnsafe().getByte(p++);
+                run |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            shift = 0;
+            do {
+                if (p == hi) {
+                    throw corrupt();
+                }
+                b = Unsafe.getUnsafe().getByte(p++);
+                v |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            if (run < 1 || i + run > count) {
+                throw corrupt();
+            }
+
+            final int value = (int) ((v >>> 1) ^ -(v & 1));
+            for (long n = i + run; i < n; i++) {
+                Unsafe.getUnsafe().putInt(dst + i * Integer.BYTES, value);
+            }
+        }
+    }
+
+    private static void decodeXor(long lo, long hi, long dst, long count) {
+        long p = lo;
+        long prev = 0;
+        for (long i = 0; i < count; i++) {
+            if (p == hi) {
+                throw corrupt();
+            }
+            final int control = Unsafe.getUnsafe().getByte(p++) & 0xff;
+            if (control != 0) {
+                final int trailing = control & 7;
+                final int n = Long.BYTES - ((control >>> 3) & 7) - trailing;
+                if (p + n > hi) {
+                    throw corrupt();
+                }
+                long xor = 0;
+                for (int k = 0; k < n; k++) {
+                    xor = (xor << 8) | (Unsafe.getUnsafe().getByte(p++) & 0xff);
+                }
+                prev ^= xor << (trailing << 3);
+            }
+            Unsafe.getUnsafe().putLong(dst + i * Double.BYTES, prev);
+        }
+    }
+
+    private static void deflate(long address, long size, VirtualMemory mem) {
+        final long z = Zip.deflateInit();
+        if (z < 0) {
+            throw CairoException.instance(0).put("could not initialize deflate [ret=").put(z).put(']');
+        }
+        final long out = Unsafe.malloc(CHUNK_SIZE);
+        try {
+            long offset = 0;
+            boolean flush;
+            do {
+                final int len = (int) Math.min(size - offset, CHUNK_SIZE);
+                Zip.setInput(z, address + offset, len);
+                offset += len;
+                flush = offset == size;
+                int ret;
+                do {
+                    ret = Zip.deflate(z, out, CHUNK_SIZE, flush);
+                    if (ret < 0) {
+                        throw CairoException.instance(0).put("could not deflate [ret=").put(ret).put(']');
+                    }
+                    mem.putBlockOfBytes(out, CHUNK_SIZE - Zip.availOut(z));
+                } while (flush ? ret != Z_STREAM_END : Zip.availIn(z) > 0);
+            } while (!flush);
+        } finally {
+            Unsafe.free(out, CHUNK_SIZE);
+            Zip.deflateEnd(z);
+        }
+    }
+
+    private static CairoException corrupt() {
+        return CairoException.instance(0).put("compressed column is corrupt");
+    }
+
+    private static void encodeDeltaOfDelta(long address, long count, VirtualMemory mem) {
+        if (count == 0) {
+            return;
+        }
+        long prev = Unsafe.getUnsafe().getLong(address);
+        mem.putLong(prev);
+        long prevDelta = 0;
+        for (long i = 1; i < count; i++) {
+            final long value = Unsafe.getUnsafe().getLong(address + i * Long.BYTES);
+            final long delta = value - prev;
+            putVarLong(mem, zigZag(delta - prevDelta));
+            prevDelta = delta;
+            prev = value;
+        }
+    }
+
+    private static void encodeRle(long address, long count, VirtualMemory mem) {
+        long i = 0;
+        while (i < count) {
+            final int value = Unsafe.getUnsafe().getInt(address + i * Integer.BYTES);
+            long run = 1;
+            while (i + run < count && Unsafe.getUnsafe().getInt(address + (i + run) * Integer.BYTES) == value) {
+                run++;
+            }
+            putVarLong(mem, run);
+            putVarLong(mem, zigZag(value));
+            i += run;
+        }
+    }
+
+    private static void encodeXor(long address, long count, VirtualMemory mem) {
+        long prev = 0;
+        for (long i = 0; i < count; i++) {
+            final long value = Unsafe.getUnsafe().getLong(address + i * Double.BYTES);
+            final long xor = value ^ prev;
+            if (xor == 0) {
+                mem.putByte((byte) 0);
+            } else {
+                final int leading = Long.numberOfLeadingZeros(xor) >>> 3;
+                final int trailing = Long.numberOfTrailingZeros(xor) >>> 3;
+                mem.putByte((byte) (0x80 | (leading << 3) | trailing));
+                for (int k = Long.BYTES - leading - 1; k >= trailing; k--) {
+                    mem.putByte((byte) (xor >>> (k << 3)));
+                }
+            }
+            prev = value;
+        }
+    }
+
+    private static void inflate(long src, long srcSize, long dst, long dstSize) {
+        final long z = Zip.inflateInit(true);
+        if (z < 0) {
+            throw CairoException.instance(0).put("could not initialize inflate [ret=").put(z).put(']');
+        }
+        try {
+            long inOffset = 0;
+            long outOffset = 0;
+            while (outOffset < dstSize) {
+                if (Zip.availIn(z) == 0) {
+                    final int len = (int) Math.min(srcSize - inOffset, CHUNK_SIZE);
+                    if (len == 0) {
+                        throw corrupt();
+                    }
+                    Zip.setInput(z, src + inOffset, len);
+                    inOffset += len;
+                }
+                final int ret = Zip.inflate(z, dst + outOffset, (int) Math.min(dstSize - outOffset, CHUNK_SIZE), false);
+                if (ret < 0) {
+                    throw CairoException.instance(0).put("could not inflate [ret=").put(ret).put(']');
+                }
+                if (ret == 0 && Zip.availIn(z) > 0) {
+                    // stream ended before we got all of the data
+                    throw corrupt();
+                }
+                outOffset += ret;
+            }
+        } finally {
+            Zip.inflateEnd(z);
+        }
+    }
+
+    private static void putVarLong(VirtualMemory mem, long value) {
+        while ((value & ~0x7fL) != 0) {
+            mem.putByte((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        mem.putByte((byte) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
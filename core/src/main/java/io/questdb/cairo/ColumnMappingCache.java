@@ -0,0 +1,109 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+
+/**
+ * Process-wide cache of read-only column file mappings. Partitions other than the last are immutable,
+ * so every table reader that opens such partition can use the same mapping. Mappings are reference
+ * counted and unmapped when the last reader releases them.
+ * <p>
+ * Mappings are keyed by file name and table data version, truncate bumps the latter, so that readers
+ * never observe stale file content when table is re-populated under the same partition names.
+ */
+public class ColumnMappingCache {
+    public static final ColumnMappingCache INSTANCE = new ColumnMappingCache();
+    private static final Log LOG = LogFactory.getLog(ColumnMappingCache.class);
+    private final CharSequenceObjHashMap<Mapping> mappings = new CharSequenceObjHashMap<>();
+
+    public synchronized long acquire(FilesFacade ff, CharSequence key, long fd, long size) {
+        Mapping mapping = mappings.get(key);
+        if (mapping != null) {
+            if (mapping.size == size) {
+                mapping.refCount++;
+                return mapping.address;
+            }
+            // file changed size under the same version, which should not happen to immutable
+            // partition; do not share the mapping rather than serve wrong content
+            return mmap(ff, fd, size);
+        }
+
+        final long address = mmap(ff, fd, size);
+        // key is copied once per mapping, callers reuse their key sinks
+        mappings.put(Chars.toString(key), new Mapping(ff, address, size));
+        return address;
+    }
+
+    public synchronized int getMappingCount() {
+        return mappings.size();
+    }
+
+    public synchronized int getRefCount(CharSequence key) {
+        final Mapping mapping = mappings.get(key);
+        return mapping == null ? 0 : mapping.refCount;
+    }
+
+    public synchronized void release(FilesFacade ff, CharSequence key, long address, long size) {
+        final Mapping mapping = mappings.get(key);
+        if (mapping == null || mapping.address != address) {
+            ff.munmap(address, size);
+            return;
+        }
+
+        if (--mapping.refCount == 0) {
+            mappings.remove(key);
+            mapping.ff.munmap(mapping.address, mapping.size);
+            LOG.debug().$("unmapped [key=").$(key).$(']').$();
+        }
+    }
+
+    private static long mmap(FilesFacade ff, long fd, long size) {
+        final long address = ff.mmap(fd, size, 0, Files.MAP_RO);
+        if (address == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot mmap [fd=").put(fd).put(", size=").put(size).put(']');
+        }
+        return address;
+    }
+
+    private static class Mapping {
+        private final FilesFacade ff;
+        private final long address;
+        private final long size;
+        private int refCount = 1;
+
+        private Mapping(FilesFacade ff, long address, long size) {
+            this.ff = ff;
+            this.address = address;
+            this.size = size;
+        }
+    }
+}
@@ -48,11 +48,12 @@ public final class ColumnType {
     public static final int LONG256 = 12;
     public static final int BINARY = 13;
     public static final int PARAMETER = 14;
-    public static final int MAX = PARAMETER;
+    public static final int VARCHAR = 15;
+    public static final int MAX = VARCHAR;
     private static final IntObjHashMap<String> typeNameMap = new IntObjHashMap<>();
     private static final LowerCaseAsciiCharSequenceIntHashMap nameTypeMap = new LowerCaseAsciiCharSequenceIntHashMap();
-    private static final int[] TYPE_SIZE_POW2 = new int[ColumnType.PARAMETER + 1];
-    private static final int[] TYPE_SIZE = new int[ColumnType.PARAMETER + 1];
+    private static final int[] TYPE_SIZE_POW2 = new int[ColumnType.MAX + 1];
+    private static final int[] TYPE_SIZE = new int[ColumnType.MAX + 1];
 
     static {
         typeNameMap.put(BOOLEAN, "BOOLEAN");
@@ -71,6 +72,7 @@ public final class ColumnType {
         typeNameMap.put(TIMESTAMP, "TIMESTAMP");
         typeNameMap.put(TypeEx.CURSOR, "CURSOR");
         typeNameMap.put(LONG256, "LONG256");
+        typeNameMap.put(VARCHAR, "VARCHAR");
 
         nameTypeMap.put("boolean", BOOLEAN);
         nameTypeMap.put("byte", BYTE);
@@ -88,6 +90,7 @@ public final class ColumnType {
         nameTypeMap.put("timestamp", TIMESTAMP);
         nameTypeMap.put("cursor", TypeEx.CURSOR);
         nameTypeMap.put("long256", ColumnType.LONG256);
+        nameTypeMap.put("varchar", VARCHAR);
 
         TYPE_SIZE_POW2[ColumnType.BOOLEAN] = 0;
         TYPE_SIZE_POW2[ColumnType.BYTE] = 0;
@@ -136,7 +139,7 @@ public final class ColumnType {
     }
 
     public static int sizeOf(int columnType) {
-        if (columnType < 0 || columnType > ColumnType.PARAMETER) {
+        if (columnType < 0 || columnType > ColumnType.MAX) {
             return -1;
         }
         return TYPE_SIZE[columnType];
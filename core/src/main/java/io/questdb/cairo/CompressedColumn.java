@@ -0,0 +1,73 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Column of compressed partition. Column file is decompressed on first read, or when partition is opened
+ * for columns that are not lazy. Decompressed memory is shared with other readers via
+ * {@link DecompressedColumnCache} and released when column is closed.
+ */
+public class CompressedColumn extends OnePageMemory {
+    private final DecompressedColumnCache cache;
+    private String key;
+
+    /**
+     * @param cache       cache of decompressed columns
+     * @param ff          files facade
+     * @param name        compressed column file
+     * @param size        size of decompressed column, see {@link ColumnCompression#readDecodedSize(FilesFacade, LPSZ, long)}
+     * @param dataVersion data version of table
+     * @param lazy        when true column is decompressed on first read rather than when partition is opened
+     */
+    public CompressedColumn(DecompressedColumnCache cache, FilesFacade ff, LPSZ name, long size, long dataVersion, boolean lazy) {
+        super(lazy);
+        this.cache = cache;
+        try {
+            of(ff, name, size, dataVersion);
+        } catch (CairoException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public void of(FilesFacade ff, LPSZ name, long size, long dataVersion) {
+        close();
+        this.key = name.toString() + '#' + dataVersion + '#' + ff.length(name);
+        super.of(ff, name, 0, size);
+    }
+
+    @Override
+    protected long map(FilesFacade ff, long fd, long size) {
+        return cache.acquire(ff, key, fd, size);
+    }
+
+    @Override
+    protected void unmap(FilesFacade ff, long address, long size) {
+        cache.release(key, address, size);
+    }
+}
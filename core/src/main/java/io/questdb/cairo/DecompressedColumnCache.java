@@ -0,0 +1,180 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Bounded cache of decompressed column files, shared by readers of a {@link io.questdb.cairo.pool.ReaderPool}.
+ * Entries are reference counted: column that is in use is never evicted, because data frames hand out raw
+ * addresses of its memory. Released entries stay cached until total size of the cache exceeds its capacity,
+ * least recently used ones are freed first. Cache can exceed capacity only while all of its entries are in use.
+ * <p>
+ * Compressed files are immutable once published, entries are keyed by file name, table data version and
+ * compressed file size.
+ */
+public class DecompressedColumnCache implements Closeable {
+    private static final Log LOG = LogFactory.getLog(DecompressedColumnCache.class);
+    private final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+    private long capacity;
+    private long size;
+    private long clock;
+
+    /**
+     * @param capacity total size of released entries the cache keeps, 0 frees entries as soon as they are released
+     */
+    public DecompressedColumnCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    public synchronized long acquire(FilesFacade ff, String key, long fd, long size) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.size == size) {
+            entry.refCount++;
+            entry.lastUsed = ++clock;
+            return entry.address;
+        }
+
+        final long address = decode(ff, fd, size);
+        if (entry != null) {
+            // file changed under the same key, do not share the memory rather than serve wrong content
+            return address;
+        }
+        entries.put(key, new Entry(address, size, ++clock));
+        this.size += size;
+        evict();
+        return address;
+    }
+
+    /**
+     * Frees released entries. Entries that are in use are freed when they are released.
+     */
+    @Override
+    public synchronized void close() {
+        capacity = 0;
+        clear();
+    }
+
+    /**
+     * Frees released entries.
+     */
+    public synchronized void clear() {
+        final ObjList<CharSequence> keys = entries.keys();
+        for (int i = keys.size() - 1; i > -1; i--) {
+            final CharSequence key = keys.getQuick(i);
+            final Entry entry = entries.get(key);
+            if (entry.refCount == 0) {
+                free(key, entry);
+            }
+        }
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized void release(String key, long address, long size) {
+        final Entry entry = entries.get(key);
+        if (entry == null || entry.address != address) {
+            Unsafe.free(address, size);
+            return;
+        }
+        entry.refCount--;
+        evict();
+    }
+
+    private static long decode(FilesFacade ff, long fd, long size) {
+        final long compressedSize = ff.length(fd);
+        final long src = ff.mmap(fd, compressedSize, 0, Files.MAP_RO);
+        if (src == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot mmap compressed column [fd=").put(fd).put(']');
+        }
+        try {
+            final long address = Unsafe.malloc(size);
+            try {
+                ColumnCompression.decode(src, compressedSize, address, size);
+            } catch (CairoException e) {
+                Unsafe.free(address, size);
+                throw e;
+            }
+            return address;
+        } finally {
+            ff.munmap(src, compressedSize);
+        }
+    }
+
+    private void evict() {
+        while (size > capacity) {
+            CharSequence lruKey = null;
+            Entry lru = null;
+            final ObjList<CharSequence> keys = entries.keys();
+            for (int i = 0, n = keys.size(); i < n; i++) {
+                final CharSequence key = keys.getQuick(i);
+                final Entry entry = entries.get(key);
+                if (entry.refCount == 0 && (lru == null || entry.lastUsed < lru.lastUsed)) {
+                    lruKey = key;
+                    lru = entry;
+                }
+            }
+            if (lru == null) {
+                // everything is in use
+                break;
+            }
+            free(lruKey, lru);
+        }
+    }
+
+    private void free(CharSequence key, Entry entry) {
+        entries.remove(key);
+        size -= entry.size;
+        Unsafe.free(entry.address, entry.size);
+        LOG.debug().$("evicted [key=").$(key).$(']').$();
+    }
+
+    private static class Entry {
+        private final long address;
+        private final long size;
+        private int refCount = 1;
+        private long lastUsed;
+
+        private Entry(long address, long size, long lastUsed) {
+            this.address = address;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
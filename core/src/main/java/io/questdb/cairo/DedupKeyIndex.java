@@ -0,0 +1,302 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.*;
+
+/**
+ * Keys of rows that share designated timestamp of the last appended row. Rows are appended in timestamp
+ * order, so duplicate of incoming row can only be among rows with the same timestamp, which are always
+ * the tail of the table. Index is reset every time timestamp moves forward and is cheap when timestamps
+ * are unique: first key of timestamp is compared directly, hash table is built only once number of rows
+ * with the same timestamp exceeds {@link #LINEAR_SCAN_LIMIT}.
+ * <p>
+ * Every key column value is held as long: symbols by their int key, float and double by their bits.
+ */
+public class DedupKeyIndex implements Mutable {
+    private static final int LINEAR_SCAN_LIMIT = 8;
+    private static final int NO_ENTRY = -1;
+    // column index -> key slot, -1 for columns that are not part of key
+    private final IntList slots = new IntList();
+    // key slot -> column index
+    private final IntList columns = new IntList();
+    private final IntList types = new IntList();
+    private final LongList nulls = new LongList();
+    private final LongList rowKey = new LongList();
+    // keys of rows with group timestamp, keyCount values per row
+    private final LongList groupKeys = new LongList();
+    private final IntList hashTable = new IntList();
+    private int keyCount;
+    private int groupSize;
+    private int mask;
+    private long groupTimestamp = Long.MIN_VALUE;
+    private long rowTimestamp;
+    private boolean loaded;
+
+    public static boolean isSupportedKeyType(int type) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Forgets keys and marks index as not loaded. Caller has to load keys of committed rows
+     * with timestamp of next row before appending it.
+     */
+    @Override
+    public void clear() {
+        groupTimestamp = Long.MIN_VALUE;
+        groupKeys.clear();
+        groupSize = 0;
+        loaded = false;
+    }
+
+    /**
+     * Adds key of row to index.
+     *
+     * @return false when row with the same key and timestamp is already in index
+     */
+    public boolean add() {
+        if (rowTimestamp != groupTimestamp) {
+            clear();
+            groupTimestamp = rowTimestamp;
+        } else if (find() != NO_ENTRY) {
+            return false;
+        }
+
+        final int entry = groupSize++;
+        for (int i = 0; i < keyCount; i++) {
+            groupKeys.add(rowKey.getQuick(i));
+        }
+        if (groupSize > LINEAR_SCAN_LIMIT) {
+            if (groupSize == LINEAR_SCAN_LIMIT + 1 || groupSize > (mask + 1) / 2) {
+                rehash();
+            } else {
+                insert(entry);
+            }
+        }
+        loaded = true;
+        return true;
+    }
+
+    /**
+     * Adds key of committed row read back from table.
+     */
+    public void add(long timestamp, Record record) {
+        startRow(timestamp);
+        for (int i = 0; i < keyCount; i++) {
+            final int column = columns.getQuick(i);
+            final long value;
+            switch (types.getQuick(i)) {
+                case ColumnType.BOOLEAN:
+                    value = record.getBool(column) ? 1 : 0;
+                    break;
+                case ColumnType.BYTE:
+                    value = record.getByte(column);
+                    break;
+                case ColumnType.SHORT:
+                    value = record.getShort(column);
+                    break;
+                case ColumnType.CHAR:
+                    value = record.getChar(column);
+                    break;
+                case ColumnType.INT:
+                case ColumnType.SYMBOL:
+                    value = record.getInt(column);
+                    break;
+                case ColumnType.FLOAT:
+                    value = Float.floatToIntBits(record.getFloat(column));
+                    break;
+                case ColumnType.DOUBLE:
+                    value = Double.doubleToLongBits(record.getDouble(column));
+                    break;
+                default:
+                    value = record.getLong(column);
+                    break;
+            }
+            rowKey.setQuick(i, value);
+        }
+        add();
+    }
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    public long getRowTimestamp() {
+        return rowTimestamp;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Marks index as loaded when there are no committed rows to load.
+     */
+    public void setLoaded() {
+        this.loaded = true;
+    }
+
+    /**
+     * Configures key columns. Index is cleared.
+     *
+     * @param metadata    table metadata
+     * @param keyColumns  indexes of key columns, designated timestamp is implied and is not included
+     */
+    public void of(RecordMetadata metadata, IntList keyColumns) {
+        final int columnCount = metadata.getColumnCount();
+        slots.setAll(columnCount, -1);
+        columns.clear();
+        types.clear();
+        nulls.clear();
+        keyCount = keyColumns.size();
+        for (int i = 0; i < keyCount; i++) {
+            final int column = keyColumns.getQuick(i);
+            final int type = metadata.getColumnType(column);
+            slots.setQuick(column, i);
+            columns.add(column);
+            types.add(type);
+            nulls.add(nullOf(type));
+        }
+        rowKey.setAll(keyCount, 0);
+        clear();
+    }
+
+    public void putDouble(int columnIndex, double value) {
+        put(columnIndex, Double.doubleToLongBits(value));
+    }
+
+    public void putFloat(int columnIndex, float value) {
+        put(columnIndex, Float.floatToIntBits(value));
+    }
+
+    public void put(int columnIndex, long value) {
+        final int slot = slots.getQuick(columnIndex);
+        if (slot != -1) {
+            rowKey.setQuick(slot, value);
+        }
+    }
+
+    public void startRow(long timestamp) {
+        rowTimestamp = timestamp;
+        for (int i = 0; i < keyCount; i++) {
+            rowKey.setQuick(i, nulls.getQuick(i));
+        }
+    }
+
+    private static long nullOf(int type) {
+        switch (type) {
+            case ColumnType.INT:
+                return Numbers.INT_NaN;
+            case ColumnType.SYMBOL:
+                return SymbolTable.VALUE_IS_NULL;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return Numbers.LONG_NaN;
+            case ColumnType.FLOAT:
+                return Float.floatToIntBits(Float.NaN);
+            case ColumnType.DOUBLE:
+                return Double.doubleToLongBits(Double.NaN);
+            default:
+                return 0;
+        }
+    }
+
+    private boolean equalsRowKey(int entry) {
+        final int offset = entry * keyCount;
+        for (int i = 0; i < keyCount; i++) {
+            if (groupKeys.getQuick(offset + i) != rowKey.getQuick(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int find() {
+        if (groupSize <= LINEAR_SCAN_LIMIT) {
+            for (int i = 0; i < groupSize; i++) {
+                if (equalsRowKey(i)) {
+                    return i;
+                }
+            }
+            return NO_ENTRY;
+        }
+
+        int index = hashOf(rowKey, 0) & mask;
+        int entry;
+        while ((entry = hashTable.getQuick(index)) != NO_ENTRY) {
+            if (equalsRowKey(entry)) {
+                return entry;
+            }
+            index = (index + 1) & mask;
+        }
+        return NO_ENTRY;
+    }
+
+    private int hashOf(LongList keys, int offset) {
+        long h = 0;
+        for (int i = 0; i < keyCount; i++) {
+            h = h * 31 + keys.getQuick(offset + i);
+        }
+        return (int) (h ^ (h >>> 32)) * 0x9E3779B9;
+    }
+
+    private void insert(int entry) {
+        int index = hashOf(groupKeys, entry * keyCount) & mask;
+        while (hashTable.getQuick(index) != NO_ENTRY) {
+            index = (index + 1) & mask;
+        }
+        hashTable.setQuick(index, entry);
+    }
+
+    private void rehash() {
+        final int capacity = Numbers.ceilPow2(groupSize * 4);
+        if (capacity > mask + 1) {
+            mask = capacity - 1;
+        }
+        hashTable.setAll(mask + 1, NO_ENTRY);
+        for (int i = 0; i < groupSize; i++) {
+            insert(i);
+        }
+    }
+}
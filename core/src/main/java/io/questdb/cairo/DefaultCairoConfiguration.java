@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.cutlass.text.DefaultTextConfiguration;
 import io.questdb.cutlass.text.TextConfiguration;
+import io.questdb.metrics.Metrics;
 import io.questdb.std.*;
 import io.questdb.std.microtime.*;
 import io.questdb.std.time.DateFormatUtils;
@@ -37,6 +38,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
 
     private final CharSequence root;
     private final TextConfiguration textConfiguration = new DefaultTextConfiguration();
+    private final Metrics metrics = new Metrics(false);
 
     public DefaultCairoConfiguration(CharSequence root) {
         this.root = Chars.toString(root);
@@ -47,6 +49,36 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024 * 1024;
     }
 
+    @Override
+    public long getMatViewRefreshInterval() {
+        return 1_000;
+    }
+
+    @Override
+    public long getPartitionRetentionCheckInterval() {
+        return 60_000;
+    }
+
+    @Override
+    public int getPartitionCompressionAgeDays() {
+        return 0;
+    }
+
+    @Override
+    public long getCompressedColumnCacheSize() {
+        return 256 * 1024 * 1024;
+    }
+
+    @Override
+    public long getSqlJoinReorderRowThreshold() {
+        return 1_000_000;
+    }
+
+    @Override
+    public int getSqlParquetRowGroupSize() {
+        return 100_000;
+    }
+
     @Override
     public int getCopyPoolCapacity() {
         return 16;
@@ -127,6 +159,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return NanosecondClockImpl.INSTANCE;
     }
 
+    @Override
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public int getMkDirMode() {
         return 509;
@@ -172,6 +209,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 509;
     }
 
+    @Override
+    public boolean isIncrementalBackupEnabled() {
+        return true;
+    }
+
+    @Override
+    public CharSequence getReplicaWalRoot() {
+        return null;
+    }
+
+    @Override
+    public long getReplicaWalCheckInterval() {
+        return 1_000;
+    }
+
     @Override
     public long getSpinLockTimeoutUs() {
         return 1000000;
@@ -244,6 +296,31 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024;
     }
 
+    @Override
+    public long getSqlMemoryLimit() {
+        return 0;
+    }
+
+    @Override
+    public long getSqlQueryMemoryLimit() {
+        return 0;
+    }
+
+    @Override
+    public int getSqlParallelQueryLimit() {
+        return 0;
+    }
+
+    @Override
+    public int getSqlParallelReorderCapacity() {
+        return 16;
+    }
+
+    @Override
+    public long getSqlQueryTimeout() {
+        return 0;
+    }
+
     @Override
     public long getSqlSortKeyPageSize() {
         return 4 * Numbers.SIZE_1MB;
@@ -314,6 +391,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlParallelFilterEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isReaderMappingSharingEnabled() {
+        return true;
+    }
+
     @Override
     public int getSqlJoinMetadataPageSize() {
         return 16 * 1024;
@@ -359,6 +446,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return CommitMode.NOSYNC;
     }
 
+    @Override
+    public boolean isCommitSyncInBackground() {
+        return false;
+    }
+
     @Override
     public DateLocale getDefaultDateLocale() {
         return DateFormatUtils.enLocale;
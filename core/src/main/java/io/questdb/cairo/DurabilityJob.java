@@ -0,0 +1,271 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.MessageBus;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.microtime.TimestampFormat;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.tasks.DurabilityTask;
+
+import java.io.Closeable;
+
+/**
+ * Makes transactions committed with {@link CommitMode#SYNC} durable when table writers leave msync to
+ * background, see {@link CairoConfiguration#isCommitSyncInBackground()}. Writer publishes transaction
+ * it committed without syncing and carries on ingesting. Job drains all published transactions at once,
+ * so that every table is synced once per run regardless of how many commits it had: files of table
+ * directory and of partitions the transactions touched are synced, then the last synced transaction is
+ * written to {@link TableUtils#DURABLE_TXN_FILE_NAME}. Transactions up to and including that one survive
+ * power loss. File is only ever written by this job, so the watermark does not go backwards.
+ * <p>
+ * Pages are synced via fresh shared mapping of every file. Page cache is shared between mappings of file,
+ * so msync of such mapping flushes pages writer dirtied through its own mappings.
+ */
+public class DurabilityJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(DurabilityJob.class);
+    private final RingQueue<DurabilityTask> queue;
+    private final Sequence subSeq;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final Path path = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final FindVisitor syncFileRef = this::syncFile;
+    private final CharSequenceObjHashMap<PendingSync> pendingSyncs = new CharSequenceObjHashMap<>();
+    private long tempMem8b = Unsafe.malloc(8);
+    private long syncedTxnCount;
+
+    public DurabilityJob(CairoConfiguration configuration, MessageBus messageBus) {
+        this.queue = messageBus.getDurabilityQueue();
+        this.subSeq = messageBus.getDurabilitySubSequence();
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(path);
+        if (tempMem8b != 0) {
+            Unsafe.free(tempMem8b, 8);
+            tempMem8b = 0;
+        }
+    }
+
+    /**
+     * @return total number of transactions made durable by this job
+     */
+    public long getSyncedTxnCount() {
+        return syncedTxnCount;
+    }
+
+    @Override
+    protected boolean runSerially() {
+        boolean useful = false;
+        long cursor;
+        while ((cursor = subSeq.next()) != -1) {
+            if (cursor > -1) {
+                final DurabilityTask task = queue.get(cursor);
+                if (task.txn > -1) {
+                    pend(task);
+                }
+                subSeq.done(cursor);
+                useful = true;
+            }
+        }
+
+        if (useful) {
+            final ObjList<CharSequence> tableNames = pendingSyncs.keys();
+            for (int i = 0, n = tableNames.size(); i < n; i++) {
+                final CharSequence tableName = tableNames.getQuick(i);
+                final PendingSync pending = pendingSyncs.get(tableName);
+                if (pending.txnCount > 0) {
+                    sync(tableName, pending);
+                    pending.txnCount = 0;
+                }
+            }
+        }
+        return useful;
+    }
+
+    private void pend(DurabilityTask task) {
+        PendingSync pending = pendingSyncs.get(task.tableName);
+        if (pending == null) {
+            pending = new PendingSync();
+            pendingSyncs.put(Chars.toString(task.tableName), pending);
+        }
+
+        if (pending.txnCount == 0) {
+            pending.partitionBy = task.partitionBy;
+            pending.partitionLo = task.partitionLo;
+            pending.partitionHi = task.partitionHi;
+        } else if (pending.partitionBy != task.partitionBy) {
+            // table was re-created between commits, sync it all
+            pending.partitionBy = task.partitionBy;
+            pending.partitionLo = Long.MIN_VALUE;
+            pending.partitionHi = Long.MAX_VALUE;
+        } else {
+            pending.partitionLo = Math.min(pending.partitionLo, task.partitionLo);
+            pending.partitionHi = Math.max(pending.partitionHi, task.partitionHi);
+        }
+        pending.txn = task.txn;
+        pending.txnCount++;
+    }
+
+    private void sync(CharSequence tableName, PendingSync pending) {
+        path.of(root).concat(tableName);
+        final int rootLen = path.length();
+        try {
+            if (!ff.exists(path.$())) {
+                LOG.info().$("table is gone, not syncing [table=").$(tableName).$(']').$();
+                return;
+            }
+
+            final TimestampFormat partitionDirFmt = TableWriter.selectPartitionDirFmt(pending.partitionBy);
+            if (partitionDirFmt == null) {
+                syncDir(path.trimTo(rootLen).concat(TableUtils.DEFAULT_PARTITION_NAME));
+            } else if (pending.partitionLo == Long.MIN_VALUE) {
+                // partition range unknown, sync every partition directory
+                ff.iterateDir(path.trimTo(rootLen).$(), (name, type) -> {
+                    nativeLPSZ.of(name);
+                    if (type == Files.DT_DIR && nativeLPSZ.charAt(0) != '.') {
+                        syncDir(path.trimTo(rootLen).concat(nativeLPSZ));
+                    }
+                });
+            } else {
+                long timestamp = floor(pending.partitionLo, pending.partitionBy);
+                while (timestamp <= pending.partitionHi) {
+                    path.trimTo(rootLen).put(Files.SEPARATOR);
+                    partitionDirFmt.format(timestamp, null, null, path);
+                    syncDir(path);
+                    timestamp = next(timestamp, pending.partitionBy);
+                }
+            }
+
+            // symbol maps and transaction file
+            syncDir(path.trimTo(rootLen));
+
+            Unsafe.getUnsafe().putLong(tempMem8b, pending.txn);
+            path.trimTo(rootLen).concat(TableUtils.DURABLE_TXN_FILE_NAME).$();
+            final long fd = ff.openRW(path);
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("Cannot open: ").put(path);
+            }
+            try {
+                if (ff.write(fd, tempMem8b, Long.BYTES, 0) != Long.BYTES) {
+                    throw CairoException.instance(ff.errno()).put("Cannot write: ").put(path);
+                }
+                syncFile(fd);
+            } finally {
+                ff.close(fd);
+            }
+            syncedTxnCount += pending.txnCount;
+            LOG.debug().$("durable [table=").$(tableName).$(", txn=").$(pending.txn).$(", commits=").$(pending.txnCount).$(']').$();
+        } catch (CairoException e) {
+            LOG.error().$("could not sync [table=").$(tableName).$(", e=").$((Sinkable) e).$(']').$();
+        }
+    }
+
+    private void syncDir(Path dir) {
+        if (ff.exists(dir.$())) {
+            ff.iterateDir(dir, syncFileRef);
+        }
+    }
+
+    private void syncFile(long name, int type) {
+        if (type == Files.DT_DIR) {
+            return;
+        }
+        final int len = path.length();
+        try {
+            final long fd = ff.openRW(path.chopZ().concat(name).$());
+            if (fd == -1) {
+                LOG.error().$("could not open [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                return;
+            }
+            try {
+                syncFile(fd);
+            } finally {
+                ff.close(fd);
+            }
+        } finally {
+            path.trimTo(len);
+        }
+    }
+
+    private void syncFile(long fd) {
+        final long size = ff.length(fd);
+        if (size > 0) {
+            final long address = ff.mmap(fd, size, 0, Files.MAP_RW);
+            if (address == -1) {
+                throw CairoException.instance(ff.errno()).put("Cannot mmap: ").put(path);
+            }
+            try {
+                if (ff.msync(address, size, false) != 0) {
+                    throw CairoException.instance(ff.errno()).put("Cannot msync: ").put(path);
+                }
+            } finally {
+                ff.munmap(address, size);
+            }
+        }
+    }
+
+    private static long floor(long timestamp, int partitionBy) {
+        switch (partitionBy) {
+            case PartitionBy.DAY:
+                return Timestamps.floorDD(timestamp);
+            case PartitionBy.MONTH:
+                return Timestamps.floorMM(timestamp);
+            default:
+                return Timestamps.floorYYYY(timestamp);
+        }
+    }
+
+    private static long next(long timestamp, int partitionBy) {
+        switch (partitionBy) {
+            case PartitionBy.DAY:
+                return Timestamps.addDays(timestamp, 1);
+            case PartitionBy.MONTH:
+                return Timestamps.addMonths(timestamp, 1);
+            default:
+                return Timestamps.addYear(timestamp, 1);
+        }
+    }
+
+    private static class PendingSync {
+        int partitionBy;
+        long partitionLo;
+        long partitionHi;
+        long txn;
+        int txnCount;
+    }
+}
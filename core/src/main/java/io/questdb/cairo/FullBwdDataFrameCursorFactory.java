@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.PlanSink;
 
 public class FullBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
     private final FullBwdDataFrameCursor cursor = new FullBwdDataFrameCursor();
@@ -37,4 +38,10 @@ public class FullBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
     public DataFrameCursor getCursor(CairoSecurityContext securityContext) {
         return cursor.of(getReader(securityContext));
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Frame backward scan");
+        sink.attr("table").put(getTableName());
+    }
 }
\ No newline at end of file
@@ -25,10 +25,14 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.model.RuntimeIntervalModel;
 import io.questdb.std.LongList;
 
 public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
     private final IntervalFwdDataFrameCursor cursor;
+    private final RuntimeIntervalModel intervalModel;
 
     public IntervalFwdDataFrameCursorFactory(
             CairoEngine engine,
@@ -36,14 +40,51 @@ public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
             long tableVersion,
             LongList intervals,
             int timestampIndex
+    ) {
+        this(engine, tableName, tableVersion, new RuntimeIntervalModel(intervals), timestampIndex);
+    }
+
+    public IntervalFwdDataFrameCursorFactory(
+            CairoEngine engine,
+            String tableName,
+            long tableVersion,
+            RuntimeIntervalModel intervalModel,
+            int timestampIndex
     ) {
         super(engine, tableName, tableVersion);
-        this.cursor = new IntervalFwdDataFrameCursor(intervals, timestampIndex);
+        this.intervalModel = intervalModel;
+        this.cursor = new IntervalFwdDataFrameCursor(intervalModel.getStaticIntervals(), timestampIndex);
+    }
+
+    @Override
+    public void close() {
+        intervalModel.close();
     }
 
     @Override
     public DataFrameCursor getCursor(CairoSecurityContext securityContext) {
+        if (!intervalModel.isStatic()) {
+            // runtime bounds, such as bind variables, are resolved against execution context
+            throw CairoException.instance(0).put("runtime interval bounds require execution context [table=").put(getTableName()).put(']');
+        }
         cursor.of(getReader(securityContext));
         return cursor;
     }
+
+    @Override
+    public DataFrameCursor getCursor(SqlExecutionContext executionContext) {
+        if (intervalModel.isStatic()) {
+            cursor.of(getReader(executionContext.getCairoSecurityContext()));
+        } else {
+            cursor.of(getReader(executionContext.getCairoSecurityContext()), intervalModel.calculateIntervals(executionContext));
+        }
+        return cursor;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Interval forward scan");
+        sink.attr("table").put(getTableName());
+        intervalModel.toSink(sink.attr("intervals"));
+    }
 }
@@ -45,20 +45,42 @@ public class OnePageMemory implements ReadOnlyColumn, Closeable {
     private long fd = -1;
     private long size = 0;
     private long absolutePointer;
+    private final boolean lazy;
 
     public OnePageMemory(FilesFacade ff, LPSZ name, long size) {
+        this(ff, name, size, false);
+    }
+
+    /**
+     * @param lazy when true file is opened but not mapped until the first read. This keeps columns that
+     *             query never touches, or touches only for rows that survive a filter, out of the address space.
+     */
+    public OnePageMemory(FilesFacade ff, LPSZ name, long size, boolean lazy) {
+        this.lazy = lazy;
         of(ff, name, 0, size);
     }
 
+    protected OnePageMemory() {
+        this(false);
+    }
+
+    protected OnePageMemory(boolean lazy) {
+        this.lazy = lazy;
+    }
+
     public long addressOf(long offset) {
         assert offset < size : "offset=" + offset + ", size=" + size + ", fd=" + fd;
+        if (page == -1) {
+            mapPage();
+        }
         return absolutePointer + offset;
     }
 
     @Override
     public void close() {
         if (page != -1) {
-            ff.munmap(page, size);
+            unmap(ff, page, size);
+            page = -1;
         }
         if (fd != -1) {
             ff.close(fd);
@@ -82,8 +104,9 @@ public class OnePageMemory implements ReadOnlyColumn, Closeable {
         }
 
         this.size = size;
-        this.page = ff.mmap(fd, size, 0, Files.MAP_RO);
-        this.absolutePointer = page;
+        if (!lazy) {
+            mapPage();
+        }
         LOG.info().$("open ").$(name).$(" [fd=").$(fd).$(", pageSize=").$(size).$(", size=").$(this.size).$(']').$();
     }
 
@@ -129,6 +152,9 @@ public class OnePageMemory implements ReadOnlyColumn, Closeable {
     }
 
     public final short getShort(long offset) {
+        if (page == -1) {
+            mapPage();
+        }
         return Unsafe.getUnsafe().getShort(absolutePointer + offset);
     }
 
@@ -187,9 +213,16 @@ public class OnePageMemory implements ReadOnlyColumn, Closeable {
     }
 
     public long getPageAddress(int pageIndex) {
+        if (page == -1) {
+            mapPage();
+        }
         return absolutePointer;
     }
 
+    public boolean isMapped() {
+        return page != -1;
+    }
+
     public void getLong256(long offset, Long256Sink sink) {
         sink.setLong0(Unsafe.getUnsafe().getLong(addressOf(offset)));
         sink.setLong1(Unsafe.getUnsafe().getLong(addressOf(offset + Long.BYTES)));
@@ -216,6 +249,22 @@ public class OnePageMemory implements ReadOnlyColumn, Closeable {
         return size;
     }
 
+    private void mapPage() {
+        if (fd == -1) {
+            throw CairoException.instance(0).put("Column is not open");
+        }
+        this.page = map(ff, fd, size);
+        this.absolutePointer = page;
+    }
+
+    protected long map(FilesFacade ff, long fd, long size) {
+        return ff.mmap(fd, size, 0, Files.MAP_RO);
+    }
+
+    protected void unmap(FilesFacade ff, long address, long size) {
+        ff.munmap(address, size);
+    }
+
     public class CharSequenceView extends AbstractCharSequence {
         private int len;
         private long offset;
@@ -250,7 +299,7 @@ public class OnePageMemory implements ReadOnlyColumn, Closeable {
         public void copyTo(long address, final long start, final long length) {
             long bytesRemaining = Math.min(length, this.len - start);
             long offset = this.offset + start;
-            Unsafe.getUnsafe().copyMemory(page + offset, address, bytesRemaining);
+            Unsafe.getUnsafe().copyMemory(getPageAddress(0) + offset, address, bytesRemaining);
         }
 
         public long length() {
@@ -260,7 +309,7 @@ public class OnePageMemory implements ReadOnlyColumn, Closeable {
         ByteSequenceView of(long offset, long len) {
             this.offset = offset;
             this.len = len;
-            this.readAddress = page + offset;
+            this.readAddress = getPageAddress(0) + offset;
             return this;
         }
     }
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Compresses closed partitions that are older than configured age. Tables are visited once per idle check
+ * interval. Writer is acquired opportunistically, tables that are busy are retried on next run.
+ */
+public class PartitionCompressionJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionCompressionJob.class);
+    private final CairoEngine engine;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final MicrosecondClock clock;
+    private final long checkInterval;
+    private final long age;
+    private final Path path = new Path();
+    private final Path tablePath = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final FindVisitor compressTableRef = this::compressTable;
+    private long last = 0;
+    private long timestamp;
+
+    public PartitionCompressionJob(CairoEngine engine) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getIdleCheckInterval() * 1000;
+        this.age = configuration.getPartitionCompressionAgeDays() * Timestamps.DAY_MICROS;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(path);
+        Misc.free(tablePath);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long t = clock.getTicks();
+        if (last + checkInterval < t) {
+            last = t;
+            timestamp = t - age;
+            ff.iterateDir(path.of(root).$(), compressTableRef);
+            return true;
+        }
+        return false;
+    }
+
+    private void compressTable(long name, int type) {
+        nativeLPSZ.of(name);
+        if (type != Files.DT_DIR || nativeLPSZ.charAt(0) == '.') {
+            return;
+        }
+
+        if (TableUtils.exists(ff, tablePath, root, nativeLPSZ) != TableUtils.TABLE_EXISTS) {
+            return;
+        }
+
+        final String tableName = Chars.toString(nativeLPSZ);
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            final int count = writer.compressPartitionsOlderThan(timestamp);
+            if (count > 0) {
+                LOG.info().$("compressed partitions [table=").$(tableName).$(", files=").$(count).$(']').$();
+            }
+        } catch (CairoException e) {
+            LOG.info().$("could not compress partitions [table=").$(tableName).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+        }
+    }
+}
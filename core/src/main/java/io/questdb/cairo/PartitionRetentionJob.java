@@ -0,0 +1,137 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Removes partitions that are older than TTL of their table, see {@link TableWriter#setTtl(long)}. TTL is
+ * read from table metadata before writer is acquired, tables without TTL are never locked. Writer is acquired
+ * opportunistically, tables that are busy are retried on next run.
+ */
+public class PartitionRetentionJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionRetentionJob.class);
+    private final CairoEngine engine;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final MicrosecondClock clock;
+    private final long checkInterval;
+    private final Path path = new Path();
+    private final Path tablePath = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final FindVisitor removeExpiredPartitionsRef = this::removeExpiredPartitions;
+    private long tempMem8b = Unsafe.malloc(8);
+    private long last = 0;
+    private long removedPartitionCount;
+    private long removedRowCount;
+
+    public PartitionRetentionJob(CairoEngine engine) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getPartitionRetentionCheckInterval() * 1000;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(path);
+        Misc.free(tablePath);
+        if (tempMem8b != 0) {
+            Unsafe.free(tempMem8b, 8);
+            tempMem8b = 0;
+        }
+    }
+
+    /**
+     * @return total number of partitions removed by this job
+     */
+    public long getRemovedPartitionCount() {
+        return removedPartitionCount;
+    }
+
+    /**
+     * @return total number of rows in partitions removed by this job
+     */
+    public long getRemovedRowCount() {
+        return removedRowCount;
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long t = clock.getTicks();
+        if (last + checkInterval < t) {
+            last = t;
+            ff.iterateDir(path.of(root).$(), removeExpiredPartitionsRef);
+            return true;
+        }
+        return false;
+    }
+
+    private void removeExpiredPartitions(long name, int type) {
+        nativeLPSZ.of(name);
+        if (type != Files.DT_DIR || nativeLPSZ.charAt(0) == '.') {
+            return;
+        }
+
+        if (TableUtils.exists(ff, tablePath, root, nativeLPSZ) != TableUtils.TABLE_EXISTS) {
+            return;
+        }
+
+        final String tableName = Chars.toString(nativeLPSZ);
+        try {
+            tablePath.of(root).concat(tableName).concat(TableUtils.META_FILE_NAME).$();
+            if (TableUtils.readLongAtOffset(ff, tablePath, tempMem8b, TableUtils.META_OFFSET_TTL) <= 0) {
+                return;
+            }
+
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+                final long size = writer.size();
+                final int count = writer.removeExpiredPartitions();
+                if (count > 0) {
+                    final long rows = size - writer.size();
+                    removedPartitionCount += count;
+                    removedRowCount += rows;
+                    LOG.info().$("removed expired partitions [table=").$(tableName).$(", partitions=").$(count).$(", rows=").$(rows).$(']').$();
+                }
+            }
+        } catch (EntryUnavailableException e) {
+            LOG.debug().$("table is busy, retrying later [table=").$(tableName).$(']').$();
+        } catch (CairoException e) {
+            LOG.info().$("could not remove expired partitions [table=").$(tableName).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+        }
+    }
+}
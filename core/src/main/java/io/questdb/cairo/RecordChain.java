@@ -28,6 +28,8 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.std.BinarySequence;
 import io.questdb.std.Long256;
+import io.questdb.std.MemoryAccount;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Mutable;
 import io.questdb.std.Transient;
 import io.questdb.std.str.CharSink;
@@ -49,7 +51,11 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
     private RecordCursor symbolTableResolver;
 
     public RecordChain(@Transient ColumnTypes columnTypes, RecordSink recordSink, long pageSize, int maxPages) {
-        this.mem = new VirtualMemory(pageSize, maxPages);
+        this(columnTypes, recordSink, pageSize, maxPages, null);
+    }
+
+    public RecordChain(@Transient ColumnTypes columnTypes, RecordSink recordSink, long pageSize, int maxPages, MemoryAccount memoryAccount) {
+        this.mem = new VirtualMemory(pageSize, maxPages, MemoryTag.NATIVE_SQL_RECORD_CHAIN, memoryAccount);
         this.recordSink = recordSink;
         int count = columnTypes.getColumnCount();
         long varOffset = 0L;
@@ -61,6 +67,7 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
 
             switch (type) {
                 case ColumnType.STRING:
+                case ColumnType.VARCHAR:
                 case ColumnType.BINARY:
                     columnOffsets[i] = varOffset;
                     varOffset += 8;
@@ -137,6 +137,7 @@ public class RecordSinkFactory {
                     asm.invokeInterface(wPutDouble, 2);
                     break;
                 case ColumnType.STRING:
+                case ColumnType.VARCHAR:
                     asm.invokeInterface(rGetStr, 1);
                     asm.invokeInterface(wPutStr, 1);
                     break;
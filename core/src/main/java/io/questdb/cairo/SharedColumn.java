@@ -0,0 +1,74 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Lazily mapped column of immutable partition, which mapping is shared with other readers
+ * via {@link ColumnMappingCache}.
+ */
+public class SharedColumn extends OnePageMemory {
+    private final ColumnMappingCache cache;
+    // file name and data version, sink is reused when column is re-opened
+    private final StringSink key = new StringSink();
+
+    public SharedColumn(ColumnMappingCache cache, FilesFacade ff, LPSZ name, long size, long dataVersion) {
+        super(true);
+        this.cache = cache;
+        of(ff, name, size, dataVersion);
+    }
+
+    public CharSequence getKey() {
+        return key;
+    }
+
+    public void of(FilesFacade ff, LPSZ name, long size, long dataVersion) {
+        close();
+        key.clear();
+        key.put(name).put('#').put(dataVersion);
+        super.of(ff, name, 0, size);
+    }
+
+    @Override
+    protected long map(FilesFacade ff, long fd, long size) {
+        if (size > 0) {
+            return cache.acquire(ff, key, fd, size);
+        }
+        return super.map(ff, fd, size);
+    }
+
+    @Override
+    protected void unmap(FilesFacade ff, long address, long size) {
+        if (size > 0) {
+            cache.release(ff, key, address, size);
+        } else {
+            super.unmap(ff, address, size);
+        }
+    }
+}
@@ -81,6 +81,12 @@ class SymbolColumnIndexer implements ColumnIndexer, Closeable {
         }
     }
 
+    void index(ReadOnlyColumn column, long loRow, long hiRow) {
+        for (long lo = loRow - columnTop; lo < hiRow; lo++) {
+            writer.add(TableUtils.toIndexKey(column.getInt(lo * Integer.BYTES)), lo + columnTop);
+        }
+    }
+
     @Override
     public boolean isDistressed() {
         return distressed;
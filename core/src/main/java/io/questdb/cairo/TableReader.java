@@ -64,6 +64,9 @@ public class TableReader implements Closeable {
     private final CairoConfiguration configuration;
     private final IntList symbolCountSnapshot = new IntList();
     private final LongHashSet removedPartitions = new LongHashSet();
+    private final DecompressedColumnCache decompressedColumnCache;
+    // 1 for columns stored as VARCHAR, 0 otherwise; refreshed when table structure changes
+    private final IntList varcharColumns = new IntList();
     private LongList columnTops;
     private ObjList<ReadOnlyColumn> columns;
     private ObjList<BitmapIndexReader> bitmapIndexes;
@@ -85,8 +88,16 @@ public class TableReader implements Closeable {
     private long tempMem8b = Unsafe.malloc(8);
 
     public TableReader(CairoConfiguration configuration, CharSequence tableName) {
+        this(configuration, tableName, new DecompressedColumnCache(0));
+    }
+
+    /**
+     * @param decompressedColumnCache cache of decompressed columns shared with other readers
+     */
+    public TableReader(CairoConfiguration configuration, CharSequence tableName, DecompressedColumnCache decompressedColumnCache) {
         LOG.info().$("open '").utf8(tableName).$('\'').$();
         this.configuration = configuration;
+        this.decompressedColumnCache = decompressedColumnCache;
         this.ff = configuration.getFilesFacade();
         this.tableName = Chars.toString(tableName);
         this.path = new Path().of(configuration.getRoot()).concat(tableName);
@@ -129,6 +140,7 @@ public class TableReader implements Closeable {
             }
             readTxn();
             openSymbolMaps();
+            loadVarcharColumns();
             this.prevStructVersion = structVersion;
             this.prevPartitionTableVersion = partitionTableVersion;
             if (metadata.getPartitionBy() == PartitionBy.NONE) {
@@ -273,6 +285,8 @@ public class TableReader implements Closeable {
             case ColumnType.STRING:
             case ColumnType.BINARY:
                 return getColumn(column + 1).getLong(r * Long.BYTES);
+            case ColumnType.VARCHAR:
+                return VarcharUtils.getDataOffset(getColumn(column + 1).getLong((r << VarcharUtils.AUX_ENTRY_SIZE_POW2) + Long.BYTES));
             default:
                 return r * ColumnType.sizeOf(columnType);
         }
@@ -294,6 +308,15 @@ public class TableReader implements Closeable {
         return metadata.getPartitionBy();
     }
 
+    /**
+     * @param partitionIndex index of partition
+     * @return timestamp partition directory name is derived from. Table must be partitioned.
+     */
+    public long getPartitionTimestamp(int partitionIndex) {
+        assert timestampAddMethod != null;
+        return timestampAddMethod.calculate(minTimestamp, partitionIndex);
+    }
+
     public SymbolMapReader getSymbolMapReader(int columnIndex) {
         return symbolMapReaders.getQuick(columnIndex);
     }
@@ -302,6 +325,25 @@ public class TableReader implements Closeable {
         return tableName;
     }
 
+    /**
+     * @return last transaction synced to disk by {@link DurabilityJob}, -1 when none was synced. Transactions
+     * committed with inline sync are durable but are not reflected in this value.
+     */
+    public long getDurableTxn() {
+        try {
+            if (ff.exists(path.concat(TableUtils.DURABLE_TXN_FILE_NAME).$())) {
+                return TableUtils.readLongAtOffset(ff, path, tempMem8b, 0);
+            }
+            return -1;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    public long getTxn() {
+        return txn;
+    }
+
     public long getVersion() {
         return this.structVersion;
     }
@@ -462,7 +504,9 @@ public class TableReader implements Closeable {
     }
 
     private static void growColumn(ReadOnlyColumn mem1, ReadOnlyColumn mem2, int type, long rowCount) {
-        if (rowCount > 0) {
+        // one page memory is always mapped in full, growing it is a no-op but reading
+        // var-length tails would force lazily mapped columns into the address space
+        if (rowCount > 0 && !(mem1 instanceof OnePageMemory)) {
             // subtract column top
             switch (type) {
                 default:
@@ -474,6 +518,9 @@ public class TableReader implements Closeable {
                 case ColumnType.STRING:
                     growStr(mem1, mem2, rowCount);
                     break;
+                case ColumnType.VARCHAR:
+                    growVarchar(mem1, mem2, rowCount);
+                    break;
             }
         }
     }
@@ -489,6 +536,13 @@ public class TableReader implements Closeable {
         }
     }
 
+    private static void growVarchar(ReadOnlyColumn mem1, ReadOnlyColumn mem2, long rowCount) {
+        assert mem2 != null;
+        mem2.grow(rowCount << VarcharUtils.AUX_ENTRY_SIZE_POW2);
+        final long offset = (rowCount - 1) << VarcharUtils.AUX_ENTRY_SIZE_POW2;
+        mem1.grow(VarcharUtils.getDataSize(mem2.getLong(offset), mem2.getLong(offset + Long.BYTES)));
+    }
+
     private static void growBin(ReadOnlyColumn mem1, ReadOnlyColumn mem2, long rowCount) {
         assert mem2 != null;
         mem2.grow(rowCount * 8);
@@ -553,6 +607,38 @@ public class TableReader implements Closeable {
         Misc.free(bitmapIndexes.getAndSetQuick(index + 1, null));
     }
 
+    /**
+     * Closes partitions that have column files replaced by compressed files. Writer removes original
+     * files after it increments partition table version, partitions are reopened from compressed files on next read.
+     */
+    private void closeReplacedPartitions() {
+        for (int partitionIndex = 0, n = partitionCount - 1; partitionIndex < n; partitionIndex++) {
+            if (getPartitionRowCount(partitionIndex) == -1) {
+                continue;
+            }
+            final int base = getColumnBase(partitionIndex);
+            try {
+                final Path path = partitionPathGenerator.generate(this, partitionIndex);
+                final int plen = path.length();
+                for (int i = 0; i < columnCount; i++) {
+                    final ReadOnlyColumn column = columns.getQuick(getPrimaryColumnIndex(base, i));
+                    if (!(column instanceof CompressedColumn)
+                            && column != NullColumn.INSTANCE
+                            && ff.exists(TableUtils.dzFile(path.trimTo(plen), metadata.getColumnName(i)))) {
+                        LOG.info().$("closing replaced partition [path=").$(path.trimTo(plen)).$(']').$();
+                        for (int k = 0; k < columnCount; k++) {
+                            closeColumn(base, k);
+                        }
+                        partitionRowCounts.setQuick(partitionIndex, -1);
+                        break;
+                    }
+                }
+            } finally {
+                path.trimTo(rootLen);
+            }
+        }
+    }
+
     private void closeRemovedPartitions() {
         for (int i = 0, n = removedPartitions.size(); i < n; i++) {
             final long timestamp = removedPartitions.get(i);
@@ -753,6 +839,10 @@ public class TableReader implements Closeable {
         return this.columnTops.getQuick(base / 2 + columnIndex);
     }
 
+    boolean isVarchar(int columnIndex) {
+        return varcharColumns.getQuick(columnIndex) == 1;
+    }
+
     int getPartitionIndex(int columnBase) {
         return columnBase >>> columnCountBits;
     }
@@ -766,10 +856,6 @@ public class TableReader implements Closeable {
         return transientRowCount;
     }
 
-    long getTxn() {
-        return txn;
-    }
-
     boolean hasNull(int columnIndex) {
         for (int i = 0; i < partitionCount; i++) {
             openPartition(i);
@@ -866,6 +952,13 @@ public class TableReader implements Closeable {
         }
     }
 
+    private void loadVarcharColumns() {
+        varcharColumns.clear();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            varcharColumns.add(metadata.getColumnType(i) == ColumnType.VARCHAR ? 1 : 0);
+        }
+    }
+
     private void openPartitionColumns(Path path, int columnBase, long partitionRowCount, boolean lastPartition) {
         for (int i = 0; i < columnCount; i++) {
             reloadColumnAt(path, this.columns, this.columnTops, this.bitmapIndexes, columnBase, i, partitionRowCount, lastPartition);
@@ -1018,6 +1111,57 @@ public class TableReader implements Closeable {
         }
     }
 
+    private ReadOnlyColumn openColumnFile(ReadOnlyColumn mem, Path path, int plen, CharSequence name, boolean secondary, boolean lastPartition) {
+        // compressed file is complete once it is visible, it takes precedence over the file it replaces
+        if (!ff.exists(TableUtils.compressedColumnFile(path.trimTo(plen), name, secondary))) {
+            try {
+                TableUtils.plainColumnFile(path.trimTo(plen), name, secondary);
+                return openColumnMemory(mem, path, lastPartition, false);
+            } catch (CairoException e) {
+                // writer may have compressed and removed the file since we checked
+                if (!ff.exists(TableUtils.compressedColumnFile(path.trimTo(plen), name, secondary))) {
+                    throw e;
+                }
+                mem = null;
+            }
+        }
+        TableUtils.compressedColumnFile(path.trimTo(plen), name, secondary);
+        return openColumnMemory(mem, path, lastPartition, true);
+    }
+
+    private ReadOnlyColumn openColumnMemory(ReadOnlyColumn mem, Path path, boolean lastPartition, boolean compressed) {
+        if (compressed) {
+            final long size = ColumnCompression.readDecodedSize(ff, path, tempMem8b);
+            if (mem instanceof CompressedColumn) {
+                ((CompressedColumn) mem).of(ff, path, size, dataVersion);
+                return mem;
+            }
+            Misc.free(mem);
+            return new CompressedColumn(decompressedColumnCache, ff, path, size, dataVersion, true);
+        }
+
+        if (mem instanceof SharedColumn && !lastPartition) {
+            ((SharedColumn) mem).of(ff, path, ff.length(path), dataVersion);
+            return mem;
+        }
+
+        if (mem != null && mem != NullColumn.INSTANCE && !(mem instanceof CompressedColumn) && !(mem instanceof SharedColumn)) {
+            mem.of(ff, path, ff.getMapPageSize(), ff.length(path));
+            return mem;
+        }
+
+        Misc.free(mem);
+        if (lastPartition) {
+            return new ReadOnlyMemory(ff, path, ff.getMapPageSize(), 0);
+        }
+        // columns of closed partitions are mapped on first read, so that filtered scans
+        // only pay for columns of rows that survive the filter
+        if (configuration.isReaderMappingSharingEnabled()) {
+            return new SharedColumn(ColumnMappingCache.INSTANCE, ff, path, ff.length(path), dataVersion);
+        }
+        return new OnePageMemory(ff, path, ff.length(path), true);
+    }
+
     private void reloadColumnAt(
             Path path,
             ObjList<ReadOnlyColumn> columns,
@@ -1037,18 +1181,10 @@ public class TableReader implements Closeable {
             ReadOnlyColumn mem1 = columns.getQuick(primaryIndex);
             ReadOnlyColumn mem2 = columns.getQuick(secondaryIndex);
 
-            if (ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
+            if (ff.exists(TableUtils.dzFile(path.trimTo(plen), name)) || ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
 
-                if (mem1 != null && mem1 != NullColumn.INSTANCE) {
-                    mem1.of(ff, path, ff.getMapPageSize(), ff.length(path));
-                } else {
-                    if (lastPartition) {
-                        mem1 = new ReadOnlyMemory(ff, path, ff.getMapPageSize(), 0);
-                    } else {
-                        mem1 = new OnePageMemory(ff, path, ff.length(path));
-                    }
-                    columns.setQuick(primaryIndex, mem1);
-                }
+                mem1 = openColumnFile(mem1, path, plen, name, false, lastPartition);
+                columns.setQuick(primaryIndex, mem1);
 
                 final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), name, plen, tempMem8b);
                 final int type = metadata.getColumnType(columnIndex);
@@ -1056,17 +1192,9 @@ public class TableReader implements Closeable {
                 switch (type) {
                     case ColumnType.BINARY:
                     case ColumnType.STRING:
-                        TableUtils.iFile(path.trimTo(plen), name);
-                        if (mem2 != null && mem2 != NullColumn.INSTANCE) {
-                            mem2.of(ff, path, ff.getMapPageSize(), ff.length(path));
-                        } else {
-                            if (lastPartition) {
-                                mem2 = new ReadOnlyMemory(ff, path, ff.getMapPageSize(), 0);
-                            } else {
-                                mem2 = new OnePageMemory(ff, path, ff.length(path));
-                            }
-                            columns.setQuick(secondaryIndex, mem2);
-                        }
+                    case ColumnType.VARCHAR:
+                        mem2 = openColumnFile(mem2, path, plen, name, true, lastPartition);
+                        columns.setQuick(secondaryIndex, mem2);
                         growColumn(mem1, mem2, type, partitionRowCount - columnTop);
                         break;
                     default:
@@ -1125,6 +1253,7 @@ public class TableReader implements Closeable {
             // rearrange symbol map reader list
             reshuffleSymbolMapReaders(pTransitionIndex);
             this.columnCount = columnCount;
+            loadVarcharColumns();
         } finally {
             TableReaderMetadata.freeTransitionIndex(pTransitionIndex);
         }
@@ -1279,6 +1408,7 @@ public class TableReader implements Closeable {
 
         if (this.prevPartitionTableVersion != this.partitionTableVersion) {
             closeRemovedPartitions();
+            closeReplacedPartitions();
             this.prevPartitionTableVersion = partitionTableVersion;
         }
     }
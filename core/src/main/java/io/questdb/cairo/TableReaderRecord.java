@@ -27,11 +27,16 @@ package io.questdb.cairo;
 import io.questdb.cairo.sql.Record;
 import io.questdb.std.BinarySequence;
 import io.questdb.std.Long256;
+import io.questdb.std.ObjList;
 import io.questdb.std.Rows;
 import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Utf8Sequence;
 
 public class TableReaderRecord implements Record {
 
+    private final ObjList<VarcharView> varcharViewsA = new ObjList<>();
+    private final ObjList<VarcharView> varcharViewsB = new ObjList<>();
+
     private int columnBase;
     private long recordIndex = 0;
     private TableReader reader;
@@ -147,6 +152,9 @@ public class TableReaderRecord implements Record {
 
     @Override
     public CharSequence getStr(int col) {
+        if (reader.isVarchar(col)) {
+            return toCharSequence(getVarchar(col, varcharViewsA));
+        }
         final long recordIndex = getAdjustedRecordIndex(col) * Long.BYTES;
         final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
                 recordIndex,
@@ -183,6 +191,9 @@ public class TableReaderRecord implements Record {
 
     @Override
     public CharSequence getStrB(int col) {
+        if (reader.isVarchar(col)) {
+            return toCharSequence(getVarchar(col, varcharViewsB));
+        }
         final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long recordIndex = getAdjustedRecordIndex(col) * Long.BYTES;
         final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(recordIndex, index);
@@ -193,6 +204,10 @@ public class TableReaderRecord implements Record {
 
     @Override
     public int getStrLen(int col) {
+        if (reader.isVarchar(col)) {
+            final VarcharView view = getVarchar(col, varcharViewsA);
+            return view == null ? TableUtils.NULL_LEN : view.charLength();
+        }
         final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long recordIndex = getAdjustedRecordIndex(col) * Long.BYTES;
         final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(recordIndex, index);
@@ -211,6 +226,16 @@ public class TableReaderRecord implements Record {
         return reader.getSymbolMapReader(col).valueOf(reader.getColumn(absoluteColumnIndex).getInt(offset));
     }
 
+    @Override
+    public Utf8Sequence getVarcharA(int col) {
+        return getVarchar(col, varcharViewsA);
+    }
+
+    @Override
+    public Utf8Sequence getVarcharB(int col) {
+        return getVarchar(col, varcharViewsB);
+    }
+
     public long getRecordIndex() {
         return recordIndex;
     }
@@ -237,6 +262,28 @@ public class TableReaderRecord implements Record {
         return ((value) >>> (31 + sign));
     }
 
+    private static CharSequence toCharSequence(VarcharView view) {
+        return view == null ? null : view.toCharSequence();
+    }
+
+    private VarcharView getVarchar(int col, ObjList<VarcharView> views) {
+        final long recordIndex = getAdjustedRecordIndex(col);
+        if (recordIndex < 0) {
+            // column top
+            return null;
+        }
+        VarcharView view = views.getQuiet(col);
+        if (view == null) {
+            views.extendAndSet(col, view = new VarcharView());
+        }
+        final int absoluteColumnIndex = TableReader.getPrimaryColumnIndex(columnBase, col);
+        return view.of(
+                reader.getColumn(absoluteColumnIndex),
+                reader.getColumn(absoluteColumnIndex + 1),
+                recordIndex << VarcharUtils.AUX_ENTRY_SIZE_POW2
+        );
+    }
+
     private long getAdjustedRecordIndex(int col) {
         assert col > -1 && col < reader.getColumnCount() : "Column index out of bounds: " + col + " >= " + reader.getColumnCount();
         return recordIndex - reader.getColumnTop(columnBase, col);
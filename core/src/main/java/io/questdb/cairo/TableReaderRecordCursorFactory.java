@@ -95,6 +95,12 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
         return columnIndexes != null;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Table scan");
+        sink.attr("table").put(tableName);
+    }
+
     private static class TableReaderPageFrameCursor implements PageFrameCursor {
         private final LongList columnPageNextAddress = new LongList();
         private final LongList columnPageAddress = new LongList();
@@ -243,6 +249,11 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
             public long getPageValueCount(int columnIndex) {
                 return pageValueCount;
             }
+
+            @Override
+            public int getPartitionIndex() {
+                return partitionIndex;
+            }
         }
     }
 }
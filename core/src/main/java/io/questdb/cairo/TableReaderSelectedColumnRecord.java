@@ -28,14 +28,18 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.std.BinarySequence;
 import io.questdb.std.IntList;
 import io.questdb.std.Long256;
+import io.questdb.std.ObjList;
 import io.questdb.std.Rows;
 import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Utf8Sequence;
 
 import static io.questdb.cairo.TableReaderRecord.ifOffsetNegThen0ElseValue;
 
 public class TableReaderSelectedColumnRecord implements Record {
 
     private final IntList columnIndexes;
+    private final ObjList<VarcharView> varcharViewsA = new ObjList<>();
+    private final ObjList<VarcharView> varcharViewsB = new ObjList<>();
     private int columnBase;
     private long recordIndex = 0;
     private TableReader reader;
@@ -154,6 +158,9 @@ public class TableReaderSelectedColumnRecord implements Record {
     @Override
     public CharSequence getStr(int columnIndex) {
         final int col = deferenceColumn(columnIndex);
+        if (reader.isVarchar(col)) {
+            return toCharSequence(getVarchar(col, varcharViewsA));
+        }
         final long recordIndex = getAdjustedRecordIndex(col) * Long.BYTES;
         final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
                 recordIndex,
@@ -194,6 +201,9 @@ public class TableReaderSelectedColumnRecord implements Record {
     @Override
     public CharSequence getStrB(int columnIndex) {
         final int col = deferenceColumn(columnIndex);
+        if (reader.isVarchar(col)) {
+            return toCharSequence(getVarchar(col, varcharViewsB));
+        }
         final long recordIndex = getAdjustedRecordIndex(col) * Long.BYTES;
         final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
                 recordIndex,
@@ -207,6 +217,10 @@ public class TableReaderSelectedColumnRecord implements Record {
     @Override
     public int getStrLen(int columnIndex) {
         final int col = deferenceColumn(columnIndex);
+        if (reader.isVarchar(col)) {
+            final VarcharView view = getVarchar(col, varcharViewsA);
+            return view == null ? TableUtils.NULL_LEN : view.charLength();
+        }
         final long recordIndex = getAdjustedRecordIndex(col) * Long.BYTES;
         final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
                 recordIndex,
@@ -228,6 +242,16 @@ public class TableReaderSelectedColumnRecord implements Record {
         return reader.getSymbolMapReader(col).valueOf(reader.getColumn(absoluteColumnIndex).getInt(offset));
     }
 
+    @Override
+    public Utf8Sequence getVarcharA(int columnIndex) {
+        return getVarchar(deferenceColumn(columnIndex), varcharViewsA);
+    }
+
+    @Override
+    public Utf8Sequence getVarcharB(int columnIndex) {
+        return getVarchar(deferenceColumn(columnIndex), varcharViewsB);
+    }
+
     public void setRecordIndex(long recordIndex) {
         this.recordIndex = recordIndex;
     }
@@ -245,10 +269,32 @@ public class TableReaderSelectedColumnRecord implements Record {
         this.reader = reader;
     }
 
+    private static CharSequence toCharSequence(VarcharView view) {
+        return view == null ? null : view.toCharSequence();
+    }
+
     private int deferenceColumn(int columnIndex) {
         return columnIndexes.getQuick(columnIndex);
     }
 
+    private VarcharView getVarchar(int col, ObjList<VarcharView> views) {
+        final long recordIndex = getAdjustedRecordIndex(col);
+        if (recordIndex < 0) {
+            // column top
+            return null;
+        }
+        VarcharView view = views.getQuiet(col);
+        if (view == null) {
+            views.extendAndSet(col, view = new VarcharView());
+        }
+        final int absoluteColumnIndex = TableReader.getPrimaryColumnIndex(columnBase, col);
+        return view.of(
+                reader.getColumn(absoluteColumnIndex),
+                reader.getColumn(absoluteColumnIndex + 1),
+                recordIndex << VarcharUtils.AUX_ENTRY_SIZE_POW2
+        );
+    }
+
     private long getAdjustedRecordIndex(int col) {
         assert col > -1 && col < reader.getColumnCount() : "Column index out of bounds: " + col + " >= " + reader.getColumnCount();
         return recordIndex - reader.getColumnTop(columnBase, col);
@@ -31,6 +31,7 @@ import io.questdb.log.LogFactory;
 import io.questdb.std.CharSequenceIntHashMap;
 import io.questdb.std.Files;
 import io.questdb.std.FilesFacade;
+import io.questdb.std.IntList;
 import io.questdb.std.Numbers;
 import io.questdb.std.Os;
 import io.questdb.std.Transient;
@@ -47,6 +48,19 @@ public final class TableUtils {
     public static final int TABLE_RESERVED = 2;
     public static final String META_FILE_NAME = "_meta";
     public static final String TXN_FILE_NAME = "_txn";
+    /**
+     * Last transaction of table that is synced to disk, see {@link DurabilityJob}. Layout is single LONG.
+     */
+    public static final String DURABLE_TXN_FILE_NAME = "_txn_durable";
+    /**
+     * Definition of materialized view. View is a regular table which has this file in its directory.
+     * Layout is: LONG txn of base table at last refresh, STR base table name, STR view query. Watermark, below
+     * which rows of base table are already aggregated into the view, is the bucket that follows max timestamp of
+     * the view, it is committed together with view rows.
+     */
+    public static final String MAT_VIEW_FILE_NAME = "_mv";
+    public static final long MAT_VIEW_OFFSET_BASE_TXN = 0;
+    public static final long MAT_VIEW_OFFSET_BASE_TABLE = 8;
     public static final int INITIAL_TXN = 0;
     public static final int NULL_LEN = -1;
     public static final int ANY_TABLE_VERSION = -1;
@@ -56,7 +70,7 @@ public final class TableUtils {
     static final TimestampFormat fmtDay;
     static final TimestampFormat fmtMonth;
     static final TimestampFormat fmtYear;
-    static final String ARCHIVE_FILE_NAME = "_archive";
+    public static final String ARCHIVE_FILE_NAME = "_archive";
     static final String DEFAULT_PARTITION_NAME = "default";
     // transaction file structure
     static final long TX_OFFSET_TXN = 0;
@@ -77,7 +91,8 @@ public final class TableUtils {
      * long fixed_row_count; // row count in table excluding count in last partition
      * long max_timestamp; // last timestamp written to table
      * long struct_version; // data structure version; whenever columns added or removed this version changes.
-     * long partition_version; // version that increments whenever non-current partitions are modified/added/removed
+     * long partition_version; // version that increments whenever non-current partitions are modified/added/removed,
+     *                         // including column files replaced by compressed files
      * long txn_check; // same as txn - sanity check for concurrent reads and writes
      * int  map_writer_count; // symbol writer count
      * int  map_writer_position[map_writer_count]; // position of each of map writers
@@ -94,11 +109,16 @@ public final class TableUtils {
     static final long META_OFFSET_PARTITION_BY = 4;
     static final long META_OFFSET_TIMESTAMP_INDEX = 8;
     static final long META_OFFSET_VERSION = 12;
+    // LONG - partition retention period in microseconds, 0 when partitions never expire
+    static final long META_OFFSET_TTL = 16;
+    // INT - 1 when table commits are written to write-ahead log, see WalWriter
+    static final long META_OFFSET_WAL = 24;
     static final long META_COLUMN_DATA_SIZE = 16;
     static final long META_COLUMN_DATA_RESERVED = 3;
     static final long META_OFFSET_COLUMN_TYPES = 128;
     static final int META_FLAG_BIT_INDEXED = 1;
     static final int META_FLAG_BIT_SEQUENTIAL = 1 << 1;
+    static final int META_FLAG_BIT_DEDUP_KEY = 1 << 2;
 
     static final String TODO_FILE_NAME = "_todo";
     private static final int MIN_SYMBOL_CAPACITY = 2;
@@ -276,6 +296,30 @@ public final class TableUtils {
         txMem.jumpTo(getPartitionTableIndexOffset(symbolMapCount, 0));
     }
 
+    /**
+     * Writes transaction of table, which symbol maps and partitions, other than the last one, are
+     * already populated. Last partition is expected to be empty and start at maxTimestamp.
+     */
+    public static void resetTxn(
+            VirtualMemory txMem,
+            IntList symbolCounts,
+            long txn,
+            long dataVersion,
+            long fixedRowCount,
+            long minTimestamp,
+            long maxTimestamp
+    ) {
+        final int symbolMapCount = symbolCounts.size();
+        resetTxn(txMem, symbolMapCount, txn, dataVersion);
+        txMem.putLong(TX_OFFSET_FIXED_ROW_COUNT, fixedRowCount);
+        txMem.putLong(TX_OFFSET_MIN_TIMESTAMP, minTimestamp);
+        txMem.putLong(TX_OFFSET_MAX_TIMESTAMP, maxTimestamp);
+        for (int i = 0; i < symbolMapCount; i++) {
+            txMem.putInt(getSymbolWriterIndexOffset(i), symbolCounts.getQuick(i));
+        }
+        txMem.jumpTo(getPartitionTableIndexOffset(symbolMapCount, 0));
+    }
+
     public static int toIndexKey(int symbolKey) {
         return symbolKey == SymbolTable.VALUE_IS_NULL ? 0 : symbolKey + 1;
     }
@@ -412,6 +456,22 @@ public final class TableUtils {
         return path.concat(columnName).put(".d").$();
     }
 
+    static LPSZ compressedColumnFile(Path path, CharSequence columnName, boolean secondary) {
+        return secondary ? izFile(path, columnName) : dzFile(path, columnName);
+    }
+
+    static LPSZ compressedColumnTempFile(Path path, CharSequence columnName, boolean secondary) {
+        return path.concat(columnName).put(secondary ? ".iz" : ".dz").put(".tmp").$();
+    }
+
+    static LPSZ dzFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(".dz").$();
+    }
+
+    static LPSZ plainColumnFile(Path path, CharSequence columnName, boolean secondary) {
+        return secondary ? iFile(path, columnName) : dFile(path, columnName);
+    }
+
     static LPSZ topFile(Path path, CharSequence columnName) {
         return path.concat(columnName).put(".top").$();
     }
@@ -420,6 +480,10 @@ public final class TableUtils {
         return path.concat(columnName).put(".i").$();
     }
 
+    static LPSZ izFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(".iz").$();
+    }
+
     static int getColumnType(ReadOnlyColumn metaMem, int columnIndex) {
         return metaMem.getByte(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE);
     }
@@ -436,6 +500,10 @@ public final class TableUtils {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_SEQUENTIAL) != 0;
     }
 
+    static boolean isDedupKey(ReadOnlyColumn metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_DEDUP_KEY) != 0;
+    }
+
     static int getIndexBlockCapacity(ReadOnlyColumn metaMem, int columnIndex) {
         return metaMem.getInt(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE + 9);
     }
@@ -29,6 +29,7 @@ import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Metrics;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.SOCountDownLatch;
 import io.questdb.mp.Sequence;
@@ -39,7 +40,10 @@ import io.questdb.std.microtime.Timestamps;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.NativeLPSZ;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8StringSink;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.DurabilityTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -65,6 +69,7 @@ public class TableWriter implements Closeable {
     private final Path other;
     private final LongList refs = new LongList();
     private final Row row = new Row();
+    private final Utf8StringSink utf8Sink = new Utf8StringSink();
     private final int rootLen;
     private final ReadWriteMemory txMem;
     private final ReadOnlyMemory metaMem;
@@ -88,6 +93,9 @@ public class TableWriter implements Closeable {
     private final SOCountDownLatch indexLatch = new SOCountDownLatch();
     private final LongList indexSequences = new LongList();
     private final MessageBus messageBus;
+    private final boolean backgroundSync;
+    private final Metrics metrics;
+    private final NanosecondClock nanosecondClock;
     private final boolean parallelIndexerEnabled;
     private final LongHashSet removedPartitions = new LongHashSet();
     private final Timestamps.TimestampFloorMethod timestampFloorMethod;
@@ -124,6 +132,9 @@ public class TableWriter implements Closeable {
     private boolean performRecovery;
     private boolean distressed = false;
     private LifecycleManager lifecycleManager;
+    private WalWriter wal;
+    private final IntList dedupKeyColumns = new IntList();
+    private DedupKeyIndex dedup;
 
     public TableWriter(CairoConfiguration configuration, CharSequence name) {
         this(configuration, name, null);
@@ -157,6 +168,9 @@ public class TableWriter implements Closeable {
         this.defaultCommitMode = configuration.getCommitMode();
         this.lifecycleManager = lifecycleManager;
         this.parallelIndexerEnabled = messageBus != null && configuration.isParallelIndexingEnabled();
+        this.backgroundSync = messageBus != null && configuration.isCommitSyncInBackground();
+        this.metrics = configuration.getMetrics();
+        this.nanosecondClock = configuration.getNanosecondClock();
         this.ff = configuration.getFilesFacade();
         this.mkDirMode = configuration.getMkDirMode();
         this.fileOperationRetryCount = configuration.getFileOperationRetryCount();
@@ -233,6 +247,10 @@ public class TableWriter implements Closeable {
             configureAppendPosition();
             purgeUnusedPartitions();
             loadRemovedPartitions();
+            if (metaMem.getInt(META_OFFSET_WAL) != 0) {
+                this.wal = new WalWriter(ff, path, mkDirMode, txn);
+            }
+            configureDedup();
         } catch (CairoException e) {
             LOG.error().$("cannot open '").$(path).$("' and this is why: {").$((Sinkable) e).$('}').$();
             doClose(false);
@@ -375,6 +393,7 @@ public class TableWriter implements Closeable {
         bumpStructureVersion();
 
         metadata.addColumn(name, type, isIndexed, indexValueBlockCapacity);
+        configureDedup();
 
         LOG.info().$("ADDED column '").utf8(name).$('[').$(ColumnType.nameOf(type)).$("]' to ").$(path).$();
     }
@@ -524,38 +543,69 @@ public class TableWriter implements Closeable {
 
         if (inTransaction()) {
 
-            if (commitMode != CommitMode.NOSYNC) {
-                syncColumns(commitMode);
-            }
+            final long startNanos = nanosecondClock.getTicks();
+            // with durability task claimed msync of files is left to DurabilityJob, WAL segment
+            // cannot be published until transaction is durable, so WAL tables sync in place
+            final long durabilityCursor = commitMode == CommitMode.SYNC && backgroundSync && wal == null ? nextDurabilityCursor() : -1;
+            try {
+                if (commitMode != CommitMode.NOSYNC && durabilityCursor < 0) {
+                    syncColumns(commitMode);
+                }
 
-            updateIndexes();
+                updateIndexes();
 
-            txMem.putLong(TX_OFFSET_TXN, ++txn);
-            Unsafe.getUnsafe().storeFence();
+                if (wal != null) {
+                    // segment is written ahead of transaction, failure to write it leaves transaction pending
+                    wal.prepare(metadata, partitionBy, txn + 1, commitMode);
+                }
 
-            txMem.putLong(TX_OFFSET_TRANSIENT_ROW_COUNT, transientRowCount);
+                final long committedMaxTimestamp = txMem.getLong(TX_OFFSET_MAX_TIMESTAMP);
 
-            if (txPartitionCount > 1) {
-                commitPendingPartitions();
-                txMem.putLong(TX_OFFSET_FIXED_ROW_COUNT, fixedRowCount);
-                txPendingPartitionSizes.jumpTo(0);
-                txPartitionCount = 1;
-            }
+                txMem.putLong(TX_OFFSET_TXN, ++txn);
+                Unsafe.getUnsafe().storeFence();
 
-            txMem.putLong(TX_OFFSET_MIN_TIMESTAMP, minTimestamp);
-            txMem.putLong(TX_OFFSET_MAX_TIMESTAMP, maxTimestamp);
+                txMem.putLong(TX_OFFSET_TRANSIENT_ROW_COUNT, transientRowCount);
 
-            // store symbol counts
-            for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
-                txMem.putInt(getSymbolWriterIndexOffset(i), denseSymbolMapWriters.getQuick(i).getSymbolCount());
-            }
+                if (txPartitionCount > 1) {
+                    commitPendingPartitions();
+                    txMem.putLong(TX_OFFSET_FIXED_ROW_COUNT, fixedRowCount);
+                    txPendingPartitionSizes.jumpTo(0);
+                    txPartitionCount = 1;
+                }
+
+                txMem.putLong(TX_OFFSET_MIN_TIMESTAMP, minTimestamp);
+                txMem.putLong(TX_OFFSET_MAX_TIMESTAMP, maxTimestamp);
 
-            Unsafe.getUnsafe().storeFence();
-            txMem.putLong(TX_OFFSET_TXN_CHECK, txn);
-            if (commitMode != CommitMode.NOSYNC) {
-                txMem.sync(0, commitMode == CommitMode.ASYNC);
+                // store symbol counts
+                for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
+                    txMem.putInt(getSymbolWriterIndexOffset(i), denseSymbolMapWriters.getQuick(i).getSymbolCount());
+                }
+
+                Unsafe.getUnsafe().storeFence();
+                txMem.putLong(TX_OFFSET_TXN_CHECK, txn);
+                if (durabilityCursor > -1) {
+                    final DurabilityTask task = messageBus.getDurabilityQueue().get(durabilityCursor);
+                    task.tableName.clear();
+                    task.tableName.put(name);
+                    task.partitionBy = partitionBy;
+                    // rows are appended in timestamp order, transaction touched partitions from last committed one on
+                    task.partitionLo = committedMaxTimestamp == Long.MIN_VALUE ? minTimestamp : committedMaxTimestamp;
+                    task.partitionHi = maxTimestamp;
+                    task.txn = txn;
+                } else if (commitMode != CommitMode.NOSYNC) {
+                    txMem.sync(0, commitMode == CommitMode.ASYNC);
+                }
+                txPrevTransientRowCount = transientRowCount;
+                if (wal != null) {
+                    publishWalSegment();
+                }
+            } finally {
+                if (durabilityCursor > -1) {
+                    messageBus.getDurabilityPubSequence().done(durabilityCursor);
+                }
             }
-            txPrevTransientRowCount = transientRowCount;
+            metrics.tableWriterCommits.inc();
+            metrics.tableWriterCommitLatency.record((nanosecondClock.getTicks() - startNanos) / 1000);
         }
     }
 
@@ -587,6 +637,17 @@ public class TableWriter implements Closeable {
         return structureVersion;
     }
 
+    public long getTxn() {
+        return txn;
+    }
+
+    /**
+     * @return partition retention period in microseconds, 0 when partitions never expire
+     */
+    public long getTtl() {
+        return metaMem.getLong(META_OFFSET_TTL);
+    }
+
     public boolean inTransaction() {
         return txPartitionCount > 1 || transientRowCount != txPrevTransientRowCount;
     }
@@ -595,8 +656,22 @@ public class TableWriter implements Closeable {
         return tempMem8b != 0;
     }
 
+    public boolean isWalEnabled() {
+        return wal != null;
+    }
+
     public Row newRow(long timestamp) {
-        return rowFunction.newRow(timestamp);
+        if (dedup != null && !dedup.isLoaded()) {
+            loadDedupKeys(timestamp);
+        }
+        final Row r = rowFunction.newRow(timestamp);
+        if (wal != null) {
+            wal.startRow(timestamp);
+        }
+        if (dedup != null) {
+            dedup.startRow(timestamp);
+        }
+        return r;
     }
 
     public Row newRow() {
@@ -701,6 +776,7 @@ public class TableWriter implements Closeable {
         } else if (timestampColumnName != null) {
             metadata.setTimestampIndex(metadata.getColumnIndex(timestampColumnName));
         }
+        configureDedup();
 
         LOG.info().$("REMOVED column '").utf8(name).$("' from ").$(path).$();
     }
@@ -764,6 +840,8 @@ public class TableWriter implements Closeable {
                     int plen = path.length();
                     renameFileOrLog(ff, dFile(path.trimTo(plen), columnName), dFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, iFile(path.trimTo(plen), columnName), iFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, dzFile(path.trimTo(plen), columnName), dzFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, izFile(path.trimTo(plen), columnName), izFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, topFile(path.trimTo(plen), columnName), topFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName));
                     renameFileOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName), BitmapIndexUtils.valueFileName(other.trimTo(plen), newName));
@@ -782,6 +860,111 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Rewrites column files of closed partition using codecs from {@link ColumnCompression}. Readers
+     * pick compressed files up when they open the partition. Original files are removed after column
+     * version in transaction file is incremented, which makes readers reopen the partition. Partitions
+     * that are already compressed are left as is.
+     *
+     * @param timestamp partition timestamp
+     * @return false when partition does not exist or is the active partition
+     */
+    public boolean compressPartition(long timestamp) {
+
+        if (partitionBy == PartitionBy.NONE || timestamp < timestampFloorMethod.floor(minTimestamp) || timestamp > maxTimestamp) {
+            return false;
+        }
+
+        if (timestampFloorMethod.floor(timestamp) == timestampFloorMethod.floor(maxTimestamp)) {
+            LOG.error()
+                    .$("cannot compress active partition [path=").$(path)
+                    .$(", maxTimestamp=").$ts(maxTimestamp)
+                    .$(']').$();
+            return false;
+        }
+
+        if (removedPartitions.contains(timestamp)) {
+            LOG.error().$("partition is marked for delete [path=").$(path).$(']').$();
+            return false;
+        }
+
+        try {
+            setStateForTimestamp(timestamp, false);
+            if (!ff.exists(path.$())) {
+                LOG.error().$("cannot compress missing partition [path=").$(path).$(']').$();
+                return false;
+            }
+            compressPartitionColumns();
+            return true;
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Compresses all closed partitions older than given timestamp.
+     *
+     * @param timestamp partitions that end before this timestamp are compressed
+     * @return number of compressed column files
+     */
+    public int compressPartitionsOlderThan(long timestamp) {
+        if (partitionBy == PartitionBy.NONE) {
+            return 0;
+        }
+
+        final long hi = Math.min(timestampFloorMethod.floor(timestamp), timestampFloorMethod.floor(maxTimestamp));
+        int count = 0;
+        for (long ts = timestampFloorMethod.floor(minTimestamp); timestampAddMethod.calculate(ts, 1) <= hi; ts = timestampAddMethod.calculate(ts, 1)) {
+            if (!removedPartitions.contains(ts)) {
+                try {
+                    setStateForTimestamp(ts, false);
+                    if (ff.exists(path.$())) {
+                        count += compressPartitionColumns();
+                    }
+                } finally {
+                    path.trimTo(rootLen);
+                    other.trimTo(rootLen);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes partitions which end more than TTL before the max timestamp of the table. Active
+     * partition is never removed, even when TTL is shorter than partition interval.
+     *
+     * @return number of removed partitions
+     */
+    public int removeExpiredPartitions() {
+        final long ttl = getTtl();
+        if (ttl <= 0 || partitionBy == PartitionBy.NONE || maxTimestamp == Long.MIN_VALUE || ttl >= maxTimestamp - minTimestamp) {
+            return 0;
+        }
+
+        final long hi = timestampFloorMethod.floor(maxTimestamp - ttl);
+        int count = 0;
+        for (long ts = timestampFloorMethod.floor(minTimestamp); timestampAddMethod.calculate(ts, 1) <= hi; ts = timestampAddMethod.calculate(ts, 1)) {
+            if (removedPartitions.contains(ts)) {
+                continue;
+            }
+
+            final boolean exists;
+            try {
+                setStateForTimestamp(ts, false);
+                exists = ff.exists(path.$());
+            } finally {
+                path.trimTo(rootLen);
+            }
+
+            if (exists && removePartition(ts)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     public boolean removePartition(long timestamp) {
 
         if (partitionBy == PartitionBy.NONE || timestamp < timestampFloorMethod.floor(minTimestamp) || timestamp > maxTimestamp) {
@@ -882,10 +1065,142 @@ public class TableWriter implements Closeable {
             configureAppendPosition();
             rollbackIndexes();
             purgeUnusedPartitions();
+            if (wal != null) {
+                wal.rollback();
+            }
+            if (dedup != null) {
+                dedup.clear();
+            }
             LOG.info().$("tx rollback complete [name=").$(name).$(']').$();
         }
     }
 
+    /**
+     * Sets partition retention period. TTL is stored in table metadata and does not change
+     * table structure, open readers are not affected.
+     *
+     * @param ttl retention period in microseconds, 0 disables retention
+     */
+    public void setTtl(long ttl) {
+        if (ttl < 0) {
+            throw CairoException.instance(0).put("invalid TTL [value=").put(ttl).put(']');
+        }
+
+        try {
+            final long fd = ff.openRW(path.concat(META_FILE_NAME).$());
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("Cannot open: ").put(path);
+            }
+
+            try {
+                Unsafe.getUnsafe().putLong(tempMem8b, ttl);
+                if (ff.write(fd, tempMem8b, Long.BYTES, META_OFFSET_TTL) != Long.BYTES) {
+                    throw CairoException.instance(ff.errno()).put("Cannot write: ").put(path);
+                }
+            } finally {
+                ff.close(fd);
+            }
+            LOG.info().$("TTL updated [table=").$(name).$(", ttl=").$(ttl).$(']').$();
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Enables or disables write-ahead log of table, see {@link WalWriter}. Pending transaction is committed
+     * before the change. Flag is stored in table metadata and does not change table structure.
+     *
+     * @param enabled true to write every commit to write-ahead log
+     */
+    public void setWalEnabled(boolean enabled) {
+        commit();
+        try {
+            final long fd = ff.openRW(path.concat(META_FILE_NAME).$());
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("Cannot open: ").put(path);
+            }
+
+            try {
+                Unsafe.getUnsafe().putInt(tempMem8b, enabled ? 1 : 0);
+                if (ff.write(fd, tempMem8b, Integer.BYTES, META_OFFSET_WAL) != Integer.BYTES) {
+                    throw CairoException.instance(ff.errno()).put("Cannot write: ").put(path);
+                }
+            } finally {
+                ff.close(fd);
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+
+        if (enabled && wal == null) {
+            wal = new WalWriter(ff, path, mkDirMode, txn);
+        } else if (!enabled) {
+            wal = Misc.free(wal);
+        }
+        LOG.info().$("WAL updated [table=").$(name).$(", enabled=").$(enabled).$(']').$();
+    }
+
+    /**
+     * Sets columns that identify row together with designated timestamp. Row whose key matches row
+     * with the same timestamp that is already in the table, committed or not, is not appended.
+     * Pending transaction is committed before the change. Keys are stored as column flags in table
+     * metadata and do not change table structure.
+     *
+     * @param columnIndexes indexes of key columns, they must include designated timestamp. Empty list
+     *                      disables deduplication.
+     */
+    public void setDedupKeys(IntList columnIndexes) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        final int keyCount = columnIndexes.size();
+        if (keyCount > 0) {
+            if (timestampIndex == -1) {
+                throw CairoException.instance(0).put("deduplication requires designated timestamp");
+            }
+            if (columnIndexes.indexOf(timestampIndex) == -1) {
+                throw CairoException.instance(0).put("deduplication keys must include designated timestamp");
+            }
+            for (int i = 0; i < keyCount; i++) {
+                final int columnIndex = columnIndexes.getQuick(i);
+                if (columnIndex < 0 || columnIndex >= columnCount) {
+                    throw CairoException.instance(0).put("invalid column index [index=").put(columnIndex).put(']');
+                }
+                final int type = metadata.getColumnType(columnIndex);
+                if (!DedupKeyIndex.isSupportedKeyType(type)) {
+                    throw CairoException.instance(0)
+                            .put("unsupported deduplication key type [column=").put(metadata.getColumnName(columnIndex))
+                            .put(", type=").put(ColumnType.nameOf(type)).put(']');
+                }
+            }
+        }
+
+        commit();
+        try {
+            final long fd = ff.openRW(path.concat(META_FILE_NAME).$());
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("Cannot open: ").put(path);
+            }
+
+            try {
+                for (int i = 0; i < columnCount; i++) {
+                    long flags = getColumnFlags(metaMem, i) & ~META_FLAG_BIT_DEDUP_KEY;
+                    if (columnIndexes.indexOf(i) != -1) {
+                        flags |= META_FLAG_BIT_DEDUP_KEY;
+                    }
+                    Unsafe.getUnsafe().putLong(tempMem8b, flags);
+                    if (ff.write(fd, tempMem8b, Long.BYTES, META_OFFSET_COLUMN_TYPES + i * META_COLUMN_DATA_SIZE + 1) != Long.BYTES) {
+                        throw CairoException.instance(ff.errno()).put("Cannot write: ").put(path);
+                    }
+                }
+            } finally {
+                ff.close(fd);
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+        configureDedup();
+        LOG.info().$("deduplication updated [table=").$(name).$(", keys=").$(keyCount).$(']').$();
+    }
+
     public void setLifecycleManager(LifecycleManager lifecycleManager) {
         this.lifecycleManager = lifecycleManager;
     }
@@ -954,6 +1269,10 @@ public class TableWriter implements Closeable {
             throwDistressException(err);
         }
 
+        if (dedup != null) {
+            dedup.clear();
+        }
+
         LOG.info().$("truncated [name=").$(name).$(']').$();
     }
 
@@ -1038,6 +1357,15 @@ public class TableWriter implements Closeable {
                     mem1.setSize(len == -1 ? offset + 4 : offset + len * 2 + 4);
                     mem2.setSize(actualPosition * 8);
                     break;
+                case ColumnType.VARCHAR:
+                    assert mem2 != null;
+                    offset = (actualPosition - 1) << VarcharUtils.AUX_ENTRY_SIZE_POW2;
+                    readBytes(ff, mem2, buf, 8, offset, "Cannot read varchar header, fd=");
+                    len = Unsafe.getUnsafe().getLong(buf);
+                    readBytes(ff, mem2, buf, 8, offset + 8, "Cannot read varchar offset, fd=");
+                    mem1.setSize(VarcharUtils.getDataSize(len, Unsafe.getUnsafe().getLong(buf)));
+                    mem2.setSize(actualPosition << VarcharUtils.AUX_ENTRY_SIZE_POW2);
+                    break;
                 default:
                     mem1.setSize(actualPosition << ColumnType.pow2SizeOf(type));
                     break;
@@ -1080,6 +1408,89 @@ public class TableWriter implements Closeable {
         return -1;
     }
 
+    private int compressPartitionColumns() {
+        final int plen = path.length();
+        other.of(path, 0, plen);
+        int count = 0;
+        try (AppendMemory mem = new AppendMemory()) {
+            for (int i = 0; i < columnCount; i++) {
+                final CharSequence columnName = metadata.getColumnName(i);
+                final int type = metadata.getColumnType(i);
+                count += compressColumnFile(plen, columnName, false, ColumnCompression.getCodec(type), mem);
+                count += compressColumnFile(plen, columnName, true, ColumnCompression.getSecondaryCodec(type), mem);
+            }
+
+            // readers may be opening plain files that compressed files replace, so plain files
+            // are removed only after partition table version change tells readers to reopen the partition
+            if (hasReplacedColumnFiles(plen)) {
+                bumpPartitionTableVersion();
+                for (int i = 0; i < columnCount; i++) {
+                    final CharSequence columnName = metadata.getColumnName(i);
+                    removeReplacedColumnFile(plen, columnName, false);
+                    removeReplacedColumnFile(plen, columnName, true);
+                }
+            }
+        } finally {
+            path.trimTo(plen);
+            other.trimTo(plen);
+        }
+
+        if (count > 0) {
+            LOG.info().$("compressed [path=").$(path).$(", files=").$(count).$(']').$();
+        }
+        return count;
+    }
+
+    private int compressColumnFile(int plen, CharSequence columnName, boolean secondary, int codec, AppendMemory mem) {
+        final LPSZ from = plainColumnFile(path.trimTo(plen), columnName, secondary);
+        // file is missing when column was added after partition was closed or when it is already compressed
+        if (!ff.exists(from) || ff.exists(compressedColumnFile(other.trimTo(plen), columnName, secondary))) {
+            return 0;
+        }
+
+        final long size = ff.length(from);
+        if (size < 1) {
+            return 0;
+        }
+
+        // compressed file is written under temporary name, readers must never see it incomplete
+        final LPSZ temp = compressedColumnTempFile(other.trimTo(plen), columnName, secondary);
+        final long compressedSize = ColumnCompression.compress(ff, from, temp, codec, mem);
+        if (compressedSize >= size) {
+            removeFileAndOrLog(ff, temp);
+            return 0;
+        }
+
+        if (!ff.rename(temp, compressedColumnFile(path.trimTo(plen), columnName, secondary))) {
+            final int errno = ff.errno();
+            removeFileAndOrLog(ff, other);
+            throw CairoException.instance(errno).put("Cannot rename ").put(other);
+        }
+        return 1;
+    }
+
+    private boolean hasReplacedColumnFiles(int plen) {
+        for (int i = 0; i < columnCount; i++) {
+            final CharSequence columnName = metadata.getColumnName(i);
+            if (isReplacedColumnFile(plen, columnName, false) || isReplacedColumnFile(plen, columnName, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isReplacedColumnFile(int plen, CharSequence columnName, boolean secondary) {
+        return ff.exists(plainColumnFile(path.trimTo(plen), columnName, secondary))
+                && ff.exists(compressedColumnFile(other.trimTo(plen), columnName, secondary));
+    }
+
+    private void removeReplacedColumnFile(int plen, CharSequence columnName, boolean secondary) {
+        // file that cannot be removed now is removed when partition is compressed next time
+        if (isReplacedColumnFile(plen, columnName, secondary)) {
+            removeFileAndOrLog(ff, path);
+        }
+    }
+
     private static void removeFileAndOrLog(FilesFacade ff, LPSZ name) {
         if (ff.exists(name)) {
             if (ff.remove(name)) {
@@ -1126,6 +1537,8 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
             ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putLong(metaMem.getLong(META_OFFSET_TTL));
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_WAL));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 writeColumnEntry(i);
@@ -1159,6 +1572,16 @@ public class TableWriter implements Closeable {
         return index;
     }
 
+    private void bumpPartitionTableVersion() {
+        txMem.putLong(TX_OFFSET_TXN, ++txn);
+        Unsafe.getUnsafe().storeFence();
+
+        txMem.putLong(TX_OFFSET_PARTITION_TABLE_VERSION, txMem.getLong(TX_OFFSET_PARTITION_TABLE_VERSION) + 1);
+
+        Unsafe.getUnsafe().storeFence();
+        txMem.putLong(TX_OFFSET_TXN_CHECK, txn);
+    }
+
     private void bumpMasterRef() {
         if ((masterRef & 1) == 0) {
             masterRef++;
@@ -1270,6 +1693,9 @@ public class TableWriter implements Closeable {
             }
         }
         refs.fill(0, columnCount, --masterRef);
+        if (wal != null) {
+            wal.cancelRow();
+        }
     }
 
     private void cancelRowAndBump() {
@@ -1336,12 +1762,36 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void configureDedup() {
+        final int timestampIndex = metadata.getTimestampIndex();
+        boolean enabled = false;
+        dedupKeyColumns.clear();
+        for (int i = 0; i < columnCount; i++) {
+            if (isDedupKey(metaMem, i)) {
+                enabled = true;
+                if (i != timestampIndex) {
+                    dedupKeyColumns.add(i);
+                }
+            }
+        }
+
+        if (enabled && timestampIndex != -1) {
+            if (dedup == null) {
+                dedup = new DedupKeyIndex();
+            }
+            dedup.of(metadata, dedupKeyColumns);
+        } else {
+            dedup = null;
+        }
+    }
+
     private void configureColumn(int type, boolean indexFlag) {
         final AppendMemory primary = new AppendMemory();
         final AppendMemory secondary;
         switch (type) {
             case ColumnType.BINARY:
             case ColumnType.STRING:
+            case ColumnType.VARCHAR:
                 secondary = new AppendMemory();
                 break;
             default:
@@ -1420,6 +1870,9 @@ public class TableWriter implements Closeable {
             case ColumnType.BINARY:
                 nullers.add(() -> mem2.putLong(mem1.putNullBin()));
                 break;
+            case ColumnType.VARCHAR:
+                nullers.add(() -> VarcharUtils.appendNull(mem1, mem2));
+                break;
             default:
                 break;
         }
@@ -1444,6 +1897,8 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
             ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putLong(metaMem.getLong(META_OFFSET_TTL));
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_WAL));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 if (i != columnIndex) {
@@ -1454,6 +1909,9 @@ public class TableWriter implements Closeable {
                     if (isSequential(metaMem, i)) {
                         flags |= META_FLAG_BIT_SEQUENTIAL;
                     }
+                    if (isDedupKey(metaMem, i)) {
+                        flags |= META_FLAG_BIT_DEDUP_KEY;
+                    }
                     ddlMem.putLong(flags);
                     ddlMem.putInt(indexValueBlockSize);
                     ddlMem.skip(META_COLUMN_DATA_RESERVED);
@@ -1482,6 +1940,8 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
             ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putLong(metaMem.getLong(META_OFFSET_TTL));
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_WAL));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 writeColumnEntry(i);
@@ -1556,6 +2016,7 @@ public class TableWriter implements Closeable {
         } finally {
             Misc.free(metaMem);
             Misc.free(txPendingPartitionSizes);
+            wal = Misc.free(wal);
             Misc.free(ddlMem);
             Misc.free(other);
             try {
@@ -1703,9 +2164,8 @@ public class TableWriter implements Closeable {
 
                     final int plen = path.length();
 
-                    TableUtils.dFile(path.trimTo(plen), columnName);
-
-                    if (ff.exists(path)) {
+                    final boolean compressed = !ff.exists(TableUtils.dFile(path.trimTo(plen), columnName));
+                    if (!compressed || ff.exists(TableUtils.dzFile(path.trimTo(plen), columnName))) {
 
                         path.trimTo(plen);
 
@@ -1717,13 +2177,25 @@ public class TableWriter implements Closeable {
                         final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b);
 
                         if (partitionSize > columnTop) {
-                            TableUtils.dFile(path.trimTo(plen), columnName);
-
-                            roMem.of(ff, path, ff.getPageSize(), 0);
-                            roMem.grow((partitionSize - columnTop) << ColumnType.pow2SizeOf(ColumnType.INT));
+                            final ReadOnlyColumn column;
+                            if (compressed) {
+                                TableUtils.dzFile(path.trimTo(plen), columnName);
+                                column = new CompressedColumn(new DecompressedColumnCache(0), ff, path, ColumnCompression.readDecodedSize(ff, path, tempMem8b), dataVersion, false);
+                            } else {
+                                TableUtils.dFile(path.trimTo(plen), columnName);
+                                roMem.of(ff, path, ff.getPageSize(), 0);
+                                roMem.grow((partitionSize - columnTop) << ColumnType.pow2SizeOf(ColumnType.INT));
+                                column = roMem;
+                            }
 
-                            indexer.configureWriter(configuration, path.trimTo(plen), columnName, columnTop);
-                            indexer.index(roMem, columnTop, partitionSize);
+                            try {
+                                indexer.configureWriter(configuration, path.trimTo(plen), columnName, columnTop);
+                                indexer.index(column, columnTop, partitionSize);
+                            } finally {
+                                if (compressed) {
+                                    column.close();
+                                }
+                            }
                         }
                     }
                 }
@@ -1910,6 +2382,16 @@ public class TableWriter implements Closeable {
         indexCount = denseIndexers.size();
     }
 
+    private void publishWalSegment() {
+        try {
+            wal.publish();
+        } catch (CairoException e) {
+            // transaction is committed, segment is published when writer is reopened
+            distressed = true;
+            throw e;
+        }
+    }
+
     private void purgeUnusedPartitions() {
         if (partitionBy != PartitionBy.NONE) {
             removePartitionDirsNewerThan(maxTimestamp);
@@ -2005,6 +2487,8 @@ public class TableWriter implements Closeable {
                     int plen = path.length();
                     removeLambda.remove(ff, dFile(path, columnName));
                     removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, dzFile(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, izFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
@@ -2037,6 +2521,8 @@ public class TableWriter implements Closeable {
                 ddlMem.putInt(timestampIndex);
             }
             ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putLong(metaMem.getLong(META_OFFSET_TTL));
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_WAL));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
 
             for (int i = 0; i < columnCount; i++) {
@@ -2068,6 +2554,8 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(partitionBy);
             ddlMem.putInt(timestampIndex);
             ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putLong(metaMem.getLong(META_OFFSET_TTL));
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_WAL));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
 
             for (int i = 0; i < columnCount; i++) {
@@ -2518,6 +3006,23 @@ public class TableWriter implements Closeable {
         setAppendPosition(0);
     }
 
+    /**
+     * Claims slot of durability queue. Slot is marked as not carrying transaction until commit completes.
+     *
+     * @return queue cursor or -1 when queue is full and commit has to sync inline
+     */
+    private long nextDurabilityCursor() {
+        final Sequence pubSeq = messageBus.getDurabilityPubSequence();
+        long cursor;
+        while ((cursor = pubSeq.next()) == -2) {
+            // CAS contention with other writer, retry
+        }
+        if (cursor > -1) {
+            messageBus.getDurabilityQueue().get(cursor).txn = -1;
+        }
+        return cursor;
+    }
+
     private void syncColumns(int commitMode) {
         final boolean async = commitMode == CommitMode.ASYNC;
         for (int i = 0; i < columnCount; i++) {
@@ -2646,6 +3151,33 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void loadDedupKeys(long timestamp) {
+        // index has no keys after writer is opened or rolled back, keys of committed rows
+        // are loaded back when first row continues last timestamp of table
+        dedup.clear();
+        dedup.setLoaded();
+        if (timestamp != maxTimestamp || size() == 0) {
+            return;
+        }
+
+        try (TableReader reader = new TableReader(configuration, name)) {
+            final TableReaderRecord record = new TableReaderRecord();
+            record.of(reader);
+            final int timestampIndex = metadata.getTimestampIndex();
+            for (int partitionIndex = reader.getPartitionCount() - 1; partitionIndex > -1; partitionIndex--) {
+                final long rowCount = reader.openPartition(partitionIndex);
+                for (long row = rowCount - 1; row > -1; row--) {
+                    record.jumpTo(partitionIndex, row);
+                    if (record.getTimestamp(timestampIndex) != timestamp) {
+                        return;
+                    }
+                    dedup.add(timestamp, record);
+                }
+            }
+        }
+        LOG.info().$("loaded deduplication keys [table=").$(name).$(", timestamp=").$ts(timestamp).$(']').$();
+    }
+
     private void updateMaxTimestamp(long timestamp) {
         this.prevMaxTimestamp = maxTimestamp;
         this.maxTimestamp = timestamp;
@@ -2681,6 +3213,10 @@ public class TableWriter implements Closeable {
         if (isSequential(metaMem, i)) {
             flags |= META_FLAG_BIT_SEQUENTIAL;
         }
+
+        if (isDedupKey(metaMem, i)) {
+            flags |= META_FLAG_BIT_DEDUP_KEY;
+        }
         ddlMem.putLong(flags);
         ddlMem.putInt(getIndexBlockCapacity(metaMem, i));
         ddlMem.skip(META_COLUMN_DATA_RESERVED);
@@ -2789,6 +3325,11 @@ public class TableWriter implements Closeable {
     public class Row {
         public void append() {
             if ((masterRef & 1) != 0) {
+                if (dedup != null && !dedup.add()) {
+                    // row with the same key and timestamp is already in the table
+                    cancelRow();
+                    return;
+                }
                 for (int i = 0; i < columnCount; i++) {
                     if (refs.getQuick(i) < masterRef) {
                         nullers.getQuick(i).run();
@@ -2799,6 +3340,9 @@ public class TableWriter implements Closeable {
                 if (prevMinTimestamp == Long.MAX_VALUE) {
                     prevMinTimestamp = minTimestamp;
                 }
+                if (wal != null) {
+                    wal.endRow();
+                }
             }
         }
 
@@ -2808,26 +3352,49 @@ public class TableWriter implements Closeable {
 
         public void putBin(int index, long address, long len) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(address, len));
+            if (wal != null) {
+                wal.putBin(index, address, len);
+            }
             notNull(index);
         }
 
         public void putBin(int index, BinarySequence sequence) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(sequence));
+            // sequence is read once, it can be generated on the fly
+            final BinarySequence value = wal != null ? wal.putBin(index, sequence) : sequence;
+            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(value));
             notNull(index);
         }
 
         public void putBool(int index, boolean value) {
             getPrimaryColumn(index).putBool(value);
+            if (wal != null) {
+                wal.putBool(index, value);
+            }
+            if (dedup != null) {
+                dedup.put(index, value ? 1 : 0);
+            }
             notNull(index);
         }
 
         public void putByte(int index, byte value) {
             getPrimaryColumn(index).putByte(value);
+            if (wal != null) {
+                wal.putByte(index, value);
+            }
+            if (dedup != null) {
+                dedup.put(index, value);
+            }
             notNull(index);
         }
 
         public void putChar(int index, char value) {
             getPrimaryColumn(index).putChar(value);
+            if (wal != null) {
+                wal.putChar(index, value);
+            }
+            if (dedup != null) {
+                dedup.put(index, value);
+            }
             notNull(index);
         }
 
@@ -2837,66 +3404,152 @@ public class TableWriter implements Closeable {
 
         public void putDouble(int index, double value) {
             getPrimaryColumn(index).putDouble(value);
+            if (wal != null) {
+                wal.putDouble(index, value);
+            }
+            if (dedup != null) {
+                dedup.putDouble(index, value);
+            }
             notNull(index);
         }
 
         public void putFloat(int index, float value) {
             getPrimaryColumn(index).putFloat(value);
+            if (wal != null) {
+                wal.putFloat(index, value);
+            }
+            if (dedup != null) {
+                dedup.putFloat(index, value);
+            }
             notNull(index);
         }
 
         public void putInt(int index, int value) {
             getPrimaryColumn(index).putInt(value);
+            if (wal != null) {
+                wal.putInt(index, value);
+            }
+            if (dedup != null) {
+                dedup.put(index, value);
+            }
             notNull(index);
         }
 
         public void putLong(int index, long value) {
             getPrimaryColumn(index).putLong(value);
+            if (wal != null) {
+                wal.putLong(index, value);
+            }
+            if (dedup != null) {
+                dedup.put(index, value);
+            }
             notNull(index);
         }
 
         public void putLong256(int index, long l0, long l1, long l2, long l3) {
             getPrimaryColumn(index).putLong256(l0, l1, l2, l3);
+            if (wal != null) {
+                wal.putLong256(index, l0, l1, l2, l3);
+            }
             notNull(index);
         }
 
         public void putLong256(int index, Long256 value) {
             getPrimaryColumn(index).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+            if (wal != null) {
+                wal.putLong256(index, value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+            }
             notNull(index);
         }
 
         public void putLong256(int index, CharSequence hexString) {
             getPrimaryColumn(index).putLong256(hexString);
+            if (wal != null) {
+                wal.putLong256(index, hexString);
+            }
             notNull(index);
         }
 
         public void putShort(int index, short value) {
             getPrimaryColumn(index).putShort(value);
+            if (wal != null) {
+                wal.putShort(index, value);
+            }
+            if (dedup != null) {
+                dedup.put(index, value);
+            }
             notNull(index);
         }
 
         public void putStr(int index, CharSequence value) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            if (wal != null) {
+                wal.putStr(index, value);
+            }
             notNull(index);
         }
 
         public void putStr(int index, char value) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            if (wal != null) {
+                wal.putStr(index, value);
+            }
             notNull(index);
         }
 
         public void putStr(int index, CharSequence value, int pos, int len) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value, pos, len));
+            if (wal != null) {
+                wal.putStr(index, value, pos, len);
+            }
+            notNull(index);
+        }
+
+        public void putVarchar(int index, CharSequence value) {
+            if (value == null) {
+                putVarchar(index, (Utf8Sequence) null);
+            } else {
+                putVarchar(index, value, 0, value.length());
+            }
+        }
+
+        public void putVarchar(int index, char value) {
+            if (value == 0) {
+                putVarchar(index, (Utf8Sequence) null);
+            } else {
+                utf8Sink.clear();
+                utf8Sink.putUtf8(value);
+                putVarchar(index, utf8Sink);
+            }
+        }
+
+        public void putVarchar(int index, CharSequence value, int pos, int len) {
+            utf8Sink.clear();
+            utf8Sink.encodeUtf8(value, pos, pos + len);
+            putVarchar(index, utf8Sink);
+        }
+
+        public void putVarchar(int index, Utf8Sequence value) {
+            VarcharUtils.append(getPrimaryColumn(index), getSecondaryColumn(index), value);
+            if (wal != null) {
+                wal.putVarchar(index, value);
+            }
             notNull(index);
         }
 
         public void putSym(int index, CharSequence value) {
-            getPrimaryColumn(index).putInt(symbolMapWriters.getQuick(index).put(value));
+            putSymKey(index, symbolMapWriters.getQuick(index).put(value));
+            if (wal != null) {
+                wal.putStr(index, value);
+            }
             notNull(index);
         }
 
         public void putSym(int index, char value) {
-            getPrimaryColumn(index).putInt(symbolMapWriters.getQuick(index).put(value));
+            putSymKey(index, symbolMapWriters.getQuick(index).put(value));
+            if (wal != null) {
+                wal.putStr(index, value);
+            }
             notNull(index);
         }
 
@@ -2907,6 +3560,13 @@ public class TableWriter implements Closeable {
         private void notNull(int index) {
             refs.setQuick(index, masterRef);
         }
+
+        private void putSymKey(int index, int key) {
+            getPrimaryColumn(index).putInt(key);
+            if (dedup != null) {
+                dedup.put(index, key);
+            }
+        }
     }
 
     static {
@@ -2915,5 +3575,6 @@ public class TableWriter implements Closeable {
         IGNORED_FILES.add(META_FILE_NAME);
         IGNORED_FILES.add(TXN_FILE_NAME);
         IGNORED_FILES.add(TODO_FILE_NAME);
+        IGNORED_FILES.add(WalWriter.WAL_DIR_NAME);
     }
 }
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.str.Utf8Sequence;
+
+/**
+ * Storage layout of VARCHAR columns. Values are kept as UTF-8 bytes. Every row has a fixed
+ * 16 byte entry in the secondary (.i) file:
+ * <pre>
+ * byte  0      flags: bit 0 - inlined, bit 1 - ascii, bit 2 - null; inlined size in bits 4..7
+ * bytes 1..9   inlined value, up to {@link #INLINED_MAX_SIZE} bytes
+ *
+ * or, when value is not inlined:
+ *
+ * bytes 0..3   (size &lt;&lt; 4) | flags
+ * bytes 4..9   first {@link #PREFIX_SIZE} bytes of the value
+ *
+ * bytes 10..15 offset of the value in the primary (.d) file
+ * </pre>
+ * Only values that are not inlined take space in the primary file. For inlined and null values the offset
+ * is the append position of the primary file, which lets us derive primary file size from the last entry.
+ */
+public final class VarcharUtils {
+    public static final int AUX_ENTRY_SIZE = 16;
+    public static final int AUX_ENTRY_SIZE_POW2 = 4;
+    public static final int INLINED_MAX_SIZE = 9;
+    public static final int PREFIX_SIZE = 6;
+    public static final int MAX_SIZE = (1 << 27) - 1;
+    static final int FLAG_INLINED = 1;
+    static final int FLAG_ASCII = 2;
+    static final int FLAG_NULL = 4;
+    private static final int INLINED_OFFSET = 1;
+    private static final int PREFIX_OFFSET = 4;
+    private static final int DATA_OFFSET_SHIFT = 16;
+
+    private VarcharUtils() {
+    }
+
+    public static void append(VirtualMemory dataMem, VirtualMemory auxMem, Utf8Sequence value) {
+        final long dataOffset = dataMem.getAppendOffset();
+        if (value == null) {
+            appendNull(dataOffset, auxMem);
+            return;
+        }
+
+        final int size = value.length();
+        final int flags = value.isAscii() ? FLAG_ASCII : 0;
+        long lo;
+        long hi = 0;
+        if (size <= INLINED_MAX_SIZE) {
+            lo = flags | FLAG_INLINED | (size << 4);
+            for (int i = 0; i < size; i++) {
+                final int pos = i + INLINED_OFFSET;
+                final long b = value.byteAt(i) & 0xffL;
+                if (pos < Long.BYTES) {
+                    lo |= b << (pos << 3);
+                } else {
+                    hi |= b << ((pos - Long.BYTES) << 3);
+                }
+            }
+        } else {
+            if (size > MAX_SIZE) {
+                throw CairoException.instance(0).put("varchar value is too long [size=").put(size).put(", max=").put(MAX_SIZE).put(']');
+            }
+            lo = ((long) size << 4) | flags;
+            for (int i = 0; i < PREFIX_SIZE; i++) {
+                final int pos = i + PREFIX_OFFSET;
+                final long b = value.byteAt(i) & 0xffL;
+                if (pos < Long.BYTES) {
+                    lo |= b << (pos << 3);
+                } else {
+                    hi |= b << ((pos - Long.BYTES) << 3);
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                dataMem.putByte(value.byteAt(i));
+            }
+        }
+        auxMem.putLong(lo);
+        auxMem.putLong(hi | (dataOffset << DATA_OFFSET_SHIFT));
+    }
+
+    public static void appendNull(VirtualMemory dataMem, VirtualMemory auxMem) {
+        appendNull(dataMem.getAppendOffset(), auxMem);
+    }
+
+    /**
+     * Size of primary file required to hold all values up to and including the given entry.
+     *
+     * @param lo first 8 bytes of aux entry
+     * @param hi last 8 bytes of aux entry
+     * @return size of primary file in bytes
+     */
+    public static long getDataSize(long lo, long hi) {
+        final long dataOffset = getDataOffset(hi);
+        if ((lo & (FLAG_INLINED | FLAG_NULL)) != 0) {
+            return dataOffset;
+        }
+        return dataOffset + getSize(lo);
+    }
+
+    static byte getByte(long lo, long hi, int pos) {
+        return pos < Long.BYTES ? (byte) (lo >>> (pos << 3)) : (byte) (hi >>> ((pos - Long.BYTES) << 3));
+    }
+
+    static long getDataOffset(long hi) {
+        return hi >>> DATA_OFFSET_SHIFT;
+    }
+
+    static byte getInlinedByte(long lo, long hi, int index) {
+        return getByte(lo, hi, index + INLINED_OFFSET);
+    }
+
+    static byte getPrefixByte(long lo, long hi, int index) {
+        return getByte(lo, hi, index + PREFIX_OFFSET);
+    }
+
+    static int getSize(long lo) {
+        if ((lo & FLAG_INLINED) != 0) {
+            return (int) ((lo >>> 4) & 0x0f);
+        }
+        return (int) ((lo & 0xffffffffL) >>> 4);
+    }
+
+    static boolean isAscii(long lo) {
+        return (lo & FLAG_ASCII) != 0;
+    }
+
+    static boolean isInlined(long lo) {
+        return (lo & FLAG_INLINED) != 0;
+    }
+
+    static boolean isNull(long lo) {
+        return (lo & FLAG_NULL) != 0;
+    }
+
+    private static void appendNull(long dataOffset, VirtualMemory auxMem) {
+        auxMem.putLong(FLAG_NULL);
+        auxMem.putLong(dataOffset << DATA_OFFSET_SHIFT);
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.Chars;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8Sequence;
+
+/**
+ * Flyweight over single VARCHAR value of a column. Bytes are read directly from column memory, inlined
+ * values are served from the aux entry. Decoded UTF-16 view is built lazily and only when asked for.
+ */
+public class VarcharView implements Utf8Sequence {
+    private final StringSink utf16Sink = new StringSink();
+    private ReadOnlyColumn dataColumn;
+    private long lo;
+    private long hi;
+    private long dataOffset;
+    private int size;
+    private boolean decoded;
+
+    @Override
+    public byte byteAt(int index) {
+        if (VarcharUtils.isInlined(lo)) {
+            return VarcharUtils.getInlinedByte(lo, hi, index);
+        }
+        if (index < VarcharUtils.PREFIX_SIZE) {
+            return VarcharUtils.getPrefixByte(lo, hi, index);
+        }
+        return dataColumn.getByte(dataOffset + index);
+    }
+
+    @Override
+    public boolean isAscii() {
+        return VarcharUtils.isAscii(lo);
+    }
+
+    @Override
+    public int length() {
+        return size;
+    }
+
+    public int charLength() {
+        if (isAscii()) {
+            return size;
+        }
+        return toCharSequence().length();
+    }
+
+    /**
+     * Positions view at aux entry.
+     *
+     * @param dataColumn primary column memory
+     * @param auxColumn  secondary column memory
+     * @param auxOffset  offset of aux entry
+     * @return this view or null when value is null
+     */
+    public VarcharView of(ReadOnlyColumn dataColumn, ReadOnlyColumn auxColumn, long auxOffset) {
+        final long lo = auxColumn.getLong(auxOffset);
+        if (VarcharUtils.isNull(lo)) {
+            return null;
+        }
+        this.dataColumn = dataColumn;
+        this.lo = lo;
+        this.hi = auxColumn.getLong(auxOffset + Long.BYTES);
+        this.dataOffset = VarcharUtils.getDataOffset(hi);
+        this.size = VarcharUtils.getSize(lo);
+        this.decoded = false;
+        return this;
+    }
+
+    public CharSequence toCharSequence() {
+        if (!decoded) {
+            utf16Sink.clear();
+            if (isAscii()) {
+                for (int i = 0; i < size; i++) {
+                    utf16Sink.put((char) byteAt(i));
+                }
+            } else {
+                Chars.utf8Decode(this, utf16Sink);
+            }
+            decoded = true;
+        }
+        return utf16Sink;
+    }
+
+    @Override
+    public String toString() {
+        return toCharSequence().toString();
+    }
+}
@@ -34,6 +34,8 @@ import io.questdb.std.Long256;
 import io.questdb.std.Long256Impl;
 import io.questdb.std.Long256Sink;
 import io.questdb.std.LongList;
+import io.questdb.std.MemoryAccount;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Numbers;
 import io.questdb.std.Unsafe;
 import io.questdb.std.str.AbstractCharSequence;
@@ -50,6 +52,8 @@ public class VirtualMemory implements Closeable {
     private final Long256Impl long256B = new Long256Impl();
     private long pageSize;
     private final int maxPages;
+    private final int memoryTag;
+    private final MemoryAccount memoryAccount;
     private int bits;
     private long mod;
     private long appendPointer = -1;
@@ -61,12 +65,20 @@ public class VirtualMemory implements Closeable {
     private long absolutePointer;
 
     public VirtualMemory(long pageSize, int maxPages) {
+        this(pageSize, maxPages, MemoryTag.NATIVE_DEFAULT, null);
+    }
+
+    public VirtualMemory(long pageSize, int maxPages, int memoryTag, MemoryAccount memoryAccount) {
         setPageSize(pageSize);
         this.maxPages = maxPages;
+        this.memoryTag = memoryTag;
+        this.memoryAccount = memoryAccount;
     }
 
     protected VirtualMemory() {
         maxPages = Integer.MAX_VALUE;
+        memoryTag = MemoryTag.NATIVE_DEFAULT;
+        memoryAccount = null;
     }
 
     public static int getStorageLength(CharSequence s) {
@@ -304,14 +316,17 @@ public class VirtualMemory implements Closeable {
             return offset;
         }
 
+        putBlockOfBytes(from, len);
+        return offset;
+    }
+
+    public final void putBlockOfBytes(long from, long len) {
         if (len < pageHi - appendPointer) {
             Unsafe.getUnsafe().copyMemory(from, appendPointer, len);
             appendPointer += len;
         } else {
             putBinSlit(from, len);
         }
-
-        return offset;
     }
 
     public void putBool(boolean value) {
@@ -615,7 +630,7 @@ public class VirtualMemory implements Closeable {
         if (page > maxPages) {
             throw LimitOverflowException.instance().put("Maximum number of pages (").put(maxPages).put(") breached in VirtualMemory");
         }
-        return Unsafe.malloc(getMapPageSize());
+        return Unsafe.malloc(getMapPageSize(), memoryTag, memoryAccount);
     }
 
     protected long cachePageAddress(int index, long address) {
@@ -1082,7 +1097,7 @@ public class VirtualMemory implements Closeable {
 
     protected void release(int page, long address) {
         if (address != 0) {
-            Unsafe.free(address, getPageSize(page));
+            Unsafe.free(address, getPageSize(page), memoryTag, memoryAccount);
         }
     }
 
@@ -0,0 +1,499 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Applies write-ahead log segments shipped from primary instance to tables of this instance, see {@link WalWriter}
+ * for segment format. Segments of each table are applied in sequence order, one transaction per segment. Job stops
+ * at first missing segment and carries on from there on next run. Tables and columns that do not exist on this
+ * instance are created from segment header.
+ * <p>
+ * Segment is read as soon as it is visible under its final name, so it has to be shipped under temporary name,
+ * e.g. "[seq].wal.tmp" as {@link WalWriter} does, and renamed once complete. Every offset read from segment is
+ * checked against file size, segment that is truncated or malformed fails to apply and is retried on next run.
+ * <p>
+ * Sequence of last applied segment is stored in "_wal_applied" file of the table together with transaction that
+ * applying the segment is expected to produce. File is written ahead of commit, which tells apart segment that
+ * was committed from one that was not should the instance stop in between.
+ */
+public class WalReplicationJob extends SynchronizedJob implements Closeable {
+    public static final String APPLIED_FILE_NAME = "_wal_applied";
+    private static final Log LOG = LogFactory.getLog(WalReplicationJob.class);
+    private final CairoEngine engine;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final CharSequence walRoot;
+    private final MicrosecondClock clock;
+    private final long checkInterval;
+    private final Path path = new Path();
+    private final Path tablePath = new Path();
+    private final AppendMemory mem = new AppendMemory();
+    private final OnePageMemory segment = new OnePageMemory();
+    private final StringSink tableName = new StringSink();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final SegmentStructure structure = new SegmentStructure();
+    private final IntList columnIndexes = new IntList();
+    private final Utf8StringSink utf8Sink = new Utf8StringSink();
+    private final FindVisitor replicateTableRef = this::replicateTable;
+    private long tempMem16b = Unsafe.malloc(16);
+    private long last = 0;
+    private long appliedSegmentCount;
+    private long segmentSize;
+
+    public WalReplicationJob(CairoEngine engine) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.walRoot = configuration.getReplicaWalRoot();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getReplicaWalCheckInterval() * 1000;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(path);
+        Misc.free(tablePath);
+        Misc.free(mem);
+        Misc.free(segment);
+        if (tempMem16b != 0) {
+            Unsafe.free(tempMem16b, 16);
+            tempMem16b = 0;
+        }
+    }
+
+    /**
+     * @return total number of segments applied by this job
+     */
+    public long getAppliedSegmentCount() {
+        return appliedSegmentCount;
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long t = clock.getTicks();
+        if (last + checkInterval < t) {
+            last = t;
+            final long count = appliedSegmentCount;
+            ff.iterateDir(path.of(walRoot).$(), replicateTableRef);
+            return appliedSegmentCount > count;
+        }
+        return false;
+    }
+
+    private void applySegment(CharSequence tableName, long seq) {
+        segmentSize = ff.length(path);
+        checkBounds(0, Integer.BYTES + Long.BYTES);
+        segment.of(ff, path, 0, segmentSize);
+        try {
+            long p = 0;
+            if (segment.getInt(p) != WalWriter.SEGMENT_MAGIC) {
+                throw CairoException.instance(0).put("not a WAL segment: ").put(path);
+            }
+            p += Integer.BYTES;
+            if (segment.getLong(p) != seq) {
+                throw CairoException.instance(0).put("WAL segment sequence mismatch [path=").put(path).put(", seq=").put(segment.getLong(p)).put(']');
+            }
+            // skip seq and txn of primary
+            p += 2 * Long.BYTES;
+
+            checkBounds(p, 3 * Integer.BYTES);
+            final int partitionBy = segment.getInt(p);
+            if (partitionBy < PartitionBy.DAY || partitionBy > PartitionBy.NONE) {
+                throw CairoException.instance(0).put("invalid WAL partitioning [path=").put(path).put(", partitionBy=").put(partitionBy).put(']');
+            }
+            structure.of(tableName, partitionBy, segment.getInt(p + Integer.BYTES));
+            p += 2 * Integer.BYTES;
+            final int columnCount = segment.getInt(p);
+            p += Integer.BYTES;
+            for (int i = 0; i < columnCount; i++) {
+                checkBounds(p, 2 * Integer.BYTES);
+                final int type = segment.getInt(p);
+                if (type < 0 || type > ColumnType.MAX || type == ColumnType.PARAMETER) {
+                    throw CairoException.instance(0).put("invalid WAL column type [path=").put(path).put(", type=").put(type).put(']');
+                }
+                final int indexBlockCapacity = segment.getInt(p + Integer.BYTES);
+                p += 2 * Integer.BYTES;
+                final long len = checkStr(p);
+                final CharSequence name = segment.getStr(p);
+                if (name == null) {
+                    throw CairoException.instance(0).put("WAL column name is null [path=").put(path).put(']');
+                }
+                structure.add(name, type, indexBlockCapacity);
+                p += len;
+            }
+            final int timestampIndex = structure.getTimestampIndex();
+            if (timestampIndex < -1 || timestampIndex >= columnCount
+                    || (timestampIndex > -1 && structure.getColumnType(timestampIndex) != ColumnType.TIMESTAMP)) {
+                throw CairoException.instance(0).put("invalid WAL timestamp index [path=").put(path).put(", index=").put(timestampIndex).put(']');
+            }
+            checkBounds(p, Long.BYTES);
+            final long rowCount = segment.getLong(p);
+            p += Long.BYTES;
+
+            if (TableUtils.exists(ff, tablePath, root, tableName) != TableUtils.TABLE_EXISTS) {
+                LOG.info().$("creating replica table [table=").$(tableName).$(']').$();
+                engine.creatTable(AllowAllCairoSecurityContext.INSTANCE, mem, tablePath, structure);
+            }
+
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+                mapColumns(writer);
+                try {
+                    for (long r = 0; r < rowCount; r++) {
+                        checkBounds(p, Long.BYTES + Integer.BYTES);
+                        final TableWriter.Row row = writer.newRow(segment.getLong(p));
+                        p += Long.BYTES;
+                        int columnIndex;
+                        while ((columnIndex = segment.getInt(p)) != WalWriter.END_OF_ROW) {
+                            if (columnIndex < 0 || columnIndex >= columnCount) {
+                                throw CairoException.instance(0).put("invalid WAL column index [path=").put(path).put(", offset=").put(p).put(']');
+                            }
+                            p = putValue(
+                                    row,
+                                    columnIndexes.getQuick(columnIndex),
+                                    structure.getColumnType(columnIndex),
+                                    p + Integer.BYTES
+                            );
+                            checkBounds(p, Integer.BYTES);
+                        }
+                        p += Integer.BYTES;
+                        row.append();
+                    }
+                    writeApplied(tableName, seq, writer.getTxn() + 1);
+                } catch (CairoException e) {
+                    writer.rollback();
+                    throw e;
+                }
+                writer.commit();
+            }
+        } finally {
+            segment.close();
+        }
+        appliedSegmentCount++;
+        LOG.info().$("applied WAL segment [table=").$(tableName).$(", seq=").$(seq).$(']').$();
+    }
+
+    private void checkBounds(long p, long len) {
+        if (len < 0 || p + len > segmentSize) {
+            throw CairoException.instance(0).put("truncated WAL segment [path=").put(path).put(", offset=").put(p).put(", size=").put(segmentSize).put(']');
+        }
+    }
+
+    /**
+     * @return storage length of string at given offset
+     */
+    private long checkStr(long p) {
+        checkBounds(p, Integer.BYTES);
+        final int len = segment.getInt(p);
+        if (len < TableUtils.NULL_LEN) {
+            throw CairoException.instance(0).put("invalid WAL string length [path=").put(path).put(", offset=").put(p).put(']');
+        }
+        final long storageLen = Integer.BYTES + Math.max(len, 0) * (long) Character.BYTES;
+        checkBounds(p, storageLen);
+        return storageLen;
+    }
+
+    private void mapColumns(TableWriter writer) {
+        columnIndexes.clear();
+        for (int i = 0, n = structure.getColumnCount(); i < n; i++) {
+            final CharSequence name = structure.getColumnName(i);
+            final int type = structure.getColumnType(i);
+            int index = writer.getMetadata().getColumnIndexQuiet(name);
+            if (index == -1) {
+                writer.addColumn(
+                        name,
+                        type,
+                        configuration.getDefaultSymbolCapacity(),
+                        configuration.getDefaultSymbolCacheFlag(),
+                        structure.isIndexed(i),
+                        structure.getIndexBlockCapacity(i),
+                        false
+                );
+                index = writer.getMetadata().getColumnIndex(name);
+            } else if (writer.getMetadata().getColumnType(index) != type) {
+                throw CairoException.instance(0)
+                        .put("column type mismatch [column=").put(name)
+                        .put(", expected=").put(ColumnType.nameOf(type))
+                        .put(", actual=").put(ColumnType.nameOf(writer.getMetadata().getColumnType(index)))
+                        .put(']');
+            }
+            columnIndexes.add(index);
+        }
+    }
+
+    private long putValue(TableWriter.Row row, int index, int type, long p) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                checkBounds(p, Byte.BYTES);
+                row.putBool(index, segment.getBool(p));
+                return p + Byte.BYTES;
+            case ColumnType.BYTE:
+                checkBounds(p, Byte.BYTES);
+                row.putByte(index, segment.getByte(p));
+                return p + Byte.BYTES;
+            case ColumnType.SHORT:
+                checkBounds(p, Short.BYTES);
+                row.putShort(index, segment.getShort(p));
+                return p + Short.BYTES;
+            case ColumnType.CHAR:
+                checkBounds(p, Character.BYTES);
+                row.putChar(index, segment.getChar(p));
+                return p + Character.BYTES;
+            case ColumnType.INT:
+                checkBounds(p, Integer.BYTES);
+                row.putInt(index, segment.getInt(p));
+                return p + Integer.BYTES;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                checkBounds(p, Long.BYTES);
+                row.putLong(index, segment.getLong(p));
+                return p + Long.BYTES;
+            case ColumnType.FLOAT:
+                checkBounds(p, Float.BYTES);
+                row.putFloat(index, segment.getFloat(p));
+                return p + Float.BYTES;
+            case ColumnType.DOUBLE:
+                checkBounds(p, Double.BYTES);
+                row.putDouble(index, segment.getDouble(p));
+                return p + Double.BYTES;
+            case ColumnType.LONG256:
+                checkBounds(p, Long256.BYTES);
+                row.putLong256(index, segment.getLong256A(p));
+                return p + Long256.BYTES;
+            case ColumnType.STRING: {
+                final long len = checkStr(p);
+                row.putStr(index, segment.getStr(p));
+                return p + len;
+            }
+            case ColumnType.SYMBOL: {
+                final long len = checkStr(p);
+                row.putSym(index, segment.getStr(p));
+                return p + len;
+            }
+            case ColumnType.BINARY: {
+                checkBounds(p, Long.BYTES);
+                final long len = segment.getBinLen(p);
+                if (len < TableUtils.NULL_LEN) {
+                    throw CairoException.instance(0).put("invalid WAL binary length [path=").put(path).put(", offset=").put(p).put(']');
+                }
+                checkBounds(p + Long.BYTES, Math.max(len, 0));
+                row.putBin(index, segment.getBin(p));
+                return p + Long.BYTES + Math.max(len, 0);
+            }
+            case ColumnType.VARCHAR: {
+                checkBounds(p, Integer.BYTES);
+                final int len = segment.getInt(p);
+                p += Integer.BYTES;
+                if (len == TableUtils.NULL_LEN) {
+                    row.putVarchar(index, (Utf8Sequence) null);
+                    return p;
+                }
+                checkBounds(p, len);
+                utf8Sink.clear();
+                for (int i = 0; i < len; i++) {
+                    utf8Sink.putByte(segment.getByte(p + i));
+                }
+                row.putVarchar(index, utf8Sink);
+                return p + len;
+            }
+            default:
+                throw CairoException.instance(0).put("unsupported WAL column type [type=").put(ColumnType.nameOf(type)).put(']');
+        }
+    }
+
+    private long readAppliedSeq(CharSequence tableName) {
+        if (TableUtils.exists(ff, tablePath, root, tableName) != TableUtils.TABLE_EXISTS) {
+            return 0;
+        }
+
+        tablePath.of(root).concat(tableName).concat(APPLIED_FILE_NAME).$();
+        if (!ff.exists(tablePath)) {
+            return 0;
+        }
+
+        final long fd = ff.openRO(tablePath);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot open: ").put(tablePath);
+        }
+        final long seq;
+        final long txn;
+        try {
+            if (ff.read(fd, tempMem16b, 16, 0) != 16) {
+                throw CairoException.instance(ff.errno()).put("Cannot read: ").put(tablePath);
+            }
+            seq = Unsafe.getUnsafe().getLong(tempMem16b);
+            txn = Unsafe.getUnsafe().getLong(tempMem16b + Long.BYTES);
+        } finally {
+            ff.close(fd);
+        }
+
+        tablePath.of(root).concat(tableName).concat(TableUtils.TXN_FILE_NAME).$();
+        // commit of last recorded segment did not go through when table is behind its transaction
+        return TableUtils.readLongAtOffset(ff, tablePath, tempMem16b, TableUtils.TX_OFFSET_TXN) < txn ? seq - 1 : seq;
+    }
+
+    private void replicateTable(long name, int type) {
+        nativeLPSZ.of(name);
+        if (type != Files.DT_DIR || nativeLPSZ.charAt(0) == '.') {
+            return;
+        }
+
+        tableName.clear();
+        tableName.put(nativeLPSZ);
+        try {
+            long seq = readAppliedSeq(tableName) + 1;
+            while (ff.exists(WalWriter.segmentFileName(path.of(walRoot).concat(tableName).concat(WalWriter.WAL_DIR_NAME), seq).$())) {
+                applySegment(tableName, seq++);
+            }
+        } catch (EntryUnavailableException e) {
+            LOG.debug().$("table is busy, retrying later [table=").$(tableName).$(']').$();
+        } catch (CairoException e) {
+            LOG.error().$("could not apply WAL [table=").$(tableName).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+        }
+    }
+
+    private void writeApplied(CharSequence tableName, long seq, long txn) {
+        tablePath.of(root).concat(tableName).concat(APPLIED_FILE_NAME).$();
+        final long fd = ff.openRW(tablePath);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot open: ").put(tablePath);
+        }
+        try {
+            Unsafe.getUnsafe().putLong(tempMem16b, seq);
+            Unsafe.getUnsafe().putLong(tempMem16b + Long.BYTES, txn);
+            if (ff.write(fd, tempMem16b, 16, 0) != 16) {
+                throw CairoException.instance(ff.errno()).put("Cannot write: ").put(tablePath);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    private class SegmentStructure implements TableStructure {
+        // sinks are reused across segments
+        private final ObjList<StringSink> names = new ObjList<>();
+        private final IntList types = new IntList();
+        private final IntList indexBlockCapacities = new IntList();
+        private CharSequence tableName;
+        private int columnCount;
+        private int partitionBy;
+        private int timestampIndex;
+
+        @Override
+        public int getColumnCount() {
+            return columnCount;
+        }
+
+        @Override
+        public CharSequence getColumnName(int columnIndex) {
+            return names.getQuick(columnIndex);
+        }
+
+        @Override
+        public int getColumnType(int columnIndex) {
+            return types.getQuick(columnIndex);
+        }
+
+        @Override
+        public int getIndexBlockCapacity(int columnIndex) {
+            final int capacity = indexBlockCapacities.getQuick(columnIndex);
+            return capacity > 0 ? capacity : configuration.getIndexValueBlockSize();
+        }
+
+        @Override
+        public boolean isIndexed(int columnIndex) {
+            return indexBlockCapacities.getQuick(columnIndex) > 0;
+        }
+
+        @Override
+        public boolean isSequential(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public int getPartitionBy() {
+            return partitionBy;
+        }
+
+        @Override
+        public boolean getSymbolCacheFlag(int columnIndex) {
+            return configuration.getDefaultSymbolCacheFlag();
+        }
+
+        @Override
+        public int getSymbolCapacity(int columnIndex) {
+            return configuration.getDefaultSymbolCapacity();
+        }
+
+        @Override
+        public CharSequence getTableName() {
+            return tableName;
+        }
+
+        @Override
+        public int getTimestampIndex() {
+            return timestampIndex;
+        }
+
+        void add(CharSequence name, int type, int indexBlockCapacity) {
+            StringSink sink = names.getQuiet(columnCount);
+            if (sink == null) {
+                sink = new StringSink();
+                names.extendAndSet(columnCount, sink);
+            }
+            sink.clear();
+            sink.put(name);
+            columnCount++;
+            types.add(type);
+            indexBlockCapacities.add(indexBlockCapacity);
+        }
+
+        void of(CharSequence tableName, int partitionBy, int timestampIndex) {
+            this.tableName = tableName;
+            this.partitionBy = partitionBy;
+            this.timestampIndex = timestampIndex;
+            columnCount = 0;
+            types.clear();
+            indexBlockCapacities.clear();
+        }
+    }
+}
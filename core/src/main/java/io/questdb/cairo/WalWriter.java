@@ -0,0 +1,406 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.Utf8Sequence;
+
+import java.io.Closeable;
+
+/**
+ * Write-ahead log of table. Values put into rows of {@link TableWriter} are buffered in memory and every
+ * commit writes rows of the transaction out as single segment file "wal/[seq].wal" in table directory.
+ * Segment is written under temporary name by {@link #prepare(RecordMetadata, int, long, int)} and renamed by
+ * {@link #publish()} once transaction it belongs to is durable, segment visible under its final name is always
+ * whole and committed. Segment left under temporary name by a crash is published on open when table
+ * transaction reached it, otherwise it is removed. Sequence numbers start at 1 and have no gaps.
+ * <p>
+ * Segment is self-describing, it carries table structure as of the commit:
+ * <pre>
+ * int  magic
+ * long seq
+ * long txn
+ * int  partition_by
+ * int  timestamp_index
+ * int  column_count
+ * {int type, int index_block_capacity (0 when not indexed), str name}[column_count]
+ * long row_count
+ * {long timestamp, {int column_index, value}*, int -1}[row_count]
+ * </pre>
+ * Values are stored in the same format as {@link VirtualMemory} stores them. VARCHAR values are stored as
+ * int length in bytes, -1 for null, followed by UTF-8 bytes. Columns that were not set in a row are not
+ * stored. See {@link WalReplicationJob} for the reading side.
+ */
+public class WalWriter implements Closeable {
+    public static final String WAL_DIR_NAME = "wal";
+    public static final String SEGMENT_FILE_SUFFIX = ".wal";
+    public static final int SEGMENT_MAGIC = 0x314c4157;
+    public static final int END_OF_ROW = -1;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final Log LOG = LogFactory.getLog(WalWriter.class);
+    private final FilesFacade ff;
+    private final Path path;
+    private final Path other;
+    private final int rootLen;
+    private final VirtualMemory rows;
+    private final AppendMemory segmentMem = new AppendMemory();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final LongList tempSegments = new LongList();
+    private long seq;
+    private boolean prepared;
+    private long rowStart;
+    private long rowCount;
+
+    /**
+     * @param ff        files facade
+     * @param tablePath path to table directory
+     * @param mkDirMode mode of "wal" directory when it has to be created
+     * @param txn       committed transaction of table, segments of later transactions are discarded
+     */
+    public WalWriter(FilesFacade ff, Path tablePath, int mkDirMode, long txn) {
+        this.ff = ff;
+        this.path = new Path().of(tablePath).concat(WAL_DIR_NAME);
+        this.other = new Path();
+        this.rootLen = path.length();
+        this.rows = new VirtualMemory(ff.getPageSize(), Integer.MAX_VALUE);
+        try {
+            if (!ff.exists(path.put(Files.SEPARATOR).$()) && ff.mkdirs(path, mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("Cannot create WAL directory: ").put(path);
+            }
+            path.trimTo(rootLen);
+            ff.iterateDir(path.$(), this::scanSegment);
+            recoverTempSegments(txn);
+            seq++;
+            LOG.info().$("WAL open [path=").$(path).$(", seq=").$(seq).$(']').$();
+        } catch (CairoException e) {
+            close();
+            throw e;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(rows);
+        Misc.free(segmentMem);
+        Misc.free(path);
+        Misc.free(other);
+    }
+
+    public void cancelRow() {
+        rows.jumpTo(rowStart);
+    }
+
+    /**
+     * Writes rows buffered since last commit out as new segment under temporary name. Nothing is written when
+     * there are no rows. Segment must be published by {@link #publish()} after transaction is durable, or
+     * discarded by {@link #rollback()}.
+     *
+     * @param metadata     table structure rows are written against
+     * @param partitionBy  table partitioning
+     * @param txn          table transaction the segment belongs to
+     * @param commitMode   commit durability mode, see {@link CommitMode}
+     */
+    public void prepare(RecordMetadata metadata, int partitionBy, long txn, int commitMode) {
+        if (rowCount == 0) {
+            rows.jumpTo(0);
+            rowStart = 0;
+            return;
+        }
+
+        tempFileName(path, seq);
+        try {
+            if (ff.exists(path) && !ff.remove(path)) {
+                throw CairoException.instance(ff.errno()).put("Cannot remove: ").put(path);
+            }
+            segmentMem.of(ff, path, ff.getMapPageSize());
+            try {
+                segmentMem.putInt(SEGMENT_MAGIC);
+                segmentMem.putLong(seq);
+                segmentMem.putLong(txn);
+                segmentMem.putInt(partitionBy);
+                segmentMem.putInt(metadata.getTimestampIndex());
+                final int columnCount = metadata.getColumnCount();
+                segmentMem.putInt(columnCount);
+                for (int i = 0; i < columnCount; i++) {
+                    segmentMem.putInt(metadata.getColumnType(i));
+                    segmentMem.putInt(metadata.isColumnIndexed(i) ? metadata.getIndexValueBlockCapacity(i) : 0);
+                    segmentMem.putStr(metadata.getColumnName(i));
+                }
+                segmentMem.putLong(rowCount);
+
+                long offset = 0;
+                while (offset < rowStart) {
+                    final long len = Math.min(rows.pageRemaining(offset), rowStart - offset);
+                    segmentMem.putBlockOfBytes(rows.addressOf(offset), len);
+                    offset += len;
+                }
+
+                if (commitMode != CommitMode.NOSYNC) {
+                    segmentMem.sync(commitMode == CommitMode.ASYNC);
+                }
+            } finally {
+                segmentMem.close(true);
+            }
+            prepared = true;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Renames segment written by {@link #prepare(RecordMetadata, int, long, int)} to its final name. Nothing
+     * happens when there was no segment to write.
+     */
+    public void publish() {
+        if (!prepared) {
+            return;
+        }
+        try {
+            tempFileName(path, seq);
+            if (!ff.rename(path, segmentFileName(other.of(path).trimTo(rootLen), seq).$())) {
+                throw CairoException.instance(ff.errno()).put("Cannot rename WAL segment: ").put(path);
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+
+        LOG.debug().$("WAL segment [path=").$(other).$(", rows=").$(rowCount).$(']').$();
+        prepared = false;
+        seq++;
+        rowCount = 0;
+        rowStart = 0;
+        rows.jumpTo(0);
+    }
+
+    public void endRow() {
+        rows.putInt(END_OF_ROW);
+        rowStart = rows.getAppendOffset();
+        rowCount++;
+    }
+
+    /**
+     * @return sequence number of segment next commit will write
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    public void putBin(int index, long address, long len) {
+        rows.putInt(index);
+        rows.putBin(address, len);
+    }
+
+    /**
+     * @return logged copy of the value, null when value is null
+     */
+    public BinarySequence putBin(int index, BinarySequence value) {
+        rows.putInt(index);
+        return rows.getBin(rows.putBin(value));
+    }
+
+    public void putBool(int index, boolean value) {
+        rows.putInt(index);
+        rows.putBool(value);
+    }
+
+    public void putByte(int index, byte value) {
+        rows.putInt(index);
+        rows.putByte(value);
+    }
+
+    public void putChar(int index, char value) {
+        rows.putInt(index);
+        rows.putChar(value);
+    }
+
+    public void putDouble(int index, double value) {
+        rows.putInt(index);
+        rows.putDouble(value);
+    }
+
+    public void putFloat(int index, float value) {
+        rows.putInt(index);
+        rows.putFloat(value);
+    }
+
+    public void putInt(int index, int value) {
+        rows.putInt(index);
+        rows.putInt(value);
+    }
+
+    public void putLong(int index, long value) {
+        rows.putInt(index);
+        rows.putLong(value);
+    }
+
+    public void putLong256(int index, long l0, long l1, long l2, long l3) {
+        rows.putInt(index);
+        rows.putLong256(l0, l1, l2, l3);
+    }
+
+    public void putLong256(int index, CharSequence hexString) {
+        rows.putInt(index);
+        rows.putLong256(hexString);
+    }
+
+    public void putShort(int index, short value) {
+        rows.putInt(index);
+        rows.putShort(value);
+    }
+
+    public void putStr(int index, CharSequence value) {
+        rows.putInt(index);
+        rows.putStr(value);
+    }
+
+    public void putStr(int index, char value) {
+        rows.putInt(index);
+        rows.putStr(value);
+    }
+
+    public void putStr(int index, CharSequence value, int pos, int len) {
+        rows.putInt(index);
+        rows.putStr(value, pos, len);
+    }
+
+    public void putVarchar(int index, Utf8Sequence value) {
+        rows.putInt(index);
+        if (value == null) {
+            rows.putInt(TableUtils.NULL_LEN);
+        } else {
+            final int len = value.length();
+            rows.putInt(len);
+            for (int i = 0; i < len; i++) {
+                rows.putByte(value.byteAt(i));
+            }
+        }
+    }
+
+    /**
+     * Discards rows buffered since last commit and segment that was prepared but not published.
+     */
+    public void rollback() {
+        if (prepared) {
+            prepared = false;
+            if (!ff.remove(tempFileName(path, seq))) {
+                LOG.error().$("cannot remove [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            path.trimTo(rootLen);
+        }
+        rows.jumpTo(0);
+        rowStart = 0;
+        rowCount = 0;
+    }
+
+    public void startRow(long timestamp) {
+        rows.jumpTo(rowStart);
+        rows.putLong(timestamp);
+    }
+
+    static Path segmentFileName(Path walPath, long seq) {
+        return walPath.put(Files.SEPARATOR).put(seq).put(SEGMENT_FILE_SUFFIX);
+    }
+
+    private Path tempFileName(Path walPath, long seq) {
+        return segmentFileName(walPath, seq).put(TEMP_FILE_SUFFIX).$();
+    }
+
+    private long readSegmentTxn(LPSZ name) {
+        final long fd = ff.openRO(name);
+        if (fd == -1) {
+            return -1;
+        }
+        final long buf = Unsafe.malloc(Long.BYTES);
+        try {
+            // txn follows magic and sequence number
+            if (ff.read(fd, buf, Long.BYTES, Integer.BYTES + Long.BYTES) != Long.BYTES) {
+                return -1;
+            }
+            return Unsafe.getUnsafe().getLong(buf);
+        } finally {
+            Unsafe.free(buf, Long.BYTES);
+            ff.close(fd);
+        }
+    }
+
+    private void recoverTempSegments(long txn) {
+        for (int i = 0, n = tempSegments.size(); i < n; i++) {
+            final long tempSeq = tempSegments.getQuick(i);
+            tempFileName(path.trimTo(rootLen), tempSeq);
+            final long segmentTxn = readSegmentTxn(path);
+            if (segmentTxn > 0 && segmentTxn <= txn && tempSeq > seq) {
+                // transaction is durable, crash came before segment was published
+                if (ff.rename(path, segmentFileName(other.of(path).trimTo(rootLen), tempSeq).$())) {
+                    LOG.info().$("published WAL segment [path=").$(other).$(", txn=").$(segmentTxn).$(']').$();
+                    seq = tempSeq;
+                    path.trimTo(rootLen);
+                    continue;
+                }
+                throw CairoException.instance(ff.errno()).put("Cannot rename WAL segment: ").put(path);
+            }
+            // left behind by commit that did not complete
+            if (!ff.remove(path)) {
+                LOG.error().$("cannot remove [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            path.trimTo(rootLen);
+        }
+        tempSegments.clear();
+    }
+
+    private void scanSegment(long name, int type) {
+        if (type == Files.DT_DIR) {
+            return;
+        }
+        nativeLPSZ.of(name);
+        final int len = nativeLPSZ.length();
+        if (Chars.endsWith(nativeLPSZ, TEMP_FILE_SUFFIX)) {
+            // resolved once all published segments are known
+            final int hi = len - TEMP_FILE_SUFFIX.length() - SEGMENT_FILE_SUFFIX.length();
+            try {
+                if (hi > 0) {
+                    tempSegments.add(Numbers.parseLong(nativeLPSZ, 0, hi));
+                }
+            } catch (NumericException ignore) {
+                // not a segment
+            }
+            return;
+        }
+        if (Chars.endsWith(nativeLPSZ, SEGMENT_FILE_SUFFIX)) {
+            try {
+                seq = Math.max(seq, Numbers.parseLong(nativeLPSZ, 0, len - SEGMENT_FILE_SUFFIX.length()));
+            } catch (NumericException ignore) {
+                // not a segment
+            }
+        }
+    }
+}
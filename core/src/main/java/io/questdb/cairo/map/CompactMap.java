@@ -35,6 +35,8 @@ import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.griffin.engine.LimitOverflowException;
 import io.questdb.std.BinarySequence;
 import io.questdb.std.Long256;
+import io.questdb.std.MemoryAccount;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Numbers;
 
@@ -143,12 +145,20 @@ public class CompactMap implements Map {
     private final int maxResizes;
 
     public CompactMap(int pageSize, ColumnTypes keyTypes, ColumnTypes valueTypes, long keyCapacity, double loadFactor, int maxResizes, int maxPages) {
-        this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, DEFAULT_HASH, maxResizes, maxPages);
+        this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, DEFAULT_HASH, maxResizes, maxPages, null);
+    }
+
+    public CompactMap(int pageSize, ColumnTypes keyTypes, ColumnTypes valueTypes, long keyCapacity, double loadFactor, int maxResizes, int maxPages, MemoryAccount memoryAccount) {
+        this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, DEFAULT_HASH, maxResizes, maxPages, memoryAccount);
     }
 
     CompactMap(int pageSize, ColumnTypes keyTypes, ColumnTypes valueTypes, long keyCapacity, double loadFactor, HashFunction hashFunction, int maxResizes, int maxPages) {
-        this.entries = new VirtualMemory(pageSize, maxPages);
-        this.entrySlots = new VirtualMemory(pageSize, maxPages);
+        this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, hashFunction, maxResizes, maxPages, null);
+    }
+
+    CompactMap(int pageSize, ColumnTypes keyTypes, ColumnTypes valueTypes, long keyCapacity, double loadFactor, HashFunction hashFunction, int maxResizes, int maxPages, MemoryAccount memoryAccount) {
+        this.entries = new VirtualMemory(pageSize, maxPages, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
+        this.entrySlots = new VirtualMemory(pageSize, maxPages, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
         try {
             this.loadFactor = loadFactor;
             this.columnOffsets = new long[keyTypes.getColumnCount() + valueTypes.getColumnCount()];
@@ -247,6 +257,7 @@ public class CompactMap implements Map {
                 case ColumnType.DATE:
                 case ColumnType.TIMESTAMP:
                 case ColumnType.STRING:
+                case ColumnType.VARCHAR:
                 case ColumnType.BINARY:
                     sz = 8;
                     break;
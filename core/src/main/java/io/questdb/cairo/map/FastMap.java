@@ -24,6 +24,7 @@
 
 package io.questdb.cairo.map;
 
+import io.questdb.std.MemoryAccount;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -39,6 +40,7 @@ import io.questdb.std.BinarySequence;
 import io.questdb.std.DirectLongList;
 import io.questdb.std.Hash;
 import io.questdb.std.Long256;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Numbers;
 import io.questdb.std.Transient;
@@ -68,6 +70,7 @@ public class FastMap implements Map {
     private int mask;
     private int nResizes;
     private final int maxResizes;
+    private final MemoryAccount memoryAccount;
 
     public FastMap(int pageSize,
                    @Transient @NotNull ColumnTypes keyTypes,
@@ -75,7 +78,7 @@ public class FastMap implements Map {
             double loadFactor,
             int maxResizes
     ) {
-        this(pageSize, keyTypes, null, keyCapacity, loadFactor, DEFAULT_HASH, maxResizes);
+        this(pageSize, keyTypes, null, keyCapacity, loadFactor, DEFAULT_HASH, maxResizes, null);
     }
 
     public FastMap(int pageSize,
@@ -85,7 +88,18 @@ public class FastMap implements Map {
             double loadFactor,
             int maxResizes
     ) {
-        this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, DEFAULT_HASH, maxResizes);
+        this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, DEFAULT_HASH, maxResizes, null);
+    }
+
+    public FastMap(int pageSize,
+                   @Transient @NotNull ColumnTypes keyTypes,
+                   @Transient @Nullable ColumnTypes valueTypes,
+                   int keyCapacity,
+                   double loadFactor,
+                   int maxResizes,
+                   MemoryAccount memoryAccount
+    ) {
+        this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, DEFAULT_HASH, maxResizes, memoryAccount);
     }
 
     FastMap(int pageSize,
@@ -95,20 +109,32 @@ public class FastMap implements Map {
             double loadFactor,
             HashFunction hashFunction,
             int maxResizes
+    ) {
+        this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, hashFunction, maxResizes, null);
+    }
 
+    FastMap(int pageSize,
+            @Transient ColumnTypes keyTypes,
+            @Transient ColumnTypes valueTypes,
+            int keyCapacity,
+            double loadFactor,
+            HashFunction hashFunction,
+            int maxResizes,
+            MemoryAccount memoryAccount
     ) {
         assert pageSize > 3;
         assert loadFactor > 0 && loadFactor < 1d;
 
         this.loadFactor = loadFactor;
-        this.kStart = kPos = Unsafe.malloc(this.capacity = pageSize);
+        this.memoryAccount = memoryAccount;
+        this.kStart = kPos = Unsafe.malloc(this.capacity = pageSize, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
         this.kLimit = kStart + pageSize;
 
         this.keyCapacity = (int) (keyCapacity / loadFactor);
         this.keyCapacity = this.keyCapacity < MIN_INITIAL_CAPACITY ? MIN_INITIAL_CAPACITY : Numbers.ceilPow2(this.keyCapacity);
         this.mask = this.keyCapacity - 1;
         this.free = (int) (this.keyCapacity * loadFactor);
-        this.offsets = new DirectLongList(this.keyCapacity);
+        this.offsets = new DirectLongList(this.keyCapacity, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
         this.offsets.setPos(this.keyCapacity);
         this.offsets.zero(-1);
         this.hashFunction = hashFunction;
@@ -218,7 +244,7 @@ public class FastMap implements Map {
     public final void close() {
         offsets = Misc.free(offsets);
         if (kStart != 0) {
-            Unsafe.free(kStart, capacity);
+            Unsafe.free(kStart, capacity, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
             kStart = 0;
         }
     }
@@ -321,7 +347,7 @@ public class FastMap implements Map {
     private void rehash() {
         int capacity = keyCapacity << 1;
         mask = capacity - 1;
-        DirectLongList pointers = new DirectLongList(capacity);
+        DirectLongList pointers = new DirectLongList(capacity, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
         pointers.setPos(capacity);
         pointers.zero(-1);
 
@@ -350,7 +376,7 @@ public class FastMap implements Map {
             if (kCapacity < target) {
                 kCapacity = Numbers.ceilPow2(target);
             }
-            long kAddress = Unsafe.realloc(this.kStart, this.capacity, kCapacity);
+            long kAddress = Unsafe.realloc(this.kStart, this.capacity, kCapacity, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
     
             this.capacity = kCapacity;
             long d = kAddress - this.kStart;
@@ -62,7 +62,7 @@ final class FastMapRecord implements MapRecord {
         this.keyBlockOffset = keyBlockOffset;
         this.keyDataOffset = keyDataOffset;
         this.value = value;
-        this.value.linkRecord(this); // provides feature to position this record at location of map value
+        this.value.linkRecord(this::of); // provides feature to position this record at location of map value
 
         int n = keyTypes.getColumnCount();
 
@@ -75,6 +75,7 @@ final class FastMapRecord implements MapRecord {
         for (int i = 0; i < n; i++) {
             switch (keyTypes.getColumnType(i)) {
                 case ColumnType.STRING:
+                case ColumnType.VARCHAR:
                     if (csA == null) {
                         csA = new DirectCharSequence[n + split];
                         csB = new DirectCharSequence[n + split];
@@ -26,11 +26,13 @@ package io.questdb.cairo.map;
 
 import io.questdb.std.Unsafe;
 
+import java.util.function.LongConsumer;
+
 final class FastMapValue implements MapValue {
     private final int[] valueOffsets;
     private long address;
     private boolean _new;
-    private FastMapRecord record; // double-linked
+    private LongConsumer record; // double-linked, positions record at address of value
 
     public FastMapValue(int[] valueOffsets) {
         this.valueOffsets = valueOffsets;
@@ -184,14 +186,18 @@ final class FastMapValue implements MapValue {
 
     @Override
     public void setMapRecordHere() {
-        this.record.of(address);
+        this.record.accept(address);
     }
 
     private long address0(int index) {
         return address + valueOffsets[index];
     }
 
-    void linkRecord(FastMapRecord record) {
+    int[] getValueOffsets() {
+        return valueOffsets;
+    }
+
+    void linkRecord(LongConsumer record) {
         this.record = record;
     }
 
@@ -0,0 +1,418 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.map;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Map of keys that have fixed width, such as single INT, LONG or TIMESTAMP or pair of SYMBOL keys.
+ * Entries are stored inline, one after another in order of insertion, in single block of memory:
+ * <pre>
+ * [ value block | key block | padding to 8 bytes ]
+ * </pre>
+ * Unlike {@link FastMap} entry has no length and no key offsets, key is compared as sequence of longs
+ * and hashed with {@link Hash#hashLong(long)}. Hash table is array of entry numbers with linear probing.
+ * Key is built in scratch memory and copied to the entry block only when new entry is created, lookups
+ * never grow the map.
+ * Cursor returns entries in order of insertion, the same as {@link FastMap} does.
+ */
+public class FixedKeyMap implements Map {
+    private static final int MIN_INITIAL_CAPACITY = 128;
+    private static final int EMPTY = 0;
+    private final double loadFactor;
+    private final int maxResizes;
+    private final MemoryAccount memoryAccount;
+    private final Key key = new Key();
+    private final FastMapValue value;
+    private final FixedKeyMapRecord record;
+    private final FixedKeyMapCursor cursor;
+    private final int valueSize;
+    private final int keyLongs;
+    private final int entrySize;
+    private long keyScratch;
+    private long entries;
+    private long entriesCapacity;
+    // entry number + 1 per slot, 0 is empty slot
+    private long slots;
+    private int slotCapacity;
+    private int mask;
+    private int free;
+    private int size;
+    private int nResizes;
+
+    public FixedKeyMap(
+            int pageSize,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Transient @Nullable ColumnTypes valueTypes,
+            int keyCapacity,
+            double loadFactor,
+            int maxResizes
+    ) {
+        this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, maxResizes, null);
+    }
+
+    public FixedKeyMap(
+            int pageSize,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Transient @Nullable ColumnTypes valueTypes,
+            int keyCapacity,
+            double loadFactor,
+            int maxResizes,
+            MemoryAccount memoryAccount
+    ) {
+        assert loadFactor > 0 && loadFactor < 1d;
+        this.loadFactor = loadFactor;
+        this.maxResizes = maxResizes;
+        this.memoryAccount = memoryAccount;
+
+        final int valueColumnCount = valueTypes != null ? valueTypes.getColumnCount() : 0;
+        final int keyColumnCount = keyTypes.getColumnCount();
+        final int[] offsets = new int[valueColumnCount + keyColumnCount];
+        int offset = 0;
+        for (int i = 0; i < valueColumnCount; i++) {
+            offsets[i] = offset;
+            final int size = sizeOf(valueTypes.getColumnType(i));
+            if (size == -1) {
+                throw CairoException.instance(0).put("value type is not supported: ").put(ColumnType.nameOf(valueTypes.getColumnType(i)));
+            }
+            offset += size;
+        }
+        this.valueSize = offset;
+        for (int i = 0; i < keyColumnCount; i++) {
+            offsets[valueColumnCount + i] = offset;
+            final int size = sizeOf(keyTypes.getColumnType(i));
+            if (size == -1) {
+                throw CairoException.instance(0).put("key type is not supported: ").put(ColumnType.nameOf(keyTypes.getColumnType(i)));
+            }
+            offset += size;
+        }
+        // key is zero-padded to whole longs to be compared long by long
+        this.keyLongs = (offset - valueSize + Long.BYTES - 1) / Long.BYTES;
+        this.entrySize = (valueSize + keyLongs * Long.BYTES + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+
+        final int[] valueOffsets = new int[valueColumnCount];
+        System.arraycopy(offsets, 0, valueOffsets, 0, valueColumnCount);
+        this.value = new FastMapValue(valueOffsets);
+        this.record = new FixedKeyMapRecord(offsets, valueColumnCount, value, keyTypes);
+        this.cursor = new FixedKeyMapCursor(record, this);
+
+        this.keyScratch = Unsafe.malloc((long) keyLongs * Long.BYTES, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
+        this.entriesCapacity = Math.max(pageSize, entrySize);
+        this.entries = Unsafe.malloc(entriesCapacity, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
+
+        int slotCapacity = (int) (keyCapacity / loadFactor);
+        this.slotCapacity = slotCapacity < MIN_INITIAL_CAPACITY ? MIN_INITIAL_CAPACITY : Numbers.ceilPow2(slotCapacity);
+        this.mask = this.slotCapacity - 1;
+        this.free = (int) (this.slotCapacity * loadFactor);
+        this.slots = Unsafe.malloc((long) this.slotCapacity * Integer.BYTES, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
+        Unsafe.getUnsafe().setMemory(slots, (long) this.slotCapacity * Integer.BYTES, (byte) 0);
+    }
+
+    /**
+     * @return true when every key column has fixed width and map can be used for these keys
+     */
+    public static boolean isSupported(ColumnTypes keyTypes) {
+        final int n = keyTypes.getColumnCount();
+        if (n == 0) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (sizeOf(keyTypes.getColumnType(i)) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        free = (int) (slotCapacity * loadFactor);
+        Unsafe.getUnsafe().setMemory(slots, (long) slotCapacity * Integer.BYTES, (byte) 0);
+    }
+
+    @Override
+    public void close() {
+        if (keyScratch != 0) {
+            Unsafe.free(keyScratch, (long) keyLongs * Long.BYTES, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
+            keyScratch = 0;
+        }
+        if (entries != 0) {
+            Unsafe.free(entries, entriesCapacity, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
+            entries = 0;
+        }
+        if (slots != 0) {
+            Unsafe.free(slots, (long) slotCapacity * Integer.BYTES, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
+            slots = 0;
+        }
+    }
+
+    @Override
+    public RecordCursor getCursor() {
+        return cursor.init(entries, entrySize, size);
+    }
+
+    @Override
+    public MapRecord getRecord() {
+        return record;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public MapValue valueAt(long address) {
+        return value.of(address, false);
+    }
+
+    @Override
+    public MapKey withKey() {
+        return key.init();
+    }
+
+    private static int sizeOf(int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                return Byte.BYTES;
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+                return Short.BYTES;
+            case ColumnType.INT:
+            case ColumnType.FLOAT:
+            case ColumnType.SYMBOL:
+                return Integer.BYTES;
+            case ColumnType.LONG:
+            case ColumnType.DOUBLE:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return Long.BYTES;
+            case ColumnType.LONG256:
+                return Long256.BYTES;
+            default:
+                return -1;
+        }
+    }
+
+    private long entryAddress(int entry) {
+        return entries + (long) entry * entrySize;
+    }
+
+    private boolean eq(long keyAddress, long entryKeyAddress) {
+        for (int i = 0; i < keyLongs; i++) {
+            final long offset = (long) i * Long.BYTES;
+            if (Unsafe.getUnsafe().getLong(keyAddress + offset) != Unsafe.getUnsafe().getLong(entryKeyAddress + offset)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(long keyAddress) {
+        long h = Unsafe.getUnsafe().getLong(keyAddress);
+        for (int i = 1; i < keyLongs; i++) {
+            h = h * 31 + Unsafe.getUnsafe().getLong(keyAddress + (long) i * Long.BYTES);
+        }
+        return Hash.hashLong(h);
+    }
+
+    private void rehash() {
+        final int capacity = slotCapacity << 1;
+        final long newSlots = Unsafe.malloc((long) capacity * Integer.BYTES, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
+        Unsafe.getUnsafe().setMemory(newSlots, (long) capacity * Integer.BYTES, (byte) 0);
+        final int newMask = capacity - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int index = hash(entryAddress(entry) + valueSize) & newMask;
+            while (Unsafe.getUnsafe().getInt(newSlots + (long) index * Integer.BYTES) != EMPTY) {
+                index = (index + 1) & newMask;
+            }
+            Unsafe.getUnsafe().putInt(newSlots + (long) index * Integer.BYTES, entry + 1);
+        }
+        Unsafe.free(slots, (long) slotCapacity * Integer.BYTES, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
+        slots = newSlots;
+        free += (capacity - slotCapacity) * loadFactor;
+        slotCapacity = capacity;
+        mask = newMask;
+    }
+
+    private void reserveEntry() {
+        final long required = (long) (size + 1) * entrySize;
+        if (required > entriesCapacity) {
+            if (nResizes < maxResizes) {
+                nResizes++;
+                final long capacity = Math.max(entriesCapacity << 1, required);
+                entries = Unsafe.realloc(entries, entriesCapacity, capacity, MemoryTag.NATIVE_SQL_MAP, memoryAccount);
+                entriesCapacity = capacity;
+            } else {
+                throw LimitOverflowException.instance().put("limit of ").put(maxResizes).put(" resizes exceeded in FixedKeyMap");
+            }
+        }
+    }
+
+    private class Key implements MapKey {
+        private long appendAddress;
+
+        @Override
+        public MapValue createValue() {
+            int index = hash(keyScratch) & mask;
+            int entry;
+            while ((entry = Unsafe.getUnsafe().getInt(slots + (long) index * Integer.BYTES)) != EMPTY) {
+                final long address = entryAddress(entry - 1);
+                if (eq(keyScratch, address + valueSize)) {
+                    return value.of(address, false);
+                }
+                index = (index + 1) & mask;
+            }
+            reserveEntry();
+            final long address = entryAddress(size);
+            Unsafe.getUnsafe().copyMemory(keyScratch, address + valueSize, (long) keyLongs * Long.BYTES);
+            Unsafe.getUnsafe().putInt(slots + (long) index * Integer.BYTES, ++size);
+            if (--free == 0) {
+                rehash();
+            }
+            return value.of(address, true);
+        }
+
+        @Override
+        public MapValue findValue() {
+            int index = hash(keyScratch) & mask;
+            int entry;
+            while ((entry = Unsafe.getUnsafe().getInt(slots + (long) index * Integer.BYTES)) != EMPTY) {
+                final long address = entryAddress(entry - 1);
+                if (eq(keyScratch, address + valueSize)) {
+                    return value.of(address, false);
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        @Override
+        public void put(Record record, RecordSink sink) {
+            sink.copy(record, this);
+        }
+
+        @Override
+        public void putBin(BinarySequence value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putBool(boolean value) {
+            putByte((byte) (value ? 1 : 0));
+        }
+
+        @Override
+        public void putByte(byte value) {
+            Unsafe.getUnsafe().putByte(appendAddress, value);
+            appendAddress += Byte.BYTES;
+        }
+
+        @Override
+        public void putDate(long value) {
+            putLong(value);
+        }
+
+        @Override
+        public void putDouble(double value) {
+            Unsafe.getUnsafe().putDouble(appendAddress, value);
+            appendAddress += Double.BYTES;
+        }
+
+        @Override
+        public void putFloat(float value) {
+            Unsafe.getUnsafe().putFloat(appendAddress, value);
+            appendAddress += Float.BYTES;
+        }
+
+        @Override
+        public void putInt(int value) {
+            Unsafe.getUnsafe().putInt(appendAddress, value);
+            appendAddress += Integer.BYTES;
+        }
+
+        @Override
+        public void putLong(long value) {
+            Unsafe.getUnsafe().putLong(appendAddress, value);
+            appendAddress += Long.BYTES;
+        }
+
+        @Override
+        public void putLong256(Long256 value) {
+            Unsafe.getUnsafe().putLong(appendAddress, value.getLong0());
+            Unsafe.getUnsafe().putLong(appendAddress + Long.BYTES, value.getLong1());
+            Unsafe.getUnsafe().putLong(appendAddress + Long.BYTES * 2, value.getLong2());
+            Unsafe.getUnsafe().putLong(appendAddress + Long.BYTES * 3, value.getLong3());
+            appendAddress += Long256.BYTES;
+        }
+
+        @Override
+        public void putShort(short value) {
+            Unsafe.getUnsafe().putShort(appendAddress, value);
+            appendAddress += Short.BYTES;
+        }
+
+        @Override
+        public void putChar(char value) {
+            Unsafe.getUnsafe().putChar(appendAddress, value);
+            appendAddress += Character.BYTES;
+        }
+
+        @Override
+        public void putStr(CharSequence value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putStr(CharSequence value, int lo, int hi) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putTimestamp(long value) {
+            putLong(value);
+        }
+
+        private Key init() {
+            appendAddress = keyScratch;
+            for (int i = 0; i < keyLongs; i++) {
+                Unsafe.getUnsafe().putLong(keyScratch + (long) i * Long.BYTES, 0);
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.map;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+
+final class FixedKeyMapRecord implements MapRecord {
+    // offsets of value columns followed by offsets of key columns from start of entry
+    private final int[] columnOffsets;
+    private final int split;
+    private final Long256Impl[] long256A;
+    private final Long256Impl[] long256B;
+    private final FastMapValue value;
+    private long address;
+    private RecordCursor symbolTableResolver;
+    private IntList symbolTableIndex;
+
+    FixedKeyMapRecord(int[] columnOffsets, int split, FastMapValue value, @Transient ColumnTypes keyTypes) {
+        this.columnOffsets = columnOffsets;
+        this.split = split;
+        this.value = value;
+        this.value.linkRecord(this::of); // provides feature to position this record at location of map value
+
+        Long256Impl[] long256A = null;
+        Long256Impl[] long256B = null;
+        for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+            if (keyTypes.getColumnType(i) == ColumnType.LONG256) {
+                if (long256A == null) {
+                    long256A = new Long256Impl[n + split];
+                    long256B = new Long256Impl[n + split];
+                }
+                long256A[i + split] = new Long256Impl();
+                long256B[i + split] = new Long256Impl();
+            }
+        }
+        this.long256A = long256A;
+        this.long256B = long256B;
+    }
+
+    private FixedKeyMapRecord(int[] columnOffsets, int split, FastMapValue value, Long256Impl[] long256A, Long256Impl[] long256B) {
+        this.columnOffsets = columnOffsets;
+        this.split = split;
+        this.value = value;
+        this.long256A = long256A;
+        this.long256B = long256B;
+    }
+
+    @Override
+    public boolean getBool(int columnIndex) {
+        return Unsafe.getBool(addressOfColumn(columnIndex));
+    }
+
+    @Override
+    public byte getByte(int columnIndex) {
+        return Unsafe.getUnsafe().getByte(addressOfColumn(columnIndex));
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        return Unsafe.getUnsafe().getDouble(addressOfColumn(columnIndex));
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        return Unsafe.getUnsafe().getFloat(addressOfColumn(columnIndex));
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        return Unsafe.getUnsafe().getInt(addressOfColumn(columnIndex));
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        return Unsafe.getUnsafe().getLong(addressOfColumn(columnIndex));
+    }
+
+    @Override
+    public long getRowId() {
+        return address;
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        return Unsafe.getUnsafe().getShort(addressOfColumn(columnIndex));
+    }
+
+    @Override
+    public char getChar(int columnIndex) {
+        return Unsafe.getUnsafe().getChar(addressOfColumn(columnIndex));
+    }
+
+    @Override
+    public void getLong256(int columnIndex, CharSink sink) {
+        final long address = addressOfColumn(columnIndex);
+        Numbers.appendLong256(
+                Unsafe.getUnsafe().getLong(address),
+                Unsafe.getUnsafe().getLong(address + Long.BYTES),
+                Unsafe.getUnsafe().getLong(address + Long.BYTES * 2),
+                Unsafe.getUnsafe().getLong(address + Long.BYTES * 3),
+                sink
+        );
+    }
+
+    @Override
+    public Long256 getLong256A(int columnIndex) {
+        return getLong256Generic(long256A, columnIndex);
+    }
+
+    @Override
+    public Long256 getLong256B(int columnIndex) {
+        return getLong256Generic(long256B, columnIndex);
+    }
+
+    @Override
+    public CharSequence getSym(int col) {
+        return symbolTableResolver.getSymbolTable(symbolTableIndex.getQuick(col)).valueOf(getInt(col));
+    }
+
+    @Override
+    public MapValue getValue() {
+        return value.of(address, false);
+    }
+
+    @Override
+    public void setSymbolTableResolver(RecordCursor resolver, IntList symbolTableIndex) {
+        this.symbolTableResolver = resolver;
+        this.symbolTableIndex = symbolTableIndex;
+    }
+
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @Override
+    protected MapRecord clone() {
+        Long256Impl[] long256A = null;
+        Long256Impl[] long256B = null;
+        if (this.long256A != null) {
+            final int n = this.long256A.length;
+            long256A = new Long256Impl[n];
+            long256B = new Long256Impl[n];
+            for (int i = 0; i < n; i++) {
+                if (this.long256A[i] != null) {
+                    long256A[i] = new Long256Impl();
+                    long256B[i] = new Long256Impl();
+                }
+            }
+        }
+        return new FixedKeyMapRecord(columnOffsets, split, new FastMapValue(value.getValueOffsets()), long256A, long256B);
+    }
+
+    private long addressOfColumn(int index) {
+        return address + columnOffsets[index];
+    }
+
+    private Long256 getLong256Generic(Long256Impl[] array, int columnIndex) {
+        final long address = addressOfColumn(columnIndex);
+        final Long256Impl long256 = array[columnIndex];
+        long256.setLong0(Unsafe.getUnsafe().getLong(address));
+        long256.setLong1(Unsafe.getUnsafe().getLong(address + Long.BYTES));
+        long256.setLong2(Unsafe.getUnsafe().getLong(address + Long.BYTES * 2));
+        long256.setLong3(Unsafe.getUnsafe().getLong(address + Long.BYTES * 3));
+        return long256;
+    }
+
+    void of(long address) {
+        this.address = address;
+    }
+}
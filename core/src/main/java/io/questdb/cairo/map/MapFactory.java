@@ -28,35 +28,63 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.std.Chars;
+import io.questdb.std.MemoryAccount;
 import io.questdb.std.Transient;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * Creates map of configured type. Fast map of keys that all have fixed width is {@link FixedKeyMap}.
+ */
 public class MapFactory {
     public static Map createMap(
             CairoConfiguration configuration,
             @Transient @NotNull ColumnTypes keyTypes,
             @Transient @NotNull ColumnTypes valueTypes
+    ) {
+        return createMap(configuration, keyTypes, valueTypes, null);
+    }
+
+    public static Map createMap(
+            CairoConfiguration configuration,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Transient @Nullable ColumnTypes valueTypes,
+            @Nullable MemoryAccount memoryAccount
     ) {
         CharSequence mapType = configuration.getDefaultMapType();
         if (Chars.equalsLowerCaseAscii(mapType, "fast")) {
+            if (FixedKeyMap.isSupported(keyTypes)) {
+                return new FixedKeyMap(
+                        configuration.getSqlMapPageSize(),
+                        keyTypes,
+                        valueTypes,
+                        configuration.getSqlMapKeyCapacity(),
+                        configuration.getSqlFastMapLoadFactor(),
+                        configuration.getSqlMapMaxResizes(),
+                        memoryAccount
+                );
+            }
             return new FastMap(
                     configuration.getSqlMapPageSize(),
                     keyTypes,
                     valueTypes,
                     configuration.getSqlMapKeyCapacity(),
                     configuration.getSqlFastMapLoadFactor(),
-                    configuration.getSqlMapMaxResizes());
+                    configuration.getSqlMapMaxResizes(),
+                    memoryAccount
+            );
         }
 
         if (Chars.equalsLowerCaseAscii(mapType, "compact")) {
             return new CompactMap(
                     configuration.getSqlMapPageSize(),
                     keyTypes,
-                    valueTypes,
+                    valueTypes, // todo: test null value types
                     configuration.getSqlMapKeyCapacity(),
                     configuration.getSqlCompactMapLoadFactor(),
                     configuration.getSqlMapMaxResizes(),
-                    configuration.getSqlMapMaxPages()
+                    configuration.getSqlMapMaxPages(),
+                    memoryAccount
             );
         }
         throw CairoException.instance(0).put("unknown map type: ").put(mapType);
@@ -65,28 +93,14 @@ public class MapFactory {
     public static Map createMap(
             CairoConfiguration configuration,
             @Transient @NotNull ColumnTypes keyTypes) {
-        CharSequence mapType = configuration.getDefaultMapType();
-        if (Chars.equalsLowerCaseAscii(mapType, "fast")) {
-            return new FastMap(
-                    configuration.getSqlMapPageSize(),
-                    keyTypes,
-                    configuration.getSqlMapKeyCapacity(),
-                    configuration.getSqlFastMapLoadFactor(),
-                    configuration.getSqlMapMaxResizes());
-        }
-
-        if (Chars.equalsLowerCaseAscii(mapType, "compact")) {
-            return new CompactMap(
-                    configuration.getSqlMapPageSize(),
-                    keyTypes,
-                    null, // todo: test
-                    configuration.getSqlMapKeyCapacity(),
-                    configuration.getSqlCompactMapLoadFactor(),
-                    configuration.getSqlMapMaxResizes(),
-                    configuration.getSqlMapMaxPages()
-            );
-        }
-        throw CairoException.instance(0).put("unknown map type: ").put(mapType);
+        return createMap(configuration, keyTypes, null, null);
     }
 
+    public static Map createMap(
+            CairoConfiguration configuration,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Nullable MemoryAccount memoryAccount
+    ) {
+        return createMap(configuration, keyTypes, null, memoryAccount);
+    }
 }
@@ -25,6 +25,7 @@
 package io.questdb.cairo.pool;
 
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.metrics.Metrics;
 import io.questdb.std.FilesFacade;
 import io.questdb.std.Unsafe;
 import io.questdb.std.microtime.MicrosecondClock;
@@ -38,6 +39,7 @@ abstract class AbstractPool implements Closeable {
     private static final int FALSE = 0;
     protected final FilesFacade ff;
     protected final MicrosecondClock clock;
+    protected final Metrics metrics;
     private final long inactiveTtlUs;
     private final CairoConfiguration configuration;
     private PoolListener eventListener;
@@ -48,6 +50,7 @@ abstract class AbstractPool implements Closeable {
         this.configuration = configuration;
         this.ff = configuration.getFilesFacade();
         this.clock = configuration.getMicrosecondClock();
+        this.metrics = configuration.getMetrics();
         this.inactiveTtlUs = inactiveTtlMillis * 1000;
     }
 
@@ -26,6 +26,7 @@ package io.questdb.cairo.pool;
 
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.DecompressedColumnCache;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.pool.ex.EntryLockedException;
 import io.questdb.cairo.pool.ex.EntryUnavailableException;
@@ -51,16 +52,26 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
     private final ConcurrentHashMap<Entry> entries = new ConcurrentHashMap<>();
     private final int maxSegments;
     private final int maxEntries;
+    private final DecompressedColumnCache decompressedColumnCache;
 
     public ReaderPool(CairoConfiguration configuration) {
         super(configuration, configuration.getInactiveReaderTTL());
         this.maxSegments = configuration.getReaderPoolMaxSegments();
         this.maxEntries = maxSegments * ENTRY_SIZE;
+        this.decompressedColumnCache = new DecompressedColumnCache(configuration.getCompressedColumnCacheSize());
+    }
+
+    /**
+     * @return cache of decompressed columns shared by readers of this pool
+     */
+    public DecompressedColumnCache getDecompressedColumnCache() {
+        return decompressedColumnCache;
     }
 
     @Override
     public TableReader get(CharSequence name) {
 
+        metrics.readerPoolGets.inc();
         Entry e = getEntry(name);
 
         long lockOwner = e.lockOwner;
@@ -117,6 +128,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
 
         // max entries exceeded
         notifyListener(thread, name, PoolListener.EV_FULL, -1, -1);
+        metrics.readerPoolUnavailable.inc();
         LOG.info().$("could not get, busy [table=`").utf8(name).$("`, thread=").$(thread).$(", retries=").$(this.maxSegments).$(']').$();
         throw EntryUnavailableException.INSTANCE;
     }
@@ -213,6 +225,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
     @Override
     protected void closePool() {
         super.closePool();
+        decompressedColumnCache.close();
         LOG.info().$("closed").$();
     }
 
@@ -268,6 +281,8 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         if (closeReason == PoolConstants.CR_IDLE) {
             return removed;
         } else {
+            // columns of readers that were left behind stay cached until those readers are closed
+            decompressedColumnCache.clear();
             return casFailures == 0;
         }
     }
@@ -347,7 +362,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         private Entry entry;
 
         public R(ReaderPool pool, Entry entry, int index, CharSequence name) {
-            super(pool.getConfiguration(), name);
+            super(pool.getConfiguration(), name, pool.decompressedColumnCache);
             this.pool = pool;
             this.entry = entry;
             this.index = index;
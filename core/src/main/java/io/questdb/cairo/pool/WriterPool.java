@@ -107,6 +107,7 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
 
         checkClosed();
 
+        metrics.writerPoolGets.inc();
         long thread = Thread.currentThread().getId();
 
         Entry e = entries.get(tableName);
@@ -146,6 +147,7 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
                 return checkClosedAndGetWriter(tableName, e);
             }
             LOG.error().$("busy [table=`").utf8(tableName).$("`, owner=").$(owner).$(']').$();
+            metrics.writerPoolBusy.inc();
             throw EntryUnavailableException.INSTANCE;
         }
     }
@@ -197,6 +199,7 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
 
         LOG.error().$("could not lock, busy [table=`").utf8(tableName).$("`, owner=").$(e.owner).$(", thread=").$(thread).$(']').$();
         notifyListener(thread, tableName, PoolListener.EV_LOCK_BUSY);
+        metrics.writerPoolBusy.inc();
         return false;
     }
 
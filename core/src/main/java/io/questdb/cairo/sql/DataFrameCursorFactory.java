@@ -25,7 +25,25 @@
 package io.questdb.cairo.sql;
 
 import io.questdb.cairo.CairoSecurityContext;
+import io.questdb.griffin.SqlExecutionContext;
+
+import java.io.Closeable;
+
+public interface DataFrameCursorFactory extends Closeable, Plannable {
+    @Override
+    default void close() {
+    }
 
-public interface DataFrameCursorFactory {
     DataFrameCursor getCursor(CairoSecurityContext securityContext);
+
+    /**
+     * Creates cursor for execution of query. Factories that depend on query parameters, such as
+     * intervals bounded by bind variables, resolve them from execution context.
+     *
+     * @param executionContext query execution context
+     * @return data frame cursor
+     */
+    default DataFrameCursor getCursor(SqlExecutionContext executionContext) {
+        return getCursor(executionContext.getCairoSecurityContext());
+    }
 }
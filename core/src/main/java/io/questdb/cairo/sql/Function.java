@@ -27,8 +27,10 @@ package io.questdb.cairo.sql;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.BinarySequence;
 import io.questdb.std.Long256;
+import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Utf8Sequence;
 
 import java.io.Closeable;
 
@@ -98,12 +100,32 @@ public interface Function extends Closeable {
 
     int getType();
 
+    default Utf8Sequence getVarcharA(Record rec) {
+        return Record.toUtf8(getStr(rec), Misc.getThreadLocalUtf8SinkA());
+    }
+
+    default Utf8Sequence getVarcharB(Record rec) {
+        return Record.toUtf8(getStrB(rec), Misc.getThreadLocalUtf8SinkB());
+    }
+
     void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext);
 
     default boolean isConstant() {
         return false;
     }
 
+    /**
+     * Runtime constant function does not change its value for the duration of query execution,
+     * but its value is not known until {@link #init(SymbolTableSource, SqlExecutionContext)} is called.
+     * Examples are bind variables and current time. Such functions can be evaluated once per cursor
+     * with null record.
+     *
+     * @return true when function value is the same for all records of cursor
+     */
+    default boolean isRuntimeConstant() {
+        return false;
+    }
+
     default void toTop() {
     }
 }
@@ -30,4 +30,11 @@ public interface PageFrame {
 
     long getPageValueCount(int columnIndex);
 
+    /**
+     * @return index of table partition frame belongs to, -1 when frame is not backed by table partition
+     */
+    default int getPartitionIndex() {
+        return -1;
+    }
+
 }
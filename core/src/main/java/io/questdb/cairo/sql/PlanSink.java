@@ -0,0 +1,90 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.sql;
+
+import io.questdb.std.str.CharSink;
+
+/**
+ * Receives nodes of EXPLAIN output. Every node prints its name via {@link #type(CharSequence)}, then its
+ * attributes, one per line, and then its child nodes, which are indented under the node.
+ */
+public interface PlanSink {
+    /**
+     * Counters of EXPLAIN ANALYZE, they are printed on the line of the node that starts next.
+     *
+     * @param rows  rows returned by cursor of the node
+     * @param loops number of times cursor was opened
+     * @param nanos time spent in cursor, including nodes below
+     */
+    void actual(long rows, int loops, long nanos);
+
+    /**
+     * Starts new attribute line of current node.
+     *
+     * @param name attribute name
+     * @return sink to print attribute value to
+     */
+    CharSink attr(CharSequence name);
+
+    /**
+     * Prints function as attribute of current node, as the expression it was parsed from when it is known. Null
+     * function is not printed.
+     *
+     * @param name     attribute name
+     * @param function function to print
+     */
+    void attr(CharSequence name, Function function);
+
+    /**
+     * Prints child node of current node.
+     *
+     * @param node child node, null node is not printed
+     */
+    default void child(Plannable node) {
+        child(null, node);
+    }
+
+    /**
+     * Prints child node of current node, which is labelled by its role, e.g. master and slave of join.
+     *
+     * @param label role of child node
+     * @param node  child node, null node is not printed
+     */
+    void child(CharSequence label, Plannable node);
+
+    /**
+     * @return number of workers parallel factories can dispatch tasks to
+     */
+    int getWorkerCount();
+
+    /**
+     * Starts node, must be called once at the start of {@link Plannable#toPlan(PlanSink)}.
+     *
+     * @param name node name
+     * @return sink to print details of node on the same line
+     */
+    CharSink type(CharSequence name);
+}
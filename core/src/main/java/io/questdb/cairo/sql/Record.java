@@ -26,7 +26,10 @@ package io.questdb.cairo.sql;
 
 import io.questdb.std.BinarySequence;
 import io.questdb.std.Long256;
+import io.questdb.std.Misc;
 import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8StringSink;
 
 public interface Record {
 
@@ -118,6 +121,29 @@ public interface Record {
         return getLong(col);
     }
 
+    /**
+     * UTF-8 view of string value. Records backed by VARCHAR storage return bytes as they are stored,
+     * other records encode value returned by {@link #getStr(int)} into thread-local buffer.
+     *
+     * @param col column index
+     * @return UTF-8 bytes or null when value is null
+     */
+    default Utf8Sequence getVarcharA(int col) {
+        return toUtf8(getStr(col), Misc.getThreadLocalUtf8SinkA());
+    }
+
+    default Utf8Sequence getVarcharB(int col) {
+        return toUtf8(getStrB(col), Misc.getThreadLocalUtf8SinkB());
+    }
+
+    static Utf8Sequence toUtf8(CharSequence value, Utf8StringSink sink) {
+        if (value == null) {
+            return null;
+        }
+        sink.encodeUtf8(value);
+        return sink;
+    }
+
     @FunctionalInterface
     interface CharSequenceFunction {
         CharSequence get(Record record, int col);
@@ -28,7 +28,7 @@ import io.questdb.griffin.SqlExecutionContext;
 
 import java.io.Closeable;
 
-public interface RecordCursorFactory extends Closeable {
+public interface RecordCursorFactory extends Closeable, Plannable {
     @Override
     default void close() {
     }
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.sql.async;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.Numbers;
+import io.questdb.std.Rows;
+import io.questdb.std.Unsafe;
+
+/**
+ * Record over page frame of {@link PageFrameSequence}. Page frames hold fixed-width columns only. Columns that
+ * are not in the frame, because they were added after partition was written, read as null. Row id is frame
+ * index and row in the frame, in the same layout {@link Rows} uses for partition index and row.
+ */
+public class PageFrameRecord implements Record {
+    private final PageFrameSequence<?> frameSequence;
+    private int frameIndex;
+    private long row;
+
+    public PageFrameRecord(PageFrameSequence<?> frameSequence) {
+        this.frameSequence = frameSequence;
+    }
+
+    @Override
+    public boolean getBool(int col) {
+        final long address = frameSequence.getPageAddress(frameIndex, col);
+        return address != 0 && Unsafe.getUnsafe().getByte(address + row) == 1;
+    }
+
+    @Override
+    public byte getByte(int col) {
+        final long address = frameSequence.getPageAddress(frameIndex, col);
+        return address == 0 ? 0 : Unsafe.getUnsafe().getByte(address + row);
+    }
+
+    @Override
+    public char getChar(int col) {
+        final long address = frameSequence.getPageAddress(frameIndex, col);
+        return address == 0 ? 0 : Unsafe.getUnsafe().getChar(address + (row << 1));
+    }
+
+    @Override
+    public double getDouble(int col) {
+        final long address = frameSequence.getPageAddress(frameIndex, col);
+        return address == 0 ? Double.NaN : Unsafe.getUnsafe().getDouble(address + (row << 3));
+    }
+
+    @Override
+    public float getFloat(int col) {
+        final long address = frameSequence.getPageAddress(frameIndex, col);
+        return address == 0 ? Float.NaN : Unsafe.getUnsafe().getFloat(address + (row << 2));
+    }
+
+    @Override
+    public int getInt(int col) {
+        final long address = frameSequence.getPageAddress(frameIndex, col);
+        return address == 0 ? Numbers.INT_NaN : Unsafe.getUnsafe().getInt(address + (row << 2));
+    }
+
+    @Override
+    public long getLong(int col) {
+        final long address = frameSequence.getPageAddress(frameIndex, col);
+        return address == 0 ? Numbers.LONG_NaN : Unsafe.getUnsafe().getLong(address + (row << 3));
+    }
+
+    @Override
+    public long getRowId() {
+        return Rows.toRowID(frameIndex, row);
+    }
+
+    @Override
+    public short getShort(int col) {
+        final long address = frameSequence.getPageAddress(frameIndex, col);
+        return address == 0 ? 0 : Unsafe.getUnsafe().getShort(address + (row << 1));
+    }
+
+    @Override
+    public CharSequence getSym(int col) {
+        return frameSequence.getSymbolTable(col).valueOf(getInt(col));
+    }
+
+    public int getFrameIndex() {
+        return frameIndex;
+    }
+
+    public PageFrameRecord of(int frameIndex) {
+        this.frameIndex = frameIndex;
+        this.row = 0;
+        return this;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.sql.async;
+
+import io.questdb.MessageBus;
+import io.questdb.mp.Job;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.mp.WorkerPool;
+import io.questdb.tasks.PageFrameReduceTask;
+
+/**
+ * Reduces page frames of queries on worker threads, see {@link PageFrameSequence}. Job that knows NUMA nodes of
+ * workers of its pool lets workers prefer frames of partitions that belong to their node.
+ */
+public class PageFrameReduceJob implements Job {
+    private final RingQueue<PageFrameReduceTask> queue;
+    private final Sequence subSeq;
+    // worker id -> NUMA node, null when nodes are not known
+    private final int[] workerNodes;
+    private final int nodeCount;
+
+    public PageFrameReduceJob(MessageBus messageBus) {
+        this.queue = messageBus.getPageFrameReduceQueue();
+        this.subSeq = messageBus.getPageFrameReduceSubSequence();
+        this.workerNodes = null;
+        this.nodeCount = 1;
+    }
+
+    public PageFrameReduceJob(MessageBus messageBus, WorkerPool pool) {
+        this.queue = messageBus.getPageFrameReduceQueue();
+        this.subSeq = messageBus.getPageFrameReduceSubSequence();
+        this.nodeCount = pool.getNodeCount();
+        if (nodeCount > 1) {
+            this.workerNodes = new int[pool.getWorkerCount()];
+            for (int i = 0, n = workerNodes.length; i < n; i++) {
+                workerNodes[i] = pool.getWorkerNode(i);
+            }
+        } else {
+            this.workerNodes = null;
+        }
+    }
+
+    @Override
+    public boolean run(int workerId) {
+        final int node = workerNodes != null && workerId < workerNodes.length ? workerNodes[workerId] : -1;
+        boolean useful = false;
+        while (true) {
+            final long cursor = subSeq.next();
+            if (cursor == -1) {
+                return useful;
+            }
+
+            if (cursor != -2) {
+                final PageFrameReduceTask task = queue.get(cursor);
+                final PageFrameSequence<?> frameSequence = task.frameSequence;
+                final int generation = task.generation;
+                task.frameSequence = null;
+                subSeq.done(cursor);
+                useful |= frameSequence.tryReduce(workerId, node, nodeCount, generation);
+            }
+        }
+    }
+}
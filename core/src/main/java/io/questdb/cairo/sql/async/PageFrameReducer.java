@@ -0,0 +1,44 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.sql.async;
+
+/**
+ * Work that {@link PageFrameSequence} runs for every page frame, on worker threads and on the query thread.
+ * Reducer is called concurrently for different frames, it must keep mutable state per slot.
+ *
+ * @param <T> type of reorder buffer entry reducer writes result of frame to
+ */
+@FunctionalInterface
+public interface PageFrameReducer<T> {
+
+    /**
+     * @param slot          index of per-thread state, workers use slots from 0 to worker count - 1, query thread
+     *                      uses slot equal to worker count
+     * @param record        record positioned at the frame, reducer sets row via {@link PageFrameRecord#setRow(long)}
+     * @param frameRowCount number of rows in the frame
+     * @param output        reorder buffer entry of the frame, cleared before the call
+     */
+    void reduce(int slot, PageFrameRecord record, long frameRowCount, T output);
+}
@@ -0,0 +1,461 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.sql.async;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.ParallelQueryAdmission;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+import io.questdb.tasks.PageFrameReduceTask;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs {@link PageFrameReducer} over page frames of a query on worker threads and returns reduced frames to
+ * the query thread in frame order.
+ * <p>
+ * Worker tasks on the queue do not name a frame, each task claims one of frames that are not claimed yet. Query
+ * thread claims frames the same way while it waits for the frame it has to return next, which means query
+ * completes even when workers are busy or queue is full. Results go to reorder buffer of
+ * {@link CairoConfiguration#getSqlParallelReorderCapacity()} entries: frame can be claimed only when it is within
+ * that many frames of the one query thread is consuming, which bounds memory held by results and lets entries be
+ * reused without copying.
+ * <p>
+ * Worker on NUMA node claims frames of partitions that belong to its node first, partition belongs to node
+ * partitionIndex % nodeCount. Partition is then always scanned by the same node, unless that node falls behind,
+ * so its pages are first touched and stay in memory local to that node. Query thread claims frames in order.
+ * <p>
+ * Error thrown by reducer on worker thread is re-thrown on query thread when it reaches the frame. Interruption
+ * of query thread and errors stop claiming of further frames; sequence waits for frames in progress before it
+ * releases page frame cursor, because reducers read its pages.
+ * <p>
+ * Sequence is reused by every cursor of its factory. Tasks of previous cursor can still be on the queue, they
+ * carry generation number and are ignored when it does not match. Change of generation waits for threads
+ * that are reducing frames, see {@link #invalidate()}.
+ *
+ * @param <T> type of reorder buffer entry
+ */
+public class PageFrameSequence<T extends Mutable> implements Closeable {
+    private final PageFrameReducer<T> reducer;
+    private final int workerCount;
+    private final int reorderCapacity;
+    private final ObjList<T> outputs;
+    // records reducer is given, one per slot
+    private final ObjList<PageFrameRecord> records;
+    // reorder buffer entry -> index of frame it holds + 1, 0 when frame is not reduced yet
+    private final AtomicIntegerArray readyFrames;
+    // reorder buffer entry -> number of frames claimed through that entry, frame is claimed when
+    // value is incremented from frameIndex / reorderCapacity
+    private final AtomicIntegerArray claims;
+    // threads that are claiming or reducing frames
+    private final AtomicInteger activeCount = new AtomicInteger();
+    // page addresses of all frames, columnCount values per frame
+    private final LongList pageAddresses = new LongList();
+    private final LongList frameRowCounts = new LongList();
+    private final IntList framePartitions = new IntList();
+    private final ObjList<SynchronizedSymbolTable> symbolTables = new ObjList<>();
+    private final StringSink errorMessage = new StringSink();
+    private volatile int consumedCount;
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+    private volatile int generation;
+    private int errorErrno;
+    private boolean errorInterruption;
+    private int frameCount;
+    private int columnCount;
+    private int currentFrameIndex;
+    private boolean started;
+    private boolean admitted;
+    private PageFrameCursor pageFrameCursor;
+    private RingQueue<PageFrameReduceTask> queue;
+    private Sequence pubSeq;
+    private ParallelQueryAdmission admission;
+    private SqlExecutionInterruptor interruptor;
+
+    /**
+     * @param configuration  configuration
+     * @param reducer        work to run for every frame
+     * @param outputFactory  factory of reorder buffer entries
+     * @param workerCount    number of workers that can reduce frames, their ids must be below this number
+     */
+    public PageFrameSequence(
+            CairoConfiguration configuration,
+            PageFrameReducer<T> reducer,
+            ObjectFactory<T> outputFactory,
+            int workerCount
+    ) {
+        this.reducer = reducer;
+        this.workerCount = workerCount;
+        this.reorderCapacity = Math.max(1, configuration.getSqlParallelReorderCapacity());
+        this.outputs = new ObjList<>(reorderCapacity);
+        for (int i = 0; i < reorderCapacity; i++) {
+            outputs.add(outputFactory.newInstance());
+        }
+        this.readyFrames = new AtomicIntegerArray(reorderCapacity);
+        this.claims = new AtomicIntegerArray(reorderCapacity);
+        this.records = new ObjList<>(workerCount + 1);
+        for (int i = 0; i <= workerCount; i++) {
+            records.add(new PageFrameRecord(this));
+        }
+    }
+
+    /**
+     * Stops reduction and releases page frame cursor. Sequence can be reused via {@link #of(PageFrameCursor, RecordMetadata, SqlExecutionContext)}.
+     */
+    public void clear() {
+        if (pageFrameCursor != null) {
+            cancel();
+            pageFrameCursor = Misc.free(pageFrameCursor);
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public long getFrameRowCount(int frameIndex) {
+        return frameRowCounts.getQuick(frameIndex);
+    }
+
+    /**
+     * @return reorder buffer entry of frame returned by {@link #next()}, valid until next call
+     */
+    public T getOutput(int frameIndex) {
+        return outputs.getQuick(frameIndex % reorderCapacity);
+    }
+
+    public long getPageAddress(int frameIndex, int columnIndex) {
+        return pageAddresses.getQuick(frameIndex * columnCount + columnIndex);
+    }
+
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return symbolTables.getQuick(columnIndex);
+    }
+
+    /**
+     * @return number of reducer slots, reducer state should be allocated for every slot
+     */
+    public int getSlotCount() {
+        return workerCount + 1;
+    }
+
+    /**
+     * Returns next frame in frame order once it is reduced. Frame returned by previous call is released and its
+     * reorder buffer entry can be reused. First call dispatches frames to workers. Query thread reduces frames
+     * itself while it waits.
+     *
+     * @return frame index or -1 when all frames have been returned
+     */
+    public int next() {
+        if (!started) {
+            start();
+        } else if (currentFrameIndex < frameCount) {
+            consumedCount = ++currentFrameIndex;
+            if (currentFrameIndex + reorderCapacity <= frameCount) {
+                // new frame fell within reorder buffer
+                publish(1);
+                if (currentFrameIndex + reorderCapacity == frameCount) {
+                    // last frame is published
+                    releaseAdmission();
+                }
+            }
+        }
+
+        final int frameIndex = currentFrameIndex;
+        if (frameIndex >= frameCount) {
+            releaseAdmission();
+            return -1;
+        }
+
+        final int bufferIndex = frameIndex % reorderCapacity;
+        try {
+            while (readyFrames.get(bufferIndex) != frameIndex + 1) {
+                interruptor.checkInterrupted();
+                if (!reduce(workerCount, -1, 0, generation)) {
+                    // frame is being reduced by worker
+                    LockSupport.parkNanos(1);
+                }
+            }
+        } catch (Throwable e) {
+            cancel();
+            throw e;
+        }
+
+        if (error != null) {
+            cancel();
+            throwError();
+        }
+        return frameIndex;
+    }
+
+    /**
+     * Collects page frames of cursor. Sequence takes ownership of cursor, it is released by {@link #clear()}.
+     * Frames are not dispatched until first call to {@link #next()}, so that reducer state can be initialized
+     * with symbol tables of this sequence first.
+     */
+    public void of(PageFrameCursor pageFrameCursor, RecordMetadata metadata, SqlExecutionContext executionContext) {
+        if (this.pageFrameCursor != null) {
+            // previous cursor was not closed
+            cancel();
+            if (this.pageFrameCursor != pageFrameCursor) {
+                Misc.free(this.pageFrameCursor);
+            }
+        } else {
+            // stale tasks must not claim frames while they are collected
+            invalidate();
+        }
+        this.pageFrameCursor = pageFrameCursor;
+        this.columnCount = metadata.getColumnCount();
+        this.interruptor = executionContext.getSqlExecutionInterruptor();
+        final MessageBus bus = executionContext.getMessageBus();
+        this.queue = bus.getPageFrameReduceQueue();
+        this.pubSeq = bus.getPageFrameReducePubSequence();
+        this.admission = executionContext.getCairoEngine().getParallelQueryAdmission();
+
+        for (int i = 0; i < columnCount; i++) {
+            if (metadata.getColumnType(i) == ColumnType.SYMBOL) {
+                SynchronizedSymbolTable symbolTable = symbolTables.getQuiet(i);
+                if (symbolTable == null) {
+                    symbolTables.extendAndSet(i, symbolTable = new SynchronizedSymbolTable());
+                }
+                symbolTable.of((StaticSymbolTable) pageFrameCursor.getSymbolTable(i));
+            }
+        }
+
+        pageAddresses.clear();
+        frameRowCounts.clear();
+        framePartitions.clear();
+        PageFrame frame;
+        while ((frame = pageFrameCursor.next()) != null) {
+            interruptor.checkInterrupted();
+            for (int i = 0; i < columnCount; i++) {
+                pageAddresses.add(frame.getPageAddress(i));
+            }
+            frameRowCounts.add(frame.getPageValueCount(0));
+            framePartitions.add(frame.getPartitionIndex());
+        }
+        frameCount = frameRowCounts.size();
+        reset();
+    }
+
+    /**
+     * Restarts sequence from the first frame.
+     */
+    public void toTop() {
+        cancel();
+        reset();
+    }
+
+    /**
+     * Reduces one of frames that are not claimed yet on worker thread.
+     *
+     * @param workerId   id of worker
+     * @param node       NUMA node of worker, -1 when worker is not bound to node
+     * @param nodeCount  number of NUMA nodes of worker pool
+     * @param generation generation task was published for
+     * @return true when frame was reduced
+     */
+    public boolean tryReduce(int workerId, int node, int nodeCount, int generation) {
+        // worker of pool that is larger than the one query was compiled for has no slot
+        return workerId < workerCount && reduce(workerId, node, nodeCount, generation);
+    }
+
+    private void cancel() {
+        releaseAdmission();
+        invalidate();
+    }
+
+    private int claim(int node, int nodeCount) {
+        while (true) {
+            final int lo = consumedCount;
+            final int hi = Math.min(frameCount, lo + reorderCapacity);
+            int other = -1;
+            for (int frameIndex = lo; frameIndex < hi; frameIndex++) {
+                final int round = frameIndex / reorderCapacity;
+                if (claims.get(frameIndex % reorderCapacity) == round) {
+                    if (node < 0 || framePartitions.getQuick(frameIndex) % nodeCount == node) {
+                        if (claims.compareAndSet(frameIndex % reorderCapacity, round, round + 1)) {
+                            return frameIndex;
+                        }
+                    } else if (other == -1) {
+                        other = frameIndex;
+                    }
+                }
+            }
+
+            if (other == -1) {
+                return -1;
+            }
+
+            // no frames of own node are left, help other nodes
+            final int round = other / reorderCapacity;
+            if (claims.compareAndSet(other % reorderCapacity, round, round + 1)) {
+                return other;
+            }
+        }
+    }
+
+    /**
+     * Makes tasks that are on the queue stale and waits for threads that are reducing frames, they read pages of
+     * the cursor.
+     */
+    private void invalidate() {
+        generation++;
+        while (activeCount.get() > 0) {
+            LockSupport.parkNanos(1);
+        }
+    }
+
+    private void publish(int count) {
+        if (admitted) {
+            for (int i = 0; i < count; i++) {
+                long cursor;
+                do {
+                    cursor = pubSeq.next();
+                } while (cursor == -2);
+
+                if (cursor < 0) {
+                    // queue is full, query thread reduces frames itself
+                    return;
+                }
+                final PageFrameReduceTask task = queue.get(cursor);
+                task.frameSequence = this;
+                task.generation = generation;
+                pubSeq.done(cursor);
+            }
+        }
+    }
+
+    private boolean reduce(int slot, int node, int nodeCount, int generation) {
+        activeCount.incrementAndGet();
+        try {
+            // generation cannot change while this thread is active, invalidate() waits for it
+            if (generation != this.generation || cancelled) {
+                return false;
+            }
+            final int frameIndex = claim(node, nodeCount);
+            if (frameIndex < 0) {
+                return false;
+            }
+            reduceFrame(slot, frameIndex);
+            return true;
+        } finally {
+            activeCount.decrementAndGet();
+        }
+    }
+
+    private void reduceFrame(int slot, int frameIndex) {
+        final int bufferIndex = frameIndex % reorderCapacity;
+        try {
+            if (!cancelled) {
+                final T output = outputs.getQuick(bufferIndex);
+                output.clear();
+                reducer.reduce(slot, records.getQuick(slot).of(frameIndex), frameRowCounts.getQuick(frameIndex), output);
+            }
+        } catch (Throwable e) {
+            setError(e);
+        } finally {
+            readyFrames.set(bufferIndex, frameIndex + 1);
+        }
+    }
+
+    private void releaseAdmission() {
+        if (admitted) {
+            admitted = false;
+            admission.release();
+        }
+    }
+
+    private void reset() {
+        // tasks of previous generation are ignored from here on
+        invalidate();
+        for (int i = 0; i < reorderCapacity; i++) {
+            readyFrames.set(i, 0);
+            claims.set(i, 0);
+        }
+        currentFrameIndex = 0;
+        consumedCount = 0;
+        cancelled = false;
+        error = null;
+        started = false;
+    }
+
+    private void setError(Throwable e) {
+        synchronized (errorMessage) {
+            if (error == null) {
+                if (e instanceof CairoException) {
+                    // exception is thread local, worker thread will reuse it
+                    final CairoException ce = (CairoException) e;
+                    errorMessage.clear();
+                    errorMessage.put(ce.getFlyweightMessage());
+                    errorErrno = ce.getErrno();
+                    errorInterruption = ce.isInterruption();
+                }
+                error = e;
+            }
+        }
+        cancelled = true;
+    }
+
+    private void start() {
+        started = true;
+        if (workerCount > 0 && frameCount > 1) {
+            admitted = admission.tryAcquire();
+            publish(Math.min(frameCount, reorderCapacity));
+            if (frameCount <= reorderCapacity) {
+                // all frames are published
+                releaseAdmission();
+            }
+        }
+    }
+
+    private void throwError() {
+        synchronized (errorMessage) {
+            if (error instanceof CairoException) {
+                throw CairoException.instance(errorErrno).put(errorMessage).setInterruption(errorInterruption);
+            }
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            throw (Error) error;
+        }
+    }
+}
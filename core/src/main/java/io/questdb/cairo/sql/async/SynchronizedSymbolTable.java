@@ -0,0 +1,71 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.sql.async;
+
+import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.std.Chars;
+
+/**
+ * Symbol table shared by query thread and worker threads. Symbol map readers cache values and read them
+ * via flyweight memory, neither of which is thread-safe, so every lookup is done under lock of the table.
+ * Values that are not cached are copied, flyweight of the reader would change under the caller otherwise.
+ */
+public class SynchronizedSymbolTable implements StaticSymbolTable {
+    private StaticSymbolTable delegate;
+
+    @Override
+    public boolean containsNullValue() {
+        synchronized (this) {
+            return delegate.containsNullValue();
+        }
+    }
+
+    @Override
+    public int keyOf(CharSequence value) {
+        synchronized (this) {
+            return delegate.keyOf(value);
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (this) {
+            return delegate.size();
+        }
+    }
+
+    @Override
+    public CharSequence valueOf(int key) {
+        synchronized (this) {
+            final CharSequence value = delegate.valueOf(key);
+            return value == null || value instanceof String ? value : Chars.toString(value);
+        }
+    }
+
+    SynchronizedSymbolTable of(StaticSymbolTable delegate) {
+        this.delegate = delegate;
+        return this;
+    }
+}
@@ -234,4 +234,19 @@ class DefaultHttpServerConfiguration implements HttpServerConfiguration {
     public int getInterruptorBufferSize() {
         return 64;
     }
+
+    @Override
+    public int getLiveQueryBatchSize() {
+        return 64 * 1024;
+    }
+
+    @Override
+    public long getLiveQueryPollInterval() {
+        return 10;
+    }
+
+    @Override
+    public long getLiveQuerySendTimeout() {
+        return 60_000;
+    }
 }
@@ -55,6 +55,7 @@ public class HttpResponseSink implements Closeable, Mutable {
     private static final IntObjHashMap<String> httpStatusMap = new IntObjHashMap<>();
 
     static {
+        httpStatusMap.put(101, "Switching Protocols");
         httpStatusMap.put(200, "OK");
         httpStatusMap.put(206, "Partial content");
         httpStatusMap.put(304, "Not Modified");
@@ -28,6 +28,7 @@ import io.questdb.MessageBus;
 import io.questdb.WorkerPoolAwareConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnIndexerJob;
+import io.questdb.cairo.sql.async.PageFrameReduceJob;
 import io.questdb.cutlass.http.processors.*;
 import io.questdb.griffin.engine.groupby.vect.GroupByNotKeyedJob;
 import io.questdb.log.Log;
@@ -47,7 +48,10 @@ import java.io.Closeable;
 
 public class HttpServer implements Closeable {
     private static final Log LOG = LogFactory.getLog(HttpServer.class);
-    private static final WorkerPoolAwareConfiguration.ServerFactory<HttpServer, HttpServerConfiguration> CREATE0 = HttpServer::create0;
+    private static final WorkerPoolAwareConfiguration.ServerFactory<HttpServer, HttpServerConfiguration> CREATE0 =
+            (configuration, engine, workerPool, local, messageBus) -> create0(configuration, engine, workerPool, local, messageBus, true);
+    private static final WorkerPoolAwareConfiguration.ServerFactory<HttpServer, HttpServerConfiguration> CREATE0_NO_QUERY_JOBS =
+            (configuration, engine, workerPool, local, messageBus) -> create0(configuration, engine, workerPool, local, messageBus, false);
     private final ObjList<HttpRequestProcessorSelectorImpl> selectors;
     private final IODispatcher<HttpConnectionContext> dispatcher;
     private final int workerCount;
@@ -106,12 +110,29 @@ public class HttpServer implements Closeable {
             Log workerPoolLog,
             CairoEngine cairoEngine,
             MessageBus messageBus
+    ) {
+        return create(configuration, sharedWorkerPool, workerPoolLog, cairoEngine, messageBus, true);
+    }
+
+    /**
+     * @param sharedQueryJobs false when parallel query jobs of the shared message bus are served by a
+     *                        dedicated pool, shared workers then only keep connection handling and
+     *                        housekeeping. Local http pool always runs query jobs of its own bus.
+     */
+    @Nullable
+    public static HttpServer create(
+            HttpServerConfiguration configuration,
+            WorkerPool sharedWorkerPool,
+            Log workerPoolLog,
+            CairoEngine cairoEngine,
+            MessageBus messageBus,
+            boolean sharedQueryJobs
     ) {
         return WorkerPoolAwareConfiguration.create(
                 configuration, sharedWorkerPool,
                 workerPoolLog,
                 cairoEngine,
-                CREATE0,
+                sharedQueryJobs ? CREATE0 : CREATE0_NO_QUERY_JOBS,
                 messageBus
         );
     }
@@ -143,7 +164,8 @@ public class HttpServer implements Closeable {
             CairoEngine cairoEngine,
             WorkerPool workerPool,
             boolean localPool,
-            MessageBus messageBus
+            MessageBus messageBus,
+            boolean queryJobs
     ) {
         final HttpServer s = new HttpServer(configuration, workerPool, localPool);
         QueryCache.configure(configuration);
@@ -207,6 +229,33 @@ public class HttpServer implements Closeable {
             }
         });
 
+        final LiveQueryJob liveQueryJob = new LiveQueryJob(cairoEngine, configuration);
+        s.bind(new HttpRequestProcessorFactory() {
+            @Override
+            public HttpRequestProcessor newInstance() {
+                return new LiveQueryProcessor(cairoEngine, liveQueryJob);
+            }
+
+            @Override
+            public String getUrl() {
+                return "/live";
+            }
+        });
+
+        if (cairoEngine.getConfiguration().getMetrics().isEnabled()) {
+            s.bind(new HttpRequestProcessorFactory() {
+                @Override
+                public HttpRequestProcessor newInstance() {
+                    return new MetricsProcessor(cairoEngine);
+                }
+
+                @Override
+                public String getUrl() {
+                    return "/metrics";
+                }
+            });
+        }
+
         s.bind(new HttpRequestProcessorFactory() {
             @Override
             public HttpRequestProcessor newInstance() {
@@ -221,7 +270,12 @@ public class HttpServer implements Closeable {
 
         // jobs that help parallel execution of queries
         workerPool.assign(new ColumnIndexerJob(messageBus));
-        workerPool.assign(new GroupByNotKeyedJob(messageBus));
+        if (localPool || queryJobs) {
+            workerPool.assign(new GroupByNotKeyedJob(messageBus));
+            workerPool.assign(new PageFrameReduceJob(messageBus, workerPool));
+        }
+        workerPool.assign(liveQueryJob);
+        workerPool.assign(0, (Closeable) liveQueryJob);
         return s;
 
     }
@@ -75,4 +75,15 @@ public interface HttpServerConfiguration extends WorkerPoolAwareConfiguration {
     int getInterruptorNIterationsPerCheck();
 
     int getInterruptorBufferSize();
+
+    int getLiveQueryBatchSize();
+
+    long getLiveQueryPollInterval();
+
+    long getLiveQuerySendTimeout();
+
+    @Override
+    default String getPoolName() {
+        return "http";
+    }
 }
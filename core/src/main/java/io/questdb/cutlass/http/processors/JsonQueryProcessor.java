@@ -34,12 +34,15 @@ import io.questdb.cairo.sql.ReaderOutOfDateException;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cutlass.http.*;
 import io.questdb.cutlass.text.Utf8Exception;
+import io.questdb.griffin.CancellableSqlExecutionInterruptor;
 import io.questdb.griffin.CompiledQuery;
+import io.questdb.griffin.QueryRegistry;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContextImpl;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Metrics;
 import io.questdb.network.*;
 import io.questdb.std.*;
 import io.questdb.std.str.DirectByteCharSequence;
@@ -55,6 +58,9 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
     private final SqlExecutionContextImpl sqlExecutionContext;
     private final ObjList<QueryExecutor> queryExecutors = new ObjList<>();
     private final NanosecondClock nanosecondClock;
+    private final Metrics metrics;
+    private final long queryMemoryLimit;
+    private final QueryRegistry queryRegistry;
 
     public JsonQueryProcessor(
             JsonQueryProcessorConfiguration configuration,
@@ -78,8 +84,13 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         this.queryExecutors.extendAndSet(CompiledQuery.INSERT_AS_SELECT, sendConfirmation);
         this.queryExecutors.extendAndSet(CompiledQuery.COPY_REMOTE, JsonQueryProcessor::cannotCopyRemote);
         this.queryExecutors.extendAndSet(CompiledQuery.BACKUP_TABLE, sendConfirmation);
+        this.queryExecutors.extendAndSet(CompiledQuery.REFRESH_MATERIALIZED_VIEW, sendConfirmation);
+        this.queryExecutors.extendAndSet(CompiledQuery.CANCEL_QUERY, sendConfirmation);
         this.sqlExecutionContext = new SqlExecutionContextImpl(messageBus, workerCount, engine);
         this.nanosecondClock = engine.getConfiguration().getNanosecondClock();
+        this.metrics = engine.getConfiguration().getMetrics();
+        this.queryMemoryLimit = engine.getConfiguration().getSqlQueryMemoryLimit();
+        this.queryRegistry = engine.getQueryRegistry();
     }
 
     @Override
@@ -92,9 +103,11 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         final HttpConnectionContext context = state.getHttpConnectionContext();
         // do not set random for new request to avoid copying random from previous request into next one
         // the only time we need to copy random from state is when we resume request execution
-        sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), context.getSqlExecutionInterruptor());
+        final CancellableSqlExecutionInterruptor interruptor = state.getInterruptor().start(state.getQuery(), context.getSqlExecutionInterruptor());
+        sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), interruptor);
         state.info().$("exec [q='").utf8(state.getQuery()).$("']").$();
         final RecordCursorFactory factory = QueryCache.getInstance().poll(state.getQuery());
+        sqlExecutionContext.getMemoryAccount().of(queryMemoryLimit);
         try {
             if (factory != null) {
                 try {
@@ -111,9 +124,11 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                 compileQuery(state);
             }
         } catch (SqlException e) {
+            metrics.httpQueryErrors.inc();
             syntaxError(context.getChunkedResponseSocket(), e, state, configuration.getKeepAliveHeader());
             readyForNextRequest(context);
         } catch (CairoError | CairoException e) {
+            metrics.httpQueryErrors.inc();
             internalError(context.getChunkedResponseSocket(), e.getFlyweightMessage(), e, state);
             readyForNextRequest(context);
         } catch (PeerIsSlowToReadException | PeerDisconnectedException e) {
@@ -122,6 +137,10 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         } catch (Throwable e) {
             LOG.error().$("Uh-oh. Error!").$(e).$();
             throw ServerDisconnectException.INSTANCE;
+        } finally {
+            // latency up to the point response is either complete or parked waiting for slow client
+            metrics.httpQueries.inc();
+            metrics.httpQueryLatency.record(state.getExecutionMicros());
         }
     }
 
@@ -140,7 +159,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                     configuration.getConnectionCheckFrequency(),
                     nanosecondClock,
                     configuration.getFloatScale(),
-                    configuration.getDoubleScale()
+                    configuration.getDoubleScale(),
+                    queryRegistry.newInterruptor()
             ));
         }
 
@@ -161,8 +181,19 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         final JsonQueryProcessorState state = LV.get(context);
         if (state != null) {
             // we are resuming request execution, we need to copy random to execution context
-            sqlExecutionContext.with(context.getCairoSecurityContext(), null, state.getRnd(), context.getFd(), context.getSqlExecutionInterruptor());
-            doResumeSend(state, context);
+            final CancellableSqlExecutionInterruptor interruptor = state.getInterruptor();
+            interruptor.with(context.getSqlExecutionInterruptor());
+            sqlExecutionContext.with(context.getCairoSecurityContext(), null, state.getRnd(), context.getFd(), interruptor);
+            try {
+                doResumeSend(state, context);
+            } catch (CairoException e) {
+                if (e.isInterruption()) {
+                    // part of response is already sent, client can only learn about it from disconnect
+                    state.info().$("query cancelled [q=`").utf8(state.getQuery()).$("`, reason=`").$(e.getFlyweightMessage()).$("`]").$();
+                    throw PeerDisconnectedException.INSTANCE;
+                }
+                throw e;
+            }
         }
     }
 
@@ -35,6 +35,7 @@ import io.questdb.cutlass.http.HttpConnectionContext;
 import io.questdb.cutlass.http.HttpRequestHeader;
 import io.questdb.cutlass.text.TextUtil;
 import io.questdb.cutlass.text.Utf8Exception;
+import io.questdb.griffin.CancellableSqlExecutionInterruptor;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContextImpl;
 import io.questdb.log.Log;
@@ -46,6 +47,7 @@ import io.questdb.std.*;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.DirectByteCharSequence;
 import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8Sequence;
 
 import java.io.Closeable;
 
@@ -73,6 +75,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     private final NanosecondClock nanosecondClock;
     private final int floatScale;
     private final int doubleScale;
+    private final CancellableSqlExecutionInterruptor interruptor;
     private Rnd rnd;
     private RecordCursorFactory recordCursorFactory;
     private RecordCursor cursor;
@@ -96,9 +99,11 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
             int connectionCheckFrequency,
             NanosecondClock nanosecondClock,
             int floatScale,
-            int doubleScale
+            int doubleScale,
+            CancellableSqlExecutionInterruptor interruptor
     ) {
         this.httpConnectionContext = httpConnectionContext;
+        this.interruptor = interruptor;
         resumeActions.extendAndSet(QUERY_PREFIX, this::onQueryPrefix);
         resumeActions.extendAndSet(QUERY_METADATA, this::onQueryMetadata);
         resumeActions.extendAndSet(QUERY_METADATA_SUFFIX, this::onQueryMetadataSuffix);
@@ -119,6 +124,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         skewedValueWriters.extendAndSet(ColumnType.SHORT, this::putSkewedShortValue);
         skewedValueWriters.extendAndSet(ColumnType.CHAR, this::putSkewedCharValue);
         skewedValueWriters.extendAndSet(ColumnType.STRING, this::putSkewedStrValue);
+        skewedValueWriters.extendAndSet(ColumnType.VARCHAR, this::putSkewedVarcharValue);
         skewedValueWriters.extendAndSet(ColumnType.SYMBOL, this::putSkewedSymValue);
         skewedValueWriters.extendAndSet(ColumnType.BINARY, this::putSkewedBinValue);
         skewedValueWriters.extendAndSet(ColumnType.LONG256, this::putSkewedLong256Value);
@@ -134,6 +140,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         allValueWriters.extendAndSet(ColumnType.SHORT, JsonQueryProcessorState::putShortValue);
         allValueWriters.extendAndSet(ColumnType.CHAR, JsonQueryProcessorState::putCharValue);
         allValueWriters.extendAndSet(ColumnType.STRING, JsonQueryProcessorState::putStrValue);
+        allValueWriters.extendAndSet(ColumnType.VARCHAR, JsonQueryProcessorState::putVarcharValue);
         allValueWriters.extendAndSet(ColumnType.SYMBOL, JsonQueryProcessorState::putSymValue);
         allValueWriters.extendAndSet(ColumnType.BINARY, JsonQueryProcessorState::putBinValue);
         allValueWriters.extendAndSet(ColumnType.LONG256, JsonQueryProcessorState::putLong256Value);
@@ -163,12 +170,14 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         queryState = QUERY_PREFIX;
         columnIndex = 0;
         countRows = false;
+        interruptor.finish();
     }
 
     @Override
     public void close() {
         cursor = Misc.free(cursor);
         recordCursorFactory = Misc.free(recordCursorFactory);
+        interruptor.finish();
     }
 
     public void configure(
@@ -195,6 +204,10 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return httpConnectionContext;
     }
 
+    public CancellableSqlExecutionInterruptor getInterruptor() {
+        return interruptor;
+    }
+
     public CharSequence getQuery() {
         return query;
     }
@@ -243,6 +256,10 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         info().$("syntax-error [q=`").utf8(query).$("`, at=").$(e.getPosition()).$(", message=`").utf8(e.getFlyweightMessage()).$('`').$(']').$();
     }
 
+    public long getExecutionMicros() {
+        return (nanosecondClock.getTicks() - executeStartNanos) / 1000;
+    }
+
     public void setCompilerNanos(long compilerNanos) {
         this.compilerNanos = compilerNanos;
     }
@@ -322,6 +339,25 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         putStringOrNull(socket, rec.getStr(col));
     }
 
+    private static void putVarcharValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+        final Utf8Sequence value = rec.getVarcharA(col);
+        if (value == null) {
+            socket.put("null");
+        } else {
+            // UTF-8 bytes go out as they are, only ASCII characters need escaping
+            socket.put('\"');
+            for (int i = 0, n = value.length(); i < n; i++) {
+                final byte b = value.byteAt(i);
+                if (b < 0) {
+                    socket.put((char) (b & 0xff));
+                } else {
+                    socket.putUtf8((char) b);
+                }
+            }
+            socket.put('\"');
+        }
+    }
+
     private static void putSymValue(HttpChunkedResponseSocket socket, Record rec, int col) {
         putStringOrNull(socket, rec.getSym(col));
     }
@@ -712,6 +748,10 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         putStrValue(socket, rec, columnSkewList.getQuick(col));
     }
 
+    private void putSkewedVarcharValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+        putVarcharValue(socket, rec, columnSkewList.getQuick(col));
+    }
+
     private void putSkewedSymValue(HttpChunkedResponseSocket socket, Record rec, int col) {
         putSymValue(socket, rec, columnSkewList.getQuick(col));
     }
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.cutlass.http.HttpServerConfiguration;
+import io.questdb.griffin.LiveQuery;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.network.NetworkFacade;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.time.MillisecondClock;
+
+import java.io.Closeable;
+
+/**
+ * Streams rows of live queries to WebSocket clients. Connection is handed over to the job by
+ * {@link LiveQueryProcessor} once query is compiled and stays with the job until either side closes
+ * it, dispatcher does not poll it in the meantime. Job reloads table readers of subscriptions every
+ * poll interval and sends rows that passed filter in frames of about batch size bytes.
+ */
+public class LiveQueryJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(LiveQueryJob.class);
+    private final ObjList<LiveQuerySubscription> subscriptions = new ObjList<>();
+    // subscriptions added by processors of all HTTP workers, guarded by itself
+    private final ObjList<LiveQuerySubscription> incoming = new ObjList<>();
+    // released subscriptions, their buffers are reused by subscribe(), guarded by incoming
+    private final ObjList<LiveQuerySubscription> pool = new ObjList<>();
+    private final NetworkFacade nf;
+    private final MillisecondClock clock;
+    private final SqlExecutionContextImpl executionContext;
+    private final int batchSize;
+    private final long pollInterval;
+    private final long sendTimeout;
+    private final int floatScale;
+    private final int doubleScale;
+    private boolean closed;
+
+    public LiveQueryJob(CairoEngine engine, HttpServerConfiguration configuration) {
+        this.nf = configuration.getDispatcherConfiguration().getNetworkFacade();
+        this.clock = engine.getConfiguration().getMillisecondClock();
+        this.executionContext = new SqlExecutionContextImpl(null, 1, engine)
+                .with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+        this.batchSize = configuration.getLiveQueryBatchSize();
+        this.pollInterval = configuration.getLiveQueryPollInterval();
+        this.sendTimeout = configuration.getLiveQuerySendTimeout();
+        this.floatScale = configuration.getJsonQueryProcessorConfiguration().getFloatScale();
+        this.doubleScale = configuration.getJsonQueryProcessorConfiguration().getDoubleScale();
+    }
+
+    @Override
+    public void close() {
+        synchronized (incoming) {
+            closed = true;
+            for (int i = 0, n = incoming.size(); i < n; i++) {
+                disconnect(incoming.getQuick(i));
+            }
+            incoming.clear();
+        }
+        for (int i = 0, n = subscriptions.size(); i < n; i++) {
+            disconnect(subscriptions.getQuick(i));
+        }
+        subscriptions.clear();
+        synchronized (incoming) {
+            Misc.freeObjList(pool);
+            pool.clear();
+        }
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Takes over connection that sent WebSocket upgrade request for live query.
+     *
+     * @param context connection, it must not be registered with dispatcher
+     * @param query   compiled query, job closes it
+     * @param accept  value of Sec-WebSocket-Accept header of handshake response
+     */
+    public void subscribe(HttpConnectionContext context, LiveQuery query, CharSequence accept) {
+        LiveQuerySubscription subscription = null;
+        synchronized (incoming) {
+            final int n = pool.size();
+            if (n > 0) {
+                subscription = pool.getQuick(n - 1);
+                pool.remove(n - 1);
+            }
+        }
+        if (subscription == null) {
+            subscription = new LiveQuerySubscription(batchSize, floatScale, doubleScale);
+        }
+        subscription.of(context, query, accept, clock.getTicks());
+        synchronized (incoming) {
+            if (!closed) {
+                incoming.add(subscription);
+                return;
+            }
+        }
+        disconnect(subscription);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        synchronized (incoming) {
+            subscriptions.addAll(incoming);
+            incoming.clear();
+        }
+
+        boolean useful = false;
+        final long now = clock.getTicks();
+        for (int i = subscriptions.size() - 1; i > -1; i--) {
+            final LiveQuerySubscription subscription = subscriptions.getQuick(i);
+            try {
+                useful |= subscription.receive(nf);
+                useful |= subscription.send(nf, now);
+                if (subscription.hasPendingSend()) {
+                    if (now - subscription.getLastSendTime() > sendTimeout) {
+                        LOG.info().$("slow subscriber [fd=").$(subscription.getContext().getFd()).$(']').$();
+                        remove(i);
+                    }
+                    continue;
+                }
+                if (subscription.isClosing()) {
+                    remove(i);
+                    continue;
+                }
+                if (!subscription.hasMoreRows()) {
+                    if (now < subscription.getNextPollTime()) {
+                        continue;
+                    }
+                    subscription.setNextPollTime(now + pollInterval);
+                    if (!subscription.getQuery().reload(executionContext)) {
+                        continue;
+                    }
+                }
+                if (subscription.fill(batchSize)) {
+                    subscription.send(nf, now);
+                    useful = true;
+                }
+            } catch (PeerDisconnectedException e) {
+                remove(i);
+            } catch (CairoException e) {
+                LOG.error().$("live query failed [fd=").$(subscription.getContext().getFd()).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+                subscription.close(LiveQuerySubscription.CLOSE_INTERNAL_ERROR, e.getFlyweightMessage());
+            }
+        }
+        return useful;
+    }
+
+    private void disconnect(LiveQuerySubscription subscription) {
+        final HttpConnectionContext context = subscription.getContext();
+        context.clear();
+        context.getDispatcher().disconnect(context);
+        synchronized (incoming) {
+            if (closed) {
+                subscription.close();
+            } else {
+                subscription.clear();
+                pool.add(subscription);
+            }
+        }
+    }
+
+    private void remove(int index) {
+        disconnect(subscriptions.getQuick(index));
+        subscriptions.remove(index);
+    }
+}
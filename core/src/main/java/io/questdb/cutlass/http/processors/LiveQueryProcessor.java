@@ -0,0 +1,149 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.cutlass.http.HttpRequestHeader;
+import io.questdb.cutlass.http.HttpRequestProcessor;
+import io.questdb.griffin.LiveQuery;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.IOOperation;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.std.Chars;
+import io.questdb.std.Misc;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Accepts WebSocket upgrade requests for live queries:
+ * <pre>
+ * GET /live?query=select+sym,price+from+trades+where+price+%3E+100
+ * </pre>
+ * Query is compiled against current table structure and the connection is handed over to
+ * {@link LiveQueryJob}, which completes handshake and streams rows committed from then on.
+ * Query that cannot be followed is rejected with 400 before upgrade.
+ */
+public class LiveQueryProcessor implements HttpRequestProcessor, Closeable {
+    private static final Log LOG = LogFactory.getLog(LiveQueryProcessor.class);
+    private static final String WEB_SOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private final SqlCompiler compiler;
+    private final SqlExecutionContextImpl sqlExecutionContext;
+    private final LiveQueryJob job;
+    private final StringSink query = new StringSink();
+    private final MessageDigest sha1;
+
+    public LiveQueryProcessor(CairoEngine engine, LiveQueryJob job) {
+        this.compiler = new SqlCompiler(engine);
+        this.sqlExecutionContext = new SqlExecutionContextImpl(null, 1, engine);
+        this.job = job;
+        try {
+            this.sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compiler);
+    }
+
+    @Override
+    public void onHeadersReady(HttpConnectionContext context) {
+    }
+
+    @Override
+    public void onRequestComplete(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final HttpRequestHeader header = context.getRequestHeader();
+        final DirectByteCharSequence key = header.getHeader("Sec-WebSocket-Key");
+        if (key == null || !Chars.equalsIgnoreCaseNc("websocket", header.getHeader("Upgrade"))) {
+            sendStatus(context, "WebSocket upgrade expected");
+            return;
+        }
+
+        final DirectByteCharSequence queryParam = header.getUrlParam("query");
+        query.clear();
+        if (queryParam == null || queryParam.length() == 0) {
+            sendStatus(context, "query expected");
+            return;
+        }
+        if (!Chars.utf8Decode(queryParam.getLo(), queryParam.getHi(), query)) {
+            sendStatus(context, "Bad UTF8 encoding in query text");
+            return;
+        }
+
+        final LiveQuery liveQuery;
+        try {
+            sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), null);
+            liveQuery = compiler.compileLiveQuery(query, sqlExecutionContext);
+        } catch (SqlException e) {
+            LOG.info().$("rejected [fd=").$(context.getFd()).$(", q=`").utf8(query).$("`, pos=").$(e.getPosition()).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+            sendStatus(context, e.getFlyweightMessage());
+            return;
+        } catch (CairoException e) {
+            LOG.info().$("rejected [fd=").$(context.getFd()).$(", q=`").utf8(query).$("`, msg=").$(e.getFlyweightMessage()).$(']').$();
+            sendStatus(context, e.getFlyweightMessage());
+            return;
+        }
+
+        LOG.info().$("subscribed [fd=").$(context.getFd()).$(", q=`").utf8(query).$("`]").$();
+        job.subscribe(context, liveQuery, accept(key));
+    }
+
+    @Override
+    public void resumeSend(HttpConnectionContext context) {
+        readyForNextRequest(context);
+    }
+
+    private static void readyForNextRequest(HttpConnectionContext context) {
+        context.clear();
+        context.getDispatcher().registerChannel(context, IOOperation.READ);
+    }
+
+    private static void sendStatus(HttpConnectionContext context, CharSequence message) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        context.simpleResponse().sendStatus(400, message);
+        readyForNextRequest(context);
+    }
+
+    private String accept(CharSequence key) {
+        sha1.reset();
+        sha1.update(Chars.toString(key).concat(WEB_SOCKET_GUID).getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(sha1.digest());
+    }
+}
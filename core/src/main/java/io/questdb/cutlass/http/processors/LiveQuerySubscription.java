@@ -0,0 +1,610 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.griffin.LiveQuery;
+import io.questdb.network.NetworkFacade;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.AbstractCharSink;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Utf8Sequence;
+
+import java.io.Closeable;
+
+/**
+ * WebSocket end of {@link LiveQuery}. Subscription sends handshake response, then frame with column
+ * metadata, then frames of rows as they are committed:
+ * <pre>
+ * {"columns":[{"name":"sym","type":"SYMBOL"},...]}
+ * {"dataset":[["a",...],...]}
+ * </pre>
+ * There is at most one data frame in flight. Rows of the next frame are not read until previous frame
+ * is sent out, slow client holds table reader back rather than having rows buffered for it.
+ * Frames client sends are read for close and ping, text and binary frames are discarded.
+ */
+class LiveQuerySubscription implements Closeable, Mutable {
+    static final int OPCODE_TEXT = 0x1;
+    static final int OPCODE_CLOSE = 0x8;
+    static final int OPCODE_PING = 0x9;
+    static final int OPCODE_PONG = 0xA;
+    static final int CLOSE_NORMAL = 1000;
+    static final int CLOSE_PROTOCOL_ERROR = 1002;
+    static final int CLOSE_INTERNAL_ERROR = 1011;
+    // server frames are not masked, header is at most 2 bytes and 8 bytes of payload length
+    private static final int MAX_HEADER_SIZE = 10;
+    private static final int MAX_CONTROL_PAYLOAD = 125;
+    private static final int RECV_BUFFER_SIZE = 256;
+    private final FrameSink sink = new FrameSink();
+    private final long recvBuf;
+    private final long controlBuf;
+    private final int floatScale;
+    private final int doubleScale;
+    private long buf;
+    private long bufCapacity;
+    private long sendLo;
+    private long sendHi;
+    private long controlLo;
+    private long controlHi;
+    private int recvLen;
+    private long skipRemaining;
+    private HttpConnectionContext context;
+    private LiveQuery query;
+    private boolean metadataSent;
+    private boolean moreRows;
+    private boolean closing;
+    private long nextPollTime;
+    private long lastSendTime;
+
+    LiveQuerySubscription(int initialCapacity, int floatScale, int doubleScale) {
+        this.bufCapacity = initialCapacity + MAX_HEADER_SIZE;
+        this.buf = Unsafe.malloc(bufCapacity);
+        this.recvBuf = Unsafe.malloc(RECV_BUFFER_SIZE);
+        this.controlBuf = Unsafe.malloc(MAX_HEADER_SIZE + MAX_CONTROL_PAYLOAD);
+        this.floatScale = floatScale;
+        this.doubleScale = doubleScale;
+    }
+
+    @Override
+    public void clear() {
+        query = Misc.free(query);
+        context = null;
+        sendLo = sendHi = 0;
+        controlLo = controlHi = 0;
+        recvLen = 0;
+        skipRemaining = 0;
+        metadataSent = false;
+        moreRows = false;
+        closing = false;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Unsafe.free(buf, bufCapacity);
+        Unsafe.free(recvBuf, RECV_BUFFER_SIZE);
+        Unsafe.free(controlBuf, MAX_HEADER_SIZE + MAX_CONTROL_PAYLOAD);
+    }
+
+    /**
+     * Queues close frame, no rows are sent after it. Connection can be dropped once
+     * {@link #hasPendingSend()} is false.
+     */
+    void close(int code, CharSequence reason) {
+        if (!closing) {
+            closing = true;
+            final long p = controlBuf + 2;
+            Unsafe.getUnsafe().putByte(p, (byte) (code >> 8));
+            Unsafe.getUnsafe().putByte(p + 1, (byte) code);
+            int len = 2;
+            for (int i = 0, n = Math.min(reason.length(), MAX_CONTROL_PAYLOAD - len); i < n; i++) {
+                final char c = reason.charAt(i);
+                Unsafe.getUnsafe().putByte(p + len++, (byte) (c < 128 ? c : '?'));
+            }
+            queueControl(OPCODE_CLOSE, len);
+        }
+    }
+
+    /**
+     * Produces next frame: column metadata first, then rows committed since last poll. Rows are read only
+     * when there is nothing pending to send.
+     *
+     * @return true when frame was produced
+     */
+    boolean fill(int batchSize) {
+        if (closing || hasPendingSend()) {
+            return false;
+        }
+
+        beginFrame();
+        if (!metadataSent) {
+            final RecordMetadata metadata = query.getMetadata();
+            sink.put("{\"columns\":[");
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                if (i > 0) {
+                    sink.put(',');
+                }
+                sink.put("{\"name\":").encodeUtf8AndQuote(metadata.getColumnName(i))
+                        .put(",\"type\":\"").put(ColumnType.nameOf(metadata.getColumnType(i))).put("\"}");
+            }
+            sink.put("]}");
+            endFrame(OPCODE_TEXT);
+            metadataSent = true;
+            return true;
+        }
+
+        final long payloadLo = sink.position();
+        sink.put("{\"dataset\":[");
+        final RecordMetadata metadata = query.getMetadata();
+        final Record record = query.getRecord();
+        int rowCount = 0;
+        while (sink.position() - payloadLo < batchSize && query.hasNext()) {
+            if (rowCount++ > 0) {
+                sink.put(',');
+            }
+            putRecord(metadata, record);
+        }
+        moreRows = sink.position() - payloadLo >= batchSize;
+        if (rowCount == 0) {
+            sendLo = sendHi = buf;
+            return false;
+        }
+        sink.put("]}");
+        endFrame(OPCODE_TEXT);
+        return true;
+    }
+
+    HttpConnectionContext getContext() {
+        return context;
+    }
+
+    long getLastSendTime() {
+        return lastSendTime;
+    }
+
+    long getNextPollTime() {
+        return nextPollTime;
+    }
+
+    LiveQuery getQuery() {
+        return query;
+    }
+
+    boolean hasMoreRows() {
+        return moreRows;
+    }
+
+    boolean hasPendingSend() {
+        return sendLo < sendHi || controlLo < controlHi;
+    }
+
+    boolean isClosing() {
+        return closing;
+    }
+
+    /**
+     * Queues handshake response for the client to receive before any frame.
+     */
+    LiveQuerySubscription of(HttpConnectionContext context, LiveQuery query, CharSequence accept, long now) {
+        this.context = context;
+        this.query = query;
+        this.nextPollTime = now;
+        this.lastSendTime = now;
+        // metadata frame is due without waiting for table to change
+        this.moreRows = true;
+        sendLo = sendHi = buf;
+        sink.put("HTTP/1.1 101 Switching Protocols\r\n")
+                .put("Upgrade: websocket\r\n")
+                .put("Connection: Upgrade\r\n")
+                .put("Sec-WebSocket-Accept: ").put(accept).put("\r\n")
+                .put("\r\n");
+        return this;
+    }
+
+    /**
+     * Reads and handles frames client sent.
+     *
+     * @return true when anything was read
+     * @throws PeerDisconnectedException when client disconnected
+     */
+    boolean receive(NetworkFacade nf) throws PeerDisconnectedException {
+        boolean useful = false;
+        while (true) {
+            final int n = nf.recv(context.getFd(), recvBuf + recvLen, RECV_BUFFER_SIZE - recvLen);
+            if (n < 0) {
+                throw PeerDisconnectedException.INSTANCE;
+            }
+            if (n == 0) {
+                return useful;
+            }
+            useful = true;
+            recvLen += n;
+            parseFrames();
+        }
+    }
+
+    /**
+     * Sends out as much of pending frame as socket takes.
+     *
+     * @return true when anything was sent
+     * @throws PeerDisconnectedException when client disconnected
+     */
+    boolean send(NetworkFacade nf, long now) throws PeerDisconnectedException {
+        boolean useful = false;
+        if (sendLo < sendHi) {
+            final int n = nf.send(context.getFd(), sendLo, (int) (sendHi - sendLo));
+            if (n < 0) {
+                throw PeerDisconnectedException.INSTANCE;
+            }
+            sendLo += n;
+            useful = n > 0;
+        }
+        // control frames cannot interleave fragments of data frame
+        if (sendLo == sendHi && controlLo < controlHi) {
+            final int n = nf.send(context.getFd(), controlLo, (int) (controlHi - controlLo));
+            if (n < 0) {
+                throw PeerDisconnectedException.INSTANCE;
+            }
+            controlLo += n;
+            useful |= n > 0;
+        }
+        if (useful || !hasPendingSend()) {
+            lastSendTime = now;
+        }
+        return useful;
+    }
+
+    void setNextPollTime(long nextPollTime) {
+        this.nextPollTime = nextPollTime;
+    }
+
+    private void beginFrame() {
+        sendLo = sendHi = buf + MAX_HEADER_SIZE;
+    }
+
+    private void consume(int len) {
+        recvLen -= len;
+        if (recvLen > 0) {
+            Unsafe.getUnsafe().copyMemory(recvBuf + len, recvBuf, recvLen);
+        }
+    }
+
+    private void endFrame(int opcode) {
+        final long payloadLen = sendHi - (buf + MAX_HEADER_SIZE);
+        final long lo;
+        if (payloadLen < 126) {
+            lo = buf + MAX_HEADER_SIZE - 2;
+            Unsafe.getUnsafe().putByte(lo + 1, (byte) payloadLen);
+        } else if (payloadLen < 65536) {
+            lo = buf + MAX_HEADER_SIZE - 4;
+            Unsafe.getUnsafe().putByte(lo + 1, (byte) 126);
+            Unsafe.getUnsafe().putByte(lo + 2, (byte) (payloadLen >> 8));
+            Unsafe.getUnsafe().putByte(lo + 3, (byte) payloadLen);
+        } else {
+            lo = buf;
+            Unsafe.getUnsafe().putByte(lo + 1, (byte) 127);
+            for (int i = 0; i < 8; i++) {
+                Unsafe.getUnsafe().putByte(lo + 2 + i, (byte) (payloadLen >> (56 - 8 * i)));
+            }
+        }
+        Unsafe.getUnsafe().putByte(lo, (byte) (0x80 | opcode));
+        sendLo = lo;
+    }
+
+    private void ensureCapacity(int len) {
+        final long offset = sendHi - buf;
+        if (offset + len > bufCapacity) {
+            final long loOffset = sendLo - buf;
+            final long capacity = Math.max(bufCapacity * 2, offset + len);
+            buf = Unsafe.realloc(buf, bufCapacity, capacity);
+            bufCapacity = capacity;
+            sendLo = buf + loOffset;
+            sendHi = buf + offset;
+        }
+    }
+
+    private void parseFrames() {
+        while (recvLen > 0) {
+            if (skipRemaining > 0) {
+                final int len = (int) Math.min(skipRemaining, recvLen);
+                skipRemaining -= len;
+                consume(len);
+                continue;
+            }
+
+            if (recvLen < 2) {
+                return;
+            }
+            final int opcode = Unsafe.getUnsafe().getByte(recvBuf) & 0x0f;
+            final int b1 = Unsafe.getUnsafe().getByte(recvBuf + 1) & 0xff;
+            final boolean masked = (b1 & 0x80) != 0;
+            long payloadLen = b1 & 0x7f;
+            int headerLen = 2;
+            if (payloadLen == 126) {
+                headerLen += 2;
+            } else if (payloadLen == 127) {
+                headerLen += 8;
+            }
+            final int maskOffset = headerLen;
+            if (masked) {
+                headerLen += 4;
+            }
+            if (recvLen < headerLen) {
+                return;
+            }
+            if (payloadLen == 126) {
+                payloadLen = ((Unsafe.getUnsafe().getByte(recvBuf + 2) & 0xff) << 8) | (Unsafe.getUnsafe().getByte(recvBuf + 3) & 0xff);
+            } else if (payloadLen == 127) {
+                payloadLen = 0;
+                for (int i = 0; i < 8; i++) {
+                    payloadLen = (payloadLen << 8) | (Unsafe.getUnsafe().getByte(recvBuf + 2 + i) & 0xff);
+                }
+            }
+
+            if (opcode < OPCODE_CLOSE) {
+                // data frames are not expected from client
+                consume(headerLen);
+                skipRemaining = payloadLen;
+                continue;
+            }
+
+            if (payloadLen > MAX_CONTROL_PAYLOAD) {
+                recvLen = 0;
+                close(CLOSE_PROTOCOL_ERROR, "control frame too large");
+                return;
+            }
+            final int frameLen = headerLen + (int) payloadLen;
+            if (recvLen < frameLen) {
+                return;
+            }
+            final long payload = recvBuf + headerLen;
+            if (masked) {
+                for (int i = 0; i < payloadLen; i++) {
+                    final byte mask = Unsafe.getUnsafe().getByte(recvBuf + maskOffset + (i & 3));
+                    Unsafe.getUnsafe().putByte(payload + i, (byte) (Unsafe.getUnsafe().getByte(payload + i) ^ mask));
+                }
+            }
+            switch (opcode) {
+                case OPCODE_CLOSE:
+                    if (!closing) {
+                        // echo status code of client
+                        closing = true;
+                        final int len = (int) Math.min(payloadLen, 2);
+                        Unsafe.getUnsafe().copyMemory(payload, controlBuf + 2, len);
+                        queueControl(OPCODE_CLOSE, len);
+                    }
+                    break;
+                case OPCODE_PING:
+                    if (!closing) {
+                        Unsafe.getUnsafe().copyMemory(payload, controlBuf + 2, payloadLen);
+                        queueControl(OPCODE_PONG, (int) payloadLen);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            consume(frameLen);
+        }
+    }
+
+    private void putRecord(RecordMetadata metadata, Record record) {
+        sink.put('[');
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i > 0) {
+                sink.put(',');
+            }
+            putValue(record, metadata.getColumnType(i), query.getColumnIndex(i));
+        }
+        sink.put(']');
+    }
+
+    private void putValue(Record record, int type, int col) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                sink.put(record.getBool(col));
+                break;
+            case ColumnType.BYTE:
+                sink.put(record.getByte(col));
+                break;
+            case ColumnType.SHORT:
+                sink.put(record.getShort(col));
+                break;
+            case ColumnType.CHAR:
+                final char c = record.getChar(col);
+                if (c == 0) {
+                    sink.put("\"\"");
+                } else {
+                    sink.put('"').putUtf8(c).put('"');
+                }
+                break;
+            case ColumnType.INT:
+                final int i = record.getInt(col);
+                if (i == Numbers.INT_NaN) {
+                    sink.put("null");
+                } else {
+                    sink.put(i);
+                }
+                break;
+            case ColumnType.LONG:
+                final long l = record.getLong(col);
+                if (l == Numbers.LONG_NaN) {
+                    sink.put("null");
+                } else {
+                    sink.put(l);
+                }
+                break;
+            case ColumnType.DATE:
+                final long d = record.getDate(col);
+                if (d == Numbers.LONG_NaN) {
+                    sink.put("null");
+                } else {
+                    sink.put('"').putISODateMillis(d).put('"');
+                }
+                break;
+            case ColumnType.TIMESTAMP:
+                final long t = record.getTimestamp(col);
+                if (t == Numbers.LONG_NaN) {
+                    sink.put("null");
+                } else {
+                    sink.put('"').putISODate(t).put('"');
+                }
+                break;
+            case ColumnType.FLOAT:
+                final float f = record.getFloat(col);
+                if (Float.isNaN(f)) {
+                    sink.put("null");
+                } else {
+                    sink.put(f, floatScale);
+                }
+                break;
+            case ColumnType.DOUBLE:
+                final double v = record.getDouble(col);
+                if (Double.isNaN(v) || Double.isInfinite(v)) {
+                    sink.put("null");
+                } else {
+                    sink.put(v, doubleScale);
+                }
+                break;
+            case ColumnType.STRING:
+                putStr(record.getStr(col));
+                break;
+            case ColumnType.SYMBOL:
+                putStr(record.getSym(col));
+                break;
+            case ColumnType.VARCHAR:
+                final Utf8Sequence value = record.getVarcharA(col);
+                if (value == null) {
+                    sink.put("null");
+                } else {
+                    // UTF-8 bytes go out as they are, only ASCII characters need escaping
+                    sink.put('"');
+                    for (int k = 0, n = value.length(); k < n; k++) {
+                        final byte b = value.byteAt(k);
+                        if (b < 0) {
+                            sink.put((char) (b & 0xff));
+                        } else {
+                            sink.putUtf8((char) b);
+                        }
+                    }
+                    sink.put('"');
+                }
+                break;
+            case ColumnType.LONG256:
+                sink.put('"');
+                record.getLong256(col, sink);
+                sink.put('"');
+                break;
+            default:
+                // binary values are not sent, same as in JSON query response
+                sink.put("[]");
+                break;
+        }
+    }
+
+    private void putStr(CharSequence value) {
+        if (value == null) {
+            sink.put("null");
+        } else {
+            sink.encodeUtf8AndQuote(value);
+        }
+    }
+
+    private void queueControl(int opcode, int payloadLen) {
+        Unsafe.getUnsafe().putByte(controlBuf, (byte) (0x80 | opcode));
+        Unsafe.getUnsafe().putByte(controlBuf + 1, (byte) payloadLen);
+        controlLo = controlBuf;
+        controlHi = controlBuf + 2 + payloadLen;
+    }
+
+    private class FrameSink extends AbstractCharSink {
+
+        @Override
+        public CharSink put(CharSequence cs) {
+            final int len = cs.length();
+            ensureCapacity(len);
+            for (int i = 0; i < len; i++) {
+                Unsafe.getUnsafe().putByte(sendHi++, (byte) cs.charAt(i));
+            }
+            return this;
+        }
+
+        @Override
+        public CharSink put(char c) {
+            ensureCapacity(1);
+            Unsafe.getUnsafe().putByte(sendHi++, (byte) c);
+            return this;
+        }
+
+        @Override
+        public CharSink put(char[] chars, int start, int len) {
+            ensureCapacity(len);
+            for (int i = 0; i < len; i++) {
+                Unsafe.getUnsafe().putByte(sendHi++, (byte) chars[start + i]);
+            }
+            return this;
+        }
+
+        long position() {
+            return sendHi - buf;
+        }
+
+        @Override
+        protected void putUtf8Special(char c) {
+            switch (c) {
+                case '\b':
+                    put("\\b");
+                    break;
+                case '\f':
+                    put("\\f");
+                    break;
+                case '\n':
+                    put("\\n");
+                    break;
+                case '\r':
+                    put("\\r");
+                    break;
+                case '\t':
+                    put("\\t");
+                    break;
+                case '"':
+                case '\\':
+                    put('\\');
+                    put(c);
+                    break;
+                default:
+                    put(c);
+                    break;
+            }
+        }
+    }
+}
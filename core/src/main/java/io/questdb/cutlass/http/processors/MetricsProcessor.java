@@ -0,0 +1,124 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cutlass.http.HttpChunkedResponseSocket;
+import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.cutlass.http.HttpRequestProcessor;
+import io.questdb.cutlass.http.LocalValue;
+import io.questdb.griffin.engine.ParallelQueryAdmission;
+import io.questdb.metrics.Metrics;
+import io.questdb.network.IOOperation;
+import io.questdb.network.NoSpaceLeftInResponseBufferException;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.std.Chars;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Serves {@link Metrics} in Prometheus text exposition format. Pool and connection gauges are sampled
+ * from their owners on every scrape.
+ */
+public class MetricsProcessor implements HttpRequestProcessor {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final LocalValue<MetricsProcessorState> LV = new LocalValue<>();
+    private final CairoEngine engine;
+    private final Metrics metrics;
+
+    public MetricsProcessor(CairoEngine engine) {
+        this.engine = engine;
+        this.metrics = engine.getConfiguration().getMetrics();
+    }
+
+    @Override
+    public void onHeadersReady(HttpConnectionContext context) {
+    }
+
+    @Override
+    public void onRequestComplete(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        MetricsProcessorState state = LV.get(context);
+        if (state == null) {
+            LV.set(context, state = new MetricsProcessorState());
+        }
+        state.clear();
+
+        final StringSink sink = state.sink;
+        metrics.scrapeInto(sink);
+        Metrics.putGauge(sink, "questdb_reader_pool_busy", "Number of readers in use", engine.getBusyReaderCount());
+        Metrics.putGauge(sink, "questdb_writer_pool_busy", "Number of writers in use", engine.getBusyWriterCount());
+        Metrics.putGauge(sink, "questdb_http_connections", "Number of open HTTP connections", context.getDispatcher().getConnectionCount());
+        Metrics.putNativeMemoryGauge(sink);
+        final ParallelQueryAdmission admission = engine.getParallelQueryAdmission();
+        Metrics.putGauge(sink, "questdb_parallel_queries", "Number of queries running on worker pool", admission.getActiveCount());
+        Metrics.putCounter(sink, "questdb_parallel_queries_throttled_total", "Number of queries over parallel query limit that ran on own thread", admission.getThrottledCount());
+
+        final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        socket.status(200, CONTENT_TYPE);
+        socket.sendHeader();
+        doResumeSend(state, context);
+    }
+
+    @Override
+    public void resumeSend(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final MetricsProcessorState state = LV.get(context);
+        if (state != null) {
+            doResumeSend(state, context);
+        }
+    }
+
+    private static void doResumeSend(
+            MetricsProcessorState state,
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        final StringSink sink = state.sink;
+        final int len = sink.length();
+        while (state.position < len) {
+            final int lineEnd = Chars.indexOf(sink, state.position, '\n') + 1;
+            try {
+                socket.bookmark();
+                socket.put(sink, state.position, lineEnd);
+                state.position = lineEnd;
+            } catch (NoSpaceLeftInResponseBufferException ignored) {
+                if (socket.resetToBookmark()) {
+                    socket.sendChunk();
+                } else {
+                    // line is larger than response buffer
+                    throw PeerDisconnectedException.INSTANCE;
+                }
+            }
+        }
+
+        if (!state.bodySent) {
+            state.bodySent = true;
+            socket.sendChunk();
+        }
+        socket.done();
+        context.clear();
+        context.getDispatcher().registerChannel(context, IOOperation.READ);
+    }
+}
@@ -40,6 +40,7 @@ import io.questdb.cutlass.http.LocalValue;
 import io.questdb.cutlass.text.TextUtil;
 import io.questdb.cutlass.text.Utf8Exception;
 import io.questdb.griffin.CompiledQuery;
+import io.questdb.griffin.QueryRegistry;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContextImpl;
@@ -56,6 +57,7 @@ import io.questdb.std.Numbers;
 import io.questdb.std.NumericException;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.Utf8Sequence;
 import io.questdb.std.time.MillisecondClock;
 
 public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
@@ -71,6 +73,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     private final SqlExecutionContextImpl sqlExecutionContext;
     private final MillisecondClock clock;
     private final int doubleScale;
+    private final QueryRegistry queryRegistry;
 
     public TextQueryProcessor(
             JsonQueryProcessorConfiguration configuration,
@@ -84,6 +87,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         this.clock = configuration.getClock();
         this.sqlExecutionContext = new SqlExecutionContextImpl(messageBus, workerCount, engine);
         this.doubleScale = configuration.getDoubleScale();
+        this.queryRegistry = engine.getQueryRegistry();
     }
 
     @Override
@@ -98,7 +102,13 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         try {
             state.recordCursorFactory = QueryCache.getInstance().poll(state.query);
             state.setQueryCacheable(true);
-            sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), context.getSqlExecutionInterruptor());
+            sqlExecutionContext.with(
+                    context.getCairoSecurityContext(),
+                    null,
+                    null,
+                    context.getFd(),
+                    state.interruptor.start(state.query, context.getSqlExecutionInterruptor())
+            );
             if (state.recordCursorFactory == null) {
                 final CompiledQuery cc = compiler.compile(state.query, sqlExecutionContext);
                 if (cc.getType() == CompiledQuery.SELECT) {
@@ -153,7 +163,8 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         if (state == null) {
             LV.set(context, state = new TextQueryProcessorState(
                             context,
-                            configuration.getConnectionCheckFrequency()
+                            configuration.getConnectionCheckFrequency(),
+                            queryRegistry.newInterruptor()
                     )
             );
         }
@@ -178,7 +189,8 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
 
         // copy random during query resume
-        sqlExecutionContext.with(context.getCairoSecurityContext(), null, state.rnd, context.getFd(), context.getSqlExecutionInterruptor());
+        state.interruptor.with(context.getSqlExecutionInterruptor());
+        sqlExecutionContext.with(context.getCairoSecurityContext(), null, state.rnd, context.getFd(), state.interruptor);
         LOG.debug().$("resume [fd=").$(context.getFd()).$(']').$();
 
         final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
@@ -272,6 +284,13 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                     info(state).$("Response buffer is too small, state=").$(state.queryState).$();
                     throw PeerDisconnectedException.INSTANCE;
                 }
+            } catch (CairoException e) {
+                if (e.isInterruption()) {
+                    // part of response is already sent, client can only learn about it from disconnect
+                    info(state).$("query cancelled [q=`").utf8(state.query).$("`, reason=`").$(e.getFlyweightMessage()).$("`]").$();
+                    throw PeerDisconnectedException.INSTANCE;
+                }
+                throw e;
             }
         }
         // reached the end naturally?
@@ -292,6 +311,21 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
     }
 
+    private static void putVarcharOrNull(CharSink r, Utf8Sequence value) {
+        if (value != null) {
+            r.put('"');
+            for (int i = 0, n = value.length(); i < n; i++) {
+                final byte b = value.byteAt(i);
+                if (b < 0) {
+                    r.put((char) (b & 0xff));
+                } else {
+                    r.putUtf8((char) b);
+                }
+            }
+            r.put('"');
+        }
+    }
+
     private LogRecord error(TextQueryProcessorState state) {
         return LOG.error().$('[').$(state.getFd()).$("] ");
     }
@@ -436,6 +470,9 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             case ColumnType.STRING:
                 putStringOrNull(socket, rec.getStr(col));
                 break;
+            case ColumnType.VARCHAR:
+                putVarcharOrNull(socket, rec.getVarcharA(col));
+                break;
             case ColumnType.SYMBOL:
                 putStringOrNull(socket, rec.getSym(col));
                 break;
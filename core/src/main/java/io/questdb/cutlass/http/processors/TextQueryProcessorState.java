@@ -29,6 +29,7 @@ import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.griffin.CancellableSqlExecutionInterruptor;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
 import io.questdb.std.Rnd;
@@ -38,6 +39,7 @@ import java.io.Closeable;
 
 public class TextQueryProcessorState implements Mutable, Closeable {
     final StringSink query = new StringSink();
+    final CancellableSqlExecutionInterruptor interruptor;
     private final HttpConnectionContext httpConnectionContext;
     boolean countRows = false;
     boolean noMeta = false;
@@ -55,9 +57,11 @@ public class TextQueryProcessorState implements Mutable, Closeable {
 
     public TextQueryProcessorState(
             HttpConnectionContext httpConnectionContext,
-            int connectionCheckFrequency
+            int connectionCheckFrequency,
+            CancellableSqlExecutionInterruptor interruptor
     ) {
         this.httpConnectionContext = httpConnectionContext;
+        this.interruptor = interruptor;
     }
 
     void setQueryCacheable(boolean queryCacheable) {
@@ -82,6 +86,7 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         queryState = JsonQueryProcessorState.QUERY_PREFIX;
         columnIndex = 0;
         countRows = false;
+        interruptor.finish();
     }
 
     public long getFd() {
@@ -92,5 +97,6 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     public void close() {
         cursor = Misc.free(cursor);
         recordCursorFactory = Misc.free(recordCursorFactory);
+        interruptor.finish();
     }
 }
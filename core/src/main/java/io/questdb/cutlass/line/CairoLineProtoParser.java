@@ -28,6 +28,7 @@ import io.questdb.cairo.*;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Metrics;
 import io.questdb.std.*;
 import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.str.Path;
@@ -39,6 +40,7 @@ import static io.questdb.cairo.TableUtils.TABLE_EXISTS;
 
 public class CairoLineProtoParser implements LineProtoParser, Closeable {
     private final static Log LOG = LogFactory.getLog(CairoLineProtoParser.class);
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
     private static final LineEndParser NOOP_LINE_END = cache -> {
     };
     private static final FieldValueParser NOOP_FIELD_VALUE = (value, cache) -> {
@@ -51,13 +53,13 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
         writers.extendAndSet(ColumnType.LONG, CairoLineProtoParser::putLong);
         writers.extendAndSet(ColumnType.BOOLEAN, CairoLineProtoParser::putBoolean);
         writers.extendAndSet(ColumnType.STRING, CairoLineProtoParser::putStr);
+        writers.extendAndSet(ColumnType.VARCHAR, CairoLineProtoParser::putVarchar);
         writers.extendAndSet(ColumnType.SYMBOL, CairoLineProtoParser::putSymbol);
         writers.extendAndSet(ColumnType.DOUBLE, CairoLineProtoParser::putDouble);
     }
 
     private final CairoEngine engine;
     private final CharSequenceObjHashMap<CacheEntry> writerCache = new CharSequenceObjHashMap<>();
-    private final CharSequenceObjHashMap<TableWriter> commitList = new CharSequenceObjHashMap<>();
     private final Path path = new Path();
     private final CairoConfiguration configuration;
     private final LongList columnNameType = new LongList();
@@ -70,9 +72,18 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
     private final CairoSecurityContext cairoSecurityContext;
     private final LineProtoTimestampAdapter timestampAdapter;
+    private final long commitLag;
+    private final long maxUncommittedRows;
+    private final int commitMode;
+    private final Metrics metrics;
     // state
     // cache entry index is always a negative value
     private int cacheEntryIndex = 0;
+    private int uncommittedTableCount = 0;
+    // earliest commit deadline of uncommitted tables
+    private long nextCommitDeadline = NO_DEADLINE;
+    // time of last commit check, rows parsed since then arrived no earlier than that
+    private long lastCheckTime;
     private TableWriter writer;
     private final LineEndParser MY_LINE_END = this::appendRow;
     private RecordMetadata metadata;
@@ -95,12 +106,46 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
             CairoEngine engine,
             CairoSecurityContext cairoSecurityContext,
             LineProtoTimestampAdapter timestampAdapter
+    ) {
+        this(engine, cairoSecurityContext, timestampAdapter, 0, Long.MAX_VALUE, CommitMode.NOSYNC);
+    }
+
+    /**
+     * Rows are committed per table, when commit lag has passed since table received its first uncommitted
+     * row or when table has accumulated max uncommitted rows, whichever comes first. Lag is checked by
+     * {@link #commitDue(int)}, which the receiver calls after every batch of received messages.
+     *
+     * @param commitLag          max time in microseconds row can stay uncommitted, 0 commits on every check
+     * @param maxUncommittedRows number of uncommitted rows of table that triggers commit on append
+     * @param commitMode         commit mode of commits triggered by row count
+     */
+    public CairoLineProtoParser(
+            CairoEngine engine,
+            CairoSecurityContext cairoSecurityContext,
+            LineProtoTimestampAdapter timestampAdapter,
+            long commitLag,
+            long maxUncommittedRows,
+            int commitMode
     ) {
         this.configuration = engine.getConfiguration();
         this.clock = configuration.getMicrosecondClock();
         this.engine = engine;
         this.cairoSecurityContext = cairoSecurityContext;
         this.timestampAdapter = timestampAdapter;
+        this.commitLag = commitLag;
+        this.maxUncommittedRows = maxUncommittedRows;
+        this.commitMode = commitMode;
+        this.metrics = configuration.getMetrics();
+    }
+
+    // writers are cached for the lifetime of the receiver, partition retention job
+    // would never get hold of them, expired partitions are removed after commit instead
+    private static void commit(TableWriter writer, int commitMode) {
+        writer.commit(commitMode);
+        final int count = writer.removeExpiredPartitions();
+        if (count > 0) {
+            LOG.info().$("removed expired partitions [table=").$(writer.getName()).$(", count=").$(count).$(']').$();
+        }
     }
 
     private static boolean isTrue(CharSequence value) {
@@ -116,6 +161,10 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
         row.putStr(index, value, 1, value.length() - 2);
     }
 
+    private static void putVarchar(TableWriter.Row row, int index, CharSequence value) {
+        row.putVarchar(index, value, 1, value.length() - 2);
+    }
+
     private static void putBoolean(TableWriter.Row row, int index, CharSequence value) {
         row.putBool(index, isTrue(value));
     }
@@ -148,13 +197,44 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     }
 
     public void commitAll(int commitMode) {
-        if (writer != null) {
-            writer.commit(commitMode);
+        for (int i = 0, n = writerCache.size(); i < n && uncommittedTableCount > 0; i++) {
+            final CacheEntry entry = writerCache.valueQuick(i);
+            if (entry.uncommittedRowCount > 0) {
+                commit(entry, commitMode);
+            }
         }
-        for (int i = 0, n = commitList.size(); i < n; i++) {
-            commitList.valueQuick(i).commit(commitMode);
+    }
+
+    /**
+     * Commits tables whose uncommitted rows have reached commit lag.
+     *
+     * @return true when at least one table was committed
+     */
+    public boolean commitDue(int commitMode) {
+        final long now = lastCheckTime = clock.getTicks();
+        if (uncommittedTableCount == 0 || now < nextCommitDeadline) {
+            return false;
         }
-        commitList.clear();
+
+        boolean committed = false;
+        long nextCommitDeadline = NO_DEADLINE;
+        for (int i = 0, n = writerCache.size(); i < n && uncommittedTableCount > 0; i++) {
+            final CacheEntry entry = writerCache.valueQuick(i);
+            if (entry.uncommittedRowCount > 0) {
+                if (entry.commitDeadline <= now) {
+                    commit(entry, commitMode);
+                    committed = true;
+                } else {
+                    nextCommitDeadline = Math.min(nextCommitDeadline, entry.commitDeadline);
+                }
+            }
+        }
+        this.nextCommitDeadline = nextCommitDeadline;
+        return committed;
+    }
+
+    public int getUncommittedTableCount() {
+        return uncommittedTableCount;
     }
 
     @Override
@@ -233,6 +313,7 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
                 );
             }
             row.append();
+            onRowAppended();
         } catch (BadCastException ignore) {
             row.cancel();
         }
@@ -256,11 +337,35 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
                 );
             }
             row.append();
+            onRowAppended();
         } catch (BadCastException ignore) {
             row.cancel();
         }
     }
 
+    private void commit(CacheEntry entry, int commitMode) {
+        commit(entry.writer, commitMode);
+        metrics.lineCommits.inc();
+        entry.uncommittedRowCount = 0;
+        entry.commitDeadline = NO_DEADLINE;
+        uncommittedTableCount--;
+    }
+
+    private void onRowAppended() {
+        metrics.lineRows.inc();
+        final CacheEntry entry = writerCache.valueAtQuick(cacheEntryIndex);
+        if (entry.uncommittedRowCount++ == 0) {
+            uncommittedTableCount++;
+            // lag counts from the first uncommitted row, clock is not read per row, time of last
+            // check stands in for arrival time, which makes commit due no later than lag after arrival
+            entry.commitDeadline = lastCheckTime + commitLag;
+            nextCommitDeadline = Math.min(nextCommitDeadline, entry.commitDeadline);
+        }
+        if (entry.uncommittedRowCount >= maxUncommittedRows) {
+            commit(entry, commitMode);
+        }
+    }
+
     private void clearState() {
         columnNameType.clear();
         columnIndexAndType.clear();
@@ -381,8 +486,8 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     }
 
     private void parseValue(CachedCharSequence value, int valueType, CharSequenceCache cache) {
-        if (columnType == valueType) {
-            columnIndexAndType.add(Numbers.encodeLowHighInts(columnIndex, valueType));
+        if (columnType == valueType || (columnType == ColumnType.VARCHAR && valueType == ColumnType.STRING)) {
+            columnIndexAndType.add(Numbers.encodeLowHighInts(columnIndex, columnType));
             columnValues.add(value.getCacheAddress());
         } else {
             possibleNewColumn(value, valueType, cache);
@@ -479,14 +584,6 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     }
 
     private void switchTable(CachedCharSequence tableName, int entryIndex) {
-        if (this.cacheEntryIndex != 0) {
-            // add previous writer to commit list
-            CacheEntry e = writerCache.valueAtQuick(cacheEntryIndex);
-            if (e.writer != null) {
-                commitList.put(e.writer.getName(), e.writer);
-            }
-        }
-
         CacheEntry entry;
         if (entryIndex < 0) {
             entry = writerCache.valueAtQuick(entryIndex);
@@ -532,6 +629,9 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     private static class CacheEntry {
         private TableWriter writer;
         private int state = 0;
+        private long uncommittedRowCount = 0;
+        // time by which uncommitted rows have to be committed
+        private long commitDeadline = NO_DEADLINE;
     }
 
     private class TableStructureAdapter implements TableStructure {
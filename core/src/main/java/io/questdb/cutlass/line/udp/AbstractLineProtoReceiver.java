@@ -79,7 +79,14 @@ public abstract class AbstractLineProtoReceiver extends SynchronizedJob implemen
             }
 
             lexer = new LineProtoLexer(configuration.getMsgBufferSize());
-            parser = new CairoLineProtoParser(engine, configuration.getCairoSecurityContext(), configuration.getTimestampAdapter());
+            parser = new CairoLineProtoParser(
+                    engine,
+                    configuration.getCairoSecurityContext(),
+                    configuration.getTimestampAdapter(),
+                    configuration.getCommitLag() * 1000L,
+                    configuration.getMaxUncommittedRows(),
+                    commitMode
+            );
             lexer.withParser(parser);
 
             if (!configuration.ownThread()) {
@@ -158,6 +165,8 @@ public abstract class AbstractLineProtoReceiver extends SynchronizedJob implemen
                     .$(configuration.getPort())
                     .$(" [fd=").$(fd)
                     .$(", commitRate=").$(commitRate)
+                    .$(", commitLag=").$(configuration.getCommitLag())
+                    .$(", maxUncommittedRows=").$(configuration.getMaxUncommittedRows())
                     .$(']').$();
         } else {
             LOG.info()
@@ -169,6 +178,8 @@ public abstract class AbstractLineProtoReceiver extends SynchronizedJob implemen
                     .$ip(configuration.getBindIPv4Address())
                     .$(" [fd=").$(fd)
                     .$(", commitRate=").$(commitRate)
+                    .$(", commitLag=").$(configuration.getCommitLag())
+                    .$(", maxUncommittedRows=").$(configuration.getMaxUncommittedRows())
                     .$(']').$();
         }
     }
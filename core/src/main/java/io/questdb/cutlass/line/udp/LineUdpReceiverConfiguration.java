@@ -36,6 +36,16 @@ public interface LineUdpReceiverConfiguration {
 
     int getCommitRate();
 
+    /**
+     * @return max time in milliseconds row can stay uncommitted, 0 commits every time socket is drained
+     */
+    long getCommitLag();
+
+    /**
+     * @return number of uncommitted rows of table that triggers commit of the table
+     */
+    int getMaxUncommittedRows();
+
     int getGroupIPv4Address();
 
     int getMsgBufferSize();
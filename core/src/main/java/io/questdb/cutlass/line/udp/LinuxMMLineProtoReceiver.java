@@ -69,6 +69,9 @@ public class LinuxMMLineProtoReceiver extends AbstractLineProtoReceiver {
             if (totalCount > commitRate) {
                 totalCount = 0;
                 parser.commitAll(commitMode);
+            } else {
+                // socket that is never drained must not hold rows back past commit lag
+                parser.commitDue(commitMode);
             }
 
             if (ran) {
@@ -77,7 +80,7 @@ public class LinuxMMLineProtoReceiver extends AbstractLineProtoReceiver {
 
             ran = true;
         }
-        parser.commitAll(commitMode);
-        return ran;
+        // commits are coalesced, tables are committed when their commit lag is up
+        return parser.commitDue(commitMode) || ran;
     }
 }
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.std.BinarySequence;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.AbstractCharSink;
+import io.questdb.std.str.CharSink;
+
+import java.io.Closeable;
+
+/**
+ * Growable native byte buffer. Characters are written as single bytes, callers
+ * that need UTF-8 should use {@link #encodeUtf8(CharSequence)}.
+ */
+public class ParquetBuffer extends AbstractCharSink implements Closeable {
+    private long ptr;
+    private long capacity;
+    private long lo;
+
+    public ParquetBuffer(long capacity) {
+        this.capacity = capacity;
+        this.ptr = this.lo = Unsafe.malloc(capacity);
+    }
+
+    public void clear() {
+        lo = ptr;
+    }
+
+    @Override
+    public void close() {
+        if (ptr != 0) {
+            Unsafe.free(ptr, capacity);
+            ptr = lo = 0;
+        }
+    }
+
+    public long getAddress() {
+        return ptr;
+    }
+
+    public long length() {
+        return lo - ptr;
+    }
+
+    @Override
+    public CharSink put(char c) {
+        return putByte((byte) c);
+    }
+
+    @Override
+    public CharSink put(char[] chars, int start, int len) {
+        for (int i = start, n = start + len; i < n; i++) {
+            putByte((byte) chars[i]);
+        }
+        return this;
+    }
+
+    public void putBin(BinarySequence value) {
+        final long len = value.length();
+        ensureCapacity(len);
+        value.copyTo(lo, 0, len);
+        lo += len;
+    }
+
+    public void putBuffer(ParquetBuffer that) {
+        putBytes(that.ptr, that.length());
+    }
+
+    public ParquetBuffer putByte(byte b) {
+        ensureCapacity(1);
+        Unsafe.getUnsafe().putByte(lo++, b);
+        return this;
+    }
+
+    public void putBytes(long address, long len) {
+        ensureCapacity(len);
+        Unsafe.getUnsafe().copyMemory(address, lo, len);
+        lo += len;
+    }
+
+    public void putDouble(double value) {
+        ensureCapacity(8);
+        Unsafe.getUnsafe().putDouble(lo, value);
+        lo += 8;
+    }
+
+    public void putFloat(float value) {
+        ensureCapacity(4);
+        Unsafe.getUnsafe().putFloat(lo, value);
+        lo += 4;
+    }
+
+    public void putInt(int value) {
+        ensureCapacity(4);
+        Unsafe.getUnsafe().putInt(lo, value);
+        lo += 4;
+    }
+
+    public void putIntAt(long offset, int value) {
+        Unsafe.getUnsafe().putInt(ptr + offset, value);
+    }
+
+    public void putLong(long value) {
+        ensureCapacity(8);
+        Unsafe.getUnsafe().putLong(lo, value);
+        lo += 8;
+    }
+
+    public void putShort(short value) {
+        ensureCapacity(2);
+        Unsafe.getUnsafe().putShort(lo, value);
+        lo += 2;
+    }
+
+    public void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            putByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        putByte((byte) value);
+    }
+
+    private void ensureCapacity(long len) {
+        if (lo + len > ptr + capacity) {
+            final long size = lo - ptr;
+            final long newCapacity = Math.max(capacity * 2, size + len);
+            ptr = Unsafe.realloc(ptr, capacity, newCapacity);
+            lo = ptr + size;
+            capacity = newCapacity;
+        }
+    }
+}
@@ -0,0 +1,669 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+import static io.questdb.cutlass.parquet.ThriftCompactWriter.*;
+
+/**
+ * Memory maps Parquet file and parses its footer. Column chunks are decoded
+ * on demand via {@link #decodeColumnChunk(int, int, ParquetBuffer)}, so that
+ * columns that are not read are never touched.
+ * <p>
+ * Only flat schemas with PLAIN encoded, uncompressed data pages, of version 1 or 2, are supported.
+ */
+public class ParquetReader implements Closeable {
+    public static final long NULL_ADDRESS = -1;
+
+    // per column chunk meta layout, row group is prefixed by its row count
+    private static final int CHUNK_OFFSET = 0;
+    private static final int CHUNK_SIZE = 1;
+    private static final int CHUNK_NUM_VALUES = 2;
+    private static final int CHUNK_NULL_COUNT = 3;
+    private static final int CHUNK_MIN = 4;
+    private static final int CHUNK_MAX = 5;
+    private static final int CHUNK_HAS_STATS = 6;
+    private static final int CHUNK_META_SIZE = 7;
+
+    private final FilesFacade ff;
+    private final ThriftCompactReader thrift = new ThriftCompactReader();
+    private final GenericRecordMetadata metadata = new GenericRecordMetadata();
+    private final IntList physicalTypes = new IntList();
+    private final IntList typeLengths = new IntList();
+    private final IntList repetitions = new IntList();
+    private final LongList rowGroups = new LongList();
+    private final ParquetBuffer levels = new ParquetBuffer(1024);
+    private final StringSink nameSink = new StringSink();
+    private long fd = -1;
+    private long address;
+    private long size;
+    private int columnCount;
+    private int stride;
+    private long rowCount;
+
+    public ParquetReader(FilesFacade ff) {
+        this.ff = ff;
+    }
+
+    @Override
+    public void close() {
+        closeFile();
+        levels.close();
+    }
+
+    /**
+     * Decodes column chunk into list of row value addresses. Null values are
+     * represented by {@link #NULL_ADDRESS}. Boolean values are addressed by
+     * bit, e.g. address is byte address multiplied by 8 plus bit index.
+     *
+     * @param rowGroupIndex row group
+     * @param columnIndex   column
+     * @param rows          buffer that receives 8-byte address per row
+     */
+    public void decodeColumnChunk(int rowGroupIndex, int columnIndex, ParquetBuffer rows) {
+        final int chunk = getChunk(rowGroupIndex, columnIndex);
+        final long numValues = rowGroups.getQuick(chunk + CHUNK_NUM_VALUES);
+        final boolean optional = repetitions.getQuick(columnIndex) == ParquetUtils.REPETITION_OPTIONAL;
+        final int physicalType = physicalTypes.getQuick(columnIndex);
+        long p = address + rowGroups.getQuick(chunk + CHUNK_OFFSET);
+        final long hi = p + rowGroups.getQuick(chunk + CHUNK_SIZE);
+        checkBounds(p, hi);
+
+        rows.clear();
+        long decoded = 0;
+        while (decoded < numValues) {
+            if (p >= hi) {
+                throw corrupt("column chunk is truncated");
+            }
+            thrift.of(p, hi);
+            thrift.structBegin();
+            int pageType = -1;
+            int compressedSize = -1;
+            int pageValues = -1;
+            int encoding = ParquetUtils.ENCODING_PLAIN;
+            // level lengths of data page v2, its levels are not compressed and not prefixed by length
+            int definitionLevelsLen = 0;
+            int repetitionLevelsLen = 0;
+            int type;
+            while ((type = thrift.nextField()) != TYPE_STOP) {
+                switch (thrift.getFieldId()) {
+                    case 1:
+                        pageType = thrift.readI32();
+                        break;
+                    case 3:
+                        compressedSize = thrift.readI32();
+                        break;
+                    case 5:
+                        thrift.structBegin();
+                        while ((type = thrift.nextField()) != TYPE_STOP) {
+                            switch (thrift.getFieldId()) {
+                                case 1:
+                                    pageValues = thrift.readI32();
+                                    break;
+                                case 2:
+                                    encoding = thrift.readI32();
+                                    break;
+                                default:
+                                    thrift.skip(type);
+                                    break;
+                            }
+                        }
+                        thrift.structEnd();
+                        break;
+                    case 8:
+                        thrift.structBegin();
+                        while ((type = thrift.nextField()) != TYPE_STOP) {
+                            switch (thrift.getFieldId()) {
+                                case 1:
+                                    pageValues = thrift.readI32();
+                                    break;
+                                case 4:
+                                    encoding = thrift.readI32();
+                                    break;
+                                case 5:
+                                    definitionLevelsLen = thrift.readI32();
+                                    break;
+                                case 6:
+                                    repetitionLevelsLen = thrift.readI32();
+                                    break;
+                                default:
+                                    thrift.skip(type);
+                                    break;
+                            }
+                        }
+                        thrift.structEnd();
+                        break;
+                    default:
+                        thrift.skip(type);
+                        break;
+                }
+            }
+            thrift.structEnd();
+
+            final long pageLo = thrift.getPosition();
+            final long pageHi = pageLo + compressedSize;
+            if (compressedSize < 0 || pageHi > hi) {
+                throw corrupt("invalid page size");
+            }
+            if (pageType == ParquetUtils.PAGE_DICTIONARY) {
+                throw unsupported("dictionary encoding");
+            }
+            if (pageType == ParquetUtils.PAGE_INDEX) {
+                p = pageHi;
+                continue;
+            }
+            if (pageType != ParquetUtils.PAGE_DATA && pageType != ParquetUtils.PAGE_DATA_V2) {
+                throw unsupported("page type ").put(pageType);
+            }
+            if (encoding != ParquetUtils.ENCODING_PLAIN) {
+                throw unsupported("encoding ").put(encoding);
+            }
+            if (pageValues < 0) {
+                throw corrupt("missing data page header");
+            }
+
+            long valueLo = pageLo;
+            levels.clear();
+            if (pageType == ParquetUtils.PAGE_DATA_V2) {
+                // repetition levels of flat column are empty, they precede definition levels
+                final long levelsLo = pageLo + repetitionLevelsLen;
+                valueLo = levelsLo + definitionLevelsLen;
+                if (repetitionLevelsLen < 0 || definitionLevelsLen < 0 || valueLo > pageHi) {
+                    throw corrupt("invalid definition levels");
+                }
+                if (optional) {
+                    decodeLevels(levelsLo, valueLo, pageValues);
+                }
+            } else if (optional) {
+                final int len = Unsafe.getUnsafe().getInt(pageLo);
+                valueLo = pageLo + 4 + len;
+                if (len < 0 || valueLo > pageHi) {
+                    throw corrupt("invalid definition levels");
+                }
+                decodeLevels(pageLo + 4, valueLo, pageValues);
+            }
+
+            long valueAddress = valueLo;
+            long bit = 0;
+            for (int i = 0; i < pageValues; i++) {
+                if (optional && Unsafe.getUnsafe().getByte(levels.getAddress() + i) == 0) {
+                    rows.putLong(NULL_ADDRESS);
+                    continue;
+                }
+                switch (physicalType) {
+                    case ParquetUtils.TYPE_BOOLEAN:
+                        rows.putLong(valueLo * 8 + bit++);
+                        break;
+                    case ParquetUtils.TYPE_BYTE_ARRAY:
+                        if (valueAddress + 4 > pageHi) {
+                            throw corrupt("value is out of page bounds");
+                        }
+                        rows.putLong(valueAddress);
+                        valueAddress += 4 + Unsafe.getUnsafe().getInt(valueAddress);
+                        break;
+                    default:
+                        rows.putLong(valueAddress);
+                        valueAddress += valueSize(columnIndex);
+                        break;
+                }
+                if (valueAddress > pageHi) {
+                    throw corrupt("value is out of page bounds");
+                }
+            }
+            decoded += pageValues;
+            p = pageHi;
+        }
+    }
+
+    public long getMax(int rowGroupIndex, int columnIndex) {
+        return rowGroups.getQuick(getChunk(rowGroupIndex, columnIndex) + CHUNK_MAX);
+    }
+
+    public GenericRecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    public long getMin(int rowGroupIndex, int columnIndex) {
+        return rowGroups.getQuick(getChunk(rowGroupIndex, columnIndex) + CHUNK_MIN);
+    }
+
+    /**
+     * @return null count of column chunk or -1 when it is unknown
+     */
+    public long getNullCount(int rowGroupIndex, int columnIndex) {
+        return rowGroups.getQuick(getChunk(rowGroupIndex, columnIndex) + CHUNK_NULL_COUNT);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getRowGroupCount() {
+        return stride == 0 ? 0 : rowGroups.size() / stride;
+    }
+
+    public long getRowGroupRowCount(int rowGroupIndex) {
+        return rowGroups.getQuick(rowGroupIndex * stride);
+    }
+
+    public boolean hasStats(int rowGroupIndex, int columnIndex) {
+        return rowGroups.getQuick(getChunk(rowGroupIndex, columnIndex) + CHUNK_HAS_STATS) == 1;
+    }
+
+    public ParquetReader of(LPSZ path) {
+        closeFile();
+        fd = ff.openRO(path);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("could not open parquet file [path=").put(path).put(']');
+        }
+        try {
+            size = ff.length(fd);
+            if (size < 12) {
+                throw corrupt("file is too small");
+            }
+            address = ff.mmap(fd, size, 0, Files.MAP_RO);
+            if (address == -1) {
+                address = 0;
+                throw CairoException.instance(ff.errno()).put("could not mmap parquet file [path=").put(path).put(']');
+            }
+            if (Unsafe.getUnsafe().getInt(address) != ParquetUtils.MAGIC || Unsafe.getUnsafe().getInt(address + size - 4) != ParquetUtils.MAGIC) {
+                throw corrupt("not a parquet file");
+            }
+            final int footerLen = Unsafe.getUnsafe().getInt(address + size - 8);
+            final long footerLo = address + size - 8 - footerLen;
+            if (footerLen < 0 || footerLo < address + 4) {
+                throw corrupt("invalid footer length");
+            }
+            parseFileMetadata(footerLo, address + size - 8);
+        } catch (CairoException e) {
+            closeFile();
+            throw e;
+        }
+        return this;
+    }
+
+    private static CairoException corrupt(CharSequence message) {
+        return CairoException.instance(0).put("corrupt parquet file [").put(message).put(']');
+    }
+
+    private static CairoException unsupported(CharSequence message) {
+        return CairoException.instance(0).put("unsupported parquet feature: ").put(message);
+    }
+
+    private void checkBounds(long lo, long hi) {
+        if (lo < address || hi > address + size || lo > hi) {
+            throw corrupt("column chunk is out of file bounds");
+        }
+    }
+
+    private void decodeLevels(long lo, long hi, int count) {
+        // RLE/bit-packed hybrid with bit width of 1
+        long p = lo;
+        int n = 0;
+        while (n < count) {
+            long header = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (p >= hi) {
+                    throw corrupt("definition levels are truncated");
+                }
+                b = Unsafe.getUnsafe().getByte(p++);
+                header |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            if ((header & 1) == 0) {
+                if (p >= hi) {
+                    throw corrupt("definition levels are truncated");
+                }
+                final byte level = Unsafe.getUnsafe().getByte(p++);
+                for (long i = 0, run = header >>> 1; i < run && n < count; i++, n++) {
+                    levels.putByte(level);
+                }
+            } else {
+                for (long g = 0, groups = header >>> 1; g < groups; g++) {
+                    if (p >= hi) {
+                        throw corrupt("definition levels are truncated");
+                    }
+                    final byte bits = Unsafe.getUnsafe().getByte(p++);
+                    for (int i = 0; i < 8 && n < count; i++, n++) {
+                        levels.putByte((byte) ((bits >>> i) & 1));
+                    }
+                }
+            }
+        }
+    }
+
+    private void closeFile() {
+        if (address != 0) {
+            ff.munmap(address, size);
+            address = 0;
+        }
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+    }
+
+    private int getChunk(int rowGroupIndex, int columnIndex) {
+        return rowGroupIndex * stride + 1 + columnIndex * CHUNK_META_SIZE;
+    }
+
+    private void parseColumnChunk(int rowGroupIndex, int columnIndex) {
+        final int chunk = getChunk(rowGroupIndex, columnIndex);
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.nextField()) != TYPE_STOP) {
+            if (thrift.getFieldId() == 1) {
+                throw unsupported("external column chunks");
+            }
+            if (thrift.getFieldId() != 3) {
+                thrift.skip(type);
+                continue;
+            }
+            long dictionaryOffset = -1;
+            thrift.structBegin();
+            while ((type = thrift.nextField()) != TYPE_STOP) {
+                switch (thrift.getFieldId()) {
+                    case 4:
+                        final int codec = thrift.readI32();
+                        if (codec != ParquetUtils.CODEC_UNCOMPRESSED) {
+                            throw unsupported("compression codec ").put(codec);
+                        }
+                        break;
+                    case 5:
+                        rowGroups.setQuick(chunk + CHUNK_NUM_VALUES, thrift.readI64());
+                        break;
+                    case 7:
+                        rowGroups.setQuick(chunk + CHUNK_SIZE, thrift.readI64());
+                        break;
+                    case 9:
+                        rowGroups.setQuick(chunk + CHUNK_OFFSET, thrift.readI64());
+                        break;
+                    case 11:
+                        dictionaryOffset = thrift.readI64();
+                        break;
+                    case 12:
+                        parseStatistics(chunk, columnIndex);
+                        break;
+                    default:
+                        thrift.skip(type);
+                        break;
+                }
+            }
+            thrift.structEnd();
+            if (dictionaryOffset > 0 && dictionaryOffset < rowGroups.getQuick(chunk + CHUNK_OFFSET)) {
+                rowGroups.setQuick(chunk + CHUNK_OFFSET, dictionaryOffset);
+            }
+        }
+        thrift.structEnd();
+    }
+
+    private void parseFileMetadata(long lo, long hi) {
+        metadata.clear();
+        physicalTypes.clear();
+        typeLengths.clear();
+        repetitions.clear();
+        rowGroups.clear();
+        columnCount = 0;
+        stride = 0;
+        rowCount = 0;
+        int timestampIndex = -1;
+
+        thrift.of(lo, hi);
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.nextField()) != TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 2:
+                    parseSchema();
+                    break;
+                case 3:
+                    rowCount = thrift.readI64();
+                    break;
+                case 4:
+                    if (stride == 0) {
+                        throw corrupt("row groups precede schema");
+                    }
+                    for (int g = 0, n = thrift.readListHeader(); g < n; g++) {
+                        parseRowGroup(g);
+                    }
+                    break;
+                case 5:
+                    for (int i = 0, n = thrift.readListHeader(); i < n; i++) {
+                        final int index = parseKeyValue();
+                        if (index != -1) {
+                            timestampIndex = index;
+                        }
+                    }
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+        thrift.structEnd();
+        if (timestampIndex != -1) {
+            metadata.setTimestampIndex(timestampIndex);
+        }
+    }
+
+    private int parseKeyValue() {
+        boolean timestampKey = false;
+        int index = -1;
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.nextField()) != TYPE_STOP) {
+            if (thrift.getFieldId() == 1 && type == TYPE_BINARY) {
+                readString();
+                timestampKey = Chars.equals(nameSink, ParquetUtils.TIMESTAMP_KEY);
+            } else if (thrift.getFieldId() == 2 && type == TYPE_BINARY && timestampKey) {
+                readString();
+                index = metadata.getColumnIndexQuiet(nameSink);
+                if (index != -1 && metadata.getColumnType(index) != ColumnType.TIMESTAMP) {
+                    index = -1;
+                }
+            } else {
+                thrift.skip(type);
+            }
+        }
+        thrift.structEnd();
+        return index;
+    }
+
+    private void parseRowGroup(int rowGroupIndex) {
+        final int base = rowGroups.size();
+        rowGroups.setPos(base + stride);
+        for (int i = base; i < base + stride; i++) {
+            rowGroups.setQuick(i, 0);
+        }
+        for (int c = 0; c < columnCount; c++) {
+            rowGroups.setQuick(getChunk(rowGroupIndex, c) + CHUNK_NULL_COUNT, -1);
+        }
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.nextField()) != TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 1:
+                    final int n = thrift.readListHeader();
+                    if (n != columnCount) {
+                        throw corrupt("column chunk count does not match schema");
+                    }
+                    for (int c = 0; c < n; c++) {
+                        parseColumnChunk(rowGroupIndex, c);
+                    }
+                    break;
+                case 3:
+                    rowGroups.setQuick(base, thrift.readI64());
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+        thrift.structEnd();
+    }
+
+    private void parseSchema() {
+        final int n = thrift.readListHeader();
+        for (int i = 0; i < n; i++) {
+            int physicalType = -1;
+            int typeLength = 0;
+            int repetition = ParquetUtils.REPETITION_REQUIRED;
+            int numChildren = 0;
+            int convertedType = ParquetUtils.CONVERTED_NONE;
+            nameSink.clear();
+            thrift.structBegin();
+            int type;
+            while ((type = thrift.nextField()) != TYPE_STOP) {
+                switch (thrift.getFieldId()) {
+                    case 1:
+                        physicalType = thrift.readI32();
+                        break;
+                    case 2:
+                        typeLength = thrift.readI32();
+                        break;
+                    case 3:
+                        repetition = thrift.readI32();
+                        break;
+                    case 4:
+                        readString();
+                        break;
+                    case 5:
+                        numChildren = thrift.readI32();
+                        break;
+                    case 6:
+                        convertedType = thrift.readI32();
+                        break;
+                    default:
+                        thrift.skip(type);
+                        break;
+                }
+            }
+            thrift.structEnd();
+
+            if (i == 0) {
+                // root
+                if (numChildren != n - 1) {
+                    throw unsupported("nested schema");
+                }
+                continue;
+            }
+            if (numChildren > 0 || physicalType == -1) {
+                throw unsupported("nested schema");
+            }
+            if (repetition != ParquetUtils.REPETITION_REQUIRED && repetition != ParquetUtils.REPETITION_OPTIONAL) {
+                throw unsupported("repeated column");
+            }
+            final int columnType = ParquetUtils.toColumnType(physicalType, convertedType, typeLength);
+            final String name = nameSink.toString();
+            if (metadata.getColumnIndexQuiet(name) != -1) {
+                throw corrupt("duplicate column name");
+            }
+            metadata.add(new TableColumnMetadata(name, columnType));
+            physicalTypes.add(physicalType);
+            typeLengths.add(typeLength);
+            repetitions.add(repetition);
+        }
+        columnCount = metadata.getColumnCount();
+        stride = 1 + columnCount * CHUNK_META_SIZE;
+    }
+
+    private void parseStatistics(int chunk, int columnIndex) {
+        final boolean integral = ParquetUtils.isIntegral(metadata.getColumnType(columnIndex));
+        final int physicalType = physicalTypes.getQuick(columnIndex);
+        int found = 0;
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.nextField()) != TYPE_STOP) {
+            final int id = thrift.getFieldId();
+            if (id == 3) {
+                rowGroups.setQuick(chunk + CHUNK_NULL_COUNT, thrift.readI64());
+            } else if (integral && type == TYPE_BINARY && (id == 5 || id == 6 || id == 1 || id == 2)) {
+                // 5 and 6 are max_value/min_value, 1 and 2 are their deprecated counterparts
+                final int len = thrift.readBinary();
+                final long value;
+                if (physicalType == ParquetUtils.TYPE_INT32 && len == 4) {
+                    value = Unsafe.getUnsafe().getInt(thrift.getBinaryAddress());
+                } else if (physicalType == ParquetUtils.TYPE_INT64 && len == 8) {
+                    value = Unsafe.getUnsafe().getLong(thrift.getBinaryAddress());
+                } else {
+                    continue;
+                }
+                if (id == 5 || id == 1) {
+                    if ((found & 1) == 0 || id == 5) {
+                        rowGroups.setQuick(chunk + CHUNK_MAX, value);
+                    }
+                    found |= 1;
+                } else {
+                    if ((found & 2) == 0 || id == 6) {
+                        rowGroups.setQuick(chunk + CHUNK_MIN, value);
+                    }
+                    found |= 2;
+                }
+            } else {
+                thrift.skip(type);
+            }
+        }
+        thrift.structEnd();
+        if (found == 3) {
+            rowGroups.setQuick(chunk + CHUNK_HAS_STATS, 1);
+        }
+    }
+
+    private void readString() {
+        final int len = thrift.readBinary();
+        nameSink.clear();
+        final long lo = thrift.getBinaryAddress();
+        if (!Chars.utf8Decode(lo, lo + len, nameSink)) {
+            throw corrupt("invalid UTF-8");
+        }
+    }
+
+    private int valueSize(int columnIndex) {
+        switch (physicalTypes.getQuick(columnIndex)) {
+            case ParquetUtils.TYPE_INT32:
+            case ParquetUtils.TYPE_FLOAT:
+                return 4;
+            case ParquetUtils.TYPE_INT96:
+                return 12;
+            case ParquetUtils.TYPE_FIXED_LEN_BYTE_ARRAY:
+                return typeLengths.getQuick(columnIndex);
+            default:
+                return 8;
+        }
+    }
+}
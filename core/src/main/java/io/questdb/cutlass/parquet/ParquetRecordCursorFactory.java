@@ -0,0 +1,405 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Reads Parquet file as a table. Columns are decoded lazily, one row group at a
+ * time, so that queries pay only for columns they access. Row groups can be
+ * skipped entirely using min/max statistics, see {@link #addRowGroupFilter(int, long, long, boolean)}.
+ */
+public class ParquetRecordCursorFactory implements RecordCursorFactory {
+    private final ParquetReader reader;
+    private final ParquetRecordCursor cursor;
+    private final IntList filterColumns = new IntList();
+    private final LongList filterBounds = new LongList();
+
+    public ParquetRecordCursorFactory(CairoConfiguration configuration, LPSZ path) {
+        this.reader = new ParquetReader(configuration.getFilesFacade());
+        try {
+            reader.of(path);
+        } catch (Throwable e) {
+            reader.close();
+            throw e;
+        }
+        this.cursor = new ParquetRecordCursor();
+    }
+
+    /**
+     * Narrows down row groups cursor visits to those that can contain column values in
+     * [lo, hi] range. Filter only applies to integral and timestamp columns.
+     *
+     * @param columnIndex index of column
+     * @param lo          inclusive lower bound
+     * @param hi          inclusive upper bound
+     * @param nullsMatch  true when predicate is satisfied by null values, row groups with nulls are then kept
+     */
+    public void addRowGroupFilter(int columnIndex, long lo, long hi, boolean nullsMatch) {
+        if (ParquetUtils.isIntegral(reader.getMetadata().getColumnType(columnIndex))) {
+            filterColumns.add(columnIndex);
+            filterBounds.add(lo);
+            filterBounds.add(hi);
+            filterBounds.add(nullsMatch ? 1 : 0);
+        }
+    }
+
+    @Override
+    public void close() {
+        cursor.free();
+        reader.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        cursor.toTop();
+        return cursor;
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return reader.getMetadata();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    boolean isRowGroupSkipped(int rowGroupIndex) {
+        for (int i = 0, n = filterColumns.size(); i < n; i++) {
+            final int columnIndex = filterColumns.getQuick(i);
+            if (!reader.hasStats(rowGroupIndex, columnIndex)) {
+                continue;
+            }
+            final long lo = filterBounds.getQuick(i * 3);
+            final long hi = filterBounds.getQuick(i * 3 + 1);
+            final boolean nullsMatch = filterBounds.getQuick(i * 3 + 2) == 1;
+            if (nullsMatch && reader.getNullCount(rowGroupIndex, columnIndex) != 0) {
+                continue;
+            }
+            if (reader.getMax(rowGroupIndex, columnIndex) < lo || reader.getMin(rowGroupIndex, columnIndex) > hi) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Parquet scan");
+    }
+
+    private static class DirectBinarySequence implements BinarySequence {
+        private long address;
+        private long len;
+
+        @Override
+        public byte byteAt(long index) {
+            return Unsafe.getUnsafe().getByte(address + index);
+        }
+
+        @Override
+        public void copyTo(long address, long start, long length) {
+            Unsafe.getUnsafe().copyMemory(this.address + start, address, Math.min(length, len - start));
+        }
+
+        @Override
+        public long length() {
+            return len;
+        }
+
+        DirectBinarySequence of(long address, long len) {
+            this.address = address;
+            this.len = len;
+            return this;
+        }
+    }
+
+    private class ParquetRecordCursor implements RecordCursor {
+        private final ParquetRecord recordA = new ParquetRecord();
+        private final ParquetRecord recordB = new ParquetRecord();
+        private int rowGroupIndex;
+        private long rowCount;
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (++recordA.row < rowCount) {
+                return true;
+            }
+            final int rowGroupCount = reader.getRowGroupCount();
+            while (++rowGroupIndex < rowGroupCount) {
+                if (!isRowGroupSkipped(rowGroupIndex)) {
+                    rowCount = reader.getRowGroupRowCount(rowGroupIndex);
+                    if (rowCount > 0) {
+                        recordA.of(rowGroupIndex, 0);
+                        return true;
+                    }
+                }
+            }
+            rowCount = 0;
+            return false;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordB;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((ParquetRecord) record).of(Rows.toPartitionIndex(atRowId), Rows.toLocalRowID(atRowId));
+        }
+
+        @Override
+        public void toTop() {
+            rowGroupIndex = -1;
+            rowCount = 0;
+            recordA.row = -1;
+        }
+
+        @Override
+        public long size() {
+            return filterColumns.size() == 0 ? reader.getRowCount() : -1;
+        }
+
+        private void free() {
+            recordA.free();
+            recordB.free();
+        }
+
+        /**
+         * Record decodes column chunks of its own, positioning one record does not invalidate values
+         * returned by the other.
+         */
+        private class ParquetRecord implements Record {
+            private final ObjList<ParquetBuffer> columnRows = new ObjList<>();
+            private final IntList decodedRowGroups = new IntList();
+            private final ObjList<StringSink> strA = new ObjList<>();
+            private final ObjList<StringSink> strB = new ObjList<>();
+            private final ObjList<DirectBinarySequence> bins = new ObjList<>();
+            private final Long256Impl long256A = new Long256Impl();
+            private final Long256Impl long256B = new Long256Impl();
+            private int rowGroupIndex;
+            private long row;
+
+            @Override
+            public BinarySequence getBin(int col) {
+                final long address = address(col);
+                if (address == ParquetReader.NULL_ADDRESS) {
+                    return null;
+                }
+                DirectBinarySequence bin = bins.getQuiet(col);
+                if (bin == null) {
+                    bins.extendAndSet(col, bin = new DirectBinarySequence());
+                }
+                return bin.of(address + 4, Unsafe.getUnsafe().getInt(address));
+            }
+
+            @Override
+            public long getBinLen(int col) {
+                final long address = address(col);
+                return address == ParquetReader.NULL_ADDRESS ? -1 : Unsafe.getUnsafe().getInt(address);
+            }
+
+            @Override
+            public boolean getBool(int col) {
+                final long address = address(col);
+                return address != ParquetReader.NULL_ADDRESS && ((Unsafe.getUnsafe().getByte(address >>> 3) >>> (address & 7)) & 1) == 1;
+            }
+
+            @Override
+            public byte getByte(int col) {
+                final long address = address(col);
+                return address == ParquetReader.NULL_ADDRESS ? 0 : (byte) Unsafe.getUnsafe().getInt(address);
+            }
+
+            @Override
+            public char getChar(int col) {
+                final long address = address(col);
+                return address == ParquetReader.NULL_ADDRESS ? 0 : (char) Unsafe.getUnsafe().getInt(address);
+            }
+
+            @Override
+            public long getDate(int col) {
+                return getLong(col);
+            }
+
+            @Override
+            public double getDouble(int col) {
+                final long address = address(col);
+                return address == ParquetReader.NULL_ADDRESS ? Double.NaN : Unsafe.getUnsafe().getDouble(address);
+            }
+
+            @Override
+            public float getFloat(int col) {
+                final long address = address(col);
+                return address == ParquetReader.NULL_ADDRESS ? Float.NaN : Unsafe.getUnsafe().getFloat(address);
+            }
+
+            @Override
+            public int getInt(int col) {
+                final long address = address(col);
+                return address == ParquetReader.NULL_ADDRESS ? Numbers.INT_NaN : Unsafe.getUnsafe().getInt(address);
+            }
+
+            @Override
+            public long getLong(int col) {
+                final long address = address(col);
+                return address == ParquetReader.NULL_ADDRESS ? Numbers.LONG_NaN : Unsafe.getUnsafe().getLong(address);
+            }
+
+            @Override
+            public void getLong256(int col, CharSink sink) {
+                final long address = address(col);
+                if (address == ParquetReader.NULL_ADDRESS) {
+                    return;
+                }
+                Numbers.appendLong256(
+                        Unsafe.getUnsafe().getLong(address),
+                        Unsafe.getUnsafe().getLong(address + 8),
+                        Unsafe.getUnsafe().getLong(address + 16),
+                        Unsafe.getUnsafe().getLong(address + 24),
+                        sink
+                );
+            }
+
+            @Override
+            public Long256 getLong256A(int col) {
+                return long256(col, long256A);
+            }
+
+            @Override
+            public Long256 getLong256B(int col) {
+                return long256(col, long256B);
+            }
+
+            @Override
+            public long getRowId() {
+                return Rows.toRowID(rowGroupIndex, row);
+            }
+
+            @Override
+            public short getShort(int col) {
+                final long address = address(col);
+                return address == ParquetReader.NULL_ADDRESS ? 0 : (short) Unsafe.getUnsafe().getInt(address);
+            }
+
+            @Override
+            public CharSequence getStr(int col) {
+                return str(col, strA);
+            }
+
+            @Override
+            public CharSequence getStrB(int col) {
+                return str(col, strB);
+            }
+
+            @Override
+            public int getStrLen(int col) {
+                final CharSequence cs = getStr(col);
+                return cs == null ? -1 : cs.length();
+            }
+
+            @Override
+            public long getTimestamp(int col) {
+                return getLong(col);
+            }
+
+            private long address(int col) {
+                ParquetBuffer rows = columnRows.getQuiet(col);
+                if (rows == null) {
+                    columnRows.extendAndSet(col, rows = new ParquetBuffer(1024));
+                    decodedRowGroups.extendAndSet(col, -1);
+                }
+                if (decodedRowGroups.getQuick(col) != rowGroupIndex) {
+                    // chunk is marked undecoded first, decode can fail half way
+                    decodedRowGroups.setQuick(col, -1);
+                    reader.decodeColumnChunk(rowGroupIndex, col, rows);
+                    decodedRowGroups.setQuick(col, rowGroupIndex);
+                }
+                return Unsafe.getUnsafe().getLong(rows.getAddress() + row * Long.BYTES);
+            }
+
+            private void free() {
+                Misc.freeObjList(columnRows);
+                columnRows.clear();
+                decodedRowGroups.clear();
+            }
+
+            private Long256 long256(int col, Long256Impl long256) {
+                final long address = address(col);
+                if (address == ParquetReader.NULL_ADDRESS) {
+                    return Long256Impl.NULL_LONG256;
+                }
+                long256.setLong0(Unsafe.getUnsafe().getLong(address));
+                long256.setLong1(Unsafe.getUnsafe().getLong(address + 8));
+                long256.setLong2(Unsafe.getUnsafe().getLong(address + 16));
+                long256.setLong3(Unsafe.getUnsafe().getLong(address + 24));
+                return long256;
+            }
+
+            private void of(int rowGroupIndex, long row) {
+                this.rowGroupIndex = rowGroupIndex;
+                this.row = row;
+            }
+
+            private CharSequence str(int col, ObjList<StringSink> sinks) {
+                final long address = address(col);
+                if (address == ParquetReader.NULL_ADDRESS) {
+                    return null;
+                }
+                StringSink sink = sinks.getQuiet(col);
+                if (sink == null) {
+                    sinks.extendAndSet(col, sink = new StringSink());
+                }
+                sink.clear();
+                final long lo = address + 4;
+                Chars.utf8Decode(lo, lo + Unsafe.getUnsafe().getInt(address), sink);
+                return sink;
+            }
+        }
+    }
+}
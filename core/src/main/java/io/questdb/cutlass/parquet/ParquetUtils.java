@@ -0,0 +1,184 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+
+public final class ParquetUtils {
+    public static final int MAGIC = 0x31524150; // "PAR1" in little endian
+    public static final int FORMAT_VERSION = 1;
+    public static final String CREATED_BY = "QuestDB";
+    public static final String TIMESTAMP_KEY = "questdb.timestamp";
+
+    // physical types
+    public static final int TYPE_BOOLEAN = 0;
+    public static final int TYPE_INT32 = 1;
+    public static final int TYPE_INT64 = 2;
+    public static final int TYPE_INT96 = 3;
+    public static final int TYPE_FLOAT = 4;
+    public static final int TYPE_DOUBLE = 5;
+    public static final int TYPE_BYTE_ARRAY = 6;
+    public static final int TYPE_FIXED_LEN_BYTE_ARRAY = 7;
+
+    // converted (logical) types
+    public static final int CONVERTED_NONE = -1;
+    public static final int CONVERTED_UTF8 = 0;
+    public static final int CONVERTED_TIMESTAMP_MILLIS = 9;
+    public static final int CONVERTED_TIMESTAMP_MICROS = 10;
+    public static final int CONVERTED_UINT_16 = 12;
+    public static final int CONVERTED_INT_8 = 15;
+    public static final int CONVERTED_INT_16 = 16;
+
+    public static final int REPETITION_REQUIRED = 0;
+    public static final int REPETITION_OPTIONAL = 1;
+
+    public static final int ENCODING_PLAIN = 0;
+    public static final int ENCODING_RLE = 3;
+    public static final int CODEC_UNCOMPRESSED = 0;
+    public static final int PAGE_DATA = 0;
+    public static final int PAGE_INDEX = 1;
+    public static final int PAGE_DICTIONARY = 2;
+    public static final int PAGE_DATA_V2 = 3;
+
+    public static final int LONG256_SIZE = 32;
+
+    private ParquetUtils() {
+    }
+
+    public static int toColumnType(int physicalType, int convertedType, int typeLength) {
+        switch (physicalType) {
+            case TYPE_BOOLEAN:
+                return ColumnType.BOOLEAN;
+            case TYPE_INT32:
+                switch (convertedType) {
+                    case CONVERTED_INT_8:
+                        return ColumnType.BYTE;
+                    case CONVERTED_INT_16:
+                        return ColumnType.SHORT;
+                    case CONVERTED_UINT_16:
+                        return ColumnType.CHAR;
+                    default:
+                        return ColumnType.INT;
+                }
+            case TYPE_INT64:
+                switch (convertedType) {
+                    case CONVERTED_TIMESTAMP_MILLIS:
+                        return ColumnType.DATE;
+                    case CONVERTED_TIMESTAMP_MICROS:
+                        return ColumnType.TIMESTAMP;
+                    default:
+                        return ColumnType.LONG;
+                }
+            case TYPE_FLOAT:
+                return ColumnType.FLOAT;
+            case TYPE_DOUBLE:
+                return ColumnType.DOUBLE;
+            case TYPE_BYTE_ARRAY:
+                return convertedType == CONVERTED_UTF8 ? ColumnType.STRING : ColumnType.BINARY;
+            case TYPE_FIXED_LEN_BYTE_ARRAY:
+                if (typeLength == LONG256_SIZE) {
+                    return ColumnType.LONG256;
+                }
+                throw unsupportedType(physicalType, typeLength);
+            default:
+                throw unsupportedType(physicalType, typeLength);
+        }
+    }
+
+    public static int toConvertedType(int columnType) {
+        switch (columnType) {
+            case ColumnType.BYTE:
+                return CONVERTED_INT_8;
+            case ColumnType.SHORT:
+                return CONVERTED_INT_16;
+            case ColumnType.CHAR:
+                return CONVERTED_UINT_16;
+            case ColumnType.DATE:
+                return CONVERTED_TIMESTAMP_MILLIS;
+            case ColumnType.TIMESTAMP:
+                return CONVERTED_TIMESTAMP_MICROS;
+            case ColumnType.STRING:
+            case ColumnType.VARCHAR:
+            case ColumnType.SYMBOL:
+                return CONVERTED_UTF8;
+            default:
+                return CONVERTED_NONE;
+        }
+    }
+
+    public static int toPhysicalType(int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+                return TYPE_BOOLEAN;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+                return TYPE_INT32;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return TYPE_INT64;
+            case ColumnType.FLOAT:
+                return TYPE_FLOAT;
+            case ColumnType.DOUBLE:
+                return TYPE_DOUBLE;
+            case ColumnType.STRING:
+            case ColumnType.VARCHAR:
+            case ColumnType.SYMBOL:
+            case ColumnType.BINARY:
+                return TYPE_BYTE_ARRAY;
+            case ColumnType.LONG256:
+                return TYPE_FIXED_LEN_BYTE_ARRAY;
+            default:
+                throw CairoException.instance(0).put("unsupported column type [type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+    }
+
+    private static CairoException unsupportedType(int physicalType, int typeLength) {
+        return CairoException.instance(0).put("unsupported parquet type [physicalType=").put(physicalType).put(", typeLength=").put(typeLength).put(']');
+    }
+
+    /**
+     * Columns of these types carry min/max statistics that can be compared as
+     * signed long values, which is what row group pruning relies on.
+     */
+    public static boolean isIntegral(int columnType) {
+        switch (columnType) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
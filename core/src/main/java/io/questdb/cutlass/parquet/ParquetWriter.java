@@ -0,0 +1,556 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Utf8Sequence;
+
+import java.io.Closeable;
+
+/**
+ * Writes records into Parquet file. Each row group holds single PLAIN encoded,
+ * uncompressed data page per column. Integral and floating point columns carry
+ * min/max statistics, which {@link ParquetReader} uses to skip row groups.
+ * <p>
+ * Typical life cycle is {@link #of(LPSZ, RecordMetadata)}, then {@link #append(Record)}
+ * and {@link #flushRowGroup()} as necessary, followed by {@link #finish()}.
+ */
+public class ParquetWriter implements Closeable, Mutable {
+    // row group meta layout is numRows, totalByteSize followed by these values for each column
+    static final int CHUNK_OFFSET = 0;
+    static final int CHUNK_SIZE = 1;
+    static final int CHUNK_NULL_COUNT = 2;
+    static final int CHUNK_MIN = 3;
+    static final int CHUNK_MAX = 4;
+    static final int CHUNK_HAS_STATS = 5;
+    static final int CHUNK_META_SIZE = 6;
+    private static final int ROW_GROUP_META_SIZE = 2;
+
+    private final FilesFacade ff;
+    private final ObjList<ParquetBuffer> values = new ObjList<>();
+    private final ObjList<ParquetBuffer> definitionLevels = new ObjList<>();
+    private final LongList nullCounts = new LongList();
+    private final LongList mins = new LongList();
+    private final LongList maxes = new LongList();
+    private final IntList columnTypes = new IntList();
+    private final LongList rowGroups = new LongList();
+    private final ParquetBuffer header = new ParquetBuffer(1024);
+    private final ParquetBuffer page = new ParquetBuffer(1024);
+    private final ThriftCompactWriter thrift = new ThriftCompactWriter();
+    private RecordMetadata metadata;
+    private long fd = -1;
+    private long fileOffset;
+    private long rowGroupRowCount;
+    private long totalRowCount;
+
+    public ParquetWriter(FilesFacade ff) {
+        this.ff = ff;
+    }
+
+    public void append(Record record) {
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final ParquetBuffer buf = values.getQuick(i);
+            final ParquetBuffer defs = definitionLevels.getQuick(i);
+            switch (columnTypes.getQuick(i)) {
+                case ColumnType.BOOLEAN:
+                    buf.putByte((byte) (record.getBool(i) ? 1 : 0));
+                    break;
+                case ColumnType.BYTE:
+                    appendInt(i, buf, record.getByte(i));
+                    break;
+                case ColumnType.SHORT:
+                    appendInt(i, buf, record.getShort(i));
+                    break;
+                case ColumnType.CHAR:
+                    appendInt(i, buf, record.getChar(i));
+                    break;
+                case ColumnType.INT:
+                    final int iv = record.getInt(i);
+                    if (iv == Numbers.INT_NaN) {
+                        appendNull(i, defs);
+                    } else {
+                        defs.putByte((byte) 1);
+                        appendInt(i, buf, iv);
+                    }
+                    break;
+                case ColumnType.LONG:
+                    appendLong(i, buf, defs, record.getLong(i));
+                    break;
+                case ColumnType.DATE:
+                    appendLong(i, buf, defs, record.getDate(i));
+                    break;
+                case ColumnType.TIMESTAMP:
+                    appendLong(i, buf, defs, record.getTimestamp(i));
+                    break;
+                case ColumnType.FLOAT:
+                    final float fv = record.getFloat(i);
+                    if (Float.isNaN(fv)) {
+                        appendNull(i, defs);
+                    } else {
+                        defs.putByte((byte) 1);
+                        buf.putFloat(fv);
+                        updateStats(i, fv);
+                    }
+                    break;
+                case ColumnType.DOUBLE:
+                    final double dv = record.getDouble(i);
+                    if (Double.isNaN(dv)) {
+                        appendNull(i, defs);
+                    } else {
+                        defs.putByte((byte) 1);
+                        buf.putDouble(dv);
+                        updateStats(i, dv);
+                    }
+                    break;
+                case ColumnType.STRING:
+                    appendStr(i, buf, defs, record.getStr(i));
+                    break;
+                case ColumnType.VARCHAR:
+                    appendVarchar(i, buf, defs, record.getVarcharA(i));
+                    break;
+                case ColumnType.SYMBOL:
+                    appendStr(i, buf, defs, record.getSym(i));
+                    break;
+                case ColumnType.BINARY:
+                    final BinarySequence bin = record.getBin(i);
+                    if (bin == null) {
+                        appendNull(i, defs);
+                    } else {
+                        defs.putByte((byte) 1);
+                        buf.putInt((int) bin.length());
+                        buf.putBin(bin);
+                    }
+                    break;
+                case ColumnType.LONG256:
+                    final Long256 l256 = record.getLong256A(i);
+                    buf.putLong(l256.getLong0());
+                    buf.putLong(l256.getLong1());
+                    buf.putLong(l256.getLong2());
+                    buf.putLong(l256.getLong3());
+                    break;
+                default:
+                    break;
+            }
+        }
+        rowGroupRowCount++;
+    }
+
+    /**
+     * Abandons file being written, e.g. after an error.
+     */
+    @Override
+    public void clear() {
+        closeFd();
+        rowGroups.clear();
+        rowGroupRowCount = 0;
+        totalRowCount = 0;
+    }
+
+    @Override
+    public void close() {
+        closeFd();
+        Misc.freeObjList(values);
+        Misc.freeObjList(definitionLevels);
+        values.clear();
+        definitionLevels.clear();
+        Misc.free(header);
+        Misc.free(page);
+        Misc.free(thrift);
+    }
+
+    /**
+     * Flushes pending row group, writes file footer and closes the file.
+     */
+    public void finish() {
+        flushRowGroup();
+        header.clear();
+        writeFileMetadata();
+        final long footerLen = header.length();
+        header.putInt((int) footerLen);
+        header.putInt(ParquetUtils.MAGIC);
+        write(header);
+        closeFd();
+    }
+
+    public void flushRowGroup() {
+        if (rowGroupRowCount == 0) {
+            return;
+        }
+        final long rowGroupOffset = fileOffset;
+        rowGroups.add(rowGroupRowCount);
+        rowGroups.add(0);
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final long chunkOffset = fileOffset;
+            writeDataPage(i);
+            rowGroups.add(chunkOffset);
+            rowGroups.add(fileOffset - chunkOffset);
+            rowGroups.add(nullCounts.getQuick(i));
+            rowGroups.add(mins.getQuick(i));
+            rowGroups.add(maxes.getQuick(i));
+            rowGroups.add(hasStats(i) ? 1 : 0);
+        }
+        rowGroups.setQuick(rowGroups.size() - columnTypes.size() * CHUNK_META_SIZE - 1, fileOffset - rowGroupOffset);
+        totalRowCount += rowGroupRowCount;
+        rowGroupRowCount = 0;
+        resetColumns();
+    }
+
+    public long getRowGroupRowCount() {
+        return rowGroupRowCount;
+    }
+
+    public long getTotalRowCount() {
+        return totalRowCount + rowGroupRowCount;
+    }
+
+    public ParquetWriter of(LPSZ path, RecordMetadata metadata) {
+        this.metadata = metadata;
+        this.columnTypes.clear();
+        this.rowGroups.clear();
+        this.totalRowCount = 0;
+        this.rowGroupRowCount = 0;
+        final int columnCount = metadata.getColumnCount();
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metadata.getColumnType(i);
+            // validates type is supported
+            ParquetUtils.toPhysicalType(type);
+            columnTypes.add(type);
+            if (values.size() <= i) {
+                values.add(new ParquetBuffer(4096));
+                definitionLevels.add(new ParquetBuffer(1024));
+            }
+        }
+        nullCounts.setPos(columnCount);
+        mins.setPos(columnCount);
+        maxes.setPos(columnCount);
+        resetColumns();
+
+        fd = ff.openRW(path);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("could not open file [path=").put(path).put(']');
+        }
+        if (!ff.truncate(fd, 0)) {
+            closeFd();
+            throw CairoException.instance(ff.errno()).put("could not truncate file [path=").put(path).put(']');
+        }
+        fileOffset = 0;
+        header.clear();
+        header.putInt(ParquetUtils.MAGIC);
+        write(header);
+        return this;
+    }
+
+    private static boolean isOptional(int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.LONG256:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private void appendInt(int columnIndex, ParquetBuffer buf, int value) {
+        buf.putInt(value);
+        updateStats(columnIndex, value);
+    }
+
+    private void appendLong(int columnIndex, ParquetBuffer buf, ParquetBuffer defs, long value) {
+        if (value == Numbers.LONG_NaN) {
+            appendNull(columnIndex, defs);
+        } else {
+            defs.putByte((byte) 1);
+            buf.putLong(value);
+            updateStats(columnIndex, value);
+        }
+    }
+
+    private void appendNull(int columnIndex, ParquetBuffer defs) {
+        defs.putByte((byte) 0);
+        nullCounts.increment(columnIndex);
+    }
+
+    private void appendStr(int columnIndex, ParquetBuffer buf, ParquetBuffer defs, CharSequence value) {
+        if (value == null) {
+            appendNull(columnIndex, defs);
+        } else {
+            defs.putByte((byte) 1);
+            final long lenOffset = buf.length();
+            buf.putInt(0);
+            buf.encodeUtf8(value);
+            buf.putIntAt(lenOffset, (int) (buf.length() - lenOffset - 4));
+        }
+    }
+
+    private void appendVarchar(int columnIndex, ParquetBuffer buf, ParquetBuffer defs, Utf8Sequence value) {
+        if (value == null) {
+            appendNull(columnIndex, defs);
+        } else {
+            defs.putByte((byte) 1);
+            final int size = value.length();
+            buf.putInt(size);
+            for (int i = 0; i < size; i++) {
+                buf.putByte(value.byteAt(i));
+            }
+        }
+    }
+
+    private void closeFd() {
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+    }
+
+    private boolean hasStats(int columnIndex) {
+        final int type = columnTypes.getQuick(columnIndex);
+        if (type == ColumnType.FLOAT || type == ColumnType.DOUBLE) {
+            return Double.doubleToRawLongBits(Double.NaN) != mins.getQuick(columnIndex);
+        }
+        return ParquetUtils.isIntegral(type) && mins.getQuick(columnIndex) <= maxes.getQuick(columnIndex);
+    }
+
+    private void putStatValue(int columnType, long value) {
+        switch (ParquetUtils.toPhysicalType(columnType)) {
+            case ParquetUtils.TYPE_INT32:
+                page.putInt((int) value);
+                break;
+            case ParquetUtils.TYPE_FLOAT:
+                page.putFloat((float) Double.longBitsToDouble(value));
+                break;
+            default:
+                // INT64 and DOUBLE, double is stored as raw bits
+                page.putLong(value);
+                break;
+        }
+    }
+
+    private void resetColumns() {
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            values.getQuick(i).clear();
+            definitionLevels.getQuick(i).clear();
+            nullCounts.setQuick(i, 0);
+            final int type = columnTypes.getQuick(i);
+            if (type == ColumnType.FLOAT || type == ColumnType.DOUBLE) {
+                // NaN bits mark absence of min/max until first value arrives
+                mins.setQuick(i, Double.doubleToRawLongBits(Double.NaN));
+                maxes.setQuick(i, Double.doubleToRawLongBits(Double.NaN));
+            } else {
+                mins.setQuick(i, Long.MAX_VALUE);
+                maxes.setQuick(i, Long.MIN_VALUE);
+            }
+        }
+    }
+
+    private void updateStats(int columnIndex, long value) {
+        if (value < mins.getQuick(columnIndex)) {
+            mins.setQuick(columnIndex, value);
+        }
+        if (value > maxes.getQuick(columnIndex)) {
+            maxes.setQuick(columnIndex, value);
+        }
+    }
+
+    private void updateStats(int columnIndex, double value) {
+        final double min = Double.longBitsToDouble(mins.getQuick(columnIndex));
+        if (Double.isNaN(min) || value < min) {
+            mins.setQuick(columnIndex, Double.doubleToRawLongBits(value));
+        }
+        final double max = Double.longBitsToDouble(maxes.getQuick(columnIndex));
+        if (Double.isNaN(max) || value > max) {
+            maxes.setQuick(columnIndex, Double.doubleToRawLongBits(value));
+        }
+    }
+
+    private void write(ParquetBuffer buf) {
+        final long len = buf.length();
+        if (ff.write(fd, buf.getAddress(), len, fileOffset) != len) {
+            throw CairoException.instance(ff.errno()).put("could not write parquet file [fd=").put(fd).put(']');
+        }
+        fileOffset += len;
+    }
+
+    private void writeDataPage(int columnIndex) {
+        final int type = columnTypes.getQuick(columnIndex);
+        final ParquetBuffer buf = values.getQuick(columnIndex);
+
+        page.clear();
+        if (isOptional(type)) {
+            writeDefinitionLevels(definitionLevels.getQuick(columnIndex));
+        }
+        if (type == ColumnType.BOOLEAN) {
+            // booleans are bit packed, least significant bit first
+            int bits = 0;
+            long p = buf.getAddress();
+            final long hi = p + buf.length();
+            for (int bit = 0; p < hi; p++) {
+                bits |= Unsafe.getUnsafe().getByte(p) << bit;
+                if (++bit == 8) {
+                    page.putByte((byte) bits);
+                    bits = 0;
+                    bit = 0;
+                }
+            }
+            if ((buf.length() & 7) != 0) {
+                page.putByte((byte) bits);
+            }
+        } else {
+            page.putBuffer(buf);
+        }
+
+        header.clear();
+        thrift.of(header);
+        thrift.structBegin();
+        thrift.i32Field(1, ParquetUtils.PAGE_DATA);
+        thrift.i32Field(2, (int) page.length());
+        thrift.i32Field(3, (int) page.length());
+        thrift.structField(5);
+        thrift.i32Field(1, (int) rowGroupRowCount);
+        thrift.i32Field(2, ParquetUtils.ENCODING_PLAIN);
+        thrift.i32Field(3, ParquetUtils.ENCODING_RLE);
+        thrift.i32Field(4, ParquetUtils.ENCODING_RLE);
+        thrift.structEnd();
+        thrift.structEnd();
+
+        write(header);
+        write(page);
+    }
+
+    private void writeDefinitionLevels(ParquetBuffer defs) {
+        // RLE/bit-packed hybrid with bit width of 1, prefixed by 4-byte length
+        final long lenOffset = page.length();
+        page.putInt(0);
+        long p = defs.getAddress();
+        final long hi = p + defs.length();
+        while (p < hi) {
+            final byte level = Unsafe.getUnsafe().getByte(p);
+            long runEnd = p + 1;
+            while (runEnd < hi && Unsafe.getUnsafe().getByte(runEnd) == level) {
+                runEnd++;
+            }
+            page.putVarLong((runEnd - p) << 1);
+            page.putByte(level);
+            p = runEnd;
+        }
+        page.putIntAt(lenOffset, (int) (page.length() - lenOffset - 4));
+    }
+
+    private void writeFileMetadata() {
+        final int columnCount = columnTypes.size();
+        thrift.of(header);
+        thrift.structBegin();
+        thrift.i32Field(1, ParquetUtils.FORMAT_VERSION);
+
+        // schema, root element followed by flat list of columns
+        thrift.listField(2, ThriftCompactWriter.TYPE_STRUCT, columnCount + 1);
+        thrift.structBegin();
+        thrift.stringField(4, "schema");
+        thrift.i32Field(5, columnCount);
+        thrift.structEnd();
+        for (int i = 0; i < columnCount; i++) {
+            final int type = columnTypes.getQuick(i);
+            thrift.structBegin();
+            thrift.i32Field(1, ParquetUtils.toPhysicalType(type));
+            if (type == ColumnType.LONG256) {
+                thrift.i32Field(2, ParquetUtils.LONG256_SIZE);
+            }
+            thrift.i32Field(3, isOptional(type) ? ParquetUtils.REPETITION_OPTIONAL : ParquetUtils.REPETITION_REQUIRED);
+            thrift.stringField(4, metadata.getColumnName(i));
+            final int convertedType = ParquetUtils.toConvertedType(type);
+            if (convertedType != ParquetUtils.CONVERTED_NONE) {
+                thrift.i32Field(6, convertedType);
+            }
+            thrift.structEnd();
+        }
+
+        thrift.i64Field(3, totalRowCount);
+
+        final int stride = ROW_GROUP_META_SIZE + columnCount * CHUNK_META_SIZE;
+        final int rowGroupCount = rowGroups.size() / stride;
+        thrift.listField(4, ThriftCompactWriter.TYPE_STRUCT, rowGroupCount);
+        for (int g = 0; g < rowGroupCount; g++) {
+            final int base = g * stride;
+            final long numRows = rowGroups.getQuick(base);
+            thrift.structBegin();
+            thrift.listField(1, ThriftCompactWriter.TYPE_STRUCT, columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                final int chunk = base + ROW_GROUP_META_SIZE + i * CHUNK_META_SIZE;
+                final long offset = rowGroups.getQuick(chunk + CHUNK_OFFSET);
+                final long size = rowGroups.getQuick(chunk + CHUNK_SIZE);
+                final int type = columnTypes.getQuick(i);
+                thrift.structBegin();
+                thrift.i64Field(2, offset);
+                thrift.structField(3);
+                thrift.i32Field(1, ParquetUtils.toPhysicalType(type));
+                thrift.listField(2, ThriftCompactWriter.TYPE_I32, 2);
+                thrift.i32(ParquetUtils.ENCODING_PLAIN);
+                thrift.i32(ParquetUtils.ENCODING_RLE);
+                thrift.listField(3, ThriftCompactWriter.TYPE_BINARY, 1);
+                thrift.string(metadata.getColumnName(i));
+                thrift.i32Field(4, ParquetUtils.CODEC_UNCOMPRESSED);
+                thrift.i64Field(5, numRows);
+                thrift.i64Field(6, size);
+                thrift.i64Field(7, size);
+                thrift.i64Field(9, offset);
+                thrift.structField(12);
+                thrift.i64Field(3, rowGroups.getQuick(chunk + CHUNK_NULL_COUNT));
+                if (rowGroups.getQuick(chunk + CHUNK_HAS_STATS) == 1) {
+                    page.clear();
+                    putStatValue(type, rowGroups.getQuick(chunk + CHUNK_MAX));
+                    thrift.binaryField(5, page);
+                    page.clear();
+                    putStatValue(type, rowGroups.getQuick(chunk + CHUNK_MIN));
+                    thrift.binaryField(6, page);
+                }
+                thrift.structEnd();
+                thrift.structEnd();
+                thrift.structEnd();
+            }
+            thrift.i64Field(2, rowGroups.getQuick(base + 1));
+            thrift.i64Field(3, numRows);
+            thrift.structEnd();
+        }
+
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex != -1) {
+            thrift.listField(5, ThriftCompactWriter.TYPE_STRUCT, 1);
+            thrift.structBegin();
+            thrift.stringField(1, ParquetUtils.TIMESTAMP_KEY);
+            thrift.stringField(2, metadata.getColumnName(timestampIndex));
+            thrift.structEnd();
+        }
+        thrift.stringField(6, ParquetUtils.CREATED_BY);
+        thrift.structEnd();
+    }
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.IntStack;
+import io.questdb.std.Unsafe;
+
+import static io.questdb.cutlass.parquet.ThriftCompactWriter.*;
+
+/**
+ * Reader of Thrift compact protocol over native memory. Callers iterate struct
+ * fields via {@link #nextField()} and {@link #skip(int)} whatever they do not
+ * recognise.
+ */
+public class ThriftCompactReader {
+    private final IntStack lastFieldIds = new IntStack();
+    private long p;
+    private long hi;
+    private int lastFieldId;
+    private int fieldId;
+    private int listElementType;
+    private long binaryAddress;
+
+    public long getBinaryAddress() {
+        return binaryAddress;
+    }
+
+    public int getFieldId() {
+        return fieldId;
+    }
+
+    public int getListElementType() {
+        return listElementType;
+    }
+
+    public long getPosition() {
+        return p;
+    }
+
+    /**
+     * Reads next field header of current struct.
+     *
+     * @return field type or {@link ThriftCompactWriter#TYPE_STOP} at end of struct
+     */
+    public int nextField() {
+        final int b = readByte() & 0xff;
+        final int type = b & 0x0f;
+        if (type == TYPE_STOP) {
+            return TYPE_STOP;
+        }
+        final int delta = b >>> 4;
+        if (delta == 0) {
+            fieldId = readI32();
+        } else {
+            fieldId = lastFieldId + delta;
+        }
+        lastFieldId = fieldId;
+        return type;
+    }
+
+    public ThriftCompactReader of(long lo, long hi) {
+        this.p = lo;
+        this.hi = hi;
+        this.lastFieldId = 0;
+        this.lastFieldIds.clear();
+        return this;
+    }
+
+    /**
+     * Reads binary length and positions binary address at first byte of value.
+     */
+    public int readBinary() {
+        final int len = (int) readVarLong();
+        checkAvailable(len);
+        binaryAddress = p;
+        p += len;
+        return len;
+    }
+
+    public int readI32() {
+        final int v = (int) readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public long readI64() {
+        final long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public int readListHeader() {
+        final int b = readByte() & 0xff;
+        listElementType = b & 0x0f;
+        final int size = b >>> 4;
+        return size == 15 ? (int) readVarLong() : size;
+    }
+
+    public void skip(int type) {
+        switch (type) {
+            case TYPE_BOOLEAN_TRUE:
+            case TYPE_BOOLEAN_FALSE:
+                break;
+            case TYPE_BYTE:
+                readByte();
+                break;
+            case TYPE_I16:
+            case TYPE_I32:
+            case TYPE_I64:
+                readVarLong();
+                break;
+            case TYPE_DOUBLE:
+                checkAvailable(8);
+                p += 8;
+                break;
+            case TYPE_BINARY:
+                readBinary();
+                break;
+            case TYPE_LIST:
+            case TYPE_SET:
+                for (int i = 0, n = readListHeader(), t = listElementType; i < n; i++) {
+                    skipElement(t);
+                }
+                break;
+            case TYPE_MAP:
+                final int size = (int) readVarLong();
+                if (size > 0) {
+                    final int kv = readByte() & 0xff;
+                    for (int i = 0; i < size; i++) {
+                        skipElement(kv >>> 4);
+                        skipElement(kv & 0x0f);
+                    }
+                }
+                break;
+            case TYPE_STRUCT:
+                structBegin();
+                int t;
+                while ((t = nextField()) != TYPE_STOP) {
+                    skip(t);
+                }
+                structEnd();
+                break;
+            default:
+                throw CairoException.instance(0).put("corrupt thrift data [type=").put(type).put(']');
+        }
+    }
+
+    public void structBegin() {
+        lastFieldIds.push(lastFieldId);
+        lastFieldId = 0;
+    }
+
+    public void structEnd() {
+        lastFieldId = lastFieldIds.pop();
+    }
+
+    private void checkAvailable(long len) {
+        if (len < 0 || p + len > hi) {
+            throw CairoException.instance(0).put("unexpected end of thrift data");
+        }
+    }
+
+    private byte readByte() {
+        checkAvailable(1);
+        return Unsafe.getUnsafe().getByte(p++);
+    }
+
+    private long readVarLong() {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            final byte b = readByte();
+            result |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+
+    private void skipElement(int type) {
+        // inside collections booleans take a whole byte
+        if (type == TYPE_BOOLEAN_TRUE || type == TYPE_BOOLEAN_FALSE) {
+            readByte();
+        } else {
+            skip(type);
+        }
+    }
+}
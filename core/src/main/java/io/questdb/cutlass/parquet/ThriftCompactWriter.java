@@ -0,0 +1,143 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.std.IntStack;
+
+import java.io.Closeable;
+
+/**
+ * Minimal writer of Thrift compact protocol, sufficient to encode Parquet
+ * page headers and file footer.
+ */
+public class ThriftCompactWriter implements Closeable {
+    public static final byte TYPE_STOP = 0;
+    public static final byte TYPE_BOOLEAN_TRUE = 1;
+    public static final byte TYPE_BOOLEAN_FALSE = 2;
+    public static final byte TYPE_BYTE = 3;
+    public static final byte TYPE_I16 = 4;
+    public static final byte TYPE_I32 = 5;
+    public static final byte TYPE_I64 = 6;
+    public static final byte TYPE_DOUBLE = 7;
+    public static final byte TYPE_BINARY = 8;
+    public static final byte TYPE_LIST = 9;
+    public static final byte TYPE_SET = 10;
+    public static final byte TYPE_MAP = 11;
+    public static final byte TYPE_STRUCT = 12;
+
+    private final IntStack lastFieldIds = new IntStack();
+    private final ParquetBuffer scratch = new ParquetBuffer(64);
+    private ParquetBuffer buffer;
+    private int lastFieldId;
+
+    public ThriftCompactWriter of(ParquetBuffer buffer) {
+        this.buffer = buffer;
+        this.lastFieldId = 0;
+        this.lastFieldIds.clear();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        scratch.close();
+    }
+
+    public void binaryField(int id, long address, long len) {
+        fieldHeader(id, TYPE_BINARY);
+        buffer.putVarLong(len);
+        buffer.putBytes(address, len);
+    }
+
+    public void binaryField(int id, ParquetBuffer value) {
+        binaryField(id, value.getAddress(), value.length());
+    }
+
+    public void i32Field(int id, int value) {
+        fieldHeader(id, TYPE_I32);
+        i32(value);
+    }
+
+    public void i64Field(int id, long value) {
+        fieldHeader(id, TYPE_I64);
+        buffer.putVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void i32(int value) {
+        buffer.putVarLong(((value << 1) ^ (value >> 31)) & 0xffffffffL);
+    }
+
+    public void listBegin(byte elementType, int size) {
+        if (size < 15) {
+            buffer.putByte((byte) ((size << 4) | elementType));
+        } else {
+            buffer.putByte((byte) (0xf0 | elementType));
+            buffer.putVarLong(size);
+        }
+    }
+
+    public void listField(int id, byte elementType, int size) {
+        fieldHeader(id, TYPE_LIST);
+        listBegin(elementType, size);
+    }
+
+    public void string(CharSequence value) {
+        scratch.clear();
+        scratch.encodeUtf8(value);
+        buffer.putVarLong(scratch.length());
+        buffer.putBuffer(scratch);
+    }
+
+    public void stringField(int id, CharSequence value) {
+        fieldHeader(id, TYPE_BINARY);
+        string(value);
+    }
+
+    public void structBegin() {
+        lastFieldIds.push(lastFieldId);
+        lastFieldId = 0;
+    }
+
+    public void structEnd() {
+        buffer.putByte(TYPE_STOP);
+        lastFieldId = lastFieldIds.pop();
+    }
+
+    public void structField(int id) {
+        fieldHeader(id, TYPE_STRUCT);
+        structBegin();
+    }
+
+    private void fieldHeader(int id, byte type) {
+        final int delta = id - lastFieldId;
+        if (delta > 0 && delta < 16) {
+            buffer.putByte((byte) ((delta << 4) | type));
+        } else {
+            buffer.putByte(type);
+            i32(id);
+        }
+        lastFieldId = id;
+    }
+}
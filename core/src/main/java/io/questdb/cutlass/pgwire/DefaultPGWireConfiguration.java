@@ -145,6 +145,11 @@ public class DefaultPGWireConfiguration implements PGWireConfiguration {
         return "admin";
     }
 
+    @Override
+    public boolean readOnlySecurityContext() {
+        return false;
+    }
+
     @Override
     public DateLocale getDefaultDateLocale() {
         return DateFormatUtils.enLocale;
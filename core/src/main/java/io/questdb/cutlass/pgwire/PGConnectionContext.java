@@ -34,6 +34,7 @@ import io.questdb.griffin.engine.functions.bind.BindVariableService;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.log.LogRecord;
+import io.questdb.metrics.Metrics;
 import io.questdb.network.*;
 import io.questdb.std.*;
 import io.questdb.std.microtime.TimestampFormatUtils;
@@ -43,6 +44,8 @@ import io.questdb.std.time.DateLocale;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static io.questdb.cutlass.pgwire.PGJobContext.*;
 import static io.questdb.std.time.DateFormatUtils.PG_DATE_TIME_Z_FORMAT;
 import static io.questdb.std.time.DateFormatUtils.PG_DATE_Z_FORMAT;
@@ -66,6 +69,8 @@ public class PGConnectionContext implements IOContext, Mutable {
     private static final byte MESSAGE_TYPE_ROW_DESCRIPTION = 'T';
     private static final byte MESSAGE_TYPE_PARSE_COMPLETE = '1';
     private static final byte MESSAGE_TYPE_COPY_IN_RESPONSE = 'G';
+    private static final byte MESSAGE_TYPE_BACKEND_KEY_DATA = 'K';
+    private static final AtomicInteger SESSION_ID_SEQUENCE = new AtomicInteger();
     private final long recvBuffer;
     private final long sendBuffer;
     private final int recvBufferSize;
@@ -84,6 +89,8 @@ public class PGConnectionContext implements IOContext, Mutable {
     private final String serverVersion;
     private final PGAuthenticator authenticator;
     private final SqlExecutionContextImpl sqlExecutionContext;
+    private final Metrics metrics;
+    private final NanosecondClock nanosecondClock;
     private final Path path = new Path();
     private final BindVariableSetter doubleSetter = this::setDoubleBindVariable;
     private final BindVariableSetter doubleTxtSetter = this::setDoubleTextBindVariable;
@@ -102,6 +109,9 @@ public class PGConnectionContext implements IOContext, Mutable {
     private final DateLocale dateLocale;
     private final BindVariableSetter dateSetter = this::setDateBindVariable;
     private final TimestampLocale timestampLocale;
+    private final long queryMemoryLimit;
+    private final QueryRegistry queryRegistry;
+    private final CancellableSqlExecutionInterruptor interruptor;
     private int sendCurrentCursorTail = TAIL_NONE;
     private long sendBufferPtr;
     private boolean requireInitalMessage = false;
@@ -143,10 +153,19 @@ public class PGConnectionContext implements IOContext, Mutable {
         this.idleSendCountBeforeGivingUp = configuration.getIdleSendCountBeforeGivingUp();
         this.idleRecvCountBeforeGivingUp = configuration.getIdleRecvCountBeforeGivingUp();
         this.serverVersion = configuration.getServerVersion();
-        this.authenticator = new PGBasicAuthenticator(configuration.getDefaultUsername(), configuration.getDefaultPassword());
+        this.authenticator = new PGBasicAuthenticator(
+                configuration.getDefaultUsername(),
+                configuration.getDefaultPassword(),
+                configuration.readOnlySecurityContext()
+        );
         this.dateLocale = configuration.getDefaultDateLocale();
         this.timestampLocale = configuration.getDefaultTimestampLocale();
         this.sqlExecutionContext = new SqlExecutionContextImpl(messageBus, workerCount, engine);
+        this.metrics = engine.getConfiguration().getMetrics();
+        this.nanosecondClock = engine.getConfiguration().getNanosecondClock();
+        this.queryMemoryLimit = engine.getConfiguration().getSqlQueryMemoryLimit();
+        this.queryRegistry = engine.getQueryRegistry();
+        this.interruptor = queryRegistry.newInterruptor();
         populateAppender();
     }
 
@@ -322,6 +341,7 @@ public class PGConnectionContext implements IOContext, Mutable {
             }
             clearRecvBuffer();
         } catch (SqlException e) {
+            metrics.pgQueryErrors.inc();
             sendExecuteTail(TAIL_ERROR);
             clearRecvBuffer();
         }
@@ -330,6 +350,8 @@ public class PGConnectionContext implements IOContext, Mutable {
     public PGConnectionContext of(long clientFd, IODispatcher<PGConnectionContext> dispatcher) {
         this.fd = clientFd;
         sqlExecutionContext.with(clientFd);
+        // client learns these from BackendKeyData and presents them in CancelRequest
+        interruptor.setSession(SESSION_ID_SEQUENCE.incrementAndGet(), queryRegistry.newSessionSecret());
         this.dispatcher = dispatcher;
         clear();
         return this;
@@ -583,6 +605,20 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    private void appendVarcharColumn(Record record, int columnIndex) {
+        final Utf8Sequence value = record.getVarcharA(columnIndex);
+        if (value == null) {
+            responseAsciiSink.setNullValue();
+        } else {
+            // value is already UTF-8, send bytes as they are
+            final long a = responseAsciiSink.skip();
+            for (int i = 0, n = value.length(); i < n; i++) {
+                responseAsciiSink.put((char) (value.byteAt(i) & 0xff));
+            }
+            responseAsciiSink.putLenEx(a);
+        }
+    }
+
     private void appendSymbolColumn(Record record, int columnIndex) {
         final CharSequence strValue = record.getSym(columnIndex);
         if (strValue == null) {
@@ -772,9 +808,14 @@ public class PGConnectionContext implements IOContext, Mutable {
             @NotNull RecordCursorFactory factory
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
         this.currentFactory = factory;
-        currentCursor = factory.getCursor(sqlExecutionContext);
-        prepareRowDescription();
-        sendCursor();
+        sqlExecutionContext.getMemoryAccount().of(queryMemoryLimit);
+        try {
+            currentCursor = factory.getCursor(sqlExecutionContext);
+            prepareRowDescription();
+            sendCursor();
+        } catch (CairoException e) {
+            sendCursorError(e);
+        }
     }
 
     /**
@@ -836,7 +877,7 @@ public class PGConnectionContext implements IOContext, Mutable {
             }
 
             if (cairoSecurityContext != null) {
-                sqlExecutionContext.with(cairoSecurityContext, bindVariableService, rnd, this.fd, null);
+                sqlExecutionContext.with(cairoSecurityContext, bindVariableService, rnd, this.fd, interruptor);
                 authenticationRequired = false;
                 prepareLoginOk(responseAsciiSink);
                 send();
@@ -858,7 +899,12 @@ public class PGConnectionContext implements IOContext, Mutable {
                 processBind(bindVariableSetters, msgLimit, lo);
                 break;
             case 'E': // execute
-                processExecute();
+                final long executeStartNanos = nanosecondClock.getTicks();
+                try {
+                    processExecute();
+                } finally {
+                    recordQuery(executeStartNanos);
+                }
                 break;
             case 'S': // sync?
                 break;
@@ -866,7 +912,12 @@ public class PGConnectionContext implements IOContext, Mutable {
                 processDescribe();
                 break;
             case 'Q':
-                processQuery(lo, limit, compiler, factoryCache);
+                final long queryStartNanos = nanosecondClock.getTicks();
+                try {
+                    processQuery(lo, limit, compiler, factoryCache);
+                } finally {
+                    recordQuery(queryStartNanos);
+                }
                 break;
             case 'd':
 
@@ -894,6 +945,7 @@ public class PGConnectionContext implements IOContext, Mutable {
     private void populateAppender() {
         columnAppenders.extendAndSet(ColumnType.INT, this::appendIntCol);
         columnAppenders.extendAndSet(ColumnType.STRING, this::appendStrColumn);
+        columnAppenders.extendAndSet(ColumnType.VARCHAR, this::appendVarcharColumn);
         columnAppenders.extendAndSet(ColumnType.SYMBOL, this::appendSymbolColumn);
         columnAppenders.extendAndSet(ColumnType.LONG, this::appendLongColumn);
         columnAppenders.extendAndSet(ColumnType.SHORT, this::appendShortColumn);
@@ -927,12 +979,24 @@ public class PGConnectionContext implements IOContext, Mutable {
         responseAsciiSink.putLen(addr);
     }
 
+    private void prepareError(CairoException e) {
+        responseAsciiSink.put(MESSAGE_TYPE_ERROR_RESPONSE);
+        long addr = responseAsciiSink.skip();
+        responseAsciiSink.put('M');
+        responseAsciiSink.encodeUtf8Z(e.getFlyweightMessage());
+        responseAsciiSink.put('S');
+        responseAsciiSink.encodeUtf8Z("ERROR");
+        responseAsciiSink.put((char) 0);
+        responseAsciiSink.putLen(addr);
+    }
+
     private void prepareForNewQuery() {
         queryCharacterStore.clear();
         bindVariableService.clear();
         currentCursor = Misc.free(currentCursor);
         currentFactory = null;
         currentInsertStatement = null;
+        interruptor.finish();
     }
 
     private void prepareLoginOk(ResponseAsciiSink sink) {
@@ -945,6 +1009,10 @@ public class PGConnectionContext implements IOContext, Mutable {
         prepareParams(sink, "server_version", serverVersion);
         prepareParams(sink, "integer_datetimes", "on");
         prepareParams(sink, "client_encoding", "UTF8");
+        sink.put(MESSAGE_TYPE_BACKEND_KEY_DATA);
+        sink.putNetworkInt(Integer.BYTES * 3);
+        sink.putNetworkInt(interruptor.getSessionId());
+        sink.putNetworkInt(interruptor.getSessionSecret());
         prepareReadyForQuery(sink);
     }
 
@@ -1017,12 +1085,18 @@ public class PGConnectionContext implements IOContext, Mutable {
     }
 
     private void processExecute() throws PeerDisconnectedException, PeerIsSlowToReadException {
+        interruptor.start(queryText, null);
         if (currentFactory != null) {
             LOG.info().$("executing query").$();
-            currentCursor = currentFactory.getCursor(sqlExecutionContext);
-            // cache random if it was replaced
-            this.rnd = sqlExecutionContext.getRandom();
-            sendCursor();
+            sqlExecutionContext.getMemoryAccount().of(queryMemoryLimit);
+            try {
+                currentCursor = currentFactory.getCursor(sqlExecutionContext);
+                // cache random if it was replaced
+                this.rnd = sqlExecutionContext.getRandom();
+                sendCursor();
+            } catch (CairoException e) {
+                sendCursorError(e);
+            }
         } else if (currentInsertStatement != null) {
             executeInsert();
         }
@@ -1112,7 +1186,13 @@ public class PGConnectionContext implements IOContext, Mutable {
                 sendClearTextPasswordChallenge();
                 break;
             case INIT_CANCEL_REQUEST:
-                LOG.info().$("cancel request").$();
+                // CancelRequest comes on new connection, server closes it without reply
+                if (msgLen >= Integer.BYTES * 4) {
+                    final int sessionId = getInt(address + Integer.BYTES * 2);
+                    final int sessionSecret = getInt(address + Integer.BYTES * 3);
+                    final boolean cancelled = queryRegistry.cancelSession(sessionId, sessionSecret);
+                    LOG.info().$("cancel request [sessionId=").$(sessionId).$(", cancelled=").$(cancelled).$(']').$();
+                }
                 throw PeerDisconnectedException.INSTANCE;
             default:
                 LOG.error().$("unknown init message [protocol=").$(protocol).$(']').$();
@@ -1142,6 +1222,8 @@ public class PGConnectionContext implements IOContext, Mutable {
 
         prepareForNewQuery();
         parseQueryText(lo, hi);
+        // statements other than select and insert execute as they are parsed
+        interruptor.start(queryText, null);
 
         lo = hi + 1;
 
@@ -1206,6 +1288,12 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    // latency up to the point response is either complete or parked waiting for slow client
+    private void recordQuery(long startNanos) {
+        metrics.pgQueries.inc();
+        metrics.pgQueryLatency.record((nanosecondClock.getTicks() - startNanos) / 1000);
+    }
+
     private void processQuery(
             long lo,
             long limit,
@@ -1215,6 +1303,7 @@ public class PGConnectionContext implements IOContext, Mutable {
         // vanilla query
         prepareForNewQuery();
         parseQueryText(lo, limit - 1);
+        interruptor.start(queryText, null);
 
         if (SqlKeywords.isSemicolon(queryText)) {
             sendExecuteTail(TAIL_SUCCESS);
@@ -1366,6 +1455,16 @@ public class PGConnectionContext implements IOContext, Mutable {
         sendExecuteTail();
     }
 
+    private void sendCursorError(CairoException e) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        // query failed while cursor was open, e.g. on memory limit; fail the query, not the connection
+        LOG.error().$("query failed [msg=").$(e.getFlyweightMessage()).$(']').$();
+        metrics.pgQueryErrors.inc();
+        prepareForNewQuery();
+        prepareError(e);
+        prepareReadyForQuery(responseAsciiSink);
+        sendExecuteTail(TAIL_NONE);
+    }
+
     private void sendExecuteTail(int tail) throws PeerDisconnectedException, PeerIsSlowToReadException {
         sendCurrentCursorTail = tail;
         sendExecuteTail();
@@ -1590,6 +1689,7 @@ public class PGConnectionContext implements IOContext, Mutable {
 
     static {
         typeOids.extendAndSet(ColumnType.STRING, PG_VARCHAR); // VARCHAR
+        typeOids.extendAndSet(ColumnType.VARCHAR, PG_VARCHAR); // VARCHAR
         typeOids.extendAndSet(ColumnType.TIMESTAMP, PG_TIMESTAMP); // TIMESTAMPZ
         typeOids.extendAndSet(ColumnType.DOUBLE, PG_FLOAT8); // FLOAT8
         typeOids.extendAndSet(ColumnType.FLOAT, PG_FLOAT4); // FLOAT4
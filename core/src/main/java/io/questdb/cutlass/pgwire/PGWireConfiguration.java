@@ -41,6 +41,8 @@ public interface PGWireConfiguration extends WorkerPoolAwareConfiguration {
 
     String getDefaultUsername();
 
+    boolean readOnlySecurityContext();
+
     IODispatcherConfiguration getDispatcherConfiguration();
 
     default boolean getDumpNetworkTraffic() {
@@ -68,4 +70,9 @@ public interface PGWireConfiguration extends WorkerPoolAwareConfiguration {
     DateLocale getDefaultDateLocale();
 
     TimestampLocale getDefaultTimestampLocale();
+
+    @Override
+    default String getPoolName() {
+        return "pg";
+    }
 }
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Interruptor of single query that adds wall-clock deadline and cancellation on top of protocol
+ * interruptor, such as one checking that HTTP peer is still connected. Query is registered with
+ * {@link QueryRegistry} between {@link #start(CharSequence, SqlExecutionInterruptor)} and
+ * {@link #finish()}, which is how "cancel query" and PostgreSQL CancelRequest find it.
+ * <p>
+ * Cancellation flag is checked on every call, clock is read once every {@link #CLOCK_CHECK_INTERVAL} calls.
+ * Query text is copied to sink reused by subsequent queries, other threads read it via {@link #copyQuery(StringSink)}.
+ */
+public class CancellableSqlExecutionInterruptor implements SqlExecutionInterruptor {
+    static final int CLOCK_CHECK_INTERVAL = 1024;
+    private final QueryRegistry registry;
+    private final MicrosecondClock clock;
+    private final long timeout;
+    private final StringSink query = new StringSink();
+    private SqlExecutionInterruptor delegate = NOP_INTERRUPTOR;
+    private volatile boolean cancelled;
+    private long deadline = Long.MAX_VALUE;
+    private int countdown = CLOCK_CHECK_INTERVAL;
+    private long queryId = -1;
+    private long startedMicros;
+    private int sessionId = -1;
+    private int sessionSecret;
+
+    /**
+     * @param registry registry of running queries
+     * @param clock    clock deadline is measured by
+     * @param timeout  query timeout in microseconds, 0 for no timeout
+     */
+    public CancellableSqlExecutionInterruptor(QueryRegistry registry, MicrosecondClock clock, long timeout) {
+        this.registry = registry;
+        this.clock = clock;
+        this.timeout = timeout;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public void checkInterrupted() {
+        delegate.checkInterrupted();
+        if (cancelled) {
+            throw CairoException.instance(0).put("cancelled by user [queryId=").put(queryId).put(']').setInterruption(true);
+        }
+        if (--countdown == 0) {
+            countdown = CLOCK_CHECK_INTERVAL;
+            if (clock.getTicks() > deadline) {
+                throw CairoException.instance(0).put("timeout, query aborted [queryId=").put(queryId).put(", timeout=").put(timeout / 1000).put("ms]").setInterruption(true);
+            }
+        }
+    }
+
+    /**
+     * Unregisters query. Does nothing when query is not running.
+     */
+    public void finish() {
+        if (queryId != -1) {
+            registry.unregister(this);
+            synchronized (query) {
+                queryId = -1;
+                query.clear();
+            }
+        }
+        delegate = NOP_INTERRUPTOR;
+    }
+
+    /**
+     * Copies text of running query to sink. Interruptor reuses its text buffer for next query, hence
+     * the copy.
+     *
+     * @param sink sink query text is appended to
+     * @return id of the query, -1 when no query is running and nothing was copied
+     */
+    public long copyQuery(StringSink sink) {
+        synchronized (query) {
+            if (queryId != -1) {
+                sink.put(query);
+            }
+            return queryId;
+        }
+    }
+
+    public long getQueryId() {
+        return queryId;
+    }
+
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    public int getSessionSecret() {
+        return sessionSecret;
+    }
+
+    public long getStartedMicros() {
+        return startedMicros;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Identifies session query runs in, PostgreSQL CancelRequest cancels query by session id and secret.
+     */
+    public void setSession(int sessionId, int sessionSecret) {
+        this.sessionId = sessionId;
+        this.sessionSecret = sessionSecret;
+    }
+
+    /**
+     * Starts deadline of new query and registers it, previous query of this interruptor is finished.
+     *
+     * @param query    query text
+     * @param delegate protocol interruptor, null when there is none
+     * @return this
+     */
+    public CancellableSqlExecutionInterruptor start(CharSequence query, SqlExecutionInterruptor delegate) {
+        finish();
+        this.delegate = delegate == null ? NOP_INTERRUPTOR : delegate;
+        this.cancelled = false;
+        this.countdown = CLOCK_CHECK_INTERVAL;
+        this.startedMicros = clock.getTicks();
+        this.deadline = timeout > 0 ? startedMicros + timeout : Long.MAX_VALUE;
+        synchronized (this.query) {
+            this.query.clear();
+            this.query.put(query);
+        }
+        registry.register(this);
+        return this;
+    }
+
+    /**
+     * Sets protocol interruptor of running query, HTTP rebinds it when resuming send.
+     */
+    public void with(SqlExecutionInterruptor delegate) {
+        this.delegate = delegate == null ? NOP_INTERRUPTOR : delegate;
+    }
+
+    void setQueryId(long queryId) {
+        this.queryId = queryId;
+    }
+}
@@ -43,6 +43,8 @@ public interface CompiledQuery {
     int RENAME_TABLE = 11;
     int BACKUP_TABLE = 12;
     int SHOW = 13;
+    int REFRESH_MATERIALIZED_VIEW = 14;
+    int CANCEL_QUERY = 15;
 
     RecordCursorFactory getRecordCursorFactory();
 
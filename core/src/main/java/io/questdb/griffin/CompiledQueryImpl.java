@@ -117,4 +117,12 @@ public class CompiledQueryImpl implements CompiledQuery {
     CompiledQuery ofBackupTable() {
         return of(BACKUP_TABLE);
     }
+
+    CompiledQuery ofRefreshMaterializedView() {
+        return of(REFRESH_MATERIALIZED_VIEW);
+    }
+
+    CompiledQuery ofCancelQuery() {
+        return of(CANCEL_QUERY);
+    }
 }
@@ -29,6 +29,7 @@ import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.engine.FunctionExpressions;
 import io.questdb.griffin.engine.functions.CursorFunction;
 import io.questdb.griffin.engine.functions.bind.BindVariableService;
 import io.questdb.griffin.engine.functions.bind.IndexedParameterLinkFunction;
@@ -40,6 +41,7 @@ import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayDeque;
 
@@ -78,6 +80,7 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
     private RecordMetadata metadata;
     private SqlCodeGenerator sqlCodeGenerator;
     private SqlExecutionContext sqlExecutionContext;
+    private FunctionExpressions expressions;
 
     public FunctionParser(CairoConfiguration configuration, Iterable<FunctionFactory> functionFactories) {
         this.configuration = configuration;
@@ -310,7 +313,11 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         try {
             this.metadata = metadata;
             traverseAlgo.traverse(node, this);
-            return stack.poll();
+            final Function function = stack.poll();
+            if (expressions != null && function != null) {
+                expressions.add(function, node);
+            }
+            return function;
         } finally {
             if (metadataStack.size() == 0) {
                 this.metadata = null;
@@ -320,6 +327,13 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         }
     }
 
+    /**
+     * @param expressions receives expression text of every function parsed from now on, null stops recording
+     */
+    public void setExpressions(@Nullable FunctionExpressions expressions) {
+        this.expressions = expressions;
+    }
+
     public void setSqlCodeGenerator(SqlCodeGenerator sqlCodeGenerator) {
         this.sqlCodeGenerator = sqlCodeGenerator;
     }
@@ -433,6 +447,8 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
                 return new DoubleColumn(node.position, index);
             case ColumnType.STRING:
                 return new StrColumn(node.position, index);
+            case ColumnType.VARCHAR:
+                return new VarcharColumn(node.position, index);
             case ColumnType.SYMBOL:
                 return new SymbolColumn(node.position, index, metadata.isSymbolTableStatic(index));
             case ColumnType.BINARY:
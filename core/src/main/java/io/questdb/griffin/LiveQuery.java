@@ -0,0 +1,130 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderTailRecordCursor;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Filtered projection of table that follows rows as they are committed. Query starts at the bottom of
+ * the table, {@link #hasNext()} iterates rows that passed filter and were committed since last
+ * {@link #reload(SqlExecutionContext)}. Query owns the reader it tails, it has to be closed.
+ *
+ * @see SqlCompiler#compileLiveQuery(CharSequence, SqlExecutionContext)
+ */
+public class LiveQuery implements Closeable {
+    private final TableReaderTailRecordCursor cursor = new TableReaderTailRecordCursor();
+    private final GenericRecordMetadata metadata;
+    private final IntList columnIndexes;
+    private final Function filter;
+    private final TableReader reader;
+    private final long tableVersion;
+
+    LiveQuery(
+            TableReader reader,
+            GenericRecordMetadata metadata,
+            IntList columnIndexes,
+            @Nullable Function filter,
+            SqlExecutionContext executionContext
+    ) {
+        this.metadata = metadata;
+        this.columnIndexes = columnIndexes;
+        this.filter = filter;
+        this.reader = reader;
+        this.tableVersion = reader.getVersion();
+        cursor.of(reader);
+        if (reader.size() > 0) {
+            cursor.toBottom();
+        }
+        if (filter != null) {
+            filter.init(cursor, executionContext);
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(filter);
+        Misc.free(cursor);
+    }
+
+    /**
+     * @param index index of column in {@link #getMetadata()}
+     * @return index of the same column in {@link #getRecord()}
+     */
+    public int getColumnIndex(int index) {
+        return columnIndexes.getQuick(index);
+    }
+
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    public Record getRecord() {
+        return cursor.getRecord();
+    }
+
+    public boolean hasNext() {
+        final Record record = cursor.getRecord();
+        while (cursor.hasNext()) {
+            if (filter == null || filter.getBool(record)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Makes rows committed since previous reload available to {@link #hasNext()}. Query cannot
+     * follow table through structure change, column indexes it was compiled with may no longer be valid.
+     *
+     * @param executionContext context filter is re-initialised with
+     * @return true when there are new rows
+     * @throws CairoException when table structure changed
+     */
+    public boolean reload(SqlExecutionContext executionContext) {
+        if (!cursor.reload()) {
+            return false;
+        }
+        if (reader.getVersion() != tableVersion) {
+            throw CairoException.instance(0).put("table structure changed");
+        }
+        if (filter != null) {
+            // symbol keys of filter constants could have been added by the commit
+            filter.init(cursor, executionContext);
+        }
+        return true;
+    }
+}
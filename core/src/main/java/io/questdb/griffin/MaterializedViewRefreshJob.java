@@ -0,0 +1,119 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.engine.functions.bind.BindVariableService;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Refreshes materialized views, see {@link SqlCompiler#refreshMaterializedView(CharSequence, SqlExecutionContext)}.
+ * Views whose base table did not commit since last refresh cost a read of base table txn. Views that are
+ * busy, for example refreshed by SQL at the same time, are retried on next run.
+ */
+public class MaterializedViewRefreshJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(MaterializedViewRefreshJob.class);
+    private final SqlCompiler compiler;
+    private final SqlExecutionContextImpl executionContext;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final MicrosecondClock clock;
+    private final long checkInterval;
+    private final Path path = new Path();
+    private final Path viewPath = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final FindVisitor refreshViewRef = this::refreshView;
+    private long last = 0;
+    private long rowCount;
+
+    public MaterializedViewRefreshJob(CairoEngine engine, @Nullable MessageBus messageBus) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.compiler = new SqlCompiler(engine, messageBus);
+        this.executionContext = new SqlExecutionContextImpl(messageBus, 1, engine)
+                .with(AllowAllCairoSecurityContext.INSTANCE, new BindVariableService(), null);
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getMatViewRefreshInterval() * 1000;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compiler);
+        Misc.free(path);
+        Misc.free(viewPath);
+    }
+
+    /**
+     * @return total number of rows this job appended to materialized views
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long t = clock.getTicks();
+        if (last + checkInterval < t) {
+            last = t;
+            ff.iterateDir(path.of(root).$(), refreshViewRef);
+            return true;
+        }
+        return false;
+    }
+
+    private void refreshView(long name, int type) {
+        nativeLPSZ.of(name);
+        if (type != Files.DT_DIR || nativeLPSZ.charAt(0) == '.') {
+            return;
+        }
+
+        if (!ff.exists(viewPath.of(root).concat(nativeLPSZ).concat(TableUtils.MAT_VIEW_FILE_NAME).$())) {
+            return;
+        }
+
+        try {
+            rowCount += compiler.refreshMaterializedView(nativeLPSZ, executionContext);
+        } catch (EntryUnavailableException e) {
+            LOG.debug().$("view is busy, retrying later [name=").$(nativeLPSZ).$(']').$();
+        } catch (CairoException e) {
+            LOG.error().$("could not refresh materialized view [name=").$(nativeLPSZ).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+        } catch (SqlException e) {
+            LOG.error().$("could not refresh materialized view [name=").$(nativeLPSZ).$(", msg=").$(e.getFlyweightMessage()).$(", position=").$(e.getPosition()).$(']').$();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.std.ObjList;
+import io.questdb.std.microtime.MicrosecondClock;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queries currently executing on behalf of clients. Cancelling query only sets flag on its
+ * interruptor, query stops and frees its resources next time one of its loops checks interruptor.
+ */
+public class QueryRegistry {
+    private final ObjList<CancellableSqlExecutionInterruptor> running = new ObjList<>();
+    private final AtomicLong nextQueryId = new AtomicLong();
+    // session secret is the only thing that authorises CancelRequest, it must not be guessable
+    private final SecureRandom sessionSecrets = new SecureRandom();
+    private final MicrosecondClock clock;
+    private final long timeout;
+
+    public QueryRegistry(CairoConfiguration configuration) {
+        this.clock = configuration.getMicrosecondClock();
+        this.timeout = configuration.getSqlQueryTimeout() * 1000;
+    }
+
+    /**
+     * @return true when query was running and is now flagged for cancellation
+     */
+    public boolean cancel(long queryId) {
+        synchronized (running) {
+            for (int i = 0, n = running.size(); i < n; i++) {
+                final CancellableSqlExecutionInterruptor interruptor = running.getQuick(i);
+                if (interruptor.getQueryId() == queryId) {
+                    interruptor.cancel();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cancels query running in session, this is how PostgreSQL CancelRequest identifies query.
+     *
+     * @return true when query was running and is now flagged for cancellation
+     */
+    public boolean cancelSession(int sessionId, int sessionSecret) {
+        synchronized (running) {
+            for (int i = 0, n = running.size(); i < n; i++) {
+                final CancellableSqlExecutionInterruptor interruptor = running.getQuick(i);
+                if (interruptor.getSessionId() == sessionId && interruptor.getSessionSecret() == sessionSecret) {
+                    interruptor.cancel();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies running queries to sink. Queries may finish while caller iterates copy, caller must not
+     * rely on their text and id being stable.
+     */
+    public void getRunningQueries(ObjList<CancellableSqlExecutionInterruptor> sink) {
+        synchronized (running) {
+            sink.addAll(running);
+        }
+    }
+
+    /**
+     * @return unpredictable secret client has to present to cancel its session's query
+     */
+    public int newSessionSecret() {
+        return sessionSecrets.nextInt();
+    }
+
+    /**
+     * @return interruptor that applies configured query timeout
+     */
+    public CancellableSqlExecutionInterruptor newInterruptor() {
+        return new CancellableSqlExecutionInterruptor(this, clock, timeout);
+    }
+
+    void register(CancellableSqlExecutionInterruptor interruptor) {
+        interruptor.setQueryId(nextQueryId.incrementAndGet());
+        synchronized (running) {
+            running.add(interruptor);
+        }
+    }
+
+    void unregister(CancellableSqlExecutionInterruptor interruptor) {
+        synchronized (running) {
+            running.remove(interruptor);
+        }
+    }
+}
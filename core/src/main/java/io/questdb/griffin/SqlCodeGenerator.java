@@ -28,6 +28,8 @@ import io.questdb.cairo.*;
 import io.questdb.cairo.map.RecordValueSink;
 import io.questdb.cairo.map.RecordValueSinkFactory;
 import io.questdb.cairo.sql.*;
+import io.questdb.cutlass.parquet.ParquetRecordCursorFactory;
+import io.questdb.griffin.engine.AnalyzeRecordCursorFactory;
 import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
 import io.questdb.griffin.engine.LimitRecordCursorFactory;
 import io.questdb.griffin.engine.functions.GroupByFunction;
@@ -49,8 +51,7 @@ import io.questdb.std.microtime.Timestamps;
 import org.jetbrains.annotations.NotNull;
 
 import static io.questdb.griffin.SqlKeywords.*;
-import static io.questdb.griffin.model.ExpressionNode.FUNCTION;
-import static io.questdb.griffin.model.ExpressionNode.LITERAL;
+import static io.questdb.griffin.model.ExpressionNode.*;
 
 public class SqlCodeGenerator implements Mutable {
     private static final IntHashSet limitTypes = new IntHashSet();
@@ -132,6 +133,7 @@ public class SqlCodeGenerator implements Mutable {
     private final ObjList<VectorAggregateFunctionConstructor> tempVecConstructors = new ObjList<>();
     private final IntList tempVecConstructorArgIndexes = new IntList();
     private boolean fullFatJoins = false;
+    private boolean analyze = false;
 
     public SqlCodeGenerator(
             CairoEngine engine,
@@ -155,8 +157,9 @@ public class SqlCodeGenerator implements Mutable {
                                                              RecordSink slaveKeySink,
                                                              int columnSplit,
                                                              RecordValueSink slaveValueSink,
-                                                             IntList columnIndex) {
-        return new AsOfJoinRecordCursorFactory(configuration, metadata, masterFactory, slaveFactory, mapKeyTypes, mapValueTypes, slaveColumnTypes, masterKeySink, slaveKeySink, columnSplit, slaveValueSink, columnIndex);
+                                                             IntList columnIndex,
+                                                             MemoryAccount memoryAccount) {
+        return new AsOfJoinRecordCursorFactory(configuration, metadata, masterFactory, slaveFactory, mapKeyTypes, mapValueTypes, slaveColumnTypes, masterKeySink, slaveKeySink, columnSplit, slaveValueSink, columnIndex, memoryAccount);
     }
 
     private static RecordCursorFactory createFullFatLtJoin(CairoConfiguration configuration,
@@ -170,8 +173,9 @@ public class SqlCodeGenerator implements Mutable {
                                                            RecordSink slaveKeySink,
                                                            int columnSplit,
                                                            RecordValueSink slaveValueSink,
-                                                           IntList columnIndex) {
-        return new LtJoinRecordCursorFactory(configuration, metadata, masterFactory, slaveFactory, mapKeyTypes, mapValueTypes, slaveColumnTypes, masterKeySink, slaveKeySink, columnSplit, slaveValueSink, columnIndex);
+                                                           IntList columnIndex,
+                                                           MemoryAccount memoryAccount) {
+        return new LtJoinRecordCursorFactory(configuration, metadata, masterFactory, slaveFactory, mapKeyTypes, mapValueTypes, slaveColumnTypes, masterKeySink, slaveKeySink, columnSplit, slaveValueSink, columnIndex, memoryAccount);
     }
 
     @Override
@@ -179,13 +183,23 @@ public class SqlCodeGenerator implements Mutable {
         whereClauseParser.clear();
     }
 
+    // factories of EXPLAIN ANALYZE query are wrapped to count their rows and time, factory that is
+    // already wrapped is returned as is
+    private RecordCursorFactory analyzed(RecordCursorFactory factory) {
+        if (analyze && !(factory instanceof AnalyzeRecordCursorFactory)) {
+            return new AnalyzeRecordCursorFactory(factory, configuration.getNanosecondClock());
+        }
+        return factory;
+    }
+
     private RecordCursorFactory createAsOfJoin(
             RecordMetadata metadata,
             RecordCursorFactory master,
             RecordSink masterKeySink,
             RecordCursorFactory slave,
             RecordSink slaveKeySink,
-            int columnSplit
+            int columnSplit,
+            MemoryAccount memoryAccount
     ) {
         valueTypes.clear();
         valueTypes.add(ColumnType.LONG);
@@ -200,7 +214,8 @@ public class SqlCodeGenerator implements Mutable {
                 valueTypes,
                 masterKeySink,
                 slaveKeySink,
-                columnSplit
+                columnSplit,
+                memoryAccount
         );
     }
 
@@ -210,7 +225,8 @@ public class SqlCodeGenerator implements Mutable {
             RecordSink masterKeySink,
             RecordCursorFactory slave,
             RecordSink slaveKeySink,
-            int columnSplit
+            int columnSplit,
+            MemoryAccount memoryAccount
     ) {
         valueTypes.clear();
         valueTypes.add(ColumnType.LONG);
@@ -225,7 +241,8 @@ public class SqlCodeGenerator implements Mutable {
                 valueTypes,
                 masterKeySink,
                 slaveKeySink,
-                columnSplit
+                columnSplit,
+                memoryAccount
         );
     }
 
@@ -277,7 +294,8 @@ public class SqlCodeGenerator implements Mutable {
             RecordMetadata slaveMetadata,
             CharSequence slaveAlias,
             int joinPosition,
-            FullFatJoinGenerator generator) throws SqlException {
+            FullFatJoinGenerator generator,
+            MemoryAccount memoryAccount) throws SqlException {
 
         // create hash set of key columns to easily find them
         intHashSet.clear();
@@ -296,7 +314,7 @@ public class SqlCodeGenerator implements Mutable {
         for (int k = 0, m = slaveMetadata.getColumnCount(); k < m; k++) {
             if (intHashSet.excludes(k)) {
                 int type = slaveMetadata.getColumnType(k);
-                if (type == ColumnType.STRING || type == ColumnType.BINARY) {
+                if (type == ColumnType.STRING || type == ColumnType.VARCHAR || type == ColumnType.BINARY) {
                     throw SqlException
                             .position(joinPosition).put("right side column '")
                             .put(slaveMetadata.getColumnName(k)).put("' is of unsupported type");
@@ -390,7 +408,8 @@ public class SqlCodeGenerator implements Mutable {
                 ),
                 masterMetadata.getColumnCount(),
                 RecordValueSinkFactory.getInstance(asm, slaveMetadata, listColumnFilterB),
-                columnIndex
+                columnIndex,
+                memoryAccount
         );
     }
 
@@ -398,7 +417,8 @@ public class SqlCodeGenerator implements Mutable {
             RecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
-            int joinType
+            int joinType,
+            MemoryAccount memoryAccount
     ) {
         /*
          * JoinContext provides the following information:
@@ -442,7 +462,8 @@ public class SqlCodeGenerator implements Mutable {
                         valueTypes,
                         masterKeySink,
                         slaveKeySink,
-                        masterMetadata.getColumnCount()
+                        masterMetadata.getColumnCount(),
+                        memoryAccount
                 );
             }
 
@@ -455,7 +476,8 @@ public class SqlCodeGenerator implements Mutable {
                     valueTypes,
                     masterKeySink,
                     slaveKeySink,
-                    masterMetadata.getColumnCount()
+                    masterMetadata.getColumnCount(),
+                    memoryAccount
             );
         }
 
@@ -478,7 +500,8 @@ public class SqlCodeGenerator implements Mutable {
                     masterKeySink,
                     slaveKeySink,
                     slaveSink,
-                    masterMetadata.getColumnCount()
+                    masterMetadata.getColumnCount(),
+                    memoryAccount
             );
         }
 
@@ -492,7 +515,54 @@ public class SqlCodeGenerator implements Mutable {
                 masterKeySink,
                 slaveKeySink,
                 slaveSink,
-                masterMetadata.getColumnCount()
+                masterMetadata.getColumnCount(),
+                memoryAccount
+        );
+    }
+
+    private RecordCursorFactory createMergeJoin(
+            RecordMetadata metadata,
+            RecordCursorFactory master,
+            RecordCursorFactory slave,
+            int joinType,
+            int timestampKey,
+            MemoryAccount memoryAccount
+    ) {
+        // timestamps are matched by merging both cursors, map is only needed for the remaining keys
+        listColumnFilterA.removeIndex(timestampKey);
+        listColumnFilterB.removeIndex(timestampKey);
+
+        final RecordMetadata masterMetadata = master.getMetadata();
+        final RecordMetadata slaveMetadata = slave.getMetadata();
+        RecordSink masterKeySink = null;
+        RecordSink slaveKeySink = null;
+        final int keyCount = listColumnFilterB.getColumnCount();
+        if (keyCount > 0) {
+            keyTypes.clear();
+            for (int k = 0; k < keyCount; k++) {
+                final int columnType = masterMetadata.getColumnType(listColumnFilterB.getColumnIndex(k));
+                keyTypes.add(columnType == ColumnType.SYMBOL || columnType == ColumnType.VARCHAR ? ColumnType.STRING : columnType);
+            }
+            masterKeySink = RecordSinkFactory.getInstance(asm, masterMetadata, listColumnFilterB, true);
+            slaveKeySink = RecordSinkFactory.getInstance(asm, slaveMetadata, listColumnFilterA, true);
+        }
+
+        valueTypes.clear();
+        valueTypes.add(ColumnType.LONG);
+        valueTypes.add(ColumnType.LONG);
+
+        return new MergeJoinLightRecordCursorFactory(
+                configuration,
+                metadata,
+                master,
+                slave,
+                keyTypes,
+                valueTypes,
+                masterKeySink,
+                slaveKeySink,
+                masterMetadata.getColumnCount(),
+                joinType != QueryModel.JOIN_INNER,
+                memoryAccount
         );
     }
 
@@ -502,7 +572,8 @@ public class SqlCodeGenerator implements Mutable {
             RecordSink masterKeySink,
             RecordCursorFactory slave,
             RecordSink slaveKeySink,
-            int columnSplit
+            int columnSplit,
+            MemoryAccount memoryAccount
     ) {
         valueTypes.clear();
         valueTypes.add(ColumnType.LONG); // master previous
@@ -519,7 +590,8 @@ public class SqlCodeGenerator implements Mutable {
                 valueTypes,
                 masterKeySink,
                 slaveKeySink,
-                columnSplit
+                columnSplit,
+                memoryAccount
         );
     }
 
@@ -567,11 +639,87 @@ public class SqlCodeGenerator implements Mutable {
         final ExpressionNode filter = model.getWhereClause();
         if (filter != null) {
             model.setWhereClause(null);
-            return new FilteredRecordCursorFactory(factory, functionParser.parseFunction(filter, factory.getMetadata(), executionContext));
+            if (factory instanceof ParquetRecordCursorFactory) {
+                addRowGroupFilters((ParquetRecordCursorFactory) factory, filter);
+            }
+            final Function function = functionParser.parseFunction(filter, factory.getMetadata(), executionContext);
+            final int workerCount = executionContext.getWorkerCount();
+            if (workerCount > 1 && configuration.isSqlParallelFilterEnabled() && factory.supportPageFrameCursor() && !function.isConstant()) {
+                // functions are not thread-safe, every worker gets its own copy of the filter
+                final ObjList<Function> workerFilters = new ObjList<>(workerCount);
+                try {
+                    for (int i = 0; i < workerCount; i++) {
+                        workerFilters.add(functionParser.parseFunction(filter, factory.getMetadata(), executionContext));
+                    }
+                } catch (SqlException | CairoException e) {
+                    Misc.free(function);
+                    Misc.freeObjList(workerFilters);
+                    throw e;
+                }
+                return new AsyncFilteredRecordCursorFactory(configuration, analyzed(factory), function, workerFilters);
+            }
+            return new FilteredRecordCursorFactory(analyzed(factory), function);
         }
         return factory;
     }
 
+    // Parquet row groups are skipped based on their min/max statistics. We only look at
+    // top-level conjuncts comparing column to constant, the filter itself is still applied to every row.
+    private static void addRowGroupFilters(ParquetRecordCursorFactory factory, ExpressionNode node) {
+        if (node.type != OPERATION || node.paramCount != 2) {
+            return;
+        }
+
+        if (isAndKeyword(node.token)) {
+            addRowGroupFilters(factory, node.lhs);
+            addRowGroupFilters(factory, node.rhs);
+            return;
+        }
+
+        ExpressionNode column = node.lhs;
+        ExpressionNode value = node.rhs;
+        boolean flipped = false;
+        if (column.type != LITERAL) {
+            column = node.rhs;
+            value = node.lhs;
+            flipped = true;
+        }
+        if (column.type != LITERAL || value.type != CONSTANT) {
+            return;
+        }
+
+        final RecordMetadata metadata = factory.getMetadata();
+        final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+        if (columnIndex == -1) {
+            return;
+        }
+
+        final long v;
+        try {
+            v = Numbers.parseLong(value.token);
+        } catch (NumericException e) {
+            return;
+        }
+
+        final CharSequence op = node.token;
+        if (Chars.equals(op, '=')) {
+            factory.addRowGroupFilter(columnIndex, v, v, false);
+        } else if (Chars.equals(op, '<') || Chars.equals(op, "<=")) {
+            // nulls are stored as minimum values and satisfy "less than" predicates
+            if (flipped) {
+                factory.addRowGroupFilter(columnIndex, v, Long.MAX_VALUE, false);
+            } else {
+                factory.addRowGroupFilter(columnIndex, Long.MIN_VALUE, v, true);
+            }
+        } else if (Chars.equals(op, '>') || Chars.equals(op, ">=")) {
+            if (flipped) {
+                factory.addRowGroupFilter(columnIndex, Long.MIN_VALUE, v, true);
+            } else {
+                factory.addRowGroupFilter(columnIndex, v, Long.MAX_VALUE, false);
+            }
+        }
+    }
+
     private RecordCursorFactory generateFunctionQuery(QueryModel model) throws SqlException {
         final Function function = model.getTableNameFunction();
         assert function != null;
@@ -595,7 +743,7 @@ public class SqlCodeGenerator implements Mutable {
                 QueryModel slaveModel = joinModels.getQuick(index);
 
                 // compile
-                RecordCursorFactory slave = generateQuery(slaveModel, executionContext, i > 0);
+                RecordCursorFactory slave = generateQuery(slaveModel, executionContext, index > 0);
 
                 // check if this is the root of joins
                 if (master == null) {
@@ -622,7 +770,7 @@ public class SqlCodeGenerator implements Mutable {
                             );
                         case QueryModel.JOIN_ASOF:
                             validateBothTimestamps(slaveModel, masterMetadata, slaveMetadata);
-                            processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
+                            processJoinContext(i == 1 || index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
                             if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
                                 if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
                                     master = createAsOfJoin(
@@ -641,7 +789,8 @@ public class SqlCodeGenerator implements Mutable {
                                                     listColumnFilterA,
                                                     true
                                             ),
-                                            masterMetadata.getColumnCount()
+                                            masterMetadata.getColumnCount(),
+                                            executionContext.getMemoryAccount()
                                     );
                                 } else {
                                     master = new AsOfJoinNoKeyRecordCursorFactory(
@@ -660,14 +809,15 @@ public class SqlCodeGenerator implements Mutable {
                                         slaveMetadata,
                                         slaveModel.getName(),
                                         slaveModel.getJoinKeywordPosition(),
-                                        CREATE_FULL_FAT_AS_OF_JOIN
+                                        CREATE_FULL_FAT_AS_OF_JOIN,
+                                        executionContext.getMemoryAccount()
                                 );
                             }
                             masterAlias = null;
                             break;
                         case QueryModel.JOIN_LT:
                             validateBothTimestamps(slaveModel, masterMetadata, slaveMetadata);
-                            processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
+                            processJoinContext(i == 1 || index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
                             if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
                                 if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
                                     master = createLtJoin(
@@ -686,7 +836,8 @@ public class SqlCodeGenerator implements Mutable {
                                                     listColumnFilterA,
                                                     true
                                             ),
-                                            masterMetadata.getColumnCount()
+                                            masterMetadata.getColumnCount(),
+                                            executionContext.getMemoryAccount()
                                     );
                                 } else {
                                     master = new LtJoinNoKeyRecordCursorFactory(
@@ -705,14 +856,15 @@ public class SqlCodeGenerator implements Mutable {
                                         slaveMetadata,
                                         slaveModel.getName(),
                                         slaveModel.getJoinKeywordPosition(),
-                                        CREATE_FULL_FAT_LT_JOIN
+                                        CREATE_FULL_FAT_LT_JOIN,
+                                        executionContext.getMemoryAccount()
                                 );
                             }
                             masterAlias = null;
                             break;
                         case QueryModel.JOIN_SPLICE:
                             validateBothTimestamps(slaveModel, masterMetadata, slaveMetadata);
-                            processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
+                            processJoinContext(i == 1 || index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
                             if (slave.recordCursorSupportsRandomAccess() && master.recordCursorSupportsRandomAccess() && !fullFatJoins) {
                                 master = createSpliceJoin(
                                         // splice join result does not have timestamp
@@ -731,29 +883,45 @@ public class SqlCodeGenerator implements Mutable {
                                                 listColumnFilterA,
                                                 true
                                         ),
-                                        masterMetadata.getColumnCount()
+                                        masterMetadata.getColumnCount(),
+                                        executionContext.getMemoryAccount()
                                 );
                             } else {
                                 assert false;
                             }
                             break;
                         default:
-                            processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
-                            master = createHashJoin(
-                                    createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
-                                    master,
-                                    slave,
-                                    joinType
-                            );
+                            processJoinContext(i == 1 || index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
+                            final int timestampKey = findTimestampJoinKey(masterMetadata, slaveMetadata);
+                            if (timestampKey != -1 && slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
+                                master = createMergeJoin(
+                                        createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                        master,
+                                        slave,
+                                        joinType,
+                                        timestampKey,
+                                        executionContext.getMemoryAccount()
+                                );
+                            } else {
+                                master = createHashJoin(
+                                        createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                        master,
+                                        slave,
+                                        joinType,
+                                        executionContext.getMemoryAccount()
+                                );
+                            }
                             masterAlias = null;
                             break;
                     }
                 }
 
+                master = analyzed(master);
+
                 // check if there are post-filters
                 ExpressionNode filter = slaveModel.getPostJoinWhereClause();
                 if (filter != null) {
-                    master = new FilteredRecordCursorFactory(master, functionParser.parseFunction(filter, master.getMetadata(), executionContext));
+                    master = analyzed(new FilteredRecordCursorFactory(master, functionParser.parseFunction(filter, master.getMetadata(), executionContext)));
                 }
             }
 
@@ -794,8 +962,8 @@ public class SqlCodeGenerator implements Mutable {
             @NotNull IntList columnIndexes
     ) throws SqlException {
         final DataFrameCursorFactory dataFrameCursorFactory;
-        if (intrinsicModel.intervals != null) {
-            dataFrameCursorFactory = new IntervalBwdDataFrameCursorFactory(engine, tableName, model.getTableVersion(), intrinsicModel.intervals, timestampIndex);
+        if (intrinsicModel.hasIntervals()) {
+            dataFrameCursorFactory = new IntervalBwdDataFrameCursorFactory(engine, tableName, model.getTableVersion(), intrinsicModel.buildIntervalModel(), timestampIndex);
         } else {
             dataFrameCursorFactory = new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableVersion());
         }
@@ -941,7 +1109,8 @@ public class SqlCodeGenerator implements Mutable {
                 RecordSinkFactory.getInstance(asm, metadata, listColumnFilterA, false),
                 keyTypes,
                 filter,
-                columnIndexes
+                columnIndexes,
+                executionContext.getMemoryAccount()
         );
     }
 
@@ -993,7 +1162,7 @@ public class SqlCodeGenerator implements Mutable {
         return generateSubQuery(model, executionContext);
     }
 
-    private RecordCursorFactory generateOrderBy(RecordCursorFactory recordCursorFactory, QueryModel model) throws SqlException {
+    private RecordCursorFactory generateOrderBy(RecordCursorFactory recordCursorFactory, QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         if (recordCursorFactory.followedOrderByAdvice()) {
             return recordCursorFactory;
         }
@@ -1062,7 +1231,8 @@ public class SqlCodeGenerator implements Mutable {
                             configuration,
                             orderedMetadata,
                             recordCursorFactory,
-                            recordComparatorCompiler.compile(metadata, listColumnFilterA)
+                            recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                            executionContext.getMemoryAccount()
                     );
                 }
 
@@ -1082,7 +1252,8 @@ public class SqlCodeGenerator implements Mutable {
                                 entityColumnFilter,
                                 false
                         ),
-                        recordComparatorCompiler.compile(metadata, listColumnFilterA)
+                        recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                        executionContext.getMemoryAccount()
                 );
             }
 
@@ -1102,9 +1273,9 @@ public class SqlCodeGenerator implements Mutable {
     }
 
     private RecordCursorFactory generateQuery0(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
-        return generateLimit(
-                generateOrderBy(
-                        generateFilter(
+        return analyzed(generateLimit(
+                analyzed(generateOrderBy(
+                        analyzed(generateFilter(
                                 generateSelect(
                                         model,
                                         executionContext,
@@ -1112,12 +1283,13 @@ public class SqlCodeGenerator implements Mutable {
                                 ),
                                 model,
                                 executionContext
-                        ),
-                        model
-                ),
+                        )),
+                        model,
+                        executionContext
+                )),
                 model,
                 executionContext
-        );
+        ));
     }
 
     @NotNull
@@ -1158,7 +1330,8 @@ public class SqlCodeGenerator implements Mutable {
                             keyTypes,
                             valueTypes,
                             entityColumnFilter,
-                            timestampIndex
+                            timestampIndex,
+                            executionContext.getMemoryAccount()
                     );
                 }
 
@@ -1216,7 +1389,8 @@ public class SqlCodeGenerator implements Mutable {
                             groupByFunctions,
                             recordFunctions,
                             symbolTableSkewIndex,
-                            timestampIndex
+                            timestampIndex,
+                            executionContext.getMemoryAccount()
                     );
                 }
 
@@ -1248,7 +1422,8 @@ public class SqlCodeGenerator implements Mutable {
                             asm,
                             keyTypes,
                             valueTypes,
-                            timestampIndex
+                            timestampIndex,
+                            executionContext.getMemoryAccount()
                     );
                 }
 
@@ -1278,7 +1453,8 @@ public class SqlCodeGenerator implements Mutable {
                             groupByFunctions,
                             recordFunctions,
                             symbolTableSkewIndex,
-                            timestampIndex
+                            timestampIndex,
+                            executionContext.getMemoryAccount()
                     );
                 }
 
@@ -1311,7 +1487,8 @@ public class SqlCodeGenerator implements Mutable {
                         groupByFunctions,
                         recordFunctions,
                         symbolTableSkewIndex,
-                        timestampIndex
+                        timestampIndex,
+                        executionContext.getMemoryAccount()
                 );
             } catch (SqlException | CairoException e) {
                 factory.close();
@@ -1474,7 +1651,8 @@ public class SqlCodeGenerator implements Mutable {
                     configuration,
                     factory,
                     entityColumnFilter,
-                    asm
+                    asm,
+                    executionContext.getMemoryAccount()
             );
         } catch (CairoException e) {
             factory.close();
@@ -1741,7 +1919,8 @@ public class SqlCodeGenerator implements Mutable {
                     groupByMetadata,
                     groupByFunctions,
                     recordFunctions,
-                    symbolTableSkewIndex
+                    symbolTableSkewIndex,
+                    executionContext.getMemoryAccount()
             );
 
         } catch (CairoException e) {
@@ -1917,7 +2096,7 @@ public class SqlCodeGenerator implements Mutable {
                         myMeta.setTimestampIndex(myMeta.getColumnCount() - 1);
 
                         columnIndexes.add(readerTimestampIndex);
-                        columnSizes.add((Numbers.msb(ColumnType.TIMESTAMP)));
+                        columnSizes.add((Numbers.msb(ColumnType.sizeOf(ColumnType.TIMESTAMP))));
                     }
                 } else {
                     framingSupported = false;
@@ -1942,7 +2121,8 @@ public class SqlCodeGenerator implements Mutable {
 
                     // we are reusing collections which leads to confusing naming for this method
                     // keyTypes are types of columns we collect 'latest by' for
-                    keyTypes.add(myMeta.getColumnType(index));
+                    final int columnType = myMeta.getColumnType(index);
+                    keyTypes.add(columnType == ColumnType.VARCHAR ? ColumnType.STRING : columnType);
                     // columnFilterA are indexes of columns we collect 'latest by' for
                     listColumnFilterA.add(index);
                 }
@@ -1957,7 +2137,9 @@ public class SqlCodeGenerator implements Mutable {
                         whereClause,
                         readerMeta,
                         latestByColumnCount > 0 ? latestBy.getQuick(0).token : null,
-                        readerTimestampIndex
+                        readerTimestampIndex,
+                        functionParser,
+                        executionContext
                 );
 
                 // intrinsic parser can collapse where clause when removing parts it can replace
@@ -2013,21 +2195,26 @@ public class SqlCodeGenerator implements Mutable {
                 // below code block generates index-based filter
 
                 final boolean intervalHitsOnlyOnePartition;
-                if (intrinsicModel.intervals != null) {
-                    dfcFactory = new IntervalFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion(), intrinsicModel.intervals, readerTimestampIndex);
-                    switch (reader.getPartitionedBy()) {
-                        case PartitionBy.DAY:
-                            intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_DD);
-                            break;
-                        case PartitionBy.MONTH:
-                            intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_MM);
-                            break;
-                        case PartitionBy.YEAR:
-                            intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_YYYY);
-                            break;
-                        default:
-                            intervalHitsOnlyOnePartition = true;
-                            break;
+                if (intrinsicModel.hasIntervals()) {
+                    dfcFactory = new IntervalFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion(), intrinsicModel.buildIntervalModel(), readerTimestampIndex);
+                    if (intrinsicModel.intervals == null) {
+                        // intervals are calculated when cursor is created
+                        intervalHitsOnlyOnePartition = reader.getPartitionedBy() == PartitionBy.NONE;
+                    } else {
+                        switch (reader.getPartitionedBy()) {
+                            case PartitionBy.DAY:
+                                intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_DD);
+                                break;
+                            case PartitionBy.MONTH:
+                                intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_MM);
+                                break;
+                            case PartitionBy.YEAR:
+                                intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_YYYY);
+                                break;
+                            default:
+                                intervalHitsOnlyOnePartition = true;
+                                break;
+                        }
                     }
                 } else {
                     dfcFactory = new FullFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion());
@@ -2048,6 +2235,7 @@ public class SqlCodeGenerator implements Mutable {
                                 dfcFactory,
                                 rcf,
                                 keyColumnIndex,
+                                Chars.toString(intrinsicModel.keyColumn),
                                 filter,
                                 func,
                                 columnIndexes
@@ -2084,15 +2272,15 @@ public class SqlCodeGenerator implements Mutable {
                         final int symbolKey = reader.getSymbolMapReader(keyColumnIndex).keyOf(symbol);
                         if (symbolKey == SymbolTable.VALUE_NOT_FOUND) {
                             if (filter == null) {
-                                rcf = new DeferredSymbolIndexRowCursorFactory(keyColumnIndex, Chars.toString(symbol), true, indexDirection);
+                                rcf = new DeferredSymbolIndexRowCursorFactory(keyColumnIndex, Chars.toString(intrinsicModel.keyColumn), Chars.toString(symbol), true, indexDirection);
                             } else {
-                                rcf = new DeferredSymbolIndexFilteredRowCursorFactory(keyColumnIndex, Chars.toString(symbol), filter, true, indexDirection);
+                                rcf = new DeferredSymbolIndexFilteredRowCursorFactory(keyColumnIndex, Chars.toString(intrinsicModel.keyColumn), Chars.toString(symbol), filter, true, indexDirection);
                             }
                         } else {
                             if (filter == null) {
-                                rcf = new SymbolIndexRowCursorFactory(keyColumnIndex, symbolKey, true, indexDirection);
+                                rcf = new SymbolIndexRowCursorFactory(keyColumnIndex, Chars.toString(intrinsicModel.keyColumn), symbolKey, Chars.toString(symbol), true, indexDirection);
                             } else {
-                                rcf = new SymbolIndexFilteredRowCursorFactory(keyColumnIndex, symbolKey, filter, true, indexDirection);
+                                rcf = new SymbolIndexFilteredRowCursorFactory(keyColumnIndex, Chars.toString(intrinsicModel.keyColumn), symbolKey, Chars.toString(symbol), filter, true, indexDirection);
                             }
                         }
                         return new DataFrameRecordCursorFactory(myMeta, dfcFactory, rcf, orderByKeyColumn, filter, false, columnIndexes, columnSizes);
@@ -2206,7 +2394,8 @@ public class SqlCodeGenerator implements Mutable {
                     RecordSinkFactory.getInstance(asm, myMeta, listColumnFilterA, false),
                     keyTypes,
                     null,
-                    columnIndexes
+                    columnIndexes,
+                    executionContext.getMemoryAccount()
             );
         }
     }
@@ -2231,6 +2420,13 @@ public class SqlCodeGenerator implements Mutable {
                 true
         );
 
+        // sink writes symbols as strings, map key types have to say so
+        final RecordMetadata masterMetadata = masterFactory.getMetadata();
+        keyTypes.clear();
+        for (int i = 0, n = masterMetadata.getColumnCount(); i < n; i++) {
+            final int columnType = masterMetadata.getColumnType(i);
+            keyTypes.add(columnType == ColumnType.SYMBOL ? ColumnType.STRING : columnType);
+        }
         valueTypes.clear();
 
         RecordCursorFactory unionFactory = new UnionRecordCursorFactory(
@@ -2238,7 +2434,9 @@ public class SqlCodeGenerator implements Mutable {
                 masterFactory,
                 slaveFactory,
                 recordSink,
-                valueTypes
+                keyTypes,
+                valueTypes,
+                executionContext.getMemoryAccount()
         );
 
         if (model.getUnionModel().getUnionModel() != null) {
@@ -2308,6 +2506,25 @@ public class SqlCodeGenerator implements Mutable {
         }
     }
 
+    /**
+     * Finds join key that equates designated timestamps of master and slave. Both cursors
+     * are ordered by these timestamps, which lets join merge them instead of hashing slave.
+     *
+     * @return position of the key in join context or -1 when there is no such key
+     */
+    private int findTimestampJoinKey(RecordMetadata masterMetadata, RecordMetadata slaveMetadata) {
+        final int masterTimestampIndex = masterMetadata.getTimestampIndex();
+        final int slaveTimestampIndex = slaveMetadata.getTimestampIndex();
+        if (masterTimestampIndex != -1 && slaveTimestampIndex != -1) {
+            for (int k = 0, n = listColumnFilterA.getColumnCount(); k < n; k++) {
+                if (listColumnFilterA.getColumnIndex(k) == slaveTimestampIndex && listColumnFilterB.getColumnIndex(k) == masterTimestampIndex) {
+                    return k;
+                }
+            }
+        }
+        return -1;
+    }
+
     private void processJoinContext(boolean vanillaMaster, JoinContext jc, RecordMetadata masterMetadata, RecordMetadata slaveMetadata) throws SqlException {
         lookupColumnIndexesUsingVanillaNames(listColumnFilterA, jc.aNames, slaveMetadata);
         if (vanillaMaster) {
@@ -2324,10 +2541,14 @@ public class SqlCodeGenerator implements Mutable {
                 // index in column filter and join context is the same
                 throw SqlException.$(jc.aNodes.getQuick(k).position, "join column type mismatch");
             }
-            keyTypes.add(columnType == ColumnType.SYMBOL ? ColumnType.STRING : columnType);
+            keyTypes.add(columnType == ColumnType.SYMBOL || columnType == ColumnType.VARCHAR ? ColumnType.STRING : columnType);
         }
     }
 
+    void setAnalyze(boolean analyze) {
+        this.analyze = analyze;
+    }
+
     void setFullFatJoins(boolean fullFatJoins) {
         this.fullFatJoins = fullFatJoins;
     }
@@ -2388,6 +2609,7 @@ public class SqlCodeGenerator implements Mutable {
                                    RecordSink slaveKeySink,
                                    int columnSplit,
                                    RecordValueSink slaveValueSink,
-                                   IntList columnIndex);
+                                   IntList columnIndex,
+                                   MemoryAccount memoryAccount);
     }
 }
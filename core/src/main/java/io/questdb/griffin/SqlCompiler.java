@@ -27,11 +27,16 @@ package io.questdb.griffin;
 import io.questdb.MessageBus;
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.*;
+import io.questdb.cutlass.parquet.ParquetWriter;
 import io.questdb.cutlass.text.Atomicity;
 import io.questdb.cutlass.text.TextException;
 import io.questdb.cutlass.text.TextLoader;
+import io.questdb.griffin.engine.ExplainRecordCursorFactory;
+import io.questdb.griffin.engine.FunctionExpressions;
 import io.questdb.griffin.engine.functions.catalogue.ShowStandardConformingStringsCursorFactory;
 import io.questdb.griffin.engine.functions.catalogue.ShowTransactionIsolationLevelCursorFactory;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
 import io.questdb.griffin.engine.table.ShowColumnsRecordCursorFactory;
 import io.questdb.griffin.engine.table.TableListRecordCursorFactory;
 import io.questdb.griffin.model.*;
@@ -39,8 +44,11 @@ import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import io.questdb.std.microtime.TimestampFormat;
+import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.std.microtime.Timestamps;
 import io.questdb.std.str.NativeLPSZ;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -54,6 +62,7 @@ public class SqlCompiler implements Closeable {
     public static final ObjList<String> sqlControlSymbols = new ObjList<>(8);
     private final static Log LOG = LogFactory.getLog(SqlCompiler.class);
     private static final IntList castGroups = new IntList();
+    private static final String BACKUP_MARKER_FILE_NAME = "_backup";
     private final SqlOptimiser optimiser;
     private final SqlParser parser;
     private final ObjectPool<ExpressionNode> sqlNodePool;
@@ -66,6 +75,7 @@ public class SqlCompiler implements Closeable {
     private final Path path = new Path();
     private final Path renamePath = new Path();
     private final AppendMemory mem = new AppendMemory();
+    private final ReadWriteMemory viewMem = new ReadWriteMemory();
     private final BytecodeAssembler asm = new BytecodeAssembler();
     private final MessageBus messageBus;
     private final CairoEngine engine;
@@ -84,8 +94,23 @@ public class SqlCompiler implements Closeable {
     private final ObjHashSet<CharSequence> tableNames = new ObjHashSet<>();
     private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
     private final CharSequenceObjHashMap<RecordToRowCopier> tableBackupRowCopieCache = new CharSequenceObjHashMap<>();
+    private final Path backupSrcPath = new Path();
+    private final Path backupDstPath = new Path();
+    private final Path backupPrevPath = new Path();
+    private final NativeLPSZ backupFileLPSZ = new NativeLPSZ();
+    private final StringSink backupPartitionName = new StringSink();
+    private final IntList backupSymbolCounts = new IntList();
+    private final IntList dedupKeyColumns = new IntList();
     private transient SqlExecutionContext currentExecutionContext;
     private transient String cachedTmpBackupRoot;
+    private transient CharSequence backupTableName;
+    private transient long backupPrevModified;
+    private transient int backupSrcLen;
+    private transient int backupDstLen;
+    private transient int backupPrevLen;
+    private transient boolean backupLinkable;
+    private final FindVisitor backupFindPreviousOnFind = this::findPreviousBackup;
+    private final FindVisitor backupPartitionFileOnFind = this::backupPartitionFile;
     private final FindVisitor sqlDatabaseBackupOnFind = (file, type) -> {
         nativeLPSZ.of(file);
         if (type == Files.DT_DIR && nativeLPSZ.charAt(0) != '.') {
@@ -137,6 +162,12 @@ public class SqlCompiler implements Closeable {
         keywordBasedExecutors.put("BACKUP", this::sqlBackup);
         keywordBasedExecutors.put("show", this::sqlShow);
         keywordBasedExecutors.put("SHOW", this::sqlShow);
+        keywordBasedExecutors.put("refresh", this::compileRefresh);
+        keywordBasedExecutors.put("REFRESH", this::compileRefresh);
+        keywordBasedExecutors.put("explain", this::compileExplain);
+        keywordBasedExecutors.put("EXPLAIN", this::compileExplain);
+        keywordBasedExecutors.put("cancel", this::compileCancel);
+        keywordBasedExecutors.put("CANCEL", this::compileCancel);
 
         configureLexer(lexer);
 
@@ -187,7 +218,12 @@ public class SqlCompiler implements Closeable {
                 || (from == ColumnType.STRING && to == ColumnType.SYMBOL)
                 || (from == ColumnType.SYMBOL && to == ColumnType.STRING)
                 || (from == ColumnType.CHAR && to == ColumnType.SYMBOL)
-                || (from == ColumnType.CHAR && to == ColumnType.STRING);
+                || (from == ColumnType.CHAR && to == ColumnType.STRING)
+                || (from == ColumnType.CHAR && to == ColumnType.VARCHAR)
+                || (from == ColumnType.STRING && to == ColumnType.VARCHAR)
+                || (from == ColumnType.SYMBOL && to == ColumnType.VARCHAR)
+                || (from == ColumnType.VARCHAR && to == ColumnType.STRING)
+                || (from == ColumnType.VARCHAR && to == ColumnType.SYMBOL);
     }
 
     @Override
@@ -196,7 +232,11 @@ public class SqlCompiler implements Closeable {
         assert tableNames.isEmpty();
         Misc.free(path);
         Misc.free(renamePath);
+        Misc.free(backupSrcPath);
+        Misc.free(backupDstPath);
+        Misc.free(backupPrevPath);
         Misc.free(textLoader);
+        Misc.free(viewMem);
     }
 
     @NotNull
@@ -220,10 +260,121 @@ public class SqlCompiler implements Closeable {
         return executor.execute(executionContext);
     }
 
+    /**
+     * Compiles query that can be followed as rows are committed to the table. Query has to select
+     * columns of single table, optionally filtered by where clause:
+     * <pre>
+     * [select column [, column]* from] table [where filter]
+     * </pre>
+     * Functions, joins, aggregation, ordering and limits cannot be applied to rows that arrive over time
+     * one commit at a time and are rejected.
+     *
+     * @param query            query text
+     * @param executionContext execution context
+     * @return query positioned at the bottom of the table, caller has to close it
+     * @throws SqlException when query is not valid or cannot be followed
+     */
+    public LiveQuery compileLiveQuery(CharSequence query, SqlExecutionContext executionContext) throws SqlException {
+        clear();
+        lexer.of(query);
+        final ExecutionModel executionModel = parser.parse(lexer, executionContext);
+        if (executionModel.getModelType() != ExecutionModel.QUERY) {
+            throw SqlException.$(0, "select query expected");
+        }
+
+        final QueryModel model = (QueryModel) executionModel;
+        final QueryModel nested = model.getNestedModel();
+        if (model.getUnionModel() != null || model.isDistinct() || model.getLimitLo() != null || model.getLimitHi() != null) {
+            throw SqlException.$(model.getModelPosition(), "live query cannot have union, distinct or limit");
+        }
+        final ExpressionNode tableName = nested.getTableName();
+        if (tableName == null || tableName.type != ExpressionNode.LITERAL || nested.getNestedModel() != null) {
+            throw SqlException.$(nested.getModelPosition(), "table name expected");
+        }
+        if (nested.getJoinModels().size() > 1
+                || nested.getLatestBy().size() > 0
+                || nested.getSampleBy() != null
+                || nested.getOrderBy().size() > 0) {
+            throw SqlException.$(tableName.position, "live query cannot have join, latest by, sample by or order by");
+        }
+        tableExistsOrFail(tableName.position, tableName.token, executionContext);
+
+        final TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), tableName.token);
+        Function filter = null;
+        try {
+            final RecordMetadata readerMetadata = reader.getMetadata();
+            final GenericRecordMetadata metadata = new GenericRecordMetadata();
+            final IntList columnIndexes = new IntList();
+            final ObjList<QueryColumn> columns = model.getBottomUpColumns();
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                final QueryColumn column = columns.getQuick(i);
+                final ExpressionNode ast = column.getAst();
+                if (ast.type != ExpressionNode.LITERAL) {
+                    throw SqlException.$(ast.position, "column name expected");
+                }
+                if (Chars.equals(ast.token, '*')) {
+                    for (int j = 0, m = readerMetadata.getColumnCount(); j < m; j++) {
+                        metadata.add(new TableColumnMetadata(Chars.toString(readerMetadata.getColumnName(j)), readerMetadata.getColumnType(j)));
+                        columnIndexes.add(j);
+                    }
+                    continue;
+                }
+                final int index = readerMetadata.getColumnIndexQuiet(ast.token);
+                if (index == -1) {
+                    throw SqlException.invalidColumn(ast.position, ast.token);
+                }
+                final CharSequence name = column.getAlias() != null ? column.getAlias() : ast.token;
+                metadata.add(new TableColumnMetadata(Chars.toString(name), readerMetadata.getColumnType(index)));
+                columnIndexes.add(index);
+            }
+
+            final ExpressionNode where = nested.getWhereClause();
+            if (where != null) {
+                filter = functionParser.parseFunction(where, readerMetadata, executionContext);
+                if (filter.getType() != ColumnType.BOOLEAN) {
+                    throw SqlException.$(where.position, "boolean expression expected");
+                }
+            }
+            return new LiveQuery(reader, metadata, columnIndexes, filter, executionContext);
+        } catch (Throwable e) {
+            Misc.free(filter);
+            reader.close();
+            throw e;
+        }
+    }
+
     public CairoEngine getEngine() {
         return engine;
     }
 
+    /**
+     * Appends rows of closed sample by intervals of base table to materialized view. Rows
+     * below watermark stored with view definition have been aggregated by previous refreshes, so
+     * view query runs only over base table rows that arrived since. Last interval of base table can
+     * still receive rows, it is left out of the view until base table moves past it.
+     *
+     * @param viewName         name of materialized view
+     * @param executionContext execution context
+     * @return number of rows appended to the view
+     * @throws SqlException when view query cannot be compiled against current base table
+     */
+    public long refreshMaterializedView(CharSequence viewName, SqlExecutionContext executionContext) throws SqlException {
+        final String name = Chars.toString(viewName);
+        try (TableWriter writer = engine.getWriter(executionContext.getCairoSecurityContext(), name)) {
+            path.of(configuration.getRoot()).concat(name).concat(TableUtils.MAT_VIEW_FILE_NAME).$();
+            if (!ff.exists(path)) {
+                throw CairoException.instance(0).put("not a materialized view [name=").put(name).put(']');
+            }
+
+            viewMem.of(ff, path, ff.getPageSize());
+            try {
+                return refreshMaterializedView0(writer, executionContext);
+            } finally {
+                viewMem.close();
+            }
+        }
+    }
+
     // Creates data type converter.
     // INT and LONG NaN values are cast to their representation rather than Double or Float NaN.
     private static RecordToRowCopier assembleRecordToRowCopier(BytecodeAssembler asm, ColumnTypes from, RecordMetadata to, ColumnFilter toColumnFilter) {
@@ -248,6 +399,7 @@ public class SqlCompiler implements Closeable {
         int rGetSym = asm.poolInterfaceMethod(Record.class, "getSym", "(I)Ljava/lang/CharSequence;");
         int rGetStr = asm.poolInterfaceMethod(Record.class, "getStr", "(I)Ljava/lang/CharSequence;");
         int rGetBin = asm.poolInterfaceMethod(Record.class, "getBin", "(I)Lio/questdb/std/BinarySequence;");
+        int rGetVarchar = asm.poolInterfaceMethod(Record.class, "getVarcharA", "(I)Lio/questdb/std/str/Utf8Sequence;");
         //
         int wPutInt = asm.poolMethod(TableWriter.Row.class, "putInt", "(II)V");
         int wPutLong = asm.poolMethod(TableWriter.Row.class, "putLong", "(IJ)V");
@@ -266,6 +418,9 @@ public class SqlCompiler implements Closeable {
         int wPutStrChar = asm.poolMethod(TableWriter.Row.class, "putStr", "(IC)V");
         int wPutChar = asm.poolMethod(TableWriter.Row.class, "putChar", "(IC)V");
         int wPutBin = asm.poolMethod(TableWriter.Row.class, "putBin", "(ILio/questdb/std/BinarySequence;)V");
+        int wPutVarcharChar = asm.poolMethod(TableWriter.Row.class, "putVarchar", "(IC)V");
+        int wPutVarchar = asm.poolMethod(TableWriter.Row.class, "putVarchar", "(ILjava/lang/CharSequence;)V");
+        int wPutVarcharUtf8 = asm.poolMethod(TableWriter.Row.class, "putVarchar", "(ILio/questdb/std/str/Utf8Sequence;)V");
 
         int copyNameIndex = asm.poolUtf8("copy");
         int copySigIndex = asm.poolUtf8("(Lio/questdb/cairo/sql/Record;Lio/questdb/cairo/TableWriter$Row;)V");
@@ -600,6 +755,9 @@ public class SqlCompiler implements Closeable {
                         case ColumnType.SYMBOL:
                             asm.invokeVirtual(wPutSymChar);
                             break;
+                        case ColumnType.VARCHAR:
+                            asm.invokeVirtual(wPutVarcharChar);
+                            break;
                         default:
                             asm.invokeVirtual(wPutChar);
                             break;
@@ -607,18 +765,47 @@ public class SqlCompiler implements Closeable {
                     break;
                 case ColumnType.SYMBOL:
                     asm.invokeInterface(rGetSym, 1);
-                    if (to.getColumnType(toColumnIndex) == ColumnType.STRING) {
-                        asm.invokeVirtual(wPutStr);
-                    } else {
-                        asm.invokeVirtual(wPutSym);
+                    switch (to.getColumnType(toColumnIndex)) {
+                        case ColumnType.STRING:
+                            asm.invokeVirtual(wPutStr);
+                            break;
+                        case ColumnType.VARCHAR:
+                            asm.invokeVirtual(wPutVarchar);
+                            break;
+                        default:
+                            asm.invokeVirtual(wPutSym);
+                            break;
                     }
                     break;
                 case ColumnType.STRING:
                     asm.invokeInterface(rGetStr, 1);
-                    if (to.getColumnType(toColumnIndex) == ColumnType.SYMBOL) {
-                        asm.invokeVirtual(wPutSym);
-                    } else {
-                        asm.invokeVirtual(wPutStr);
+                    switch (to.getColumnType(toColumnIndex)) {
+                        case ColumnType.SYMBOL:
+                            asm.invokeVirtual(wPutSym);
+                            break;
+                        case ColumnType.VARCHAR:
+                            asm.invokeVirtual(wPutVarchar);
+                            break;
+                        default:
+                            asm.invokeVirtual(wPutStr);
+                            break;
+                    }
+                    break;
+                case ColumnType.VARCHAR:
+                    switch (to.getColumnType(toColumnIndex)) {
+                        case ColumnType.SYMBOL:
+                            asm.invokeInterface(rGetStr, 1);
+                            asm.invokeVirtual(wPutSym);
+                            break;
+                        case ColumnType.STRING:
+                            asm.invokeInterface(rGetStr, 1);
+                            asm.invokeVirtual(wPutStr);
+                            break;
+                        default:
+                            // bytes are copied as they are, no transcoding
+                            asm.invokeInterface(rGetVarchar, 1);
+                            asm.invokeVirtual(wPutVarcharUtf8);
+                            break;
                     }
                     break;
                 case ColumnType.BINARY:
@@ -731,6 +918,24 @@ public class SqlCompiler implements Closeable {
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "'column' or 'partition' expected");
                     }
+                } else if (SqlKeywords.isCompressKeyword(tok)) {
+                    tok = expectToken(lexer, "'partition'");
+                    if (SqlKeywords.isPartitionKeyword(tok)) {
+                        alterTableCompressPartition(writer);
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'partition' expected");
+                    }
+                } else if (SqlKeywords.isSetKeyword(tok)) {
+                    tok = expectToken(lexer, "'wal' or 'ttl'");
+                    if (SqlKeywords.isTtlKeyword(tok)) {
+                        alterTableSetTtl(writer);
+                    } else if (SqlKeywords.isWalKeyword(tok)) {
+                        alterTableSetWal(writer);
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'wal' or 'ttl' expected");
+                    }
+                } else if (SqlKeywords.isDedupKeyword(tok)) {
+                    alterTableDedup(writer);
                 } else if (SqlKeywords.isRenameKeyword(tok)) {
                     tok = expectToken(lexer, "'column'");
                     if (SqlKeywords.isColumnKeyword(tok)) {
@@ -1025,6 +1230,142 @@ public class SqlCompiler implements Closeable {
         } while (true);
     }
 
+    private void alterTableCompressPartition(TableWriter writer) throws SqlException {
+        do {
+            CharSequence tok = expectToken(lexer, "partition name");
+            if (Chars.equals(tok, ',')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "partition name missing");
+            }
+            final CharSequence unquoted = GenericLexer.unquote(tok);
+
+            final long timestamp;
+            try {
+                timestamp = writer.partitionNameToTimestamp(unquoted);
+            } catch (CairoException e) {
+                throw SqlException.$(lexer.lastTokenPosition(), e.getFlyweightMessage());
+            }
+
+            if (!writer.compressPartition(timestamp)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "could not compress partition '").put(unquoted).put('\'');
+            }
+
+            tok = SqlUtil.fetchNext(lexer);
+
+            if (tok == null) {
+                break;
+            }
+
+            if (!Chars.equals(tok, ',')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "',' expected");
+            }
+        } while (true);
+    }
+
+    private void alterTableSetTtl(TableWriter writer) throws SqlException {
+        CharSequence tok = expectToken(lexer, "TTL value");
+        final int valuePosition = lexer.lastTokenPosition();
+        final int value;
+        try {
+            value = Numbers.parseInt(tok);
+        } catch (NumericException e) {
+            throw SqlException.$(valuePosition, "invalid TTL value");
+        }
+
+        if (value < 0) {
+            throw SqlException.$(valuePosition, "TTL value must not be negative");
+        }
+
+        tok = expectToken(lexer, "'hours', 'days' or 'weeks'");
+        final long unit;
+        if (Chars.equalsLowerCaseAscii(tok, "hour") || Chars.equalsLowerCaseAscii(tok, "hours")) {
+            unit = Timestamps.HOUR_MICROS;
+        } else if (Chars.equalsLowerCaseAscii(tok, "day") || Chars.equalsLowerCaseAscii(tok, "days")) {
+            unit = Timestamps.DAY_MICROS;
+        } else if (Chars.equalsLowerCaseAscii(tok, "week") || Chars.equalsLowerCaseAscii(tok, "weeks")) {
+            unit = Timestamps.WEEK_MICROS;
+        } else {
+            throw SqlException.$(lexer.lastTokenPosition(), "'hours', 'days' or 'weeks' expected");
+        }
+
+        if (writer.getPartitionBy() == PartitionBy.NONE && value > 0) {
+            throw SqlException.$(valuePosition, "TTL requires partitioned table");
+        }
+
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok != null) {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected token: ").put(tok);
+        }
+
+        writer.setTtl(value * unit);
+    }
+
+    private void alterTableDedup(TableWriter writer) throws SqlException {
+        CharSequence tok = expectToken(lexer, "'upsert' or 'disable'");
+        dedupKeyColumns.clear();
+        if (Chars.equalsLowerCaseAscii(tok, "upsert")) {
+            expectKeyword(lexer, "keys");
+            final int keysPosition = lexer.getPosition();
+            expectKeyword(lexer, "(");
+            final RecordMetadata metadata = writer.getMetadata();
+            do {
+                tok = expectToken(lexer, "column name");
+                final int columnIndex = metadata.getColumnIndexQuiet(GenericLexer.unquote(tok));
+                if (columnIndex == -1) {
+                    throw SqlException.invalidColumn(lexer.lastTokenPosition(), tok);
+                }
+                final int type = metadata.getColumnType(columnIndex);
+                if (!DedupKeyIndex.isSupportedKeyType(type)) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "unsupported deduplication key type: ").put(ColumnType.nameOf(type));
+                }
+                if (dedupKeyColumns.indexOf(columnIndex) != -1) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "duplicate column name: ").put(tok);
+                }
+                dedupKeyColumns.add(columnIndex);
+                tok = expectToken(lexer, "',' or ')'");
+            } while (Chars.equals(tok, ','));
+
+            if (!Chars.equals(tok, ')')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "',' or ')' expected");
+            }
+
+            if (metadata.getTimestampIndex() == -1) {
+                throw SqlException.$(keysPosition, "deduplication requires designated timestamp");
+            }
+
+            if (dedupKeyColumns.indexOf(metadata.getTimestampIndex()) == -1) {
+                throw SqlException.$(keysPosition, "deduplication keys must include designated timestamp");
+            }
+        } else if (!Chars.equalsLowerCaseAscii(tok, "disable")) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'upsert' or 'disable' expected");
+        }
+
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok != null) {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected token: ").put(tok);
+        }
+
+        writer.setDedupKeys(dedupKeyColumns);
+    }
+
+    private void alterTableSetWal(TableWriter writer) throws SqlException {
+        CharSequence tok = expectToken(lexer, "'enabled' or 'disabled'");
+        final boolean enabled;
+        if (Chars.equalsLowerCaseAscii(tok, "enabled")) {
+            enabled = true;
+        } else if (Chars.equalsLowerCaseAscii(tok, "disabled")) {
+            enabled = false;
+        } else {
+            throw SqlException.$(lexer.lastTokenPosition(), "'enabled' or 'disabled' expected");
+        }
+
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok != null) {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected token: ").put(tok);
+        }
+
+        writer.setWalEnabled(enabled);
+    }
+
     private void alterTableDropPartition(TableWriter writer) throws SqlException {
         do {
             CharSequence tok = expectToken(lexer, "partition name");
@@ -1072,6 +1413,16 @@ public class SqlCompiler implements Closeable {
             try (TableReader reader = engine.getReader(securityContext, tableName)) {
                 cloneMetaData(tableName, cachedTmpBackupRoot, configuration.getBackupMkDirMode(), reader);
 
+                // closed partitions are immutable, they are copied or linked file by file
+                // and only the last partition is re-appended by backup writer
+                final int activePartitionIndex = reader.getPartitionCount() - 1;
+                final boolean incremental = configuration.isIncrementalBackupEnabled()
+                        && reader.getPartitionedBy() != PartitionBy.NONE
+                        && activePartitionIndex > 0;
+                if (incremental) {
+                    backupClosedPartitions(tableName, reader, activePartitionIndex);
+                }
+
                 try (TableWriter backupWriter = engine.getBackupWriter(securityContext, tableName, cachedTmpBackupRoot)) {
                     RecordMetadata writerMetadata = backupWriter.getMetadata();
                     path.of(tableName).put(Files.SEPARATOR).put(reader.getVersion()).$();
@@ -1082,8 +1433,12 @@ public class SqlCompiler implements Closeable {
                         tableBackupRowCopieCache.put(path.toString(), recordToRowCopier);
                     }
 
-                    RecordCursor cursor = reader.getCursor();
-                    copyTableData(cursor, backupWriter, writerMetadata, recordToRowCopier);
+                    if (incremental) {
+                        copyPartitionData(reader, activePartitionIndex, backupWriter, writerMetadata, recordToRowCopier);
+                    } else {
+                        RecordCursor cursor = reader.getCursor();
+                        copyTableData(cursor, backupWriter, writerMetadata, recordToRowCopier);
+                    }
                     backupWriter.commit();
                 }
             }
@@ -1108,6 +1463,107 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private void backupPartitionFile(long file, int type) {
+        if (type != Files.DT_DIR) {
+            backupSrcPath.trimTo(backupSrcLen).concat(file).$();
+            backupDstPath.trimTo(backupDstLen).concat(file).$();
+            if (backupLinkable) {
+                // file of closed partition that has not been modified since previous backup
+                // started is the same file previous backup holds
+                backupPrevPath.trimTo(backupPrevLen).concat(file).$();
+                if (ff.getLastModified(backupSrcPath) < backupPrevModified
+                        && ff.exists(backupPrevPath)
+                        && ff.length(backupPrevPath) == ff.length(backupSrcPath)
+                        && ff.hardLink(backupPrevPath, backupDstPath) == 0) {
+                    return;
+                }
+            }
+            if (ff.copy(backupSrcPath, backupDstPath) != 0) {
+                throw CairoException.instance(ff.errno()).put("Could not copy [from=").put(backupSrcPath).put(", to=").put(backupDstPath).put(']');
+            }
+        }
+    }
+
+    private void backupClosedPartitions(CharSequence tableName, TableReader reader, int activePartitionIndex) {
+        backupTableName = tableName;
+        backupPrevModified = -1;
+        ff.iterateDir(path.of(configuration.getBackupRoot()).$(), backupFindPreviousOnFind);
+        final int prevTableLen = backupPrevPath.length();
+        if (backupPrevModified > -1) {
+            LOG.info().$("previous backup [table=").$(tableName).$(", dir=").$(backupPrevPath.$()).$(']').$();
+        }
+
+        final TimestampFormat partitionDirFmt = TableWriter.selectPartitionDirFmt(reader.getPartitionedBy());
+        assert partitionDirFmt != null;
+        long fixedRowCount = 0;
+        for (int i = 0; i < activePartitionIndex; i++) {
+            final long partitionRowCount = reader.openPartition(i);
+            if (partitionRowCount < 1) {
+                continue;
+            }
+
+            backupPartitionName.clear();
+            partitionDirFmt.format(reader.getPartitionTimestamp(i), null, null, backupPartitionName);
+            createBackupPartitionDir(tableName);
+
+            backupSrcPath.of(configuration.getRoot()).concat(tableName).concat(backupPartitionName);
+            backupSrcLen = backupSrcPath.length();
+            backupLinkable = false;
+            if (backupPrevModified > -1) {
+                // only partitions that were closed in previous backup hold copies of live files
+                backupPrevPath.trimTo(prevTableLen).concat(backupPartitionName);
+                backupPrevLen = backupPrevPath.length();
+                backupLinkable = ff.exists(backupPrevPath.concat(TableUtils.ARCHIVE_FILE_NAME).$());
+            }
+            ff.iterateDir(backupSrcPath.$(), backupPartitionFileOnFind);
+            fixedRowCount += partitionRowCount;
+        }
+
+        // backup writer will append rows of the active partition to empty directory,
+        // make sure it exists so that writer does not look for active partition elsewhere
+        backupPartitionName.clear();
+        partitionDirFmt.format(reader.getPartitionTimestamp(activePartitionIndex), null, null, backupPartitionName);
+        createBackupPartitionDir(tableName);
+
+        path.of(cachedTmpBackupRoot).concat(tableName).concat(TableUtils.TXN_FILE_NAME).$();
+        try {
+            mem.of(ff, path, ff.getPageSize());
+            TableUtils.resetTxn(
+                    mem,
+                    backupSymbolCounts,
+                    0L,
+                    TableUtils.INITIAL_TXN,
+                    fixedRowCount,
+                    reader.getMinTimestamp(),
+                    reader.getPartitionTimestamp(activePartitionIndex)
+            );
+        } finally {
+            mem.close();
+        }
+    }
+
+    private void findPreviousBackup(long file, int type) {
+        backupFileLPSZ.of(file);
+        if (type == Files.DT_DIR && !Files.isDots(backupFileLPSZ) && !Chars.equals(backupFileLPSZ, configuration.getBackupTempDirName())) {
+            // previous backups of table are recognised by marker file, its
+            // modification time is the time backup started at
+            backupSrcPath.of(configuration.getBackupRoot()).concat(file).concat(backupTableName).concat(BACKUP_MARKER_FILE_NAME).$();
+            final long modified = ff.getLastModified(backupSrcPath);
+            if (modified > backupPrevModified) {
+                backupPrevModified = modified;
+                backupPrevPath.of(configuration.getBackupRoot()).concat(file).concat(backupTableName);
+            }
+        }
+    }
+
+    private void createBackupPartitionDir(CharSequence tableName) {
+        backupDstPath.of(cachedTmpBackupRoot).concat(tableName).concat(backupPartitionName);
+        backupDstLen = backupDstPath.length();
+        if (ff.mkdirs(backupDstPath.put(Files.SEPARATOR).$(), configuration.getBackupMkDirMode()) != 0) {
+            throw CairoException.instance(ff.errno()).put("Could not create [dir=").put(backupDstPath).put(']');
+        }
+    }
+
     private void clear() {
         sqlNodePool.clear();
         characterStore.clear();
@@ -1131,21 +1587,34 @@ public class SqlCompiler implements Closeable {
         TableReaderMetadata sourceMetaData = (TableReaderMetadata) reader.getMetadata();
         int rootLen = path.length();
         try {
+            // marker time stamps start of the backup, files modified before that
+            // are not copied again by the next incremental backup
+            if (!ff.touch(path.trimTo(rootLen).concat(BACKUP_MARKER_FILE_NAME).$())) {
+                throw CairoException.instance(ff.errno()).put("Could not create [file=").put(path).put(']');
+            }
+
             mem.of(ff, path.trimTo(rootLen).concat(TableUtils.META_FILE_NAME).$(), ff.getPageSize());
             sourceMetaData.cloneTo(mem);
 
-            // create symbol maps
+            // create symbol maps, populated in source key order, so that symbol
+            // keys in copied partition files resolve to the same values
             path.trimTo(rootLen).$();
-            int symbolMapCount = 0;
+            backupSymbolCounts.clear();
             for (int i = 0, sz = sourceMetaData.getColumnCount(); i < sz; i++) {
                 if (sourceMetaData.getColumnType(i) == ColumnType.SYMBOL) {
                     SymbolMapReader mapReader = reader.getSymbolMapReader(i);
                     SymbolMapWriter.createSymbolMapFiles(ff, mem, path, sourceMetaData.getColumnName(i), mapReader.getSymbolCapacity(), mapReader.isCached());
-                    symbolMapCount++;
+                    try (SymbolMapWriter mapWriter = new SymbolMapWriter(configuration, path, sourceMetaData.getColumnName(i), 0)) {
+                        for (int k = 0, n = mapReader.size(); k < n; k++) {
+                            mapWriter.put(mapReader.valueOf(k));
+                        }
+                        mapWriter.updateNullFlag(mapReader.containsNullValue());
+                    }
+                    backupSymbolCounts.add(mapReader.size());
                 }
             }
             mem.of(ff, path.trimTo(rootLen).concat(TableUtils.TXN_FILE_NAME).$(), ff.getPageSize());
-            TableUtils.resetTxn(mem, symbolMapCount, 0L, TableUtils.INITIAL_TXN);
+            TableUtils.resetTxn(mem, backupSymbolCounts, 0L, TableUtils.INITIAL_TXN, 0L, Long.MAX_VALUE, Long.MIN_VALUE);
         } finally {
             mem.close();
         }
@@ -1163,11 +1632,93 @@ public class SqlCompiler implements Closeable {
                 } else {
                     return lightlyValidateInsertModel(insertModel);
                 }
+            case ExecutionModel.COPY:
+                final CopyModel copyModel = (CopyModel) model;
+                if (copyModel.getQueryModel() != null) {
+                    copyModel.setQueryModel(optimiser.optimise(copyModel.getQueryModel(), executionContext));
+                }
+                return model;
             default:
                 return model;
         }
     }
 
+    private CompiledQuery compileCancel(SqlExecutionContext executionContext) throws SqlException {
+        expectKeyword(lexer, "query");
+        final int idPosition = lexer.getPosition();
+        final CharSequence tok = expectToken(lexer, "query id");
+        final long queryId;
+        try {
+            queryId = Numbers.parseLong(tok);
+        } catch (NumericException e) {
+            throw SqlException.$(idPosition, "query id expected");
+        }
+        final CharSequence next = SqlUtil.fetchNext(lexer);
+        if (next != null && !isSemicolon(next)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected token: ").put(next);
+        }
+
+        executionContext.getCairoSecurityContext().checkWritePermission();
+        // query stops next time it checks its interruptor, this only flags it
+        if (!engine.getQueryRegistry().cancel(queryId)) {
+            throw SqlException.$(idPosition, "query is not running [id=").put(queryId).put(']');
+        }
+        return compiledQuery.ofCancelQuery();
+    }
+
+    private CompiledQuery compileExplain(SqlExecutionContext executionContext) throws SqlException {
+        CharSequence tok = SqlUtil.fetchNext(lexer);
+        final boolean analyze = tok != null && isAnalyzeKeyword(tok);
+        if (analyze) {
+            tok = SqlUtil.fetchNext(lexer);
+        }
+        if (tok == null) {
+            throw SqlException.$(lexer.getPosition(), "query expected");
+        }
+        final int queryPosition = lexer.lastTokenPosition();
+
+        lexer.unparse();
+        codeGenerator.clear();
+        final ExecutionModel executionModel = compileExecutionModel(executionContext);
+        if (executionModel.getModelType() != ExecutionModel.QUERY) {
+            throw SqlException.$(queryPosition, "select query expected");
+        }
+        final FunctionExpressions expressions = new FunctionExpressions();
+        functionParser.setExpressions(expressions);
+        codeGenerator.setAnalyze(analyze);
+        try {
+            return compiledQuery.of(new ExplainRecordCursorFactory(generate((QueryModel) executionModel, executionContext), expressions, analyze));
+        } finally {
+            functionParser.setExpressions(null);
+            codeGenerator.setAnalyze(false);
+        }
+    }
+
+    private CompiledQuery compileRefresh(SqlExecutionContext executionContext) throws SqlException {
+        expectKeyword(lexer, "materialized");
+        expectKeyword(lexer, "view");
+
+        final int viewNamePosition = lexer.getPosition();
+        final CharSequence tok = GenericLexer.unquote(expectToken(lexer, "view name"));
+        tableExistsOrFail(viewNamePosition, tok, executionContext);
+        if (!ff.exists(path.of(configuration.getRoot()).concat(tok).concat(TableUtils.MAT_VIEW_FILE_NAME).$())) {
+            throw SqlException.$(viewNamePosition, "materialized view expected");
+        }
+
+        final String viewName = Chars.toString(tok);
+        final CharSequence next = SqlUtil.fetchNext(lexer);
+        if (next != null && !isSemicolon(next)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected token: ").put(next);
+        }
+
+        try {
+            refreshMaterializedView(viewName, executionContext);
+        } catch (CairoException e) {
+            throw SqlException.$(viewNamePosition, "could not refresh materialized view: ").put(e.getFlyweightMessage());
+        }
+        return compiledQuery.ofRefreshMaterializedView();
+    }
+
     private CompiledQuery compileSet(SqlExecutionContext executionContext) {
         return compiledQuery.ofSet();
     }
@@ -1266,6 +1817,17 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private ExpressionNode concatFilters(ExpressionNode old, ExpressionNode filter) {
+        if (old == null) {
+            return filter;
+        }
+        ExpressionNode n = sqlNodePool.next().of(ExpressionNode.OPERATION, "and", 0, 0);
+        n.paramCount = 2;
+        n.lhs = old;
+        n.rhs = filter;
+        return n;
+    }
+
     private TableWriter copyTableData(CharSequence tableName, RecordCursor cursor, RecordMetadata cursorMetadata) {
         TableWriter writer = new TableWriter(configuration, tableName, messageBus, false, DefaultLifecycleManager.INSTANCE);
         try {
@@ -1280,6 +1842,19 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private void copyPartitionData(TableReader reader, int partitionIndex, TableWriter writer, RecordMetadata writerMetadata, RecordToRowCopier copier) {
+        final TableReaderRecordCursor cursor = reader.getCursor();
+        final Record record = cursor.getRecordB();
+        final int timestampIndex = writerMetadata.getTimestampIndex();
+        for (long r = 0, n = reader.openPartition(partitionIndex); r < n; r++) {
+            cursor.recordAt(record, Rows.toRowID(partitionIndex, r));
+            TableWriter.Row row = writer.newRow(record.getTimestamp(timestampIndex));
+            copier.copy(record, row);
+            row.append();
+        }
+        writer.commit();
+    }
+
     private void copyTableData(RecordCursor cursor, TableWriter writer, RecordMetadata writerMetadata, RecordToRowCopier recordToRowCopier) {
         int timestampIndex = writerMetadata.getTimestampIndex();
         if (timestampIndex == -1) {
@@ -1319,6 +1894,8 @@ public class SqlCompiler implements Closeable {
                 try {
                     if (createTableModel.getQueryModel() == null) {
                         engine.creatTable(executionContext.getCairoSecurityContext(), mem, path, createTableModel);
+                    } else if (createTableModel.isMaterializedView()) {
+                        writer = createMaterializedView(createTableModel, executionContext);
                     } else {
                         writer = createTableFromCursor(createTableModel, executionContext);
                     }
@@ -1333,9 +1910,45 @@ public class SqlCompiler implements Closeable {
             throw SqlException.$(name.position, "cannot acquire table lock");
         }
 
+        if (createTableModel.isMaterializedView()) {
+            refreshMaterializedView(name.token, executionContext);
+        }
         return compiledQuery.ofCreateTable();
     }
 
+    private TableWriter createMaterializedView(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
+        try (final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext)) {
+            final RecordMetadata metadata = factory.getMetadata();
+            if (metadata.getTimestampIndex() == -1) {
+                throw SqlException.$(model.getName().position, "materialized view query must select timestamp column");
+            }
+            typeCast.clear();
+            validateTableModelAndCreateTypeCast(model, metadata, typeCast);
+            engine.creatTable(
+                    executionContext.getCairoSecurityContext(),
+                    mem,
+                    path,
+                    tableStructureAdapter.of(model, metadata, typeCast)
+            );
+        }
+
+        try {
+            path.of(configuration.getRoot()).concat(model.getName().token).concat(TableUtils.MAT_VIEW_FILE_NAME).$();
+            viewMem.of(ff, path, ff.getPageSize());
+            viewMem.putLong(-1);
+            viewMem.putStr(GenericLexer.unquote(model.getViewBaseTable().token));
+            viewMem.putStr(model.getViewQuery());
+        } catch (CairoException e) {
+            viewMem.close();
+            if (removeTableDirectory(model)) {
+                throw e;
+            }
+            throw SqlException.$(0, "Concurrent modification cannot be handled. Failed to clean up. See log for more details.");
+        }
+        viewMem.close();
+        return new TableWriter(configuration, model.getName().token, messageBus, false, DefaultLifecycleManager.INSTANCE);
+    }
+
     private TableWriter createTableFromCursor(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
         try (final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext);
              final RecordCursor cursor = factory.getCursor(executionContext)
@@ -1406,6 +2019,10 @@ public class SqlCompiler implements Closeable {
 
     @NotNull
     private CompiledQuery executeCopy(SqlExecutionContext executionContext, CopyModel executionModel) throws SqlException {
+        if (executionModel.isExport()) {
+            exportParquet(executionContext, executionModel);
+            return compiledQuery.ofCopyLocal();
+        }
         setupTextLoaderFromModel(executionModel);
         if (Chars.equalsLowerCaseAscii(executionModel.getFileName().token, "stdin")) {
             return compiledQuery.ofCopyRemote(textLoader);
@@ -1414,6 +2031,57 @@ public class SqlCompiler implements Closeable {
         return compiledQuery.ofCopyLocal();
     }
 
+    private void exportParquet(SqlExecutionContext executionContext, CopyModel model) throws SqlException {
+        final ExpressionNode fileName = model.getFileName();
+        final CharSequence name = GenericLexer.assertNoDots(GenericLexer.unquote(fileName.token), fileName.position);
+        final int rowGroupSize = model.getRowGroupSize() > 0 ? model.getRowGroupSize() : configuration.getSqlParquetRowGroupSize();
+        final ExpressionNode tableName = model.getTableName();
+        if (tableName != null) {
+            tableExistsOrFail(tableName.position, GenericLexer.unquote(tableName.token), executionContext);
+        }
+
+        path.of(configuration.getInputRoot()).concat(name).$();
+        try (ParquetWriter parquetWriter = new ParquetWriter(ff)) {
+            if (tableName != null) {
+                // whole table export, row groups never span partitions
+                try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), GenericLexer.unquote(tableName.token))) {
+                    parquetWriter.of(path, reader.getMetadata());
+                    final RecordCursor cursor = reader.getCursor();
+                    final Record record = cursor.getRecord();
+                    int partitionIndex = -1;
+                    while (cursor.hasNext()) {
+                        final int index = Rows.toPartitionIndex(record.getRowId());
+                        if (index != partitionIndex || parquetWriter.getRowGroupRowCount() == rowGroupSize) {
+                            parquetWriter.flushRowGroup();
+                            partitionIndex = index;
+                        }
+                        parquetWriter.append(record);
+                    }
+                    parquetWriter.finish();
+                }
+            } else {
+                try (
+                        RecordCursorFactory factory = generate(model.getQueryModel(), executionContext);
+                        RecordCursor cursor = factory.getCursor(executionContext)
+                ) {
+                    parquetWriter.of(path, factory.getMetadata());
+                    final Record record = cursor.getRecord();
+                    while (cursor.hasNext()) {
+                        if (parquetWriter.getRowGroupRowCount() == rowGroupSize) {
+                            parquetWriter.flushRowGroup();
+                        }
+                        parquetWriter.append(record);
+                    }
+                    parquetWriter.finish();
+                }
+            }
+            LOG.info().$("exported [rows=").$(parquetWriter.getTotalRowCount()).$(", path=").$(path).$(']').$();
+        } catch (CairoException e) {
+            ff.remove(path);
+            throw SqlException.position(fileName.position).put(e.getFlyweightMessage());
+        }
+    }
+
     private CompiledQuery executeWithRetries(
             ExecutableMethod method,
             ExecutionModel executionModel,
@@ -1665,6 +2333,67 @@ public class SqlCompiler implements Closeable {
         return false;
     }
 
+    private long refreshMaterializedView0(TableWriter writer, SqlExecutionContext executionContext) throws SqlException {
+        final CharSequence baseTableName = viewMem.getStr(TableUtils.MAT_VIEW_OFFSET_BASE_TABLE);
+        final CharSequence query = viewMem.getStr2(TableUtils.MAT_VIEW_OFFSET_BASE_TABLE + VirtualMemory.getStorageLength(baseTableName));
+
+        final long baseTxn;
+        final long baseMaxTimestamp;
+        final String timestampColumn;
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), baseTableName)) {
+            baseTxn = reader.getTxn();
+            if (baseTxn == viewMem.getLong(TableUtils.MAT_VIEW_OFFSET_BASE_TXN)) {
+                return 0;
+            }
+            baseMaxTimestamp = reader.getMaxTimestamp();
+            final RecordMetadata metadata = reader.getMetadata();
+            if (metadata.getTimestampIndex() == -1) {
+                throw CairoException.instance(0).put("base table has no designated timestamp [table=").put(baseTableName).put(']');
+            }
+            timestampColumn = Chars.toString(metadata.getColumnName(metadata.getTimestampIndex()));
+        }
+
+        clear();
+        lexer.of(query);
+        final QueryModel model = (QueryModel) parser.parse(lexer, executionContext);
+        final QueryModel nested = model.getNestedModel();
+        final ExpressionNode sampleBy = nested.getSampleBy();
+        final TimestampSampler sampler = TimestampSamplerFactory.getInstance(sampleBy.token, sampleBy.position);
+        final long hi = sampler.round(baseMaxTimestamp);
+        // watermark is derived from the last committed bucket of the view, it cannot disagree with view rows
+        final long viewMaxTimestamp = writer.getMaxTimestamp();
+        final long watermark = viewMaxTimestamp == Long.MIN_VALUE ? Long.MIN_VALUE : sampler.nextTimestamp(viewMaxTimestamp);
+
+        long rowCount = 0;
+        if (baseMaxTimestamp != Long.MIN_VALUE && hi > watermark) {
+            ExpressionNode filter = timestampFilter(timestampColumn, "<", hi);
+            if (watermark != Long.MIN_VALUE) {
+                filter = concatFilters(timestampFilter(timestampColumn, ">=", watermark), filter);
+            }
+            nested.setWhereClause(concatFilters(nested.getWhereClause(), filter));
+
+            try (
+                    RecordCursorFactory factory = generate(optimiser.optimise(model, executionContext), executionContext);
+                    RecordCursor cursor = factory.getCursor(executionContext)
+            ) {
+                final RecordMetadata writerMetadata = writer.getMetadata();
+                entityColumnFilter.of(writerMetadata.getColumnCount());
+                final RecordToRowCopier copier = assembleRecordToRowCopier(asm, factory.getMetadata(), writerMetadata, entityColumnFilter);
+                final long size = writer.size();
+                copyTableData(cursor, writer, writerMetadata, copier);
+                rowCount = writer.size() - size;
+            }
+        }
+        viewMem.putLong(TableUtils.MAT_VIEW_OFFSET_BASE_TXN, baseTxn);
+
+        LOG.info().$("refreshed materialized view [name=").$(writer.getName())
+                .$(", baseTxn=").$(baseTxn)
+                .$(", watermark=").$ts(Math.max(watermark, hi))
+                .$(", rows=").$(rowCount)
+                .$(']').$();
+        return rowCount;
+    }
+
     private CompiledQuery repairTables(SqlExecutionContext executionContext) throws SqlException {
         CharSequence tok;
         tok = SqlUtil.fetchNext(lexer);
@@ -1966,6 +2695,19 @@ public class SqlCompiler implements Closeable {
         return model;
     }
 
+    private ExpressionNode timestampFilter(CharSequence timestampColumn, CharSequence operation, long timestamp) {
+        final CharacterStoreEntry entry = characterStore.newEntry();
+        entry.put('\'');
+        TimestampFormatUtils.appendDateTimeUSec(entry, timestamp);
+        entry.put('\'');
+
+        final ExpressionNode n = sqlNodePool.next().of(ExpressionNode.OPERATION, operation, 0, 0);
+        n.paramCount = 2;
+        n.lhs = sqlNodePool.next().of(ExpressionNode.LITERAL, timestampColumn, 0, 0);
+        n.rhs = sqlNodePool.next().of(ExpressionNode.CONSTANT, entry.toImmutable(), 0, 0);
+        return n;
+    }
+
     private void validateTableModelAndCreateTypeCast(
             CreateTableModel model,
             RecordMetadata metadata,
@@ -2120,6 +2862,7 @@ public class SqlCompiler implements Closeable {
         castGroups.extendAndSet(ColumnType.TIMESTAMP, 1);
         castGroups.extendAndSet(ColumnType.STRING, 3);
         castGroups.extendAndSet(ColumnType.SYMBOL, 3);
+        castGroups.extendAndSet(ColumnType.VARCHAR, 3);
         castGroups.extendAndSet(ColumnType.BINARY, 4);
 
         sqlControlSymbols.add("(");
@@ -27,6 +27,7 @@ package io.questdb.griffin;
 import io.questdb.MessageBus;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoSecurityContext;
+import io.questdb.griffin.engine.QueryMemoryAccount;
 import io.questdb.griffin.engine.functions.bind.BindVariableService;
 import io.questdb.std.Rnd;
 import org.jetbrains.annotations.Nullable;
@@ -39,6 +40,11 @@ public interface SqlExecutionContext {
 
     @Nullable MessageBus getMessageBus();
 
+    /**
+     * @return account native memory of queries compiled with this context is charged to
+     */
+    QueryMemoryAccount getMemoryAccount();
+
     boolean isTimestampRequired();
 
     void popTimestampRequiredFlag();
@@ -28,6 +28,7 @@ import io.questdb.MessageBus;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoSecurityContext;
+import io.questdb.griffin.engine.QueryMemoryAccount;
 import io.questdb.griffin.engine.functions.bind.BindVariableService;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.std.IntStack;
@@ -42,6 +43,7 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
     private final CairoEngine cairoEngine;
     @Nullable
     private final MessageBus messageBus;
+    private final QueryMemoryAccount memoryAccount = new QueryMemoryAccount();
     private BindVariableService bindVariableService;
     private CairoSecurityContext cairoSecurityContext;
     private Rnd random;
@@ -76,6 +78,11 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         return messageBus;
     }
 
+    @Override
+    public QueryMemoryAccount getMemoryAccount() {
+        return memoryAccount;
+    }
+
     @Override
     public boolean isTimestampRequired() {
         return timestampRequiredStack.notEmpty() && timestampRequiredStack.peek() == 1;
@@ -118,6 +118,7 @@ class SqlOptimiser {
     private final CharSequenceIntHashMap constNameToIndex = new CharSequenceIntHashMap();
     private final CharSequenceObjHashMap<ExpressionNode> constNameToNode = new CharSequenceObjHashMap<>();
     private final IntList tempCrossIndexes = new IntList();
+    private final IntList joinPositions = new IntList();
     private final IntList clausesToSteal = new IntList();
     private final ObjectPool<IntList> intListPool = new ObjectPool<>(IntList::new, 16);
     private final ObjectPool<QueryModel> queryModelPool;
@@ -127,6 +128,7 @@ class SqlOptimiser {
     private final ColumnPrefixEraser columnPrefixEraser = new ColumnPrefixEraser();
     private final Path path;
     private final ObjList<ExpressionNode> orderByAdvice = new ObjList<>();
+    private final long joinReorderRowThreshold;
     private int defaultAliasCount = 0;
     private ObjList<JoinContext> emittedJoinClauses;
 
@@ -150,6 +152,7 @@ class SqlOptimiser {
         this.functionParser = functionParser;
         this.contextPool = new ObjectPool<>(JoinContext.FACTORY, configuration.getSqlJoinContextPoolCapacity());
         this.path = path;
+        this.joinReorderRowThreshold = configuration.getSqlJoinReorderRowThreshold();
     }
 
     private static void linkDependencies(QueryModel model, int parent, int child) {
@@ -1613,6 +1616,7 @@ class SqlOptimiser {
                 TableUtils.ANY_TABLE_VERSION
         )) {
             model.setTableVersion(r.getVersion());
+            model.setTableStatistics(r.size(), r.getMetadata().getTimestampIndex());
             copyColumnsFromMetadata(model, r.getMetadata());
         } catch (EntryLockedException e) {
             throw SqlException.position(tableNamePosition).put("table is locked: ").put(tableLookupSequence);
@@ -1803,6 +1807,7 @@ class SqlOptimiser {
             createImpliedDependencies(model);
             homogenizeCrossJoins(model);
             reorderTables(model);
+            reorderTablesByRowCount(model);
             assignFilters(model);
             alignJoinClauses(model);
             addTransitiveFilters(model);
@@ -2006,8 +2011,9 @@ class SqlOptimiser {
         }
 
         // process join models and their join conditions
+        // "this" model has join clauses too when joins are re-rooted on another table
         final ObjList<QueryModel> joinModels = model.getJoinModels();
-        for (int i = 1, n = joinModels.size(); i < n; i++) {
+        for (int i = 0, n = joinModels.size(); i < n; i++) {
             final QueryModel jm = joinModels.getQuick(i);
             final JoinContext jc = jm.getContext();
             if (jc != null && jc.aIndexes.size() > 0) {
@@ -2022,7 +2028,10 @@ class SqlOptimiser {
                     }
                 }
             }
-            propagateTopDownColumns(jm, false, model);
+
+            if (i > 0) {
+                propagateTopDownColumns(jm, false, model);
+            }
 
             // process post-join-where
             final ExpressionNode postJoinWhere = jm.getPostJoinWhereClause();
@@ -2127,6 +2136,133 @@ class SqlOptimiser {
         assert root != -1;
     }
 
+    /**
+     * Re-roots graph of inner joins on the largest table. Hash join builds its map from
+     * slave rows, so when the largest table is the master, smaller tables end up on the build side
+     * regardless of the order they are listed in "from" clause. Remaining tables are then joined
+     * smallest first, each to a table that is already joined.
+     * <p>
+     * Row counts are taken from table readers when columns are enumerated. Order stays unchanged
+     * when there are sub-queries, outer, cross or time series joins, when the largest table has
+     * fewer rows than configured threshold and when the first table has designated timestamp,
+     * which would no longer be timestamp of join result.
+     */
+    private void reorderTablesByRowCount(QueryModel parent) {
+        if (parent.getTableRowCount() < 0
+                || parent.getTableTimestampIndex() != -1
+                || parent.getTimestamp() != null
+                || parent.getOrderBy().size() > 0
+                || parent.getLimitLo() != null
+                || parent.getSampleBy() != null
+                || parent.getLatestBy().size() > 0) {
+            return;
+        }
+
+        final ObjList<QueryModel> joinModels = parent.getJoinModels();
+        final int n = joinModels.size();
+        int root = 0;
+        long rootRowCount = parent.getTableRowCount();
+        for (int i = 1; i < n; i++) {
+            final QueryModel m = joinModels.getQuick(i);
+            final JoinContext jc = m.getContext();
+            if (m.getJoinType() != QueryModel.JOIN_INNER || jc == null || jc.parents.size() == 0 || m.getTableRowCount() < 0) {
+                return;
+            }
+            if (m.getTableRowCount() > rootRowCount) {
+                root = i;
+                rootRowCount = m.getTableRowCount();
+            }
+        }
+
+        if (root == 0 || rootRowCount < joinReorderRowThreshold) {
+            return;
+        }
+
+        // join clauses are collected from all contexts and redistributed
+        // once new order is known, each clause goes to whichever of its tables is joined later
+        final JoinContext clauses = contextPool.next();
+        for (int i = 1; i < n; i++) {
+            final JoinContext jc = joinModels.getQuick(i).getContext();
+            for (int k = 0, m = jc.aIndexes.size(); k < m; k++) {
+                clauses.aIndexes.add(jc.aIndexes.getQuick(k));
+                clauses.aNames.add(jc.aNames.getQuick(k));
+                clauses.aNodes.add(jc.aNodes.getQuick(k));
+                clauses.bIndexes.add(jc.bIndexes.getQuick(k));
+                clauses.bNames.add(jc.bNames.getQuick(k));
+                clauses.bNodes.add(jc.bNodes.getQuick(k));
+            }
+        }
+
+        joinPositions.setAll(n, -1);
+        joinPositions.setQuick(root, 0);
+        final IntList ordered = parent.nextOrderedJoinModels();
+        ordered.add(root);
+
+        final int clauseCount = clauses.aIndexes.size();
+        while (ordered.size() < n) {
+            int next = -1;
+            long nextRowCount = Long.MAX_VALUE;
+            for (int k = 0; k < clauseCount; k++) {
+                final int ai = clauses.aIndexes.getQuick(k);
+                final int bi = clauses.bIndexes.getQuick(k);
+                final int candidate;
+                if (joinPositions.getQuick(ai) == -1 && joinPositions.getQuick(bi) != -1) {
+                    candidate = ai;
+                } else if (joinPositions.getQuick(bi) == -1 && joinPositions.getQuick(ai) != -1) {
+                    candidate = bi;
+                } else {
+                    continue;
+                }
+
+                final long rowCount = joinModels.getQuick(candidate).getTableRowCount();
+                if (rowCount < nextRowCount || (rowCount == nextRowCount && candidate < next)) {
+                    next = candidate;
+                    nextRowCount = rowCount;
+                }
+            }
+
+            if (next == -1) {
+                // tables are not connected by join clauses, keep the order we have
+                return;
+            }
+            joinPositions.setQuick(next, ordered.size());
+            ordered.add(next);
+        }
+
+        for (int i = 0; i < n; i++) {
+            final QueryModel m = joinModels.getQuick(i);
+            m.getDependencies().clear();
+            m.setContext(null);
+        }
+
+        for (int k = 0; k < clauseCount; k++) {
+            final int ai = clauses.aIndexes.getQuick(k);
+            final int bi = clauses.bIndexes.getQuick(k);
+            final int slave = joinPositions.getQuick(ai) > joinPositions.getQuick(bi) ? ai : bi;
+            final int master = slave == ai ? bi : ai;
+            final QueryModel m = joinModels.getQuick(slave);
+
+            JoinContext jc = m.getContext();
+            if (jc == null) {
+                m.setContext(jc = contextPool.next());
+                jc.slaveIndex = slave;
+            }
+            jc.aIndexes.add(ai);
+            jc.aNames.add(clauses.aNames.getQuick(k));
+            jc.aNodes.add(clauses.aNodes.getQuick(k));
+            jc.bIndexes.add(bi);
+            jc.bNames.add(clauses.bNames.getQuick(k));
+            jc.bNodes.add(clauses.bNodes.getQuick(k));
+            jc.parents.add(master);
+            linkDependencies(parent, master, slave);
+        }
+
+        for (int i = 0; i < n; i++) {
+            joinModels.getQuick(i).setJoinType(i == root ? QueryModel.JOIN_CROSS : QueryModel.JOIN_INNER);
+        }
+        parent.setOrderedJoinModels(ordered);
+    }
+
     private ExpressionNode replaceIfAggregate(@Transient ExpressionNode node, QueryModel model) {
         if (node != null && functionParser.isGroupBy(node.token)) {
             QueryColumn c = queryColumnPool.next().of(createColumnAlias(node, model), node);
@@ -279,6 +279,14 @@ public final class SqlParser {
         return SqlUtil.nextLiteral(expressionNodePool, token, position);
     }
 
+    private ExpressionNode expectFileName(GenericLexer lexer) throws SqlException {
+        final ExpressionNode fileName = expectExpr(lexer);
+        if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
+            throw SqlException.$(fileName.position, "file name expected");
+        }
+        return fileName;
+    }
+
     private CharSequence notTermTok(GenericLexer lexer) throws SqlException {
         CharSequence tok = tok(lexer, "')' or ','");
         if (isFieldTerm(tok)) {
@@ -342,14 +350,24 @@ public final class SqlParser {
         if (configuration.getInputRoot() == null) {
             throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
         }
-        ExpressionNode tableName = expectExpr(lexer);
-        CharSequence tok = tok(lexer, "'from' or 'to'");
+
+        ExpressionNode tableName = null;
+        QueryModel queryModel = null;
+        CharSequence tok = tok(lexer, "table name or '('");
+        if (Chars.equals(tok, '(')) {
+            queryModel = parseAsSubQueryAndExpectClosingBrace(lexer);
+        } else {
+            lexer.unparse();
+            tableName = expectExpr(lexer);
+        }
+
+        tok = tok(lexer, "'from' or 'to'");
 
         if (isFromKeyword(tok)) {
-            final ExpressionNode fileName = expectExpr(lexer);
-            if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
-                throw SqlException.$(fileName.position, "file name expected");
+            if (queryModel != null) {
+                throw SqlException.$(lexer.lastTokenPosition(), "'to' expected");
             }
+            final ExpressionNode fileName = expectFileName(lexer);
             CopyModel model = copyModelPool.next();
             model.setTableName(tableName);
             model.setFileName(fileName);
@@ -368,12 +386,89 @@ public final class SqlParser {
             }
             return model;
         }
-        throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
+
+        if (isToKeyboard(tok)) {
+            final ExpressionNode fileName = expectFileName(lexer);
+            CopyModel model = copyModelPool.next();
+            model.setExport(true);
+            model.setTableName(tableName);
+            model.setQueryModel(queryModel);
+            model.setFileName(fileName);
+
+            tok = optTok(lexer);
+            if (tok != null && isWithKeyword(tok)) {
+                tok = tok(lexer, "copy option");
+                while (tok != null) {
+                    if (Chars.equalsLowerCaseAscii(tok, "row_group_size")) {
+                        tok = tok(lexer, "row group size");
+                        try {
+                            final int rowGroupSize = Numbers.parseInt(tok);
+                            if (rowGroupSize < 1) {
+                                throw SqlException.$(lexer.lastTokenPosition(), "row group size must be positive");
+                            }
+                            model.setRowGroupSize(rowGroupSize);
+                        } catch (NumericException e) {
+                            throw SqlException.$(lexer.lastTokenPosition(), "row group size expected");
+                        }
+                        tok = optTok(lexer);
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
+                    }
+                }
+            }
+            return model;
+        }
+        throw SqlException.$(lexer.lastTokenPosition(), "'from' or 'to' expected");
+    }
+
+    private ExecutionModel parseCreateMaterializedView(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
+        final CreateTableModel model = createTableModelPool.next();
+        final CharSequence viewName = tok(lexer, "view name");
+        model.setName(nextLiteral(GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(viewName), lexer.lastTokenPosition()), lexer.lastTokenPosition()));
+
+        expectTok(lexer, "as");
+        expectTok(lexer, '(');
+        final int queryLo = lexer.getPosition();
+        final QueryModel queryModel = parseDml(lexer);
+        validateMaterializedViewQuery(queryModel, queryLo);
+        expectTok(lexer, ')');
+        model.setViewQuery(Chars.toString(lexer.getContent(), queryLo, lexer.lastTokenPosition()).trim());
+        model.setViewBaseTable(queryModel.getNestedModel().getTableName());
+
+        final QueryModel optimisedModel = optimiser.optimise(queryModel, executionContext);
+        final ObjList<QueryColumn> columns = optimisedModel.getBottomUpColumns();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            model.addColumn(columns.getQuick(i).getName(), -1, configuration.getDefaultSymbolCapacity());
+        }
+        model.setQueryModel(optimisedModel);
+
+        CharSequence tok = optTok(lexer);
+        final ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
+        if (partitionBy != null) {
+            if (PartitionBy.fromString(partitionBy.token) == -1) {
+                throw SqlException.$(partitionBy.position, "'NONE', 'DAY', 'MONTH' or 'YEAR' expected");
+            }
+            model.setPartitionBy(partitionBy);
+            tok = optTok(lexer);
+        }
+
+        if (tok == null || Chars.equals(tok, ';')) {
+            return model;
+        }
+        throw errUnexpected(lexer, tok);
     }
 
     private ExecutionModel parseCreateStatement(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
-        expectTok(lexer, "table");
-        return parseCreateTable(lexer, executionContext);
+        final CharSequence tok = tok(lexer, "'table' or 'materialized view'");
+        if (isTableKeyword(tok)) {
+            return parseCreateTable(lexer, executionContext);
+        }
+
+        if (isMaterializedKeyword(tok)) {
+            expectTok(lexer, "view");
+            return parseCreateMaterializedView(lexer, executionContext);
+        }
+        throw SqlException.$(lexer.lastTokenPosition(), "'table' or 'materialized view' expected");
     }
 
     private ExecutionModel parseCreateTable(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
@@ -627,6 +722,36 @@ public final class SqlParser {
         return null;
     }
 
+    /**
+     * Materialized view is refreshed by re-running its query over base table rows that arrived since
+     * last refresh. This is only correct when every output row depends on rows of one sample by interval.
+     */
+    private static void validateMaterializedViewQuery(QueryModel model, int position) throws SqlException {
+        final QueryModel nested = model.getNestedModel();
+        if (model.getUnionModel() != null
+                || nested == null
+                || nested.getNestedModel() != null
+                || nested.getTableName() == null
+                || nested.getTableName().type != ExpressionNode.LITERAL
+                || nested.getJoinModels().size() > 1) {
+            throw SqlException.$(position, "materialized view must select from single table");
+        }
+
+        final ExpressionNode sampleBy = nested.getSampleBy();
+        if (sampleBy == null) {
+            throw SqlException.$(position, "materialized view query must use SAMPLE BY");
+        }
+
+        final ObjList<ExpressionNode> fill = nested.getSampleByFill();
+        if (fill.size() > 1 || (fill.size() == 1 && !Chars.equalsLowerCaseAscii(fill.getQuick(0).token, "none"))) {
+            throw SqlException.$(fill.getQuick(0).position, "FILL is not supported by materialized view");
+        }
+
+        if (nested.getLatestBy().size() > 0 || nested.getOrderBy().size() > 0 || model.getLimitLo() != null) {
+            throw SqlException.$(position, "LATEST BY, ORDER BY and LIMIT are not supported by materialized view");
+        }
+    }
+
     private QueryModel parseDml(GenericLexer lexer) throws SqlException {
         QueryModel model = null;
         QueryModel prevModel = null;
@@ -25,10 +25,12 @@
 package io.questdb.griffin;
 
 import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.model.AliasTranslator;
 import io.questdb.griffin.model.ExpressionNode;
 import io.questdb.griffin.model.IntrinsicModel;
+import io.questdb.griffin.model.RuntimeIntervalModel;
 import io.questdb.std.*;
 import io.questdb.std.microtime.TimestampFormatUtils;
 import io.questdb.std.str.FlyweightCharSequence;
@@ -59,6 +61,9 @@ final class WhereClauseParser implements Mutable {
     private final ObjectPool<FlyweightCharSequence> csPool = new ObjectPool<>(FlyweightCharSequence.FACTORY, 64);
     private CharSequence timestamp;
     private CharSequence preferredKeyColumn;
+    private FunctionParser functionParser;
+    private RecordMetadata metadata;
+    private SqlExecutionContext executionContext;
 
     @Override
     public void clear() {
@@ -171,7 +176,7 @@ final class WhereClauseParser implements Mutable {
         if (node.lhs.type == ExpressionNode.LITERAL && Chars.equals(node.lhs.token, timestamp)) {
 
             if (node.rhs.type != ExpressionNode.CONSTANT) {
-                return false;
+                return analyzeRuntimeBound(model, node, node.rhs, equalsTo ? RuntimeIntervalModel.BOUND_LO_INCLUSIVE : RuntimeIntervalModel.BOUND_LO);
             }
 
             try {
@@ -187,7 +192,7 @@ final class WhereClauseParser implements Mutable {
         if (node.rhs.type == ExpressionNode.LITERAL && Chars.equals(node.rhs.token, timestamp)) {
 
             if (node.lhs.type != ExpressionNode.CONSTANT) {
-                return false;
+                return analyzeRuntimeBound(model, node, node.lhs, equalsTo ? RuntimeIntervalModel.BOUND_HI_INCLUSIVE : RuntimeIntervalModel.BOUND_HI);
             }
 
             try {
@@ -203,18 +208,7 @@ final class WhereClauseParser implements Mutable {
     }
 
     private long parseFullOrPartialDate(boolean equalsTo, ExpressionNode node, boolean isLo) throws NumericException {
-        long ts;
-        if (node.token.length() - 2 < 20) {
-            if (equalsTo ^ isLo) {
-                ts = IntrinsicModel.parseCeilingPartialDate(node.token, 1, node.token.length() - 1);
-            } else {
-                ts = IntrinsicModel.parseFloorPartialDate(node.token, 1, node.token.length() - 1);
-            }
-        } else {
-            long inc = equalsTo ? 0 : isLo ? 1 : -1;
-            ts = TimestampFormatUtils.tryParse(node.token, 1, node.token.length() - 1) + inc;
-        }
-        return ts;
+        return IntrinsicModel.parseFullOrPartialDate(equalsTo, isLo, node.token, 1, node.token.length() - 1);
     }
 
     private boolean analyzeIn(AliasTranslator translator, IntrinsicModel model, ExpressionNode node, RecordMetadata metadata) throws SqlException {
@@ -331,7 +325,7 @@ final class WhereClauseParser implements Mutable {
             try {
 
                 if (node.rhs.type != ExpressionNode.CONSTANT) {
-                    return false;
+                    return analyzeRuntimeBound(model, node, node.rhs, equalsTo ? RuntimeIntervalModel.BOUND_HI_INCLUSIVE : RuntimeIntervalModel.BOUND_HI);
                 }
                 long hi = parseFullOrPartialDate(equalsTo, node.rhs, false);
                 model.intersectIntervals(Long.MIN_VALUE, hi);
@@ -345,7 +339,7 @@ final class WhereClauseParser implements Mutable {
         if (node.rhs.type == ExpressionNode.LITERAL && Chars.equals(node.rhs.token, timestamp)) {
             try {
                 if (node.lhs.type != ExpressionNode.CONSTANT) {
-                    return false;
+                    return analyzeRuntimeBound(model, node, node.lhs, equalsTo ? RuntimeIntervalModel.BOUND_LO_INCLUSIVE : RuntimeIntervalModel.BOUND_LO);
                 }
                 long lo = parseFullOrPartialDate(equalsTo, node.lhs, true);
                 model.intersectIntervals(lo, Long.MAX_VALUE);
@@ -358,6 +352,69 @@ final class WhereClauseParser implements Mutable {
         return false;
     }
 
+    /**
+     * Turns comparison of timestamp with bind variable or runtime constant expression, such as
+     * "ts > $1" or "ts > systimestamp() - 3600000000", into interval, which is evaluated when cursor is created.
+     * Expressions that depend on columns or are not constant for duration of query stay in filter.
+     */
+    private boolean analyzeRuntimeBound(IntrinsicModel model, ExpressionNode node, ExpressionNode bound, int boundType) {
+        if (!isRuntimeConstantCandidate(bound)) {
+            return false;
+        }
+
+        final Function function;
+        try {
+            function = functionParser.parseFunction(bound, metadata, executionContext);
+        } catch (SqlException e) {
+            // expression stays in filter, which reports the error
+            return false;
+        }
+        if (!function.isConstant() && !function.isRuntimeConstant()) {
+            Misc.free(function);
+            return false;
+        }
+
+        switch (function.getType()) {
+            case ColumnType.TIMESTAMP:
+            case ColumnType.DATE:
+            case ColumnType.LONG:
+            case ColumnType.DOUBLE:
+            case ColumnType.STRING:
+                model.intersectRuntimeInterval(function, boundType);
+                node.intrinsicValue = IntrinsicModel.TRUE;
+                return true;
+            default:
+                Misc.free(function);
+                return false;
+        }
+    }
+
+    private static boolean isRuntimeConstantCandidate(ExpressionNode node) {
+        if (node == null) {
+            return true;
+        }
+        switch (node.type) {
+            case ExpressionNode.CONSTANT:
+                return true;
+            case ExpressionNode.LITERAL:
+                // bind variable, otherwise column
+                return node.token.length() > 1 && (node.token.charAt(0) == ':' || node.token.charAt(0) == '$');
+            case ExpressionNode.OPERATION:
+            case ExpressionNode.FUNCTION:
+                if (node.paramCount < 3) {
+                    return isRuntimeConstantCandidate(node.lhs) && isRuntimeConstantCandidate(node.rhs);
+                }
+                for (int i = 0, n = node.args.size(); i < n; i++) {
+                    if (!isRuntimeConstantCandidate(node.args.getQuick(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
     private boolean analyzeListOfValues(IntrinsicModel model, CharSequence columnName, RecordMetadata meta, ExpressionNode node) {
         final int columnIndex = meta.getColumnIndex(columnName);
         boolean newColumn = true;
@@ -646,10 +703,15 @@ final class WhereClauseParser implements Mutable {
             ExpressionNode node,
             RecordMetadata m,
             CharSequence preferredKeyColumn,
-            int timestampIndex
+            int timestampIndex,
+            FunctionParser functionParser,
+            SqlExecutionContext executionContext
     ) throws SqlException {
         this.timestamp = timestampIndex < 0 ? null : m.getColumnName(timestampIndex);
         this.preferredKeyColumn = preferredKeyColumn;
+        this.functionParser = functionParser;
+        this.metadata = m;
+        this.executionContext = executionContext;
 
         IntrinsicModel model = models.next();
 
@@ -24,9 +24,11 @@
 
 package io.questdb.griffin.engine;
 
+import io.questdb.std.MemoryAccount;
 import java.io.Closeable;
 
 import io.questdb.std.MemoryPages;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
 import io.questdb.std.Unsafe;
@@ -45,9 +47,9 @@ public abstract class AbstractRedBlackTree implements Mutable, Closeable {
     protected final MemoryPages mem;
     protected long root = -1;
 
-    public AbstractRedBlackTree(long keyPageSize, int keyMaxPages) {
+    public AbstractRedBlackTree(long keyPageSize, int keyMaxPages, MemoryAccount memoryAccount) {
         assert keyPageSize >= getBlockSize();
-        this.mem = new MemoryPages(keyPageSize, keyMaxPages);
+        this.mem = new MemoryPages(keyPageSize, keyMaxPages, MemoryTag.NATIVE_SQL_TREE, memoryAccount);
     }
 
     @Override
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.NanosecondClock;
+
+/**
+ * Wraps every factory of EXPLAIN ANALYZE query. Cursor of the wrapper counts rows its base returns and
+ * time spent in base cursor, which includes time of factories below it. Other calls are passed through
+ * untouched, so code generator makes same choices as it would for the query alone.
+ */
+public class AnalyzeRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final NanosecondClock clock;
+    private final AnalyzeRecordCursor cursor = new AnalyzeRecordCursor();
+    private long rows;
+    private long nanos;
+    private int loops;
+
+    public AnalyzeRecordCursorFactory(RecordCursorFactory base, NanosecondClock clock) {
+        this.base = base;
+        this.clock = clock;
+    }
+
+    @Override
+    public void close() {
+        base.close();
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return base.followedOrderByAdvice();
+    }
+
+    public RecordCursorFactory getBase() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final long start = clock.getTicks();
+        try {
+            cursor.of(base.getCursor(executionContext));
+        } finally {
+            nanos += clock.getTicks() - start;
+        }
+        loops++;
+        return cursor;
+    }
+
+    /**
+     * @return number of times cursor was opened, 0 when factory was only used for page frames
+     */
+    public int getLoops() {
+        return loops;
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return base.getMetadata();
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) {
+        return base.getPageFrameCursor(executionContext);
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    @Override
+    public boolean supportPageFrameCursor() {
+        return base.supportPageFrameCursor();
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        if (loops > 0) {
+            sink.actual(rows, loops, nanos);
+        }
+        base.toPlan(sink);
+    }
+
+    private class AnalyzeRecordCursor implements RecordCursor {
+        private RecordCursor base;
+
+        @Override
+        public void close() {
+            base.close();
+        }
+
+        @Override
+        public Record getRecord() {
+            return base.getRecord();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return base.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            final long start = clock.getTicks();
+            final boolean next = base.hasNext();
+            nanos += clock.getTicks() - start;
+            if (next) {
+                rows++;
+            }
+            return next;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return base.getRecordB();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            base.recordAt(record, atRowId);
+        }
+
+        @Override
+        public void toTop() {
+            base.toTop();
+        }
+
+        @Override
+        public long size() {
+            return base.size();
+        }
+
+        private void of(RecordCursor base) {
+            this.base = base;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.cairo.sql.Plannable;
+import io.questdb.std.IntList;
+import io.questdb.std.Mutable;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Text of EXPLAIN output, one line per node or attribute. Attributes and child nodes are indented
+ * under the node they belong to.
+ */
+public class ExplainPlan implements PlanSink, Mutable {
+    private static final int INDENT = 2;
+    private final StringSink sink = new StringSink();
+    private final IntList lineStarts = new IntList();
+    private CharSequence label;
+    private int depth;
+    private int workerCount;
+    private FunctionExpressions expressions;
+    private int actualLoops;
+    private long actualRows;
+    private long actualNanos;
+
+    @Override
+    public void actual(long rows, int loops, long nanos) {
+        this.actualRows = rows;
+        this.actualLoops = loops;
+        this.actualNanos = nanos;
+    }
+
+    @Override
+    public CharSink attr(CharSequence name) {
+        return line().put(name).put(": ");
+    }
+
+    @Override
+    public void attr(CharSequence name, Function function) {
+        if (function != null) {
+            final CharSequence expression = expressions != null ? expressions.get(function) : null;
+            if (expression != null) {
+                attr(name).put(expression);
+            } else {
+                // function was not created from expression of this query, class is all we know
+                final String className = function.getClass().getName();
+                attr(name).put(className, className.lastIndexOf('.') + 1, className.length());
+            }
+        }
+    }
+
+    @Override
+    public void child(CharSequence label, Plannable node) {
+        if (node != null) {
+            final int depth = this.depth;
+            this.label = label;
+            node.toPlan(this);
+            this.depth = depth;
+        }
+    }
+
+    @Override
+    public void clear() {
+        sink.clear();
+        lineStarts.clear();
+        label = null;
+        depth = 0;
+        actualLoops = 0;
+    }
+
+    public CharSequence getLine(int index) {
+        final int hi = index + 1 < lineStarts.size() ? lineStarts.getQuick(index + 1) : sink.length();
+        return sink.subSequence(lineStarts.getQuick(index), hi);
+    }
+
+    public int getLineCount() {
+        return lineStarts.size();
+    }
+
+    @Override
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public void of(Plannable node, int workerCount, FunctionExpressions expressions) {
+        clear();
+        this.workerCount = workerCount;
+        this.expressions = expressions;
+        child(node);
+    }
+
+    @Override
+    public CharSink type(CharSequence name) {
+        final CharSink line = line();
+        if (label != null) {
+            line.put(label).put(": ");
+            label = null;
+        }
+        depth++;
+        line.put(name);
+        if (actualLoops > 0) {
+            line.put(" (actual rows=").put(actualRows)
+                    .put(", loops=").put(actualLoops)
+                    .put(", time=").put(actualNanos / 1_000_000d, 3).put("ms)");
+            actualLoops = 0;
+        }
+        return line;
+    }
+
+    private CharSink line() {
+        lineStarts.add(sink.length());
+        return sink.fill(' ', depth * INDENT);
+    }
+}
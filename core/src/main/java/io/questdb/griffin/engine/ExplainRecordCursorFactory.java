@@ -0,0 +1,148 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+
+/**
+ * Result of EXPLAIN: single string column with one row per line of plan. EXPLAIN ANALYZE runs the query
+ * to the end first, factories of such query are wrapped by {@link AnalyzeRecordCursorFactory} and their
+ * rows and time are printed next to their names.
+ */
+public class ExplainRecordCursorFactory implements RecordCursorFactory {
+    private static final GenericRecordMetadata METADATA = new GenericRecordMetadata();
+
+    static {
+        METADATA.add(new TableColumnMetadata("QUERY PLAN", ColumnType.STRING));
+    }
+
+    private final RecordCursorFactory base;
+    private final FunctionExpressions expressions;
+    private final boolean analyze;
+    private final ExplainPlan plan = new ExplainPlan();
+    private final ExplainRecordCursor cursor = new ExplainRecordCursor();
+
+    public ExplainRecordCursorFactory(RecordCursorFactory base, FunctionExpressions expressions, boolean analyze) {
+        this.base = base;
+        this.expressions = expressions;
+        this.analyze = analyze;
+    }
+
+    @Override
+    public void close() {
+        base.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        if (analyze) {
+            try (RecordCursor baseCursor = base.getCursor(executionContext)) {
+                while (baseCursor.hasNext()) {
+                    // rows are counted by wrappers of factories
+                }
+            }
+        }
+        plan.of(base, executionContext.getWorkerCount(), expressions);
+        cursor.toTop();
+        return cursor;
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return METADATA;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(analyze ? "Explain analyze" : "Explain");
+        sink.child(base);
+    }
+
+    private class ExplainRecordCursor implements RecordCursor {
+        private final ExplainRecord record = new ExplainRecord();
+        private int line;
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return ++line < plan.getLineCount();
+        }
+
+        @Override
+        public Record getRecordB() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void toTop() {
+            line = -1;
+        }
+
+        @Override
+        public long size() {
+            return plan.getLineCount();
+        }
+
+        private class ExplainRecord implements Record {
+            @Override
+            public CharSequence getStr(int col) {
+                return plan.getLine(line);
+            }
+
+            @Override
+            public CharSequence getStrB(int col) {
+                return getStr(col);
+            }
+
+            @Override
+            public int getStrLen(int col) {
+                return getStr(col).length();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Expressions that functions were parsed from. Function parser records them while EXPLAIN is compiled,
+ * plan then prints functions as they were written, with column names and operators, rather than by class.
+ */
+public class FunctionExpressions implements Mutable {
+    private final ObjList<Function> functions = new ObjList<>();
+    private final ObjList<String> expressions = new ObjList<>();
+    private final StringSink sink = new StringSink();
+
+    public void add(Function function, ExpressionNode node) {
+        sink.clear();
+        node.toSink(sink);
+        functions.add(function);
+        expressions.add(sink.toString());
+    }
+
+    @Override
+    public void clear() {
+        functions.clear();
+        expressions.clear();
+    }
+
+    /**
+     * @param function function as returned by parser
+     * @return expression text or null when function was not created by parser while it was recording
+     */
+    public CharSequence get(Function function) {
+        // plans have few functions, identity scan is enough
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            if (functions.getQuick(i) == function) {
+                return expressions.getQuick(i);
+            }
+        }
+        return null;
+    }
+}
@@ -32,11 +32,20 @@ import org.jetbrains.annotations.Nullable;
 public class LimitRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordCursorFactory base;
     private final LimitRecordCursor cursor;
+    private final Function loFunction;
+    private final Function hiFunction;
 
     public LimitRecordCursorFactory(RecordCursorFactory base, Function loFunction, @Nullable Function hiFunction) {
         super(base.getMetadata());
         this.base = base;
         this.cursor = new LimitRecordCursor(loFunction, hiFunction);
+        this.loFunction = loFunction;
+        this.hiFunction = hiFunction;
+    }
+
+    @Override
+    public void close() {
+        base.close();
     }
 
     @Override
@@ -50,6 +59,14 @@ public class LimitRecordCursorFactory extends AbstractRecordCursorFactory {
         return base.recordCursorSupportsRandomAccess();
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Limit");
+        sink.attr("lo", loFunction);
+        sink.attr("hi", hiFunction);
+        sink.child(base);
+    }
+
     private static class LimitRecordCursor implements RecordCursor {
         private final Function loFunction;
         private final Function hiFunction;
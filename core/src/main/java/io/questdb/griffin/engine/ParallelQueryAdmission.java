@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps number of queries that fan page frames out onto shared worker queues at the same time.
+ * Query that is not admitted is not queued or failed, it aggregates its page frames on its own
+ * thread. This way heavy analytical queries cannot flood the queue that ingestion and indexing
+ * jobs share with them, while short queries, which do not fan out, are never held back.
+ */
+public class ParallelQueryAdmission {
+    private final int limit;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    /**
+     * @param limit maximum number of concurrently admitted queries, 0 for no limit
+     */
+    public ParallelQueryAdmission(int limit) {
+        this.limit = limit;
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return number of queries that were not admitted and ran on their own thread
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * Releases admission granted by {@link #tryAcquire()}.
+     */
+    public void release() {
+        active.decrementAndGet();
+    }
+
+    /**
+     * @return true when query may publish tasks to worker queues, caller must {@link #release()} when done
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            final int n = active.get();
+            if (limit > 0 && n >= limit) {
+                throttledCount.incrementAndGet();
+                return false;
+            }
+            if (active.compareAndSet(n, n + 1)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.std.MemoryAccount;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+
+/**
+ * Native memory budget of queries compiled and executed by single {@link io.questdb.griffin.SqlExecutionContext}.
+ * Collections created for the query are given the account and charge their SQL memory to it. Allocation
+ * that would take the account over its limit, or SQL memory of all queries over
+ * {@link Unsafe#getSqlMemoryLimit()}, fails with {@link LimitOverflowException}. Account counts net memory
+ * allocated since it was last reset, memory retained by cached factories from previous executions is
+ * not charged.
+ */
+public class QueryMemoryAccount implements MemoryAccount {
+    private long limit;
+    private long used;
+
+    @Override
+    public void charge(long size, int memoryTag) {
+        used += size;
+        if (size > 0) {
+            final long sqlLimit = Unsafe.getSqlMemoryLimit();
+            if (sqlLimit > 0 && Unsafe.getSqlMemUsed() > sqlLimit) {
+                used -= size;
+                throw LimitOverflowException.instance()
+                        .put("global query memory limit exceeded [limit=").put(sqlLimit)
+                        .put(", used=").put(Unsafe.getSqlMemUsed() - size)
+                        .put(", requested=").put(size)
+                        .put(", tag=").put(MemoryTag.nameOf(memoryTag))
+                        .put(']');
+            }
+            if (limit > 0 && used > limit) {
+                used -= size;
+                throw LimitOverflowException.instance()
+                        .put("query memory limit exceeded [limit=").put(limit)
+                        .put(", used=").put(used)
+                        .put(", requested=").put(size)
+                        .put(']');
+            }
+        }
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getUsed() {
+        return used;
+    }
+
+    /**
+     * Resets account, this is done when query starts.
+     *
+     * @param limit maximum number of bytes, 0 for no limit
+     * @return this account
+     */
+    public QueryMemoryAccount of(long limit) {
+        this.limit = limit;
+        this.used = 0;
+        return this;
+    }
+}
@@ -47,6 +47,13 @@ public interface BinaryFunction extends Function {
         return getLeft().isConstant() && getRight().isConstant();
     }
 
+    @Override
+    default boolean isRuntimeConstant() {
+        final Function left = getLeft();
+        final Function right = getRight();
+        return (left.isConstant() || left.isRuntimeConstant()) && (right.isConstant() || right.isRuntimeConstant());
+    }
+
     @Override
     default void toTop() {
         getLeft().toTop();
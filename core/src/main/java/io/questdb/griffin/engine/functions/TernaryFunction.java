@@ -49,6 +49,16 @@ public interface TernaryFunction extends Function {
         return getLeft().isConstant() && getCenter().isConstant() && getRight().isConstant();
     }
 
+    @Override
+    default boolean isRuntimeConstant() {
+        final Function left = getLeft();
+        final Function center = getCenter();
+        final Function right = getRight();
+        return (left.isConstant() || left.isRuntimeConstant())
+                && (center.isConstant() || center.isRuntimeConstant())
+                && (right.isConstant() || right.isRuntimeConstant());
+    }
+
     @Override
     default void toTop() {
         getLeft().toTop();
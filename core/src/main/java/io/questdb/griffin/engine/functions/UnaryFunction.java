@@ -39,6 +39,12 @@ public interface UnaryFunction extends Function {
         return getArg().isConstant();
     }
 
+    @Override
+    default boolean isRuntimeConstant() {
+        final Function arg = getArg();
+        return arg.isConstant() || arg.isRuntimeConstant();
+    }
+
     @Override
     default void toTop() {
         getArg().toTop();
@@ -164,6 +164,11 @@ public class NamedParameterLinkFunction implements Function {
         return type;
     }
 
+    @Override
+    public boolean isRuntimeConstant() {
+        return true;
+    }
+
     @Override
     public void getLong256(Record rec, CharSink sink) {
         getBase().getLong256(rec, sink);
@@ -89,6 +89,11 @@ public class ClassCatalogueFunctionFactory implements FunctionFactory {
         public boolean recordCursorSupportsRandomAccess() {
             return false;
         }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.type("pg_class");
+        }
     }
 
     private static class ClassCatalogueCursor implements NoRandomAccessRecordCursor {
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.catalogue;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+
+/**
+ * Native memory currently allocated, one row per {@link MemoryTag}. Values are read as cursor moves,
+ * they are not snapshot of single moment.
+ */
+class MemoryMetricsCursor implements NoRandomAccessRecordCursor {
+    static final RecordMetadata METADATA;
+
+    static {
+        final GenericRecordMetadata metadata = new GenericRecordMetadata();
+        metadata.add(new TableColumnMetadata("tag", ColumnType.STRING));
+        metadata.add(new TableColumnMetadata("bytes", ColumnType.LONG));
+        METADATA = metadata;
+    }
+
+    private final MemoryMetricsRecord record = new MemoryMetricsRecord();
+    private int tag = -1;
+
+    @Override
+    public void close() {
+        tag = -1;
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (tag < MemoryTag.SIZE - 1) {
+            record.bytes = Unsafe.getMemUsedByTag(++tag);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void toTop() {
+        tag = -1;
+    }
+
+    @Override
+    public long size() {
+        return MemoryTag.SIZE;
+    }
+
+    private class MemoryMetricsRecord implements Record {
+        private long bytes;
+
+        @Override
+        public long getLong(int col) {
+            return bytes;
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return MemoryTag.nameOf(tag);
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return getStr(col);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return getStr(col).length();
+        }
+    }
+}
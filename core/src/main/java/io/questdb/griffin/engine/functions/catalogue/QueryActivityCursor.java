@@ -0,0 +1,132 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.catalogue;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.CancellableSqlExecutionInterruptor;
+import io.questdb.griffin.QueryRegistry;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Queries running on behalf of clients, including the one reading this cursor. Id in first column
+ * is what "cancel query" takes. List of queries is copied when cursor is opened, query that finishes
+ * while cursor moves is skipped.
+ */
+class QueryActivityCursor implements NoRandomAccessRecordCursor {
+    static final RecordMetadata METADATA;
+
+    static {
+        final GenericRecordMetadata metadata = new GenericRecordMetadata();
+        metadata.add(new TableColumnMetadata("query_id", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("started", ColumnType.TIMESTAMP));
+        metadata.add(new TableColumnMetadata("query", ColumnType.STRING));
+        METADATA = metadata;
+    }
+
+    private final ObjList<CancellableSqlExecutionInterruptor> queries = new ObjList<>();
+    private final QueryActivityRecord record = new QueryActivityRecord();
+    private int index = -1;
+
+    @Override
+    public void close() {
+        queries.clear();
+        index = -1;
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (++index < queries.size()) {
+            final CancellableSqlExecutionInterruptor interruptor = queries.getQuick(index);
+            record.query.clear();
+            final long queryId = interruptor.copyQuery(record.query);
+            if (queryId != -1) {
+                record.queryId = queryId;
+                record.started = interruptor.getStartedMicros();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void toTop() {
+        index = -1;
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    QueryActivityCursor of(QueryRegistry registry) {
+        queries.clear();
+        registry.getRunningQueries(queries);
+        index = -1;
+        return this;
+    }
+
+    private static class QueryActivityRecord implements Record {
+        private final StringSink query = new StringSink();
+        private long queryId;
+        private long started;
+
+        @Override
+        public long getLong(int col) {
+            return queryId;
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return query;
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return query;
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return query.length();
+        }
+
+        @Override
+        public long getTimestamp(int col) {
+            return started;
+        }
+    }
+}
@@ -27,6 +27,7 @@ package io.questdb.griffin.engine.functions.catalogue;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.GenericRecordMetadata;
 import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
@@ -58,4 +59,9 @@ public class ShowTransactionIsolationLevelCursorFactory implements RecordCursorF
     public boolean recordCursorSupportsRandomAccess() {
         return false;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Show transaction_isolation");
+    }
 }
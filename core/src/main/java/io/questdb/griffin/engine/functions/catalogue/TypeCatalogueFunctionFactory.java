@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.functions.catalogue;
 
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.FunctionFactory;
@@ -87,5 +88,10 @@ public class TypeCatalogueFunctionFactory implements FunctionFactory {
         public boolean recordCursorSupportsRandomAccess() {
             return false;
         }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.type("pg_type");
+        }
     }
 }
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.columns;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.NoArgFunction;
+import io.questdb.griffin.engine.functions.StatelessFunction;
+import io.questdb.griffin.engine.functions.StrFunction;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Utf8Sequence;
+
+/**
+ * VARCHAR column participates in expressions as STRING. Functions aware of UTF-8
+ * can use {@link #getVarcharA(Record)} to access stored bytes without transcoding.
+ */
+public class VarcharColumn extends StrFunction implements StatelessFunction, NoArgFunction {
+    private final int columnIndex;
+
+    public VarcharColumn(int position, int columnIndex) {
+        super(position);
+        this.columnIndex = columnIndex;
+    }
+
+    @Override
+    public CharSequence getStr(Record rec) {
+        return rec.getStr(columnIndex);
+    }
+
+    @Override
+    public CharSequence getStrB(Record rec) {
+        return rec.getStrB(columnIndex);
+    }
+
+    @Override
+    public void getStr(Record rec, CharSink sink) {
+        rec.getStr(columnIndex, sink);
+    }
+
+    @Override
+    public int getStrLen(Record rec) {
+        return rec.getStrLen(columnIndex);
+    }
+
+    @Override
+    public Utf8Sequence getVarcharA(Record rec) {
+        return rec.getVarcharA(columnIndex);
+    }
+
+    @Override
+    public Utf8Sequence getVarcharB(Record rec) {
+        return rec.getVarcharB(columnIndex);
+    }
+}
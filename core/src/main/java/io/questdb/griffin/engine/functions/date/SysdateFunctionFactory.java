@@ -60,6 +60,11 @@ public class SysdateFunctionFactory implements FunctionFactory {
             return clock.getTicks();
         }
 
+        @Override
+        public boolean isRuntimeConstant() {
+            return true;
+        }
+
         @Override
         public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) {
         }
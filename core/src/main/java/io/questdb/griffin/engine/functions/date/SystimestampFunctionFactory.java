@@ -58,5 +58,10 @@ public class SystimestampFunctionFactory implements FunctionFactory {
         public long getTimestamp(Record rec) {
             return clock.getTicks();
         }
+
+        @Override
+        public boolean isRuntimeConstant() {
+            return true;
+        }
     }
 }
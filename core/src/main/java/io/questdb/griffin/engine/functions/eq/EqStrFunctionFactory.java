@@ -32,8 +32,11 @@ import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.engine.functions.BinaryFunction;
 import io.questdb.griffin.engine.functions.BooleanFunction;
 import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.columns.VarcharColumn;
 import io.questdb.std.Chars;
 import io.questdb.std.ObjList;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8StringSink;
 
 public class EqStrFunctionFactory extends AbstractBooleanFunctionFactory implements FunctionFactory {
     @Override
@@ -59,6 +62,10 @@ public class EqStrFunctionFactory extends AbstractBooleanFunctionFactory impleme
             return createHalfConstantFunc(position, b, a, isNegated);
         }
 
+        if (a instanceof VarcharColumn && b instanceof VarcharColumn) {
+            return new VarcharFunc(position, a, b, isNegated);
+        }
+
         return new Func(position, a, b, isNegated);
     }
 
@@ -69,6 +76,11 @@ public class EqStrFunctionFactory extends AbstractBooleanFunctionFactory impleme
             return new NullCheckFunc(position, varFunc, isNegated);
         }
 
+        if (varFunc instanceof VarcharColumn) {
+            // compare UTF-8 bytes as they are stored
+            return new VarcharConstCheckFunc(position, varFunc, constValue, isNegated);
+        }
+
         return new ConstCheckFunc(position, varFunc, constValue, isNegated);
     }
 
@@ -153,4 +165,63 @@ public class EqStrFunctionFactory extends AbstractBooleanFunctionFactory impleme
             return isNegated != (b != null && Chars.equals(a, b));
         }
     }
+
+    private class VarcharConstCheckFunc extends BooleanFunction implements UnaryFunction {
+        private final boolean isNegated;
+        private final Function arg;
+        private final Utf8StringSink constant = new Utf8StringSink();
+
+        public VarcharConstCheckFunc(int position, Function arg, CharSequence constant, boolean isNegated) {
+            super(position);
+            this.arg = arg;
+            this.constant.encodeUtf8(constant);
+            this.isNegated = isNegated;
+        }
+
+        @Override
+        public Function getArg() {
+            return arg;
+        }
+
+        @Override
+        public boolean getBool(Record rec) {
+            final Utf8Sequence value = arg.getVarcharA(rec);
+            return isNegated != (value != null && Chars.utf8Equals(constant, value));
+        }
+    }
+
+    private class VarcharFunc extends BooleanFunction implements BinaryFunction {
+        private final boolean isNegated;
+        private final Function left;
+        private final Function right;
+
+        public VarcharFunc(int position, Function left, Function right, boolean isNegated) {
+            super(position);
+            this.left = left;
+            this.right = right;
+            this.isNegated = isNegated;
+        }
+
+        @Override
+        public Function getLeft() {
+            return left;
+        }
+
+        @Override
+        public Function getRight() {
+            return right;
+        }
+
+        @Override
+        public boolean getBool(Record rec) {
+            final Utf8Sequence a = left.getVarcharA(rec);
+            final Utf8Sequence b = right.getVarcharB(rec);
+
+            if (a == null) {
+                return isNegated != (b == null);
+            }
+
+            return isNegated != (b != null && Chars.utf8Equals(a, b));
+        }
+    }
 }
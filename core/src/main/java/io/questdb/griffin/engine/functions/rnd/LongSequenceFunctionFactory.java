@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.functions.rnd;
 
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordMetadata;
@@ -96,6 +97,11 @@ public class LongSequenceFunctionFactory implements FunctionFactory {
         public boolean recordCursorSupportsRandomAccess() {
             return true;
         }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.type("long_sequence");
+        }
     }
 
     private static class SeedingLongSequenceCursorFactory extends AbstractRecordCursorFactory {
@@ -122,6 +128,11 @@ public class LongSequenceFunctionFactory implements FunctionFactory {
         public boolean recordCursorSupportsRandomAccess() {
             return true;
         }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.type("long_sequence");
+        }
     }
 
 
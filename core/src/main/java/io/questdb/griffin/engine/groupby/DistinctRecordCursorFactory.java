@@ -24,6 +24,8 @@
 
 package io.questdb.griffin.engine.groupby;
 
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.std.MemoryAccount;
 import org.jetbrains.annotations.NotNull;
 
 import io.questdb.cairo.CairoConfiguration;
@@ -58,13 +60,14 @@ public class DistinctRecordCursorFactory implements RecordCursorFactory {
             CairoConfiguration configuration,
             RecordCursorFactory base,
             @Transient @NotNull EntityColumnFilter columnFilter,
-            @Transient @NotNull BytecodeAssembler asm
+            @Transient @NotNull BytecodeAssembler asm,
+            MemoryAccount memoryAccount
     ) {
         final RecordMetadata metadata = base.getMetadata();
         // sink will be storing record columns to map key
         columnFilter.of(metadata.getColumnCount());
         this.mapSink = RecordSinkFactory.getInstance(asm, metadata, columnFilter, false);
-        this.dataMap = MapFactory.createMap(configuration, metadata);
+        this.dataMap = MapFactory.createMap(configuration, metadata, memoryAccount);
         this.base = base;
         this.metadata = metadata;
         this.cursor = new DistinctRecordCursor();
@@ -99,6 +102,12 @@ public class DistinctRecordCursorFactory implements RecordCursorFactory {
         return base.recordCursorSupportsRandomAccess();
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Distinct");
+        sink.child(base);
+    }
+
     private static class DistinctRecordCursor implements RecordCursor {
         private RecordCursor baseCursor;
         private Map dataMap;
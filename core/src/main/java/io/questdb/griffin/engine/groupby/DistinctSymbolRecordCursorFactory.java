@@ -76,6 +76,13 @@ public class DistinctSymbolRecordCursorFactory implements RecordCursorFactory {
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Distinct symbol");
+        sink.attr("table").put(tableName);
+        sink.attr("column").put(columnIndex);
+    }
+
     private static class DistinctSymbolRecordCursor implements RecordCursor {
         private final DistinctSymbolRecord recordA = new DistinctSymbolRecord();
         private DistinctSymbolRecord recordB = null;
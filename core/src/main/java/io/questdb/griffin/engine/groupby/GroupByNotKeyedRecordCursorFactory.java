@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.groupby;
 
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
 import io.questdb.griffin.engine.EmptyTableRecordCursor;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.std.Misc;
@@ -81,7 +82,9 @@ public class GroupByNotKeyedRecordCursorFactory implements RecordCursorFactory {
                 return EmptyTableRecordCursor.INSTANCE;
             }
 
+            final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
             while (baseCursor.hasNext()) {
+                interruptor.checkInterrupted();
                 GroupByUtils.updateExisting(groupByFunctions, n, simpleMapValue, baseRecord);
             }
 
@@ -106,6 +109,13 @@ public class GroupByNotKeyedRecordCursorFactory implements RecordCursorFactory {
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Group by not keyed");
+        sink.attr("functions").put(groupByFunctions.size());
+        sink.child(base);
+    }
+
     private class GroupByNotKeyedRecordCursor implements NoRandomAccessRecordCursor {
 
         private int recordsRemaining = 1;
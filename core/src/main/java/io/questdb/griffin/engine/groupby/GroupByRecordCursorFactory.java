@@ -24,6 +24,8 @@
 
 package io.questdb.griffin.engine.groupby;
 
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.std.MemoryAccount;
 import org.jetbrains.annotations.NotNull;
 
 import io.questdb.cairo.ArrayColumnTypes;
@@ -70,11 +72,12 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
             RecordMetadata groupByMetadata,
             ObjList<GroupByFunction> groupByFunctions,
             ObjList<Function> recordFunctions,
-            IntList symbolTableSkewIndex
+            IntList symbolTableSkewIndex,
+            MemoryAccount memoryAccount
     ) {
         // sink will be storing record columns to map key
         try {
-            this.dataMap = MapFactory.createMap(configuration, keyTypes, valueTypes);
+            this.dataMap = MapFactory.createMap(configuration, keyTypes, valueTypes, memoryAccount);
             this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
             this.base = base;
             this.metadata = groupByMetadata;
@@ -130,4 +133,11 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
     public boolean recordCursorSupportsRandomAccess() {
         return true;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Group by");
+        sink.attr("functions").put(groupByFunctions.size());
+        sink.child(base);
+    }
 }
@@ -117,7 +117,8 @@ public class GroupByUtils {
                 if (index != timestampIndex || timestampUnimportant) {
                     if (lastIndex != index) {
                         listColumnFilter.add(index);
-                        keyTypes.add(type);
+                        // VARCHAR keys are stored in the map as STRING
+                        keyTypes.add(type == ColumnType.VARCHAR ? ColumnType.STRING : type);
                         keyColumnIndex++;
                         lastIndex = index;
                     }
@@ -149,6 +150,7 @@ public class GroupByUtils {
                             fun = new DoubleColumn(node.position, keyColumnIndex - 1);
                             break;
                         case ColumnType.STRING:
+                        case ColumnType.VARCHAR:
                             fun = new StrColumn(node.position, keyColumnIndex - 1);
                             break;
                         case ColumnType.SYMBOL:
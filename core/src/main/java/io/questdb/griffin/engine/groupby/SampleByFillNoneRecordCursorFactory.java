@@ -24,6 +24,8 @@
 
 package io.questdb.griffin.engine.groupby;
 
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.std.MemoryAccount;
 import org.jetbrains.annotations.NotNull;
 
 import io.questdb.cairo.ArrayColumnTypes;
@@ -66,13 +68,14 @@ public class SampleByFillNoneRecordCursorFactory implements RecordCursorFactory
             @Transient @NotNull BytecodeAssembler asm,
             @Transient @NotNull ArrayColumnTypes keyTypes,
             @Transient @NotNull ArrayColumnTypes valueTypes,
-            int timestampIndex
+            int timestampIndex,
+            MemoryAccount memoryAccount
     ) {
         this.recordFunctions = recordFunctions;
         // sink will be storing record columns to map key
         final RecordSink mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
         // this is the map itself, which we must not forget to free when factory closes
-        this.map = MapFactory.createMap(configuration, keyTypes, valueTypes);
+        this.map = MapFactory.createMap(configuration, keyTypes, valueTypes, memoryAccount);
         try {
             this.base = base;
             this.metadata = groupByMetadata;
@@ -125,6 +128,13 @@ public class SampleByFillNoneRecordCursorFactory implements RecordCursorFactory
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sample by");
+        sink.attr("fill").put("none");
+        sink.child(base);
+    }
+
     @NotNull
     private RecordCursor initFunctionsAndCursor(SqlExecutionContext executionContext, RecordCursor baseCursor) {
         try {
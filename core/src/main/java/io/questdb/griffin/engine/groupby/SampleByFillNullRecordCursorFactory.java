@@ -24,6 +24,8 @@
 
 package io.questdb.griffin.engine.groupby;
 
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.std.MemoryAccount;
 import org.jetbrains.annotations.NotNull;
 
 import io.questdb.cairo.ArrayColumnTypes;
@@ -83,7 +85,8 @@ public class SampleByFillNullRecordCursorFactory implements RecordCursorFactory
             ObjList<GroupByFunction> groupByFunctions,
             ObjList<Function> recordFunctions,
             IntList symbolTableSkewIndex,
-            int timestampIndex
+            int timestampIndex,
+            MemoryAccount memoryAccount
     ) throws SqlException {
 
         this.recordFunctions = recordFunctions;
@@ -92,7 +95,7 @@ public class SampleByFillNullRecordCursorFactory implements RecordCursorFactory
         // sink will be storing record columns to map key
         this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
         // this is the map itself, which we must not forget to free when factory closes
-        this.map = MapFactory.createMap(configuration, keyTypes, valueTypes);
+        this.map = MapFactory.createMap(configuration, keyTypes, valueTypes, memoryAccount);
         try {
             this.base = base;
             this.metadata = groupByMetadata;
@@ -214,6 +217,13 @@ public class SampleByFillNullRecordCursorFactory implements RecordCursorFactory
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sample by");
+        sink.attr("fill").put("null");
+        sink.child(base);
+    }
+
     @NotNull
     private RecordCursor initFunctionsAndCursor(SqlExecutionContext executionContext, RecordCursor baseCursor) {
         cursor.of(baseCursor, executionContext);
@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.groupby;
 
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
@@ -107,4 +108,11 @@ public class SampleByFillPrevNotKeyedRecordCursorFactory implements RecordCursor
         }
         return cursor;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sample by not keyed");
+        sink.attr("fill").put("prev");
+        sink.child(base);
+    }
 }
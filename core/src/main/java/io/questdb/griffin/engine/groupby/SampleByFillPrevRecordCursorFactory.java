@@ -24,6 +24,8 @@
 
 package io.questdb.griffin.engine.groupby;
 
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.std.MemoryAccount;
 import org.jetbrains.annotations.NotNull;
 
 import io.questdb.cairo.ArrayColumnTypes;
@@ -74,13 +76,14 @@ public class SampleByFillPrevRecordCursorFactory implements RecordCursorFactory
             ObjList<GroupByFunction> groupByFunctions,
             ObjList<Function> recordFunctions,
             IntList symbolTableSkewIndex,
-            int timestampIndex
+            int timestampIndex,
+            MemoryAccount memoryAccount
     ) {
 
         // sink will be storing record columns to map key
         this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
         // this is the map itself, which we must not forget to free when factory closes
-        this.map = MapFactory.createMap(configuration, keyTypes, valueTypes);
+        this.map = MapFactory.createMap(configuration, keyTypes, valueTypes, memoryAccount);
         this.groupByFunctions = groupByFunctions;
         this.recordFunctions = recordFunctions;
         try {
@@ -176,4 +179,11 @@ public class SampleByFillPrevRecordCursorFactory implements RecordCursorFactory
         }
         return cursor;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sample by");
+        sink.attr("fill").put("prev");
+        sink.child(base);
+    }
 }
@@ -24,6 +24,8 @@
 
 package io.questdb.griffin.engine.groupby;
 
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.std.MemoryAccount;
 import org.jetbrains.annotations.NotNull;
 
 import io.questdb.cairo.ArrayColumnTypes;
@@ -85,13 +87,14 @@ public class SampleByFillValueRecordCursorFactory implements RecordCursorFactory
             ObjList<GroupByFunction> groupByFunctions,
             ObjList<Function> recordFunctions,
             IntList symbolTableSkewIndex,
-            int timestampIndex
+            int timestampIndex,
+            MemoryAccount memoryAccount
     ) throws SqlException {
 
         // sink will be storing record columns to map key
         this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
         // this is the map itself, which we must not forget to free when factory closes
-        this.map = MapFactory.createMap(configuration, keyTypes, valueTypes);
+        this.map = MapFactory.createMap(configuration, keyTypes, valueTypes, memoryAccount);
         try {
             this.base = base;
             this.metadata = groupByMetadata;
@@ -243,4 +246,11 @@ public class SampleByFillValueRecordCursorFactory implements RecordCursorFactory
         }
         return cursor;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sample by");
+        sink.attr("fill").put("value");
+        sink.child(base);
+    }
 }
@@ -24,6 +24,8 @@
 
 package io.questdb.griffin.engine.groupby;
 
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.std.MemoryAccount;
 import org.jetbrains.annotations.NotNull;
 
 import io.questdb.cairo.ArrayColumnTypes;
@@ -90,7 +92,8 @@ public class SampleByInterpolateRecordCursorFactory implements RecordCursorFacto
             @Transient @NotNull ArrayColumnTypes keyTypes,
             @Transient @NotNull ArrayColumnTypes valueTypes,
             @Transient @NotNull EntityColumnFilter entityColumnFilter,
-            int timestampIndex
+            int timestampIndex,
+            MemoryAccount memoryAccount
     ) throws SqlException {
         final int columnCount = model.getBottomUpColumns().size();
         final RecordMetadata metadata = base.getMetadata();
@@ -175,12 +178,12 @@ public class SampleByInterpolateRecordCursorFactory implements RecordCursorFacto
         this.mapSink2 = RecordSinkFactory.getInstance(asm, keyTypes, entityColumnFilter, false);
 
         // this is the map itself, which we must not forget to free when factory closes
-        this.recordKeyMap = MapFactory.createMap(configuration, keyTypes);
+        this.recordKeyMap = MapFactory.createMap(configuration, keyTypes, memoryAccount);
 
         // data map will contain rounded timestamp value as last key column
         keyTypes.add(ColumnType.TIMESTAMP);
 
-        this.dataMap = MapFactory.createMap(configuration, keyTypes, valueTypes);
+        this.dataMap = MapFactory.createMap(configuration, keyTypes, valueTypes, memoryAccount);
         this.base = base;
         this.metadata = groupByMetadata;
         this.sampler = timestampSampler;
@@ -393,6 +396,13 @@ public class SampleByInterpolateRecordCursorFactory implements RecordCursorFacto
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sample by");
+        sink.attr("fill").put("linear");
+        sink.child(base);
+    }
+
     private void computeYPoints(Record record, long x1, MapValue x2value) {
         for (int i = 0, m = groupByFunctions.size(); i < m; i++) {
             storeYFunctions.getQuick(i).store(groupByFunctions.getQuick(i), x2value, yData + i * 16 + 8);
@@ -28,6 +28,8 @@ import io.questdb.MessageBus;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.ParallelQueryAdmission;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.RingQueue;
@@ -100,38 +102,79 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
             workerId = 0;
         }
 
-        PageFrame frame;
-        while ((frame = cursor.next()) != null) {
-            for (int i = 0; i < vafCount; i++) {
-                final VectorAggregateFunction vaf = vafList.getQuick(i);
-                final int columnIndex = vaf.getColumnIndex();
-                final long pageAddress = frame.getPageAddress(columnIndex);
-                final long pageValueCount = frame.getPageValueCount(columnIndex);
-                long seq = pubSeq.next();
-                if (seq < 0) {
-                    // diy the func
-                    // vaf need to know which column it is hitting int he frame and will need to
-                    // aggregate between frames until done
-                    vaf.aggregate(pageAddress, pageValueCount, workerId);
-                    ownCount++;
-                } else {
-                    final VectorAggregateEntry entry = entryPool.next();
-                    // null pRosti means that we do not need keyed aggregation
-                    entry.of(queuedCount++, vaf, null, 0, pageAddress, pageValueCount, doneLatch);
-                    activeEntries.add(entry);
-                    queue.get(seq).entry = entry;
-                    pubSeq.done(seq);
+        // query that is not admitted does not publish to worker queue, it aggregates all frames itself
+        final ParallelQueryAdmission admission = executionContext.getCairoEngine().getParallelQueryAdmission();
+        final boolean parallel = admission.tryAcquire();
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+        try {
+            PageFrame frame;
+            while ((frame = cursor.next()) != null) {
+                interruptor.checkInterrupted();
+                for (int i = 0; i < vafCount; i++) {
+                    final VectorAggregateFunction vaf = vafList.getQuick(i);
+                    final int columnIndex = vaf.getColumnIndex();
+                    final long pageAddress = frame.getPageAddress(columnIndex);
+                    final long pageValueCount = frame.getPageValueCount(columnIndex);
+                    long seq = parallel ? pubSeq.next() : -1;
+                    if (seq < 0) {
+                        // diy the func
+                        // vaf need to know which column it is hitting int he frame and will need to
+                        // aggregate between frames until done
+                        vaf.aggregate(pageAddress, pageValueCount, workerId);
+                        ownCount++;
+                    } else {
+                        final VectorAggregateEntry entry = entryPool.next();
+                        // null pRosti means that we do not need keyed aggregation
+                        entry.of(queuedCount++, vaf, null, 0, pageAddress, pageValueCount, doneLatch);
+                        activeEntries.add(entry);
+                        queue.get(seq).entry = entry;
+                        pubSeq.done(seq);
+                    }
+                    total++;
                 }
-                total++;
+            }
+
+            reclaimed = reclaimAndAwait(workerId, queuedCount);
+        } catch (Throwable e) {
+            // published tasks read pages of this cursor, query can be interrupted only once they are done
+            reclaimAndAwait(workerId, queuedCount);
+            Misc.free(cursor);
+            throw e;
+        } finally {
+            if (parallel) {
+                admission.release();
             }
         }
+        LOG.info().$("done [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(']').$();
+        return this.cursor.of(cursor);
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Vector group by not keyed");
+        sink.attr("parallel").put("page frames, workers=").put(sink.getWorkerCount());
+        sink.attr("functions").put(vafList.size());
+        sink.child(base);
+    }
+
+    private int reclaimAndAwait(int workerId, int queuedCount) {
         // all done? great start consuming the queue we just published
         // how do we get to the end? If we consume our own queue there is chance we will be consuming
         // aggregation tasks not related to this execution (we work in concurrent environment)
         // To deal with that we need to have our own checklist.
 
         // start at the back to reduce chance of clashing
+        int reclaimed = 0;
         for (int i = activeEntries.size() - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
             if (activeEntries.getQuick(i).run(workerId)) {
                 reclaimed++;
@@ -140,18 +183,7 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
 
         LOG.info().$("waiting for parts [queuedCount=").$(queuedCount).$(']').$();
         doneLatch.await(queuedCount);
-        LOG.info().$("done [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(']').$();
-        return this.cursor.of(cursor);
-    }
-
-    @Override
-    public RecordMetadata getMetadata() {
-        return metadata;
-    }
-
-    @Override
-    public boolean recordCursorSupportsRandomAccess() {
-        return false;
+        return reclaimed;
     }
 
     private static class GroupByNotKeyedVectorRecordCursor implements NoRandomAccessRecordCursor {
@@ -25,11 +25,14 @@
 package io.questdb.griffin.engine.groupby.vect;
 
 import io.questdb.MessageBus;
+import io.questdb.cairo.ArrayColumnTypes;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.ParallelQueryAdmission;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.RingQueue;
@@ -40,7 +43,7 @@ import io.questdb.std.*;
 import io.questdb.std.str.CharSink;
 import io.questdb.tasks.VectorAggregateTask;
 
-public class GroupByRecordCursorFactory implements RecordCursorFactory {
+public class GroupByRecordCursorFactory implements RecordCursorFactory, RostiProvider {
 
     private final static Log LOG = LogFactory.getLog(GroupByRecordCursorFactory.class);
 
@@ -51,7 +54,11 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
     private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
     private final RecordMetadata metadata;
 
+    // map of worker is allocated by thread that aggregates into it first, with default first touch policy
+    // map memory is then on NUMA node of that worker
     private final long[] pRosti;
+    private final ArrayColumnTypes columnTypes = new ArrayColumnTypes();
+    private final long mapCapacity;
     private final int keyColumnIndex;
     private final RostiRecordCursor cursor;
 
@@ -82,35 +89,15 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         this.pRosti = new long[workerCount];
         final int vafCount = vafList.size();
         this.vafList = new ObjList<>(vafCount);
-        for (int i = 0; i < workerCount; i++) {
-            pRosti[i] = Rosti.alloc(columnTypes, configuration.getGroupByMapCapacity());
-
-            // todo: init key to null value
-
-            // remember, single key for now
-            switch (columnTypes.getColumnType(0)) {
-                case ColumnType.INT:
-                    Unsafe.getUnsafe().putInt(Rosti.getInitialValueSlot(pRosti[i], 0), Numbers.INT_NaN);
-                    break;
-                case ColumnType.SYMBOL:
-                    Unsafe.getUnsafe().putInt(Rosti.getInitialValueSlot(pRosti[i], 0), SymbolTable.VALUE_IS_NULL);
-                    break;
-                default:
-            }
-
-            // configure map with default values
-            // when our execution order is sum(x) then min(y) over the same map
-            // min(y) may not find any new keys slots(they will be created by first pass with sum(x))
-            // for aggregation function to continue, such slots have to be initialized to the
-            // appropriate value for the function.
-            for (int j = 0; j < vafCount; j++) {
-                vafList.getQuick(j).initRosti(pRosti[i]);
-            }
+        this.vafList.addAll(vafList);
+        for (int i = 0, n = columnTypes.getColumnCount(); i < n; i++) {
+            this.columnTypes.add(columnTypes.getColumnType(i));
         }
+        this.mapCapacity = configuration.getGroupByMapCapacity();
 
-        // all maps are the same at this point
+        // all maps are the same
         // check where our keys are and pull them to front
-        final long pRosti = this.pRosti[0];
+        final long pRosti = getRosti(0);
         final long columnOffsets = Rosti.getValueOffsets(pRosti);
 
         // skew logic assumes single key, for multiple keys skew would be different
@@ -125,7 +112,6 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         // add remaining aggregate columns as is
         addOffsets(columnSkewIndex, vafList, keyColumnIndexInThisCursor, vafCount, columnOffsets);
 
-        this.vafList.addAll(vafList);
         this.keyColumnIndex = keyColumnIndexInBase;
         if (symbolTableSkewIndex.size() > 0) {
             final IntList symbolSkew = new IntList(symbolTableSkewIndex.size());
@@ -152,7 +138,9 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
     public void close() {
         Misc.freeObjList(vafList);
         for (int i = 0, n = pRosti.length; i < n; i++) {
-            Rosti.free(pRosti[i]);
+            if (pRosti[i] != 0) {
+                Rosti.free(pRosti[i]);
+            }
         }
     }
 
@@ -161,7 +149,9 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
 
         // clear maps
         for (int i = 0, n = pRosti.length; i < n; i++) {
-            Rosti.clear(pRosti[i]);
+            if (pRosti[i] != 0) {
+                Rosti.clear(pRosti[i]);
+            }
         }
 
         final MessageBus bus = executionContext.getMessageBus();
@@ -196,54 +186,57 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
             workerId = 0;
         }
 
-        PageFrame frame;
-        while ((frame = cursor.next()) != null) {
-            final long keyColumnSize = frame.getPageValueCount(keyColumnIndex);
-            final long keyAddress = frame.getPageAddress(keyColumnIndex);
-            for (int i = 0; i < vafCount; i++) {
-                final VectorAggregateFunction vaf = vafList.getQuick(i);
-                final long valueAddress = frame.getPageAddress(vaf.getColumnIndex());
-                final long valueCount = frame.getPageValueCount(vaf.getColumnIndex());
-
-                long seq = pubSeq.next();
-                if (seq < 0) {
-                    if (keyColumnSize == 0) {
-                        vaf.aggregate(valueAddress, valueCount, workerId);
-                    } else {
-                        vaf.aggregate(pRosti[workerId], keyAddress, valueAddress, keyColumnSize, workerId);
-                    }
-                    ownCount++;
-                } else {
-                    if (keyAddress != 0 || valueAddress != 0) {
-                        final VectorAggregateEntry entry = entryPool.next();
-                        if (keyAddress == 0) {
-                            entry.of(queuedCount++, vaf, null, 0, valueAddress, valueCount, doneLatch);
+        // query that is not admitted does not publish to worker queue, it aggregates all frames itself
+        final ParallelQueryAdmission admission = executionContext.getCairoEngine().getParallelQueryAdmission();
+        final boolean parallel = admission.tryAcquire();
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+        try {
+            PageFrame frame;
+            while ((frame = cursor.next()) != null) {
+                interruptor.checkInterrupted();
+                final long keyColumnSize = frame.getPageValueCount(keyColumnIndex);
+                final long keyAddress = frame.getPageAddress(keyColumnIndex);
+                for (int i = 0; i < vafCount; i++) {
+                    final VectorAggregateFunction vaf = vafList.getQuick(i);
+                    final long valueAddress = frame.getPageAddress(vaf.getColumnIndex());
+                    final long valueCount = frame.getPageValueCount(vaf.getColumnIndex());
+
+                    long seq = parallel ? pubSeq.next() : -1;
+                    if (seq < 0) {
+                        if (keyColumnSize == 0) {
+                            vaf.aggregate(valueAddress, valueCount, workerId);
                         } else {
-                            entry.of(queuedCount++, vaf, pRosti, keyAddress, valueAddress, valueCount, doneLatch);
+                            vaf.aggregate(getRosti(workerId), keyAddress, valueAddress, keyColumnSize, workerId);
+                        }
+                        ownCount++;
+                    } else {
+                        if (keyAddress != 0 || valueAddress != 0) {
+                            final VectorAggregateEntry entry = entryPool.next();
+                            if (keyAddress == 0) {
+                                entry.of(queuedCount++, vaf, null, 0, valueAddress, valueCount, doneLatch);
+                            } else {
+                                entry.of(queuedCount++, vaf, this, keyAddress, valueAddress, valueCount, doneLatch);
+                            }
+                            activeEntries.add(entry);
+                            queue.get(seq).entry = entry;
+                            pubSeq.done(seq);
                         }
-                        activeEntries.add(entry);
-                        queue.get(seq).entry = entry;
-                        pubSeq.done(seq);
                     }
+                    total++;
                 }
-                total++;
             }
-        }
 
-        // all done? great start consuming the queue we just published
-        // how do we get to the end? If we consume our own queue there is chance we will be consuming
-        // aggregation tasks not related to this execution (we work in concurrent environment)
-        // To deal with that we need to have our own checklist.
-
-        // start at the back to reduce chance of clashing
-        for (int i = activeEntries.size() - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
-            if (activeEntries.getQuick(i).run(workerId)) {
-                reclaimed++;
+            reclaimed = reclaimAndAwait(workerId, queuedCount);
+        } catch (Throwable e) {
+            // published tasks read pages of this cursor, query can be interrupted only once they are done
+            reclaimAndAwait(workerId, queuedCount);
+            Misc.free(cursor);
+            throw e;
+        } finally {
+            if (parallel) {
+                admission.release();
             }
         }
-
-        LOG.info().$("waiting for parts [queuedCount=").$(queuedCount).$(']').$();
-        doneLatch.await(queuedCount);
         long pRosti0 = pRosti[0];
 
         if (pRosti.length > 1) {
@@ -252,7 +245,9 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
             for (int j = 0; j < vafCount; j++) {
                 final VectorAggregateFunction vaf = vafList.getQuick(j);
                 for (int i = 1, n = pRosti.length; i < n; i++) {
-                    vaf.merge(pRosti0, pRosti[i]);
+                    if (pRosti[i] != 0) {
+                        vaf.merge(pRosti0, pRosti[i]);
+                    }
                 }
                 vaf.wrapUp(pRosti0);
             }
@@ -272,11 +267,69 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         return metadata;
     }
 
+    @Override
+    public long getRosti(int workerId) {
+        long p = pRosti[workerId];
+        if (p == 0) {
+            pRosti[workerId] = p = Rosti.alloc(columnTypes, mapCapacity);
+
+            // todo: init key to null value
+
+            // remember, single key for now
+            switch (columnTypes.getColumnType(0)) {
+                case ColumnType.INT:
+                    Unsafe.getUnsafe().putInt(Rosti.getInitialValueSlot(p, 0), Numbers.INT_NaN);
+                    break;
+                case ColumnType.SYMBOL:
+                    Unsafe.getUnsafe().putInt(Rosti.getInitialValueSlot(p, 0), SymbolTable.VALUE_IS_NULL);
+                    break;
+                default:
+            }
+
+            // configure map with default values
+            // when our execution order is sum(x) then min(y) over the same map
+            // min(y) may not find any new keys slots(they will be created by first pass with sum(x))
+            // for aggregation function to continue, such slots have to be initialized to the
+            // appropriate value for the function.
+            for (int j = 0, n = vafList.size(); j < n; j++) {
+                vafList.getQuick(j).initRosti(p);
+            }
+        }
+        return p;
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Vector group by");
+        sink.attr("parallel").put("page frames, workers=").put(sink.getWorkerCount());
+        sink.attr("functions").put(vafList.size());
+        sink.child(base);
+    }
+
+    private int reclaimAndAwait(int workerId, int queuedCount) {
+        // all done? great start consuming the queue we just published
+        // how do we get to the end? If we consume our own queue there is chance we will be consuming
+        // aggregation tasks not related to this execution (we work in concurrent environment)
+        // To deal with that we need to have our own checklist.
+
+        // start at the back to reduce chance of clashing
+        int reclaimed = 0;
+        for (int i = activeEntries.size() - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
+            if (activeEntries.getQuick(i).run(workerId)) {
+                reclaimed++;
+            }
+        }
+
+        LOG.info().$("waiting for parts [queuedCount=").$(queuedCount).$(']').$();
+        doneLatch.await(queuedCount);
+        return reclaimed;
+    }
+
     private static class RostiRecordCursor implements RecordCursor {
         private final RostiRecord record;
         private final long pRosti;
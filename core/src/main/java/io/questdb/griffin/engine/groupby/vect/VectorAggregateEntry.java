@@ -36,7 +36,7 @@ public class VectorAggregateEntry implements Mutable {
         TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(VectorAggregateEntry.class, "targetSequence");
     }
 
-    private long[] pRosti;
+    private RostiProvider rostiProvider;
     private long keyAddress;
     private long valueAddress;
     private long valueCount;
@@ -50,13 +50,13 @@ public class VectorAggregateEntry implements Mutable {
     void of(
             int sequence,
             VectorAggregateFunction vaf,
-            long[] pRosti,
+            RostiProvider rostiProvider,
             long keyPageAddress,
             long valuePageAddress,
             long valuePageCount,
             CountDownLatchSPI doneLatch
     ) {
-        this.pRosti = pRosti;
+        this.rostiProvider = rostiProvider;
         this.keyAddress = keyPageAddress;
         this.valueAddress = valuePageAddress;
         this.valueCount = valuePageCount;
@@ -72,8 +72,8 @@ public class VectorAggregateEntry implements Mutable {
 
     public boolean run(int workerId) {
         if (tryLock()) {
-            if (pRosti != null) {
-                func.aggregate(pRosti[workerId], keyAddress, valueAddress, valueCount, workerId);
+            if (rostiProvider != null) {
+                func.aggregate(rostiProvider.getRosti(workerId), keyAddress, valueAddress, valueCount, workerId);
             } else {
                 func.aggregate(valueAddress, valueCount, workerId);
             }
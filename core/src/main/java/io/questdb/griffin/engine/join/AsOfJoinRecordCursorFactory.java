@@ -32,6 +32,7 @@ import io.questdb.cairo.map.*;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.IntList;
+import io.questdb.std.MemoryAccount;
 import io.questdb.std.Misc;
 import io.questdb.std.Transient;
 
@@ -56,12 +57,13 @@ public class AsOfJoinRecordCursorFactory extends AbstractRecordCursorFactory {
             RecordSink slaveKeySink,
             int columnSplit,
             RecordValueSink slaveValueSink,
-            IntList columnIndex // this column index will be used to retrieve symbol tables from underlying slave
+            IntList columnIndex, // this column index will be used to retrieve symbol tables from underlying slave
+            MemoryAccount memoryAccount
     ) {
         super(metadata);
         this.masterFactory = masterFactory;
         this.slaveFactory = slaveFactory;
-        joinKeyMap = MapFactory.createMap(configuration, mapKeyTypes, mapValueTypes);
+        joinKeyMap = MapFactory.createMap(configuration, mapKeyTypes, mapValueTypes, memoryAccount);
         this.masterKeySink = masterKeySink;
         this.slaveKeySink = slaveKeySink;
         this.cursor = new AsOfJoinRecordCursor(
@@ -97,6 +99,13 @@ public class AsOfJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("AsOf join");
+        sink.child("master", masterFactory);
+        sink.child("slave", slaveFactory);
+    }
+
     private class AsOfJoinRecordCursor implements NoRandomAccessRecordCursor {
         private final OuterJoinRecord record;
         private final Map joinKeyMap;
@@ -28,6 +28,7 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.std.BinarySequence;
 import io.questdb.std.Long256;
 import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Utf8Sequence;
 
 public class JoinRecord implements Record {
     private final int split;
@@ -189,6 +190,22 @@ public class JoinRecord implements Record {
         return slave.getStrLen(col - split);
     }
 
+    @Override
+    public Utf8Sequence getVarcharA(int col) {
+        if (col < split) {
+            return master.getVarcharA(col);
+        }
+        return slave.getVarcharA(col - split);
+    }
+
+    @Override
+    public Utf8Sequence getVarcharB(int col) {
+        if (col < split) {
+            return master.getVarcharB(col);
+        }
+        return slave.getVarcharB(col - split);
+    }
+
     @Override
     public CharSequence getSym(int col) {
         if (col < split) {
@@ -25,6 +25,8 @@
 package io.questdb.griffin.engine.join;
 
 import io.questdb.cairo.VirtualMemory;
+import io.questdb.std.MemoryAccount;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Mutable;
 
 import java.io.Closeable;
@@ -35,7 +37,11 @@ public class LongChain implements Closeable, Mutable {
     private final TreeCursor cursor;
 
     public LongChain(long valuePageSize, int valueMaxPages) {
-        this.valueChain = new VirtualMemory(valuePageSize, valueMaxPages);
+        this(valuePageSize, valueMaxPages, null);
+    }
+
+    public LongChain(long valuePageSize, int valueMaxPages, MemoryAccount memoryAccount) {
+        this.valueChain = new VirtualMemory(valuePageSize, valueMaxPages, MemoryTag.NATIVE_SQL_RECORD_CHAIN, memoryAccount);
         this.cursor = new TreeCursor();
     }
 
@@ -71,6 +71,13 @@ public class LtJoinNoKeyRecordCursorFactory extends AbstractRecordCursorFactory
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Lt join no key");
+        sink.child("master", masterFactory);
+        sink.child("slave", slaveFactory);
+    }
+
     private static class LtJoinNoKeyJoinRecordCursor implements NoRandomAccessRecordCursor {
         private final OuterJoinRecord record;
         private final int columnSplit;
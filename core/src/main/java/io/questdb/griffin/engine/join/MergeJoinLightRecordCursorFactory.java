@@ -0,0 +1,329 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryAccount;
+import io.questdb.std.Misc;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Inner or outer equi-join of two cursors ordered by their designated timestamps, where
+ * join clause includes equality of these timestamps. Cursors are advanced in lockstep and
+ * only slave rows that share timestamp of current master row are kept in memory. When join
+ * has other key columns, these rows are looked up via map, which is rebuilt for every timestamp.
+ */
+public class MergeJoinLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final RecordSink masterKeySink;
+    private final RecordSink slaveKeySink;
+    private final Map joinKeyMap;
+    private final LongChain slaveChain;
+    private final LongList slaveRows;
+    private final MergeJoinRecordCursor cursor;
+
+    public MergeJoinLightRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory masterFactory,
+            RecordCursorFactory slaveFactory,
+            @Transient ColumnTypes joinColumnTypes,
+            @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
+            @Nullable RecordSink masterKeySink,
+            @Nullable RecordSink slaveKeySink,
+            int columnSplit,
+            boolean outer,
+            MemoryAccount memoryAccount
+    ) {
+        super(metadata);
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.masterKeySink = masterKeySink;
+        this.slaveKeySink = slaveKeySink;
+        if (masterKeySink != null) {
+            this.joinKeyMap = MapFactory.createMap(configuration, joinColumnTypes, valueTypes, memoryAccount);
+            this.slaveChain = new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages(), memoryAccount);
+            this.slaveRows = null;
+        } else {
+            this.joinKeyMap = null;
+            this.slaveChain = null;
+            this.slaveRows = new LongList();
+        }
+        this.cursor = new MergeJoinRecordCursor(
+                columnSplit,
+                masterFactory.getMetadata().getTimestampIndex(),
+                slaveFactory.getMetadata().getTimestampIndex(),
+                outer ? NullRecordFactory.getInstance(slaveFactory.getMetadata()) : null
+        );
+    }
+
+    @Override
+    public void close() {
+        Misc.free(joinKeyMap);
+        Misc.free(slaveChain);
+        ((JoinRecordMetadata) getMetadata()).close();
+        masterFactory.close();
+        slaveFactory.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        try {
+            cursor.of(masterFactory.getCursor(executionContext), slaveCursor, executionContext.getSqlExecutionInterruptor());
+        } catch (CairoException e) {
+            slaveCursor.close();
+            throw e;
+        }
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Merge join light");
+        sink.child("master", masterFactory);
+        sink.child("slave", slaveFactory);
+    }
+
+    private class MergeJoinRecordCursor implements NoRandomAccessRecordCursor {
+        private final OuterJoinRecord record;
+        private final int columnSplit;
+        private final int masterTimestampIndex;
+        private final int slaveTimestampIndex;
+        private final boolean outer;
+        private RecordCursor masterCursor;
+        private RecordCursor slaveCursor;
+        private Record masterRecord;
+        private Record slaveRecord;
+        private Record slaveRecordB;
+        private SqlExecutionInterruptor interruptor;
+        // timestamp of the first slave row that is not in current group, valid while slave is not exhausted
+        private long slaveTimestamp;
+        private boolean slaveExhausted;
+        // timestamp shared by slave rows in current group
+        private long groupTimestamp;
+        private boolean groupLoaded;
+        private LongChain.TreeCursor slaveChainCursor;
+        private int slaveRowIndex;
+
+        public MergeJoinRecordCursor(int columnSplit, int masterTimestampIndex, int slaveTimestampIndex, Record nullRecord) {
+            // outer join record with slave always present behaves as inner join record
+            this.record = new OuterJoinRecord(columnSplit, nullRecord);
+            this.columnSplit = columnSplit;
+            this.masterTimestampIndex = masterTimestampIndex;
+            this.slaveTimestampIndex = slaveTimestampIndex;
+            this.outer = nullRecord != null;
+        }
+
+        @Override
+        public void close() {
+            masterCursor = Misc.free(masterCursor);
+            slaveCursor = Misc.free(slaveCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterCursor.getSymbolTable(columnIndex);
+            }
+            return slaveCursor.getSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextSlave()) {
+                return true;
+            }
+
+            while (masterCursor.hasNext()) {
+                loadGroup(masterRecord.getTimestamp(masterTimestampIndex));
+                if (findSlave()) {
+                    record.hasSlave(true);
+                    return true;
+                }
+
+                if (outer) {
+                    record.hasSlave(false);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            masterCursor.toTop();
+            slaveCursor.toTop();
+            reset();
+        }
+
+        private void clearGroup() {
+            if (joinKeyMap != null) {
+                joinKeyMap.clear();
+                slaveChain.clear();
+            } else {
+                slaveRows.clear();
+            }
+        }
+
+        private boolean findSlave() {
+            if (joinKeyMap != null) {
+                MapKey key = joinKeyMap.withKey();
+                key.put(masterRecord, masterKeySink);
+                MapValue value = key.findValue();
+                if (value != null) {
+                    slaveChainCursor = slaveChain.getCursor(value.getLong(0));
+                    // chain has at least one value
+                    slaveChainCursor.hasNext();
+                    slaveCursor.recordAt(slaveRecordB, slaveChainCursor.next());
+                    return true;
+                }
+                slaveChainCursor = null;
+                return false;
+            }
+
+            if (slaveRows.size() > 0) {
+                slaveRowIndex = 1;
+                slaveCursor.recordAt(slaveRecordB, slaveRows.getQuick(0));
+                return true;
+            }
+            slaveRowIndex = 0;
+            return false;
+        }
+
+        private void loadGroup(long timestamp) {
+            if (groupLoaded && timestamp == groupTimestamp) {
+                return;
+            }
+
+            clearGroup();
+            groupTimestamp = timestamp;
+            groupLoaded = true;
+
+            while (!slaveExhausted && slaveTimestamp < timestamp) {
+                interruptor.checkInterrupted();
+                nextSlaveTimestamp();
+            }
+
+            while (!slaveExhausted && slaveTimestamp == timestamp) {
+                interruptor.checkInterrupted();
+                if (joinKeyMap != null) {
+                    MapKey key = joinKeyMap.withKey();
+                    key.put(slaveRecord, slaveKeySink);
+                    MapValue value = key.createValue();
+                    if (value.isNew()) {
+                        final long offset = slaveChain.put(slaveRecord.getRowId(), -1);
+                        value.putLong(0, offset);
+                        value.putLong(1, offset);
+                    } else {
+                        value.putLong(1, slaveChain.put(slaveRecord.getRowId(), value.getLong(1)));
+                    }
+                } else {
+                    slaveRows.add(slaveRecord.getRowId());
+                }
+                nextSlaveTimestamp();
+            }
+        }
+
+        private boolean nextSlave() {
+            if (slaveChainCursor != null) {
+                if (slaveChainCursor.hasNext()) {
+                    slaveCursor.recordAt(slaveRecordB, slaveChainCursor.next());
+                    return true;
+                }
+                return false;
+            }
+
+            if (slaveRows != null && slaveRowIndex > 0 && slaveRowIndex < slaveRows.size()) {
+                slaveCursor.recordAt(slaveRecordB, slaveRows.getQuick(slaveRowIndex++));
+                return true;
+            }
+            return false;
+        }
+
+        private void nextSlaveTimestamp() {
+            if (slaveCursor.hasNext()) {
+                slaveTimestamp = slaveRecord.getTimestamp(slaveTimestampIndex);
+            } else {
+                slaveExhausted = true;
+            }
+        }
+
+        private void reset() {
+            clearGroup();
+            groupLoaded = false;
+            slaveChainCursor = null;
+            slaveRowIndex = 0;
+            slaveExhausted = false;
+            nextSlaveTimestamp();
+        }
+
+        void of(RecordCursor masterCursor, RecordCursor slaveCursor, SqlExecutionInterruptor interruptor) {
+            this.masterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            this.interruptor = interruptor;
+            this.masterRecord = masterCursor.getRecord();
+            this.slaveRecord = slaveCursor.getRecord();
+            this.slaveRecordB = slaveCursor.getRecordB();
+            record.of(masterRecord, slaveRecordB);
+            reset();
+        }
+    }
+}
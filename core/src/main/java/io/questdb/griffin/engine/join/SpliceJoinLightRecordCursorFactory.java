@@ -35,6 +35,7 @@ import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.BinarySequence;
+import io.questdb.std.MemoryAccount;
 import io.questdb.std.Misc;
 import io.questdb.std.Transient;
 import io.questdb.std.str.CharSink;
@@ -73,7 +74,8 @@ public class SpliceJoinLightRecordCursorFactory extends AbstractRecordCursorFact
             @Transient ColumnTypes valueTypes,
             RecordSink masterSink,
             RecordSink slaveSink,
-            int columnSplit
+            int columnSplit,
+            MemoryAccount memoryAccount
     ) {
         super(metadata);
         this.masterFactory = masterFactory;
@@ -81,7 +83,8 @@ public class SpliceJoinLightRecordCursorFactory extends AbstractRecordCursorFact
         this.joinKeyMap = MapFactory.createMap(
                 cairoConfiguration,
                 joinColumnTypes,
-                valueTypes
+                valueTypes,
+                memoryAccount
         );
         this.masterKeySink = masterSink;
         this.slaveKeySink = slaveSink;
@@ -116,6 +119,13 @@ public class SpliceJoinLightRecordCursorFactory extends AbstractRecordCursorFact
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Splice join light");
+        sink.child("master", masterFactory);
+        sink.child("slave", slaveFactory);
+    }
+
     public static class FullJoinRecord implements Record {
         private final int split;
         private Record master;
@@ -28,15 +28,17 @@ import io.questdb.cairo.VirtualMemory;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.griffin.engine.AbstractRedBlackTree;
+import io.questdb.std.MemoryAccount;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 
 public class LongTreeChain extends AbstractRedBlackTree {
     private final TreeCursor cursor = new TreeCursor();
     private final VirtualMemory valueChain;
 
-    public LongTreeChain(long keyPageSize, int keyMaxPages, long valuePageSize, int valueMaxPages) {
-        super(keyPageSize, keyMaxPages);
-        this.valueChain = new VirtualMemory(valuePageSize, valueMaxPages);
+    public LongTreeChain(long keyPageSize, int keyMaxPages, long valuePageSize, int valueMaxPages, MemoryAccount memoryAccount) {
+        super(keyPageSize, keyMaxPages, memoryAccount);
+        this.valueChain = new VirtualMemory(valuePageSize, valueMaxPages, MemoryTag.NATIVE_SQL_TREE, memoryAccount);
     }
 
     @Override
@@ -30,7 +30,9 @@ import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.MemoryAccount;
 import io.questdb.std.MemoryPages;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
 import io.questdb.std.Unsafe;
@@ -62,11 +64,12 @@ public class RecordTreeChain implements Closeable, Mutable {
             long keyPageSize,
             int keyMaxPages,
             long valuePageSize,
-            int valueMaxPages
+            int valueMaxPages,
+            MemoryAccount memoryAccount
     ) {
         this.comparator = comparator;
-        this.mem = new MemoryPages(keyPageSize, keyMaxPages);
-        this.recordChain = new RecordChain(columnTypes, recordSink, valuePageSize, valueMaxPages);
+        this.mem = new MemoryPages(keyPageSize, keyMaxPages, MemoryTag.NATIVE_SQL_TREE, memoryAccount);
+        this.recordChain = new RecordChain(columnTypes, recordSink, valuePageSize, valueMaxPages, memoryAccount);
         this.recordChainRecord = this.recordChain.getRecordB();
     }
 
@@ -26,10 +26,12 @@ package io.questdb.griffin.engine.orderby;
 
 import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.MemoryAccount;
 
 public class SortedLightRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordCursorFactory base;
@@ -40,14 +42,18 @@ public class SortedLightRecordCursorFactory extends AbstractRecordCursorFactory
             CairoConfiguration configuration,
             RecordMetadata metadata,
             RecordCursorFactory base,
-            RecordComparator comparator) {
+            RecordComparator comparator,
+            MemoryAccount memoryAccount
+    ) {
         super(metadata);
         this.chain = new LongTreeChain(
                 configuration.getSqlSortKeyPageSize(),
                 configuration.getSqlSortKeyMaxPages(),
                 configuration
                         .getSqlSortLightValuePageSize(),
-                configuration.getSqlSortLightValueMaxPages());
+                configuration.getSqlSortLightValueMaxPages(),
+                memoryAccount
+        );
         this.base = base;
         this.cursor = new SortedLightRecordCursor(chain, comparator);
     }
@@ -74,4 +80,10 @@ public class SortedLightRecordCursorFactory extends AbstractRecordCursorFactory
     public boolean recordCursorSupportsRandomAccess() {
         return true;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sort light");
+        sink.child(base);
+    }
 }
@@ -28,10 +28,12 @@ import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.MemoryAccount;
 
 public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordCursorFactory base;
@@ -44,7 +46,9 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
             RecordCursorFactory base,
             ColumnTypes columnTypes,
             RecordSink recordSink,
-            RecordComparator comparator) {
+            RecordComparator comparator,
+            MemoryAccount memoryAccount
+    ) {
         super(metadata);
         this.chain = new RecordTreeChain(
                 columnTypes,
@@ -54,7 +58,9 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
                 configuration
                         .getSqlSortKeyMaxPages(),
                 configuration.getSqlSortValuePageSize(),
-                configuration.getSqlSortValueMaxPages());
+                configuration.getSqlSortValueMaxPages(),
+                memoryAccount
+        );
         this.base = base;
         this.cursor = new SortedRecordCursor(chain);
     }
@@ -75,4 +81,10 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
     public boolean recordCursorSupportsRandomAccess() {
         return true;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sort");
+        sink.child(base);
+    }
 }
@@ -40,7 +40,7 @@ public abstract class AbstractDeferredTreeSetRecordCursorFactory extends Abstrac
     // factory will be resolving symbols for cursor and if successful
     // symbol keys will be added to this hash set
     protected final IntHashSet symbolKeys;
-    private final int columnIndex;
+    protected final int columnIndex;
     private final CharSequenceHashSet deferredSymbols;
 
     public AbstractDeferredTreeSetRecordCursorFactory(
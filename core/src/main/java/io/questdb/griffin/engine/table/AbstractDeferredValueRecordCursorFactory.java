@@ -35,7 +35,7 @@ abstract class AbstractDeferredValueRecordCursorFactory extends AbstractDataFram
 
     protected final Function filter;
     protected final int columnIndex;
-    private final String symbol;
+    protected final String symbol;
     private AbstractDataFrameRecordCursor cursor;
 
     public AbstractDeferredValueRecordCursorFactory(
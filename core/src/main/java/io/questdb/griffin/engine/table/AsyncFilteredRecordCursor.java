@@ -0,0 +1,116 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameRecord;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+import io.questdb.std.Rows;
+
+class AsyncFilteredRecordCursor implements RecordCursor {
+    private final PageFrameSequence<LongList> frameSequence;
+    private final Function filter;
+    private final ObjList<Function> workerFilters;
+    private final PageFrameRecord recordA;
+    private final PageFrameRecord recordB;
+    private LongList rows;
+    private int rowIndex;
+
+    public AsyncFilteredRecordCursor(PageFrameSequence<LongList> frameSequence, Function filter, ObjList<Function> workerFilters) {
+        this.frameSequence = frameSequence;
+        this.filter = filter;
+        this.workerFilters = workerFilters;
+        this.recordA = new PageFrameRecord(frameSequence);
+        this.recordB = new PageFrameRecord(frameSequence);
+    }
+
+    @Override
+    public void close() {
+        frameSequence.clear();
+    }
+
+    @Override
+    public Record getRecord() {
+        return recordA;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return frameSequence.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (rows == null || rowIndex >= rows.size()) {
+            final int frameIndex = frameSequence.next();
+            if (frameIndex == -1) {
+                return false;
+            }
+            rows = frameSequence.getOutput(frameIndex);
+            rowIndex = 0;
+            recordA.of(frameIndex);
+        }
+        recordA.setRow(rows.getQuick(rowIndex++));
+        return true;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return recordB;
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        ((PageFrameRecord) record).of(Rows.toPartitionIndex(atRowId)).setRow(Rows.toLocalRowID(atRowId));
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        frameSequence.toTop();
+        rows = null;
+        filter.toTop();
+        for (int i = 0, n = workerFilters.size(); i < n; i++) {
+            workerFilters.getQuick(i).toTop();
+        }
+    }
+
+    void of(PageFrameCursor pageFrameCursor, RecordMetadata metadata, SqlExecutionContext executionContext) {
+        frameSequence.of(pageFrameCursor, metadata, executionContext);
+        rows = null;
+        // filters resolve symbol keys against tables of the sequence, all of them before any frame is dispatched
+        filter.init(this, executionContext);
+        for (int i = 0, n = workerFilters.size(); i < n; i++) {
+            workerFilters.getQuick(i).init(this, executionContext);
+        }
+    }
+}
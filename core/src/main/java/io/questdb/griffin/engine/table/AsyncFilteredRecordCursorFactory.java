@@ -0,0 +1,111 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameRecord;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Filter that worker threads evaluate page frame by page frame. Functions are not thread-safe, so every worker
+ * has its own copy of the filter, query thread uses the original. Rows are returned in the order of the base
+ * factory.
+ */
+public class AsyncFilteredRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final Function filter;
+    private final ObjList<Function> workerFilters;
+    private final PageFrameSequence<LongList> frameSequence;
+    private final AsyncFilteredRecordCursor cursor;
+
+    /**
+     * @param configuration configuration
+     * @param base          factory that supports page frames
+     * @param filter        filter query thread evaluates
+     * @param workerFilters filter copies, one per worker
+     */
+    public AsyncFilteredRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            Function filter,
+            ObjList<Function> workerFilters
+    ) {
+        assert base.supportPageFrameCursor();
+        this.base = base;
+        this.filter = filter;
+        this.workerFilters = workerFilters;
+        this.frameSequence = new PageFrameSequence<>(configuration, this::filterFrame, LongList::new, workerFilters.size());
+        this.cursor = new AsyncFilteredRecordCursor(frameSequence, filter, workerFilters);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(frameSequence);
+        Misc.free(base);
+        Misc.free(filter);
+        Misc.freeObjList(workerFilters);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        // base reuses its page frame cursor, release previous reader before it is re-opened
+        cursor.close();
+        cursor.of(base.getPageFrameCursor(executionContext), base.getMetadata(), executionContext);
+        return cursor;
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return base.getMetadata();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async filter");
+        sink.attr("parallel").put("page frames, workers=").put(workerFilters.size());
+        sink.attr("filter", filter);
+        sink.child(base);
+    }
+
+    private void filterFrame(int slot, PageFrameRecord record, long frameRowCount, LongList rows) {
+        final Function filter = slot < workerFilters.size() ? workerFilters.getQuick(slot) : this.filter;
+        for (long row = 0; row < frameRowCount; row++) {
+            record.setRow(row);
+            if (filter.getBool(record)) {
+                rows.add(row);
+            }
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.jetbrains.annotations.Nullable;
 
 public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
     private final DataFrameRecordCursor cursor;
+    private final RowCursorFactory rowCursorFactory;
     private final boolean followsOrderByAdvice;
     private final Function filter;
     private final boolean framingSupported;
@@ -57,6 +58,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
     ) {
         super(metadata, dataFrameCursorFactory);
         this.cursor = new DataFrameRecordCursor(rowCursorFactory, rowCursorFactory.isEntity(), filter, columnIndexes);
+        this.rowCursorFactory = rowCursorFactory;
         this.followsOrderByAdvice = followsOrderByAdvice;
         this.filter = filter;
         this.framingSupported = framingSupported;
@@ -88,7 +90,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
 
     @Override
     public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) {
-        DataFrameCursor dataFrameCursor = dataFrameCursorFactory.getCursor(executionContext.getCairoSecurityContext());
+        DataFrameCursor dataFrameCursor = dataFrameCursorFactory.getCursor(executionContext);
         if (pageFrameCursor != null) {
             return pageFrameCursor.of(dataFrameCursor);
         } else if (framingSupported) {
@@ -106,9 +108,17 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
 
     @Override
     public void close() {
+        super.close();
         Misc.free(filter);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("DataFrame");
+        sink.child(rowCursorFactory);
+        sink.child(dataFrameCursorFactory);
+    }
+
     private static class TableReaderPageFrameCursor implements PageFrameCursor {
         private final LongList columnPageNextAddress = new LongList();
         private final LongList columnPageAddress = new LongList();
@@ -301,6 +311,11 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
             public long getPageValueCount(int columnIndex) {
                 return pageValueCount;
             }
+
+            @Override
+            public int getPartitionIndex() {
+                return partitionIndex;
+            }
         }
     }
 
@@ -25,6 +25,7 @@
 package io.questdb.griffin.engine.table;
 
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.RowCursorFactory;
 
@@ -41,4 +42,9 @@ public class DataFrameRowCursorFactory implements RowCursorFactory {
     public boolean isEntity() {
         return true;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Row forward scan");
+    }
 }
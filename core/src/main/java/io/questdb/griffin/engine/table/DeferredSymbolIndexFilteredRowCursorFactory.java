@@ -24,6 +24,7 @@
 
 package io.questdb.griffin.engine.table;
 
+import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.EmptyRowCursor;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.*;
@@ -31,18 +32,25 @@ import io.questdb.cairo.sql.*;
 public class DeferredSymbolIndexFilteredRowCursorFactory implements RowCursorFactory {
     private final SymbolIndexFilteredRowCursor cursor;
     private final int columnIndex;
+    private final String columnName;
     private final String symbol;
+    private final Function filter;
+    private final int indexDirection;
     private int symbolKey = SymbolTable.VALUE_NOT_FOUND;
 
     public DeferredSymbolIndexFilteredRowCursorFactory(
             int columnIndex,
+            String columnName,
             String symbol,
             Function filter,
             boolean cachedIndexReaderCursor,
             int indexDirection
     ) {
         this.columnIndex = columnIndex;
+        this.columnName = columnName;
         this.symbol = symbol;
+        this.filter = filter;
+        this.indexDirection = indexDirection;
         this.cursor = new SymbolIndexFilteredRowCursor(columnIndex, filter, cachedIndexReaderCursor, indexDirection);
     }
 
@@ -67,4 +75,12 @@ public class DeferredSymbolIndexFilteredRowCursorFactory implements RowCursorFac
     public boolean isEntity() {
         return false;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(indexDirection == BitmapIndexReader.DIR_BACKWARD ? "Index backward scan" : "Index forward scan");
+        sink.attr("column").put(columnName);
+        sink.attr("symbol").put('\'').put(symbol).put('\'');
+        sink.attr("filter", filter);
+    }
 }
@@ -24,16 +24,19 @@
 
 package io.questdb.griffin.engine.table;
 
+import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.EmptyRowCursor;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.RowCursorFactory;
 import io.questdb.cairo.sql.SymbolTable;
 
 public class DeferredSymbolIndexRowCursorFactory implements RowCursorFactory {
     private final int columnIndex;
+    private final String columnName;
     private final boolean cachedIndexReaderCursor;
     private final String symbol;
     private int symbolKey;
@@ -41,11 +44,13 @@ public class DeferredSymbolIndexRowCursorFactory implements RowCursorFactory {
 
     public DeferredSymbolIndexRowCursorFactory(
             int columnIndex,
+            String columnName,
             String symbol,
             boolean cachedIndexReaderCursor,
             int indexDirection
     ) {
         this.columnIndex = columnIndex;
+        this.columnName = columnName;
         this.symbolKey = SymbolTable.VALUE_NOT_FOUND;
         this.symbol = symbol;
         this.cachedIndexReaderCursor = cachedIndexReaderCursor;
@@ -75,4 +80,11 @@ public class DeferredSymbolIndexRowCursorFactory implements RowCursorFactory {
     public boolean isEntity() {
         return false;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(indexDirection == BitmapIndexReader.DIR_BACKWARD ? "Index backward scan" : "Index forward scan");
+        sink.attr("column").put(columnName);
+        sink.attr("symbol").put('\'').put(symbol).put('\'');
+    }
 }
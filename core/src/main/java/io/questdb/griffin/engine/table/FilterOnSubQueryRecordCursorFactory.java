@@ -28,6 +28,7 @@ import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.EmptyTableRandomRecordCursor;
+import io.questdb.std.Chars;
 import io.questdb.std.IntList;
 import io.questdb.std.IntObjHashMap;
 import io.questdb.std.Misc;
@@ -38,6 +39,7 @@ import org.jetbrains.annotations.Nullable;
 public class FilterOnSubQueryRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
     private final DataFrameRecordCursor cursor;
     private final int columnIndex;
+    private final String columnName;
     private final Function filter;
     private final ObjList<RowCursorFactory> cursorFactories;
     private final IntObjHashMap<RowCursorFactory> factoriesA = new IntObjHashMap<>(64, 0.5, -5);
@@ -51,6 +53,7 @@ public class FilterOnSubQueryRecordCursorFactory extends AbstractDataFrameRecord
             @NotNull DataFrameCursorFactory dataFrameCursorFactory,
             @NotNull RecordCursorFactory recordCursorFactory,
             int columnIndex,
+            @NotNull String columnName,
             @Nullable Function filter,
             @NotNull Record.CharSequenceFunction func,
             @NotNull IntList columnIndexes
@@ -58,6 +61,7 @@ public class FilterOnSubQueryRecordCursorFactory extends AbstractDataFrameRecord
         super(metadata, dataFrameCursorFactory);
         this.recordCursorFactory = recordCursorFactory;
         this.columnIndex = columnIndex;
+        this.columnName = columnName;
         this.filter = filter;
         this.factories = factoriesA;
         cursorFactories = new ObjList<>();
@@ -67,6 +71,7 @@ public class FilterOnSubQueryRecordCursorFactory extends AbstractDataFrameRecord
 
     @Override
     public void close() {
+        super.close();
         Misc.free(filter);
         recordCursorFactory.close();
         factoriesA.clear();
@@ -112,9 +117,9 @@ public class FilterOnSubQueryRecordCursorFactory extends AbstractDataFrameRecord
                             // we cannot reliably tell that one of them could be using cursor that
                             // belongs to index reader
                             if (filter == null) {
-                                rowCursorFactory = new SymbolIndexRowCursorFactory(columnIndex, symbolKey, false, BitmapIndexReader.DIR_FORWARD);
+                                rowCursorFactory = new SymbolIndexRowCursorFactory(columnIndex, columnName, symbolKey, Chars.toString(symbol), false, BitmapIndexReader.DIR_FORWARD);
                             } else {
-                                rowCursorFactory = new SymbolIndexFilteredRowCursorFactory(columnIndex, symbolKey, filter, false, BitmapIndexReader.DIR_FORWARD);
+                                rowCursorFactory = new SymbolIndexFilteredRowCursorFactory(columnIndex, columnName, symbolKey, Chars.toString(symbol), filter, false, BitmapIndexReader.DIR_FORWARD);
                             }
                         }
 
@@ -139,4 +144,13 @@ public class FilterOnSubQueryRecordCursorFactory extends AbstractDataFrameRecord
         }
         return this.cursor;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Filter on sub query");
+        sink.attr("column").put(columnName);
+        sink.attr("filter", filter);
+        sink.child("values", recordCursorFactory);
+        sink.child(dataFrameCursorFactory);
+    }
 }
@@ -36,8 +36,10 @@ import org.jetbrains.annotations.Nullable;
 public class FilterOnValuesRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
     private final DataFrameRecordCursor cursor;
     private final int columnIndex;
+    private final String columnName;
     private final Function filter;
     private final ObjList<RowCursorFactory> cursorFactories;
+    private final RowCursorFactory rowCursorFactory;
     private final boolean followedOrderByAdvice;
 
     public FilterOnValuesRecordCursorFactory(
@@ -55,6 +57,7 @@ public class FilterOnValuesRecordCursorFactory extends AbstractDataFrameRecordCu
         super(metadata, dataFrameCursorFactory);
         final int nKeyValues = keyValues.size();
         this.columnIndex = columnIndex;
+        this.columnName = Chars.toString(reader.getMetadata().getColumnName(columnIndex));
         this.filter = filter;
         cursorFactories = new ObjList<>(nKeyValues);
         final SymbolMapReader symbolMapReader = reader.getSymbolMapReader(columnIndex);
@@ -63,10 +66,11 @@ public class FilterOnValuesRecordCursorFactory extends AbstractDataFrameRecordCu
             addSymbolKey(symbolMapReader.keyOf(symbol), symbol, indexDirection);
         }
         if (orderByMnemonic == OrderByMnemonic.ORDER_BY_INVARIANT) {
-            this.cursor = new DataFrameRecordCursor(new SequentialRowCursorFactory(cursorFactories), false, filter, columnIndexes);
+            this.rowCursorFactory = new SequentialRowCursorFactory(cursorFactories);
         } else {
-            this.cursor = new DataFrameRecordCursor(new HeapRowCursorFactory(cursorFactories), false, filter, columnIndexes);
+            this.rowCursorFactory = new HeapRowCursorFactory(cursorFactories);
         }
+        this.cursor = new DataFrameRecordCursor(rowCursorFactory, false, filter, columnIndexes);
         this.followedOrderByAdvice = followedOrderByAdvice;
     }
 
@@ -77,6 +81,7 @@ public class FilterOnValuesRecordCursorFactory extends AbstractDataFrameRecordCu
 
     @Override
     public void close() {
+        super.close();
         Misc.free(filter);
     }
 
@@ -85,19 +90,28 @@ public class FilterOnValuesRecordCursorFactory extends AbstractDataFrameRecordCu
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Filter on values");
+        sink.attr("column").put(columnName);
+        sink.attr("filter", filter);
+        sink.child(rowCursorFactory);
+        sink.child(dataFrameCursorFactory);
+    }
+
     private void addSymbolKey(int symbolKey, CharSequence symbolValue, int indexDirection) {
         final RowCursorFactory rowCursorFactory;
         if (filter == null) {
             if (symbolKey == SymbolTable.VALUE_NOT_FOUND) {
-                rowCursorFactory = new DeferredSymbolIndexRowCursorFactory(columnIndex, Chars.toString(symbolValue), cursorFactories.size() == 0, indexDirection);
+                rowCursorFactory = new DeferredSymbolIndexRowCursorFactory(columnIndex, columnName, Chars.toString(symbolValue), cursorFactories.size() == 0, indexDirection);
             } else {
-                rowCursorFactory = new SymbolIndexRowCursorFactory(columnIndex, symbolKey, cursorFactories.size() == 0, indexDirection);
+                rowCursorFactory = new SymbolIndexRowCursorFactory(columnIndex, columnName, symbolKey, Chars.toString(symbolValue), cursorFactories.size() == 0, indexDirection);
             }
         } else {
             if (symbolKey == SymbolTable.VALUE_NOT_FOUND) {
-                rowCursorFactory = new DeferredSymbolIndexFilteredRowCursorFactory(columnIndex, Chars.toString(symbolValue), filter, cursorFactories.size() == 0, indexDirection);
+                rowCursorFactory = new DeferredSymbolIndexFilteredRowCursorFactory(columnIndex, columnName, Chars.toString(symbolValue), filter, cursorFactories.size() == 0, indexDirection);
             } else {
-                rowCursorFactory = new SymbolIndexFilteredRowCursorFactory(columnIndex, symbolKey, filter, cursorFactories.size() == 0, indexDirection);
+                rowCursorFactory = new SymbolIndexFilteredRowCursorFactory(columnIndex, columnName, symbolKey, Chars.toString(symbolValue), filter, cursorFactories.size() == 0, indexDirection);
             }
         }
         cursorFactories.add(rowCursorFactory);
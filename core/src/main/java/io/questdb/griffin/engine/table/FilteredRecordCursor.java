@@ -29,11 +29,16 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
 
 class FilteredRecordCursor implements RecordCursor {
+    // filter may reject rows for as long as table has them, interruptor is checked once per this many rejected rows
+    private static final int INTERRUPT_CHECK_INTERVAL = 256;
     private final Function filter;
     private RecordCursor base;
     private Record record;
+    private SqlExecutionInterruptor interruptor;
+    private int countdown = INTERRUPT_CHECK_INTERVAL;
 
     public FilteredRecordCursor(Function filter) {
         this.filter = filter;
@@ -64,6 +69,10 @@ class FilteredRecordCursor implements RecordCursor {
             if (filter.getBool(record)) {
                 return true;
             }
+            if (--countdown == 0) {
+                countdown = INTERRUPT_CHECK_INTERVAL;
+                interruptor.checkInterrupted();
+            }
         }
 
         return false;
@@ -100,6 +109,8 @@ class FilteredRecordCursor implements RecordCursor {
     void of(RecordCursor base, SqlExecutionContext executionContext) {
         this.base = base;
         this.record = base.getRecord();
+        this.interruptor = executionContext.getSqlExecutionInterruptor();
+        this.countdown = INTERRUPT_CHECK_INTERVAL;
         filter.init(this, executionContext);
     }
 }
@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.table;
 
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.RowCursorFactory;
 import io.questdb.std.ObjList;
@@ -59,4 +60,12 @@ public class HeapRowCursorFactory implements RowCursorFactory {
     public void prepareCursor(TableReader tableReader) {
         RowCursorFactory.prepareCursor(cursorFactories, tableReader);
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Heap merge");
+        for (int i = 0, n = cursorFactories.size(); i < n; i++) {
+            sink.child(cursorFactories.getQuick(i));
+        }
+    }
 }
@@ -24,6 +24,8 @@
 
 package io.questdb.griffin.engine.table;
 
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.std.MemoryAccount;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -42,6 +44,7 @@ import io.questdb.std.Transient;
 
 public class LatestByAllFilteredRecordCursorFactory extends AbstractTreeSetRecordCursorFactory {
     private final Map map;
+    private final Function filter;
 
     public LatestByAllFilteredRecordCursorFactory(
             @NotNull RecordMetadata metadata,
@@ -50,10 +53,12 @@ public class LatestByAllFilteredRecordCursorFactory extends AbstractTreeSetRecor
             @NotNull RecordSink recordSink,
             @Transient @NotNull ColumnTypes columnTypes,
             @Nullable Function filter,
-            @NotNull IntList columnIndexes
+            @NotNull IntList columnIndexes,
+            MemoryAccount memoryAccount
     ) {
         super(metadata, dataFrameCursorFactory, configuration);
-        this.map = MapFactory.createMap(configuration, columnTypes);
+        this.map = MapFactory.createMap(configuration, columnTypes, memoryAccount);
+        this.filter = filter;
         if (filter == null) {
             this.cursor = new LatestByAllRecordCursor(map, rows, recordSink, columnIndexes);
         } else {
@@ -79,4 +84,11 @@ public class LatestByAllFilteredRecordCursorFactory extends AbstractTreeSetRecor
     ) {
         return super.getCursorInstance(dataFrameCursor, executionContext);
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Latest by all");
+        sink.attr("filter", filter);
+        sink.child(dataFrameCursorFactory);
+    }
 }
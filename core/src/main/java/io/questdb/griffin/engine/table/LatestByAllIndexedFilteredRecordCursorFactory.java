@@ -27,12 +27,16 @@ package io.questdb.griffin.engine.table;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.std.IntList;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class LatestByAllIndexedFilteredRecordCursorFactory extends AbstractTreeSetRecordCursorFactory {
+    private final int columnIndex;
+    private final Function filter;
+
     public LatestByAllIndexedFilteredRecordCursorFactory(
             @NotNull CairoConfiguration configuration,
             @NotNull RecordMetadata metadata,
@@ -42,6 +46,8 @@ public class LatestByAllIndexedFilteredRecordCursorFactory extends AbstractTreeS
             @NotNull IntList columnIndexes
     ) {
         super(metadata, dataFrameCursorFactory, configuration);
+        this.columnIndex = columnIndex;
+        this.filter = filter;
         if (filter == null) {
             this.cursor = new LatestByAllIndexedRecordCursor(columnIndex, rows, columnIndexes);
         } else {
@@ -53,4 +59,12 @@ public class LatestByAllIndexedFilteredRecordCursorFactory extends AbstractTreeS
     public boolean recordCursorSupportsRandomAccess() {
         return true;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Latest by all indexed");
+        sink.attr("column").put(columnIndex);
+        sink.attr("filter", filter);
+        sink.child(dataFrameCursorFactory);
+    }
 }
@@ -112,4 +112,13 @@ public class LatestBySubQueryRecordCursorFactory extends AbstractTreeSetRecordCu
     public boolean recordCursorSupportsRandomAccess() {
         return true;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Latest by sub query");
+        sink.attr("column").put(columnIndex);
+        sink.attr("filter", filter);
+        sink.child("values", recordCursorFactory);
+        sink.child(dataFrameCursorFactory);
+    }
 }
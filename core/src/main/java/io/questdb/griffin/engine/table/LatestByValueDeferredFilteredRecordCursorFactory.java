@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.table;
 
 import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.std.IntList;
 import org.jetbrains.annotations.NotNull;
@@ -59,4 +60,13 @@ public class LatestByValueDeferredFilteredRecordCursorFactory extends AbstractDe
         }
         return new LatestByValueFilteredRecordCursor(columnIndex, symbolKey, filter, columnIndexes);
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Latest by value");
+        sink.attr("column").put(columnIndex);
+        sink.attr("symbol").put(symbol);
+        sink.attr("filter", filter);
+        sink.child(dataFrameCursorFactory);
+    }
 }
@@ -27,6 +27,7 @@ package io.questdb.griffin.engine.table;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.std.IntList;
 import org.jetbrains.annotations.NotNull;
@@ -57,4 +58,13 @@ public class LatestByValueDeferredIndexedFilteredRecordCursorFactory extends Abs
         assert filter != null;
         return new LatestByValueIndexedFilteredRecordCursor(columnIndex, TableUtils.toIndexKey(symbolKey), filter, columnIndexes);
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Latest by value indexed");
+        sink.attr("column").put(columnIndex);
+        sink.attr("symbol").put(symbol);
+        sink.attr("filter", filter);
+        sink.child(dataFrameCursorFactory);
+    }
 }
@@ -34,6 +34,8 @@ public class LatestByValueFilteredRecordCursorFactory extends AbstractDataFrameR
 
     private final AbstractDataFrameRecordCursor cursor;
     private final Function filter;
+    private final int columnIndex;
+    private final int symbolKey;
 
     public LatestByValueFilteredRecordCursorFactory(
             RecordMetadata metadata,
@@ -50,6 +52,8 @@ public class LatestByValueFilteredRecordCursorFactory extends AbstractDataFrameR
             this.cursor = new LatestByValueFilteredRecordCursor(columnIndex, symbolKey, filter, columnIndexes);
         }
         this.filter = filter;
+        this.columnIndex = columnIndex;
+        this.symbolKey = symbolKey;
     }
 
     @Override
@@ -73,4 +77,13 @@ public class LatestByValueFilteredRecordCursorFactory extends AbstractDataFrameR
         cursor.of(dataFrameCursor, executionContext);
         return cursor;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Latest by value");
+        sink.attr("column").put(columnIndex);
+        sink.attr("key").put(symbolKey);
+        sink.attr("filter", filter);
+        sink.child(dataFrameCursorFactory);
+    }
 }
@@ -33,6 +33,8 @@ import org.jetbrains.annotations.NotNull;
 public class LatestByValueIndexedFilteredRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
     private final LatestByValueIndexedFilteredRecordCursor cursor;
     private final Function filter;
+    private final int columnIndex;
+    private final int symbolKey;
 
     public LatestByValueIndexedFilteredRecordCursorFactory(
             @NotNull RecordMetadata metadata,
@@ -45,6 +47,8 @@ public class LatestByValueIndexedFilteredRecordCursorFactory extends AbstractDat
         super(metadata, dataFrameCursorFactory);
         this.cursor = new LatestByValueIndexedFilteredRecordCursor(columnIndex, TableUtils.toIndexKey(symbolKey), filter, columnIndexes);
         this.filter = filter;
+        this.columnIndex = columnIndex;
+        this.symbolKey = TableUtils.toIndexKey(symbolKey);
     }
 
     @Override
@@ -63,4 +67,13 @@ public class LatestByValueIndexedFilteredRecordCursorFactory extends AbstractDat
         cursor.of(dataFrameCursor, executionContext);
         return cursor;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Latest by value indexed");
+        sink.attr("column").put(columnIndex);
+        sink.attr("key").put(symbolKey);
+        sink.attr("filter", filter);
+        sink.child(dataFrameCursorFactory);
+    }
 }
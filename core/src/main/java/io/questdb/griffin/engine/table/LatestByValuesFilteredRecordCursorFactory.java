@@ -29,6 +29,7 @@ import io.questdb.cairo.SymbolMapReader;
 import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.CharSequenceHashSet;
@@ -85,4 +86,12 @@ public class LatestByValuesFilteredRecordCursorFactory extends AbstractDeferredT
         }
         return super.getCursorInstance(dataFrameCursor, executionContext);
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Latest by values");
+        sink.attr("column").put(columnIndex);
+        sink.attr("filter", filter);
+        sink.child(dataFrameCursorFactory);
+    }
 }
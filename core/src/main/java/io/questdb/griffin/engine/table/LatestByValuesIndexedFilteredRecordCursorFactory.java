@@ -29,6 +29,7 @@ import io.questdb.cairo.SymbolMapReader;
 import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.*;
@@ -86,4 +87,12 @@ public class LatestByValuesIndexedFilteredRecordCursorFactory extends AbstractDe
 
         return super.getCursorInstance(dataFrameCursor, executionContext);
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Latest by values indexed");
+        sink.attr("column").put(columnIndex);
+        sink.attr("filter", filter);
+        sink.child(dataFrameCursorFactory);
+    }
 }
@@ -31,7 +31,7 @@ public class LongTreeSet extends AbstractRedBlackTree {
     private final TreeCursor cursor = new TreeCursor();
 
     public LongTreeSet(int keyPageSize, int keyMaxPages) {
-        super(keyPageSize, keyMaxPages);
+        super(keyPageSize, keyMaxPages, null);
     }
 
     public TreeCursor getCursor() {
@@ -29,6 +29,7 @@ import io.questdb.std.BinarySequence;
 import io.questdb.std.IntList;
 import io.questdb.std.Long256;
 import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Utf8Sequence;
 
 class SelectedRecord implements Record {
     private final IntList columnCrossIndex;
@@ -123,6 +124,16 @@ class SelectedRecord implements Record {
         return base.getStrLen(getColumnIndex(col));
     }
 
+    @Override
+    public Utf8Sequence getVarcharA(int col) {
+        return base.getVarcharA(getColumnIndex(col));
+    }
+
+    @Override
+    public Utf8Sequence getVarcharB(int col) {
+        return base.getVarcharB(getColumnIndex(col));
+    }
+
     @Override
     public CharSequence getSym(int col) {
         return base.getSym(getColumnIndex(col));
@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.table;
 
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.RowCursorFactory;
 import io.questdb.std.ObjList;
@@ -60,6 +61,14 @@ public class SequentialRowCursorFactory implements RowCursorFactory {
         RowCursorFactory.prepareCursor(cursorFactories, tableReader);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sequential scan");
+        for (int i = 0, n = cursorFactories.size(); i < n; i++) {
+            sink.child(cursorFactories.getQuick(i));
+        }
+    }
+
     private class SequentialRowCursor implements RowCursor {
         private final int cursorIndexLimit;
         private int cursorIndex = 0;
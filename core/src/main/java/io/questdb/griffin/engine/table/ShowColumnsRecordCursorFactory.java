@@ -27,6 +27,7 @@ import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.GenericRecordMetadata;
 import io.questdb.cairo.TableColumnMetadata;
 import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -74,6 +75,12 @@ public class ShowColumnsRecordCursorFactory implements RecordCursorFactory {
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Show columns");
+        sink.attr("table").put(tableName);
+    }
+
     private class ShowColumnsCursor implements RecordCursor {
         private final ShowColumnsRecord record = new ShowColumnsRecord();
         private TableReader reader;
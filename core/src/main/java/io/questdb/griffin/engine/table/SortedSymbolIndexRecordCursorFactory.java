@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.table;
 
 import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.SqlExecutionContext;
@@ -34,6 +35,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class SortedSymbolIndexRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
     private final DataFrameRecordCursor cursor;
+    private final SortedSymbolIndexRowCursorFactory rowCursorFactory;
 
     public SortedSymbolIndexRecordCursorFactory(
             @NotNull RecordMetadata metadata,
@@ -44,16 +46,12 @@ public class SortedSymbolIndexRecordCursorFactory extends AbstractDataFrameRecor
             @NotNull IntList columnIndexes
     ) {
         super(metadata, dataFrameCursorFactory);
-        this.cursor = new DataFrameRecordCursor(
-                new SortedSymbolIndexRowCursorFactory(
-                        columnIndex,
-                        columnOrderAsc,
-                        indexDirection
-                ),
-                true,
-                null,
-                columnIndexes
+        this.rowCursorFactory = new SortedSymbolIndexRowCursorFactory(
+                columnIndex,
+                columnOrderAsc,
+                indexDirection
         );
+        this.cursor = new DataFrameRecordCursor(rowCursorFactory, true, null, columnIndexes);
     }
 
     @Override
@@ -72,4 +70,11 @@ public class SortedSymbolIndexRecordCursorFactory extends AbstractDataFrameRecor
         this.cursor.of(dataFrameCursor, executionContext);
         return this.cursor;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sorted symbol index");
+        sink.child(rowCursorFactory);
+        sink.child(dataFrameCursorFactory);
+    }
 }
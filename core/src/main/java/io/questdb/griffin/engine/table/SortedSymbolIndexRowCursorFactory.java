@@ -24,6 +24,7 @@
 
 package io.questdb.griffin.engine.table;
 
+import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.EmptyRowCursor;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableUtils;
@@ -96,6 +97,13 @@ public class SortedSymbolIndexRowCursorFactory implements RowCursorFactory {
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(indexDirection == BitmapIndexReader.DIR_BACKWARD ? "Index backward scan" : "Index forward scan");
+        sink.attr("column").put(columnIndex);
+        sink.attr("order").put(columnOrderDirectionAsc ? "asc" : "desc");
+    }
+
     // this is a thread-local contraption used for sorting symbol values. We ought to think of something better
     private static class SymbolTableEntry {
         private String value;
@@ -24,22 +24,39 @@
 
 package io.questdb.griffin.engine.table;
 
+import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.RowCursorFactory;
 
 public class SymbolIndexFilteredRowCursorFactory implements RowCursorFactory {
     private final SymbolIndexFilteredRowCursor cursor;
+    private final int columnIndex;
+    private final String columnName;
+    private final int symbolKey;
+    private final String symbol;
+    private final Function filter;
+    private final int indexDirection;
 
     public SymbolIndexFilteredRowCursorFactory(
             int columnIndex,
+            String columnName,
             int symbolKey,
+            String symbol,
             Function filter,
             boolean cachedIndexReaderCursor,
             int indexDirection
     ) {
+        this.columnIndex = columnIndex;
+        this.columnName = columnName;
+        this.symbolKey = TableUtils.toIndexKey(symbolKey);
+        this.symbol = symbol;
+        this.filter = filter;
+        this.indexDirection = indexDirection;
         this.cursor = new SymbolIndexFilteredRowCursor(
                 columnIndex,
                 symbolKey,
@@ -63,4 +80,12 @@ public class SymbolIndexFilteredRowCursorFactory implements RowCursorFactory {
     public boolean isEntity() {
         return false;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(indexDirection == BitmapIndexReader.DIR_BACKWARD ? "Index backward scan" : "Index forward scan");
+        sink.attr("column").put(columnName);
+        sink.attr("symbol").put('\'').put(symbol).put('\'');
+        sink.attr("filter", filter);
+    }
 }
@@ -24,25 +24,33 @@
 
 package io.questdb.griffin.engine.table;
 
+import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.RowCursorFactory;
 
 public class SymbolIndexRowCursorFactory implements RowCursorFactory {
     private final int columnIndex;
+    private final String columnName;
     private final int symbolKey;
+    private final String symbol;
     private final boolean cachedIndexReaderCursor;
     private final int indexDirection;
 
     public SymbolIndexRowCursorFactory(
             int columnIndex,
+            String columnName,
             int symbolKey,
+            String symbol,
             boolean cachedIndexReaderCursor,
             int indexDirection
     ) {
         this.columnIndex = columnIndex;
+        this.columnName = columnName;
         this.symbolKey = TableUtils.toIndexKey(symbolKey);
+        this.symbol = symbol;
         this.cachedIndexReaderCursor = cachedIndexReaderCursor;
         this.indexDirection = indexDirection;
     }
@@ -58,4 +66,11 @@ public class SymbolIndexRowCursorFactory implements RowCursorFactory {
     public boolean isEntity() {
         return false;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(indexDirection == BitmapIndexReader.DIR_BACKWARD ? "Index backward scan" : "Index forward scan");
+        sink.attr("column").put(columnName);
+        sink.attr("symbol").put('\'').put(symbol).put('\'');
+    }
 }
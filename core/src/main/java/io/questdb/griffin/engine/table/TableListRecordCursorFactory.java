@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.table;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.GenericRecordMetadata;
 import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -78,6 +79,11 @@ public class TableListRecordCursorFactory implements RecordCursorFactory {
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Table list");
+    }
+
     private class TableListRecordCursor implements RecordCursor {
         private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
         private final TableListRecord record = new TableListRecord();
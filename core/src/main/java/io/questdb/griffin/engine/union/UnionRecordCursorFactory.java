@@ -30,10 +30,12 @@ import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.map.Map;
 import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.MemoryAccount;
 import io.questdb.std.Misc;
 
 public class UnionRecordCursorFactory implements RecordCursorFactory {
@@ -48,12 +50,14 @@ public class UnionRecordCursorFactory implements RecordCursorFactory {
             RecordCursorFactory masterFactory,
             RecordCursorFactory slaveFactory,
             RecordSink recordSink,
-            ColumnTypes valueTypes
+            ColumnTypes keyTypes,
+            ColumnTypes valueTypes,
+            MemoryAccount memoryAccount
     ) {
         this.metadata = masterFactory.getMetadata();
         this.masterFactory = masterFactory;
         this.slaveFactory = slaveFactory;
-        this.map = MapFactory.createMap(configuration, metadata, valueTypes);
+        this.map = MapFactory.createMap(configuration, keyTypes, valueTypes, memoryAccount);
         this.cursor = new UnionRecordCursor(map, recordSink);
     }
 
@@ -87,4 +91,11 @@ public class UnionRecordCursorFactory implements RecordCursorFactory {
         Misc.free(slaveFactory);
         Misc.free(map);
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Union");
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
 }
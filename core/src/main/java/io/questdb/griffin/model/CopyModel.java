@@ -34,9 +34,18 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     private ExpressionNode tableName;
     private ExpressionNode fileName;
     private boolean header;
+    private boolean export;
+    private QueryModel queryModel;
+    private int rowGroupSize = -1;
 
     @Override
     public void clear() {
+        tableName = null;
+        fileName = null;
+        header = false;
+        export = false;
+        queryModel = null;
+        rowGroupSize = -1;
     }
 
     public ExpressionNode getFileName() {
@@ -60,6 +69,33 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.tableName = tableName;
     }
 
+    public QueryModel getQueryModel() {
+        return queryModel;
+    }
+
+    public void setQueryModel(QueryModel queryModel) {
+        this.queryModel = queryModel;
+    }
+
+    /**
+     * @return maximum number of rows in Parquet row group or -1 when not specified
+     */
+    public int getRowGroupSize() {
+        return rowGroupSize;
+    }
+
+    public void setRowGroupSize(int rowGroupSize) {
+        this.rowGroupSize = rowGroupSize;
+    }
+
+    public boolean isExport() {
+        return export;
+    }
+
+    public void setExport(boolean export) {
+        this.export = export;
+    }
+
     public boolean isHeader() {
         return header;
     }
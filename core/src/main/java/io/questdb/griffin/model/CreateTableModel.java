@@ -42,6 +42,8 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     private QueryModel queryModel;
     private ExpressionNode timestamp;
     private ExpressionNode partitionBy;
+    private CharSequence viewQuery;
+    private ExpressionNode viewBaseTable;
 
     private CreateTableModel() {
     }
@@ -79,6 +81,8 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         timestamp = null;
         partitionBy = null;
         name = null;
+        viewQuery = null;
+        viewBaseTable = null;
         columnBits.clear();
         columnNames.clear();
         columnNameIndexMap.clear();
@@ -183,6 +187,29 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         this.timestamp = timestamp;
     }
 
+    public ExpressionNode getViewBaseTable() {
+        return viewBaseTable;
+    }
+
+    public void setViewBaseTable(ExpressionNode viewBaseTable) {
+        this.viewBaseTable = viewBaseTable;
+    }
+
+    /**
+     * @return text of materialized view query or null when model is not a materialized view
+     */
+    public CharSequence getViewQuery() {
+        return viewQuery;
+    }
+
+    public void setViewQuery(CharSequence viewQuery) {
+        this.viewQuery = viewQuery;
+    }
+
+    public boolean isMaterializedView() {
+        return viewQuery != null;
+    }
+
     public void setIndexFlags(boolean indexFlag, int indexValueBlockSize) {
         setIndexFlags0(columnBits.size() - 1, indexFlag, indexValueBlockSize);
     }
@@ -201,7 +228,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
 
     @Override
     public void toSink(CharSink sink) {
-        sink.put("create table ");
+        sink.put(isMaterializedView() ? "create materialized view " : "create table ");
         sink.put(getName().token);
         if (getQueryModel() != null) {
             sink.put(" as (");
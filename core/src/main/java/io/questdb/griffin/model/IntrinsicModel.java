@@ -24,6 +24,7 @@
 
 package io.questdb.griffin.model;
 
+import io.questdb.cairo.sql.Function;
 import io.questdb.griffin.SqlException;
 import io.questdb.std.*;
 import io.questdb.std.microtime.TimestampFormatUtils;
@@ -46,6 +47,9 @@ public class IntrinsicModel implements Mutable {
 
     public final CharSequenceHashSet keyValues = new CharSequenceHashSet();
     public final IntList keyValuePositions = new IntList();
+    // runtime constant functions bounding timestamp, see RuntimeIntervalModel
+    public final ObjList<Function> intervalBoundFunctions = new ObjList<>();
+    public final IntList intervalBoundTypes = new IntList();
     private final LongList intervalsA = new LongList();
     private final LongList intervalsB = new LongList();
     private final LongList intervalsC = new LongList();
@@ -392,6 +396,29 @@ public class IntrinsicModel implements Mutable {
         return ts;
     }
 
+    /**
+     * Parses boundary of half-open interval, such as in "ts > '2020-01'". Partial date is rounded
+     * to the edge of period it denotes, for example "ts > '2020-01'" starts at the end of January
+     * and "ts >= '2020-01'" starts at the beginning of January.
+     *
+     * @param equalsTo true when boundary is inclusive, as in "&gt;=" or "&lt;="
+     * @param isLo     true when value is low boundary of interval
+     * @param seq      date text
+     * @param lo       position of first character of date
+     * @param lim      position after last character of date
+     * @return boundary timestamp inclusive
+     * @throws NumericException when date cannot be parsed
+     */
+    public static long parseFullOrPartialDate(boolean equalsTo, boolean isLo, CharSequence seq, int lo, int lim) throws NumericException {
+        if (lim - lo < 20) {
+            if (equalsTo ^ isLo) {
+                return parseCeilingPartialDate(seq, lo, lim);
+            }
+            return parseFloorPartialDate(seq, lo, lim);
+        }
+        return TimestampFormatUtils.tryParse(seq, lo, lim) + (equalsTo ? 0 : isLo ? 1 : -1);
+    }
+
     public static long parseCeilingPartialDate(CharSequence seq, final int pos, int lim) throws NumericException {
         long ts;
         if (lim - pos < 4) {
@@ -588,6 +615,10 @@ public class IntrinsicModel implements Mutable {
         keyValues.clear();
         keyValuePositions.clear();
         clearInterval();
+        // functions that were not handed over to RuntimeIntervalModel belong to this model
+        Misc.freeObjList(intervalBoundFunctions);
+        intervalBoundFunctions.clear();
+        intervalBoundTypes.clear();
         filter = null;
         intervals = null;
         intrinsicValue = UNDEFINED;
@@ -625,6 +656,35 @@ public class IntrinsicModel implements Mutable {
         }
     }
 
+    /**
+     * Adds half-open interval, which bound is calculated when cursor is created.
+     *
+     * @param function  runtime constant function
+     * @param boundType one of RuntimeIntervalModel.BOUND_* constants
+     */
+    public void intersectRuntimeInterval(Function function, int boundType) {
+        intervalBoundFunctions.add(function);
+        intervalBoundTypes.add(boundType);
+    }
+
+    /**
+     * @return true when timestamp scan is bounded either by static or runtime intervals
+     */
+    public boolean hasIntervals() {
+        return intervals != null || intervalBoundFunctions.size() > 0;
+    }
+
+    /**
+     * Creates interval model, which takes ownership of bound functions. Functions are no longer freed by this model.
+     */
+    public RuntimeIntervalModel buildIntervalModel() {
+        final RuntimeIntervalModel model = new RuntimeIntervalModel(intervals, intervalBoundFunctions, intervalBoundTypes);
+        for (int i = 0, n = intervalBoundFunctions.size(); i < n; i++) {
+            intervalBoundFunctions.setQuick(i, null);
+        }
+        return model;
+    }
+
     public void intersectIntervals(long lo, long hi) {
         LongList temp = shuffleTemp(intervals, null);
         temp.add(lo);
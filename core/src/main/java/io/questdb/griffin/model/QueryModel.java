@@ -89,6 +89,8 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
     private QueryModel nestedModel;
     private ExpressionNode tableName;
     private long tableVersion;
+    private long tableRowCount = -1;
+    private int tableTimestampIndex = -1;
     private Function tableNameFunction;
     private ExpressionNode alias;
     private ExpressionNode timestamp;
@@ -211,6 +213,8 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         columnNameToAliasMap.clear();
         tableNameFunction = null;
         tableVersion = -1;
+        tableRowCount = -1;
+        tableTimestampIndex = -1;
         bottomUpColumnNames.clear();
         expressionModels.clear();
         distinct = false;
@@ -490,6 +494,22 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         this.tableVersion = tableVersion;
     }
 
+    /**
+     * @return number of rows in table at the time query was compiled or -1 when model is not a plain table
+     */
+    public long getTableRowCount() {
+        return tableRowCount;
+    }
+
+    public int getTableTimestampIndex() {
+        return tableTimestampIndex;
+    }
+
+    public void setTableStatistics(long tableRowCount, int tableTimestampIndex) {
+        this.tableRowCount = tableRowCount;
+        this.tableTimestampIndex = tableTimestampIndex;
+    }
+
     public ExpressionNode getTimestamp() {
         return timestamp;
     }
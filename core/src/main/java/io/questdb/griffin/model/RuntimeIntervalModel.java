@@ -0,0 +1,226 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.model;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Timestamp intervals of table scan. Intervals are intersection of static intervals, which are
+ * known at compile time, and half-open intervals bounded by runtime constant functions, such as
+ * "ts > $1" or "ts > systimestamp() - 3600000000". Bound functions are evaluated once per cursor.
+ */
+public class RuntimeIntervalModel implements Closeable {
+    public static final int BOUND_LO = 0;
+    public static final int BOUND_LO_INCLUSIVE = 1;
+    public static final int BOUND_HI = 2;
+    public static final int BOUND_HI_INCLUSIVE = 3;
+
+    private final LongList staticIntervals;
+    private final ObjList<Function> boundFunctions;
+    private final IntList boundTypes;
+    private final LongList intervals = new LongList();
+
+    public RuntimeIntervalModel(LongList staticIntervals) {
+        this(staticIntervals, null, null);
+    }
+
+    /**
+     * @param staticIntervals intervals known at compile time or null when scan is unbounded. List is copied.
+     * @param boundFunctions  runtime constant functions of type TIMESTAMP, DATE, LONG, DOUBLE or STRING. Model takes
+     *                        ownership of functions.
+     * @param boundTypes      type of each bound, one of {@link #BOUND_LO}, {@link #BOUND_LO_INCLUSIVE},
+     *                        {@link #BOUND_HI}, {@link #BOUND_HI_INCLUSIVE}
+     */
+    public RuntimeIntervalModel(@Nullable LongList staticIntervals, @Nullable ObjList<Function> boundFunctions, @Nullable IntList boundTypes) {
+        if (staticIntervals == null) {
+            this.staticIntervals = new LongList(2);
+            this.staticIntervals.add(Long.MIN_VALUE);
+            this.staticIntervals.add(Long.MAX_VALUE);
+        } else {
+            this.staticIntervals = new LongList(staticIntervals);
+        }
+        this.boundFunctions = new ObjList<>();
+        this.boundTypes = new IntList();
+        if (boundFunctions != null && boundTypes != null) {
+            this.boundFunctions.addAll(boundFunctions);
+            this.boundTypes.addAll(boundTypes);
+        }
+    }
+
+    private static long getBound(Function function, int boundType) {
+        final boolean isLo = boundType == BOUND_LO || boundType == BOUND_LO_INCLUSIVE;
+        final boolean equalsTo = boundType == BOUND_LO_INCLUSIVE || boundType == BOUND_HI_INCLUSIVE;
+        final long value;
+        switch (function.getType()) {
+            case ColumnType.STRING:
+                final CharSequence str = function.getStr(null);
+                if (str == null) {
+                    value = Numbers.LONG_NaN;
+                    break;
+                }
+                try {
+                    return IntrinsicModel.parseFullOrPartialDate(equalsTo, isLo, str, 0, str.length());
+                } catch (NumericException e) {
+                    throw CairoException.instance(0).put("invalid timestamp: ").put(str);
+                }
+            case ColumnType.DOUBLE:
+                // timestamp arithmetic, such as "systimestamp() - 3600000000", yields double
+                final double d = function.getDouble(null);
+                if (Double.isNaN(d)) {
+                    value = Numbers.LONG_NaN;
+                    break;
+                }
+                if (isLo) {
+                    return equalsTo ? (long) Math.ceil(d) : (long) Math.floor(d) + 1;
+                }
+                return equalsTo ? (long) Math.floor(d) : (long) Math.ceil(d) - 1;
+            case ColumnType.DATE:
+                final long date = function.getDate(null);
+                value = date == Numbers.LONG_NaN ? date : date * 1000;
+                break;
+            case ColumnType.LONG:
+                value = function.getLong(null);
+                break;
+            default:
+                value = function.getTimestamp(null);
+                break;
+        }
+
+        if (equalsTo) {
+            return value;
+        }
+        // values at either end of range would overflow, those bounds never match
+        if (isLo) {
+            return value == Long.MAX_VALUE ? Long.MAX_VALUE : value + 1;
+        }
+        return value == Long.MIN_VALUE ? Long.MIN_VALUE : value - 1;
+    }
+
+    /**
+     * Evaluates bound functions and returns intervals. Returned list is reused by subsequent calls.
+     *
+     * @param executionContext context to initialise bound functions with, for example to resolve bind variables
+     * @return chronologically ordered list of inclusive intervals, which is empty when no timestamps can match
+     */
+    public LongList calculateIntervals(SqlExecutionContext executionContext) {
+        if (isStatic()) {
+            return staticIntervals;
+        }
+
+        long lo = Long.MIN_VALUE;
+        long hi = Long.MAX_VALUE;
+        boolean empty = false;
+        for (int i = 0, n = boundFunctions.size(); i < n; i++) {
+            final Function function = boundFunctions.getQuick(i);
+            final int boundType = boundTypes.getQuick(i);
+            function.init(null, executionContext);
+            final long bound = getBound(function, boundType);
+            if (boundType == BOUND_LO || boundType == BOUND_LO_INCLUSIVE) {
+                if (bound == Long.MAX_VALUE && boundType == BOUND_LO) {
+                    empty = true;
+                }
+                lo = Math.max(lo, bound);
+            } else {
+                if (bound == Long.MIN_VALUE && boundType == BOUND_HI) {
+                    empty = true;
+                }
+                hi = Math.min(hi, bound);
+            }
+        }
+
+        intervals.clear();
+        if (empty || lo > hi) {
+            return intervals;
+        }
+
+        for (int i = 0, n = staticIntervals.size(); i < n; i += 2) {
+            final long intervalLo = Math.max(lo, staticIntervals.getQuick(i));
+            final long intervalHi = Math.min(hi, staticIntervals.getQuick(i + 1));
+            if (intervalLo <= intervalHi) {
+                intervals.add(intervalLo);
+                intervals.add(intervalHi);
+            }
+        }
+        return intervals;
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(boundFunctions);
+        boundFunctions.clear();
+        boundTypes.clear();
+    }
+
+    /**
+     * @return intervals known at compile time, which runtime bounds narrow down
+     */
+    public LongList getStaticIntervals() {
+        return staticIntervals;
+    }
+
+    /**
+     * @return true when intervals do not depend on runtime values
+     */
+    public boolean isStatic() {
+        return boundFunctions.size() == 0;
+    }
+
+    /**
+     * Prints static intervals followed by number of runtime bounds, if any.
+     */
+    public void toSink(CharSink sink) {
+        sink.put('[');
+        for (int i = 0, n = staticIntervals.size(); i < n; i += 2) {
+            if (i > 0) {
+                sink.put(',');
+            }
+            sink.put('[');
+            putBound(sink, staticIntervals.getQuick(i));
+            sink.put(',');
+            putBound(sink, staticIntervals.getQuick(i + 1));
+            sink.put(']');
+        }
+        sink.put(']');
+        if (boundFunctions.size() > 0) {
+            sink.put(" narrowed by ").put(boundFunctions.size()).put(" runtime bound(s)");
+        }
+    }
+
+    private static void putBound(CharSink sink, long timestamp) {
+        if (timestamp == Long.MIN_VALUE || timestamp == Long.MAX_VALUE) {
+            sink.put("unbounded");
+        } else {
+            sink.putISODate(timestamp);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.metrics;
+
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Monotonic counter. Increments land in one of several stripes picked by calling thread, every stripe
+ * on its own cache line, so that workers do not contend for the same line. Value is sum of stripes.
+ */
+public final class Counter implements Metric {
+    private final CharSequence name;
+    private final CharSequence help;
+    private final long[] stripes;
+    private final int mask;
+
+    Counter(CharSequence name, CharSequence help, int stripeCount) {
+        this.name = name;
+        this.help = help;
+        this.mask = stripeCount - 1;
+        this.stripes = new long[stripeCount * Metrics.STRIPE_PADDING];
+    }
+
+    public void add(long delta) {
+        Unsafe.getUnsafe().getAndAddLong(stripes, Metrics.stripeOffset(mask, 0), delta);
+    }
+
+    public long get() {
+        long value = 0;
+        for (int i = 0, n = stripes.length; i < n; i += Metrics.STRIPE_PADDING) {
+            value += Unsafe.arrayGetVolatile(stripes, i);
+        }
+        return value;
+    }
+
+    public void inc() {
+        add(1);
+    }
+
+    @Override
+    public void scrapeInto(CharSink sink) {
+        Metrics.putHeader(sink, name, help, "counter");
+        sink.put(name).put(' ').put(get()).put('\n');
+    }
+}
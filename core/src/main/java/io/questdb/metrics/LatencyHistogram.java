@@ -0,0 +1,121 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.metrics;
+
+import io.questdb.std.Unsafe;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.CharSink;
+
+import java.math.BigDecimal;
+
+/**
+ * Histogram of latencies in microseconds. Bucket bounds are fixed powers of two from 1us to
+ * 2^{@link #MAX_POWER}us (about 16.8s), so recording is bucket lookup via leading zero count and two
+ * increments, no locks and no allocation. Like {@link Counter} values are striped by calling thread.
+ * Prometheus convention is seconds, bounds and sum are scraped as such.
+ */
+public final class LatencyHistogram implements Metric {
+    static final int MAX_POWER = 24;
+    // finite buckets, then +Inf bucket and sum of values
+    private static final int BUCKET_COUNT = MAX_POWER + 2;
+    private static final int SUM_INDEX = BUCKET_COUNT;
+    private static final int STRIPE_SIZE = (BUCKET_COUNT + 1 + Metrics.STRIPE_PADDING - 1) / Metrics.STRIPE_PADDING * Metrics.STRIPE_PADDING;
+    private static final String[] BOUNDS = new String[BUCKET_COUNT];
+    private final CharSequence name;
+    private final CharSequence help;
+    private final long[] stripes;
+    private final int mask;
+
+    LatencyHistogram(CharSequence name, CharSequence help, int stripeCount) {
+        this.name = name;
+        this.help = help;
+        this.mask = stripeCount - 1;
+        this.stripes = new long[stripeCount * STRIPE_SIZE];
+    }
+
+    static int bucketOf(long micros) {
+        if (micros <= 1) {
+            return 0;
+        }
+        // ceil(log2(micros))
+        return Math.min(64 - Long.numberOfLeadingZeros(micros - 1), MAX_POWER + 1);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += getBucket(i);
+        }
+        return count;
+    }
+
+    public void record(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+        final long stripe = (Thread.currentThread().getId() & mask) * STRIPE_SIZE;
+        Unsafe.getUnsafe().getAndAddLong(stripes, Unsafe.LONG_OFFSET + ((stripe + bucketOf(micros)) << Unsafe.LONG_SCALE), 1);
+        Unsafe.getUnsafe().getAndAddLong(stripes, Unsafe.LONG_OFFSET + ((stripe + SUM_INDEX) << Unsafe.LONG_SCALE), micros);
+    }
+
+    @Override
+    public void scrapeInto(CharSink sink) {
+        Metrics.putHeader(sink, name, help, "histogram");
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += getBucket(i);
+            sink.put(name).put("_bucket{le=\"").put(BOUNDS[i]).put("\"} ").put(cumulative).put('\n');
+        }
+        sink.put(name).put("_sum ");
+        putSeconds(sink, getBucket(SUM_INDEX));
+        sink.put('\n');
+        sink.put(name).put("_count ").put(cumulative).put('\n');
+    }
+
+    static void putSeconds(CharSink sink, long micros) {
+        sink.put(micros / Timestamps.SECOND_MICROS).put('.');
+        final long fraction = micros % Timestamps.SECOND_MICROS;
+        for (long scale = Timestamps.SECOND_MICROS / 10; scale > fraction && scale > 1; scale /= 10) {
+            sink.put('0');
+        }
+        sink.put(fraction);
+    }
+
+    private long getBucket(int index) {
+        long value = 0;
+        for (int i = index, n = stripes.length; i < n; i += STRIPE_SIZE) {
+            value += Unsafe.arrayGetVolatile(stripes, i);
+        }
+        return value;
+    }
+
+    static {
+        for (int i = 0; i <= MAX_POWER; i++) {
+            BOUNDS[i] = BigDecimal.valueOf(1L << i).movePointLeft(6).toPlainString();
+        }
+        BOUNDS[MAX_POWER + 1] = "+Inf";
+    }
+}
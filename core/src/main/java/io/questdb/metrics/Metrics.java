@@ -0,0 +1,162 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.metrics;
+
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Server wide instruments. Instruments always count, {@link #isEnabled()} only decides whether they are
+ * exposed over HTTP at "/metrics". Gauges, such as pool occupancy, are not held here, they are sampled
+ * from their owners at scrape time, see {@link #putGauge(CharSink, CharSequence, CharSequence, long)}.
+ */
+public class Metrics {
+    // one stripe per cache line
+    static final int STRIPE_PADDING = 8;
+    private static final int MAX_STRIPE_COUNT = 64;
+    public final Counter tableWriterCommits;
+    public final LatencyHistogram tableWriterCommitLatency;
+    public final Counter lineRows;
+    public final Counter lineCommits;
+    public final Counter readerPoolGets;
+    public final Counter readerPoolUnavailable;
+    public final Counter writerPoolGets;
+    public final Counter writerPoolBusy;
+    public final Counter httpQueries;
+    public final Counter httpQueryErrors;
+    public final LatencyHistogram httpQueryLatency;
+    public final Counter pgQueries;
+    public final Counter pgQueryErrors;
+    public final LatencyHistogram pgQueryLatency;
+    private final ObjList<Metric> metrics = new ObjList<>();
+    private final ObjList<WorkerPool> workerPools = new ObjList<>();
+    private final boolean enabled;
+    private final int stripeCount;
+
+    public Metrics(boolean enabled) {
+        this.enabled = enabled;
+        this.stripeCount = Math.min(Numbers.ceilPow2(Runtime.getRuntime().availableProcessors()), MAX_STRIPE_COUNT);
+        this.tableWriterCommits = counter("questdb_table_writer_commits_total", "Number of table commits");
+        this.tableWriterCommitLatency = histogram("questdb_table_writer_commit_latency_seconds", "Latency of table commits");
+        this.lineRows = counter("questdb_line_rows_total", "Number of rows appended via line protocol");
+        this.lineCommits = counter("questdb_line_commits_total", "Number of commits of line protocol receivers");
+        this.readerPoolGets = counter("questdb_reader_pool_gets_total", "Number of readers taken from pool");
+        this.readerPoolUnavailable = counter("questdb_reader_pool_unavailable_total", "Number of reader requests rejected by full pool");
+        this.writerPoolGets = counter("questdb_writer_pool_gets_total", "Number of writers taken from pool");
+        this.writerPoolBusy = counter("questdb_writer_pool_busy_total", "Number of writer requests rejected because writer was busy");
+        this.httpQueries = counter("questdb_http_queries_total", "Number of queries executed over HTTP");
+        this.httpQueryErrors = counter("questdb_http_query_errors_total", "Number of failed HTTP queries");
+        this.httpQueryLatency = histogram("questdb_http_query_latency_seconds", "Latency of HTTP queries");
+        this.pgQueries = counter("questdb_pg_queries_total", "Number of queries executed over PostgreSQL wire protocol");
+        this.pgQueryErrors = counter("questdb_pg_query_errors_total", "Number of failed PostgreSQL wire protocol queries");
+        this.pgQueryLatency = histogram("questdb_pg_query_latency_seconds", "Latency of PostgreSQL wire protocol queries");
+    }
+
+    public static void putCounter(CharSink sink, CharSequence name, CharSequence help, long value) {
+        putHeader(sink, name, help, "counter");
+        sink.put(name).put(' ').put(value).put('\n');
+    }
+
+    public static void putGauge(CharSink sink, CharSequence name, CharSequence help, long value) {
+        putHeader(sink, name, help, "gauge");
+        sink.put(name).put(' ').put(value).put('\n');
+    }
+
+    /**
+     * Native memory allocated per {@link MemoryTag}, as single gauge labelled by tag.
+     */
+    public static void putNativeMemoryGauge(CharSink sink) {
+        final String name = "questdb_memory_native_bytes";
+        putHeader(sink, name, "Native memory allocated by subsystem", "gauge");
+        for (int tag = 0; tag < MemoryTag.SIZE; tag++) {
+            sink.put(name).put("{tag=\"").put(MemoryTag.nameOf(tag)).put("\"} ").put(Unsafe.getMemUsedByTag(tag)).put('\n');
+        }
+    }
+
+    static void putHeader(CharSink sink, CharSequence name, CharSequence help, CharSequence type) {
+        sink.put("# HELP ").put(name).put(' ').put(help).put('\n');
+        sink.put("# TYPE ").put(name).put(' ').put(type).put('\n');
+    }
+
+    static long stripeOffset(int mask, int index) {
+        final long stripe = (Thread.currentThread().getId() & mask) * STRIPE_PADDING;
+        return Unsafe.LONG_OFFSET + ((stripe + index) << Unsafe.LONG_SCALE);
+    }
+
+    /**
+     * Adds pool to per-pool saturation metrics. Pool busy time divided by its worker count
+     * and by elapsed time is share of pool capacity that was in use.
+     */
+    public void addWorkerPool(WorkerPool pool) {
+        synchronized (workerPools) {
+            workerPools.add(pool);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void scrapeInto(CharSink sink) {
+        for (int i = 0, n = metrics.size(); i < n; i++) {
+            metrics.getQuick(i).scrapeInto(sink);
+        }
+        synchronized (workerPools) {
+            if (workerPools.size() > 0) {
+                final String workers = "questdb_worker_pool_workers";
+                putHeader(sink, workers, "Number of workers in pool", "gauge");
+                for (int i = 0, n = workerPools.size(); i < n; i++) {
+                    final WorkerPool pool = workerPools.getQuick(i);
+                    sink.put(workers).put("{pool=\"").put(pool.getPoolName()).put("\"} ").put(pool.getWorkerCount()).put('\n');
+                }
+                final String busy = "questdb_worker_pool_busy_seconds_total";
+                putHeader(sink, busy, "Time workers of pool spent running jobs that had work", "counter");
+                for (int i = 0, n = workerPools.size(); i < n; i++) {
+                    final WorkerPool pool = workerPools.getQuick(i);
+                    sink.put(busy).put("{pool=\"").put(pool.getPoolName()).put("\"} ");
+                    LatencyHistogram.putSeconds(sink, pool.getBusyNanos() / 1000);
+                    sink.put('\n');
+                }
+            }
+        }
+    }
+
+    private Counter counter(CharSequence name, CharSequence help) {
+        final Counter counter = new Counter(name, help, stripeCount);
+        metrics.add(counter);
+        return counter;
+    }
+
+    private LatencyHistogram histogram(CharSequence name, CharSequence help) {
+        final LatencyHistogram histogram = new LatencyHistogram(name, help, stripeCount);
+        metrics.add(histogram);
+        return histogram;
+    }
+}
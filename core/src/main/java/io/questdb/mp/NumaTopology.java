@@ -0,0 +1,212 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.mp;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+/**
+ * CPUs of NUMA nodes. On Linux topology is read from "cpulist" files of node directories in sysfs, elsewhere,
+ * and when sysfs does not describe nodes, all CPUs are on single node. Nodes are numbered 0..nodeCount-1 in
+ * the order of their system ids, which can have gaps.
+ */
+public class NumaTopology {
+    public static final String SYSFS_NODE_ROOT = "/sys/devices/system/node";
+    private static final Log LOG = LogFactory.getLog(NumaTopology.class);
+    private static final String NODE_DIR_PREFIX = "node";
+    private static final int CPU_LIST_BUF_SIZE = 4096;
+    private static volatile NumaTopology system;
+    private final IntList nodeIds = new IntList();
+    private final ObjList<IntList> nodeCpus = new ObjList<>();
+    // cpu -> node, -1 when cpu is not on any node
+    private final IntList cpuNodes = new IntList();
+
+    private NumaTopology() {
+    }
+
+    public static NumaTopology flat(int cpuCount) {
+        final NumaTopology topology = new NumaTopology();
+        final IntList cpus = new IntList(cpuCount);
+        for (int i = 0; i < cpuCount; i++) {
+            cpus.add(i);
+        }
+        topology.addNode(0, cpus);
+        return topology;
+    }
+
+    /**
+     * @return topology of this machine, read once
+     */
+    public static NumaTopology getSystem() {
+        NumaTopology topology = system;
+        if (topology == null) {
+            synchronized (NumaTopology.class) {
+                if ((topology = system) == null) {
+                    if (Os.type == Os.LINUX_AMD64 || Os.type == Os.LINUX_ARM64) {
+                        topology = read(FilesFacadeImpl.INSTANCE, SYSFS_NODE_ROOT);
+                    } else {
+                        topology = flat(Runtime.getRuntime().availableProcessors());
+                    }
+                    system = topology;
+                }
+            }
+        }
+        return topology;
+    }
+
+    /**
+     * Reads topology from sysfs-like directory where every node has "node[id]/cpulist" file listing its CPUs
+     * as comma separated ids and ranges, for example "0-3,8-11".
+     *
+     * @param ff   files facade
+     * @param root node directory, {@link #SYSFS_NODE_ROOT} on Linux
+     * @return topology, single node with all available CPUs when directory does not describe any node
+     */
+    public static NumaTopology read(FilesFacade ff, CharSequence root) {
+        final NumaTopology topology = new NumaTopology();
+        final IntList ids = new IntList();
+        final NativeLPSZ name = new NativeLPSZ();
+        final long buf = Unsafe.malloc(CPU_LIST_BUF_SIZE);
+        try (Path path = new Path()) {
+            ff.iterateDir(path.of(root).$(), (pName, type) -> {
+                if (type == Files.DT_DIR) {
+                    name.of(pName);
+                    if (Chars.startsWith(name, NODE_DIR_PREFIX) && name.length() > NODE_DIR_PREFIX.length()) {
+                        try {
+                            addSorted(ids, Numbers.parseInt(name, NODE_DIR_PREFIX.length(), name.length()));
+                        } catch (NumericException ignore) {
+                            // not a node, e.g. "node_possible"
+                        }
+                    }
+                }
+            });
+
+            for (int i = 0, n = ids.size(); i < n; i++) {
+                final int id = ids.getQuick(i);
+                path.of(root).concat(NODE_DIR_PREFIX).put(id);
+                path.concat("cpulist").$();
+                final long fd = ff.openRO(path);
+                if (fd < 0) {
+                    LOG.error().$("could not open [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                    continue;
+                }
+                try {
+                    final long len = ff.read(fd, buf, CPU_LIST_BUF_SIZE, 0);
+                    final IntList cpus = new IntList();
+                    if (len > 0 && parseCpuList(buf, buf + len, cpus)) {
+                        if (cpus.size() > 0) {
+                            topology.addNode(id, cpus);
+                        }
+                    } else {
+                        LOG.error().$("invalid cpu list [path=").$(path).$(']').$();
+                    }
+                } finally {
+                    ff.close(fd);
+                }
+            }
+        } finally {
+            Unsafe.free(buf, CPU_LIST_BUF_SIZE);
+        }
+
+        if (topology.getNodeCount() == 0) {
+            return flat(Runtime.getRuntime().availableProcessors());
+        }
+        LOG.info().$("numa [nodes=").$(topology.getNodeCount()).$(", cpus=").$(topology.cpuNodes.size()).$(']').$();
+        return topology;
+    }
+
+    public int getCpuNode(int cpu) {
+        return cpu > -1 && cpu < cpuNodes.size() ? cpuNodes.getQuick(cpu) : -1;
+    }
+
+    public int getNodeCount() {
+        return nodeCpus.size();
+    }
+
+    public IntList getNodeCpus(int node) {
+        return nodeCpus.getQuick(node);
+    }
+
+    /**
+     * @return system id of node, i.e. [id] in "node[id]" directory name
+     */
+    public int getNodeId(int node) {
+        return nodeIds.getQuick(node);
+    }
+
+    private static void addSorted(IntList list, int value) {
+        int i = list.size();
+        while (i > 0 && list.getQuick(i - 1) > value) {
+            i--;
+        }
+        list.add(i, value);
+    }
+
+    private static boolean parseCpuList(long lo, long hi, IntList cpus) {
+        int value = -1;
+        int rangeLo = -1;
+        for (long p = lo; p <= hi; p++) {
+            final byte b = p < hi ? Unsafe.getUnsafe().getByte(p) : (byte) '\n';
+            if (b >= '0' && b <= '9') {
+                value = (value == -1 ? 0 : value * 10) + b - '0';
+            } else if (b == '-' && value != -1 && rangeLo == -1) {
+                rangeLo = value;
+                value = -1;
+            } else if (b == ',' || b == '\n' || b == 0) {
+                if (value == -1) {
+                    // node without CPUs has blank list
+                    return rangeLo == -1 && b != ',' && cpus.size() == 0;
+                }
+                for (int cpu = rangeLo == -1 ? value : rangeLo; cpu <= value; cpu++) {
+                    cpus.add(cpu);
+                }
+                if (b != ',') {
+                    return true;
+                }
+                value = -1;
+                rangeLo = -1;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addNode(int id, IntList cpus) {
+        final int node = nodeCpus.size();
+        nodeIds.add(id);
+        nodeCpus.add(cpus);
+        for (int i = 0, n = cpus.size(); i < n; i++) {
+            final int cpu = cpus.getQuick(i);
+            while (cpuNodes.size() <= cpu) {
+                cpuNodes.add(-1);
+            }
+            cpuNodes.setQuick(cpu, node);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import java.util.concurrent.locks.LockSupport;
 
 public class Worker extends Thread {
     private final static long RUNNING_OFFSET = Unsafe.getFieldOffset(Worker.class, "running");
+    private final static long BUSY_NANOS_OFFSET = Unsafe.getFieldOffset(Worker.class, "busyNanos");
     private static final long YIELD_THRESHOLD = 10L;
     private static final long SLEEP_THRESHOLD = 10000L;
     private final static AtomicInteger COUNTER = new AtomicInteger();
@@ -44,6 +45,10 @@ public class Worker extends Thread {
     private final WorkerCleaner cleaner;
     private final boolean haltOnError;
     private final int workerId;
+    private final int numaNode;
+    // time spent in loop iterations where at least one job did work, written by worker only and
+    // read by metrics, hence ordered writes
+    private volatile long busyNanos;
     private volatile int running = 0;
     private volatile int fence;
 
@@ -55,15 +60,54 @@ public class Worker extends Thread {
             final WorkerCleaner cleaner,
             final boolean haltOnError,
             final int workerId
+    ) {
+        this(jobs, haltLatch, affinity, log, cleaner, haltOnError, workerId, "worker");
+    }
+
+    public Worker(
+            final ObjHashSet<? extends Job> jobs,
+            final SOCountDownLatch haltLatch,
+            final int affinity,
+            final Log log,
+            final WorkerCleaner cleaner,
+            final boolean haltOnError,
+            final int workerId,
+            final String poolName
+    ) {
+        this(jobs, haltLatch, affinity, log, cleaner, haltOnError, workerId, poolName, -1);
+    }
+
+    public Worker(
+            final ObjHashSet<? extends Job> jobs,
+            final SOCountDownLatch haltLatch,
+            final int affinity,
+            final Log log,
+            final WorkerCleaner cleaner,
+            final boolean haltOnError,
+            final int workerId,
+            final String poolName,
+            final int numaNode
     ) {
         this.log = log;
         this.jobs = jobs;
         this.haltLatch = haltLatch;
-        this.setName("questdb-worker-" + COUNTER.incrementAndGet());
+        this.setName("questdb-" + poolName + "-" + COUNTER.incrementAndGet());
         this.affinity = affinity;
         this.cleaner = cleaner;
         this.haltOnError = haltOnError;
         this.workerId = workerId;
+        this.numaNode = numaNode;
+    }
+
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    /**
+     * @return NUMA node worker is pinned to, -1 when it is not bound to node
+     */
+    public int getNumaNode() {
+        return numaNode;
     }
 
     public int getWorkerId() {
@@ -82,7 +126,7 @@ public class Worker extends Thread {
                 if (affinity > -1) {
                     if (Os.setCurrentThreadAffinity(this.affinity) == 0) {
                         if (log != null) {
-                            log.info().$("affinity set [cpu=").$(affinity).$(", name=").$(getName()).$(']').$();
+                            log.info().$("affinity set [cpu=").$(affinity).$(", node=").$(numaNode).$(", name=").$(getName()).$(']').$();
                         }
                     } else {
                         if (log != null) {
@@ -97,6 +141,9 @@ public class Worker extends Thread {
                 setupJobs();
                 int n = jobs.size();
                 long uselessCounter = 0;
+                // clock is read after iterations that did work and after yield or park, but not on
+                // idle spins in between, these few spins are counted towards next busy iteration
+                long iterationStart = System.nanoTime();
                 while (running == 1) {
 
                     boolean useful = false;
@@ -114,6 +161,9 @@ public class Worker extends Thread {
                     }
 
                     if (useful) {
+                        final long now = System.nanoTime();
+                        Unsafe.getUnsafe().putOrderedLong(this, BUSY_NANOS_OFFSET, busyNanos + now - iterationStart);
+                        iterationStart = now;
                         uselessCounter = 0;
                         continue;
                     }
@@ -127,10 +177,11 @@ public class Worker extends Thread {
 
                     if (uselessCounter > YIELD_THRESHOLD) {
                         Thread.yield();
-                    }
-
-                    if (uselessCounter > SLEEP_THRESHOLD) {
-                        LockSupport.parkNanos(1000000);
+                        if (uselessCounter > SLEEP_THRESHOLD) {
+                            LockSupport.parkNanos(1000000);
+                        }
+                        // time spent yielding or parked is not busy time, clock read is cheap compared to either
+                        iterationStart = System.nanoTime();
                     }
                 }
             }
@@ -25,6 +25,7 @@
 package io.questdb.mp;
 
 import io.questdb.log.Log;
+import io.questdb.std.IntList;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjHashSet;
 import io.questdb.std.ObjList;
@@ -37,6 +38,9 @@ public class WorkerPool {
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final int workerCount;
     private final int[] workerAffinity;
+    // worker -> NUMA node, -1 when worker is not bound to node
+    private final int[] workerNodes;
+    private final int nodeCount;
     private final SOCountDownLatch started = new SOCountDownLatch(1);
     private final ObjList<ObjHashSet<Job>> workerJobs;
     private final SOCountDownLatch halted;
@@ -44,15 +48,57 @@ public class WorkerPool {
     private final ObjList<ObjList<Closeable>> cleaners;
     private final boolean haltOnError;
     private final boolean daemons;
+    private final String poolName;
 
     public WorkerPool(WorkerPoolConfiguration configuration) {
+        this(configuration, null);
+    }
+
+    /**
+     * @param configuration pool configuration
+     * @param topology      NUMA topology, system topology is read when it is needed and this is null
+     */
+    public WorkerPool(WorkerPoolConfiguration configuration, @Nullable NumaTopology topology) {
         this.workerCount = configuration.getWorkerCount();
-        this.workerAffinity = configuration.getWorkerAffinity();
         this.halted = new SOCountDownLatch(workerCount);
         this.haltOnError = configuration.haltOnError();
         this.daemons = configuration.isDaemonPool();
+        this.poolName = configuration.getPoolName();
 
-        assert workerAffinity.length == workerCount;
+        final int[] affinity = configuration.getWorkerAffinity();
+        assert affinity.length == workerCount;
+
+        boolean pinned = false;
+        for (int i = 0; i < workerCount; i++) {
+            pinned |= affinity[i] > -1;
+        }
+
+        this.workerNodes = new int[workerCount];
+        if (pinned || configuration.isNumaAware()) {
+            if (topology == null) {
+                topology = NumaTopology.getSystem();
+            }
+            this.nodeCount = topology.getNodeCount();
+        } else {
+            this.nodeCount = 1;
+        }
+
+        if (pinned || !configuration.isNumaAware() || nodeCount < 2) {
+            this.workerAffinity = affinity;
+            for (int i = 0; i < workerCount; i++) {
+                workerNodes[i] = topology != null ? topology.getCpuNode(affinity[i]) : -1;
+            }
+        } else {
+            // contiguous groups of workers per node, workers of node take its CPUs in turn
+            this.workerAffinity = new int[workerCount];
+            final int[] nodeWorkerCounts = new int[nodeCount];
+            for (int i = 0; i < workerCount; i++) {
+                final int node = (int) ((long) i * nodeCount / workerCount);
+                final IntList cpus = topology.getNodeCpus(node);
+                workerNodes[i] = node;
+                workerAffinity[i] = cpus.getQuick(nodeWorkerCounts[node]++ % cpus.size());
+            }
+        }
 
         this.workerJobs = new ObjList<>(workerCount);
         this.cleaners = new ObjList<>(workerCount);
@@ -87,10 +133,47 @@ public class WorkerPool {
         cleaners.getQuick(worker).add(cleaner);
     }
 
+    /**
+     * @return total time workers of the pool spent running jobs that had work, approximate while pool runs
+     */
+    public long getBusyNanos() {
+        long nanos = 0;
+        if (started.getCount() > 0) {
+            // workers are still being created
+            return nanos;
+        }
+        for (int i = 0, n = workers.size(); i < n; i++) {
+            nanos += workers.getQuick(i).getBusyNanos();
+        }
+        return nanos;
+    }
+
+    /**
+     * @return number of NUMA nodes workers can be bound to, 1 when pool is not NUMA aware and has no affinity
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public int getWorkerAffinity(int worker) {
+        return workerAffinity[worker];
+    }
+
     public int getWorkerCount() {
         return workerCount;
     }
 
+    /**
+     * @return NUMA node of worker, -1 when worker is not bound to node
+     */
+    public int getWorkerNode(int worker) {
+        return workerNodes[worker];
+    }
+
     public void halt() {
         if (running.compareAndSet(true, false)) {
             started.await();
@@ -124,7 +207,9 @@ public class WorkerPool {
                             }
                         },
                         haltOnError,
-                        i
+                        i,
+                        poolName,
+                        workerNodes[i]
                 );
                 worker.setDaemon(daemons);
                 workers.add(worker);
@@ -31,7 +31,17 @@ public interface WorkerPoolConfiguration {
 
     boolean haltOnError();
 
+    // names worker threads and labels pool metrics
+    default String getPoolName() {
+        return "worker";
+    }
+
     default boolean isDaemonPool() {
         return false;
     }
+
+    // when workers have no affinity, spread them over NUMA nodes and pin each to CPU of its node
+    default boolean isNumaAware() {
+        return false;
+    }
 }
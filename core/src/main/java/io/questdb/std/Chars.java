@@ -24,6 +24,7 @@
 
 package io.questdb.std;
 
+import io.questdb.std.str.ByteSequence;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.Path;
 import org.jetbrains.annotations.NotNull;
@@ -555,6 +556,26 @@ public final class Chars {
         return true;
     }
 
+    public static boolean utf8Decode(ByteSequence bytes, CharSink sink) {
+        int i = 0;
+        final int n = bytes.length();
+        while (i < n) {
+            byte b = bytes.byteAt(i);
+            if (b < 0) {
+                int len = utf8DecodeMultiByte(bytes, i, n, b, sink);
+                if (len == -1) {
+                    // UTF8 error
+                    return false;
+                }
+                i += len;
+            } else {
+                sink.put((char) b);
+                ++i;
+            }
+        }
+        return true;
+    }
+
     public static int utf8DecodeMultiByte(long lo, long hi, int b, CharSink sink) {
         if (b >> 5 == -2 && (b & 30) != 0) {
             return utf8Decode2Bytes(lo, hi, b, sink);
@@ -567,6 +588,19 @@ public final class Chars {
         return utf8Decode4Bytes(lo, b, hi, sink);
     }
 
+    public static boolean utf8Equals(ByteSequence l, ByteSequence r) {
+        final int n = l.length();
+        if (n != r.length()) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (l.byteAt(i) != r.byteAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static int utf8DecodeMultiByteZ(long lo, int b, CharSink sink) {
         if (b >> 5 == -2 && (b & 30) != 0) {
             return utf8Decode2BytesZ(lo, b, sink);
@@ -617,6 +651,42 @@ public final class Chars {
         return -1;
     }
 
+    private static int utf8DecodeMultiByte(ByteSequence bytes, int i, int n, int b, CharSink sink) {
+        if (b >> 5 == -2 && (b & 30) != 0) {
+            if (n - i < 2) {
+                return utf8error();
+            }
+            byte b2 = bytes.byteAt(i + 1);
+            if (isNotContinuation(b2)) {
+                return utf8error();
+            }
+            sink.put((char) (b << 6 ^ b2 ^ 3968));
+            return 2;
+        }
+
+        if (b >> 4 == -2) {
+            if (n - i < 3) {
+                return utf8error();
+            }
+            byte b2 = bytes.byteAt(i + 1);
+            byte b3 = bytes.byteAt(i + 2);
+            if (isMalformed3(b, b2, b3)) {
+                return utf8error();
+            }
+            char c = (char) (b << 12 ^ b2 << 6 ^ b3 ^ -123008);
+            if (Character.isSurrogate(c)) {
+                return utf8error();
+            }
+            sink.put(c);
+            return 3;
+        }
+
+        if (b >> 3 != -2 || n - i < 4) {
+            return utf8error();
+        }
+        return utf8Decode4Bytes0(b, sink, bytes.byteAt(i + 1), bytes.byteAt(i + 2), bytes.byteAt(i + 3));
+    }
+
     private static int utf8Decode4Bytes(long lo, int b, long hi, CharSink sink) {
         if (b >> 3 != -2 || hi - lo < 4) {
             return utf8error();
@@ -37,10 +37,18 @@ public class DirectLongList implements Mutable, Closeable {
     long limit;
     private long address;
     private long capacity;
+    private final int memoryTag;
+    private final MemoryAccount memoryAccount;
 
     public DirectLongList(long capacity) {
+        this(capacity, MemoryTag.NATIVE_DEFAULT, null);
+    }
+
+    public DirectLongList(long capacity, int memoryTag, MemoryAccount memoryAccount) {
         this.pow2 = 3;
-        this.address = Unsafe.malloc(this.capacity = ((capacity << 3) + Misc.CACHE_LINE_SIZE));
+        this.memoryTag = memoryTag;
+        this.memoryAccount = memoryAccount;
+        this.address = Unsafe.malloc(this.capacity = ((capacity << 3) + Misc.CACHE_LINE_SIZE), memoryTag, memoryAccount);
         this.start = this.pos = address + (address & (Misc.CACHE_LINE_SIZE - 1));
         this.limit = pos + ((capacity - 1) << 3);
         this.onePow2 = (1 << 3);
@@ -96,7 +104,7 @@ public class DirectLongList implements Mutable, Closeable {
     @Override
     public void close() {
         if (address != 0) {
-            Unsafe.free(address, capacity);
+            Unsafe.free(address, capacity, memoryTag, memoryAccount);
             address = 0;
         }
     }
@@ -170,12 +178,14 @@ public class DirectLongList implements Mutable, Closeable {
     }
 
     private void extend(long capacity) {
-        long address = Unsafe.malloc(this.capacity = ((capacity << pow2) + Misc.CACHE_LINE_SIZE));
+        final long size = (capacity << pow2) + Misc.CACHE_LINE_SIZE;
+        long address = Unsafe.malloc(size, memoryTag, memoryAccount);
         long start = address + (address & (Misc.CACHE_LINE_SIZE - 1));
         Unsafe.getUnsafe().copyMemory(this.start, start, limit + onePow2 - this.start);
         if (this.address != 0) {
-            Unsafe.free(this.address, this.capacity);
+            Unsafe.free(this.address, this.capacity, memoryTag, memoryAccount);
         }
+        this.capacity = size;
         this.pos = this.pos - this.start + start;
         this.limit = start + ((capacity - 1) << pow2);
         this.address = address;
@@ -28,6 +28,7 @@ import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.Path;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicLong;
@@ -49,6 +50,7 @@ public final class Files {
     public static final int MAP_RO = 1;
     public static final int MAP_RW = 2;
     public static final char SEPARATOR;
+    private static final long COPY_BUFFER_SIZE = 1024 * 1024;
 
     static final AtomicLong OPEN_FILE_COUNT = new AtomicLong();
 
@@ -72,6 +74,41 @@ public final class Files {
         return res;
     }
 
+    /**
+     * Copies file content. Target file must not exist.
+     *
+     * @return 0 on success, -1 on failure, in which case errno is set
+     */
+    public static int copy(LPSZ from, LPSZ to) {
+        final long fdFrom = openRO(from);
+        if (fdFrom == -1) {
+            return -1;
+        }
+        try {
+            final long fdTo = openRW(to);
+            if (fdTo == -1) {
+                return -1;
+            }
+            final long buf = Unsafe.malloc(COPY_BUFFER_SIZE);
+            try {
+                long offset = 0;
+                long len;
+                while ((len = read(fdFrom, buf, COPY_BUFFER_SIZE, offset)) > 0) {
+                    if (write(fdTo, buf, len, offset) != len) {
+                        return -1;
+                    }
+                    offset += len;
+                }
+                return len < 0 ? -1 : 0;
+            } finally {
+                Unsafe.free(buf, COPY_BUFFER_SIZE);
+                close(fdTo);
+            }
+        } finally {
+            close(fdFrom);
+        }
+    }
+
     public static native boolean exists(long fd);
 
     public static boolean exists(LPSZ lpsz) {
@@ -102,6 +139,20 @@ public final class Files {
 
     public native static long getStdOutFd();
 
+    /**
+     * Creates hard link to existing file. Both paths must be on the same file system.
+     *
+     * @return 0 on success, -1 on failure
+     */
+    public static int hardLink(LPSZ src, LPSZ hardLink) {
+        try {
+            java.nio.file.Files.createLink(java.nio.file.Paths.get(hardLink.toString()), java.nio.file.Paths.get(src.toString()));
+            return 0;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            return -1;
+        }
+    }
+
     public static boolean isDots(CharSequence name) {
         return Chars.equals(name, '.') || Chars.equals(name, "..");
     }
@@ -32,6 +32,8 @@ public interface FilesFacade {
 
     boolean close(long fd);
 
+    int copy(LPSZ from, LPSZ to);
+
     int errno();
 
     boolean exists(LPSZ path);
@@ -58,6 +60,8 @@ public interface FilesFacade {
 
     long getPageSize();
 
+    int hardLink(LPSZ src, LPSZ hardLink);
+
     boolean isRestrictedFileSystem();
 
     void iterateDir(LPSZ path, FindVisitor func);
@@ -44,6 +44,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.close(fd) == 0;
     }
 
+    @Override
+    public int copy(LPSZ from, LPSZ to) {
+        return Files.copy(from, to);
+    }
+
     @Override
     public int errno() {
         return Os.errno();
@@ -120,6 +125,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.PAGE_SIZE;
     }
 
+    @Override
+    public int hardLink(LPSZ src, LPSZ hardLink) {
+        return Files.hardLink(src, hardLink);
+    }
+
     @Override
     public boolean isRestrictedFileSystem() {
         return Os.type == Os.WINDOWS;
@@ -44,6 +44,18 @@ public final class Hash {
         return s == null ? -1 : (Chars.hashCode(s) & 0xFFFFFFF) & max;
     }
 
+    /**
+     * Calculates positive integer hash of long value. Multiplication spreads every bit of the value
+     * across higher bits of the product, which are then folded into lower bits used by power-of-two tables.
+     *
+     * @param value long value
+     * @return hash code
+     */
+    public static int hashLong(long value) {
+        final long h = value * 0x9E3779B97F4A7C15L;
+        return spread((int) (h ^ (h >>> 32)));
+    }
+
     /**
      * Calculates positive integer hash of memory pointer using Java hashcode() algorithm.
      *
@@ -195,6 +195,15 @@ public class IntList implements Mutable {
         buffer[index] = buffer[index] + 1;
     }
 
+    public int indexOf(int v) {
+        for (int i = 0, n = pos; i < n; i++) {
+            if (v == getQuick(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     public void remove(int key) {
         for (int i = 0, n = size(); i < n; i++) {
             if (key == getQuick(i)) {
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.std;
+
+/**
+ * Native memory budget allocations with SQL tags are charged to. Account is passed to
+ * {@link Unsafe#malloc(long, int, MemoryAccount)} and friends by the collection that allocates
+ * memory. Limits are enforced by implementation, which fails allocation by throwing.
+ */
+public interface MemoryAccount {
+    /**
+     * Charges account with memory allocated or, when size is negative, released. Memory is not
+     * allocated when this method throws.
+     *
+     * @param size      number of bytes, negative when memory is released
+     * @param memoryTag one of {@link MemoryTag} constants
+     */
+    void charge(long size, int memoryTag);
+}
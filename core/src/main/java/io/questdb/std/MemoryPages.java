@@ -41,12 +41,20 @@ public class MemoryPages implements Closeable, Mutable {
     private long cachePageHi;
     private long cachePageLo;
     private final int maxPages;
+    private final int memoryTag;
+    private final MemoryAccount memoryAccount;
 
     public MemoryPages(long pageSize) {
         this(pageSize, Integer.MAX_VALUE);
     }
 
     public MemoryPages(long pageSize, int maxPages) {
+        this(pageSize, maxPages, MemoryTag.NATIVE_DEFAULT, null);
+    }
+
+    public MemoryPages(long pageSize, int maxPages, int memoryTag, MemoryAccount memoryAccount) {
+        this.memoryTag = memoryTag;
+        this.memoryAccount = memoryAccount;
         this.pageSize = Numbers.ceilPow2(pageSize);
         this.bits = Numbers.msb(this.pageSize);
         this.mask = this.pageSize - 1;
@@ -80,7 +88,7 @@ public class MemoryPages implements Closeable, Mutable {
         for (int i = 0; i < pages.size(); i++) {
             long address = pages.getQuick(i);
             if (address != 0) {
-                Unsafe.free(address, pageSize);
+                Unsafe.free(address, pageSize, memoryTag, memoryAccount);
             }
         }
         pages.clear();
@@ -100,7 +108,7 @@ public class MemoryPages implements Closeable, Mutable {
         }
 
         if (index >= pages.size()) {
-            pages.extendAndSet((int) index, Unsafe.malloc(pageSize));
+            pages.extendAndSet((int) index, Unsafe.malloc(pageSize, memoryTag, memoryAccount));
             LOG.info().$("new page [size=").$(pageSize).$(']').$();
         }
 
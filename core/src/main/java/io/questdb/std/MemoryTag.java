@@ -0,0 +1,53 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.std;
+
+/**
+ * Subsystems native memory is allocated on behalf of. Tagged allocations are counted per tag in
+ * addition to total in {@link Unsafe#getMemUsed()}, memory allocated without tag is counted
+ * as {@link #NATIVE_DEFAULT}. Allocations with SQL tags are subject to query memory limits,
+ * see {@link Unsafe#setSqlMemoryLimit(long)} and {@link MemoryAccount}.
+ */
+public final class MemoryTag {
+    public static final int NATIVE_DEFAULT = 0;
+    public static final int NATIVE_SQL_MAP = 1;
+    public static final int NATIVE_SQL_RECORD_CHAIN = 2;
+    public static final int NATIVE_SQL_TREE = 3;
+    public static final int SIZE = NATIVE_SQL_TREE + 1;
+
+    private static final String[] NAMES = {"default", "sql_map", "sql_record_chain", "sql_tree"};
+
+    private MemoryTag() {
+    }
+
+    public static boolean isSql(int tag) {
+        return tag != NATIVE_DEFAULT;
+    }
+
+    public static String nameOf(int tag) {
+        return NAMES[tag];
+    }
+}
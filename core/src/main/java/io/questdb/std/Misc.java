@@ -26,6 +26,7 @@ package io.questdb.std;
 
 import io.questdb.std.ex.FatalError;
 import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8StringSink;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -34,6 +35,8 @@ public final class Misc {
     public static final String EOL = "\r\n";
     public static final int CACHE_LINE_SIZE = 64;
     private final static ThreadLocal<StringSink> tlBuilder = new ThreadLocal<>(StringSink::new);
+    private final static ThreadLocal<Utf8StringSink> tlUtf8SinkA = new ThreadLocal<>(Utf8StringSink::new);
+    private final static ThreadLocal<Utf8StringSink> tlUtf8SinkB = new ThreadLocal<>(Utf8StringSink::new);
 
     private Misc() {
     }
@@ -56,6 +59,18 @@ public final class Misc {
         return b;
     }
 
+    public static Utf8StringSink getThreadLocalUtf8SinkA() {
+        Utf8StringSink b = tlUtf8SinkA.get();
+        b.clear();
+        return b;
+    }
+
+    public static Utf8StringSink getThreadLocalUtf8SinkB() {
+        Utf8StringSink b = tlUtf8SinkB.get();
+        b.clear();
+        return b;
+    }
+
     public static <T> void freeObjList(ObjList<T> list) {
         if (list != null) {
             for (int i = 0, n = list.size(); i < n; i++) {
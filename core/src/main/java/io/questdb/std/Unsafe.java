@@ -38,6 +38,9 @@ public final class Unsafe {
     private static final sun.misc.Unsafe UNSAFE;
     private static final AtomicLong MALLOC_COUNT = new AtomicLong(0);
     private static final AtomicLong FREE_COUNT = new AtomicLong(0);
+    private static final AtomicLong[] TAG_MEM_USED = new AtomicLong[MemoryTag.SIZE];
+    private static final AtomicLong SQL_MEM_USED = new AtomicLong(0);
+    private static volatile long sqlMemLimit = 0;
 
     static {
         try {
@@ -51,6 +54,10 @@ public final class Unsafe {
             LONG_OFFSET = Unsafe.getUnsafe().arrayBaseOffset(long[].class);
             LONG_SCALE = msb(Unsafe.getUnsafe().arrayIndexScale(long[].class));
 
+            for (int i = 0; i < MemoryTag.SIZE; i++) {
+                TAG_MEM_USED[i] = new AtomicLong(0);
+            }
+
         } catch (Exception e) {
             throw new FatalError(e);
         }
@@ -94,6 +101,11 @@ public final class Unsafe {
         recordMemAlloc(-size);
     }
 
+    public static void free(long ptr, long size, int memoryTag, MemoryAccount account) {
+        free(ptr, size);
+        recordMemAlloc(-size, memoryTag, account);
+    }
+
     public static boolean getBool(long address) {
         return UNSAFE.getByte(address) == 1;
     }
@@ -120,6 +132,30 @@ public final class Unsafe {
         return MEM_USED.get();
     }
 
+    /**
+     * @param memoryTag one of {@link MemoryTag} constants
+     * @return bytes currently allocated with the tag, memory allocated without tag is
+     * reported under {@link MemoryTag#NATIVE_DEFAULT}
+     */
+    public static long getMemUsedByTag(int memoryTag) {
+        if (memoryTag == MemoryTag.NATIVE_DEFAULT) {
+            long used = MEM_USED.get();
+            for (int i = 1; i < MemoryTag.SIZE; i++) {
+                used -= TAG_MEM_USED[i].get();
+            }
+            return used;
+        }
+        return TAG_MEM_USED[memoryTag].get();
+    }
+
+    public static long getSqlMemoryLimit() {
+        return sqlMemLimit;
+    }
+
+    public static long getSqlMemUsed() {
+        return SQL_MEM_USED.get();
+    }
+
     public static sun.misc.Unsafe getUnsafe() {
         return UNSAFE;
     }
@@ -131,16 +167,71 @@ public final class Unsafe {
         return ptr;
     }
 
+    /**
+     * Allocates memory on behalf of subsystem and charges it to account.
+     *
+     * @param size      number of bytes
+     * @param memoryTag one of {@link MemoryTag} constants
+     * @param account   account to charge SQL memory to, null to count memory under the tag only
+     * @return address of allocated memory
+     */
+    public static long malloc(long size, int memoryTag, MemoryAccount account) {
+        recordMemAlloc(size, memoryTag, account);
+        try {
+            return malloc(size);
+        } catch (OutOfMemoryError e) {
+            recordMemAlloc(-size, memoryTag, account);
+            throw e;
+        }
+    }
+
     public static long realloc(long address, long oldSize, long newSize) {
         long ptr = getUnsafe().reallocateMemory(address, newSize);
         recordMemAlloc(-oldSize + newSize);
         return ptr;
     }
 
+    public static long realloc(long address, long oldSize, long newSize, int memoryTag, MemoryAccount account) {
+        recordMemAlloc(newSize - oldSize, memoryTag, account);
+        try {
+            return realloc(address, oldSize, newSize);
+        } catch (OutOfMemoryError e) {
+            recordMemAlloc(oldSize - newSize, memoryTag, account);
+            throw e;
+        }
+    }
+
     static void recordMemAlloc(long size) {
         MEM_USED.addAndGet(size);
     }
 
+    /**
+     * Sets limit of native memory allocated with SQL tags by all queries together. Limit is
+     * enforced by {@link MemoryAccount} allocations are charged to.
+     *
+     * @param limit maximum number of bytes, 0 for no limit
+     */
+    public static void setSqlMemoryLimit(long limit) {
+        sqlMemLimit = limit;
+    }
+
+    private static void recordMemAlloc(long size, int memoryTag, MemoryAccount account) {
+        if (!MemoryTag.isSql(memoryTag)) {
+            return;
+        }
+        TAG_MEM_USED[memoryTag].addAndGet(size);
+        SQL_MEM_USED.addAndGet(size);
+        if (account != null) {
+            try {
+                account.charge(size, memoryTag);
+            } catch (Throwable e) {
+                TAG_MEM_USED[memoryTag].addAndGet(-size);
+                SQL_MEM_USED.addAndGet(-size);
+                throw e;
+            }
+        }
+    }
+
     private static int msb(int value) {
         return 31 - Integer.numberOfLeadingZeros(value);
     }
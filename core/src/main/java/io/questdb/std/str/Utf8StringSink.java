@@ -0,0 +1,112 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std.str;
+
+import io.questdb.std.Chars;
+import io.questdb.std.Mutable;
+
+/**
+ * Heap backed sink of UTF-8 bytes. Characters passed to {@link #put(char)} are stored as single bytes,
+ * use {@link #encodeUtf8(CharSequence)} to encode arbitrary text.
+ */
+public class Utf8StringSink extends AbstractCharSink implements Utf8Sequence, Mutable {
+    private byte[] buffer;
+    private int size = 0;
+    private boolean ascii = true;
+
+    public Utf8StringSink() {
+        this(32);
+    }
+
+    public Utf8StringSink(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    @Override
+    public byte byteAt(int index) {
+        return buffer[index];
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        ascii = true;
+    }
+
+    @Override
+    public boolean isAscii() {
+        return ascii;
+    }
+
+    @Override
+    public int length() {
+        return size;
+    }
+
+    @Override
+    public CharSink put(CharSequence cs) {
+        for (int i = 0, n = cs.length(); i < n; i++) {
+            put(cs.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public CharSink put(char c) {
+        putByte((byte) c);
+        return this;
+    }
+
+    @Override
+    public CharSink put(char[] chars, int start, int len) {
+        for (int i = start, hi = start + len; i < hi; i++) {
+            put(chars[i]);
+        }
+        return this;
+    }
+
+    public void put(ByteSequence bytes) {
+        for (int i = 0, n = bytes.length(); i < n; i++) {
+            putByte(bytes.byteAt(i));
+        }
+    }
+
+    public void putByte(byte b) {
+        if (size == buffer.length) {
+            byte[] buf = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, buf, 0, size);
+            buffer = buf;
+        }
+        buffer[size++] = b;
+        ascii &= b >= 0;
+    }
+
+    @Override
+    public String toString() {
+        final StringSink sink = new StringSink();
+        Chars.utf8Decode(this, sink);
+        return sink.toString();
+    }
+}
@@ -37,6 +37,7 @@ open module io.questdb {
     exports io.questdb.cairo;
     exports io.questdb.cairo.map;
     exports io.questdb.cairo.sql;
+    exports io.questdb.cairo.sql.async;
     exports io.questdb.cairo.pool;
     exports io.questdb.cairo.pool.ex;
     exports io.questdb.cairo.security;
@@ -46,6 +47,7 @@ open module io.questdb {
     exports io.questdb.cutlass.json;
     exports io.questdb.cutlass.line;
     exports io.questdb.cutlass.line.udp;
+    exports io.questdb.cutlass.parquet;
     exports io.questdb.cutlass.pgwire;
     exports io.questdb.cutlass.text;
     exports io.questdb.cutlass.text.types;
@@ -78,6 +80,7 @@ open module io.questdb {
     exports io.questdb.std.str;
     exports io.questdb.network;
     exports io.questdb.log;
+    exports io.questdb.metrics;
     exports io.questdb.mp;
     exports io.questdb.tasks;
 
@@ -425,6 +428,8 @@ open module io.questdb {
             io.questdb.griffin.engine.functions.catalogue.ClassCatalogueFunctionFactory,
             io.questdb.griffin.engine.functions.catalogue.PrefixedNamespaceCatalogueFunctionFactory,
             io.questdb.griffin.engine.functions.catalogue.NamespaceCatalogueFunctionFactory,
+            io.questdb.griffin.engine.functions.catalogue.MemoryMetricsFunctionFactory,
+            io.questdb.griffin.engine.functions.catalogue.QueryActivityFunctionFactory,
             io.questdb.griffin.engine.functions.catalogue.IsTableVisibleCatalogueFunctionFactory,
             io.questdb.griffin.engine.functions.catalogue.UserByIdCatalogueFunctionFactory,
             io.questdb.griffin.engine.functions.catalogue.TypeCatalogueFunctionFactory,
@@ -437,7 +442,8 @@ open module io.questdb {
 //                  ^
             io.questdb.griffin.engine.functions.math.PowDoubleFunctionFactory,
             io.questdb.griffin.engine.functions.table.AllTablesFunctionFactory,
-            io.questdb.griffin.engine.functions.table.TableColumnsFunctionFactory
+            io.questdb.griffin.engine.functions.table.TableColumnsFunctionFactory,
+            io.questdb.griffin.engine.functions.table.ReadParquetFunctionFactory
             ;
 
 }
@@ -120,9 +120,20 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(true, configuration.getHttpServerConfiguration().isInterruptOnClosedConnection());
         Assert.assertEquals(2_000_000, configuration.getHttpServerConfiguration().getInterruptorNIterationsPerCheck());
         Assert.assertEquals(64, configuration.getHttpServerConfiguration().getInterruptorBufferSize());
+        Assert.assertEquals(64 * 1024, configuration.getHttpServerConfiguration().getLiveQueryBatchSize());
+        Assert.assertEquals(10, configuration.getHttpServerConfiguration().getLiveQueryPollInterval());
+        Assert.assertEquals(60_000, configuration.getHttpServerConfiguration().getLiveQuerySendTimeout());
 
         Assert.assertEquals(CommitMode.NOSYNC, configuration.getCairoConfiguration().getCommitMode());
+        Assert.assertFalse(configuration.getCairoConfiguration().isCommitSyncInBackground());
+        Assert.assertFalse(configuration.getCairoConfiguration().getMetrics().isEnabled());
         Assert.assertEquals(2097152, configuration.getCairoConfiguration().getSqlCopyBufferSize());
+        Assert.assertEquals(1_000, configuration.getCairoConfiguration().getMatViewRefreshInterval());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getPartitionRetentionCheckInterval());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getPartitionCompressionAgeDays());
+        Assert.assertEquals(256 * 1024 * 1024, configuration.getCairoConfiguration().getCompressedColumnCacheSize());
+        Assert.assertEquals(100_000, configuration.getCairoConfiguration().getSqlParquetRowGroupSize());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlJoinReorderRowThreshold());
         Assert.assertEquals(32, configuration.getCairoConfiguration().getCopyPoolCapacity());
         Assert.assertEquals(5, configuration.getCairoConfiguration().getCreateAsSelectRetryCount());
         Assert.assertEquals("fast", configuration.getCairoConfiguration().getDefaultMapType());
@@ -152,6 +163,23 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlMapMaxPages());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlMapMaxResizes());
         Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlModelPoolCapacity());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlMemoryLimit());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlQueryMemoryLimit());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlParallelQueryLimit());
+        Assert.assertEquals(16, configuration.getCairoConfiguration().getSqlParallelReorderCapacity());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlQueryTimeout());
+        Assert.assertFalse(configuration.getWorkerPoolConfiguration().isNumaAware());
+        Assert.assertEquals(0, configuration.getIngestWorkerPoolConfiguration().getWorkerCount());
+        Assert.assertArrayEquals(new int[]{}, configuration.getIngestWorkerPoolConfiguration().getWorkerAffinity());
+        Assert.assertFalse(configuration.getIngestWorkerPoolConfiguration().haltOnError());
+        Assert.assertEquals("ingest", configuration.getIngestWorkerPoolConfiguration().getPoolName());
+        Assert.assertEquals(0, configuration.getAnalyticalWorkerPoolConfiguration().getWorkerCount());
+        Assert.assertArrayEquals(new int[]{}, configuration.getAnalyticalWorkerPoolConfiguration().getWorkerAffinity());
+        Assert.assertFalse(configuration.getAnalyticalWorkerPoolConfiguration().haltOnError());
+        Assert.assertEquals("analytical", configuration.getAnalyticalWorkerPoolConfiguration().getPoolName());
+        Assert.assertEquals("http", configuration.getHttpServerConfiguration().getPoolName());
+        Assert.assertEquals("pg", configuration.getPGWireConfiguration().getPoolName());
         Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortKeyPageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortKeyMaxPages());
         Assert.assertEquals(1024 * 1024, configuration.getCairoConfiguration().getSqlSortLightValuePageSize());
@@ -165,6 +193,11 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isReaderMappingSharingEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isIncrementalBackupEnabled());
+        Assert.assertNull(configuration.getCairoConfiguration().getReplicaWalRoot());
+        Assert.assertEquals(1_000, configuration.getCairoConfiguration().getReplicaWalCheckInterval());
+        Assert.assertFalse(configuration.getPGWireConfiguration().readOnlySecurityContext());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getAnalyticColumnPoolCapacity());
@@ -179,6 +212,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(-402587133, configuration.getLineUdpReceiverConfiguration().getGroupIPv4Address());
 
         Assert.assertEquals(1000000, configuration.getLineUdpReceiverConfiguration().getCommitRate());
+        Assert.assertEquals(500, configuration.getLineUdpReceiverConfiguration().getCommitLag());
+        Assert.assertEquals(500_000, configuration.getLineUdpReceiverConfiguration().getMaxUncommittedRows());
 
         Assert.assertEquals(2048, configuration.getLineUdpReceiverConfiguration().getMsgBufferSize());
         Assert.assertEquals(10000, configuration.getLineUdpReceiverConfiguration().getMsgCount());
@@ -268,6 +303,17 @@ public class PropServerConfigurationTest {
         Assert.assertSame(LineProtoHourTimestampAdapter.INSTANCE, configuration.getLineUdpReceiverConfiguration().getTimestampAdapter());
     }
 
+    @Test
+    public void testReplicaIsReadOnly() throws ServerConfigurationException, JsonException {
+        Properties properties = new Properties();
+        properties.setProperty("http.enabled", "false");
+        properties.setProperty("cairo.replica.wal.root", "/shipped");
+        PropServerConfiguration configuration = new PropServerConfiguration("root", properties);
+        Assert.assertEquals("/shipped", configuration.getCairoConfiguration().getReplicaWalRoot());
+        Assert.assertTrue(configuration.getPGWireConfiguration().readOnlySecurityContext());
+        Assert.assertFalse(configuration.getLineUdpReceiverConfiguration().isEnabled());
+    }
+
     @Test(expected = ServerConfigurationException.class)
     public void testInvalidBindToPort() throws ServerConfigurationException, JsonException {
         Properties properties = new Properties();
@@ -344,6 +390,9 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(false, configuration.getHttpServerConfiguration().isInterruptOnClosedConnection());
             Assert.assertEquals(500, configuration.getHttpServerConfiguration().getInterruptorNIterationsPerCheck());
             Assert.assertEquals(32, configuration.getHttpServerConfiguration().getInterruptorBufferSize());
+            Assert.assertEquals(16384, configuration.getHttpServerConfiguration().getLiveQueryBatchSize());
+            Assert.assertEquals(50, configuration.getHttpServerConfiguration().getLiveQueryPollInterval());
+            Assert.assertEquals(5000, configuration.getHttpServerConfiguration().getLiveQuerySendTimeout());
 
             Assert.assertEquals(new File(root, "public_ok").getAbsolutePath(),
                     configuration.getHttpServerConfiguration().getStaticContentProcessorConfiguration().getPublicDirectory());
@@ -377,6 +426,12 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(2_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getConnectionCheckFrequency());
             Assert.assertEquals(4, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getFloatScale());
             Assert.assertEquals(4194304, configuration.getCairoConfiguration().getSqlCopyBufferSize());
+            Assert.assertEquals(500, configuration.getCairoConfiguration().getMatViewRefreshInterval());
+            Assert.assertEquals(10_000, configuration.getCairoConfiguration().getPartitionRetentionCheckInterval());
+            Assert.assertEquals(30, configuration.getCairoConfiguration().getPartitionCompressionAgeDays());
+            Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getCompressedColumnCacheSize());
+            Assert.assertEquals(50_000, configuration.getCairoConfiguration().getSqlParquetRowGroupSize());
+            Assert.assertEquals(250_000, configuration.getCairoConfiguration().getSqlJoinReorderRowThreshold());
             Assert.assertEquals(64, configuration.getCairoConfiguration().getCopyPoolCapacity());
             Assert.assertSame(FilesFacadeImpl.INSTANCE, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getFilesFacade());
             Assert.assertEquals("Keep-Alive: timeout=10, max=50000" + Misc.EOL, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getKeepAliveHeader());
@@ -384,6 +439,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(3, configuration.getCairoConfiguration().getFloatToStrCastScale());
 
             Assert.assertEquals(CommitMode.ASYNC, configuration.getCairoConfiguration().getCommitMode());
+            Assert.assertTrue(configuration.getCairoConfiguration().isCommitSyncInBackground());
+            Assert.assertTrue(configuration.getCairoConfiguration().getMetrics().isEnabled());
             Assert.assertEquals(12, configuration.getCairoConfiguration().getCreateAsSelectRetryCount());
             Assert.assertEquals("compact", configuration.getCairoConfiguration().getDefaultMapType());
             Assert.assertTrue(configuration.getCairoConfiguration().getDefaultSymbolCacheFlag());
@@ -411,6 +468,19 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(1026, configuration.getCairoConfiguration().getSqlMapMaxPages());
             Assert.assertEquals(128, configuration.getCairoConfiguration().getSqlMapMaxResizes());
             Assert.assertEquals(256, configuration.getCairoConfiguration().getSqlModelPoolCapacity());
+            Assert.assertEquals(2L * 1024 * 1024 * 1024, configuration.getCairoConfiguration().getSqlMemoryLimit());
+            Assert.assertEquals(256 * 1024 * 1024, configuration.getCairoConfiguration().getSqlQueryMemoryLimit());
+            Assert.assertEquals(4, configuration.getCairoConfiguration().getSqlParallelQueryLimit());
+            Assert.assertEquals(32, configuration.getCairoConfiguration().getSqlParallelReorderCapacity());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+            Assert.assertEquals(60000, configuration.getCairoConfiguration().getSqlQueryTimeout());
+            Assert.assertTrue(configuration.getWorkerPoolConfiguration().isNumaAware());
+            Assert.assertEquals(2, configuration.getIngestWorkerPoolConfiguration().getWorkerCount());
+            Assert.assertArrayEquals(new int[]{7, 8}, configuration.getIngestWorkerPoolConfiguration().getWorkerAffinity());
+            Assert.assertTrue(configuration.getIngestWorkerPoolConfiguration().haltOnError());
+            Assert.assertEquals(2, configuration.getAnalyticalWorkerPoolConfiguration().getWorkerCount());
+            Assert.assertArrayEquals(new int[]{9, 10}, configuration.getAnalyticalWorkerPoolConfiguration().getWorkerAffinity());
+            Assert.assertTrue(configuration.getAnalyticalWorkerPoolConfiguration().haltOnError());
             Assert.assertEquals(10 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortKeyPageSize());
             Assert.assertEquals(256, configuration.getCairoConfiguration().getSqlSortKeyMaxPages());
             Assert.assertEquals(3 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortLightValuePageSize());
@@ -424,6 +494,9 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(1028, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
             Assert.assertFalse(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isReaderMappingSharingEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isIncrementalBackupEnabled());
+            Assert.assertEquals(5_000, configuration.getCairoConfiguration().getReplicaWalCheckInterval());
             Assert.assertEquals(8 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
             Assert.assertEquals(10_000, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
 
@@ -438,6 +511,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(9915, configuration.getLineUdpReceiverConfiguration().getPort());
             Assert.assertEquals(-536805119, configuration.getLineUdpReceiverConfiguration().getGroupIPv4Address());
             Assert.assertEquals(100_000, configuration.getLineUdpReceiverConfiguration().getCommitRate());
+            Assert.assertEquals(250, configuration.getLineUdpReceiverConfiguration().getCommitLag());
+            Assert.assertEquals(20_000, configuration.getLineUdpReceiverConfiguration().getMaxUncommittedRows());
             Assert.assertEquals(4 * 1024 * 1024, configuration.getLineUdpReceiverConfiguration().getMsgBufferSize());
             Assert.assertEquals(4000, configuration.getLineUdpReceiverConfiguration().getMsgCount());
             Assert.assertEquals(512, configuration.getLineUdpReceiverConfiguration().getReceiveBufferSize());
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Numbers;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Zip;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ColumnCompressionTest {
+    private static final Log LOG = LogFactory.getLog(ColumnCompressionTest.class);
+
+    @BeforeClass
+    public static void setUp() {
+        // deflate and log writer allocate native memory when initialised, do it outside of leak checks
+        Assert.assertNotEquals(0, Zip.gzipHeader);
+        LOG.info().$("Begin test").$();
+    }
+
+    @Test
+    public void testDeflate() throws Exception {
+        final Rnd rnd = new Rnd();
+        final String[] words = {"alpha", "beta", "gamma", "delta"};
+        assertRoundTrip(3 * 1024 * 1024, ColumnCompression.CODEC_DEFLATE, (address, size) -> {
+            long p = address;
+            final long hi = address + size;
+            while (p < hi) {
+                final String word = words[rnd.nextPositiveInt() % words.length];
+                for (int i = 0, n = word.length(); i < n && p < hi; i++) {
+                    Unsafe.getUnsafe().putByte(p++, (byte) word.charAt(i));
+                }
+            }
+        }, true);
+    }
+
+    @Test
+    public void testDeflateRandom() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(100_000, ColumnCompression.CODEC_DEFLATE, (address, size) -> {
+            for (long i = 0; i < size; i++) {
+                Unsafe.getUnsafe().putByte(address + i, rnd.nextByte());
+            }
+        }, false);
+    }
+
+    @Test
+    public void testDeltaOfDelta() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(1_000_000 * Long.BYTES, ColumnCompression.CODEC_DELTA_OF_DELTA, (address, size) -> {
+            long ts = 1_577_836_800_000_000L;
+            for (long i = 0, n = size / Long.BYTES; i < n; i++) {
+                // mostly regular timestamps with occasional jitter
+                ts += rnd.nextPositiveInt() % 10 == 0 ? rnd.nextPositiveInt() % 1000 : 1_000_000;
+                Unsafe.getUnsafe().putLong(address + i * Long.BYTES, ts);
+            }
+        }, true);
+    }
+
+    @Test
+    public void testDeltaOfDeltaExtremes() throws Exception {
+        final long[] values = {Numbers.LONG_NaN, Long.MAX_VALUE, 0, -1, Long.MIN_VALUE + 1, 42, Numbers.LONG_NaN};
+        assertRoundTrip(values.length * Long.BYTES, ColumnCompression.CODEC_DELTA_OF_DELTA, (address, size) -> {
+            for (int i = 0; i < values.length; i++) {
+                Unsafe.getUnsafe().putLong(address + i * Long.BYTES, values[i]);
+            }
+        }, false);
+    }
+
+    @Test
+    public void testRle() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(1_000_000 * Integer.BYTES, ColumnCompression.CODEC_RLE, (address, size) -> {
+            int key = 0;
+            for (long i = 0, n = size / Integer.BYTES; i < n; i++) {
+                if (rnd.nextPositiveInt() % 50 == 0) {
+                    key = rnd.nextPositiveInt() % 10 - 1;
+                }
+                Unsafe.getUnsafe().putInt(address + i * Integer.BYTES, key);
+            }
+        }, true);
+    }
+
+    @Test
+    public void testTruncatedInputIsRejected() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final long size = 1024 * Long.BYTES;
+            final long address = Unsafe.malloc(size);
+            final long decoded = Unsafe.malloc(size);
+            try (VirtualMemory mem = new VirtualMemory(4096, Integer.MAX_VALUE)) {
+                for (long i = 0; i < size / Long.BYTES; i++) {
+                    Unsafe.getUnsafe().putLong(address + i * Long.BYTES, i * i);
+                }
+                ColumnCompression.encode(address, size, ColumnCompression.CODEC_DELTA_OF_DELTA, mem);
+                final long encoded = Unsafe.malloc(mem.getAppendOffset());
+                try {
+                    copy(mem, encoded);
+                    try {
+                        ColumnCompression.decode(encoded, mem.getAppendOffset() - 10, decoded, size);
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "compressed column is corrupt");
+                    }
+
+                    try {
+                        ColumnCompression.decode(encoded, mem.getAppendOffset(), decoded, size - 8);
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "size mismatch");
+                    }
+                } finally {
+                    Unsafe.free(encoded, mem.getAppendOffset());
+                }
+            } finally {
+                Unsafe.free(address, size);
+                Unsafe.free(decoded, size);
+            }
+        });
+    }
+
+    @Test
+    public void testXor() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(1_000_000 * Double.BYTES, ColumnCompression.CODEC_XOR, (address, size) -> {
+            double price = 100.0;
+            for (long i = 0, n = size / Double.BYTES; i < n; i++) {
+                if (rnd.nextPositiveInt() % 4 == 0) {
+                    price = Math.round((price + rnd.nextDouble() - 0.5) * 100) / 100.0;
+                }
+                Unsafe.getUnsafe().putDouble(address + i * Double.BYTES, i % 1000 == 0 ? Double.NaN : price);
+            }
+        }, true);
+    }
+
+    private static void assertRoundTrip(long size, int codec, Generator generator, boolean expectSmaller) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final long address = Unsafe.malloc(size);
+            final long decoded = Unsafe.malloc(size);
+            try (VirtualMemory mem = new VirtualMemory(64 * 1024, Integer.MAX_VALUE)) {
+                generator.generate(address, size);
+                ColumnCompression.encode(address, size, codec, mem);
+                final long encodedSize = mem.getAppendOffset();
+                if (expectSmaller) {
+                    Assert.assertTrue("encoded size " + encodedSize, encodedSize < size / 2);
+                }
+
+                final long encoded = Unsafe.malloc(encodedSize);
+                try {
+                    copy(mem, encoded);
+                    ColumnCompression.decode(encoded, encodedSize, decoded, size);
+                } finally {
+                    Unsafe.free(encoded, encodedSize);
+                }
+
+                for (long i = 0; i < size; i++) {
+                    if (Unsafe.getUnsafe().getByte(address + i) != Unsafe.getUnsafe().getByte(decoded + i)) {
+                        Assert.fail("mismatch at " + i);
+                    }
+                }
+            } finally {
+                Unsafe.free(address, size);
+                Unsafe.free(decoded, size);
+            }
+        });
+    }
+
+    private static void copy(VirtualMemory mem, long address) {
+        for (long i = 0, n = mem.getAppendOffset(); i < n; i++) {
+            Unsafe.getUnsafe().putByte(address + i, mem.getByte(i));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Generator {
+        void generate(long address, long size);
+    }
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.MessageBus;
+import io.questdb.MessageBusImpl;
+import io.questdb.std.Files;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DurabilityJobTest extends AbstractCairoTest {
+    private static final long DAY = 24L * 3600 * 1000000;
+
+    @Test
+    public void testDurableTxnFollowsSyncCommits() throws Exception {
+        testDurableTxn(PartitionBy.DAY);
+    }
+
+    @Test
+    public void testDurableTxnNotPartitioned() throws Exception {
+        testDurableTxn(PartitionBy.NONE);
+    }
+
+    @Test
+    public void testOtherModesAreNotPublished() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(PartitionBy.DAY);
+            final MessageBus messageBus = new MessageBusImpl();
+            final CairoConfiguration configuration = new BackgroundSyncConfiguration();
+            try (
+                    TableWriter writer = new TableWriter(configuration, "x", messageBus);
+                    DurabilityJob job = new DurabilityJob(configuration, messageBus)
+            ) {
+                appendRow(writer, 0);
+                writer.commit(CommitMode.ASYNC);
+                appendRow(writer, 1);
+                writer.commit(CommitMode.NOSYNC);
+                Assert.assertFalse(job.run(0));
+
+                try (TableReader reader = new TableReader(configuration, "x")) {
+                    Assert.assertEquals(-1, reader.getDurableTxn());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testTableRemovedBeforeSync() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(PartitionBy.DAY);
+            final MessageBus messageBus = new MessageBusImpl();
+            final CairoConfiguration configuration = new BackgroundSyncConfiguration();
+            try (DurabilityJob job = new DurabilityJob(configuration, messageBus)) {
+                try (TableWriter writer = new TableWriter(configuration, "x", messageBus)) {
+                    appendRow(writer, 0);
+                    writer.commit(CommitMode.SYNC);
+                }
+                try (Path path = new Path().of(root).concat("x").$()) {
+                    Assert.assertTrue(Files.rmdir(path));
+                }
+                Assert.assertTrue(job.run(0));
+                Assert.assertEquals(0, job.getSyncedTxnCount());
+            }
+        });
+    }
+
+    private static void appendRow(TableWriter writer, long timestamp) {
+        TableWriter.Row row = writer.newRow(timestamp);
+        row.putInt(0, 1);
+        row.append();
+    }
+
+    private static void createTable(int partitionBy) {
+        try (TableModel model = new TableModel(configuration, "x", partitionBy).col("i", ColumnType.INT).timestamp()) {
+            CairoTestUtils.create(model);
+        }
+    }
+
+    private void testDurableTxn(int partitionBy) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(partitionBy);
+            final MessageBus messageBus = new MessageBusImpl();
+            final CairoConfiguration configuration = new BackgroundSyncConfiguration();
+            try (
+                    TableWriter writer = new TableWriter(configuration, "x", messageBus);
+                    TableReader reader = new TableReader(configuration, "x");
+                    DurabilityJob job = new DurabilityJob(configuration, messageBus)
+            ) {
+                Assert.assertEquals(-1, reader.getDurableTxn());
+
+                // commits are synced together on next run
+                for (int i = 0; i < 3; i++) {
+                    appendRow(writer, i * DAY);
+                    appendRow(writer, i * DAY + 1);
+                    writer.commit(CommitMode.SYNC);
+                }
+                Assert.assertEquals(-1, reader.getDurableTxn());
+                Assert.assertTrue(job.run(0));
+                Assert.assertEquals(3, reader.getDurableTxn());
+                Assert.assertEquals(3, job.getSyncedTxnCount());
+                Assert.assertFalse(job.run(0));
+
+                appendRow(writer, 3 * DAY);
+                writer.commit(CommitMode.SYNC);
+                Assert.assertEquals(3, reader.getDurableTxn());
+                Assert.assertTrue(job.run(0));
+                Assert.assertEquals(4, reader.getDurableTxn());
+                Assert.assertEquals(4, job.getSyncedTxnCount());
+
+                Assert.assertTrue(reader.reload());
+                Assert.assertEquals(7, reader.size());
+            }
+        });
+    }
+
+    private static class BackgroundSyncConfiguration extends DefaultCairoConfiguration {
+        BackgroundSyncConfiguration() {
+            super(root);
+        }
+
+        @Override
+        public boolean isCommitSyncInBackground() {
+            return true;
+        }
+    }
+}
@@ -35,6 +35,8 @@ import io.questdb.std.microtime.Timestamps;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.StringSink;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.DurabilityTask;
+import io.questdb.tasks.PageFrameReduceTask;
 import io.questdb.tasks.VectorAggregateTask;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
@@ -2447,6 +2449,20 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
             this(new MPSequence(1024), new MCSequence(1024));
         }
 
+        @Override
+        public Sequence getDurabilityPubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<DurabilityTask> getDurabilityQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getDurabilitySubSequence() {
+            return null;
+        }
 
         @Override
         public Sequence getIndexerPubSequence() {
@@ -2463,6 +2479,21 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
             return subSeq;
         }
 
+        @Override
+        public Sequence getPageFrameReducePubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<PageFrameReduceTask> getPageFrameReduceQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getPageFrameReduceSubSequence() {
+            return null;
+        }
+
         @Override
         public RingQueue<VectorAggregateTask> getVectorAggregateQueue() {
             return null;
@@ -92,6 +92,7 @@ public class RecordCursorPrinter {
                 sink.put(r.getInt(i));
                 break;
             case ColumnType.STRING:
+            case ColumnType.VARCHAR:
                 r.getStr(i, sink);
                 break;
             case ColumnType.SYMBOL:
@@ -1722,6 +1722,169 @@ public class TableReaderTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testLazyColumnMapping() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("l", ColumnType.LONG)
+                    .col("s", ColumnType.STRING)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            long timestampUs = TimestampFormatUtils.parseDateTime("2017-12-11T00:00:00.000Z");
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                for (int i = 0; i < 30; i++) {
+                    TableWriter.Row row = writer.newRow(timestampUs);
+                    row.putLong(0, i);
+                    row.putStr(1, "s" + i);
+                    row.append();
+                    timestampUs += Timestamps.HOUR_MICROS * 4;
+                }
+                writer.commit();
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                Assert.assertEquals(5, reader.getPartitionCount());
+                Assert.assertEquals(6, reader.openPartition(0));
+
+                final int base = reader.getColumnBase(0);
+                final OnePageMemory l = (OnePageMemory) reader.getColumn(TableReader.getPrimaryColumnIndex(base, 0));
+                final OnePageMemory s = (OnePageMemory) reader.getColumn(TableReader.getPrimaryColumnIndex(base, 1));
+                final OnePageMemory si = (OnePageMemory) reader.getColumn(TableReader.getPrimaryColumnIndex(base, 1) + 1);
+                Assert.assertFalse(l.isMapped());
+                Assert.assertFalse(s.isMapped());
+                Assert.assertFalse(si.isMapped());
+
+                long sum = 0;
+                int count = 0;
+                RecordCursor cursor = reader.getCursor();
+                final Record record = cursor.getRecord();
+                while (cursor.hasNext()) {
+                    final long v = record.getLong(0);
+                    sum += v;
+                    if (v == 29) {
+                        TestUtils.assertEquals("s29", record.getStr(1));
+                    }
+                    count++;
+                }
+                Assert.assertEquals(30, count);
+                Assert.assertEquals(435, sum);
+
+                // string column of first partition was never read
+                Assert.assertTrue(l.isMapped());
+                Assert.assertFalse(s.isMapped());
+                Assert.assertFalse(si.isMapped());
+
+                cursor.toTop();
+                Assert.assertTrue(cursor.hasNext());
+                TestUtils.assertEquals("s0", record.getStr(1));
+                Assert.assertTrue(s.isMapped());
+                Assert.assertTrue(si.isMapped());
+            }
+        });
+    }
+
+    @Test
+    public void testSharedColumnMappingSizeMismatchMmapFailure() {
+        final FilesFacade ff = new FilesFacadeImpl() {
+            private int count = 0;
+
+            @Override
+            public int errno() {
+                return 12;
+            }
+
+            @Override
+            public long mmap(long fd, long len, long offset, int mode) {
+                return count++ == 0 ? 4096 : -1;
+            }
+
+            @Override
+            public void munmap(long address, long size) {
+            }
+        };
+
+        final ColumnMappingCache cache = new ColumnMappingCache();
+        Assert.assertEquals(4096, cache.acquire(ff, "x#1", 1, 64));
+        try {
+            // file of different size under the same key is mapped privately, failure must not return -1 as address
+            cache.acquire(ff, "x#1", 1, 128);
+            Assert.fail();
+        } catch (CairoException e) {
+            Assert.assertEquals(12, e.getErrno());
+            TestUtils.assertContains(e.getFlyweightMessage(), "Cannot mmap");
+        }
+        Assert.assertEquals(1, cache.getRefCount("x#1"));
+        cache.release(ff, "x#1", 4096, 64);
+        Assert.assertEquals(0, cache.getMappingCount());
+    }
+
+    @Test
+    public void testSharedColumnMappings() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final AtomicInteger mmapCount = new AtomicInteger();
+            final FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public long mmap(long fd, long len, long offset, int mode) {
+                    mmapCount.incrementAndGet();
+                    return super.mmap(fd, len, offset, mode);
+                }
+            };
+
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+            };
+
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("l", ColumnType.LONG)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            long timestampUs = TimestampFormatUtils.parseDateTime("2017-12-11T00:00:00.000Z");
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                for (int i = 0; i < 30; i++) {
+                    TableWriter.Row row = writer.newRow(timestampUs);
+                    row.putLong(0, i);
+                    row.append();
+                    timestampUs += Timestamps.HOUR_MICROS * 4;
+                }
+                writer.commit();
+            }
+
+            final ColumnMappingCache cache = ColumnMappingCache.INSTANCE;
+            final int mappingCount = cache.getMappingCount();
+            try (TableReader reader2 = new TableReader(configuration, "x")) {
+                Assert.assertEquals(6, reader2.openPartition(0));
+                final int index = TableReader.getPrimaryColumnIndex(reader2.getColumnBase(0), 0);
+                final SharedColumn column2 = (SharedColumn) reader2.getColumn(index);
+
+                final String key;
+                try (TableReader reader1 = new TableReader(configuration, "x")) {
+                    Assert.assertEquals(6, reader1.openPartition(0));
+                    final SharedColumn column1 = (SharedColumn) reader1.getColumn(index);
+                    TestUtils.assertEquals(column1.getKey(), column2.getKey());
+
+                    mmapCount.set(0);
+                    Assert.assertEquals(5, column1.getLong(5 * Long.BYTES));
+                    Assert.assertEquals(5, column2.getLong(5 * Long.BYTES));
+                    Assert.assertEquals(1, mmapCount.get());
+                    Assert.assertEquals(column1.getPageAddress(0), column2.getPageAddress(0));
+                    Assert.assertEquals(2, cache.getRefCount(column1.getKey()));
+                    Assert.assertEquals(mappingCount + 1, cache.getMappingCount());
+                    key = Chars.toString(column1.getKey());
+                }
+                Assert.assertEquals(1, cache.getRefCount(key));
+                Assert.assertEquals(5, column2.getLong(5 * Long.BYTES));
+            }
+            Assert.assertEquals(mappingCount, cache.getMappingCount());
+        });
+    }
+
     @Test
     public void testNullValueRecovery() throws Exception {
         final String expected = "int\tshort\tbyte\tdouble\tfloat\tlong\tstr\tsym\tbool\tbin\tdate\n" +
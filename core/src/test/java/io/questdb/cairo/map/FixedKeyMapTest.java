@@ -0,0 +1,270 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.map;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.std.*;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FixedKeyMapTest extends AbstractCairoTest {
+
+    @Test
+    public void testAllKeyTypes() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+            keyTypes.add(ColumnType.BOOLEAN);
+            keyTypes.add(ColumnType.BYTE);
+            keyTypes.add(ColumnType.SHORT);
+            keyTypes.add(ColumnType.CHAR);
+            keyTypes.add(ColumnType.INT);
+            keyTypes.add(ColumnType.FLOAT);
+            keyTypes.add(ColumnType.LONG);
+            keyTypes.add(ColumnType.DOUBLE);
+            keyTypes.add(ColumnType.LONG256);
+            Assert.assertTrue(FixedKeyMap.isSupported(keyTypes));
+
+            final Rnd rnd = new Rnd();
+            final int N = 1000;
+            final Long256Impl long256 = new Long256Impl();
+            try (FixedKeyMap map = new FixedKeyMap(1024, keyTypes, new SingleColumnType(ColumnType.INT), 16, 0.5, Integer.MAX_VALUE)) {
+                for (int i = 0; i < N; i++) {
+                    putKey(map.withKey(), rnd, long256).createValue().putInt(0, i);
+                }
+                Assert.assertEquals(N, map.size());
+
+                rnd.reset();
+                for (int i = 0; i < N; i++) {
+                    final MapValue value = putKey(map.withKey(), rnd, long256).createValue();
+                    Assert.assertFalse(value.isNew());
+                    Assert.assertEquals(i, value.getInt(0));
+                }
+                Assert.assertEquals(N, map.size());
+
+                rnd.reset();
+                try (RecordCursor cursor = map.getCursor()) {
+                    final MapRecord record = (MapRecord) cursor.getRecord();
+                    int i = 0;
+                    while (cursor.hasNext()) {
+                        Assert.assertEquals(i++, record.getInt(0));
+                        Assert.assertEquals(rnd.nextBoolean(), record.getBool(1));
+                        Assert.assertEquals(rnd.nextByte(), record.getByte(2));
+                        Assert.assertEquals(rnd.nextShort(), record.getShort(3));
+                        Assert.assertEquals(rnd.nextChar(), record.getChar(4));
+                        Assert.assertEquals(rnd.nextInt(), record.getInt(5));
+                        Assert.assertEquals(rnd.nextFloat(), record.getFloat(6), 0.000001f);
+                        Assert.assertEquals(rnd.nextLong(), record.getLong(7));
+                        Assert.assertEquals(rnd.nextDouble(), record.getDouble(8), 0.000000001);
+                        final Long256 l = record.getLong256A(9);
+                        Assert.assertEquals(rnd.nextLong(), l.getLong0());
+                        Assert.assertEquals(rnd.nextLong(), l.getLong1());
+                        Assert.assertEquals(rnd.nextLong(), l.getLong2());
+                        Assert.assertEquals(rnd.nextLong(), l.getLong3());
+                    }
+                    Assert.assertEquals(N, i);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testFactory() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (Map map = MapFactory.createMap(configuration, new SingleColumnType(ColumnType.LONG), new SingleColumnType(ColumnType.LONG))) {
+                Assert.assertTrue(map instanceof FixedKeyMap);
+            }
+            final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+            keyTypes.add(ColumnType.SYMBOL);
+            keyTypes.add(ColumnType.STRING);
+            Assert.assertFalse(FixedKeyMap.isSupported(keyTypes));
+            try (Map map = MapFactory.createMap(configuration, keyTypes, new SingleColumnType(ColumnType.LONG))) {
+                Assert.assertTrue(map instanceof FastMap);
+            }
+        });
+    }
+
+    @Test
+    public void testInsertionOrderAndClear() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+            keyTypes.add(ColumnType.SYMBOL);
+            keyTypes.add(ColumnType.SYMBOL);
+            try (FixedKeyMap map = new FixedKeyMap(64, keyTypes, new SingleColumnType(ColumnType.LONG), 4, 0.5, Integer.MAX_VALUE)) {
+                for (int round = 0; round < 2; round++) {
+                    // keys are seen many times, map must keep first-seen order like FastMap
+                    for (int i = 0; i < 10000; i++) {
+                        final MapKey key = map.withKey();
+                        key.putInt((i * 7) % 101);
+                        key.putInt(i % 3);
+                        final MapValue value = key.createValue();
+                        if (value.isNew()) {
+                            value.putLong(0, 1);
+                        } else {
+                            value.addLong(0, 1);
+                        }
+                    }
+                    Assert.assertEquals(303, map.size());
+
+                    final IntHashSet seen = new IntHashSet();
+                    try (RecordCursor cursor = map.getCursor()) {
+                        final MapRecord record = (MapRecord) cursor.getRecord();
+                        int i = 0;
+                        long total = 0;
+                        while (cursor.hasNext()) {
+                            Assert.assertEquals((i * 7) % 101, record.getInt(1));
+                            Assert.assertEquals(i % 3, record.getInt(2));
+                            Assert.assertTrue(seen.add(record.getInt(1) * 3 + record.getInt(2)));
+                            total += record.getLong(0);
+                            i++;
+                        }
+                        Assert.assertEquals(10000, total);
+                    }
+
+                    final MapKey key = map.withKey();
+                    key.putInt(1000);
+                    key.putInt(0);
+                    Assert.assertNull(key.findValue());
+                    map.clear();
+                    Assert.assertEquals(0, map.size());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testLookupOnFullMap() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            // 1024 byte page fits 64 entries of LONG key and LONG value, map cannot be resized
+            try (FixedKeyMap map = new FixedKeyMap(1024, new SingleColumnType(ColumnType.LONG), new SingleColumnType(ColumnType.LONG), 64, 0.5, 0)) {
+                for (int i = 0; i < 64; i++) {
+                    final MapKey key = map.withKey();
+                    key.putLong(i);
+                    key.createValue().putLong(0, i * 2);
+                }
+
+                for (int i = 0; i < 128; i++) {
+                    final MapKey key = map.withKey();
+                    key.putLong(i);
+                    final MapValue value = key.findValue();
+                    if (i < 64) {
+                        Assert.assertNotNull(value);
+                        Assert.assertEquals(i * 2, value.getLong(0));
+                    } else {
+                        Assert.assertNull(value);
+                    }
+                }
+                Assert.assertEquals(64, map.size());
+
+                final MapKey key = map.withKey();
+                key.putLong(64);
+                try {
+                    key.createValue();
+                    Assert.fail();
+                } catch (LimitOverflowException e) {
+                    TestUtils.assertContains(e.getMessage(), "limit of 0 resizes exceeded in FixedKeyMap");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testMaxResizes() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (FixedKeyMap map = new FixedKeyMap(1024, new SingleColumnType(ColumnType.LONG), new SingleColumnType(ColumnType.LONG), 16, 0.5, 1)) {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        final MapKey key = map.withKey();
+                        key.putLong(i);
+                        key.createValue().putLong(0, i);
+                    }
+                    Assert.fail();
+                } catch (LimitOverflowException e) {
+                    TestUtils.assertContains(e.getMessage(), "limit of 1 resizes exceeded in FixedKeyMap");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testRowIdAccess() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final ColumnTypes types = new SingleColumnType(ColumnType.INT);
+            final int N = 10000;
+            final Rnd rnd = new Rnd();
+            try (FixedKeyMap map = new FixedKeyMap(Numbers.SIZE_1MB, types, types, 64, 0.5, 1)) {
+                for (int i = 0; i < N; i++) {
+                    final MapKey key = map.withKey();
+                    key.putInt(rnd.nextInt());
+                    final MapValue value = key.createValue();
+                    Assert.assertTrue(value.isNew());
+                    value.putInt(0, i + 1);
+                }
+
+                rnd.reset();
+                final LongList list = new LongList();
+                try (RecordCursor cursor = map.getCursor()) {
+                    final MapRecord record = (MapRecord) cursor.getRecord();
+                    while (cursor.hasNext()) {
+                        list.add(record.getRowId());
+                        Assert.assertEquals(rnd.nextInt(), record.getInt(1));
+                        final MapValue value = record.getValue();
+                        value.putInt(0, value.getInt(0) * 2);
+                    }
+
+                    final MapRecord rec = (MapRecord) cursor.getRecordB();
+                    Assert.assertNotSame(rec, record);
+
+                    rnd.reset();
+                    for (int i = 0, n = list.size(); i < n; i++) {
+                        cursor.recordAt(rec, list.getQuick(i));
+                        Assert.assertEquals((i + 1) * 2, rec.getInt(0));
+                        Assert.assertEquals(rnd.nextInt(), rec.getInt(1));
+                    }
+                }
+            }
+        });
+    }
+
+    private static MapKey putKey(MapKey key, Rnd rnd, Long256Impl long256) {
+        key.putBool(rnd.nextBoolean());
+        key.putByte(rnd.nextByte());
+        key.putShort(rnd.nextShort());
+        key.putChar(rnd.nextChar());
+        key.putInt(rnd.nextInt());
+        key.putFloat(rnd.nextFloat());
+        key.putLong(rnd.nextLong());
+        key.putDouble(rnd.nextDouble());
+        long256.setLong0(rnd.nextLong());
+        long256.setLong1(rnd.nextLong());
+        long256.setLong2(rnd.nextLong());
+        long256.setLong3(rnd.nextLong());
+        key.putLong256(long256);
+        return key;
+    }
+}
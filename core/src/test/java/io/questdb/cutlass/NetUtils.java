@@ -31,7 +31,14 @@ import io.questdb.std.NumericException;
 import io.questdb.std.Unsafe;
 import org.junit.Assert;
 
+import java.util.BitSet;
+
 public class NetUtils {
+    /**
+     * Plays conversation with server. Lines starting with '>' are hex bytes to send, lines starting
+     * with '<' are hex bytes expected to be received, "!!" expects disconnect and "??" matches any
+     * received byte, such as random session secret.
+     */
     public static void playScript(
             NetworkFacade nf,
             String script,
@@ -44,6 +51,8 @@ public class NetUtils {
         final int N = 1024 * 1024;
         final long sendBuf = Unsafe.malloc(N);
         final long recvBuf = Unsafe.malloc(N);
+        // offsets of received bytes that are not compared
+        final BitSet anyByte = new BitSet();
 
         try {
             long sendPtr = sendBuf;
@@ -77,13 +86,16 @@ public class NetUtils {
                                 } else {
                                     Assert.assertEquals(len, m);
                                     for (int j = 0; j < len; j++) {
-                                        Assert.assertEquals("at " + j,
-                                                Unsafe.getUnsafe().getByte(sendBuf + j),
-                                                Unsafe.getUnsafe().getByte(recvBuf + j)
-                                        );
+                                        if (!anyByte.get(j)) {
+                                            Assert.assertEquals("at " + j,
+                                                    Unsafe.getUnsafe().getByte(sendBuf + j),
+                                                    Unsafe.getUnsafe().getByte(recvBuf + j)
+                                            );
+                                        }
                                     }
                                     // clear sendBuf
                                     sendPtr = sendBuf;
+                                    anyByte.clear();
                                 }
                             }
                         }
@@ -102,6 +114,9 @@ public class NetUtils {
                         char c2 = script.charAt(i + 1);
                         if (c1 == '!' && c2 == '!') {
                             expectDisconnect = true;
+                        } else if (c1 == '?' && c2 == '?') {
+                            anyByte.set((int) (sendPtr - sendBuf));
+                            Unsafe.getUnsafe().putByte(sendPtr++, (byte) 0);
                         } else {
                             try {
                                 byte b = (byte) ((Numbers.hexToDecimal(c1) << 4) | Numbers.hexToDecimal(c2));
@@ -134,10 +149,12 @@ public class NetUtils {
                         int m = nf.recv(clientFd, recvBuf, len);
                         Assert.assertEquals(len, m);
                         for (int j = 0; j < len; j++) {
-                            Assert.assertEquals(
-                                    Unsafe.getUnsafe().getByte(sendBuf + j),
-                                    Unsafe.getUnsafe().getByte(recvBuf + j)
-                            );
+                            if (!anyByte.get(j)) {
+                                Assert.assertEquals(
+                                        Unsafe.getUnsafe().getByte(sendBuf + j),
+                                        Unsafe.getUnsafe().getByte(recvBuf + j)
+                                );
+                            }
                         }
                     }
                 }
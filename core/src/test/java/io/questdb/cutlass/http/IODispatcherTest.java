@@ -101,6 +101,56 @@ public class IODispatcherTest {
         }
     }
 
+    private static void appendLiveQueryRow(TableWriter writer, String sym, double price, long timestamp) {
+        final TableWriter.Row row = writer.newRow(timestamp);
+        row.putSym(0, sym);
+        row.putDouble(1, price);
+        row.append();
+    }
+
+    private static String asciiOf(long address, int len) {
+        final StringSink sink = new StringSink();
+        for (int i = 0; i < len; i++) {
+            sink.put((char) Unsafe.getUnsafe().getByte(address + i));
+        }
+        return sink.toString();
+    }
+
+    private static void recvFully(NetworkFacade nf, long fd, long buffer, int len) {
+        int offset = 0;
+        while (offset < len) {
+            final int n = nf.recv(fd, buffer + offset, len - offset);
+            Assert.assertTrue(n > -1);
+            offset += n;
+        }
+    }
+
+    private static String recvTextFrame(NetworkFacade nf, long fd, long buffer) {
+        recvFully(nf, fd, buffer, 2);
+        Assert.assertEquals(0x81, Unsafe.getUnsafe().getByte(buffer) & 0xff);
+        int len = Unsafe.getUnsafe().getByte(buffer + 1);
+        if (len == 126) {
+            recvFully(nf, fd, buffer, 2);
+            len = ((Unsafe.getUnsafe().getByte(buffer) & 0xff) << 8) | (Unsafe.getUnsafe().getByte(buffer + 1) & 0xff);
+        }
+        recvFully(nf, fd, buffer, len);
+        return asciiOf(buffer, len);
+    }
+
+    private static void sendMaskedFrame(NetworkFacade nf, long fd, long buffer, int opcode, String payload) {
+        final int len = payload.length();
+        final byte[] mask = {0x12, 0x34, 0x56, 0x78};
+        Unsafe.getUnsafe().putByte(buffer, (byte) (0x80 | opcode));
+        Unsafe.getUnsafe().putByte(buffer + 1, (byte) (0x80 | len));
+        for (int i = 0; i < 4; i++) {
+            Unsafe.getUnsafe().putByte(buffer + 2 + i, mask[i]);
+        }
+        for (int i = 0; i < len; i++) {
+            Unsafe.getUnsafe().putByte(buffer + 6 + i, (byte) (payload.charAt(i) ^ mask[i & 3]));
+        }
+        Assert.assertEquals(6 + len, nf.send(fd, buffer, 6 + len));
+    }
+
     private static void sendRequest(String request, long fd, long buffer) {
         final int requestLen = request.length();
         Chars.asciiStrCpy(request, requestLen, buffer);
@@ -3305,6 +3355,91 @@ public class IODispatcherTest {
         );
     }
 
+    @Test
+    public void testLiveQuery() throws Exception {
+        testLiveQuery((engine, nf, fd, buffer) -> {
+            sendRequest(
+                    "GET /live?query=select+sym,price+from+x+where+price+%3E+1+or+sym+%3D+'c' HTTP/1.1\r\n" +
+                            "Host: localhost:9001\r\n" +
+                            "Upgrade: websocket\r\n" +
+                            "Connection: Upgrade\r\n" +
+                            "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                            "Sec-WebSocket-Version: 13\r\n" +
+                            "\r\n",
+                    fd,
+                    buffer
+            );
+            final String handshake = "HTTP/1.1 101 Switching Protocols\r\n" +
+                    "Upgrade: websocket\r\n" +
+                    "Connection: Upgrade\r\n" +
+                    "Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo=\r\n" +
+                    "\r\n";
+            recvFully(nf, fd, buffer, handshake.length());
+            TestUtils.assertEquals(handshake, asciiOf(buffer, handshake.length()));
+            Assert.assertEquals(
+                    "{\"columns\":[{\"name\":\"sym\",\"type\":\"SYMBOL\"},{\"name\":\"price\",\"type\":\"DOUBLE\"}]}",
+                    recvTextFrame(nf, fd, buffer)
+            );
+
+            // rows committed before subscription are not sent
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendLiveQueryRow(writer, "a", 0.5, 2);
+                appendLiveQueryRow(writer, "b", 2.5, 3);
+                writer.commit();
+                Assert.assertEquals("{\"dataset\":[[\"b\",2.5]]}", recvTextFrame(nf, fd, buffer));
+
+                // symbol value that did not exist when query was compiled
+                appendLiveQueryRow(writer, "c", 0.25, 4);
+                appendLiveQueryRow(writer, "a", 3.0, 5);
+                writer.commit();
+                Assert.assertEquals("{\"dataset\":[[\"c\",0.25],[\"a\",3.0]]}", recvTextFrame(nf, fd, buffer));
+
+                // quote and backslash are escaped
+                appendLiveQueryRow(writer, "d\"\\", 4.0, 6);
+                writer.commit();
+                Assert.assertEquals("{\"dataset\":[[\"d\\\"\\\\\",4.0]]}", recvTextFrame(nf, fd, buffer));
+            }
+
+            sendMaskedFrame(nf, fd, buffer, 0x9, "hi");
+            recvFully(nf, fd, buffer, 4);
+            Assert.assertEquals(0x8A, Unsafe.getUnsafe().getByte(buffer) & 0xff);
+            Assert.assertEquals(2, Unsafe.getUnsafe().getByte(buffer + 1));
+            Assert.assertEquals("hi", asciiOf(buffer + 2, 2));
+
+            sendMaskedFrame(nf, fd, buffer, 0x8, "\u0003\u00e8");
+            recvFully(nf, fd, buffer, 4);
+            Assert.assertEquals(0x88, Unsafe.getUnsafe().getByte(buffer) & 0xff);
+            Assert.assertEquals(1000, ((Unsafe.getUnsafe().getByte(buffer + 2) & 0xff) << 8) | (Unsafe.getUnsafe().getByte(buffer + 3) & 0xff));
+
+            // connection is closed and reader is released
+            Assert.assertTrue(nf.recv(fd, buffer, 1) < 1);
+            while (engine.getBusyReaderCount() > 0) {
+                LockSupport.parkNanos(1000);
+            }
+        });
+    }
+
+    @Test
+    public void testLiveQueryRejected() throws Exception {
+        testLiveQuery((engine, nf, fd, buffer) -> {
+            sendRequest(
+                    "GET /live?query=select+sym,count()+from+x HTTP/1.1\r\n" +
+                            "Host: localhost:9001\r\n" +
+                            "Upgrade: websocket\r\n" +
+                            "Connection: Upgrade\r\n" +
+                            "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                            "Sec-WebSocket-Version: 13\r\n" +
+                            "\r\n",
+                    fd,
+                    buffer
+            );
+            final String expected = "HTTP/1.1 400 Bad request\r\n";
+            recvFully(nf, fd, buffer, expected.length());
+            TestUtils.assertEquals(expected, asciiOf(buffer, expected.length()));
+            Assert.assertEquals(0, engine.getBusyReaderCount());
+        });
+    }
+
     @Test
     public void testMaxConnections() throws Exception {
 
@@ -4720,6 +4855,79 @@ public class IODispatcherTest {
     }
 
     @NotNull
+    private void testLiveQuery(LiveQueryClient client) throws Exception {
+        assertMemoryLeak(() -> {
+            final NetworkFacade nf = NetworkFacadeImpl.INSTANCE;
+            final String baseDir = temp.getRoot().getAbsolutePath();
+            final DefaultHttpServerConfiguration httpConfiguration = createHttpServerConfiguration(baseDir, false, false);
+            final WorkerPool workerPool = new WorkerPool(new WorkerPoolConfiguration() {
+                @Override
+                public int[] getWorkerAffinity() {
+                    return new int[]{-1};
+                }
+
+                @Override
+                public int getWorkerCount() {
+                    return 1;
+                }
+
+                @Override
+                public boolean haltOnError() {
+                    return false;
+                }
+            });
+            try (
+                    CairoEngine engine = new CairoEngine(new DefaultCairoConfiguration(baseDir), null);
+                    HttpServer httpServer = new HttpServer(httpConfiguration, workerPool, false);
+                    LiveQueryJob job = new LiveQueryJob(engine, httpConfiguration)
+            ) {
+                httpServer.bind(new HttpRequestProcessorFactory() {
+                    @Override
+                    public HttpRequestProcessor newInstance() {
+                        return new LiveQueryProcessor(engine, job);
+                    }
+
+                    @Override
+                    public String getUrl() {
+                        return "/live";
+                    }
+                });
+                workerPool.assign(job);
+
+                try (TableModel model = new TableModel(engine.getConfiguration(), "x", PartitionBy.NONE)
+                        .col("sym", ColumnType.SYMBOL)
+                        .col("price", ColumnType.DOUBLE)
+                        .timestamp()) {
+                    CairoTestUtils.create(model);
+                }
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    appendLiveQueryRow(writer, "b", 10.0, 1);
+                    writer.commit();
+                }
+
+                workerPool.start(LOG);
+                try {
+                    final long fd = nf.socketTcp(true);
+                    final long buffer = Unsafe.malloc(1024);
+                    try {
+                        final long sockAddr = nf.sockaddr("127.0.0.1", 9001);
+                        try {
+                            Assert.assertEquals(0, nf.connect(fd, sockAddr));
+                            client.run(engine, nf, fd, buffer);
+                        } finally {
+                            nf.freeSockAddr(sockAddr);
+                        }
+                    } finally {
+                        Unsafe.free(buffer, 1024);
+                        nf.close(fd);
+                    }
+                } finally {
+                    workerPool.halt();
+                }
+            }
+        });
+    }
+
     private DefaultHttpServerConfiguration createHttpServerConfiguration(
             String baseDir,
             boolean dumpTraffic,
@@ -5109,6 +5317,11 @@ public class IODispatcherTest {
         void run(CairoEngine engine) throws InterruptedException;
     }
 
+    @FunctionalInterface
+    private interface LiveQueryClient {
+        void run(CairoEngine engine, NetworkFacade nf, long fd, long buffer);
+    }
+
     private interface HttpClientStateListener {
         void onStartingRequest();
 
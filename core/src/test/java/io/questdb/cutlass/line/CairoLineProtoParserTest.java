@@ -29,6 +29,7 @@ import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.std.*;
 import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.std.microtime.Timestamps;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.Path;
 import io.questdb.test.tools.TestMicroClock;
@@ -70,6 +71,90 @@ public class CairoLineProtoParserTest extends AbstractCairoTest {
         assertThat(expected, lines, "tab");
     }
 
+    @Test
+    public void testCommitCoalescing() throws Exception {
+        final long[] now = {0};
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public MicrosecondClock getMicrosecondClock() {
+                return () -> now[0];
+            }
+        };
+
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    CairoEngine engine = new CairoEngine(configuration, null);
+                    CairoLineProtoParser parser = new CairoLineProtoParser(
+                            engine,
+                            AllowAllCairoSecurityContext.INSTANCE,
+                            LineProtoNanoTimestampAdapter.INSTANCE,
+                            1000,
+                            3,
+                            CommitMode.NOSYNC
+                    );
+                    LineProtoLexer lexer = new LineProtoLexer(4096)
+            ) {
+                lexer.withParser(parser);
+                parse(lexer, "x,tag=a f=1i 1000\nx,tag=b f=2i 2000\n");
+                Assert.assertFalse(parser.commitDue(CommitMode.NOSYNC));
+                Assert.assertEquals(1, parser.getUncommittedTableCount());
+                assertSize(0, "x");
+
+                now[0] = 999;
+                parse(lexer, "x,tag=c f=3i 3000\ny,tag=a f=1i 1000\n");
+                Assert.assertFalse(parser.commitDue(CommitMode.NOSYNC));
+                // third row of "x" has reached max uncommitted rows
+                assertSize(3, "x");
+                assertSize(0, "y");
+
+                now[0] = 1999;
+                Assert.assertTrue(parser.commitDue(CommitMode.NOSYNC));
+                assertSize(1, "y");
+                Assert.assertEquals(0, parser.getUncommittedTableCount());
+                Assert.assertFalse(parser.commitDue(CommitMode.NOSYNC));
+            }
+        });
+    }
+
+    @Test
+    public void testCommitLagStartsAtFirstRow() throws Exception {
+        final long[] now = {0};
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public MicrosecondClock getMicrosecondClock() {
+                return () -> now[0];
+            }
+        };
+
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    CairoEngine engine = new CairoEngine(configuration, null);
+                    CairoLineProtoParser parser = new CairoLineProtoParser(
+                            engine,
+                            AllowAllCairoSecurityContext.INSTANCE,
+                            LineProtoNanoTimestampAdapter.INSTANCE,
+                            1000,
+                            Long.MAX_VALUE,
+                            CommitMode.NOSYNC
+                    );
+                    LineProtoLexer lexer = new LineProtoLexer(4096)
+            ) {
+                lexer.withParser(parser);
+                parse(lexer, "x,tag=a f=1i 1000\n");
+
+                // receiver was busy and did not check the lag since the row arrived
+                now[0] = 999;
+                parse(lexer, "x,tag=b f=2i 2000\n");
+                Assert.assertFalse(parser.commitDue(CommitMode.NOSYNC));
+                assertSize(0, "x");
+
+                now[0] = 1000;
+                Assert.assertTrue(parser.commitDue(CommitMode.NOSYNC));
+                assertSize(2, "x");
+            }
+        });
+    }
+
     @Test
     public void testStr() throws Exception {
         String expected = "host\tuptime_format\ttimestamp\n" +
@@ -523,6 +608,30 @@ public class CairoLineProtoParserTest extends AbstractCairoTest {
         assertMultiTable(expected1, expected2, lines);
     }
 
+    @Test
+    public void testRemoveExpiredPartitionsOnCommit() throws Exception {
+        final String expected = "sym\tv\ttimestamp\n" +
+                "b\t2\t2017-10-02T10:00:00.000000Z\n" +
+                "c\t3\t2017-10-03T10:00:00.000000Z\n";
+
+        try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                .col("sym", ColumnType.SYMBOL)
+                .col("v", ColumnType.LONG)
+                .timestamp()) {
+            CairoTestUtils.create(model);
+        }
+
+        try (TableWriter writer = new TableWriter(configuration, "x")) {
+            writer.setTtl(Timestamps.DAY_MICROS);
+        }
+
+        String lines = "x,sym=a v=1i 1506852000000000000\n" +
+                "x,sym=b v=2i 1506938400000000000\n" +
+                "x,sym=c v=3i 1507024800000000000\n";
+
+        assertThat(expected, lines, "x");
+    }
+
     private void assertMultiTable(String expected1, String expected2, String lines) throws Exception {
         CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
             @Override
@@ -539,6 +648,27 @@ public class CairoLineProtoParserTest extends AbstractCairoTest {
         assertTable(expected2, "y");
     }
 
+    private static void parse(LineProtoLexer lexer, String lines) {
+        final byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+        final int len = bytes.length;
+        final long mem = Unsafe.malloc(len);
+        try {
+            for (int i = 0; i < len; i++) {
+                Unsafe.getUnsafe().putByte(mem + i, bytes[i]);
+            }
+            lexer.parse(mem, mem + len);
+            lexer.parseLast();
+        } finally {
+            Unsafe.free(mem, len);
+        }
+    }
+
+    private void assertSize(long expected, CharSequence tableName) {
+        try (TableReader reader = new TableReader(configuration, tableName)) {
+            Assert.assertEquals(expected, reader.size());
+        }
+    }
+
     private void assertTable(CharSequence expected, CharSequence tableName) {
         try (TableReader reader = new TableReader(configuration, tableName)) {
             assertThat(expected, reader.getCursor(), reader.getMetadata(), true);
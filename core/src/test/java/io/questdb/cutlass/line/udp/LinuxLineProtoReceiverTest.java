@@ -306,6 +306,16 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
             return 1024 * 1024;
         }
 
+        @Override
+        public long getCommitLag() {
+            return 0;
+        }
+
+        @Override
+        public int getMaxUncommittedRows() {
+            return Integer.MAX_VALUE;
+        }
+
         @Override
         public int getGroupIPv4Address() {
             return Net.parseIPv4("224.1.1.1");
@@ -56,6 +56,7 @@ public class AbstractGriffinTest extends AbstractCairoTest {
                 for (int i = 0; i < columnCount; i++) {
                     switch (metadata.getColumnType(i)) {
                         case ColumnType.STRING:
+                        case ColumnType.VARCHAR:
                             CharSequence a = record.getStr(i);
                             CharSequence b = record.getStrB(i);
                             if (a == null) {
@@ -263,6 +264,7 @@ public class AbstractGriffinTest extends AbstractCairoTest {
             for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
                 switch (metadata.getColumnType(i)) {
                     case ColumnType.STRING:
+                    case ColumnType.VARCHAR:
                         CharSequence s = record.getStr(i);
                         if (s != null) {
                             if (checkSameStr) {
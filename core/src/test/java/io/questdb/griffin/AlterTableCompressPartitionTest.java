@@ -0,0 +1,370 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CompressedColumn;
+import io.questdb.cairo.DecompressedColumnCache;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.PartitionCompressionJob;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.Rnd;
+import io.questdb.std.Zip;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static io.questdb.griffin.CompiledQuery.ALTER;
+
+public class AlterTableCompressPartitionTest extends AbstractGriffinTest {
+
+    @BeforeClass
+    public static void setUp4() {
+        // deflate allocates native memory when initialised, do it outside of leak checks
+        Assert.assertNotEquals(0, Zip.gzipHeader);
+    }
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testAddIndexToCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String expected = print("x where sym = 'msft'");
+
+            compiler.compile("alter table x compress partition '2018-01-01', '2018-01-02'", sqlExecutionContext);
+            compiler.compile("alter table x alter column sym add index", sqlExecutionContext);
+            engine.releaseAllReaders();
+
+            TestUtils.assertEquals(expected, print("x where sym = 'msft'"));
+        });
+    }
+
+    @Test
+    public void testCompressActivePartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try {
+                compiler.compile("alter table x compress partition '2018-01-09'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(33, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "could not compress partition '2018-01-09'");
+            }
+        });
+    }
+
+    @Test
+    public void testCompressNonExistentPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try {
+                compiler.compile("alter table x compress partition '2017-01-05'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(33, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "could not compress partition");
+            }
+        });
+    }
+
+    @Test
+    public void testCompressPartitionExpectKeyword() throws Exception {
+        assertFailure("alter table x compress column a", 23, "'partition' expected");
+    }
+
+    @Test
+    public void testCompressPartitionNameMissing() throws Exception {
+        assertFailure("alter table x compress partition ,", 33, "partition name missing");
+    }
+
+    @Test
+    public void testCompressPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String expected = print("x");
+            final String expectedInterval = print("x where timestamp = '2018-01-02'");
+
+            Assert.assertEquals(ALTER, compiler.compile("alter table x compress partition '2018-01-01', '2018-01-02', '2018-01-03'", sqlExecutionContext).getType());
+            assertFiles("2018-01-02", true);
+            assertFiles("2018-01-04", false);
+
+            // readers that have partitions open keep using original mapping
+            TestUtils.assertEquals(expected, print("x"));
+
+            engine.releaseAllReaders();
+            TestUtils.assertEquals(expected, print("x"));
+            TestUtils.assertEquals(expectedInterval, print("x where timestamp = '2018-01-02'"));
+
+            // compressing again is a no-op
+            compiler.compile("alter table x compress partition '2018-01-02'", sqlExecutionContext);
+            engine.releaseAllReaders();
+            TestUtils.assertEquals(expected, print("x"));
+        });
+    }
+
+    @Test
+    public void testDecompressedColumnsAreSharedAndBounded() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String expected = print("x");
+            compiler.compile("alter table x compress partition '2018-01-01', '2018-01-02', '2018-01-03'", sqlExecutionContext);
+            engine.releaseAllWriters();
+
+            final long size;
+            final int entryCount;
+            try (DecompressedColumnCache cache = new DecompressedColumnCache(Long.MAX_VALUE)) {
+                try (
+                        TableReader reader1 = new TableReader(configuration, "x", cache);
+                        TableReader reader2 = new TableReader(configuration, "x", cache)
+                ) {
+                    TestUtils.assertEquals(expected, print(reader1));
+                    entryCount = cache.getEntryCount();
+                    size = cache.getSize();
+                    Assert.assertTrue(entryCount > 0);
+
+                    // second reader maps the same decompressed columns
+                    TestUtils.assertEquals(expected, print(reader2));
+                    Assert.assertEquals(entryCount, cache.getEntryCount());
+                    Assert.assertEquals(size, cache.getSize());
+                }
+                // released columns are kept for the next reader
+                Assert.assertEquals(entryCount, cache.getEntryCount());
+                try (TableReader reader = new TableReader(configuration, "x", cache)) {
+                    TestUtils.assertEquals(expected, print(reader));
+                }
+                Assert.assertEquals(size, cache.getSize());
+            }
+
+            try (DecompressedColumnCache cache = new DecompressedColumnCache(size / 2)) {
+                try (TableReader reader = new TableReader(configuration, "x", cache)) {
+                    TestUtils.assertEquals(expected, print(reader));
+                    // columns in use are never evicted
+                    Assert.assertEquals(size, cache.getSize());
+                }
+                Assert.assertTrue(cache.getSize() <= size / 2);
+                Assert.assertTrue(cache.getEntryCount() < entryCount);
+                try (TableReader reader = new TableReader(configuration, "x", cache)) {
+                    TestUtils.assertEquals(expected, print(reader));
+                }
+                cache.clear();
+                Assert.assertEquals(0, cache.getEntryCount());
+                Assert.assertEquals(0, cache.getSize());
+            }
+        });
+    }
+
+    @Test
+    public void testDropAndRenameColumnOfCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String expected = print("select i, sym, timestamp, c cc from x");
+
+            compiler.compile("alter table x compress partition '2018-01-01', '2018-01-02'", sqlExecutionContext);
+            compiler.compile("alter table x rename column c to cc", sqlExecutionContext);
+            compiler.compile("alter table x drop column n", sqlExecutionContext);
+            try (Path path = new Path()) {
+                Assert.assertFalse(FilesFacadeImpl.INSTANCE.exists(path.of(configuration.getRoot()).concat("x").concat("2018-01-02").concat("n.dz").$()));
+                Assert.assertTrue(FilesFacadeImpl.INSTANCE.exists(path.of(configuration.getRoot()).concat("x").concat("2018-01-02").concat("cc.dz").$()));
+            }
+            engine.releaseAllReaders();
+
+            TestUtils.assertEquals(expected, print("select i, sym, timestamp, cc from x"));
+        });
+    }
+
+    @Test
+    public void testInsertAfterCompression() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compiler.compile("alter table x compress partition '2018-01-01'", sqlExecutionContext);
+            executeInsert("insert into x (i, sym, timestamp, c) values (1001, 'ibm', " + TimestampFormatUtils.parseTimestamp("2018-01-09T23:00:00.000000Z") + ", 'new')");
+            engine.releaseAllReaders();
+
+            TestUtils.assertEquals(
+                    "i\tsym\tc\n" +
+                            "1001\tibm\tnew\n",
+                    print("select i, sym, c from x where timestamp = '2018-01-09T23'")
+            );
+            TestUtils.assertEquals(
+                    "count\n" +
+                            "1001\n",
+                    print("select count() from x")
+            );
+        });
+    }
+
+    @Test
+    public void testJobCompressesOldPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String expected = print("x");
+
+            // partitions more than 10 days older than this moment are compressed
+            final long now = TimestampFormatUtils.parseTimestamp("2018-01-14T00:00:00.000000Z");
+            final CairoConfiguration jobConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public MicrosecondClock getMicrosecondClock() {
+                    return () -> now;
+                }
+
+                @Override
+                public int getPartitionCompressionAgeDays() {
+                    return 10;
+                }
+            };
+
+            engine.releaseAllWriters();
+            try (
+                    CairoEngine jobEngine = new CairoEngine(jobConfiguration);
+                    PartitionCompressionJob job = new PartitionCompressionJob(jobEngine)
+            ) {
+                Assert.assertTrue(job.run(0));
+                Assert.assertFalse(job.run(0));
+            }
+
+            assertFiles("2018-01-03", true);
+            assertFiles("2018-01-04", false);
+
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(0, writer.compressPartitionsOlderThan(now - 10 * Timestamps.DAY_MICROS));
+            }
+            engine.releaseAllReaders();
+            TestUtils.assertEquals(expected, print("x"));
+        });
+    }
+
+    @Test
+    public void testReaderReopensCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                final String expected = print(reader);
+                final int columnIndex = TableReader.getPrimaryColumnIndex(reader.getColumnBase(0), 0);
+                Assert.assertFalse(reader.getColumn(columnIndex) instanceof CompressedColumn);
+
+                compiler.compile("alter table x compress partition '2018-01-01'", sqlExecutionContext);
+                assertFiles("2018-01-01", true);
+                try (Path path = new Path()) {
+                    Assert.assertFalse(FilesFacadeImpl.INSTANCE.exists(path.of(configuration.getRoot()).concat("x").concat("2018-01-01").concat("timestamp.dz.tmp").$()));
+                }
+
+                // open reader keeps original files mapped until it sees new partition table version
+                TestUtils.assertEquals(expected, print(reader));
+                Assert.assertFalse(reader.getColumn(columnIndex) instanceof CompressedColumn);
+
+                Assert.assertTrue(reader.reload());
+                TestUtils.assertEquals(expected, print(reader));
+                Assert.assertTrue(reader.getColumn(columnIndex) instanceof CompressedColumn);
+            }
+        });
+    }
+
+    private static void assertFiles(String partition, boolean compressed) {
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat("x").concat(partition);
+            final int plen = path.length();
+            Assert.assertEquals(compressed, FilesFacadeImpl.INSTANCE.exists(path.trimTo(plen).concat("timestamp.dz").$()));
+            Assert.assertEquals(compressed, FilesFacadeImpl.INSTANCE.exists(path.trimTo(plen).concat("k.dz").$()));
+            Assert.assertEquals(compressed, FilesFacadeImpl.INSTANCE.exists(path.trimTo(plen).concat("i.dz").$()));
+            Assert.assertEquals(compressed, FilesFacadeImpl.INSTANCE.exists(path.trimTo(plen).concat("sym.dz").$()));
+            Assert.assertEquals(compressed, FilesFacadeImpl.INSTANCE.exists(path.trimTo(plen).concat("c.iz").$()));
+            Assert.assertEquals(!compressed, FilesFacadeImpl.INSTANCE.exists(path.trimTo(plen).concat("timestamp.d").$()));
+            Assert.assertEquals(!compressed, FilesFacadeImpl.INSTANCE.exists(path.trimTo(plen).concat("c.i").$()));
+        }
+    }
+
+    private void assertFailure(String sql, int position, String message) throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                createX();
+                compiler.compile(sql, sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(position, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+        });
+    }
+
+    private static void createX() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " cast(x as int) i," +
+                        " rnd_symbol('msft','ibm', 'googl') sym," +
+                        " round(rnd_double(0)*100, 3) amt," +
+                        " to_timestamp('2018-01', 'yyyy-MM') + x * 720000000 timestamp," +
+                        " rnd_boolean() b," +
+                        " rnd_str('ABC', 'CDE', null, 'XYZ') c," +
+                        " rnd_double(2) d," +
+                        " rnd_float(2) e," +
+                        " rnd_short(10,1024) f," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) g," +
+                        " rnd_symbol(4,4,4,2) ik," +
+                        " rnd_long() j," +
+                        " timestamp_sequence(0, 1000000000) k," +
+                        " rnd_byte(2,50) l," +
+                        " rnd_bin(10, 20, 2) m," +
+                        " rnd_str(5,16,2) n" +
+                        " from long_sequence(1000)" +
+                        ") timestamp (timestamp)" +
+                        "partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private static String print(TableReader reader) {
+        sink.clear();
+        printer.print(reader.getCursor(), reader.getMetadata(), true);
+        return sink.toString();
+    }
+
+    private static String print(String sql) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static io.questdb.griffin.CompiledQuery.ALTER;
+
+public class AlterTableSetTtlTest extends AbstractGriffinTest {
+
+    @Test
+    public void testJobRemovesExpiredPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createX(PartitionBy.DAY);
+            compiler.compile("alter table x set ttl 3 days", sqlExecutionContext);
+
+            engine.releaseAllWriters();
+            try (
+                    CairoEngine jobEngine = new CairoEngine(configuration);
+                    PartitionRetentionJob job = new PartitionRetentionJob(jobEngine)
+            ) {
+                Assert.assertTrue(job.run(0));
+                Assert.assertEquals(5, job.getRemovedPartitionCount());
+                Assert.assertEquals(599, job.getRemovedRowCount());
+            }
+
+            engine.releaseAllReaders();
+            TestUtils.assertEquals(
+                    "count\tmin\n" +
+                            "401\t2018-01-06T00:00:00.000000Z\n",
+                    print("select count(), min(timestamp) from x")
+            );
+        });
+    }
+
+    @Test
+    public void testJobSkipsBusyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createX(PartitionBy.DAY);
+            compiler.compile("alter table x set ttl 3 days", sqlExecutionContext);
+
+            // writer is held by another engine, as if table was written to by another process
+            try (
+                    TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+                    CairoEngine jobEngine = new CairoEngine(configuration);
+                    PartitionRetentionJob job = new PartitionRetentionJob(jobEngine)
+            ) {
+                Assert.assertEquals(3 * Timestamps.DAY_MICROS, writer.getTtl());
+                Assert.assertTrue(job.run(0));
+                Assert.assertEquals(0, job.getRemovedPartitionCount());
+            }
+
+            TestUtils.assertEquals(
+                    "count\n" +
+                            "1000\n",
+                    print("select count() from x")
+            );
+        });
+    }
+
+    @Test
+    public void testJobSkipsTableWithoutTtl() throws Exception {
+        assertMemoryLeak(() -> {
+            createX(PartitionBy.DAY);
+            engine.releaseAllWriters();
+            try (PartitionRetentionJob job = new PartitionRetentionJob(engine)) {
+                Assert.assertTrue(job.run(0));
+                Assert.assertEquals(0, job.getRemovedPartitionCount());
+            }
+            TestUtils.assertEquals(
+                    "count\n" +
+                            "1000\n",
+                    print("select count() from x")
+            );
+        });
+    }
+
+    @Test
+    public void testSetTtl() throws Exception {
+        assertMemoryLeak(() -> {
+            createX(PartitionBy.DAY);
+            Assert.assertEquals(ALTER, compiler.compile("alter table x set ttl 12 hours", sqlExecutionContext).getType());
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(12 * Timestamps.HOUR_MICROS, writer.getTtl());
+            }
+
+            compiler.compile("alter table x set ttl 2 WEEK", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(2 * Timestamps.WEEK_MICROS, writer.getTtl());
+            }
+
+            compiler.compile("alter table x set ttl 0 days", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(0, writer.getTtl());
+                Assert.assertEquals(0, writer.removeExpiredPartitions());
+            }
+        });
+    }
+
+    @Test
+    public void testSetTtlBadUnit() throws Exception {
+        assertFailure("alter table x set ttl 3 months", 24, "'hours', 'days' or 'weeks' expected");
+    }
+
+    @Test
+    public void testSetTtlBadValue() throws Exception {
+        assertFailure("alter table x set ttl abc days", 22, "invalid TTL value");
+    }
+
+    @Test
+    public void testSetTtlExpectKeyword() throws Exception {
+        assertFailure("alter table x set column", 18, "'ttl' expected");
+    }
+
+    @Test
+    public void testSetTtlNonPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            createX(PartitionBy.NONE);
+            try {
+                compiler.compile("alter table x set ttl 1 day", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(22, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "TTL requires partitioned table");
+            }
+        });
+    }
+
+    @Test
+    public void testSetTtlUnexpectedToken() throws Exception {
+        assertFailure("alter table x set ttl 1 day please", 28, "unexpected token");
+    }
+
+    @Test
+    public void testTtlSurvivesStructureChange() throws Exception {
+        assertMemoryLeak(() -> {
+            createX(PartitionBy.DAY);
+            compiler.compile("alter table x set ttl 3 days", sqlExecutionContext);
+            compiler.compile("alter table x add column z int", sqlExecutionContext);
+            compiler.compile("alter table x rename column z to zz", sqlExecutionContext);
+            compiler.compile("alter table x alter column sym add index", sqlExecutionContext);
+            compiler.compile("alter table x drop column zz", sqlExecutionContext);
+
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(3 * Timestamps.DAY_MICROS, writer.getTtl());
+                Assert.assertEquals(5, writer.removeExpiredPartitions());
+                // partitions are not removed twice
+                Assert.assertEquals(0, writer.removeExpiredPartitions());
+            }
+
+            engine.releaseAllReaders();
+            TestUtils.assertEquals(
+                    "count\n" +
+                            "401\n",
+                    print("select count() from x where sym = 'msft' or sym != 'msft'")
+            );
+        });
+    }
+
+    private void assertFailure(String sql, int position, String message) throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                createX(PartitionBy.DAY);
+                compiler.compile(sql, sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(position, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+        });
+    }
+
+    private static void createX(int partitionBy) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " cast(x as int) i," +
+                        " rnd_symbol('msft','ibm', 'googl') sym," +
+                        " to_timestamp('2018-01', 'yyyy-MM') + x * 720000000 timestamp" +
+                        " from long_sequence(1000)" +
+                        ") timestamp (timestamp)" +
+                        "partition by " + PartitionBy.toString(partitionBy),
+                sqlExecutionContext
+        );
+    }
+
+    private static String print(String sql) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DedupTest extends AbstractGriffinTest {
+
+    @Test
+    public void testDisable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, v double, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x dedup upsert keys(ts, sym)", sqlExecutionContext);
+            executeInsert("insert into x values ('a', 1.0, 0)");
+            executeInsert("insert into x values ('a', 2.0, 0)");
+            compiler.compile("alter table x dedup disable", sqlExecutionContext);
+            executeInsert("insert into x values ('a', 3.0, 0)");
+            assertSql(
+                    "x",
+                    "sym\tv\tts\n" +
+                            "a\t1.0\t1970-01-01T00:00:00.000000Z\n" +
+                            "a\t3.0\t1970-01-01T00:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDuplicatesOfCommittedRowsAreSkipped() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, i int, v double, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x dedup upsert keys(ts, sym, i)", sqlExecutionContext);
+
+            // 20 distinct keys at the same timestamp, enough to outgrow linear scan
+            final String insert = "insert into x select rnd_symbol('a', 'b', null), cast(x % 20 as int), x, cast(86400000000L as timestamp) from long_sequence(200)";
+            sqlExecutionContext.getRandom().reset();
+            compiler.compile(insert, sqlExecutionContext);
+            final String distinct = "select count() from (select distinct sym, i from x)";
+            Assert.assertEquals(print(distinct), print("select count() from x"));
+
+            // keys of committed rows are loaded back by new writer
+            engine.releaseAllWriters();
+            final String before = print("x");
+            sqlExecutionContext.getRandom().reset();
+            compiler.compile(insert, sqlExecutionContext);
+            TestUtils.assertEquals(before, print("x"));
+
+            // new timestamp starts new set of keys
+            executeInsert("insert into x values ('a', 1, 1001.0, 86400000001)");
+            executeInsert("insert into x values ('a', 1, 1002.0, 86400000001)");
+            executeInsert("insert into x values (null, 1, 1003.0, 86400000001)");
+            assertSql(
+                    "x where v > 1000",
+                    "sym\ti\tv\tts\n" +
+                            "a\t1\t1001.0\t1970-01-02T00:00:00.000001Z\n" +
+                            "\t1\t1003.0\t1970-01-02T00:00:00.000001Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testKeysSurviveStructureChange() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (a int, sym symbol, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            compiler.compile("alter table x dedup upsert keys(ts, sym)", sqlExecutionContext);
+            executeInsert("insert into x values (1, 'a', 0)");
+            compiler.compile("alter table x alter column sym add index", sqlExecutionContext);
+            compiler.compile("alter table x drop column a", sqlExecutionContext);
+            compiler.compile("alter table x add column b string", sqlExecutionContext);
+            executeInsert("insert into x values ('a', 0, 'x')");
+            executeInsert("insert into x values ('b', 0, 'y')");
+            assertSql(
+                    "x",
+                    "sym\tts\tb\n" +
+                            "a\t1970-01-01T00:00:00.000000Z\t\n" +
+                            "b\t1970-01-01T00:00:00.000000Z\ty\n"
+            );
+        });
+    }
+
+    @Test
+    public void testRollback() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (i int, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            compiler.compile("alter table x dedup upsert keys(ts, i)", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                TableWriter.Row row = writer.newRow(0);
+                row.putInt(0, 1);
+                row.append();
+                writer.commit();
+
+                row = writer.newRow(0);
+                row.putInt(0, 2);
+                row.append();
+                writer.rollback();
+
+                // key of rolled back row is forgotten, committed key is not
+                for (int i = 1; i < 3; i++) {
+                    row = writer.newRow(0);
+                    row.putInt(0, i);
+                    row.append();
+                }
+                writer.commit();
+                Assert.assertEquals(2, writer.size());
+            }
+        });
+    }
+
+    @Test
+    public void testKeysWithoutTimestamp() throws Exception {
+        assertFailure(
+                "create table x (sym symbol, ts timestamp) timestamp(ts)",
+                "alter table x dedup upsert keys(sym)",
+                32,
+                "deduplication keys must include designated timestamp"
+        );
+    }
+
+    @Test
+    public void testNoDesignatedTimestamp() throws Exception {
+        assertFailure(
+                "create table x (sym symbol, ts timestamp)",
+                "alter table x dedup upsert keys(sym, ts)",
+                32,
+                "deduplication requires designated timestamp"
+        );
+    }
+
+    @Test
+    public void testUnsupportedKeyType() throws Exception {
+        assertFailure(
+                "create table x (s string, ts timestamp) timestamp(ts)",
+                "alter table x dedup upsert keys(ts, s)",
+                36,
+                "unsupported deduplication key type: STRING"
+        );
+    }
+
+    private static void assertFailure(String ddl, String sql, int position, String message) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(ddl, sqlExecutionContext);
+            try {
+                compiler.compile(sql, sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(position, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+        });
+    }
+
+    private static void assertSql(String sql, String expected) throws SqlException {
+        TestUtils.assertEquals(expected, print(sql));
+    }
+
+    private static String print(String sql) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
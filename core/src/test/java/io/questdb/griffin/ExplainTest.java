@@ -0,0 +1,186 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExplainTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAnalyze() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            // time differs from run to run, it is the last counter on the line
+            final String plan = print("EXPLAIN ANALYZE x where ts = '1970-01-02' and v > 0.5 limit 3");
+            TestUtils.assertContains(plan, "QUERY PLAN\nLimit (actual rows=3, loops=1, time=");
+            TestUtils.assertContains(plan, "  lo: 3\n");
+            TestUtils.assertContains(plan, "  Filter (actual rows=3, loops=1, time=");
+            TestUtils.assertContains(plan, "    filter: v > 0.5\n");
+            // filter reads rows of its base until limit is reached
+            TestUtils.assertContains(plan, "    DataFrame (actual rows=");
+            TestUtils.assertContains(plan, "      Interval forward scan\n");
+        });
+    }
+
+    @Test
+    public void testAnalyzeAggregation() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String plan = print("explain analyze select sym, count() from x sample by 1d");
+            TestUtils.assertContains(plan, "QUERY PLAN\nSample by (actual rows=20, loops=1, time=");
+            TestUtils.assertContains(plan, "  Table scan (actual rows=240, loops=1, time=");
+        });
+    }
+
+    @Test
+    public void testAnalyzeJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String plan = print("explain analyze select count() from x a join x b on (sym)");
+            TestUtils.assertContains(plan, "Hash join light (actual rows=");
+            TestUtils.assertContains(plan, "master: Table scan (actual rows=240, loops=1, time=");
+            TestUtils.assertContains(plan, "slave: Table scan (actual rows=240, loops=1, time=");
+        });
+    }
+
+    @Test
+    public void testIndexScan() throws Exception {
+        assertPlan(
+                "explain x where sym = 'a'",
+                "QUERY PLAN\n" +
+                        "DataFrame\n" +
+                        "  Index forward scan\n" +
+                        "    column: sym\n" +
+                        "    symbol: 'a'\n" +
+                        "  Frame forward scan\n" +
+                        "    table: x\n"
+        );
+    }
+
+    @Test
+    public void testIntervalScan() throws Exception {
+        assertPlan(
+                "explain x where ts = '1970-01-02' and v > 0.5",
+                "QUERY PLAN\n" +
+                        "Filter\n" +
+                        "  filter: v > 0.5\n" +
+                        "  DataFrame\n" +
+                        "    Row forward scan\n" +
+                        "    Interval forward scan\n" +
+                        "      table: x\n" +
+                        "      intervals: [[1970-01-02T00:00:00.000000Z,1970-01-02T23:59:59.999999Z]]\n"
+        );
+    }
+
+    @Test
+    public void testJoin() throws Exception {
+        assertPlan(
+                "explain select * from x a join x b on (sym) order by a.v limit 5",
+                "QUERY PLAN\n" +
+                        "Limit\n" +
+                        "  lo: 5\n" +
+                        "  Sort\n" +
+                        "    Select\n" +
+                        "      Hash join light\n" +
+                        "        master: Table scan\n" +
+                        "          table: x\n" +
+                        "        slave: Table scan\n" +
+                        "          table: x\n"
+        );
+    }
+
+    @Test
+    public void testNotQuery() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try {
+                compiler.compile("explain create table y as (x)", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(8, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "select query expected");
+            }
+            try {
+                compiler.compile("explain", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "query expected");
+            }
+        });
+    }
+
+    @Test
+    public void testParallelAggregation() throws Exception {
+        assertPlan(
+                "explain select sum(v) from x",
+                "QUERY PLAN\n" +
+                        "Vector group by not keyed\n" +
+                        "  parallel: page frames, workers=1\n" +
+                        "  functions: 1\n" +
+                        "  Table scan\n" +
+                        "    table: x\n"
+        );
+    }
+
+    @Test
+    public void testRuntimeIntervals() throws Exception {
+        assertPlan(
+                "explain x where ts > systimestamp() - 1",
+                "QUERY PLAN\n" +
+                        "DataFrame\n" +
+                        "  Row forward scan\n" +
+                        "  Interval forward scan\n" +
+                        "    table: x\n" +
+                        "    intervals: [[unbounded,unbounded]] narrowed by 1 runtime bound(s)\n"
+        );
+    }
+
+    private static void assertPlan(String sql, String expected) throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            TestUtils.assertEquals(expected, print(sql));
+        });
+    }
+
+    private static void createTable() throws SqlException {
+        compiler.compile("create table x (sym symbol index, v double, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+        compiler.compile("insert into x select rnd_symbol('a','b'), rnd_double(), timestamp_sequence(0, 3600000000) from long_sequence(240)", sqlExecutionContext);
+    }
+
+    private static String print(String sql) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
@@ -24,7 +24,11 @@
 
 package io.questdb.griffin;
 
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
 import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.std.Chars;
@@ -2517,6 +2521,62 @@ public class JoinTest extends AbstractGriffinTest {
         testFullFat(this::testJoinInnerOnSymbol);
     }
 
+    @Test
+    public void testJoinInnerOnTimestamp() throws Exception {
+        assertMemoryLeak(() -> {
+            final String expected = "i\tj\tts\n" +
+                    "1\t3\t2018-03-01T00:00:01.000000Z\n" +
+                    "1\t4\t2018-03-01T00:00:01.000000Z\n" +
+                    "1\t5\t2018-03-01T00:00:01.000000Z\n" +
+                    "2\t3\t2018-03-01T00:00:01.000000Z\n" +
+                    "2\t4\t2018-03-01T00:00:01.000000Z\n" +
+                    "2\t5\t2018-03-01T00:00:01.000000Z\n" +
+                    "3\t6\t2018-03-01T00:00:02.000000Z\n" +
+                    "3\t7\t2018-03-01T00:00:02.000000Z\n" +
+                    "3\t8\t2018-03-01T00:00:02.000000Z\n" +
+                    "4\t6\t2018-03-01T00:00:02.000000Z\n" +
+                    "4\t7\t2018-03-01T00:00:02.000000Z\n" +
+                    "4\t8\t2018-03-01T00:00:02.000000Z\n" +
+                    "5\t9\t2018-03-01T00:00:03.000000Z\n" +
+                    "5\t10\t2018-03-01T00:00:03.000000Z\n" +
+                    "6\t9\t2018-03-01T00:00:03.000000Z\n" +
+                    "6\t10\t2018-03-01T00:00:03.000000Z\n";
+
+            compiler.compile("create table x as (select cast(x as int) i, rnd_symbol('a','b') sym, to_timestamp('2018-03-01', 'yyyy-MM-dd') + ((x + 1) / 2) * 1000000 ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            compiler.compile("create table y as (select cast(x as int) j, rnd_symbol('a','b') sym, to_timestamp('2018-03-01', 'yyyy-MM-dd') + (x / 3) * 1000000 ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+
+            assertQuery(expected, "select x.i, y.j, x.ts from x join y on x.ts = y.ts", "ts");
+        });
+    }
+
+    @Test
+    public void testJoinInnerOnTimestampAndSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            final String expected = "i\tj\tsym\tts\n" +
+                    "1\t3\ta\t2018-03-01T00:00:01.000000Z\n" +
+                    "2\t3\ta\t2018-03-01T00:00:01.000000Z\n" +
+                    "3\t8\tb\t2018-03-01T00:00:02.000000Z\n" +
+                    "4\t8\tb\t2018-03-01T00:00:02.000000Z\n" +
+                    "5\t9\tb\t2018-03-01T00:00:03.000000Z\n" +
+                    "6\t9\tb\t2018-03-01T00:00:03.000000Z\n";
+
+            compiler.compile("create table x as (select cast(x as int) i, rnd_symbol('a','b') sym, to_timestamp('2018-03-01', 'yyyy-MM-dd') + ((x + 1) / 2) * 1000000 ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            compiler.compile("create table y as (select cast(x as int) j, rnd_symbol('a','b') sym, to_timestamp('2018-03-01', 'yyyy-MM-dd') + (x / 3) * 1000000 ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+
+            assertQuery(expected, "select x.i, y.j, x.sym, x.ts from x join y on x.ts = y.ts and x.sym = y.sym", "ts");
+        });
+    }
+
+    @Test
+    public void testJoinInnerOnTimestampAndSymbolFF() throws Exception {
+        testFullFat(this::testJoinInnerOnTimestampAndSymbol);
+    }
+
+    @Test
+    public void testJoinInnerOnTimestampFF() throws Exception {
+        testFullFat(this::testJoinInnerOnTimestamp);
+    }
+
     @Test
     public void testJoinInnerPostJoinFilter() throws Exception {
         assertMemoryLeak(() -> {
@@ -2865,6 +2925,59 @@ public class JoinTest extends AbstractGriffinTest {
         testFullFat(this::testJoinOuterNoSlaveRecords);
     }
 
+    @Test
+    public void testJoinOuterOnTimestamp() throws Exception {
+        assertMemoryLeak(() -> {
+            final String expected = "i\tj\tts\n" +
+                    "1\t3\t2018-03-01T00:00:01.000000Z\n" +
+                    "1\t4\t2018-03-01T00:00:01.000000Z\n" +
+                    "1\t5\t2018-03-01T00:00:01.000000Z\n" +
+                    "2\t3\t2018-03-01T00:00:01.000000Z\n" +
+                    "2\t4\t2018-03-01T00:00:01.000000Z\n" +
+                    "2\t5\t2018-03-01T00:00:01.000000Z\n" +
+                    "3\t6\t2018-03-01T00:00:02.000000Z\n" +
+                    "3\t7\t2018-03-01T00:00:02.000000Z\n" +
+                    "3\t8\t2018-03-01T00:00:02.000000Z\n" +
+                    "4\t6\t2018-03-01T00:00:02.000000Z\n" +
+                    "4\t7\t2018-03-01T00:00:02.000000Z\n" +
+                    "4\t8\t2018-03-01T00:00:02.000000Z\n" +
+                    "5\t9\t2018-03-01T00:00:03.000000Z\n" +
+                    "5\t10\t2018-03-01T00:00:03.000000Z\n" +
+                    "6\t9\t2018-03-01T00:00:03.000000Z\n" +
+                    "6\t10\t2018-03-01T00:00:03.000000Z\n" +
+                    "7\tNaN\t2018-03-01T00:00:04.000000Z\n" +
+                    "8\tNaN\t2018-03-01T00:00:04.000000Z\n" +
+                    "9\tNaN\t2018-03-01T00:00:05.000000Z\n" +
+                    "10\tNaN\t2018-03-01T00:00:05.000000Z\n";
+
+            compiler.compile("create table x as (select cast(x as int) i, rnd_symbol('a','b') sym, to_timestamp('2018-03-01', 'yyyy-MM-dd') + ((x + 1) / 2) * 1000000 ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            compiler.compile("create table y as (select cast(x as int) j, rnd_symbol('a','b') sym, to_timestamp('2018-03-01', 'yyyy-MM-dd') + (x / 3) * 1000000 ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+
+            assertQuery(expected, "select x.i, y.j, x.ts from x outer join y on x.ts = y.ts", "ts");
+        });
+    }
+
+    @Test
+    public void testJoinOuterOnTimestampFF() throws Exception {
+        testFullFat(this::testJoinOuterOnTimestamp);
+    }
+
+    @Test
+    public void testJoinOuterOnTimestampMaxValue() throws Exception {
+        assertMemoryLeak(() -> {
+            // master row at Long.MAX_VALUE must not match slave that ran out of rows
+            final String expected = "i\tj\tts\n" +
+                    "1\t1\t1970-01-01T00:00:01.000000Z\n" +
+                    "2\tNaN\t1970-01-01T00:00:02.000000Z\n" +
+                    "3\tNaN\t294247-01-10T04:00:54.775807Z\n";
+
+            compiler.compile("create table x as (select cast(x as int) i, case when x = 3 then cast(9223372036854775807L as timestamp) else cast(x * 1000000 as timestamp) end ts from long_sequence(3)) timestamp(ts)", sqlExecutionContext);
+            compiler.compile("create table y as (select cast(x as int) j, cast((2 * x - 1) * 1000000 as timestamp) ts from long_sequence(2)) timestamp(ts)", sqlExecutionContext);
+
+            assertQuery(expected, "select x.i, y.j, x.ts from x outer join y on x.ts = y.ts", "ts");
+        });
+    }
+
     @Test
     public void testJoinOuterTimestamp() throws Exception {
         assertMemoryLeak(() -> {
@@ -2994,6 +3107,63 @@ public class JoinTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testJoinReorderedByRowCount() throws Exception {
+        // "fact" is the largest table, it becomes master and rows come out in its order
+        assertJoinReorderedByRowCount(
+                "v\tw\n" +
+                        "1\t20\n" +
+                        "2\t30\n" +
+                        "3\t10\n" +
+                        "4\t20\n" +
+                        "5\t30\n" +
+                        "6\t10\n",
+                "select f.v, r.w from ref r join fact f on r.k = f.k",
+                "create table ref as (select cast(4 - x as int) k, cast(40 - x * 10 as int) w from long_sequence(3))"
+        );
+    }
+
+    @Test
+    public void testJoinReorderedByRowCountFirstTableTimestamp() throws Exception {
+        // timestamp of join result comes from "ref", join order must not change
+        assertJoinReorderedByRowCount(
+                "v\tw\n" +
+                        "2\t30\n" +
+                        "5\t30\n" +
+                        "1\t20\n" +
+                        "4\t20\n" +
+                        "3\t10\n" +
+                        "6\t10\n",
+                "select f.v, r.w from ref r join fact f on r.k = f.k",
+                "create table ref as (select cast(4 - x as int) k, cast(40 - x * 10 as int) w, cast(x as timestamp) ts from long_sequence(3)) timestamp(ts)"
+        );
+    }
+
+    @Test
+    public void testJoinReorderedByRowCountPostJoinFilter() throws Exception {
+        // filter on "ref" and "tag" is evaluated after "ref", which is joined last
+        assertJoinReorderedByRowCount(
+                "v\tw\tt\n" +
+                        "1\t20\t200\n" +
+                        "4\t20\t200\n",
+                "select f.v, r.w, t.t from ref r join tag t on t.k = r.k join fact f on f.k = t.k where r.w + t.t > 150",
+                "create table ref as (select cast(4 - x as int) k, cast(40 - x * 10 as int) w from long_sequence(3))"
+        );
+    }
+
+    @Test
+    public void testJoinReorderedByRowCountThreeTables() throws Exception {
+        assertJoinReorderedByRowCount(
+                "v\tw\tt\n" +
+                        "1\t20\t200\n" +
+                        "3\t10\t100\n" +
+                        "4\t20\t200\n" +
+                        "6\t10\t100\n",
+                "select f.v, r.w, t.t from ref r join tag t on t.k = r.k join fact f on f.k = t.k",
+                "create table ref as (select cast(4 - x as int) k, cast(40 - x * 10 as int) w from long_sequence(3))"
+        );
+    }
+
     @Test
     public void testSpliceJoinAllTypes() throws Exception {
         assertMemoryLeak(() -> {
@@ -3471,6 +3641,28 @@ public class JoinTest extends AbstractGriffinTest {
         testFullFat(this::testTypeMismatch);
     }
 
+    private void assertJoinReorderedByRowCount(String expected, String query, String refDdl) throws Exception {
+        assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public long getSqlJoinReorderRowThreshold() {
+                    return 5;
+                }
+            };
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    SqlCompiler compiler = new SqlCompiler(engine)
+            ) {
+                compiler.compile(refDdl, sqlExecutionContext);
+                compiler.compile("create table tag as (select cast(x as int) k, cast(x * 100 as int) t from long_sequence(2))", sqlExecutionContext);
+                compiler.compile("create table fact as (select cast(x % 3 + 1 as int) k, x v from long_sequence(6))", sqlExecutionContext);
+                try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                    assertCursor(expected, factory, false, true);
+                }
+            }
+        });
+    }
+
     private void testFullFat(TestMethod method) throws Exception {
         compiler.setFullSatJoins(true);
         try {
@@ -0,0 +1,338 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static io.questdb.griffin.CompiledQuery.CREATE_TABLE;
+import static io.questdb.griffin.CompiledQuery.REFRESH_MATERIALIZED_VIEW;
+
+public class MaterializedViewTest extends AbstractGriffinTest {
+
+    @Test
+    public void testCreate() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase(0, 50);
+            Assert.assertEquals(
+                    CREATE_TABLE,
+                    compiler.compile(
+                            "create materialized view v as (select ts, sum(i) s, count() c from base sample by 1d) partition by DAY",
+                            sqlExecutionContext
+                    ).getType()
+            );
+
+            // last bucket is still open and is not materialized
+            TestUtils.assertEquals(
+                    "ts\ts\tc\n" +
+                            "2018-01-01T00:00:00.000000Z\t276\t23\n" +
+                            "2018-01-02T00:00:00.000000Z\t852\t24\n",
+                    print("v")
+            );
+            TestUtils.assertEquals(
+                    "ts\ts\tc\n" +
+                            "2018-01-01T00:00:00.000000Z\t276\t23\n" +
+                            "2018-01-02T00:00:00.000000Z\t852\t24\n" +
+                            "2018-01-03T00:00:00.000000Z\t147\t3\n",
+                    print("select ts, sum(i) s, count() c from base sample by 1d")
+            );
+        });
+    }
+
+    @Test
+    public void testCreateAndRefreshEmptyBase() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase(0, 0);
+            compiler.compile("create materialized view v as (select ts, sum(i) s from base sample by 1h)", sqlExecutionContext);
+            TestUtils.assertEquals("ts\ts\n", print("v"));
+
+            insertBase(0, 3);
+            Assert.assertEquals(REFRESH_MATERIALIZED_VIEW, compiler.compile("refresh materialized view v", sqlExecutionContext).getType());
+            TestUtils.assertEquals(
+                    "ts\ts\n" +
+                            "2018-01-01T01:00:00.000000Z\t1\n" +
+                            "2018-01-01T02:00:00.000000Z\t2\n",
+                    print("v")
+            );
+        });
+    }
+
+    @Test
+    public void testFailureFill() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sum(i) s from base sample by 1d fill(prev))",
+                79,
+                "FILL is not supported by materialized view"
+        );
+    }
+
+    @Test
+    public void testFailureJoin() throws Exception {
+        assertFailure(
+                "create materialized view v as (select base.ts, sum(b.i) s from base join base b on i sample by 1d)",
+                31,
+                "materialized view must select from single table"
+        );
+    }
+
+    @Test
+    public void testFailureMaterializedKeyword() throws Exception {
+        assertFailure(
+                "create materialized v as (select ts, sum(i) s from base sample by 1d)",
+                20,
+                "'view' expected"
+        );
+    }
+
+    @Test
+    public void testFailureNoSampleBy() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, i from base)",
+                31,
+                "materialized view query must use SAMPLE BY"
+        );
+    }
+
+    @Test
+    public void testFailureNoTimestamp() throws Exception {
+        assertFailure(
+                "create materialized view v as (select sum(i) s from base sample by 1d)",
+                25,
+                "materialized view query must select timestamp column"
+        );
+    }
+
+    @Test
+    public void testFailureOrderBy() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sum(i) s from base sample by 1d order by s)",
+                31,
+                "LATEST BY, ORDER BY and LIMIT are not supported by materialized view"
+        );
+    }
+
+    @Test
+    public void testFailureRefreshTable() throws Exception {
+        assertFailure(
+                "refresh materialized view base",
+                26,
+                "materialized view expected"
+        );
+    }
+
+    @Test
+    public void testFailureRefreshTrailingToken() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase(0, 10);
+            compiler.compile("create materialized view v as (select ts, sum(i) s from base sample by 1d)", sqlExecutionContext);
+            try {
+                compiler.compile("refresh materialized view v now", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(28, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "unexpected token: now");
+            }
+        });
+    }
+
+    @Test
+    public void testFailureTableKeyword() throws Exception {
+        assertFailure(
+                "create view v as (select ts, sum(i) s from base sample by 1d)",
+                7,
+                "'table' or 'materialized view' expected"
+        );
+    }
+
+    @Test
+    public void testJobRefreshesView() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase(0, 50);
+            compiler.compile("create materialized view v as (select ts, sum(i) s, count() c from base sample by 1d)", sqlExecutionContext);
+            insertBase(50, 50);
+
+            engine.releaseAllWriters();
+            try (MaterializedViewRefreshJob job = new MaterializedViewRefreshJob(engine, null)) {
+                Assert.assertTrue(job.run(0));
+                Assert.assertEquals(2, job.getRowCount());
+            }
+
+            engine.releaseAllReaders();
+            TestUtils.assertEquals(
+                    "ts\ts\tc\n" +
+                            "2018-01-01T00:00:00.000000Z\t276\t23\n" +
+                            "2018-01-02T00:00:00.000000Z\t852\t24\n" +
+                            "2018-01-03T00:00:00.000000Z\t1428\t24\n" +
+                            "2018-01-04T00:00:00.000000Z\t2004\t24\n",
+                    print("v")
+            );
+        });
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase(0, 50);
+            compiler.compile("create materialized view v as (select ts, sum(i) s, count() c from base sample by 1d) partition by DAY", sqlExecutionContext);
+
+            // rows of open bucket complete it and open a new one
+            insertBase(50, 50);
+            Assert.assertEquals(2, compiler.refreshMaterializedView("v", sqlExecutionContext));
+            TestUtils.assertEquals(
+                    "ts\ts\tc\n" +
+                            "2018-01-01T00:00:00.000000Z\t276\t23\n" +
+                            "2018-01-02T00:00:00.000000Z\t852\t24\n" +
+                            "2018-01-03T00:00:00.000000Z\t1428\t24\n" +
+                            "2018-01-04T00:00:00.000000Z\t2004\t24\n",
+                    print("v")
+            );
+
+            // base table did not change
+            Assert.assertEquals(0, compiler.refreshMaterializedView("v", sqlExecutionContext));
+
+            // rows land in open bucket, which stays open
+            insertBase(100, 10);
+            Assert.assertEquals(0, compiler.refreshMaterializedView("v", sqlExecutionContext));
+            TestUtils.assertEquals(
+                    "count\n" +
+                            "4\n",
+                    print("select count() from v")
+            );
+        });
+    }
+
+    @Test
+    public void testRefreshAfterLostDefinitionUpdate() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase(0, 50);
+            compiler.compile("create materialized view v as (select ts, sum(i) s, count() c from base sample by 1d) partition by DAY", sqlExecutionContext);
+            insertBase(50, 50);
+
+            final FilesFacade ff = configuration.getFilesFacade();
+            try (
+                    Path path = new Path().of(root).concat("v").concat(TableUtils.MAT_VIEW_FILE_NAME).$();
+                    Path copy = new Path().of(root).concat("v").concat("_mv.bak").$()
+            ) {
+                Assert.assertEquals(0, ff.copy(path, copy));
+                Assert.assertEquals(2, compiler.refreshMaterializedView("v", sqlExecutionContext));
+
+                // instance stopped after view rows were committed but before view definition was updated
+                Assert.assertTrue(ff.remove(path));
+                Assert.assertTrue(ff.rename(copy, path));
+            }
+
+            Assert.assertEquals(0, compiler.refreshMaterializedView("v", sqlExecutionContext));
+            TestUtils.assertEquals(
+                    "ts\ts\tc\n" +
+                            "2018-01-01T00:00:00.000000Z\t276\t23\n" +
+                            "2018-01-02T00:00:00.000000Z\t852\t24\n" +
+                            "2018-01-03T00:00:00.000000Z\t1428\t24\n" +
+                            "2018-01-04T00:00:00.000000Z\t2004\t24\n",
+                    print("v")
+            );
+        });
+    }
+
+    @Test
+    public void testRefreshNonView() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase(0, 10);
+            try {
+                compiler.refreshMaterializedView("base", sqlExecutionContext);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "not a materialized view");
+            }
+        });
+    }
+
+    @Test
+    public void testViewIsQueryable() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase(0, 100);
+            compiler.compile("create materialized view v as (select ts, sym, sum(i) s from base sample by 1d)", sqlExecutionContext);
+            final String expected = print("select ts, sym, sum(i) s from base where ts < '2018-01-05T00:00:00.000000Z' sample by 1d");
+            TestUtils.assertEquals(expected, print("v"));
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "v")) {
+                Assert.assertEquals(0, reader.getMetadata().getTimestampIndex());
+            }
+        });
+    }
+
+    private static void assertFailure(String sql, int position, String message) throws Exception {
+        assertMemoryLeak(() -> {
+            createBase(0, 10);
+            try {
+                compiler.compile(sql, sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(position, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+        });
+    }
+
+    private static void createBase(long lo, long count) throws SqlException {
+        compiler.compile(
+                "create table base as (" +
+                        "select" +
+                        " cast(x + " + lo + " as int) i," +
+                        " rnd_symbol('msft','ibm', 'googl') sym," +
+                        " to_timestamp('2018-01-01', 'yyyy-MM-dd') + (x + " + lo + ") * 3600000000 ts" +
+                        " from long_sequence(" + count + ")" +
+                        ") timestamp (ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private static void insertBase(long lo, long count) throws SqlException {
+        compiler.compile(
+                "insert into base " +
+                        "select" +
+                        " cast(x + " + lo + " as int) i," +
+                        " rnd_symbol('msft','ibm', 'googl') sym," +
+                        " to_timestamp('2018-01-01', 'yyyy-MM-dd') + (x + " + lo + ") * 3600000000 ts" +
+                        " from long_sequence(" + count + ")",
+                sqlExecutionContext
+        );
+    }
+
+    private static String print(String sql) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
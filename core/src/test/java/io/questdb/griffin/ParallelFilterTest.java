@@ -0,0 +1,284 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.async.PageFrameReduceJob;
+import io.questdb.griffin.engine.table.AsyncFilteredRecordCursorFactory;
+import io.questdb.mp.NumaTopology;
+import io.questdb.mp.Sequence;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
+import io.questdb.test.tools.TestUtils;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class ParallelFilterTest extends AbstractGriffinTest {
+    private static final int WORKER_COUNT = 4;
+    // 60 rows per day over 84 partitions, more partitions than there are entries in reorder buffer
+    private static final String DDL = "create table x as (" +
+            "select rnd_symbol('a','b','c',null) sym, rnd_double(2) price, rnd_int(0, 100, 2) i, timestamp_sequence(0, 1440000000L) ts" +
+            " from long_sequence(5000)" +
+            ") timestamp(ts) partition by DAY";
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertParallel(
+                () -> {
+                    compiler.compile(DDL, sqlExecutionContext);
+                    compiler.compile("alter table x add column j long", sqlExecutionContext);
+                    compiler.compile("insert into x select rnd_symbol('a','b'), rnd_double(), rnd_int(), timestamp_sequence(7200000000000L, 1440000000L), rnd_long(0, 10, 2) from long_sequence(1000)", sqlExecutionContext);
+                },
+                "x where j > 5 or i < 3"
+        );
+    }
+
+    @Test
+    public void testErrorOnWorker() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            final SqlExecutionContext parallelContext = newParallelContext();
+            final WorkerPool pool = startWorkers();
+            try {
+                try (RecordCursorFactory factory = compiler.compile("x where npe()", parallelContext).getRecordCursorFactory()) {
+                    Assert.assertTrue(factory instanceof AsyncFilteredRecordCursorFactory);
+                    try (RecordCursor cursor = factory.getCursor(parallelContext)) {
+                        cursor.hasNext();
+                        Assert.fail();
+                    } catch (NullPointerException ignore) {
+                    }
+                }
+                // workers are not affected by the error
+                assertSame("x where price > 0.5", parallelContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @Test
+    public void testExplain() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            final SqlExecutionContext parallelContext = newParallelContext();
+            try (RecordCursorFactory factory = compiler.compile("explain x where ts > '1970-01-02' and price > 0.5", parallelContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(parallelContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true);
+                }
+            }
+            TestUtils.assertEquals(
+                    "QUERY PLAN\n" +
+                            "Async filter\n" +
+                            "  parallel: page frames, workers=4\n" +
+                            "  filter: price > 0.5\n" +
+                            "  DataFrame\n" +
+                            "    Row forward scan\n" +
+                            "    Interval forward scan\n" +
+                            "      table: x\n" +
+                            "      intervals: [[1970-01-02T23:59:59.999999Z,unbounded]]\n",
+                    sink
+            );
+        });
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        assertParallel(
+                () -> compiler.compile(DDL, sqlExecutionContext),
+                "x where price > 0.5 and concat(sym, '_') ~= '^[ac]_' and i != null"
+        );
+    }
+
+    @Test
+    public void testIntervalAndOrderBy() throws Exception {
+        // order by reads rows back by row id
+        assertParallel(
+                () -> compiler.compile(DDL, sqlExecutionContext),
+                "select sym, price, ts from x where ts >= '1970-01-10T10' and ts < '1970-02-20T05' and sym = 'b' order by price, ts"
+        );
+    }
+
+    @Test
+    public void testNumaAwareWorkers() throws Exception {
+        // two nodes that share the only CPU test is guaranteed to have
+        final File root = temp.newFolder("numa");
+        writeCpuList(root, 0, "0\n");
+        writeCpuList(root, 1, "0\n");
+        final NumaTopology topology = NumaTopology.read(configuration.getFilesFacade(), root.getAbsolutePath());
+        Assert.assertEquals(2, topology.getNodeCount());
+
+        assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            final WorkerPool pool = startWorkers(topology);
+            try {
+                Assert.assertEquals(2, pool.getNodeCount());
+                Assert.assertEquals(0, pool.getWorkerNode(0));
+                Assert.assertEquals(0, pool.getWorkerNode(1));
+                Assert.assertEquals(1, pool.getWorkerNode(2));
+                Assert.assertEquals(1, pool.getWorkerNode(3));
+                assertSame("x where price > 0.5 and sym != 'c'", newParallelContext());
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @Test
+    public void testReopenCursorWithoutClose() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            final String expected = print("x where i > 50", sqlExecutionContext);
+            final WorkerPool pool = startWorkers();
+            try {
+                final SqlExecutionContext parallelContext = newParallelContext();
+                try (RecordCursorFactory factory = compiler.compile("x where i > 50", parallelContext).getRecordCursorFactory()) {
+                    Assert.assertTrue(factory instanceof AsyncFilteredRecordCursorFactory);
+                    // previous cursor is abandoned half way, re-opening must release its reader
+                    RecordCursor cursor = factory.getCursor(parallelContext);
+                    Assert.assertTrue(cursor.hasNext());
+                    try (RecordCursor cursor2 = factory.getCursor(parallelContext)) {
+                        sink.clear();
+                        printer.print(cursor2, factory.getMetadata(), true);
+                        TestUtils.assertEquals(expected, sink);
+                    }
+                }
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @Test
+    public void testQueryThreadReducesFramesWithoutWorkers() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            try {
+                assertSame("x where i > 50", newParallelContext());
+            } finally {
+                // discard tasks nobody picked up
+                final Sequence subSeq = messageBus.getPageFrameReduceSubSequence();
+                long cursor;
+                while ((cursor = subSeq.next()) != -1) {
+                    if (cursor > -1) {
+                        subSeq.done(cursor);
+                    }
+                }
+            }
+        });
+    }
+
+    private static void assertParallel(TestUtils.LeakProneCode ddl, String sql) throws Exception {
+        assertMemoryLeak(() -> {
+            ddl.run();
+            final WorkerPool pool = startWorkers();
+            try {
+                assertSame(sql, newParallelContext());
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    private static void assertSame(String sql, SqlExecutionContext parallelContext) throws SqlException {
+        final String expected = print(sql, sqlExecutionContext);
+        Assert.assertTrue(expected.length() > 1000);
+        try (RecordCursorFactory factory = compiler.compile(sql, parallelContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(parallelContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                TestUtils.assertEquals(expected, sink);
+
+                cursor.toTop();
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                TestUtils.assertEquals(expected, sink);
+            }
+        }
+    }
+
+    private static SqlExecutionContext newParallelContext() {
+        return new SqlExecutionContextImpl(messageBus, WORKER_COUNT, engine)
+                .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+    }
+
+    private static String print(String sql, SqlExecutionContext executionContext) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, executionContext).getRecordCursorFactory()) {
+            Assert.assertFalse(factory instanceof AsyncFilteredRecordCursorFactory);
+            try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+
+    private static WorkerPool startWorkers() {
+        return startWorkers(null);
+    }
+
+    private static WorkerPool startWorkers(@Nullable NumaTopology topology) {
+        final WorkerPool pool = new WorkerPool(new WorkerPoolConfiguration() {
+            @Override
+            public int[] getWorkerAffinity() {
+                return new int[]{-1, -1, -1, -1};
+            }
+
+            @Override
+            public int getWorkerCount() {
+                return WORKER_COUNT;
+            }
+
+            @Override
+            public boolean haltOnError() {
+                return false;
+            }
+
+            @Override
+            public boolean isNumaAware() {
+                return topology != null;
+            }
+        }, topology);
+        pool.assign(new PageFrameReduceJob(messageBus, pool));
+        pool.start(null);
+        return pool;
+    }
+
+    private static void writeCpuList(File root, int node, String cpuList) throws IOException {
+        final File dir = new File(root, "node" + node);
+        Assert.assertTrue(dir.mkdir());
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "cpulist"))) {
+            out.write(cpuList.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
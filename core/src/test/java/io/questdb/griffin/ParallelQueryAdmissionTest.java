@@ -0,0 +1,118 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.MessageBusImpl;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.ParallelQueryAdmission;
+import io.questdb.griffin.engine.functions.bind.BindVariableService;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelQueryAdmissionTest extends AbstractGriffinTest {
+
+    @Test
+    public void testLimit() {
+        final ParallelQueryAdmission admission = new ParallelQueryAdmission(2);
+        Assert.assertTrue(admission.tryAcquire());
+        Assert.assertTrue(admission.tryAcquire());
+        Assert.assertFalse(admission.tryAcquire());
+        Assert.assertEquals(2, admission.getActiveCount());
+        Assert.assertEquals(1, admission.getThrottledCount());
+        admission.release();
+        Assert.assertTrue(admission.tryAcquire());
+        admission.release();
+        admission.release();
+        Assert.assertEquals(0, admission.getActiveCount());
+    }
+
+    @Test
+    public void testNoLimit() {
+        final ParallelQueryAdmission admission = new ParallelQueryAdmission(0);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(admission.tryAcquire());
+        }
+        Assert.assertEquals(100, admission.getActiveCount());
+        Assert.assertEquals(0, admission.getThrottledCount());
+    }
+
+    @Test
+    public void testThrottledQueryRunsOnOwnThread() throws Exception {
+        assertMemoryLeak(() -> {
+            final String root = temp.newFolder("parallel_admission").getAbsolutePath();
+            final CairoConfiguration limitedConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getSqlParallelQueryLimit() {
+                    return 1;
+                }
+            };
+            try (
+                    CairoEngine limitedEngine = new CairoEngine(limitedConfiguration);
+                    SqlCompiler limitedCompiler = new SqlCompiler(limitedEngine)
+            ) {
+                final SqlExecutionContext context = new SqlExecutionContextImpl(new MessageBusImpl(), 1, limitedEngine)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, new BindVariableService(), null, -1, null);
+                limitedCompiler.compile(
+                        "create table x as (select rnd_symbol('a', 'b', 'c') s, rnd_int(0, 1000, 0) i, timestamp_sequence(0, 1000000000) ts from long_sequence(1000)) timestamp(ts) partition by DAY",
+                        context
+                );
+                final String keyed = "select s, sum(i) from x order by s";
+                final String notKeyed = "select sum(i), count() from x";
+                final String expectedKeyed = print(limitedCompiler, context, keyed);
+                final String expectedNotKeyed = print(limitedCompiler, context, notKeyed);
+
+                final ParallelQueryAdmission admission = limitedEngine.getParallelQueryAdmission();
+                Assert.assertEquals(0, admission.getThrottledCount());
+                // another heavy query holds the only admission
+                Assert.assertTrue(admission.tryAcquire());
+                try {
+                    TestUtils.assertEquals(expectedKeyed, print(limitedCompiler, context, keyed));
+                    TestUtils.assertEquals(expectedNotKeyed, print(limitedCompiler, context, notKeyed));
+                } finally {
+                    admission.release();
+                }
+                Assert.assertEquals(2, admission.getThrottledCount());
+                Assert.assertEquals(0, admission.getActiveCount());
+            }
+        });
+    }
+
+    private static String print(SqlCompiler compiler, SqlExecutionContext executionContext, String sql) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, executionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,468 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cutlass.parquet.*;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.LongList;
+import io.questdb.std.Numbers;
+import io.questdb.std.Rows;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class ParquetTest extends AbstractGriffinTest {
+    private static CharSequence inputRoot;
+
+    @BeforeClass
+    public static void setUp3() throws IOException {
+        inputRoot = temp.newFolder("parquet").getAbsolutePath();
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public CharSequence getInputRoot() {
+                return inputRoot;
+            }
+        };
+        engine.close();
+        compiler.close();
+        engine = new CairoEngine(configuration, messageBus);
+        compiler = new SqlCompiler(engine);
+        sqlExecutionContext = new SqlExecutionContextImpl(messageBus, 1, engine)
+                .with(
+                        AllowAllCairoSecurityContext.INSTANCE,
+                        bindVariableService,
+                        null,
+                        -1,
+                        null
+                );
+    }
+
+    @Test
+    public void testExportAllTypes() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (" +
+                    "select" +
+                    " rnd_boolean() a," +
+                    " rnd_byte(2, 50) b," +
+                    " rnd_short(10, 1024) c," +
+                    " rnd_char() d," +
+                    " rnd_int(0, 30, 2) e," +
+                    " rnd_long(0, 100, 2) f," +
+                    " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) g," +
+                    " rnd_float(2) h," +
+                    " rnd_double(2) i," +
+                    " rnd_str(3, 8, 2) j," +
+                    " rnd_symbol(4, 4, 6, 2) k," +
+                    " rnd_bin(2, 10, 2) l," +
+                    " rnd_long256() m," +
+                    " timestamp_sequence(0, 10000000000) ts" +
+                    " from long_sequence(50)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            compiler.compile("copy x to 'x.parquet'", sqlExecutionContext);
+            assertSameResult("x", "read_parquet('x.parquet')");
+
+            // designated timestamp survives round trip
+            try (RecordCursorFactory factory = compiler.compile("read_parquet('x.parquet')", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(13, factory.getMetadata().getTimestampIndex());
+                assertVariableColumns(factory, true);
+            }
+        });
+    }
+
+    @Test
+    public void testExportQuery() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x, rnd_str(4, 4, 0) s from long_sequence(20))", sqlExecutionContext);
+            compiler.compile("copy (select s, x * 2 y from x where x > 5) to 'q.parquet' with row_group_size 4", sqlExecutionContext);
+            assertSameResult("select s, x * 2 y from x where x > 5", "read_parquet('q.parquet')");
+            Assert.assertEquals(4, rowGroupCount("q.parquet"));
+            assertSameResult(
+                    "select s, x * 2 y from x where x > 5 and x * 2 < 15",
+                    "select * from read_parquet('q.parquet') where y < 15"
+            );
+        });
+    }
+
+    @Test
+    public void testExportUnknownTable() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                compiler.compile("copy y to 'y.parquet'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(5, e.getPosition());
+                TestUtils.assertContains(e.getMessage(), "table 'y' does not exist");
+            }
+        });
+    }
+
+    @Test
+    public void testFileNameDots() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                compiler.compile("select * from read_parquet('../x.parquet')", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getMessage(), "'.' is not allowed");
+            }
+        });
+    }
+
+    @Test
+    public void testNotParquetFile() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x from long_sequence(5))", sqlExecutionContext);
+            try (Path path = new Path()) {
+                path.of(inputRoot).concat("bad.parquet").$();
+                final long fd = FilesFacadeImpl.INSTANCE.openRW(path);
+                Assert.assertNotEquals(-1, fd);
+                FilesFacadeImpl.INSTANCE.truncate(fd, 64);
+                FilesFacadeImpl.INSTANCE.close(fd);
+            }
+            try {
+                compiler.compile("select * from read_parquet('bad.parquet')", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(27, e.getPosition());
+                TestUtils.assertContains(e.getMessage(), "not a parquet file");
+            }
+        });
+    }
+
+    @Test
+    public void testReadNullsOfEveryType() throws Exception {
+        assertMemoryLeak(() -> {
+            writeExternalFile("nulls.parquet");
+            TestUtils.assertEquals(
+                    "b\ti8\ti16\tc\ti\tl\tts\tf\td\ts\tbin\tl256\n" +
+                            "true\t10\t1000\tA\t100\t1000\t1970-01-01T00:00:00.000000Z\t1.5000\t2.5\ts0\t00000000 00 01\t0x01\n" +
+                            "false\t0\t0\t\tNaN\tNaN\t\tNaN\tNaN\t\t\t\n" +
+                            "false\t0\t0\t\tNaN\tNaN\t\tNaN\tNaN\t\t\t\n" +
+                            "true\t13\t1003\tD\t103\t1003\t1970-01-01T00:00:00.000003Z\t4.5000\t5.5\ts3\t00000000 03 04\t0x04\n" +
+                            "true\t14\t1004\tE\t104\t1004\t1970-01-01T00:00:00.000004Z\t5.5000\t6.5\ts4\t00000000 04 05\t0x05\n" +
+                            "false\t0\t0\t\tNaN\tNaN\t\tNaN\tNaN\t\t\t\n" +
+                            "false\t0\t0\t\tNaN\tNaN\t\tNaN\tNaN\t\t\t\n" +
+                            "true\t17\t1007\tH\t107\t1007\t1970-01-01T00:00:00.000007Z\t8.5000\t9.5\ts7\t00000000 07 08\t0x08\n",
+                    print("read_parquet('nulls.parquet')")
+            );
+
+            // records decode row groups of their own
+            try (RecordCursorFactory factory = compiler.compile("read_parquet('nulls.parquet')", sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    final Record recordA = cursor.getRecord();
+                    final Record recordB = cursor.getRecordB();
+                    Assert.assertTrue(cursor.hasNext());
+                    cursor.recordAt(recordB, Rows.toRowID(1, 3));
+                    Assert.assertEquals(1000, recordA.getLong(5));
+                    Assert.assertEquals(1007, recordB.getLong(5));
+                    Assert.assertEquals(1000, recordA.getLong(5));
+
+                    cursor.recordAt(recordB, Rows.toRowID(1, 1));
+                    Assert.assertFalse(recordB.getBool(0));
+                    Assert.assertEquals(Numbers.LONG_NaN, recordB.getLong256A(11).getLong0());
+                    Assert.assertEquals(0x01, recordA.getLong256A(11).getLong0());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testRowGroupPerPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (" +
+                    "select x, rnd_double(0) d, timestamp_sequence(0, 3600000000) ts" +
+                    " from long_sequence(72)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("copy x to 'x.parquet'", sqlExecutionContext);
+            Assert.assertEquals(3, rowGroupCount("x.parquet"));
+
+            compiler.compile("copy x to 'x2.parquet' with row_group_size 10", sqlExecutionContext);
+            // 24 rows per partition, row groups do not span partitions
+            Assert.assertEquals(9, rowGroupCount("x2.parquet"));
+            assertSameResult("x", "read_parquet('x2.parquet')");
+        });
+    }
+
+    @Test
+    public void testRowGroupPruning() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (" +
+                    "select x, rnd_int(0, 100, 0) i, timestamp_sequence(0, 3600000000) ts" +
+                    " from long_sequence(72)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("copy x to 'x.parquet'", sqlExecutionContext);
+
+            assertSameResult("x where x > 30 and x < 40", "select * from read_parquet('x.parquet') where x > 30 and x < 40");
+            assertSameResult("x where x = 50", "select * from read_parquet('x.parquet') where 50 = x");
+            assertSameResult("x where ts >= '1970-01-02T00:00:00.000000Z'", "select * from read_parquet('x.parquet') where ts >= 86400000000");
+            assertSameResult("x where x < 0", "select * from read_parquet('x.parquet') where x < 0");
+
+            // cursor skips row groups, whose min/max range does not intersect the filter
+            try (RecordCursorFactory factory = compiler.compile("read_parquet('x.parquet')", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof ParquetRecordCursorFactory);
+                ((ParquetRecordCursorFactory) factory).addRowGroupFilter(0, 30, 40, false);
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    int count = 0;
+                    while (cursor.hasNext()) {
+                        Assert.assertEquals(1, Rows.toPartitionIndex(cursor.getRecord().getRowId()));
+                        count++;
+                    }
+                    Assert.assertEquals(24, count);
+                }
+            }
+        });
+    }
+
+    private static void assertSameResult(String expectedSql, String actualSql) throws SqlException {
+        TestUtils.assertEquals(print(expectedSql), print(actualSql));
+    }
+
+    private static String print(String sql) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+
+    /**
+     * Writes file the way other Parquet writers do: every column is optional and has nulls, row group
+     * has data page of version 1 followed by data page of version 2.
+     */
+    private static void writeExternalFile(String fileName) {
+        final String[] names = {"b", "i8", "i16", "c", "i", "l", "ts", "f", "d", "s", "bin", "l256"};
+        final int[] physicalTypes = {
+                ParquetUtils.TYPE_BOOLEAN, ParquetUtils.TYPE_INT32, ParquetUtils.TYPE_INT32, ParquetUtils.TYPE_INT32,
+                ParquetUtils.TYPE_INT32, ParquetUtils.TYPE_INT64, ParquetUtils.TYPE_INT64, ParquetUtils.TYPE_FLOAT,
+                ParquetUtils.TYPE_DOUBLE, ParquetUtils.TYPE_BYTE_ARRAY, ParquetUtils.TYPE_BYTE_ARRAY,
+                ParquetUtils.TYPE_FIXED_LEN_BYTE_ARRAY
+        };
+        final int[] convertedTypes = {
+                ParquetUtils.CONVERTED_NONE, ParquetUtils.CONVERTED_INT_8, ParquetUtils.CONVERTED_INT_16,
+                ParquetUtils.CONVERTED_UINT_16, ParquetUtils.CONVERTED_NONE, ParquetUtils.CONVERTED_NONE,
+                ParquetUtils.CONVERTED_TIMESTAMP_MICROS, ParquetUtils.CONVERTED_NONE, ParquetUtils.CONVERTED_NONE,
+                ParquetUtils.CONVERTED_UTF8, ParquetUtils.CONVERTED_NONE, ParquetUtils.CONVERTED_NONE
+        };
+        final int rowGroupCount = 2;
+        // rows of page, second row of first page and first row of second page are null
+        final int pageRows = 2;
+        final int columnCount = names.length;
+        final LongList chunks = new LongList();
+
+        try (
+                ParquetBuffer file = new ParquetBuffer(4096);
+                ParquetBuffer header = new ParquetBuffer(1024);
+                ParquetBuffer page = new ParquetBuffer(1024);
+                ThriftCompactWriter thrift = new ThriftCompactWriter();
+                Path path = new Path()
+        ) {
+            file.putInt(ParquetUtils.MAGIC);
+            for (int g = 0; g < rowGroupCount; g++) {
+                for (int c = 0; c < columnCount; c++) {
+                    final long chunkOffset = file.length();
+                    for (int pg = 0; pg < 2; pg++) {
+                        final boolean v2 = pg == 1;
+                        page.clear();
+                        // definition levels, one RLE run per value
+                        final long levelsOffset = page.length();
+                        if (!v2) {
+                            page.putInt(0);
+                        }
+                        for (int k = 0; k < pageRows; k++) {
+                            page.putVarLong(1 << 1);
+                            page.putByte((byte) (k == 1 - pg ? 0 : 1));
+                        }
+                        final int levelsLen = (int) (page.length() - levelsOffset) - (v2 ? 0 : 4);
+                        if (!v2) {
+                            page.putIntAt(levelsOffset, levelsLen);
+                        }
+
+                        // single non-null value of page
+                        final int row = g * pageRows * 2 + pg * pageRows + (pg == 0 ? 0 : 1);
+                        switch (physicalTypes[c]) {
+                            case ParquetUtils.TYPE_BOOLEAN:
+                                page.putByte((byte) 1);
+                                break;
+                            case ParquetUtils.TYPE_INT32:
+                                switch (convertedTypes[c]) {
+                                    case ParquetUtils.CONVERTED_INT_8:
+                                        page.putInt(10 + row);
+                                        break;
+                                    case ParquetUtils.CONVERTED_INT_16:
+                                        page.putInt(1000 + row);
+                                        break;
+                                    case ParquetUtils.CONVERTED_UINT_16:
+                                        page.putInt('A' + row);
+                                        break;
+                                    default:
+                                        page.putInt(100 + row);
+                                        break;
+                                }
+                                break;
+                            case ParquetUtils.TYPE_INT64:
+                                page.putLong(convertedTypes[c] == ParquetUtils.CONVERTED_NONE ? 1000 + row : row);
+                                break;
+                            case ParquetUtils.TYPE_FLOAT:
+                                page.putFloat(1.5f + row);
+                                break;
+                            case ParquetUtils.TYPE_DOUBLE:
+                                page.putDouble(2.5 + row);
+                                break;
+                            case ParquetUtils.TYPE_BYTE_ARRAY:
+                                page.putInt(2);
+                                if (convertedTypes[c] == ParquetUtils.CONVERTED_UTF8) {
+                                    page.put('s').put((char) ('0' + row));
+                                } else {
+                                    page.putByte((byte) row);
+                                    page.putByte((byte) (row + 1));
+                                }
+                                break;
+                            default:
+                                page.putLong(row + 1);
+                                page.putLong(0);
+                                page.putLong(0);
+                                page.putLong(0);
+                                break;
+                        }
+
+                        header.clear();
+                        thrift.of(header);
+                        thrift.structBegin();
+                        thrift.i32Field(1, v2 ? ParquetUtils.PAGE_DATA_V2 : ParquetUtils.PAGE_DATA);
+                        thrift.i32Field(2, (int) page.length());
+                        thrift.i32Field(3, (int) page.length());
+                        if (v2) {
+                            thrift.structField(8);
+                            thrift.i32Field(1, pageRows);
+                            thrift.i32Field(2, 1);
+                            thrift.i32Field(3, pageRows);
+                            thrift.i32Field(4, ParquetUtils.ENCODING_PLAIN);
+                            thrift.i32Field(5, levelsLen);
+                            thrift.i32Field(6, 0);
+                        } else {
+                            thrift.structField(5);
+                            thrift.i32Field(1, pageRows);
+                            thrift.i32Field(2, ParquetUtils.ENCODING_PLAIN);
+                            thrift.i32Field(3, ParquetUtils.ENCODING_RLE);
+                            thrift.i32Field(4, ParquetUtils.ENCODING_RLE);
+                        }
+                        thrift.structEnd();
+                        thrift.structEnd();
+                        file.putBuffer(header);
+                        file.putBuffer(page);
+                    }
+                    chunks.add(chunkOffset);
+                    chunks.add(file.length() - chunkOffset);
+                }
+            }
+
+            final long footerOffset = file.length();
+            thrift.of(file);
+            thrift.structBegin();
+            thrift.i32Field(1, 2);
+            thrift.listField(2, ThriftCompactWriter.TYPE_STRUCT, columnCount + 1);
+            thrift.structBegin();
+            thrift.stringField(4, "schema");
+            thrift.i32Field(5, columnCount);
+            thrift.structEnd();
+            for (int c = 0; c < columnCount; c++) {
+                thrift.structBegin();
+                thrift.i32Field(1, physicalTypes[c]);
+                if (physicalTypes[c] == ParquetUtils.TYPE_FIXED_LEN_BYTE_ARRAY) {
+                    thrift.i32Field(2, ParquetUtils.LONG256_SIZE);
+                }
+                thrift.i32Field(3, ParquetUtils.REPETITION_OPTIONAL);
+                thrift.stringField(4, names[c]);
+                if (convertedTypes[c] != ParquetUtils.CONVERTED_NONE) {
+                    thrift.i32Field(6, convertedTypes[c]);
+                }
+                thrift.structEnd();
+            }
+            thrift.i64Field(3, rowGroupCount * pageRows * 2);
+            thrift.listField(4, ThriftCompactWriter.TYPE_STRUCT, rowGroupCount);
+            for (int g = 0; g < rowGroupCount; g++) {
+                thrift.structBegin();
+                thrift.listField(1, ThriftCompactWriter.TYPE_STRUCT, columnCount);
+                for (int c = 0; c < columnCount; c++) {
+                    final long offset = chunks.getQuick((g * columnCount + c) * 2);
+                    final long size = chunks.getQuick((g * columnCount + c) * 2 + 1);
+                    thrift.structBegin();
+                    thrift.i64Field(2, offset);
+                    thrift.structField(3);
+                    thrift.i32Field(1, physicalTypes[c]);
+                    thrift.listField(2, ThriftCompactWriter.TYPE_I32, 2);
+                    thrift.i32(ParquetUtils.ENCODING_PLAIN);
+                    thrift.i32(ParquetUtils.ENCODING_RLE);
+                    thrift.listField(3, ThriftCompactWriter.TYPE_BINARY, 1);
+                    thrift.string(names[c]);
+                    thrift.i32Field(4, ParquetUtils.CODEC_UNCOMPRESSED);
+                    thrift.i64Field(5, pageRows * 2);
+                    thrift.i64Field(6, size);
+                    thrift.i64Field(7, size);
+                    thrift.i64Field(9, offset);
+                    thrift.structEnd();
+                    thrift.structEnd();
+                }
+                thrift.i64Field(2, 0);
+                thrift.i64Field(3, pageRows * 2);
+                thrift.structEnd();
+            }
+            thrift.structEnd();
+            file.putInt((int) (file.length() - footerOffset));
+            file.putInt(ParquetUtils.MAGIC);
+
+            path.of(inputRoot).concat(fileName).$();
+            final long fd = FilesFacadeImpl.INSTANCE.openRW(path);
+            Assert.assertNotEquals(-1, fd);
+            try {
+                Assert.assertEquals(file.length(), FilesFacadeImpl.INSTANCE.write(fd, file.getAddress(), file.length(), 0));
+            } finally {
+                FilesFacadeImpl.INSTANCE.close(fd);
+            }
+        }
+    }
+
+    private static int rowGroupCount(String fileName) {
+        try (Path path = new Path(); ParquetReader reader = new ParquetReader(FilesFacadeImpl.INSTANCE)) {
+            path.of(inputRoot).concat(fileName).$();
+            return reader.of(path).getRowGroupCount();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.bind.BindVariableService;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryCancellationTest extends AbstractGriffinTest {
+
+    @Test
+    public void testCancelFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            final CancellableSqlExecutionInterruptor interruptor = engine.getQueryRegistry().newInterruptor();
+            try {
+                final String query = "select * from long_sequence(100000) where x < 0";
+                final SqlExecutionContext context = newContext(interruptor.start(query, null));
+
+                assertActivity(
+                        "query_id\tquery\n" +
+                                interruptor.getQueryId() + "\t" + query + "\n"
+                );
+                compiler.compile("cancel query " + interruptor.getQueryId(), sqlExecutionContext);
+                Assert.assertTrue(interruptor.isCancelled());
+                assertInterrupted(query, context, "cancelled by user");
+            } finally {
+                interruptor.finish();
+            }
+            assertActivity("query_id\tquery\n");
+        });
+    }
+
+    @Test
+    public void testCancelQueryNotRunning() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                compiler.compile("cancel query 999999", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(13, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "query is not running [id=999999]");
+            }
+            try {
+                compiler.compile("cancel query abc", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(13, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "query id expected");
+            }
+        });
+    }
+
+    @Test
+    public void testCancelSession() {
+        final CancellableSqlExecutionInterruptor interruptor = engine.getQueryRegistry().newInterruptor();
+        interruptor.setSession(42, 1234);
+        try {
+            // secret has to match
+            Assert.assertFalse(engine.getQueryRegistry().cancelSession(42, 1));
+            // session has no running query
+            Assert.assertFalse(engine.getQueryRegistry().cancelSession(42, 1234));
+            interruptor.start("select 1", null);
+            Assert.assertTrue(engine.getQueryRegistry().cancelSession(42, 1234));
+            Assert.assertTrue(interruptor.isCancelled());
+            // next query of session starts not cancelled
+            interruptor.start("select 2", null);
+            Assert.assertFalse(interruptor.isCancelled());
+        } finally {
+            interruptor.finish();
+        }
+    }
+
+    @Test
+    public void testCancelVectorGroupBy() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (select rnd_symbol('a', 'b', 'c') s, rnd_int() i, timestamp_sequence(0, 1000000000) ts from long_sequence(1000)) timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            final CancellableSqlExecutionInterruptor interruptor = engine.getQueryRegistry().newInterruptor();
+            try {
+                final SqlExecutionContext context = newContext(interruptor);
+                interruptor.start("select s, sum(i) from x", null).cancel();
+                assertInterrupted("select s, sum(i) from x", context, "cancelled by user");
+                interruptor.start("select sum(i) from x", null).cancel();
+                assertInterrupted("select sum(i) from x", context, "cancelled by user");
+            } finally {
+                interruptor.finish();
+            }
+        });
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        assertMemoryLeak(() -> {
+            // every clock reading is 1ms later than previous one
+            final long[] ticks = {0};
+            final MicrosecondClock clock = () -> ticks[0] += 1000;
+            final CairoConfiguration timeoutConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public MicrosecondClock getMicrosecondClock() {
+                    return clock;
+                }
+
+                @Override
+                public long getSqlQueryTimeout() {
+                    return 1;
+                }
+            };
+            final CancellableSqlExecutionInterruptor interruptor = new QueryRegistry(timeoutConfiguration).newInterruptor();
+            try {
+                final String query = "select * from long_sequence(1000000) where x < 0";
+                final SqlExecutionContext context = newContext(interruptor.start(query, null));
+                assertInterrupted(query, context, "timeout, query aborted");
+
+                // query within deadline completes
+                interruptor.start("select * from long_sequence(100) where x < 0", null);
+                try (RecordCursorFactory factory = compiler.compile("select * from long_sequence(100) where x < 0", context).getRecordCursorFactory()) {
+                    try (RecordCursor cursor = factory.getCursor(context)) {
+                        Assert.assertFalse(cursor.hasNext());
+                    }
+                }
+            } finally {
+                interruptor.finish();
+            }
+        });
+    }
+
+    private static void assertActivity(String expected) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile("select query_id, query from query_activity()", sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                TestUtils.assertEquals(expected, sink);
+            }
+        }
+    }
+
+    private static void assertInterrupted(String query, SqlExecutionContext context, String message) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, context).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(context)) {
+                while (cursor.hasNext()) {
+                    // drain
+                }
+            }
+            Assert.fail();
+        } catch (CairoException e) {
+            Assert.assertTrue(e.isInterruption());
+            TestUtils.assertContains(e.getFlyweightMessage(), message);
+        }
+    }
+
+    private static SqlExecutionContext newContext(SqlExecutionInterruptor interruptor) {
+        return new SqlExecutionContextImpl(messageBus, 1, engine)
+                .with(AllowAllCairoSecurityContext.INSTANCE, new BindVariableService(), null, -1, interruptor);
+    }
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.griffin.engine.QueryMemoryAccount;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryMemoryLimitTest extends AbstractGriffinTest {
+
+    private static final String QUERY = "select x % 100000 k, count() from long_sequence(1000000) order by 1 desc";
+
+    @Test
+    public void testGlobalLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            try (RecordCursorFactory factory = compiler.compile(QUERY, sqlExecutionContext).getRecordCursorFactory()) {
+                Unsafe.setSqlMemoryLimit(Unsafe.getSqlMemUsed() + 64 * 1024);
+                try {
+                    assertLimitExceeded(factory, "global query memory limit exceeded");
+                } finally {
+                    Unsafe.setSqlMemoryLimit(0);
+                }
+                // query runs once limit is lifted
+                assertRowCount(factory);
+            }
+        });
+    }
+
+    @Test
+    public void testMemoryMetrics() throws Exception {
+        assertMemoryLeak(() -> {
+            final long sqlMemUsed = Unsafe.getSqlMemUsed();
+            try (RecordCursorFactory factory = compiler.compile(QUERY, sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    Assert.assertTrue(cursor.hasNext());
+                    Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.NATIVE_SQL_MAP) > 0);
+                    Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.NATIVE_SQL_TREE) > 0);
+
+                    try (RecordCursorFactory metrics = compiler.compile("memory_metrics()", sqlExecutionContext).getRecordCursorFactory()) {
+                        try (RecordCursor metricsCursor = metrics.getCursor(sqlExecutionContext)) {
+                            final Record record = metricsCursor.getRecord();
+                            for (int tag = 0; tag < MemoryTag.SIZE; tag++) {
+                                Assert.assertTrue(metricsCursor.hasNext());
+                                TestUtils.assertEquals(MemoryTag.nameOf(tag), record.getStr(0));
+                                if (tag != MemoryTag.NATIVE_DEFAULT) {
+                                    Assert.assertEquals(Unsafe.getMemUsedByTag(tag), record.getLong(1));
+                                }
+                            }
+                            Assert.assertFalse(metricsCursor.hasNext());
+                        }
+                    }
+                }
+            }
+            Assert.assertEquals(sqlMemUsed, Unsafe.getSqlMemUsed());
+        });
+    }
+
+    @Test
+    public void testQueryLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            try (RecordCursorFactory factory = compiler.compile(QUERY, sqlExecutionContext).getRecordCursorFactory()) {
+                final QueryMemoryAccount account = sqlExecutionContext.getMemoryAccount();
+                try {
+                    account.of(64 * 1024);
+                    assertLimitExceeded(factory, "query memory limit exceeded");
+                    Assert.assertTrue(account.getUsed() <= account.getLimit());
+
+                    account.of(0);
+                    assertRowCount(factory);
+                    Assert.assertTrue(account.getUsed() > 64 * 1024);
+                } finally {
+                    account.of(0);
+                }
+            }
+        });
+    }
+
+    private static void assertLimitExceeded(RecordCursorFactory factory, String message) {
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            while (cursor.hasNext()) {
+                // drain
+            }
+            Assert.fail();
+        } catch (LimitOverflowException e) {
+            TestUtils.assertContains(e.getFlyweightMessage(), message);
+        }
+    }
+
+    private static void assertRowCount(RecordCursorFactory factory) {
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            long count = 0;
+            while (cursor.hasNext()) {
+                count++;
+            }
+            Assert.assertEquals(100000, count);
+        }
+    }
+}
@@ -331,6 +331,13 @@ public class SecurityTest extends AbstractGriffinTest {
                     "select distinct sym1, sym2 from tb1 where d < 0.07",
                     null,
                     true, readOnlyExecutionContext);
+            // fixed width keys are compact, it takes more than 20 keys to exceed the limit
+            compiler.compile("insert into tb1 select" +
+                    " rnd_symbol(20,4,4,20000)," +
+                    " rnd_symbol(20,4,4,20000)," +
+                    " rnd_double(2)," +
+                    " timestamp_sequence(20000000000, 1000000000)" +
+                    " from long_sequence(100)", sqlExecutionContext);
             try {
                 assertQuery(
                         memoryRestrictedCompiler,
@@ -636,7 +643,7 @@ public class SecurityTest extends AbstractGriffinTest {
                     " rnd_symbol(3,3,3,20000) sym2," +
                     " rnd_double(2) d2," +
                     " timestamp_sequence(0, 1000000000) ts2" +
-                    " from long_sequence(10)) timestamp(ts2)", sqlExecutionContext);
+                    " from long_sequence(10))", sqlExecutionContext);
             assertQuery(
                     "sym1\tsym2\nVTJW\tFJG\nVTJW\tULO\n",
                     "select sym1, sym2 from tb1 inner join tb2 on tb2.ts2=tb1.ts1 where d1 < 0.3",
@@ -657,7 +664,7 @@ public class SecurityTest extends AbstractGriffinTest {
     }
 
     @Test
-    public void testMemoryRestrictionsWithOuterJoin() throws Exception {
+    public void testMemoryRestrictionsWithMergeJoin() throws Exception {
         assertMemoryLeak(() -> {
             sqlExecutionContext.getRandom().reset();
             compiler.compile("create table tb1 as (select" +
@@ -670,6 +677,30 @@ public class SecurityTest extends AbstractGriffinTest {
                     " rnd_double(2) d2," +
                     " timestamp_sequence(0, 1000000000) ts2" +
                     " from long_sequence(10)) timestamp(ts2)", sqlExecutionContext);
+            // both tables are ordered by joined timestamps, join does not need hash table
+            assertQuery(
+                    memoryRestrictedCompiler,
+                    "sym1\tsym2\nVTJW\tFJG\nVTJW\tULO\n",
+                    "select sym1, sym2 from tb1 inner join tb2 on tb2.ts2=tb1.ts1 where d1 < 0.3",
+                    null,
+                    false, readOnlyExecutionContext);
+        });
+    }
+
+    @Test
+    public void testMemoryRestrictionsWithOuterJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            sqlExecutionContext.getRandom().reset();
+            compiler.compile("create table tb1 as (select" +
+                    " rnd_symbol(4,4,4,20000) sym1," +
+                    " rnd_double(2) d1," +
+                    " timestamp_sequence(0, 1000000000) ts1" +
+                    " from long_sequence(10)) timestamp(ts1)", sqlExecutionContext);
+            compiler.compile("create table tb2 as (select" +
+                    " rnd_symbol(3,3,3,20000) sym2," +
+                    " rnd_double(2) d2," +
+                    " timestamp_sequence(0, 1000000000) ts2" +
+                    " from long_sequence(10))", sqlExecutionContext);
             assertQuery(
                     "sym1\tsym2\nVTJW\tFJG\nVTJW\tULO\n",
                     "select sym1, sym2 from tb1 outer join tb2 on tb2.ts2=tb1.ts1 where d1 < 0.3",
@@ -702,7 +733,7 @@ public class SecurityTest extends AbstractGriffinTest {
                     " rnd_symbol(3,3,3,20000) sym2," +
                     " rnd_double(2) d2," +
                     " timestamp_sequence(0, 1000000000) ts2" +
-                    " from long_sequence(10)) timestamp(ts2)", sqlExecutionContext);
+                    " from long_sequence(10))", sqlExecutionContext);
             try {
                 compiler.setFullSatJoins(true);
                 assertQuery(
@@ -740,7 +771,7 @@ public class SecurityTest extends AbstractGriffinTest {
                     " rnd_symbol(3,3,3,20000) sym2," +
                     " rnd_double(2) d2," +
                     " timestamp_sequence(0, 1000000000) ts2" +
-                    " from long_sequence(10)) timestamp(ts2)", sqlExecutionContext);
+                    " from long_sequence(10))", sqlExecutionContext);
             try {
                 compiler.setFullSatJoins(true);
                 assertQuery(
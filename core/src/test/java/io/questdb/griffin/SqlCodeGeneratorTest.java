@@ -37,6 +37,7 @@ import io.questdb.std.FilesFacade;
 import io.questdb.std.FilesFacadeImpl;
 import io.questdb.std.Rnd;
 import io.questdb.std.str.LPSZ;
+import io.questdb.std.microtime.Timestamps;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Before;
@@ -628,6 +629,76 @@ public class SqlCodeGeneratorTest extends AbstractGriffinTest {
         Assert.assertTrue(TestMatchFunctionFactory.assertAPI());
     }
 
+    @Test
+    public void testFilterOnIntervalBindVariable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_double(0)*100 a, timestamp_sequence(0, 21600000000) k from long_sequence(20)) timestamp(k) partition by DAY", sqlExecutionContext);
+
+            bindVariableService.clear();
+            bindVariableService.setTimestamp(0, 4 * Timestamps.DAY_MICROS);
+            try (RecordCursorFactory factory = compiler.compile("select k from x where k >= $1", sqlExecutionContext).getRecordCursorFactory()) {
+                assertCursor("k\n" +
+                                "1970-01-05T00:00:00.000000Z\n" +
+                                "1970-01-05T06:00:00.000000Z\n" +
+                                "1970-01-05T12:00:00.000000Z\n" +
+                                "1970-01-05T18:00:00.000000Z\n",
+                        factory,
+                        true,
+                        true
+                );
+
+                // intervals are re-evaluated when cursor is created
+                bindVariableService.setTimestamp(0, 90 * Timestamps.HOUR_MICROS);
+                assertCursor("k\n" +
+                                "1970-01-04T18:00:00.000000Z\n" +
+                                "1970-01-05T00:00:00.000000Z\n" +
+                                "1970-01-05T06:00:00.000000Z\n" +
+                                "1970-01-05T12:00:00.000000Z\n" +
+                                "1970-01-05T18:00:00.000000Z\n",
+                        factory,
+                        true,
+                        true
+                );
+            }
+
+            bindVariableService.clear();
+            bindVariableService.setStr("lo", "1970-01-02");
+            bindVariableService.setTimestamp("hi", Timestamps.DAY_MICROS + 12 * Timestamps.HOUR_MICROS);
+            try (RecordCursorFactory factory = compiler.compile("select k from x where k >= :lo and :hi > k and a > 0", sqlExecutionContext).getRecordCursorFactory()) {
+                assertCursor("k\n" +
+                                "1970-01-02T00:00:00.000000Z\n" +
+                                "1970-01-02T06:00:00.000000Z\n",
+                        factory,
+                        true,
+                        true
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testFilterOnIntervalRuntimeConstant() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_double(0)*100 a, timestamp_sequence(0, 21600000000) k from long_sequence(20)) timestamp(k) partition by DAY", sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("select count() from x where k < systimestamp() - 3600000000", sqlExecutionContext).getRecordCursorFactory()) {
+                assertCursor("count\n" +
+                                "20\n",
+                        factory,
+                        false,
+                        true
+                );
+            }
+            try (RecordCursorFactory factory = compiler.compile("select count() from x where k > systimestamp() - 3600000000", sqlExecutionContext).getRecordCursorFactory()) {
+                assertCursor("count\n" +
+                                "0\n",
+                        factory,
+                        false,
+                        true
+                );
+            }
+        });
+    }
+
     @Test
     public void testFilterOnIntrinsicFalse() throws Exception {
         assertQuery(null,
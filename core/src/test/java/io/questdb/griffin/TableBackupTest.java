@@ -63,6 +63,7 @@ public class TableBackupTest {
     private int renameErrno;
     private int mkdirsErrno;
     private int mkdirsErrnoCountDown = 0;
+    private int hardLinkCount;
 
     @Before
     public void setup() throws IOException {
@@ -71,6 +72,7 @@ public class TableBackupTest {
         backupRoot = temp.newFolder("dbBackupRoot").getAbsolutePath();
         mkdirsErrno = -1;
         renameErrno = -1;
+        hardLinkCount = 0;
         FilesFacade ff = new FilesFacadeImpl() {
             private int nextErrno = -1;
 
@@ -84,6 +86,15 @@ public class TableBackupTest {
                 return super.errno();
             }
 
+            @Override
+            public int hardLink(LPSZ src, LPSZ hardLink) {
+                int result = super.hardLink(src, hardLink);
+                if (result == 0) {
+                    hardLinkCount++;
+                }
+                return result;
+            }
+
             @Override
             public int mkdirs(LPSZ path, int mode) {
                 if (mkdirsErrno != -1 && --mkdirsErrnoCountDown < 1) {
@@ -385,6 +396,52 @@ public class TableBackupTest {
         });
     }
 
+    @Test
+    public void testIncrementalBackup() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = "testTable1";
+            // @formatter:off
+            mainCompiler.compile("create table " + tableName + " as (select" +
+                    " rnd_symbol('a','b','c',null) sym," +
+                    " rnd_str(3,3,2) s," +
+                    " rnd_double(2) d," +
+                    " timestamp_sequence(0, 3600000000) ts" +
+                    " from long_sequence(100)), index(sym) timestamp(ts) partition by DAY", mainSqlExecutionContext);
+            // @formatter:on
+
+            mainCompiler.compile("backup table " + tableName, mainSqlExecutionContext);
+            Assert.assertEquals(0, hardLinkCount);
+            setFinalBackupPath();
+            String sourceSelectAll = selectAll(tableName, false);
+            String backupSelectAll1 = selectAll(tableName, true);
+            Assert.assertEquals(sourceSelectAll, backupSelectAll1);
+
+            // make sure closed partition files are older than the first backup
+            // at file system timestamp resolution
+            Thread.sleep(10);
+
+            // @formatter:off
+            mainCompiler.compile("insert into " + tableName +
+                    " select * from (" +
+                    " select rnd_symbol('a','b','c','d') sym, rnd_str(3,3,2) s, rnd_double(2) d, timestamp_sequence(360000000000, 3600000000) ts from long_sequence(50)" +
+                    ") timestamp(ts)", mainSqlExecutionContext);
+            // @formatter:on
+
+            mainCompiler.compile("backup table " + tableName, mainSqlExecutionContext);
+            // partitions that were closed at the time of the first backup are linked
+            Assert.assertTrue(hardLinkCount > 0);
+
+            setFinalBackupPath(1);
+            Assert.assertEquals(selectAll(tableName, false), selectAll(tableName, true));
+            Assert.assertEquals(selectAll(tableName + " where sym = 'a'", false), selectAll(tableName + " where sym = 'a'", true));
+            Assert.assertEquals(selectAll(tableName + " where sym = 'd'", false), selectAll(tableName + " where sym = 'd'", true));
+
+            // appending to the backup does not affect previous backup
+            setFinalBackupPath();
+            Assert.assertEquals(backupSelectAll1, selectAll(tableName, true));
+        });
+    }
+
     @Test
     public void testSuccessiveBackups() throws Exception {
         assertMemoryLeak(() -> {
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VarcharTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAddColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x from long_sequence(3))", sqlExecutionContext);
+            compiler.compile("alter table x add column v varchar", sqlExecutionContext);
+            executeInsert("insert into x values (4, 'четыре')");
+            printSqlResult(
+                    "x\tv\n" +
+                            "1\t\n" +
+                            "2\t\n" +
+                            "3\t\n" +
+                            "4\tчетыре\n",
+                    "x",
+                    null,
+                    null,
+                    null,
+                    true,
+                    true
+            );
+        });
+    }
+
+    @Test
+    public void testCopyBetweenStringAndVarchar() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table s as (select rnd_str(1, 40, 3) s from long_sequence(200))", sqlExecutionContext);
+            compiler.compile("create table v (v varchar)", sqlExecutionContext);
+            compiler.compile("insert into v select s from s", sqlExecutionContext);
+            assertSameResult("s", "v");
+
+            // varchar to varchar copies bytes, varchar to string decodes them
+            compiler.compile("create table v2 as (select * from v)", sqlExecutionContext);
+            compiler.compile("create table s2 (s string)", sqlExecutionContext);
+            compiler.compile("insert into s2 select v from v2", sqlExecutionContext);
+            assertSameResult("s", "s2");
+        });
+    }
+
+    @Test
+    public void testFilterGroupAndOrder() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            printSqlResult(
+                    "v\tts\n" +
+                            "Привет, мир\t1970-01-01T00:00:00.000005Z\n",
+                    "x where v = 'Привет, мир'",
+                    "ts",
+                    null,
+                    null,
+                    true,
+                    true
+            );
+            printSqlResult(
+                    "v\tts\n" +
+                            "abc\t1970-01-01T00:00:00.000000Z\n" +
+                            "abc\t1970-01-01T00:00:00.000007Z\n",
+                    "x where v = 'abc'",
+                    "ts",
+                    null,
+                    null,
+                    true,
+                    true
+            );
+            printSqlResult(
+                    "v\tcount\n" +
+                            "\t2\n" +
+                            "abc\t2\n" +
+                            "abcdefghi\t1\n" +
+                            "hello varchar world\t1\n" +
+                            "Привет, мир\t1\n" +
+                            "ёж\t1\n",
+                    "select v, count() from x order by v",
+                    null,
+                    null,
+                    null,
+                    true,
+                    true
+            );
+        });
+    }
+
+    @Test
+    public void testInsertAndSelect() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            printSqlResult(
+                    "v\tts\n" +
+                            "abc\t1970-01-01T00:00:00.000000Z\n" +
+                            "abcdefghi\t1970-01-01T00:00:00.000001Z\n" +
+                            "hello varchar world\t1970-01-01T00:00:00.000002Z\n" +
+                            "ёж\t1970-01-01T00:00:00.000003Z\n" +
+                            "\t1970-01-01T00:00:00.000004Z\n" +
+                            "Привет, мир\t1970-01-01T00:00:00.000005Z\n" +
+                            "\t1970-01-01T00:00:00.000006Z\n" +
+                            "abc\t1970-01-01T00:00:00.000007Z\n",
+                    "x",
+                    "ts",
+                    null,
+                    null,
+                    true,
+                    true
+            );
+
+            try (RecordCursorFactory factory = compiler.compile("x", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(ColumnType.VARCHAR, factory.getMetadata().getColumnType(0));
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    final Record record = cursor.getRecord();
+                    final boolean[] ascii = {true, true, true, false, false, false, true, true};
+                    final int[] sizes = {3, 9, 19, 4, -1, 20, -1, 3};
+                    int i = 0;
+                    while (cursor.hasNext()) {
+                        final Utf8Sequence value = record.getVarcharA(0);
+                        if (sizes[i] == -1) {
+                            Assert.assertNull(value);
+                        } else {
+                            Assert.assertEquals(sizes[i], value.length());
+                            Assert.assertEquals(ascii[i], value.isAscii());
+                            TestUtils.assertEquals(record.getStr(0), value.toString());
+                        }
+                        i++;
+                    }
+                    Assert.assertEquals(sizes.length, i);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testWriterReopen() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (v varchar, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            executeInsert("insert into x values ('short', 0)");
+            executeInsert("insert into x values ('long enough to be stored in data file', 1)");
+            engine.releaseAllWriters();
+            engine.releaseAllReaders();
+            executeInsert("insert into x values (null, 2)");
+            executeInsert("insert into x values ('another long value after reopen', 3)");
+            printSqlResult(
+                    "v\tts\n" +
+                            "short\t1970-01-01T00:00:00.000000Z\n" +
+                            "long enough to be stored in data file\t1970-01-01T00:00:00.000001Z\n" +
+                            "\t1970-01-01T00:00:00.000002Z\n" +
+                            "another long value after reopen\t1970-01-01T00:00:00.000003Z\n",
+                    "x",
+                    "ts",
+                    null,
+                    null,
+                    true,
+                    true
+            );
+        });
+    }
+
+    private static void assertSameResult(String expectedSql, String actualSql) throws SqlException {
+        TestUtils.assertEquals(print(expectedSql), print(actualSql));
+    }
+
+    private static void createTable() throws SqlException {
+        compiler.compile("create table x (v varchar, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+        executeInsert("insert into x values ('abc', 0)");
+        executeInsert("insert into x values ('abcdefghi', 1)");
+        executeInsert("insert into x values ('hello varchar world', 2)");
+        executeInsert("insert into x values ('ёж', 3)");
+        executeInsert("insert into x values (null, 4)");
+        executeInsert("insert into x values ('Привет, мир', 5)");
+        executeInsert("insert into x values ('', 6)");
+        executeInsert("insert into x values ('abc', 7)");
+    }
+
+    private static String print(String sql) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), false);
+                return sink.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.MessageBusImpl;
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.bind.BindVariableService;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WalReplicationTest extends AbstractGriffinTest {
+
+    @Test
+    public void testPrimaryPublishesSegmentOfCommittedTransaction() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table v (i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table v set wal enabled", sqlExecutionContext);
+            compiler.compile("insert into v select cast(x as int), timestamp_sequence(0, 1000000) from long_sequence(10)", sqlExecutionContext);
+            engine.releaseAllWriters();
+
+            final FilesFacade ff = configuration.getFilesFacade();
+            try (
+                    Path path = new Path().of(root).concat("v").concat(WalWriter.WAL_DIR_NAME);
+                    Path other = new Path()
+            ) {
+                final int walLen = path.length();
+                // instance stopped after transaction was committed but before its segment was published
+                Assert.assertTrue(ff.rename(path.concat("1.wal").$(), other.of(path).put(".tmp").$()));
+                // and after segment of next transaction was written but before that transaction was committed
+                Assert.assertEquals(0, ff.copy(other, path.trimTo(walLen).concat("2.wal.tmp").$()));
+                final long fd = ff.openRW(path);
+                final long mem = Unsafe.malloc(Long.BYTES);
+                try {
+                    Unsafe.getUnsafe().putLong(mem, Long.MAX_VALUE);
+                    Assert.assertEquals(Long.BYTES, ff.write(fd, mem, Long.BYTES, Integer.BYTES + Long.BYTES));
+                } finally {
+                    Unsafe.free(mem, Long.BYTES);
+                    ff.close(fd);
+                }
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "v")) {
+                    Assert.assertTrue(writer.isWalEnabled());
+                }
+                Assert.assertTrue(ff.exists(path.trimTo(walLen).concat("1.wal").$()));
+                Assert.assertFalse(ff.exists(path.trimTo(walLen).concat("1.wal.tmp").$()));
+                Assert.assertFalse(ff.exists(path.trimTo(walLen).concat("2.wal.tmp").$()));
+
+                compiler.compile("insert into v select cast(x as int), timestamp_sequence(100000000, 1000000) from long_sequence(5)", sqlExecutionContext);
+                Assert.assertTrue(ff.exists(path.trimTo(walLen).concat("2.wal").$()));
+                Assert.assertFalse(ff.exists(path.trimTo(walLen).concat("3.wal").$()));
+            }
+        });
+    }
+
+    @Test
+    public void testReplicaAppliesSegments() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x (" +
+                            "sym symbol, i int, l long, d double, f float, s string, b boolean, bt byte, sh short, c char, " +
+                            "dt date, l256 long256, bin binary, v varchar, ts timestamp" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            compiler.compile("alter table x set wal enabled", sqlExecutionContext);
+            insertRows(0, "");
+            insertRows(100, "");
+            compiler.compile("alter table x add column z int", sqlExecutionContext);
+            executeInsert("insert into x (sym, v, z, ts) values ('abc', 'Привет', 42, 1000000000000)");
+            // rows of rolled back transaction are not logged
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertTrue(writer.isWalEnabled());
+                writer.newRow(2000000000000L).append();
+                writer.rollback();
+            }
+
+            final String replicaRoot = temp.newFolder("replica_segments").getAbsolutePath();
+            final CairoConfiguration replicaConfiguration = new ReplicaConfiguration(replicaRoot);
+            try (
+                    CairoEngine replicaEngine = new CairoEngine(replicaConfiguration);
+                    SqlCompiler replicaCompiler = new SqlCompiler(replicaEngine);
+                    WalReplicationJob job = new WalReplicationJob(replicaEngine)
+            ) {
+                Assert.assertTrue(job.run(0));
+                Assert.assertEquals(3, job.getAppliedSegmentCount());
+                Assert.assertFalse(job.run(0));
+
+                final SqlExecutionContext replicaContext = new SqlExecutionContextImpl(new MessageBusImpl(), 1, replicaEngine)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, new BindVariableService(), null, -1, null);
+                engine.releaseAllReaders();
+                TestUtils.assertEquals(
+                        print(compiler, sqlExecutionContext, "x"),
+                        print(replicaCompiler, replicaContext, "x")
+                );
+
+                // job resumes from recorded segment
+                insertRows(300, ", rnd_int()");
+                replicaEngine.releaseAllWriters();
+                try (WalReplicationJob job2 = new WalReplicationJob(replicaEngine)) {
+                    Assert.assertTrue(job2.run(0));
+                    Assert.assertEquals(1, job2.getAppliedSegmentCount());
+                }
+                replicaEngine.releaseAllReaders();
+                engine.releaseAllReaders();
+                TestUtils.assertEquals(
+                        print(compiler, sqlExecutionContext, "select count(), sum(i), min(ts), max(ts) from x"),
+                        print(replicaCompiler, replicaContext, "select count(), sum(i), min(ts), max(ts) from x")
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testReplicaRecoversUncommittedSegment() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table y (i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table y set wal enabled", sqlExecutionContext);
+            compiler.compile("insert into y select cast(x as int), timestamp_sequence(0, 1000000) from long_sequence(10)", sqlExecutionContext);
+
+            final String replicaRoot = temp.newFolder("replica_recovery").getAbsolutePath();
+            final CairoConfiguration replicaConfiguration = new ReplicaConfiguration(replicaRoot);
+            try (CairoEngine replicaEngine = new CairoEngine(replicaConfiguration)) {
+                try (WalReplicationJob job = new WalReplicationJob(replicaEngine)) {
+                    Assert.assertTrue(job.run(0));
+                }
+                replicaEngine.releaseAllWriters();
+
+                // instance stopped after recording second segment but before committing it
+                final FilesFacade ff = configuration.getFilesFacade();
+                try (Path path = new Path().of(replicaRoot).concat("y").concat(WalReplicationJob.APPLIED_FILE_NAME).$()) {
+                    final long fd = ff.openRW(path);
+                    final long mem = Unsafe.malloc(16);
+                    try {
+                        Unsafe.getUnsafe().putLong(mem, 2);
+                        Unsafe.getUnsafe().putLong(mem + 8, Long.MAX_VALUE);
+                        Assert.assertEquals(16, ff.write(fd, mem, 16, 0));
+                    } finally {
+                        Unsafe.free(mem, 16);
+                        ff.close(fd);
+                    }
+                }
+                compiler.compile("insert into y select cast(x as int), timestamp_sequence(100000000, 1000000) from long_sequence(5)", sqlExecutionContext);
+
+                try (WalReplicationJob job = new WalReplicationJob(replicaEngine)) {
+                    Assert.assertTrue(job.run(0));
+                    Assert.assertEquals(1, job.getAppliedSegmentCount());
+                }
+
+                try (TableReader reader = replicaEngine.getReader(AllowAllCairoSecurityContext.INSTANCE, "y")) {
+                    Assert.assertEquals(15, reader.size());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testReplicaRejectsTruncatedSegment() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table u (i int, s string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table u set wal enabled", sqlExecutionContext);
+            compiler.compile("insert into u select cast(x as int), rnd_str(5, 10, 0), timestamp_sequence(0, 1000000) from long_sequence(10)", sqlExecutionContext);
+
+            final FilesFacade ff = configuration.getFilesFacade();
+            final String replicaRoot = temp.newFolder("replica_truncated").getAbsolutePath();
+            final CairoConfiguration replicaConfiguration = new ReplicaConfiguration(replicaRoot);
+            try (
+                    CairoEngine replicaEngine = new CairoEngine(replicaConfiguration);
+                    Path path = new Path().of(root).concat("u").concat(WalWriter.WAL_DIR_NAME).concat("1.wal").$();
+                    Path copy = new Path().of(root).concat("u").concat(WalWriter.WAL_DIR_NAME).concat("1.wal.tmp").$()
+            ) {
+                Assert.assertEquals(0, ff.copy(path, copy));
+                final long len = ff.length(path);
+                // every cut falls either into header, column header or row data
+                for (long size = 0; size < len; size += 7) {
+                    final long fd = ff.openRW(path);
+                    try {
+                        Assert.assertTrue(ff.truncate(fd, size));
+                    } finally {
+                        ff.close(fd);
+                    }
+                    try (WalReplicationJob job = new WalReplicationJob(replicaEngine)) {
+                        Assert.assertFalse(job.run(0));
+                        Assert.assertEquals(0, job.getAppliedSegmentCount());
+                    }
+                    replicaEngine.releaseAllWriters();
+                    Assert.assertTrue(ff.remove(path));
+                    Assert.assertEquals(0, ff.copy(copy, path));
+                }
+                Assert.assertTrue(ff.remove(copy));
+
+                try (WalReplicationJob job = new WalReplicationJob(replicaEngine)) {
+                    Assert.assertTrue(job.run(0));
+                    Assert.assertEquals(1, job.getAppliedSegmentCount());
+                }
+                try (TableReader reader = replicaEngine.getReader(AllowAllCairoSecurityContext.INSTANCE, "u")) {
+                    Assert.assertEquals(10, reader.size());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testSetWalDisabled() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table z (i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table z set wal enabled", sqlExecutionContext);
+            compiler.compile("insert into z select cast(x as int), timestamp_sequence(0, 1000000) from long_sequence(10)", sqlExecutionContext);
+            compiler.compile("alter table z set wal disabled", sqlExecutionContext);
+            compiler.compile("insert into z select cast(x as int), timestamp_sequence(100000000, 1000000) from long_sequence(10)", sqlExecutionContext);
+
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "z")) {
+                Assert.assertFalse(writer.isWalEnabled());
+            }
+
+            try (Path path = new Path()) {
+                Assert.assertTrue(Files.exists(path.of(root).concat("z").concat(WalWriter.WAL_DIR_NAME).concat("1.wal").$()));
+                Assert.assertFalse(Files.exists(path.of(root).concat("z").concat(WalWriter.WAL_DIR_NAME).concat("2.wal").$()));
+            }
+        });
+    }
+
+    @Test
+    public void testSetWalInvalidValue() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table w (i int)", sqlExecutionContext);
+            try {
+                compiler.compile("alter table w set wal maybe", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(22, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "'enabled' or 'disabled' expected");
+            }
+        });
+    }
+
+    private static void insertRows(int offset, String extraColumns) throws SqlException {
+        compiler.compile(
+                "insert into x select" +
+                        " rnd_symbol(4, 4, 4, 2)," +
+                        " rnd_int()," +
+                        " rnd_long()," +
+                        " rnd_double(2)," +
+                        " rnd_float(2)," +
+                        " rnd_str(1, 10, 2)," +
+                        " rnd_boolean()," +
+                        " rnd_byte()," +
+                        " rnd_short()," +
+                        " rnd_char()," +
+                        " rnd_date()," +
+                        " rnd_long256()," +
+                        " rnd_bin(1, 20, 2)," +
+                        " rnd_str(1, 10, 2)," +
+                        " timestamp_sequence(" + offset + " * 3600000000L, 3600000000L)" +
+                        extraColumns +
+                        " from long_sequence(100)",
+                sqlExecutionContext
+        );
+    }
+
+    private static String print(SqlCompiler compiler, SqlExecutionContext executionContext, String sql) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, executionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+
+    private static class ReplicaConfiguration extends DefaultCairoConfiguration {
+        public ReplicaConfiguration(CharSequence root) {
+            super(root);
+        }
+
+        @Override
+        public CharSequence getReplicaWalRoot() {
+            return configuration.getRoot();
+        }
+
+        @Override
+        public long getReplicaWalCheckInterval() {
+            return 0;
+        }
+    }
+}
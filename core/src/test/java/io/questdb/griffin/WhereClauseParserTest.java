@@ -25,19 +25,29 @@
 package io.questdb.griffin;
 
 import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.engine.functions.bind.BindVariableService;
 import io.questdb.griffin.model.ExpressionNode;
 import io.questdb.griffin.model.IntrinsicModel;
 import io.questdb.griffin.model.QueryModel;
+import io.questdb.griffin.model.RuntimeIntervalModel;
 import io.questdb.test.tools.TestUtils;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.ServiceLoader;
+
 public class WhereClauseParserTest extends AbstractCairoTest {
 
-    private final static SqlCompiler compiler = new SqlCompiler(new CairoEngine(configuration));
+    private final static CairoEngine engine = new CairoEngine(configuration);
+    private final static SqlCompiler compiler = new SqlCompiler(engine);
+    private final static BindVariableService bindVariableService = new BindVariableService();
+    private final static SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(null, 1, engine)
+            .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+    private final static FunctionParser functionParser = new FunctionParser(configuration, ServiceLoader.load(FunctionFactory.class));
     private static TableReader reader;
     private static TableReader noTimestampReader;
     private static TableReader unindexedReader;
@@ -536,6 +546,55 @@ public class WhereClauseParserTest extends AbstractCairoTest {
         TestUtils.assertEquals("timestampx>", toRpn(m.filter));
     }
 
+    @Test
+    public void testIntervalGreaterBindVariable() throws Exception {
+        bindVariableService.clear();
+        bindVariableService.setTimestamp(0, 0);
+        IntrinsicModel m = modelOf("timestamp > $1 and bid > 100");
+        Assert.assertNull(m.intervals);
+        Assert.assertTrue(m.hasIntervals());
+        Assert.assertEquals(1, m.intervalBoundFunctions.size());
+        Assert.assertEquals(RuntimeIntervalModel.BOUND_LO, m.intervalBoundTypes.getQuick(0));
+        assertFilter(m, "100bid>");
+    }
+
+    @Test
+    public void testIntervalGreaterBindVariableOwnership() throws Exception {
+        bindVariableService.clear();
+        bindVariableService.setTimestamp(0, 0);
+        IntrinsicModel m = modelOf("timestamp > $1");
+        try (RuntimeIntervalModel intervalModel = m.buildIntervalModel()) {
+            // interval model owns bound function, clearing intrinsic model must not free it
+            Assert.assertNull(m.intervalBoundFunctions.getQuick(0));
+            m.clear();
+            Assert.assertFalse(intervalModel.isStatic());
+            TestUtils.assertEquals("[{lo=1970-01-01T00:00:00.000001Z, hi=294247-01-10T04:00:54.775807Z}]", GriffinParserTestUtils.intervalToString(intervalModel.calculateIntervals(sqlExecutionContext)));
+
+            try (IntervalFwdDataFrameCursorFactory factory = new IntervalFwdDataFrameCursorFactory(engine, "x", TableUtils.ANY_TABLE_VERSION, modelOf("timestamp > $1").buildIntervalModel(), 0)) {
+                factory.getCursor(AllowAllCairoSecurityContext.INSTANCE);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "runtime interval bounds require execution context");
+            }
+        }
+    }
+
+    @Test
+    public void testIntervalGreaterNonConstantFunction() throws Exception {
+        IntrinsicModel m = modelOf("timestamp > rnd_long()");
+        Assert.assertFalse(m.hasIntervals());
+        assertFilter(m, "rnd_longtimestamp>");
+    }
+
+    @Test
+    public void testIntervalLessRuntimeConstant() throws Exception {
+        IntrinsicModel m = modelOf("timestamp in ('2014-01-01T12:30:00.000Z', '2014-01-02T12:30:00.000Z') and systimestamp() - 3600000000 >= timestamp");
+        TestUtils.assertEquals("[{lo=2014-01-01T12:30:00.000000Z, hi=2014-01-02T12:30:00.000000Z}]", GriffinParserTestUtils.intervalToString(m.intervals));
+        Assert.assertEquals(1, m.intervalBoundFunctions.size());
+        Assert.assertEquals(RuntimeIntervalModel.BOUND_HI_INCLUSIVE, m.intervalBoundTypes.getQuick(0));
+        Assert.assertNull(m.filter);
+    }
+
     @Test
     public void testIntervalGreater5() throws Exception {
         IntrinsicModel m = noTimestampModelOf("timestamp > '2014-01-01T15:30:00.000Z'");
@@ -1162,12 +1221,12 @@ public class WhereClauseParserTest extends AbstractCairoTest {
 
     private IntrinsicModel modelOf(CharSequence seq, String preferredColumn) throws SqlException {
         queryModel.clear();
-        return e.extract(column -> column, compiler.testParseExpression(seq, queryModel), metadata, preferredColumn, metadata.getTimestampIndex());
+        return e.extract(column -> column, compiler.testParseExpression(seq, queryModel), metadata, preferredColumn, metadata.getTimestampIndex(), functionParser, sqlExecutionContext);
     }
 
     private IntrinsicModel noTimestampModelOf(CharSequence seq) throws SqlException {
         queryModel.clear();
-        return e.extract(column -> column, compiler.testParseExpression(seq, queryModel), noTimestampMetadata, null, noTimestampMetadata.getTimestampIndex());
+        return e.extract(column -> column, compiler.testParseExpression(seq, queryModel), noTimestampMetadata, null, noTimestampMetadata.getTimestampIndex(), functionParser, sqlExecutionContext);
     }
 
     private void testBadOperator(String op) {
@@ -1195,6 +1254,6 @@ public class WhereClauseParserTest extends AbstractCairoTest {
 
     private IntrinsicModel unindexedModelOf(CharSequence seq, String preferredColumn) throws SqlException {
         queryModel.clear();
-        return e.extract(column -> column, compiler.testParseExpression(seq, queryModel), unindexedMetadata, preferredColumn, unindexedMetadata.getTimestampIndex());
+        return e.extract(column -> column, compiler.testParseExpression(seq, queryModel), unindexedMetadata, preferredColumn, unindexedMetadata.getTimestampIndex(), functionParser, sqlExecutionContext);
     }
 }
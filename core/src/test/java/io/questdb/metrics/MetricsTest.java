@@ -0,0 +1,126 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.metrics;
+
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CyclicBarrier;
+
+public class MetricsTest {
+
+    @Test
+    public void testBucketOf() {
+        Assert.assertEquals(0, LatencyHistogram.bucketOf(0));
+        Assert.assertEquals(0, LatencyHistogram.bucketOf(1));
+        Assert.assertEquals(1, LatencyHistogram.bucketOf(2));
+        Assert.assertEquals(2, LatencyHistogram.bucketOf(3));
+        Assert.assertEquals(2, LatencyHistogram.bucketOf(4));
+        Assert.assertEquals(3, LatencyHistogram.bucketOf(5));
+        Assert.assertEquals(LatencyHistogram.MAX_POWER, LatencyHistogram.bucketOf(1L << LatencyHistogram.MAX_POWER));
+        Assert.assertEquals(LatencyHistogram.MAX_POWER + 1, LatencyHistogram.bucketOf((1L << LatencyHistogram.MAX_POWER) + 1));
+        Assert.assertEquals(LatencyHistogram.MAX_POWER + 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testConcurrentIncrements() throws Exception {
+        final Metrics metrics = new Metrics(true);
+        final int threadCount = 4;
+        final int iterations = 100_000;
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int j = 0; j < iterations; j++) {
+                        metrics.lineRows.inc();
+                        metrics.pgQueryLatency.record(j & 1023);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join();
+        }
+        Assert.assertEquals(threadCount * iterations, metrics.lineRows.get());
+        Assert.assertEquals(threadCount * iterations, metrics.pgQueryLatency.getCount());
+    }
+
+    @Test
+    public void testScrape() {
+        final Metrics metrics = new Metrics(true);
+        metrics.tableWriterCommits.inc();
+        metrics.tableWriterCommits.add(2);
+        metrics.httpQueryLatency.record(0);
+        metrics.httpQueryLatency.record(1);
+        metrics.httpQueryLatency.record(3);
+        metrics.httpQueryLatency.record(1_000_000);
+        metrics.httpQueryLatency.record(100_000_000);
+
+        final StringSink sink = new StringSink();
+        metrics.scrapeInto(sink);
+        Metrics.putGauge(sink, "questdb_test_gauge", "Test gauge", 42);
+
+        TestUtils.assertContains(
+                sink,
+                "# HELP questdb_table_writer_commits_total Number of table commits\n" +
+                        "# TYPE questdb_table_writer_commits_total counter\n" +
+                        "questdb_table_writer_commits_total 3\n"
+        );
+        TestUtils.assertContains(
+                sink,
+                "# TYPE questdb_http_query_latency_seconds histogram\n" +
+                        "questdb_http_query_latency_seconds_bucket{le=\"0.000001\"} 2\n" +
+                        "questdb_http_query_latency_seconds_bucket{le=\"0.000002\"} 2\n" +
+                        "questdb_http_query_latency_seconds_bucket{le=\"0.000004\"} 3\n"
+        );
+        TestUtils.assertContains(
+                sink,
+                "questdb_http_query_latency_seconds_bucket{le=\"0.524288\"} 3\n" +
+                        "questdb_http_query_latency_seconds_bucket{le=\"1.048576\"} 4\n"
+        );
+        TestUtils.assertContains(
+                sink,
+                "questdb_http_query_latency_seconds_bucket{le=\"16.777216\"} 4\n" +
+                        "questdb_http_query_latency_seconds_bucket{le=\"+Inf\"} 5\n" +
+                        "questdb_http_query_latency_seconds_sum 101.000004\n" +
+                        "questdb_http_query_latency_seconds_count 5\n"
+        );
+        TestUtils.assertContains(sink, "questdb_pg_query_latency_seconds_sum 0.000000\n");
+        TestUtils.assertContains(
+                sink,
+                "# HELP questdb_test_gauge Test gauge\n" +
+                        "# TYPE questdb_test_gauge gauge\n" +
+                        "questdb_test_gauge 42\n"
+        );
+    }
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.mp;
+
+import io.questdb.std.FilesFacadeImpl;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class NumaTopologyTest {
+    @ClassRule
+    public static TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testMissingDirectory() {
+        final NumaTopology topology = NumaTopology.read(FilesFacadeImpl.INSTANCE, new File(temp.getRoot(), "none").getAbsolutePath());
+        Assert.assertEquals(1, topology.getNodeCount());
+        Assert.assertEquals(Runtime.getRuntime().availableProcessors(), topology.getNodeCpus(0).size());
+        Assert.assertEquals(0, topology.getCpuNode(0));
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        final NumaTopology topology = readTwoNodes();
+        Assert.assertEquals(2, topology.getNodeCount());
+        Assert.assertEquals(0, topology.getNodeId(0));
+        Assert.assertEquals(2, topology.getNodeId(1));
+        Assert.assertEquals("[0,1,4]", topology.getNodeCpus(0).toString());
+        Assert.assertEquals("[2,3,5,6,7]", topology.getNodeCpus(1).toString());
+        Assert.assertEquals(0, topology.getCpuNode(4));
+        Assert.assertEquals(1, topology.getCpuNode(6));
+        Assert.assertEquals(-1, topology.getCpuNode(8));
+        Assert.assertEquals(-1, topology.getCpuNode(-1));
+    }
+
+    @Test
+    public void testWorkerNodesOfAffinity() throws IOException {
+        final WorkerPool pool = new WorkerPool(new TestPoolConfiguration(new int[]{5, 1, -1}, false), readTwoNodes());
+        Assert.assertEquals(2, pool.getNodeCount());
+        Assert.assertEquals(1, pool.getWorkerNode(0));
+        Assert.assertEquals(0, pool.getWorkerNode(1));
+        Assert.assertEquals(-1, pool.getWorkerNode(2));
+        Assert.assertEquals(-1, pool.getWorkerAffinity(2));
+    }
+
+    @Test
+    public void testWorkersGroupedPerNode() throws IOException {
+        final WorkerPool pool = new WorkerPool(new TestPoolConfiguration(new int[]{-1, -1, -1, -1, -1}, true), readTwoNodes());
+        Assert.assertEquals(2, pool.getNodeCount());
+        final int[] expectedNodes = {0, 0, 0, 1, 1};
+        final int[] expectedAffinity = {0, 1, 4, 2, 3};
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(expectedNodes[i], pool.getWorkerNode(i));
+            Assert.assertEquals(expectedAffinity[i], pool.getWorkerAffinity(i));
+        }
+    }
+
+    @Test
+    public void testWorkersOfSingleNodeAreNotPinned() {
+        final WorkerPool pool = new WorkerPool(new TestPoolConfiguration(new int[]{-1, -1}, true), NumaTopology.flat(4));
+        Assert.assertEquals(1, pool.getNodeCount());
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals(-1, pool.getWorkerNode(i));
+            Assert.assertEquals(-1, pool.getWorkerAffinity(i));
+        }
+    }
+
+    private static NumaTopology readTwoNodes() throws IOException {
+        final File root = temp.newFolder();
+        writeFile(new File(root, "node0"), "cpulist", "0-1,4\n");
+        writeFile(new File(root, "node2"), "cpulist", "2-3,5-7\n");
+        // memory only node
+        writeFile(new File(root, "node3"), "cpulist", "\n");
+        writeFile(new File(root, "node4"), "cpulist", "1-x\n");
+        writeFile(root, "possible", "0,2-4\n");
+        return NumaTopology.read(FilesFacadeImpl.INSTANCE, root.getAbsolutePath());
+    }
+
+    private static void writeFile(File dir, String name, String content) throws IOException {
+        Assert.assertTrue(dir.exists() || dir.mkdir());
+        try (FileOutputStream out = new FileOutputStream(new File(dir, name))) {
+            out.write(content.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static class TestPoolConfiguration implements WorkerPoolConfiguration {
+        private final int[] affinity;
+        private final boolean numaAware;
+
+        private TestPoolConfiguration(int[] affinity, boolean numaAware) {
+            this.affinity = affinity;
+            this.numaAware = numaAware;
+        }
+
+        @Override
+        public int[] getWorkerAffinity() {
+            return affinity;
+        }
+
+        @Override
+        public int getWorkerCount() {
+            return affinity.length;
+        }
+
+        @Override
+        public boolean haltOnError() {
+            return false;
+        }
+
+        @Override
+        public boolean isNumaAware() {
+            return numaAware;
+        }
+    }
+}